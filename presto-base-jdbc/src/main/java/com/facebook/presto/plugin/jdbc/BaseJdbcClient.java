@@ -15,6 +15,7 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableMetadata;
@@ -43,10 +44,12 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.UUID;
 
@@ -98,6 +101,14 @@ public class BaseJdbcClient
             .put(TIMESTAMP_WITH_TIME_ZONE, "timestamp with timezone")
             .build();
 
+    // types whose equality and ordering are the same in Presto and in the remote databases,
+    // unlike character types (collations), floating point types (NaN, -0.0) and time types (time zones)
+    private static final Set<Type> COMPARABLE_TYPES = ImmutableSet.of(BOOLEAN, BIGINT, INTEGER, SMALLINT, TINYINT, DATE);
+    private static final Set<Type> MIN_MAX_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, REAL, DATE);
+    private static final Set<Type> INTEGRAL_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT);
+    private static final JdbcTypeHandle BIGINT_TYPE_HANDLE = new JdbcTypeHandle(Types.BIGINT, 0, 0);
+    private static final JdbcTypeHandle DOUBLE_TYPE_HANDLE = new JdbcTypeHandle(Types.DOUBLE, 0, 0);
+
     protected final String connectorId;
     protected final ConnectionFactory connectionFactory;
     protected final String identifierQuote;
@@ -241,10 +252,224 @@ public class BaseJdbcClient
                 tableHandle.getSchemaName(),
                 tableHandle.getTableName(),
                 layoutHandle.getTupleDomain(),
-                Optional.empty());
+                Optional.empty(),
+                tableHandle.getAggregation(),
+                tableHandle.getSortOrder(),
+                tableHandle.getLimit(),
+                tableHandle.getJoin());
         return new FixedSplitSource(ImmutableList.of(jdbcSplit));
     }
 
+    @Override
+    public Optional<JdbcTableHandle> pushdownAggregation(
+            ConnectorSession session,
+            JdbcTableLayoutHandle layoutHandle,
+            List<JdbcColumnHandle> groupingColumns,
+            List<ConnectorAggregateFunction> aggregates)
+    {
+        JdbcTableHandle tableHandle = layoutHandle.getTable();
+        // the query builder only applies the predicate to the grouping columns of an aggregation
+        if (tableHandle.getAggregation().isPresent() || tableHandle.getLimit().isPresent() || !layoutHandle.getTupleDomain().isAll()) {
+            return Optional.empty();
+        }
+        if (!groupingColumns.stream().map(JdbcColumnHandle::getColumnType).allMatch(COMPARABLE_TYPES::contains)) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<JdbcAggregate> jdbcAggregates = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            Optional<JdbcAggregate> jdbcAggregate = toJdbcAggregate(aggregates.get(i), "_presto_aggregate_" + i);
+            if (!jdbcAggregate.isPresent()) {
+                return Optional.empty();
+            }
+            jdbcAggregates.add(jdbcAggregate.get());
+        }
+
+        return Optional.of(new JdbcTableHandle(
+                tableHandle.getConnectorId(),
+                tableHandle.getSchemaTableName(),
+                tableHandle.getCatalogName(),
+                tableHandle.getSchemaName(),
+                tableHandle.getTableName(),
+                Optional.of(new JdbcAggregation(groupingColumns, jdbcAggregates.build())),
+                ImmutableList.of(),
+                OptionalLong.empty(),
+                tableHandle.getJoin()));
+    }
+
+    @Override
+    public Optional<JdbcTableHandle> pushdownLimit(ConnectorSession session, JdbcTableLayoutHandle layoutHandle, long limit, List<JdbcSortItem> sortOrder)
+    {
+        JdbcTableHandle tableHandle = layoutHandle.getTable();
+        // the limited table is read without the predicate of the layout
+        if (!supportsLimit() || !layoutHandle.getTupleDomain().isAll()) {
+            return Optional.empty();
+        }
+        if (!sortOrder.isEmpty() && (!supportsTopN() || !sortOrder.stream().map(item -> item.getColumn().getColumnType()).allMatch(COMPARABLE_TYPES::contains))) {
+            return Optional.empty();
+        }
+        // a limited table can only be limited further in the same order
+        if (tableHandle.getLimit().isPresent() && (tableHandle.getLimit().getAsLong() <= limit || !tableHandle.getSortOrder().equals(sortOrder))) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new JdbcTableHandle(
+                tableHandle.getConnectorId(),
+                tableHandle.getSchemaTableName(),
+                tableHandle.getCatalogName(),
+                tableHandle.getSchemaName(),
+                tableHandle.getTableName(),
+                tableHandle.getAggregation(),
+                sortOrder,
+                OptionalLong.of(limit),
+                tableHandle.getJoin()));
+    }
+
+    @Override
+    public Optional<JdbcTableHandle> pushdownJoin(
+            ConnectorSession session,
+            JdbcTableLayoutHandle leftLayoutHandle,
+            JdbcTableLayoutHandle rightLayoutHandle,
+            List<JdbcJoinCondition> conditions,
+            List<JdbcColumnHandle> leftColumns,
+            List<JdbcColumnHandle> rightColumns)
+    {
+        JdbcTableHandle left = leftLayoutHandle.getTable();
+        JdbcTableHandle right = rightLayoutHandle.getTable();
+        if (!supportsJoin() || !isPlainTable(left) || !isPlainTable(right)) {
+            return Optional.empty();
+        }
+        if (leftLayoutHandle.getTupleDomain().isNone() || rightLayoutHandle.getTupleDomain().isNone()) {
+            return Optional.empty();
+        }
+        // the remote database must match the keys the way Presto does
+        for (JdbcJoinCondition condition : conditions) {
+            Type type = condition.getLeft().getColumnType();
+            if (!type.equals(condition.getRight().getColumnType()) || !COMPARABLE_TYPES.contains(type)) {
+                return Optional.empty();
+            }
+        }
+
+        List<JdbcColumnHandle> sourceColumns = ImmutableList.<JdbcColumnHandle>builder()
+                .addAll(leftColumns)
+                .addAll(rightColumns)
+                .build();
+        ImmutableList.Builder<JdbcColumnHandle> outputColumns = ImmutableList.builder();
+        for (int i = 0; i < sourceColumns.size(); i++) {
+            JdbcColumnHandle column = sourceColumns.get(i);
+            outputColumns.add(new JdbcColumnHandle(connectorId, "_presto_join_" + i, column.getJdbcTypeHandle(), column.getColumnType(), column.isNullable()));
+        }
+
+        return Optional.of(new JdbcTableHandle(
+                left.getConnectorId(),
+                left.getSchemaTableName(),
+                left.getCatalogName(),
+                left.getSchemaName(),
+                left.getTableName(),
+                Optional.empty(),
+                ImmutableList.of(),
+                OptionalLong.empty(),
+                Optional.of(new JdbcJoin(
+                        right,
+                        conditions,
+                        leftLayoutHandle.getTupleDomain().transform(JdbcColumnHandle.class::cast),
+                        rightLayoutHandle.getTupleDomain().transform(JdbcColumnHandle.class::cast),
+                        leftColumns,
+                        rightColumns,
+                        outputColumns.build()))));
+    }
+
+    private static boolean isPlainTable(JdbcTableHandle tableHandle)
+    {
+        return !tableHandle.getAggregation().isPresent() && !tableHandle.getLimit().isPresent() && !tableHandle.getJoin().isPresent();
+    }
+
+    /**
+     * Whether the remote database joins tables with {@code table l JOIN table r ON l.column = r.column}.
+     */
+    protected boolean supportsJoin()
+    {
+        return true;
+    }
+
+    /**
+     * Whether the remote database limits the rows of a query with {@code LIMIT n}.
+     */
+    protected boolean supportsLimit()
+    {
+        return true;
+    }
+
+    /**
+     * Whether the remote database sorts the rows of a query with {@code ORDER BY column ASC|DESC NULLS FIRST|LAST}
+     * ahead of the {@code LIMIT}.
+     */
+    protected boolean supportsTopN()
+    {
+        return true;
+    }
+
+    /**
+     * Returns the aggregate as computed by the remote database, or empty if the remote database
+     * may compute a different result than Presto.
+     */
+    protected Optional<JdbcAggregate> toJdbcAggregate(ConnectorAggregateFunction aggregate, String outputColumnName)
+    {
+        if (aggregate.getArguments().size() > 1) {
+            return Optional.empty();
+        }
+        Optional<JdbcColumnHandle> argument = aggregate.getArguments().stream()
+                .map(JdbcColumnHandle.class::cast)
+                .findFirst();
+        Optional<Type> argumentType = argument.map(JdbcColumnHandle::getColumnType);
+        if (aggregate.isDistinct() && !argumentType.map(COMPARABLE_TYPES::contains).orElse(false)) {
+            return Optional.empty();
+        }
+
+        JdbcTypeHandle outputTypeHandle;
+        Type outputType;
+        switch (aggregate.getFunctionName()) {
+            case "count":
+                outputTypeHandle = BIGINT_TYPE_HANDLE;
+                outputType = BIGINT;
+                break;
+            case "sum":
+                if (!argumentType.isPresent() || !(INTEGRAL_TYPES.contains(argumentType.get()) || argumentType.get().equals(DOUBLE))) {
+                    return Optional.empty();
+                }
+                outputTypeHandle = argumentType.get().equals(DOUBLE) ? DOUBLE_TYPE_HANDLE : BIGINT_TYPE_HANDLE;
+                outputType = argumentType.get().equals(DOUBLE) ? DOUBLE : BIGINT;
+                break;
+            case "avg":
+                // the average of integers is rounded or truncated by some databases
+                if (!argumentType.isPresent() || !argumentType.get().equals(DOUBLE)) {
+                    return Optional.empty();
+                }
+                outputTypeHandle = DOUBLE_TYPE_HANDLE;
+                outputType = DOUBLE;
+                break;
+            case "min":
+            case "max":
+                if (!argumentType.isPresent() || !MIN_MAX_TYPES.contains(argumentType.get())) {
+                    return Optional.empty();
+                }
+                outputTypeHandle = argument.get().getJdbcTypeHandle();
+                outputType = argumentType.get();
+                break;
+            default:
+                return Optional.empty();
+        }
+        if (!outputType.equals(aggregate.getOutputType())) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new JdbcAggregate(
+                aggregate.getFunctionName(),
+                argument,
+                aggregate.isDistinct(),
+                new JdbcColumnHandle(connectorId, outputColumnName, outputTypeHandle, outputType, true)));
+    }
+
     @Override
     public Connection getConnection(JdbcSplit split)
             throws SQLException
@@ -272,7 +497,11 @@ public class BaseJdbcClient
                 split.getTableName(),
                 columnHandles,
                 split.getTupleDomain(),
-                split.getAdditionalPredicate());
+                split.getAdditionalPredicate(),
+                split.getAggregation(),
+                split.getSortOrder(),
+                split.getLimit(),
+                split.getJoin());
     }
 
     @Override
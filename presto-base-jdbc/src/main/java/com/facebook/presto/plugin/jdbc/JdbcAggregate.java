@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An aggregate function computed by the remote database, read through the {@code output} column.
+ */
+public final class JdbcAggregate
+{
+    private final String functionName;
+    private final Optional<JdbcColumnHandle> argument;
+    private final boolean distinct;
+    private final JdbcColumnHandle output;
+
+    @JsonCreator
+    public JdbcAggregate(
+            @JsonProperty("functionName") String functionName,
+            @JsonProperty("argument") Optional<JdbcColumnHandle> argument,
+            @JsonProperty("distinct") boolean distinct,
+            @JsonProperty("output") JdbcColumnHandle output)
+    {
+        this.functionName = requireNonNull(functionName, "functionName is null");
+        this.argument = requireNonNull(argument, "argument is null");
+        this.distinct = distinct;
+        this.output = requireNonNull(output, "output is null");
+    }
+
+    @JsonProperty
+    public String getFunctionName()
+    {
+        return functionName;
+    }
+
+    @JsonProperty
+    public Optional<JdbcColumnHandle> getArgument()
+    {
+        return argument;
+    }
+
+    @JsonProperty
+    public boolean isDistinct()
+    {
+        return distinct;
+    }
+
+    @JsonProperty
+    public JdbcColumnHandle getOutput()
+    {
+        return output;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JdbcAggregate that = (JdbcAggregate) o;
+        return distinct == that.distinct &&
+                Objects.equals(functionName, that.functionName) &&
+                Objects.equals(argument, that.argument) &&
+                Objects.equals(output, that.output);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(functionName, argument, distinct, output);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("functionName", functionName)
+                .add("argument", argument.map(JdbcColumnHandle::getColumnName).orElse("*"))
+                .add("distinct", distinct)
+                .add("output", output.getColumnName())
+                .toString();
+    }
+}
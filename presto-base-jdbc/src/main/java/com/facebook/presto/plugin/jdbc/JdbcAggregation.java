@@ -0,0 +1,92 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Aggregation of a table computed by the remote database. The rows of the aggregated table are
+ * the groups of {@code groupingColumns}, or a single row if there are no grouping columns.
+ */
+public final class JdbcAggregation
+{
+    private final List<JdbcColumnHandle> groupingColumns;
+    private final List<JdbcAggregate> aggregates;
+
+    @JsonCreator
+    public JdbcAggregation(
+            @JsonProperty("groupingColumns") List<JdbcColumnHandle> groupingColumns,
+            @JsonProperty("aggregates") List<JdbcAggregate> aggregates)
+    {
+        this.groupingColumns = ImmutableList.copyOf(requireNonNull(groupingColumns, "groupingColumns is null"));
+        this.aggregates = ImmutableList.copyOf(requireNonNull(aggregates, "aggregates is null"));
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    @JsonProperty
+    public List<JdbcAggregate> getAggregates()
+    {
+        return aggregates;
+    }
+
+    public Optional<JdbcAggregate> getAggregate(JdbcColumnHandle output)
+    {
+        return aggregates.stream()
+                .filter(aggregate -> aggregate.getOutput().equals(output))
+                .findFirst();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JdbcAggregation that = (JdbcAggregation) o;
+        return Objects.equals(groupingColumns, that.groupingColumns) &&
+                Objects.equals(aggregates, that.aggregates);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(groupingColumns, aggregates);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("groupingColumns", groupingColumns)
+                .add("aggregates", aggregates)
+                .toString();
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableMetadata;
@@ -51,6 +52,31 @@ public interface JdbcClient
 
     ConnectorSplitSource getSplits(JdbcTableLayoutHandle layoutHandle);
 
+    /**
+     * Returns a table handle whose rows are the rows of the layout aggregated by the remote database,
+     * or empty if the remote database cannot compute the aggregation.
+     */
+    Optional<JdbcTableHandle> pushdownAggregation(ConnectorSession session, JdbcTableLayoutHandle layoutHandle, List<JdbcColumnHandle> groupingColumns, List<ConnectorAggregateFunction> aggregates);
+
+    /**
+     * Returns a table handle whose rows are at most {@code limit} rows of the layout, selected by the remote database
+     * in {@code sortOrder} when it is not empty, or empty if the remote database cannot select the rows.
+     */
+    Optional<JdbcTableHandle> pushdownLimit(ConnectorSession session, JdbcTableLayoutHandle layoutHandle, long limit, List<JdbcSortItem> sortOrder);
+
+    /**
+     * Returns a table handle whose rows are the rows of the left layout joined by the remote database with the rows of the
+     * right layout on {@code conditions}, and whose columns are new columns holding {@code leftColumns} followed by
+     * {@code rightColumns}, or empty if the remote database cannot join the layouts.
+     */
+    Optional<JdbcTableHandle> pushdownJoin(
+            ConnectorSession session,
+            JdbcTableLayoutHandle leftLayoutHandle,
+            JdbcTableLayoutHandle rightLayoutHandle,
+            List<JdbcJoinCondition> conditions,
+            List<JdbcColumnHandle> leftColumns,
+            List<JdbcColumnHandle> rightColumns);
+
     Connection getConnection(JdbcSplit split)
             throws SQLException;
 
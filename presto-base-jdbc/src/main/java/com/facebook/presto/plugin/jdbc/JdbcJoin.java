@@ -0,0 +1,141 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Inner join of a table with another table of the same remote database, computed by the remote database.
+ * The columns of the joined table are {@code outputColumns}, which hold {@code leftColumns} followed by
+ * {@code rightColumns}, and each side is filtered by its tuple domain before the join.
+ */
+public final class JdbcJoin
+{
+    private final JdbcTableHandle right;
+    private final List<JdbcJoinCondition> conditions;
+    private final TupleDomain<JdbcColumnHandle> leftTupleDomain;
+    private final TupleDomain<JdbcColumnHandle> rightTupleDomain;
+    private final List<JdbcColumnHandle> leftColumns;
+    private final List<JdbcColumnHandle> rightColumns;
+    private final List<JdbcColumnHandle> outputColumns;
+
+    @JsonCreator
+    public JdbcJoin(
+            @JsonProperty("right") JdbcTableHandle right,
+            @JsonProperty("conditions") List<JdbcJoinCondition> conditions,
+            @JsonProperty("leftTupleDomain") TupleDomain<JdbcColumnHandle> leftTupleDomain,
+            @JsonProperty("rightTupleDomain") TupleDomain<JdbcColumnHandle> rightTupleDomain,
+            @JsonProperty("leftColumns") List<JdbcColumnHandle> leftColumns,
+            @JsonProperty("rightColumns") List<JdbcColumnHandle> rightColumns,
+            @JsonProperty("outputColumns") List<JdbcColumnHandle> outputColumns)
+    {
+        this.right = requireNonNull(right, "right is null");
+        this.conditions = ImmutableList.copyOf(requireNonNull(conditions, "conditions is null"));
+        this.leftTupleDomain = requireNonNull(leftTupleDomain, "leftTupleDomain is null");
+        this.rightTupleDomain = requireNonNull(rightTupleDomain, "rightTupleDomain is null");
+        this.leftColumns = ImmutableList.copyOf(requireNonNull(leftColumns, "leftColumns is null"));
+        this.rightColumns = ImmutableList.copyOf(requireNonNull(rightColumns, "rightColumns is null"));
+        this.outputColumns = ImmutableList.copyOf(requireNonNull(outputColumns, "outputColumns is null"));
+        checkArgument(!conditions.isEmpty(), "conditions is empty");
+        checkArgument(outputColumns.size() == leftColumns.size() + rightColumns.size(), "outputColumns must hold leftColumns and rightColumns");
+    }
+
+    @JsonProperty
+    public JdbcTableHandle getRight()
+    {
+        return right;
+    }
+
+    @JsonProperty
+    public List<JdbcJoinCondition> getConditions()
+    {
+        return conditions;
+    }
+
+    @JsonProperty
+    public TupleDomain<JdbcColumnHandle> getLeftTupleDomain()
+    {
+        return leftTupleDomain;
+    }
+
+    @JsonProperty
+    public TupleDomain<JdbcColumnHandle> getRightTupleDomain()
+    {
+        return rightTupleDomain;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getLeftColumns()
+    {
+        return leftColumns;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getRightColumns()
+    {
+        return rightColumns;
+    }
+
+    @JsonProperty
+    public List<JdbcColumnHandle> getOutputColumns()
+    {
+        return outputColumns;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JdbcJoin that = (JdbcJoin) o;
+        return Objects.equals(right, that.right) &&
+                Objects.equals(conditions, that.conditions) &&
+                Objects.equals(leftTupleDomain, that.leftTupleDomain) &&
+                Objects.equals(rightTupleDomain, that.rightTupleDomain) &&
+                Objects.equals(leftColumns, that.leftColumns) &&
+                Objects.equals(rightColumns, that.rightColumns) &&
+                Objects.equals(outputColumns, that.outputColumns);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(right, conditions, leftTupleDomain, rightTupleDomain, leftColumns, rightColumns, outputColumns);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("right", right)
+                .add("conditions", conditions)
+                .add("leftTupleDomain", leftTupleDomain)
+                .add("rightTupleDomain", rightTupleDomain)
+                .toString();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.plugin.jdbc;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+public final class JdbcJoinCondition
+{
+    private final JdbcColumnHandle left;
+    private final JdbcColumnHandle right;
+
+    @JsonCreator
+    public JdbcJoinCondition(
+            @JsonProperty("left") JdbcColumnHandle left,
+            @JsonProperty("right") JdbcColumnHandle right)
+    {
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+    }
+
+    @JsonProperty
+    public JdbcColumnHandle getLeft()
+    {
+        return left;
+    }
+
+    @JsonProperty
+    public JdbcColumnHandle getRight()
+    {
+        return right;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        JdbcJoinCondition that = (JdbcJoinCondition) o;
+        return Objects.equals(left, that.left) &&
+                Objects.equals(right, that.right);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(left, right);
+    }
+
+    @Override
+    public String toString()
+    {
+        return left.getColumnName() + " = " + right.getColumnName();
+    }
+}
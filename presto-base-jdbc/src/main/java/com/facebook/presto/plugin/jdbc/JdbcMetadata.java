@@ -15,9 +15,14 @@ package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
+import com.facebook.presto.spi.ConnectorJoinCondition;
 import com.facebook.presto.spi.ConnectorNewTableLayout;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPushdownAggregationResult;
+import com.facebook.presto.spi.ConnectorPushdownJoinResult;
+import com.facebook.presto.spi.ConnectorPushdownLimitResult;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableLayout;
@@ -28,6 +33,7 @@ import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorOutputMetadata;
@@ -46,6 +52,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.spi.StandardErrorCode.PERMISSION_DENIED;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class JdbcMetadata
@@ -94,6 +101,79 @@ public class JdbcMetadata
         return new ConnectorTableLayout(handle);
     }
 
+    @Override
+    public Optional<ConnectorPushdownAggregationResult> pushdownAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            List<ColumnHandle> groupingColumns,
+            List<ConnectorAggregateFunction> aggregates)
+    {
+        List<JdbcColumnHandle> jdbcGroupingColumns = groupingColumns.stream()
+                .map(JdbcColumnHandle.class::cast)
+                .collect(toImmutableList());
+        return jdbcClient.pushdownAggregation(session, (JdbcTableLayoutHandle) layoutHandle, jdbcGroupingColumns, aggregates)
+                .map(handle -> new ConnectorPushdownAggregationResult(
+                        handle,
+                        groupingColumns,
+                        handle.getAggregation().get().getAggregates().stream()
+                                .map(JdbcAggregate::getOutput)
+                                .collect(toImmutableList())));
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownLimit(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle layoutHandle, long limit)
+    {
+        // a JDBC table is read in a single split
+        return jdbcClient.pushdownLimit(session, (JdbcTableLayoutHandle) layoutHandle, limit, ImmutableList.of())
+                .map(handle -> new ConnectorPushdownLimitResult(handle, true));
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownTopN(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long count,
+            List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        List<JdbcSortItem> jdbcSortOrder = sortOrder.stream()
+                .map(property -> new JdbcSortItem((JdbcColumnHandle) property.getColumn(), property.getOrder()))
+                .collect(toImmutableList());
+        return jdbcClient.pushdownLimit(session, (JdbcTableLayoutHandle) layoutHandle, count, jdbcSortOrder)
+                .map(handle -> new ConnectorPushdownLimitResult(handle, true));
+    }
+
+    @Override
+    public Optional<ConnectorPushdownJoinResult> pushdownJoin(
+            ConnectorSession session,
+            ConnectorTableHandle leftTableHandle,
+            ConnectorTableLayoutHandle leftLayoutHandle,
+            ConnectorTableHandle rightTableHandle,
+            ConnectorTableLayoutHandle rightLayoutHandle,
+            List<ConnectorJoinCondition> conditions,
+            List<ColumnHandle> leftColumns,
+            List<ColumnHandle> rightColumns)
+    {
+        List<JdbcJoinCondition> jdbcConditions = conditions.stream()
+                .map(condition -> new JdbcJoinCondition((JdbcColumnHandle) condition.getLeft(), (JdbcColumnHandle) condition.getRight()))
+                .collect(toImmutableList());
+        List<JdbcColumnHandle> jdbcLeftColumns = leftColumns.stream()
+                .map(JdbcColumnHandle.class::cast)
+                .collect(toImmutableList());
+        List<JdbcColumnHandle> jdbcRightColumns = rightColumns.stream()
+                .map(JdbcColumnHandle.class::cast)
+                .collect(toImmutableList());
+        return jdbcClient.pushdownJoin(session, (JdbcTableLayoutHandle) leftLayoutHandle, (JdbcTableLayoutHandle) rightLayoutHandle, jdbcConditions, jdbcLeftColumns, jdbcRightColumns)
+                .map(handle -> {
+                    List<JdbcColumnHandle> outputColumns = handle.getJoin().get().getOutputColumns();
+                    return new ConnectorPushdownJoinResult(
+                            handle,
+                            ImmutableList.<ColumnHandle>copyOf(outputColumns.subList(0, leftColumns.size())),
+                            ImmutableList.<ColumnHandle>copyOf(outputColumns.subList(leftColumns.size(), outputColumns.size())));
+                });
+    }
+
     @Override
     public ConnectorTableMetadata getTableMetadata(ConnectorSession session, ConnectorTableHandle table)
     {
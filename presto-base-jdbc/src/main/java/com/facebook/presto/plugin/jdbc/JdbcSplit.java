@@ -25,6 +25,7 @@ import javax.annotation.Nullable;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static java.util.Objects.requireNonNull;
 
@@ -37,6 +38,10 @@ public class JdbcSplit
     private final String tableName;
     private final TupleDomain<ColumnHandle> tupleDomain;
     private final Optional<String> additionalPredicate;
+    private final Optional<JdbcAggregation> aggregation;
+    private final List<JdbcSortItem> sortOrder;
+    private final OptionalLong limit;
+    private final Optional<JdbcJoin> join;
 
     @JsonCreator
     public JdbcSplit(
@@ -45,7 +50,11 @@ public class JdbcSplit
             @JsonProperty("schemaName") @Nullable String schemaName,
             @JsonProperty("tableName") String tableName,
             @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> tupleDomain,
-            @JsonProperty("additionalProperty") Optional<String> additionalPredicate)
+            @JsonProperty("additionalProperty") Optional<String> additionalPredicate,
+            @JsonProperty("aggregation") Optional<JdbcAggregation> aggregation,
+            @JsonProperty("sortOrder") List<JdbcSortItem> sortOrder,
+            @JsonProperty("limit") OptionalLong limit,
+            @JsonProperty("join") Optional<JdbcJoin> join)
     {
         this.connectorId = requireNonNull(connectorId, "connector id is null");
         this.catalogName = catalogName;
@@ -53,6 +62,10 @@ public class JdbcSplit
         this.tableName = requireNonNull(tableName, "table name is null");
         this.tupleDomain = requireNonNull(tupleDomain, "tupleDomain is null");
         this.additionalPredicate = requireNonNull(additionalPredicate, "additionalPredicate is null");
+        this.aggregation = requireNonNull(aggregation, "aggregation is null");
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.limit = requireNonNull(limit, "limit is null");
+        this.join = requireNonNull(join, "join is null");
     }
 
     @JsonProperty
@@ -93,6 +106,30 @@ public class JdbcSplit
         return additionalPredicate;
     }
 
+    @JsonProperty
+    public Optional<JdbcAggregation> getAggregation()
+    {
+        return aggregation;
+    }
+
+    @JsonProperty
+    public List<JdbcSortItem> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
+    @JsonProperty
+    public Optional<JdbcJoin> getJoin()
+    {
+        return join;
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
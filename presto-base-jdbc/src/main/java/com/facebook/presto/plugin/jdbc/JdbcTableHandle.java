@@ -18,11 +18,16 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 
 import javax.annotation.Nullable;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public final class JdbcTableHandle
@@ -33,6 +38,15 @@ public final class JdbcTableHandle
     private final String catalogName;
     private final String schemaName;
     private final String tableName;
+    private final Optional<JdbcAggregation> aggregation;
+    private final List<JdbcSortItem> sortOrder;
+    private final OptionalLong limit;
+    private final Optional<JdbcJoin> join;
+
+    public JdbcTableHandle(String connectorId, SchemaTableName schemaTableName, @Nullable String catalogName, @Nullable String schemaName, String tableName)
+    {
+        this(connectorId, schemaTableName, catalogName, schemaName, tableName, Optional.empty(), ImmutableList.of(), OptionalLong.empty(), Optional.empty());
+    }
 
     @JsonCreator
     public JdbcTableHandle(
@@ -40,13 +54,22 @@ public final class JdbcTableHandle
             @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
             @JsonProperty("catalogName") @Nullable String catalogName,
             @JsonProperty("schemaName") @Nullable String schemaName,
-            @JsonProperty("tableName") String tableName)
+            @JsonProperty("tableName") String tableName,
+            @JsonProperty("aggregation") Optional<JdbcAggregation> aggregation,
+            @JsonProperty("sortOrder") List<JdbcSortItem> sortOrder,
+            @JsonProperty("limit") OptionalLong limit,
+            @JsonProperty("join") Optional<JdbcJoin> join)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null");
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
         this.catalogName = catalogName;
         this.schemaName = schemaName;
         this.tableName = requireNonNull(tableName, "tableName is null");
+        this.aggregation = requireNonNull(aggregation, "aggregation is null");
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.limit = requireNonNull(limit, "limit is null");
+        this.join = requireNonNull(join, "join is null");
+        checkArgument(sortOrder.isEmpty() || limit.isPresent(), "sortOrder requires a limit");
     }
 
     @JsonProperty
@@ -81,6 +104,36 @@ public final class JdbcTableHandle
         return tableName;
     }
 
+    @JsonProperty
+    public Optional<JdbcAggregation> getAggregation()
+    {
+        return aggregation;
+    }
+
+    /**
+     * The order in which the remote database selects the first {@link #getLimit()} rows.
+     */
+    @JsonProperty
+    public List<JdbcSortItem> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
+    /**
+     * The table this table is joined with by the remote database, ahead of the aggregation and the limit.
+     */
+    @JsonProperty
+    public Optional<JdbcJoin> getJoin()
+    {
+        return join;
+    }
+
     @Override
     public boolean equals(Object obj)
     {
@@ -92,18 +145,29 @@ public final class JdbcTableHandle
         }
         JdbcTableHandle o = (JdbcTableHandle) obj;
         return Objects.equals(this.connectorId, o.connectorId) &&
-                Objects.equals(this.schemaTableName, o.schemaTableName);
+                Objects.equals(this.schemaTableName, o.schemaTableName) &&
+                Objects.equals(this.aggregation, o.aggregation) &&
+                Objects.equals(this.sortOrder, o.sortOrder) &&
+                Objects.equals(this.limit, o.limit) &&
+                Objects.equals(this.join, o.join);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(connectorId, schemaTableName);
+        return Objects.hash(connectorId, schemaTableName, aggregation, sortOrder, limit, join);
     }
 
     @Override
     public String toString()
     {
-        return Joiner.on(":").useForNull("null").join(connectorId, schemaTableName, catalogName, schemaName, tableName);
+        StringBuilder builder = new StringBuilder(Joiner.on(":").useForNull("null").join(connectorId, schemaTableName, catalogName, schemaName, tableName));
+        join.ifPresent(value -> builder.append(":").append(value));
+        aggregation.ifPresent(value -> builder.append(":").append(value));
+        if (!sortOrder.isEmpty()) {
+            builder.append(":").append(sortOrder);
+        }
+        limit.ifPresent(value -> builder.append(":limit=").append(value));
+        return builder.toString();
     }
 }
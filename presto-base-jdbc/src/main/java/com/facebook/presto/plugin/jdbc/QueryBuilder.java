@@ -14,6 +14,7 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.TupleDomain;
@@ -46,6 +47,8 @@ import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.function.Function;
 
 import static com.facebook.presto.spi.type.DateTimeEncoding.unpackMillisUtc;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -65,6 +68,9 @@ public class QueryBuilder
     private static final String ALWAYS_TRUE = "1=1";
     private static final String ALWAYS_FALSE = "1=0";
 
+    private static final String LEFT_ALIAS = "l";
+    private static final String RIGHT_ALIAS = "r";
+
     private final String quote;
 
     private static class TypeAndValue
@@ -104,12 +110,46 @@ public class QueryBuilder
             TupleDomain<ColumnHandle> tupleDomain,
             Optional<String> additionalPredicate)
             throws SQLException
+    {
+        return buildSql(client, connection, catalog, schema, table, columns, tupleDomain, additionalPredicate, Optional.empty(), ImmutableList.of(), OptionalLong.empty());
+    }
+
+    public PreparedStatement buildSql(
+            JdbcClient client,
+            Connection connection,
+            String catalog,
+            String schema,
+            String table,
+            List<JdbcColumnHandle> columns,
+            TupleDomain<ColumnHandle> tupleDomain,
+            Optional<String> additionalPredicate,
+            Optional<JdbcAggregation> aggregation,
+            List<JdbcSortItem> sortOrder,
+            OptionalLong limit)
+            throws SQLException
+    {
+        return buildSql(client, connection, catalog, schema, table, columns, tupleDomain, additionalPredicate, aggregation, sortOrder, limit, Optional.empty());
+    }
+
+    public PreparedStatement buildSql(
+            JdbcClient client,
+            Connection connection,
+            String catalog,
+            String schema,
+            String table,
+            List<JdbcColumnHandle> columns,
+            TupleDomain<ColumnHandle> tupleDomain,
+            Optional<String> additionalPredicate,
+            Optional<JdbcAggregation> aggregation,
+            List<JdbcSortItem> sortOrder,
+            OptionalLong limit,
+            Optional<JdbcJoin> join)
+            throws SQLException
     {
         StringBuilder sql = new StringBuilder();
 
         String columnNames = columns.stream()
-                .map(JdbcColumnHandle::getColumnName)
-                .map(this::quote)
+                .map(column -> toColumnExpression(column, aggregation, join))
                 .collect(joining(", "));
 
         sql.append("SELECT ");
@@ -119,26 +159,54 @@ public class QueryBuilder
         }
 
         sql.append(" FROM ");
-        if (!isNullOrEmpty(catalog)) {
-            sql.append(quote(catalog)).append('.');
-        }
-        if (!isNullOrEmpty(schema)) {
-            sql.append(quote(schema)).append('.');
+        sql.append(toTableName(catalog, schema, table));
+        if (join.isPresent()) {
+            JdbcTableHandle right = join.get().getRight();
+            sql.append(' ').append(LEFT_ALIAS)
+                    .append(" JOIN ")
+                    .append(toTableName(right.getCatalogName(), right.getSchemaName(), right.getTableName()))
+                    .append(' ').append(RIGHT_ALIAS)
+                    .append(" ON ")
+                    .append(join.get().getConditions().stream()
+                            .map(condition -> qualify(LEFT_ALIAS, condition.getLeft()) + " = " + qualify(RIGHT_ALIAS, condition.getRight()))
+                            .collect(joining(" AND ")));
         }
-        sql.append(quote(table));
 
         List<TypeAndValue> accumulator = new ArrayList<>();
+        ImmutableList.Builder<String> clauses = ImmutableList.builder();
 
-        List<String> clauses = toConjuncts(columns, tupleDomain, accumulator);
-        if (additionalPredicate.isPresent()) {
-            clauses = ImmutableList.<String>builder()
-                    .addAll(clauses)
-                    .add(additionalPredicate.get())
-                    .build();
+        // filtering the rows of either side of an inner join before joining them is the same as filtering the joined rows
+        if (join.isPresent()) {
+            clauses.addAll(toConjuncts(join.get().getLeftTupleDomain(), column -> qualify(LEFT_ALIAS, column), accumulator));
+            clauses.addAll(toConjuncts(join.get().getRightTupleDomain(), column -> qualify(RIGHT_ALIAS, column), accumulator));
         }
-        if (!clauses.isEmpty()) {
+
+        // the columns of an aggregated table are the grouping columns and the aggregates, and
+        // filtering the rows on grouping columns before grouping them is the same as filtering the groups
+        List<JdbcColumnHandle> filterColumns = aggregation.map(JdbcAggregation::getGroupingColumns).orElse(columns);
+        clauses.addAll(toConjuncts(filterColumns, tupleDomain, column -> toSourceExpression(column, join), accumulator));
+        additionalPredicate.ifPresent(clauses::add);
+        List<String> conjuncts = clauses.build();
+        if (!conjuncts.isEmpty()) {
             sql.append(" WHERE ")
-                    .append(Joiner.on(" AND ").join(clauses));
+                    .append(Joiner.on(" AND ").join(conjuncts));
+        }
+
+        if (aggregation.isPresent() && !aggregation.get().getGroupingColumns().isEmpty()) {
+            sql.append(" GROUP BY ")
+                    .append(aggregation.get().getGroupingColumns().stream()
+                            .map(column -> toSourceExpression(column, join))
+                            .collect(joining(", ")));
+        }
+
+        if (!sortOrder.isEmpty()) {
+            sql.append(" ORDER BY ")
+                    .append(sortOrder.stream()
+                            .map(item -> toColumnExpression(item.getColumn(), aggregation, join) + " " + toSortOrderSql(item.getSortOrder()))
+                            .collect(joining(", ")));
+        }
+        if (limit.isPresent()) {
+            sql.append(" LIMIT ").append(limit.getAsLong());
         }
 
         PreparedStatement statement = client.getPreparedStatement(connection, sql.toString());
@@ -215,7 +283,7 @@ public class QueryBuilder
                 validType instanceof CharType;
     }
 
-    private List<String> toConjuncts(List<JdbcColumnHandle> columns, TupleDomain<ColumnHandle> tupleDomain, List<TypeAndValue> accumulator)
+    private List<String> toConjuncts(List<JdbcColumnHandle> columns, TupleDomain<ColumnHandle> tupleDomain, Function<JdbcColumnHandle, String> toExpression, List<TypeAndValue> accumulator)
     {
         ImmutableList.Builder<String> builder = ImmutableList.builder();
         for (JdbcColumnHandle column : columns) {
@@ -223,23 +291,35 @@ public class QueryBuilder
             if (isAcceptedType(type)) {
                 Domain domain = tupleDomain.getDomains().get().get(column);
                 if (domain != null) {
-                    builder.add(toPredicate(column.getColumnName(), domain, type, accumulator));
+                    builder.add(toPredicate(toExpression.apply(column), domain, type, accumulator));
                 }
             }
         }
         return builder.build();
     }
 
-    private String toPredicate(String columnName, Domain domain, Type type, List<TypeAndValue> accumulator)
+    private List<String> toConjuncts(TupleDomain<JdbcColumnHandle> tupleDomain, Function<JdbcColumnHandle, String> toExpression, List<TypeAndValue> accumulator)
+    {
+        if (tupleDomain.isNone()) {
+            return ImmutableList.of(ALWAYS_FALSE);
+        }
+        return toConjuncts(
+                ImmutableList.copyOf(tupleDomain.getDomains().get().keySet()),
+                tupleDomain.transform(ColumnHandle.class::cast),
+                toExpression,
+                accumulator);
+    }
+
+    private String toPredicate(String columnExpression, Domain domain, Type type, List<TypeAndValue> accumulator)
     {
         checkArgument(domain.getType().isOrderable(), "Domain type must be orderable");
 
         if (domain.getValues().isNone()) {
-            return domain.isNullAllowed() ? quote(columnName) + " IS NULL" : ALWAYS_FALSE;
+            return domain.isNullAllowed() ? columnExpression + " IS NULL" : ALWAYS_FALSE;
         }
 
         if (domain.getValues().isAll()) {
-            return domain.isNullAllowed() ? ALWAYS_TRUE : quote(columnName) + " IS NOT NULL";
+            return domain.isNullAllowed() ? ALWAYS_TRUE : columnExpression + " IS NOT NULL";
         }
 
         List<String> disjuncts = new ArrayList<>();
@@ -254,10 +334,10 @@ public class QueryBuilder
                 if (!range.getLow().isLowerUnbounded()) {
                     switch (range.getLow().getBound()) {
                         case ABOVE:
-                            rangeConjuncts.add(toPredicate(columnName, ">", range.getLow().getValue(), type, accumulator));
+                            rangeConjuncts.add(toPredicate(columnExpression, ">", range.getLow().getValue(), type, accumulator));
                             break;
                         case EXACTLY:
-                            rangeConjuncts.add(toPredicate(columnName, ">=", range.getLow().getValue(), type, accumulator));
+                            rangeConjuncts.add(toPredicate(columnExpression, ">=", range.getLow().getValue(), type, accumulator));
                             break;
                         case BELOW:
                             throw new IllegalArgumentException("Low marker should never use BELOW bound");
@@ -270,10 +350,10 @@ public class QueryBuilder
                         case ABOVE:
                             throw new IllegalArgumentException("High marker should never use ABOVE bound");
                         case EXACTLY:
-                            rangeConjuncts.add(toPredicate(columnName, "<=", range.getHigh().getValue(), type, accumulator));
+                            rangeConjuncts.add(toPredicate(columnExpression, "<=", range.getHigh().getValue(), type, accumulator));
                             break;
                         case BELOW:
-                            rangeConjuncts.add(toPredicate(columnName, "<", range.getHigh().getValue(), type, accumulator));
+                            rangeConjuncts.add(toPredicate(columnExpression, "<", range.getHigh().getValue(), type, accumulator));
                             break;
                         default:
                             throw new AssertionError("Unhandled bound: " + range.getHigh().getBound());
@@ -287,29 +367,94 @@ public class QueryBuilder
 
         // Add back all of the possible single values either as an equality or an IN predicate
         if (singleValues.size() == 1) {
-            disjuncts.add(toPredicate(columnName, "=", getOnlyElement(singleValues), type, accumulator));
+            disjuncts.add(toPredicate(columnExpression, "=", getOnlyElement(singleValues), type, accumulator));
         }
         else if (singleValues.size() > 1) {
             for (Object value : singleValues) {
                 bindValue(value, type, accumulator);
             }
             String values = Joiner.on(",").join(nCopies(singleValues.size(), "?"));
-            disjuncts.add(quote(columnName) + " IN (" + values + ")");
+            disjuncts.add(columnExpression + " IN (" + values + ")");
         }
 
         // Add nullability disjuncts
         checkState(!disjuncts.isEmpty());
         if (domain.isNullAllowed()) {
-            disjuncts.add(quote(columnName) + " IS NULL");
+            disjuncts.add(columnExpression + " IS NULL");
         }
 
         return "(" + Joiner.on(" OR ").join(disjuncts) + ")";
     }
 
-    private String toPredicate(String columnName, String operator, Object value, Type type, List<TypeAndValue> accumulator)
+    private String toPredicate(String columnExpression, String operator, Object value, Type type, List<TypeAndValue> accumulator)
     {
         bindValue(value, type, accumulator);
-        return quote(columnName) + " " + operator + " ?";
+        return columnExpression + " " + operator + " ?";
+    }
+
+    private String toColumnExpression(JdbcColumnHandle column, Optional<JdbcAggregation> aggregation, Optional<JdbcJoin> join)
+    {
+        return aggregation
+                .flatMap(value -> value.getAggregate(column))
+                .map(aggregate -> toAggregateExpression(aggregate, join))
+                .orElseGet(() -> toSourceExpression(column, join));
+    }
+
+    /**
+     * Returns the expression of a column of the table, which is a column of either side of the join for a joined table.
+     */
+    private String toSourceExpression(JdbcColumnHandle column, Optional<JdbcJoin> join)
+    {
+        if (!join.isPresent()) {
+            return quote(column.getColumnName());
+        }
+        List<JdbcColumnHandle> leftColumns = join.get().getLeftColumns();
+        int index = join.get().getOutputColumns().indexOf(column);
+        checkArgument(index >= 0, "Column %s is not a column of the joined table", column);
+        if (index < leftColumns.size()) {
+            return qualify(LEFT_ALIAS, leftColumns.get(index));
+        }
+        return qualify(RIGHT_ALIAS, join.get().getRightColumns().get(index - leftColumns.size()));
+    }
+
+    private String qualify(String alias, JdbcColumnHandle column)
+    {
+        return alias + "." + quote(column.getColumnName());
+    }
+
+    private String toTableName(String catalog, String schema, String table)
+    {
+        StringBuilder name = new StringBuilder();
+        if (!isNullOrEmpty(catalog)) {
+            name.append(quote(catalog)).append('.');
+        }
+        if (!isNullOrEmpty(schema)) {
+            name.append(quote(schema)).append('.');
+        }
+        return name.append(quote(table)).toString();
+    }
+
+    private static String toSortOrderSql(SortOrder sortOrder)
+    {
+        switch (sortOrder) {
+            case ASC_NULLS_FIRST:
+                return "ASC NULLS FIRST";
+            case ASC_NULLS_LAST:
+                return "ASC NULLS LAST";
+            case DESC_NULLS_FIRST:
+                return "DESC NULLS FIRST";
+            case DESC_NULLS_LAST:
+                return "DESC NULLS LAST";
+        }
+        throw new IllegalArgumentException("Unsupported sort order: " + sortOrder);
+    }
+
+    private String toAggregateExpression(JdbcAggregate aggregate, Optional<JdbcJoin> join)
+    {
+        return aggregate.getFunctionName() + "(" +
+                (aggregate.isDistinct() ? "DISTINCT " : "") +
+                aggregate.getArgument().map(argument -> toSourceExpression(argument, join)).orElse("*") +
+                ")";
     }
 
     private String quote(String name)
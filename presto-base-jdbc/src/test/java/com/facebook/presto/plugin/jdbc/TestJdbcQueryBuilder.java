@@ -14,6 +14,7 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.predicate.Domain;
 import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.SortedRangeSet;
@@ -38,6 +39,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Locale;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static com.facebook.presto.plugin.jdbc.TestingJdbcTypeHandle.JDBC_BIGINT;
 import static com.facebook.presto.plugin.jdbc.TestingJdbcTypeHandle.JDBC_BOOLEAN;
@@ -373,6 +375,48 @@ public class TestJdbcQueryBuilder
         }
     }
 
+    @Test
+    public void testBuildSqlWithJoin()
+            throws SQLException
+    {
+        JdbcTableHandle right = new JdbcTableHandle("test_id", new SchemaTableName("schema", "test_table"), null, null, "test_table");
+        List<JdbcColumnHandle> outputColumns = ImmutableList.of(
+                new JdbcColumnHandle("test_id", "_presto_join_0", JDBC_BIGINT, BIGINT, true),
+                new JdbcColumnHandle("test_id", "_presto_join_1", JDBC_VARCHAR, VARCHAR, true));
+        JdbcJoin join = new JdbcJoin(
+                right,
+                ImmutableList.of(new JdbcJoinCondition(columns.get(0), columns.get(0))),
+                TupleDomain.withColumnDomains(ImmutableMap.of(columns.get(7), Domain.singleValue(TINYINT, 5L))),
+                TupleDomain.withColumnDomains(ImmutableMap.of(columns.get(0), Domain.create(SortedRangeSet.copyOf(BIGINT, ImmutableList.of(Range.lessThan(BIGINT, 300L))), false))),
+                ImmutableList.of(columns.get(0)),
+                ImmutableList.of(columns.get(3)),
+                outputColumns);
+        TupleDomain<ColumnHandle> tupleDomain = TupleDomain.withColumnDomains(ImmutableMap.of(
+                outputColumns.get(0), Domain.create(SortedRangeSet.copyOf(BIGINT, ImmutableList.of(Range.greaterThan(BIGINT, 100L))), false)));
+
+        Connection connection = database.getConnection();
+        try (PreparedStatement preparedStatement = new QueryBuilder("\"").buildSql(
+                jdbcClient,
+                connection,
+                "",
+                "",
+                "test_table",
+                outputColumns,
+                tupleDomain,
+                Optional.empty(),
+                Optional.empty(),
+                ImmutableList.of(),
+                OptionalLong.empty(),
+                Optional.of(join));
+                ResultSet resultSet = preparedStatement.executeQuery()) {
+            ImmutableMap.Builder<Long, String> builder = ImmutableMap.builder();
+            while (resultSet.next()) {
+                builder.put((Long) resultSet.getObject(1), resultSet.getString(2));
+            }
+            assertEquals(builder.build(), ImmutableMap.of(133L, "test_str_133", 261L, "test_str_261"));
+        }
+    }
+
     private static Timestamp toTimestamp(int year, int month, int day, int hour, int minute, int second)
     {
         return Timestamp.valueOf(LocalDateTime.of(year, month, day, hour, minute, second));
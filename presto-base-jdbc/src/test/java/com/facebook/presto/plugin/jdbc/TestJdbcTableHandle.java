@@ -14,11 +14,21 @@
 package com.facebook.presto.plugin.jdbc;
 
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.testing.EquivalenceTester;
 import org.testng.annotations.Test;
 
+import java.util.Optional;
+import java.util.OptionalLong;
+
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.TABLE_CODEC;
 import static com.facebook.presto.plugin.jdbc.MetadataUtil.assertJsonRoundTrip;
+import static com.facebook.presto.plugin.jdbc.TestingJdbcTypeHandle.JDBC_BIGINT;
+import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 
 public class TestJdbcTableHandle
 {
@@ -28,6 +38,49 @@ public class TestJdbcTableHandle
         assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle("connectorId", new SchemaTableName("schema", "table"), "jdbcCatalog", "jdbcSchema", "jdbcTable"));
     }
 
+    @Test
+    public void testLimitJsonRoundTrip()
+    {
+        JdbcColumnHandle column = new JdbcColumnHandle("connectorId", "column", JDBC_BIGINT, BIGINT, true);
+        assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle(
+                "connectorId",
+                new SchemaTableName("schema", "table"),
+                "jdbcCatalog",
+                "jdbcSchema",
+                "jdbcTable",
+                Optional.empty(),
+                ImmutableList.of(new JdbcSortItem(column, DESC_NULLS_LAST)),
+                OptionalLong.of(10),
+                Optional.empty()));
+    }
+
+    @Test
+    public void testJoinJsonRoundTrip()
+    {
+        JdbcColumnHandle leftColumn = new JdbcColumnHandle("connectorId", "left", JDBC_BIGINT, BIGINT, true);
+        JdbcColumnHandle rightColumn = new JdbcColumnHandle("connectorId", "right", JDBC_BIGINT, BIGINT, true);
+        JdbcJoin join = new JdbcJoin(
+                new JdbcTableHandle("connectorId", new SchemaTableName("schema", "right"), "jdbcCatalog", "jdbcSchema", "jdbcRight"),
+                ImmutableList.of(new JdbcJoinCondition(leftColumn, rightColumn)),
+                TupleDomain.withColumnDomains(ImmutableMap.of(leftColumn, Domain.notNull(BIGINT))),
+                TupleDomain.all(),
+                ImmutableList.of(leftColumn),
+                ImmutableList.of(rightColumn),
+                ImmutableList.of(
+                        new JdbcColumnHandle("connectorId", "_presto_join_0", JDBC_BIGINT, BIGINT, true),
+                        new JdbcColumnHandle("connectorId", "_presto_join_1", JDBC_BIGINT, BIGINT, true)));
+        assertJsonRoundTrip(TABLE_CODEC, new JdbcTableHandle(
+                "connectorId",
+                new SchemaTableName("schema", "left"),
+                "jdbcCatalog",
+                "jdbcSchema",
+                "jdbcLeft",
+                Optional.empty(),
+                ImmutableList.of(),
+                OptionalLong.empty(),
+                Optional.of(join)));
+    }
+
     @Test
     public void testEquivalence()
     {
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.benchmark;
+
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.DistributedQueryRunner;
+import com.facebook.presto.tpch.TpchPlugin;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.openjdk.jmh.annotations.Mode.SampleTime;
+import static org.openjdk.jmh.annotations.Mode.Throughput;
+
+/**
+ * Compares the exchange transports on a cluster of several servers. The short query measures
+ * the latency added by the exchange requests, and the long query the throughput of the pages
+ * repartitioned between the servers. The sample time mode reports the percentiles of the latency.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Benchmark)
+@OutputTimeUnit(MILLISECONDS)
+@BenchmarkMode({Throughput, SampleTime})
+@Fork(1)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class BenchmarkExchangeTransport
+{
+    @Param({"false", "true"})
+    private String streamingEnabled;
+
+    private DistributedQueryRunner queryRunner;
+
+    @Setup
+    public void setUp()
+            throws Exception
+    {
+        queryRunner = DistributedQueryRunner.builder(testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .build())
+                .setNodeCount(3)
+                .setExtraProperties(ImmutableMap.of("exchange.streaming-enabled", streamingEnabled))
+                .build();
+        queryRunner.installPlugin(new TpchPlugin());
+        queryRunner.createCatalog("tpch", "tpch");
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        queryRunner.close();
+        queryRunner = null;
+    }
+
+    @Benchmark
+    public MaterializedResult benchmarkShortQuery()
+    {
+        return queryRunner.execute("SELECT count(*) FROM nation n JOIN region r ON n.regionkey = r.regionkey GROUP BY r.name");
+    }
+
+    @Benchmark
+    public MaterializedResult benchmarkRepartitionedQuery()
+    {
+        return queryRunner.execute("SELECT orderkey, sum(quantity) FROM lineitem GROUP BY orderkey");
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkExchangeTransport.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.elasticsearch;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An aggregate function computed by Elasticsearch over the whole table, read through the {@code output} column.
+ */
+public final class ElasticsearchAggregate
+{
+    private final String functionName;
+    private final Optional<ElasticsearchColumnHandle> argument;
+    private final ElasticsearchColumnHandle output;
+
+    @JsonCreator
+    public ElasticsearchAggregate(
+            @JsonProperty("functionName") String functionName,
+            @JsonProperty("argument") Optional<ElasticsearchColumnHandle> argument,
+            @JsonProperty("output") ElasticsearchColumnHandle output)
+    {
+        this.functionName = requireNonNull(functionName, "functionName is null");
+        this.argument = requireNonNull(argument, "argument is null");
+        this.output = requireNonNull(output, "output is null");
+    }
+
+    @JsonProperty
+    public String getFunctionName()
+    {
+        return functionName;
+    }
+
+    @JsonProperty
+    public Optional<ElasticsearchColumnHandle> getArgument()
+    {
+        return argument;
+    }
+
+    @JsonProperty
+    public ElasticsearchColumnHandle getOutput()
+    {
+        return output;
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+
+        ElasticsearchAggregate other = (ElasticsearchAggregate) obj;
+        return Objects.equals(this.functionName, other.functionName) &&
+                Objects.equals(this.argument, other.argument) &&
+                Objects.equals(this.output, other.output);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(functionName, argument, output);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("functionName", functionName)
+                .add("argument", argument.map(ElasticsearchColumnHandle::getColumnName).orElse("*"))
+                .add("output", output.getColumnName())
+                .toString();
+    }
+}
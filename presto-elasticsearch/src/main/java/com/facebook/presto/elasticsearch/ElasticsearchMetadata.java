@@ -15,6 +15,9 @@ package com.facebook.presto.elasticsearch;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
+import com.facebook.presto.spi.ConnectorPushdownAggregationResult;
+import com.facebook.presto.spi.ConnectorPushdownLimitResult;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableLayout;
@@ -24,23 +27,37 @@ import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 
 import javax.inject.Inject;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Objects.requireNonNull;
 
 public class ElasticsearchMetadata
         implements ConnectorMetadata
 {
+    // the numeric field types the stats aggregation can read
+    private static final Set<Type> NUMERIC_TYPES = ImmutableSet.of(BIGINT, INTEGER, DOUBLE);
+    // the field types Elasticsearch sorts like Presto, text fields are analyzed and cannot be sorted
+    private static final Set<Type> SORTABLE_TYPES = ImmutableSet.of(BIGINT, INTEGER, DOUBLE, BOOLEAN);
+
     private final ElasticsearchClient client;
 
     @Inject
@@ -75,6 +92,131 @@ public class ElasticsearchMetadata
         return ImmutableList.of(new ConnectorTableLayoutResult(layout, constraint.getSummary()));
     }
 
+    @Override
+    public Optional<ConnectorPushdownAggregationResult> pushdownAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            List<ColumnHandle> groupingColumns,
+            List<ConnectorAggregateFunction> aggregates)
+    {
+        ElasticsearchTableHandle handle = (ElasticsearchTableHandle) tableHandle;
+        // Elasticsearch 6.0 has no composite aggregation to page through the groups, so only global aggregations are computed remotely
+        if (!handle.getAggregates().isEmpty() ||
+                !((ElasticsearchTableLayoutHandle) layoutHandle).getTupleDomain().isAll() ||
+                !groupingColumns.isEmpty() ||
+                aggregates.isEmpty()) {
+            return Optional.empty();
+        }
+        ElasticsearchTableDescription table = client.getTable(handle.getSchemaName(), handle.getTableName());
+        if (table == null || client.getIndices(table).isEmpty()) {
+            return Optional.empty();
+        }
+
+        ImmutableList.Builder<ElasticsearchAggregate> elasticsearchAggregates = ImmutableList.builder();
+        for (int i = 0; i < aggregates.size(); i++) {
+            Optional<ElasticsearchAggregate> aggregate = toElasticsearchAggregate(aggregates.get(i), i);
+            if (!aggregate.isPresent()) {
+                return Optional.empty();
+            }
+            elasticsearchAggregates.add(aggregate.get());
+        }
+        List<ElasticsearchAggregate> pushedAggregates = elasticsearchAggregates.build();
+        return Optional.of(new ConnectorPushdownAggregationResult(
+                new ElasticsearchTableHandle(handle.getSchemaName(), handle.getTableName(), pushedAggregates),
+                ImmutableList.of(),
+                pushedAggregates.stream()
+                        .map(ElasticsearchAggregate::getOutput)
+                        .collect(toImmutableList())));
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownLimit(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long limit)
+    {
+        return pushdownLimit((ElasticsearchTableLayoutHandle) layoutHandle, limit, ImmutableList.of());
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownTopN(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long count,
+            List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        ImmutableList.Builder<ElasticsearchSortItem> sortItems = ImmutableList.builder();
+        for (SortingProperty<ColumnHandle> property : sortOrder) {
+            ElasticsearchColumnHandle column = (ElasticsearchColumnHandle) property.getColumn();
+            // an array is sorted by its smallest or largest value, and the metadata fields cannot be sorted
+            if (!SORTABLE_TYPES.contains(column.getColumnType()) || column.getIsList() || column.getColumnJsonPath().startsWith("_")) {
+                return Optional.empty();
+            }
+            sortItems.add(new ElasticsearchSortItem(column, property.getOrder()));
+        }
+        return pushdownLimit((ElasticsearchTableLayoutHandle) layoutHandle, count, sortItems.build());
+    }
+
+    private static Optional<ConnectorPushdownLimitResult> pushdownLimit(ElasticsearchTableLayoutHandle layoutHandle, long limit, List<ElasticsearchSortItem> sortOrder)
+    {
+        ElasticsearchTableHandle handle = layoutHandle.getTable();
+        // the predicate is not enforced by the search, so the rows cannot be limited before it is applied
+        if (!handle.getAggregates().isEmpty() || !layoutHandle.getTupleDomain().isAll()) {
+            return Optional.empty();
+        }
+        if (handle.getLimit().isPresent() && (handle.getLimit().getAsLong() <= limit || !handle.getSortOrder().equals(sortOrder))) {
+            return Optional.empty();
+        }
+        // every shard is searched by its own split, so the table returns up to the limit per shard
+        return Optional.of(new ConnectorPushdownLimitResult(
+                new ElasticsearchTableHandle(handle.getSchemaName(), handle.getTableName(), ImmutableList.of(), sortOrder, OptionalLong.of(limit)),
+                false));
+    }
+
+    private static Optional<ElasticsearchAggregate> toElasticsearchAggregate(ConnectorAggregateFunction aggregate, int position)
+    {
+        if (aggregate.isDistinct() || aggregate.getArguments().size() > 1) {
+            return Optional.empty();
+        }
+        Optional<ElasticsearchColumnHandle> argument = aggregate.getArguments().stream()
+                .map(ElasticsearchColumnHandle.class::cast)
+                .findFirst();
+        // the stats aggregation only reads numbers, counts every value of an array, and cannot read the metadata fields
+        if (argument.isPresent() && (argument.get().getIsList() || argument.get().getColumnJsonPath().startsWith("_"))) {
+            return Optional.empty();
+        }
+        Type outputType = aggregate.getOutputType();
+        Optional<Type> argumentType = argument.map(ElasticsearchColumnHandle::getColumnType);
+        boolean supported;
+        switch (aggregate.getFunctionName()) {
+            case "count":
+                supported = outputType.equals(BIGINT) && argumentType.map(NUMERIC_TYPES::contains).orElse(true);
+                break;
+            // the stats aggregation computes in doubles, which cannot hold every bigint
+            case "sum":
+                supported = argumentType.equals(Optional.of(DOUBLE)) && outputType.equals(DOUBLE);
+                break;
+            case "min":
+            case "max":
+                supported = (argumentType.equals(Optional.of(INTEGER)) || argumentType.equals(Optional.of(DOUBLE))) && outputType.equals(argumentType.get());
+                break;
+            default:
+                supported = false;
+        }
+        if (!supported) {
+            return Optional.empty();
+        }
+
+        String outputName = "_presto_aggregate_" + position;
+        return Optional.of(new ElasticsearchAggregate(
+                aggregate.getFunctionName(),
+                argument,
+                new ElasticsearchColumnHandle(outputName, outputType, outputName, outputType.equals(DOUBLE) ? "double" : "long", position, false)));
+    }
+
     @Override
     public ConnectorTableLayout getTableLayout(ConnectorSession session, ConnectorTableLayoutHandle handle)
     {
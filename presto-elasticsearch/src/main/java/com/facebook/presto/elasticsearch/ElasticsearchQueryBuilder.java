@@ -33,11 +33,15 @@ import org.elasticsearch.index.query.MatchAllQueryBuilder;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.RangeQueryBuilder;
 import org.elasticsearch.index.query.TermQueryBuilder;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.sort.SortBuilders;
+import org.elasticsearch.search.sort.SortOrder;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.HashSet;
 import java.util.List;
+import java.util.OptionalLong;
 import java.util.Set;
 
 import static com.facebook.presto.elasticsearch.ElasticsearchClient.createTransportClient;
@@ -52,6 +56,7 @@ import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.lang.Math.toIntExact;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -69,6 +74,9 @@ public class ElasticsearchQueryBuilder
     private final List<ElasticsearchColumnHandle> columns;
     private final String index;
     private final String type;
+    private final List<ElasticsearchAggregate> aggregates;
+    private final List<ElasticsearchSortItem> sortOrder;
+    private final OptionalLong limit;
 
     public ElasticsearchQueryBuilder(List<ElasticsearchColumnHandle> columnHandles, ElasticsearchConnectorConfig config, ElasticsearchSplit split)
     {
@@ -81,6 +89,9 @@ public class ElasticsearchQueryBuilder
         index = split.getIndex();
         shard = split.getShard();
         type = split.getType();
+        aggregates = split.getAggregates();
+        sortOrder = split.getSortOrder();
+        limit = split.getLimit();
         InetAddress address;
         try {
             address = InetAddress.getByName(split.getSearchNode());
@@ -111,11 +122,44 @@ public class ElasticsearchQueryBuilder
                 .setFetchSource(fields.toArray(new String[0]), null)
                 .setQuery(buildSearchQuery())
                 .setPreference("_shards:" + shard)
-                .setSize(scrollSize);
+                .setSize(limit.isPresent() ? toIntExact(Math.min(scrollSize, limit.getAsLong())) : scrollSize);
+        for (ElasticsearchSortItem item : sortOrder) {
+            searchRequestBuilder.addSort(SortBuilders.fieldSort(item.getColumn().getColumnJsonPath())
+                    .order(item.getSortOrder().isAscending() ? SortOrder.ASC : SortOrder.DESC)
+                    .missing(item.getSortOrder().isNullsFirst() ? "_first" : "_last"));
+        }
+        LOG.debug("Elasticsearch Request: %s", searchRequestBuilder);
+        return searchRequestBuilder;
+    }
+
+    /**
+     * Builds a search that computes the pushed down aggregates over all the indices of the split, without fetching any document.
+     * A {@code count(*)} is read from the total hits, every other aggregate from a stats aggregation named after its output column.
+     */
+    public SearchRequestBuilder buildAggregationSearchRequest()
+    {
+        checkState(!aggregates.isEmpty(), "Split has no aggregates");
+        SearchRequestBuilder searchRequestBuilder = client.prepareSearch(index.split(","))
+                .setTypes(type)
+                .setSearchType(QUERY_THEN_FETCH)
+                .setQuery(new MatchAllQueryBuilder())
+                .setSize(0);
+        for (ElasticsearchAggregate aggregate : aggregates) {
+            aggregate.getArgument().ifPresent(argument -> searchRequestBuilder.addAggregation(
+                    AggregationBuilders.stats(aggregate.getOutput().getColumnName()).field(argument.getColumnJsonPath())));
+        }
         LOG.debug("Elasticsearch Request: %s", searchRequestBuilder);
         return searchRequestBuilder;
     }
 
+    /**
+     * The maximum number of hits to read from the shard, or empty to read every hit.
+     */
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     public SearchScrollRequestBuilder prepareSearchScroll(String scrollId)
     {
         return client.prepareSearchScroll(scrollId)
@@ -23,6 +23,7 @@ import io.airlift.slice.Slice;
 import io.airlift.units.Duration;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.metrics.stats.Stats;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -47,6 +48,7 @@ import static io.airlift.json.JsonCodec.jsonCodec;
 import static io.airlift.slice.Slices.EMPTY_SLICE;
 import static io.airlift.slice.Slices.utf8Slice;
 import static java.lang.String.format;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class ElasticsearchRecordCursor
@@ -58,6 +60,7 @@ public class ElasticsearchRecordCursor
     private final Map<String, Integer> jsonPathToIndex = new HashMap<>();
     private final int maxHits;
     private final Iterator<SearchHit> searchHits;
+    private final Iterator<List<Object>> aggregationRows;
     private final Duration requestTimeout;
     private final int maxAttempts;
     private final Duration maxRetryTime;
@@ -81,7 +84,14 @@ public class ElasticsearchRecordCursor
             jsonPathToIndex.put(columnHandles.get(i).getColumnJsonPath(), i);
         }
         this.builder = new ElasticsearchQueryBuilder(columnHandles, config, split);
-        this.searchHits = sendElasticsearchQuery(builder).iterator();
+        if (split.getAggregates().isEmpty()) {
+            this.searchHits = sendElasticsearchQuery(builder).iterator();
+            this.aggregationRows = emptyIterator();
+        }
+        else {
+            this.searchHits = emptyIterator();
+            this.aggregationRows = ImmutableList.of(sendElasticsearchAggregationQuery(builder, split.getAggregates())).iterator();
+        }
     }
 
     @Override
@@ -106,6 +116,10 @@ public class ElasticsearchRecordCursor
     @Override
     public boolean advanceNextPosition()
     {
+        if (aggregationRows.hasNext()) {
+            fields = aggregationRows.next();
+            return true;
+        }
         if (!searchHits.hasNext()) {
             return false;
         }
@@ -216,16 +230,26 @@ public class ElasticsearchRecordCursor
     private List<SearchHit> sendElasticsearchQuery(ElasticsearchQueryBuilder queryBuilder)
     {
         SearchResponse response = getSearchResponse(queryBuilder);
+        long limit = queryBuilder.getLimit().orElse(Long.MAX_VALUE);
 
-        if (response.getHits().getTotalHits() > maxHits) {
+        // only the first limit hits of a limited search are read
+        if (Math.min(response.getHits().getTotalHits(), limit) > maxHits) {
             throw new PrestoException(ELASTICSEARCH_MAX_HITS_EXCEEDED,
                     format("The number of hits for the query (%d) exceeds the configured max hits (%d)", response.getHits().getTotalHits(), maxHits));
         }
 
         ImmutableList.Builder<SearchHit> result = ImmutableList.builder();
+        long count = 0;
         while (true) {
             for (SearchHit hit : response.getHits().getHits()) {
+                if (count == limit) {
+                    break;
+                }
                 result.add(hit);
+                count++;
+            }
+            if (count == limit) {
+                break;
             }
             response = getScrollResponse(queryBuilder, response.getScrollId());
             if (response.getHits().getHits().length == 0) {
@@ -235,6 +259,63 @@ public class ElasticsearchRecordCursor
         return result.build();
     }
 
+    private List<Object> sendElasticsearchAggregationQuery(ElasticsearchQueryBuilder queryBuilder, List<ElasticsearchAggregate> aggregates)
+    {
+        SearchResponse response;
+        try {
+            response = retry()
+                    .maxAttempts(maxAttempts)
+                    .exponentialBackoff(maxRetryTime)
+                    .run("aggregationRequest", () -> queryBuilder.buildAggregationSearchRequest()
+                            .execute()
+                            .actionGet(requestTimeout.toMillis()));
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+
+        List<Object> row = new ArrayList<>(Collections.nCopies(columnHandles.size(), null));
+        for (ElasticsearchAggregate aggregate : aggregates) {
+            if (jsonPathToIndex.containsKey(aggregate.getOutput().getColumnJsonPath())) {
+                row.set(jsonPathToIndex.get(aggregate.getOutput().getColumnJsonPath()), getAggregateValue(response, aggregate));
+            }
+        }
+        return row;
+    }
+
+    private static Object getAggregateValue(SearchResponse response, ElasticsearchAggregate aggregate)
+    {
+        if (!aggregate.getArgument().isPresent()) {
+            return response.getHits().getTotalHits();
+        }
+        Stats stats = response.getAggregations().get(aggregate.getOutput().getColumnName());
+        if (aggregate.getFunctionName().equals("count")) {
+            return stats.getCount();
+        }
+        // like every aggregate but count, the result over no values is null
+        if (stats.getCount() == 0) {
+            return null;
+        }
+        double value;
+        switch (aggregate.getFunctionName()) {
+            case "sum":
+                value = stats.getSum();
+                break;
+            case "min":
+                value = stats.getMin();
+                break;
+            case "max":
+                value = stats.getMax();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported aggregate function: " + aggregate.getFunctionName());
+        }
+        if (aggregate.getOutput().getColumnType().equals(DOUBLE)) {
+            return value;
+        }
+        return (long) value;
+    }
+
     private void setFieldIfExists(String jsonPath, Object jsonValue)
     {
         if (jsonPathToIndex.containsKey(jsonPath)) {
@@ -22,6 +22,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.OptionalLong;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static java.util.Objects.requireNonNull;
@@ -35,6 +36,9 @@ public class ElasticsearchSplit
     private final String searchNode;
     private final int port;
     private final TupleDomain<ColumnHandle> tupleDomain;
+    private final List<ElasticsearchAggregate> aggregates;
+    private final List<ElasticsearchSortItem> sortOrder;
+    private final OptionalLong limit;
 
     @JsonCreator
     public ElasticsearchSplit(
@@ -43,7 +47,10 @@ public class ElasticsearchSplit
             @JsonProperty("shard") int shard,
             @JsonProperty("searchNode") String searchNode,
             @JsonProperty("port") int port,
-            @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> tupleDomain)
+            @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> tupleDomain,
+            @JsonProperty("aggregates") List<ElasticsearchAggregate> aggregates,
+            @JsonProperty("sortOrder") List<ElasticsearchSortItem> sortOrder,
+            @JsonProperty("limit") OptionalLong limit)
     {
         this.index = requireNonNull(index, "index is null");
         this.type = requireNonNull(type, "index is null");
@@ -51,6 +58,9 @@ public class ElasticsearchSplit
         this.port = port;
         this.shard = shard;
         this.tupleDomain = requireNonNull(tupleDomain, "tupleDomain is null");
+        this.aggregates = ImmutableList.copyOf(requireNonNull(aggregates, "aggregates is null"));
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.limit = requireNonNull(limit, "limit is null");
     }
 
     @JsonProperty
@@ -89,6 +99,24 @@ public class ElasticsearchSplit
         return tupleDomain;
     }
 
+    @JsonProperty
+    public List<ElasticsearchAggregate> getAggregates()
+    {
+        return aggregates;
+    }
+
+    @JsonProperty
+    public List<ElasticsearchSortItem> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
@@ -117,6 +145,9 @@ public class ElasticsearchSplit
                 .addValue(port)
                 .addValue(searchNode)
                 .addValue(tupleDomain)
+                .addValue(aggregates)
+                .addValue(sortOrder)
+                .addValue(limit)
                 .toString();
     }
 }
@@ -20,6 +20,7 @@ import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.FixedSplitSource;
 import com.facebook.presto.spi.connector.ConnectorSplitManager;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.google.common.collect.ImmutableList;
 import org.elasticsearch.action.admin.cluster.shards.ClusterSearchShardsGroup;
 import org.elasticsearch.action.admin.cluster.shards.ClusterSearchShardsResponse;
@@ -28,6 +29,7 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import javax.inject.Inject;
 
 import java.util.List;
+import java.util.OptionalLong;
 
 import static com.google.common.base.Verify.verify;
 import static java.util.Objects.requireNonNull;
@@ -56,6 +58,10 @@ public class ElasticsearchSplitManager
         verify(table != null, "Table no longer exists: %s", tableHandle.toString());
 
         List<String> indices = client.getIndices(table);
+        if (!tableHandle.getAggregates().isEmpty()) {
+            return new FixedSplitSource(ImmutableList.of(getAggregationSplit(table, indices, tableHandle.getAggregates())));
+        }
+
         ImmutableList.Builder<ConnectorSplit> splits = ImmutableList.builder();
         for (String index : indices) {
             ClusterSearchShardsResponse response = client.getSearchShards(index, table);
@@ -68,10 +74,30 @@ public class ElasticsearchSplitManager
                         group.getShardId().getId(),
                         nodes[nodeIndex].getHostName(),
                         nodes[nodeIndex].getAddress().getPort(),
-                        layoutHandle.getTupleDomain());
+                        layoutHandle.getTupleDomain(),
+                        ImmutableList.of(),
+                        tableHandle.getSortOrder(),
+                        tableHandle.getLimit());
                 splits.add(split);
             }
         }
         return new FixedSplitSource(splits.build());
     }
+
+    // The aggregation must produce exactly one row, so a single split searches all the indices
+    private ElasticsearchSplit getAggregationSplit(ElasticsearchTableDescription table, List<String> indices, List<ElasticsearchAggregate> aggregates)
+    {
+        verify(!indices.isEmpty(), "Table has no indices: %s", table.getTableName());
+        DiscoveryNode node = client.getSearchShards(indices.get(0), table).getNodes()[0];
+        return new ElasticsearchSplit(
+                String.join(",", indices),
+                table.getType(),
+                -1,
+                node.getHostName(),
+                node.getAddress().getPort(),
+                TupleDomain.all(),
+                aggregates,
+                ImmutableList.of(),
+                OptionalLong.empty());
+    }
 }
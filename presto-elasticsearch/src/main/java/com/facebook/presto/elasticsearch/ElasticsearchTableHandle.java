@@ -18,9 +18,13 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 
@@ -28,15 +32,36 @@ public final class ElasticsearchTableHandle
         implements ConnectorTableHandle
 {
     private final SchemaTableName schemaTableName;
+    private final List<ElasticsearchAggregate> aggregates;
+    private final List<ElasticsearchSortItem> sortOrder;
+    private final OptionalLong limit;
+
+    public ElasticsearchTableHandle(String schemaName, String tableName)
+    {
+        this(schemaName, tableName, ImmutableList.of());
+    }
+
+    public ElasticsearchTableHandle(String schemaName, String tableName, List<ElasticsearchAggregate> aggregates)
+    {
+        this(schemaName, tableName, aggregates, ImmutableList.of(), OptionalLong.empty());
+    }
 
     @JsonCreator
     public ElasticsearchTableHandle(
             @JsonProperty("schemaName") String schemaName,
-            @JsonProperty("tableName") String tableName)
+            @JsonProperty("tableName") String tableName,
+            @JsonProperty("aggregates") List<ElasticsearchAggregate> aggregates,
+            @JsonProperty("sortOrder") List<ElasticsearchSortItem> sortOrder,
+            @JsonProperty("limit") OptionalLong limit)
     {
         requireNonNull(schemaName, "schemaName is null");
         requireNonNull(tableName, "tableName is null");
         this.schemaTableName = new SchemaTableName(schemaName.toLowerCase(ENGLISH), tableName.toLowerCase(ENGLISH));
+        this.aggregates = ImmutableList.copyOf(requireNonNull(aggregates, "aggregates is null"));
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.limit = requireNonNull(limit, "limit is null");
+        checkArgument(sortOrder.isEmpty() || limit.isPresent(), "sortOrder requires a limit");
+        checkArgument(aggregates.isEmpty() || !limit.isPresent(), "aggregates cannot be limited");
     }
 
     @JsonProperty
@@ -51,6 +76,33 @@ public final class ElasticsearchTableHandle
         return schemaTableName.getTableName();
     }
 
+    /**
+     * The global aggregation computed by Elasticsearch, or empty when the table is read as is.
+     */
+    @JsonProperty
+    public List<ElasticsearchAggregate> getAggregates()
+    {
+        return aggregates;
+    }
+
+    /**
+     * The order in which each shard returns its first {@link #getLimit()} hits, or empty when they are returned in any order.
+     */
+    @JsonProperty
+    public List<ElasticsearchSortItem> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    /**
+     * The maximum number of hits read from each shard, or empty when every hit is read.
+     */
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     public SchemaTableName getSchemaTableName()
     {
         return schemaTableName;
@@ -59,7 +111,7 @@ public final class ElasticsearchTableHandle
     @Override
     public int hashCode()
     {
-        return Objects.hash(getSchemaName(), getTableName());
+        return Objects.hash(getSchemaName(), getTableName(), aggregates, sortOrder, limit);
     }
 
     @Override
@@ -74,12 +126,24 @@ public final class ElasticsearchTableHandle
 
         ElasticsearchTableHandle other = (ElasticsearchTableHandle) obj;
         return Objects.equals(this.getSchemaName(), other.getSchemaName()) &&
-                Objects.equals(this.getTableName(), other.getTableName());
+                Objects.equals(this.getTableName(), other.getTableName()) &&
+                Objects.equals(this.aggregates, other.aggregates) &&
+                Objects.equals(this.sortOrder, other.sortOrder) &&
+                Objects.equals(this.limit, other.limit);
     }
 
     @Override
     public String toString()
     {
+        if (!aggregates.isEmpty()) {
+            return Joiner.on(":").join(getSchemaName(), getTableName(), aggregates);
+        }
+        if (limit.isPresent()) {
+            if (sortOrder.isEmpty()) {
+                return Joiner.on(":").join(getSchemaName(), getTableName(), "limit=" + limit.getAsLong());
+            }
+            return Joiner.on(":").join(getSchemaName(), getTableName(), sortOrder, "limit=" + limit.getAsLong());
+        }
         return Joiner.on(":").join(getSchemaName(), getTableName());
     }
 }
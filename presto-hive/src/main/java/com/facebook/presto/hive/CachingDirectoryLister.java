@@ -0,0 +1,244 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.SchemaTableName;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Remembers the listings of the directories of selected tables, so that queries over
+ * tables with many partitions do not list every partition directory again. Listings
+ * expire after a fixed time, and are invalidated when Presto writes to the directory.
+ * Changes made to the directories by other systems are not visible until the listing expires.
+ */
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private static final String ALL = "*";
+
+    private final DirectoryLister delegate;
+    private final Cache<Path, List<LocatedFileStatus>> cache;
+    private final boolean cacheAllTables;
+    private final Set<String> cachedSchemas;
+    private final Set<SchemaTableName> cachedTables;
+
+    // incremented on every invalidation, so that listings which were started before it are not kept
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig)
+    {
+        this(
+                new HadoopDirectoryLister(),
+                hiveClientConfig.getFileStatusCacheExpireAfterWrite(),
+                hiveClientConfig.getFileStatusCacheMaxSize(),
+                hiveClientConfig.getFileStatusCacheTables());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, long maxFileStatuses, List<String> tables)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxFileStatuses)
+                .<Path, List<LocatedFileStatus>>weigher((path, files) -> files.size())
+                .expireAfterWrite(expireAfterWrite.toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+
+        boolean cacheAllTables = false;
+        ImmutableSet.Builder<String> cachedSchemas = ImmutableSet.builder();
+        ImmutableSet.Builder<SchemaTableName> cachedTables = ImmutableSet.builder();
+        for (String table : requireNonNull(tables, "tables is null")) {
+            if (table.equals(ALL)) {
+                cacheAllTables = true;
+                continue;
+            }
+            String[] parts = table.toLowerCase(ENGLISH).split("\\.");
+            checkArgument(parts.length == 2, "Invalid table name in file status cache table list: %s", table);
+            if (parts[1].equals(ALL)) {
+                cachedSchemas.add(parts[0]);
+            }
+            else {
+                cachedTables.add(new SchemaTableName(parts[0], parts[1]));
+            }
+        }
+        this.cacheAllTables = cacheAllTables && maxFileStatuses > 0;
+        this.cachedSchemas = maxFileStatuses > 0 ? cachedSchemas.build() : ImmutableSet.of();
+        this.cachedTables = maxFileStatuses > 0 ? cachedTables.build() : ImmutableSet.of();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
+            throws IOException
+    {
+        if (!isCached(table)) {
+            return delegate.list(fs, table, path);
+        }
+
+        List<LocatedFileStatus> files = cache.getIfPresent(path);
+        if (files != null) {
+            return new ListRemoteIterator(files.iterator());
+        }
+        return new CachingRemoteIterator(path, invalidations.get(), delegate.list(fs, table, path));
+    }
+
+    @Override
+    public void invalidate(Path path)
+    {
+        invalidations.incrementAndGet();
+        cache.invalidate(path);
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getRequestCount()
+    {
+        return cache.stats().requestCount();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    private boolean isCached(Table table)
+    {
+        return cacheAllTables ||
+                cachedSchemas.contains(table.getDatabaseName()) ||
+                cachedTables.contains(new SchemaTableName(table.getDatabaseName(), table.getTableName()));
+    }
+
+    private static class ListRemoteIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        public ListRemoteIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = requireNonNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+
+    /**
+     * Passes the listing through while it is consumed, and caches it once it is complete.
+     * Listings which are abandoned part way or fail are not cached.
+     */
+    private class CachingRemoteIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Path path;
+        private final long invalidationsAtStart;
+        private final RemoteIterator<LocatedFileStatus> iterator;
+        private final ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        private boolean complete;
+
+        public CachingRemoteIterator(Path path, long invalidationsAtStart, RemoteIterator<LocatedFileStatus> iterator)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.invalidationsAtStart = invalidationsAtStart;
+            this.iterator = requireNonNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+                throws IOException
+        {
+            boolean hasNext = iterator.hasNext();
+            if (!hasNext && !complete) {
+                complete = true;
+                cache.put(path, files.build());
+                // the directory may have been written while it was listed
+                if (invalidations.get() != invalidationsAtStart) {
+                    cache.invalidate(path);
+                }
+            }
+            return hasNext;
+        }
+
+        @Override
+        public LocatedFileStatus next()
+                throws IOException
+        {
+            LocatedFileStatus status = iterator.next();
+            files.add(status);
+            return status;
+        }
+    }
+}
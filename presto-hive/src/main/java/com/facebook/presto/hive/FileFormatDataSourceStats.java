@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.hive;
 
+import io.airlift.stats.CounterStat;
 import io.airlift.stats.DistributionStat;
 import io.airlift.stats.TimeStat;
 import org.weakref.jmx.Managed;
@@ -29,6 +30,10 @@ public class FileFormatDataSourceStats
     private final TimeStat time100KBto1MB = new TimeStat(MILLISECONDS);
     private final TimeStat time1MBto10MB = new TimeStat(MILLISECONDS);
     private final TimeStat time10MBPlus = new TimeStat(MILLISECONDS);
+    private final CounterStat localCacheHits = new CounterStat();
+    private final CounterStat localCacheMisses = new CounterStat();
+    private final CounterStat localCacheBytesServed = new CounterStat();
+    private final CounterStat localCacheChecksumFailures = new CounterStat();
 
     @Managed
     @Nested
@@ -72,6 +77,42 @@ public class FileFormatDataSourceStats
         return time10MBPlus;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getLocalCacheHits()
+    {
+        return localCacheHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalCacheMisses()
+    {
+        return localCacheMisses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalCacheBytesServed()
+    {
+        return localCacheBytesServed;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getLocalCacheChecksumFailures()
+    {
+        return localCacheChecksumFailures;
+    }
+
+    @Managed
+    public double getLocalCacheHitRate()
+    {
+        long hits = localCacheHits.getTotalCount();
+        long requests = hits + localCacheMisses.getTotalCount();
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
     public void readDataBytesPerSecond(long bytes, long nanos)
     {
         readBytes.add(bytes);
@@ -93,4 +134,20 @@ public class FileFormatDataSourceStats
     {
         maxCombinedBytesPerRow.add(bytes);
     }
+
+    public void addLocalCacheHit(long bytes)
+    {
+        localCacheHits.update(1);
+        localCacheBytesServed.update(bytes);
+    }
+
+    public void addLocalCacheMiss()
+    {
+        localCacheMisses.update(1);
+    }
+
+    public void addLocalCacheChecksumFailure()
+    {
+        localCacheChecksumFailures.update(1);
+    }
 }
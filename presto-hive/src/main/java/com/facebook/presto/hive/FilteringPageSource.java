@@ -0,0 +1,356 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.HivePageSource.RowFilterLazyBlockLoader;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.Subfield.LongSubscript;
+import com.facebook.presto.spi.Subfield.NestedField;
+import com.facebook.presto.spi.Subfield.PathElement;
+import com.facebook.presto.spi.Subfield.StringSubscript;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.ConstantExpression;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.LambdaDefinitionExpression;
+import com.facebook.presto.spi.relation.Predicate;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.RowExpressionVisitor;
+import com.facebook.presto.spi.relation.SpecialFormExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.spi.type.ArrayType;
+import com.facebook.presto.spi.type.MapType;
+import com.facebook.presto.spi.type.RowType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Enforces the part of a pushed down filter which the underlying page source does not evaluate:
+ * the domains on subfields or on columns which can not be filtered while reading, and the
+ * remaining predicate. Columns read only to evaluate the filter are removed from the output.
+ */
+public class FilteringPageSource
+        implements ConnectorPageSource
+{
+    private final ConnectorPageSource delegate;
+    private final ConnectorSession session;
+    private final List<SubfieldFilter> subfieldFilters;
+    private final Optional<Predicate> remainingPredicate;
+    private final int outputChannelCount;
+
+    public FilteringPageSource(
+            ConnectorPageSource delegate,
+            ConnectorSession session,
+            List<HiveColumnHandle> columns,
+            List<Type> types,
+            Map<Subfield, Domain> domains,
+            Optional<Predicate> remainingPredicate,
+            int outputChannelCount)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.session = requireNonNull(session, "session is null");
+        requireNonNull(columns, "columns is null");
+        requireNonNull(types, "types is null");
+        checkArgument(columns.size() == types.size(), "columns and types do not match");
+        checkArgument(outputChannelCount <= columns.size(), "outputChannelCount is greater than the number of columns");
+
+        ImmutableList.Builder<SubfieldFilter> subfieldFilters = ImmutableList.builder();
+        for (Map.Entry<Subfield, Domain> entry : requireNonNull(domains, "domains is null").entrySet()) {
+            Subfield subfield = entry.getKey();
+            int channel = getChannel(columns, subfield.getRootName());
+            subfieldFilters.add(new SubfieldFilter(channel, types.get(channel), subfield.getPath(), entry.getValue()));
+        }
+        this.subfieldFilters = subfieldFilters.build();
+        this.remainingPredicate = requireNonNull(remainingPredicate, "remainingPredicate is null");
+        this.outputChannelCount = outputChannelCount;
+    }
+
+    private static int getChannel(List<HiveColumnHandle> columns, String name)
+    {
+        for (int channel = 0; channel < columns.size(); channel++) {
+            if (columns.get(channel).getName().equals(name)) {
+                return channel;
+            }
+        }
+        throw new IllegalArgumentException("Column not found: " + name);
+    }
+
+    /**
+     * Replaces the references to the columns in {@code expression} with references to the
+     * channels of the columns in the pages of this page source.
+     */
+    public static RowExpression toInputReferences(RowExpression expression, List<HiveColumnHandle> columns)
+    {
+        Map<String, Integer> channels = new HashMap<>();
+        for (int channel = 0; channel < columns.size(); channel++) {
+            channels.put(columns.get(channel).getName(), channel);
+        }
+        return expression.accept(new InputReferenceRewriter(), channels);
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return delegate.isFinished();
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        Page page = delegate.getNextPage();
+        if (page == null) {
+            return null;
+        }
+
+        Page predicateInput = null;
+        if (remainingPredicate.isPresent()) {
+            int[] inputChannels = remainingPredicate.get().getInputChannels();
+            Block[] inputBlocks = new Block[inputChannels.length];
+            for (int i = 0; i < inputChannels.length; i++) {
+                inputBlocks[i] = page.getBlock(inputChannels[i]);
+            }
+            predicateInput = new Page(page.getPositionCount(), inputBlocks);
+        }
+
+        IntArrayList rowsToKeep = new IntArrayList(page.getPositionCount());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (testPosition(page, predicateInput, position)) {
+                rowsToKeep.add(position);
+            }
+        }
+
+        Block[] blocks = new Block[outputChannelCount];
+        for (int channel = 0; channel < outputChannelCount; channel++) {
+            Block block = page.getBlock(channel);
+            if (rowsToKeep.size() == page.getPositionCount()) {
+                blocks[channel] = block;
+            }
+            else if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+                blocks[channel] = new LazyBlock(rowsToKeep.size(), new RowFilterLazyBlockLoader(block, rowsToKeep));
+            }
+            else {
+                blocks[channel] = block.getPositions(rowsToKeep.elements(), 0, rowsToKeep.size());
+            }
+        }
+        return new Page(rowsToKeep.size(), blocks);
+    }
+
+    private boolean testPosition(Page page, Page predicateInput, int position)
+    {
+        for (SubfieldFilter filter : subfieldFilters) {
+            Object value = getSubfieldValue(filter.getType(), page.getBlock(filter.getChannel()), position, filter.getPath(), 0);
+            if (!filter.getDomain().includesNullableValue(value)) {
+                return false;
+            }
+        }
+        return predicateInput == null || remainingPredicate.get().evaluate(session, predicateInput, position);
+    }
+
+    private static Object getSubfieldValue(Type type, Block block, int position, List<PathElement> path, int depth)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+        if (depth == path.size()) {
+            return readNativeValue(type, block, position);
+        }
+
+        PathElement pathElement = path.get(depth);
+        if (type instanceof RowType && pathElement instanceof NestedField) {
+            List<RowType.Field> fields = ((RowType) type).getFields();
+            String name = ((NestedField) pathElement).getName();
+            for (int field = 0; field < fields.size(); field++) {
+                if (fields.get(field).getName().isPresent() && fields.get(field).getName().get().equalsIgnoreCase(name)) {
+                    Block row = block.getObject(position, Block.class);
+                    return getSubfieldValue(fields.get(field).getType(), row, field, path, depth + 1);
+                }
+            }
+        }
+        else if (type instanceof ArrayType && pathElement instanceof LongSubscript) {
+            Block array = block.getObject(position, Block.class);
+            long index = ((LongSubscript) pathElement).getIndex();
+            if (index < 1 || index > array.getPositionCount()) {
+                return null;
+            }
+            return getSubfieldValue(((ArrayType) type).getElementType(), array, (int) index - 1, path, depth + 1);
+        }
+        else if (type instanceof MapType) {
+            MapType mapType = (MapType) type;
+            Object key = getSubscriptKey(mapType.getKeyType(), pathElement);
+            if (key != null) {
+                Block map = block.getObject(position, Block.class);
+                for (int entry = 0; entry < map.getPositionCount(); entry += 2) {
+                    if (key.equals(readNativeValue(mapType.getKeyType(), map, entry))) {
+                        return getSubfieldValue(mapType.getValueType(), map, entry + 1, path, depth + 1);
+                    }
+                }
+                return null;
+            }
+        }
+        throw new PrestoException(NOT_SUPPORTED, "Unsupported subfield " + pathElement + " for type " + type);
+    }
+
+    private static Object getSubscriptKey(Type keyType, PathElement pathElement)
+    {
+        if (pathElement instanceof LongSubscript && keyType.getJavaType() == long.class) {
+            return ((LongSubscript) pathElement).getIndex();
+        }
+        if (pathElement instanceof StringSubscript && keyType.getJavaType() == Slice.class) {
+            return utf8Slice(((StringSubscript) pathElement).getIndex());
+        }
+        return null;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        delegate.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return delegate.toString();
+    }
+
+    @Override
+    public long getSystemMemoryUsage()
+    {
+        return delegate.getSystemMemoryUsage();
+    }
+
+    private static final class InputReferenceRewriter
+            implements RowExpressionVisitor<RowExpression, Map<String, Integer>>
+    {
+        @Override
+        public RowExpression visitCall(CallExpression call, Map<String, Integer> channels)
+        {
+            return new CallExpression(call.getDisplayName(), call.getFunctionHandle(), call.getType(), rewrite(call.getArguments(), channels));
+        }
+
+        @Override
+        public RowExpression visitInputReference(InputReferenceExpression reference, Map<String, Integer> channels)
+        {
+            return reference;
+        }
+
+        @Override
+        public RowExpression visitConstant(ConstantExpression literal, Map<String, Integer> channels)
+        {
+            return literal;
+        }
+
+        @Override
+        public RowExpression visitLambda(LambdaDefinitionExpression lambda, Map<String, Integer> channels)
+        {
+            // lambda arguments shadow the columns with the same names
+            Map<String, Integer> visibleChannels = new HashMap<>(channels);
+            lambda.getArguments().forEach(visibleChannels::remove);
+            return new LambdaDefinitionExpression(lambda.getArgumentTypes(), lambda.getArguments(), lambda.getBody().accept(this, visibleChannels));
+        }
+
+        @Override
+        public RowExpression visitVariableReference(VariableReferenceExpression reference, Map<String, Integer> channels)
+        {
+            Integer channel = channels.get(reference.getName());
+            if (channel == null) {
+                return reference;
+            }
+            return new InputReferenceExpression(channel, reference.getType());
+        }
+
+        @Override
+        public RowExpression visitSpecialForm(SpecialFormExpression specialForm, Map<String, Integer> channels)
+        {
+            return new SpecialFormExpression(specialForm.getForm(), specialForm.getType(), rewrite(specialForm.getArguments(), channels));
+        }
+
+        private List<RowExpression> rewrite(List<RowExpression> expressions, Map<String, Integer> channels)
+        {
+            return expressions.stream()
+                    .map(expression -> expression.accept(this, channels))
+                    .collect(toImmutableList());
+        }
+    }
+
+    private static final class SubfieldFilter
+    {
+        private final int channel;
+        private final Type type;
+        private final List<PathElement> path;
+        private final Domain domain;
+
+        public SubfieldFilter(int channel, Type type, List<PathElement> path, Domain domain)
+        {
+            this.channel = channel;
+            this.type = requireNonNull(type, "type is null");
+            this.path = ImmutableList.copyOf(requireNonNull(path, "path is null"));
+            this.domain = requireNonNull(domain, "domain is null");
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public List<PathElement> getPath()
+        {
+            return path;
+        }
+
+        public Domain getDomain()
+        {
+            return domain;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 import org.joda.time.DateTimeZone;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.DecimalMax;
 import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Max;
@@ -40,6 +41,8 @@ import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.hive.HiveStorageFormat.ORC;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
@@ -103,6 +106,7 @@ public class HiveClientConfig
 
     private boolean useParquetColumnNames;
     private boolean failOnCorruptedParquetStatistics = true;
+    private DataSize parquetMetadataCacheSize = new DataSize(0, BYTE);
 
     private boolean assumeCanonicalPartitionKeys;
 
@@ -114,6 +118,7 @@ public class HiveClientConfig
     private DataSize orcTinyStripeThreshold = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcMaxReadBlockSize = new DataSize(16, MEGABYTE);
+    private DataSize orcFileTailCacheSize = new DataSize(0, BYTE);
     private boolean orcLazyReadSmallRanges = true;
     private boolean orcOptimizedWriterEnabled = true;
     private double orcWriterValidationPercentage;
@@ -132,6 +137,7 @@ public class HiveClientConfig
 
     private boolean bucketExecutionEnabled = true;
     private boolean sortedWritingEnabled = true;
+    private boolean streamingAggregationEnabled;
     private boolean ignoreTableBucketing;
 
     private int fileSystemMaxCacheSize = 1000;
@@ -158,6 +164,16 @@ public class HiveClientConfig
     private HiveStorageFormat temporaryTableStorageFormat = ORC;
     private HiveCompressionCodec temporaryTableCompressionCodec = HiveCompressionCodec.SNAPPY;
 
+    private boolean localCacheEnabled;
+    private String localCacheDirectory;
+    private DataSize localCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize localCachePageSize = new DataSize(1, MEGABYTE);
+    private boolean localCacheAffinitySchedulingEnabled = true;
+
+    private List<String> fileStatusCacheTables = ImmutableList.of();
+    private long fileStatusCacheMaxSize = 1_000_000;
+    private Duration fileStatusCacheExpireAfterWrite = new Duration(1, MINUTES);
+
     public int getMaxInitialSplits()
     {
         return maxInitialSplits;
@@ -764,6 +780,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getOrcFileTailCacheSize()
+    {
+        return orcFileTailCacheSize;
+    }
+
+    @Config("hive.orc.file-tail-cache-size")
+    @ConfigDescription("Maximum size of the worker cache of ORC file footers, metadata and stripe footers")
+    public HiveClientConfig setOrcFileTailCacheSize(DataSize orcFileTailCacheSize)
+    {
+        this.orcFileTailCacheSize = orcFileTailCacheSize;
+        return this;
+    }
+
     @Deprecated
     public boolean isOrcLazyReadSmallRanges()
     {
@@ -929,6 +959,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getParquetMetadataCacheSize()
+    {
+        return parquetMetadataCacheSize;
+    }
+
+    @Config("hive.parquet.metadata-cache-size")
+    @ConfigDescription("Maximum size of the worker cache of Parquet file footers")
+    public HiveClientConfig setParquetMetadataCacheSize(DataSize parquetMetadataCacheSize)
+    {
+        this.parquetMetadataCacheSize = parquetMetadataCacheSize;
+        return this;
+    }
+
     @Deprecated
     public boolean isOptimizeMismatchedBucketCount()
     {
@@ -1061,6 +1105,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isStreamingAggregationEnabled()
+    {
+        return streamingAggregationEnabled;
+    }
+
+    @Config("hive.streaming-aggregation-enabled")
+    @ConfigDescription("Expose the sort order of bucketed sorted tables to the engine, reading every bucket file as a single split")
+    public HiveClientConfig setStreamingAggregationEnabled(boolean streamingAggregationEnabled)
+    {
+        this.streamingAggregationEnabled = streamingAggregationEnabled;
+        return this;
+    }
+
     @Config("hive.ignore-table-bucketing")
     @ConfigDescription("Ignore table bucketing to allow reading from unbucketed partitions")
     public HiveClientConfig setIgnoreTableBucketing(boolean ignoreTableBucketing)
@@ -1294,4 +1351,120 @@ public class HiveClientConfig
         this.temporaryTableCompressionCodec = temporaryTableCompressionCodec;
         return this;
     }
+
+    public boolean isLocalCacheEnabled()
+    {
+        return localCacheEnabled;
+    }
+
+    @Config("hive.local-cache.enabled")
+    @ConfigDescription("Cache the data read from remote file systems on the local disk of the workers")
+    public HiveClientConfig setLocalCacheEnabled(boolean localCacheEnabled)
+    {
+        this.localCacheEnabled = localCacheEnabled;
+        return this;
+    }
+
+    public String getLocalCacheDirectory()
+    {
+        return localCacheDirectory;
+    }
+
+    @Config("hive.local-cache.directory")
+    @ConfigDescription("Local directory where the cached data is stored")
+    public HiveClientConfig setLocalCacheDirectory(String localCacheDirectory)
+    {
+        this.localCacheDirectory = localCacheDirectory;
+        return this;
+    }
+
+    @AssertTrue(message = "hive.local-cache.directory must be set when the local cache is enabled")
+    public boolean isLocalCacheDirectoryValid()
+    {
+        return !localCacheEnabled || localCacheDirectory != null;
+    }
+
+    @NotNull
+    public DataSize getLocalCacheMaxSize()
+    {
+        return localCacheMaxSize;
+    }
+
+    @Config("hive.local-cache.max-size")
+    @ConfigDescription("Maximum size of the data cached on the local disk")
+    public HiveClientConfig setLocalCacheMaxSize(DataSize localCacheMaxSize)
+    {
+        this.localCacheMaxSize = localCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    public DataSize getLocalCachePageSize()
+    {
+        return localCachePageSize;
+    }
+
+    @Config("hive.local-cache.page-size")
+    @ConfigDescription("Size of the aligned file ranges in which data is cached")
+    public HiveClientConfig setLocalCachePageSize(DataSize localCachePageSize)
+    {
+        this.localCachePageSize = localCachePageSize;
+        return this;
+    }
+
+    public boolean isLocalCacheAffinitySchedulingEnabled()
+    {
+        return localCacheAffinitySchedulingEnabled;
+    }
+
+    @Config("hive.local-cache.affinity-scheduling-enabled")
+    @ConfigDescription("Prefer to schedule the splits of a file on the same worker, so that they are read from its local cache")
+    public HiveClientConfig setLocalCacheAffinitySchedulingEnabled(boolean localCacheAffinitySchedulingEnabled)
+    {
+        this.localCacheAffinitySchedulingEnabled = localCacheAffinitySchedulingEnabled;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getFileStatusCacheTables()
+    {
+        return fileStatusCacheTables;
+    }
+
+    @Config("hive.file-status-cache-tables")
+    @ConfigDescription("Comma separated list of tables (schema.table, schema.* or *) whose directory listings are cached")
+    public HiveClientConfig setFileStatusCacheTables(String fileStatusCacheTables)
+    {
+        this.fileStatusCacheTables = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(fileStatusCacheTables);
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-size")
+    @ConfigDescription("Maximum number of file statuses held by the directory listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireAfterWrite()
+    {
+        return fileStatusCacheExpireAfterWrite;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    @ConfigDescription("Time after which a cached directory listing is discarded")
+    public HiveClientConfig setFileStatusCacheExpireAfterWrite(Duration fileStatusCacheExpireAfterWrite)
+    {
+        this.fileStatusCacheExpireAfterWrite = fileStatusCacheExpireAfterWrite;
+        return this;
+    }
 }
@@ -46,11 +46,14 @@ import com.facebook.presto.spi.ConnectorTablePartitioning;
 import com.facebook.presto.spi.ConnectorViewDefinition;
 import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.DiscretePredicates;
+import com.facebook.presto.spi.GroupingProperty;
 import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.LocalProperty;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.StandardErrorCode;
 import com.facebook.presto.spi.Subfield;
 import com.facebook.presto.spi.SystemTable;
@@ -158,6 +161,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.isOptimizedMismatch
 import static com.facebook.presto.hive.HiveSessionProperties.isRespectTableFormat;
 import static com.facebook.presto.hive.HiveSessionProperties.isSortedWritingEnabled;
 import static com.facebook.presto.hive.HiveSessionProperties.isStatisticsEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isStreamingAggregationEnabled;
 import static com.facebook.presto.hive.HiveTableProperties.AVRO_SCHEMA_URL;
 import static com.facebook.presto.hive.HiveTableProperties.BUCKETED_BY_PROPERTY;
 import static com.facebook.presto.hive.HiveTableProperties.BUCKET_COUNT_PROPERTY;
@@ -181,6 +185,7 @@ import static com.facebook.presto.hive.HiveUtil.columnExtraInfo;
 import static com.facebook.presto.hive.HiveUtil.decodeViewData;
 import static com.facebook.presto.hive.HiveUtil.encodeViewData;
 import static com.facebook.presto.hive.HiveUtil.getPartitionKeyColumnHandles;
+import static com.facebook.presto.hive.HiveUtil.getSortedBy;
 import static com.facebook.presto.hive.HiveUtil.hiveColumnHandles;
 import static com.facebook.presto.hive.HiveUtil.schemaTableName;
 import static com.facebook.presto.hive.HiveUtil.toPartitionValues;
@@ -219,6 +224,7 @@ import static com.facebook.presto.spi.StandardErrorCode.SCHEMA_NOT_EMPTY;
 import static com.facebook.presto.spi.predicate.TupleDomain.withColumnDomains;
 import static com.facebook.presto.spi.relation.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.spi.security.PrincipalType.USER;
+import static com.facebook.presto.spi.statistics.ColumnStatisticType.HISTOGRAM;
 import static com.facebook.presto.spi.statistics.TableStatisticType.ROW_COUNT;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.MoreObjects.firstNonNull;
@@ -228,12 +234,14 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 import static java.util.UUID.randomUUID;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
@@ -271,6 +279,10 @@ public class HiveMetadata
     private final HiveStatisticsProvider hiveStatisticsProvider;
     private final int maxPartitions;
     private final StagingFileCommitter stagingFileCommitter;
+    private final DirectoryLister directoryLister;
+
+    // directories written by this transaction, whose cached listings are invalidated once more after commit
+    private final Set<Path> writtenPaths = newConcurrentHashSet();
 
     public HiveMetadata(
             SemiTransactionalHiveMetastore metastore,
@@ -290,7 +302,8 @@ public class HiveMetadata
             String prestoVersion,
             HiveStatisticsProvider hiveStatisticsProvider,
             int maxPartitions,
-            StagingFileCommitter stagingFileCommitter)
+            StagingFileCommitter stagingFileCommitter,
+            DirectoryLister directoryLister)
     {
         this.allowCorruptWritesForTesting = allowCorruptWritesForTesting;
 
@@ -312,6 +325,7 @@ public class HiveMetadata
         checkArgument(maxPartitions >= 1, "maxPartitions must be at least 1");
         this.maxPartitions = maxPartitions;
         this.stagingFileCommitter = requireNonNull(stagingFileCommitter, "stagingFileCommitter is null");
+        this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
     }
 
     public SemiTransactionalHiveMetastore getMetastore()
@@ -1454,6 +1468,7 @@ public class HiveMetadata
         Map<List<String>, ComputedStatistics> partitionComputedStatistics = createComputedStatisticsToPartitionMap(computedStatistics, partitionedBy, columnTypes);
 
         for (PartitionUpdate partitionUpdate : partitionUpdates) {
+            invalidateDirectoryListing(partitionUpdate.getTargetPath());
             if (partitionUpdate.getName().isEmpty()) {
                 // insert into unpartitioned table
                 PartitionStatistics partitionStatistics = createPartitionStatistics(
@@ -1920,14 +1935,80 @@ public class HiveMetadata
                             .collect(toList())));
         }
 
+        Optional<Set<ColumnHandle>> streamPartitionColumns = Optional.empty();
+        List<LocalProperty<ColumnHandle>> localProperties = ImmutableList.of();
+        // rows of different partitions with the same keys would be read by the same stream
+        if (isStreamingAggregationEnabled(session) && hiveLayoutHandle.getBucketHandle().isPresent() && partitions.size() == 1) {
+            SchemaTableName tableName = hiveLayoutHandle.getSchemaTableName();
+            Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName())
+                    .orElseThrow(() -> new TableNotFoundException(tableName));
+            if (isSortedLikeTable(table, partitions.get(0))) {
+                List<HiveColumnHandle> bucketColumns = hiveLayoutHandle.getBucketHandle().get().getColumns();
+                localProperties = getSortedBucketLocalProperties(table, bucketColumns);
+                if (!localProperties.isEmpty()) {
+                    streamPartitionColumns = Optional.of(ImmutableSet.copyOf(bucketColumns));
+                }
+            }
+        }
+
         return new ConnectorTableLayout(
                 hiveLayoutHandle,
                 Optional.empty(),
                 predicate,
                 tablePartitioning,
-                Optional.empty(),
+                streamPartitionColumns,
                 discretePredicates,
-                ImmutableList.of());
+                localProperties);
+    }
+
+    /**
+     * Every bucket file is sorted and is read as a single split, and all rows with the same values of the
+     * bucket columns are in the same file. So the rows read by a stream are grouped on the shortest prefix
+     * of the sort columns which contains the bucket columns, and sorted on the remaining sort columns.
+     */
+    @VisibleForTesting
+    static List<LocalProperty<ColumnHandle>> getSortedBucketLocalProperties(Table table, List<HiveColumnHandle> bucketColumns)
+    {
+        List<SortingColumn> sortedBy = getSortedBy(table.getStorage());
+        Map<String, HiveColumnHandle> columnHandles = hiveColumnHandles(table).stream()
+                .collect(toImmutableMap(HiveColumnHandle::getName, identity()));
+        if (!sortedBy.stream().map(SortingColumn::getColumnName).allMatch(columnHandles::containsKey)) {
+            return ImmutableList.of();
+        }
+
+        Set<String> missingBucketColumns = bucketColumns.stream()
+                .map(HiveColumnHandle::getName)
+                .collect(toCollection(HashSet::new));
+        int groupingColumnCount = 0;
+        while (!missingBucketColumns.isEmpty() && groupingColumnCount < sortedBy.size()) {
+            missingBucketColumns.remove(sortedBy.get(groupingColumnCount).getColumnName());
+            groupingColumnCount++;
+        }
+        if (!missingBucketColumns.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<LocalProperty<ColumnHandle>> localProperties = ImmutableList.builder();
+        localProperties.add(new GroupingProperty<>(sortedBy.subList(0, groupingColumnCount).stream()
+                .map(column -> columnHandles.get(column.getColumnName()))
+                .collect(toImmutableList())));
+        for (SortingColumn column : sortedBy.subList(groupingColumnCount, sortedBy.size())) {
+            localProperties.add(new SortingProperty<>(columnHandles.get(column.getColumnName()), column.getOrder().getSortOrder()));
+        }
+        return localProperties.build();
+    }
+
+    private boolean isSortedLikeTable(Table table, HivePartition partition)
+    {
+        if (partition.getPartitionId().equals(UNPARTITIONED_ID)) {
+            return true;
+        }
+        // a partition written before the sort order of the table was changed keeps its own sort order
+        return metastore.getPartition(table.getDatabaseName(), table.getTableName(), toPartitionValues(partition.getPartitionId()))
+                .map(Partition::getStorage)
+                .map(HiveUtil::getSortedBy)
+                .map(getSortedBy(table.getStorage())::equals)
+                .orElse(false);
     }
 
     @Override
@@ -2158,23 +2239,25 @@ public class HiveMetadata
             return TableStatisticsMetadata.empty();
         }
         List<String> partitionedBy = firstNonNull(getPartitionedBy(tableMetadata.getProperties()), ImmutableList.of());
-        return getStatisticsCollectionMetadata(tableMetadata.getColumns(), partitionedBy, false);
+        // histograms are built from a quantile digest of every value, which is too expensive for every write
+        return getStatisticsCollectionMetadata(tableMetadata.getColumns(), partitionedBy, false, false);
     }
 
     @Override
     public TableStatisticsMetadata getStatisticsCollectionMetadata(ConnectorSession session, ConnectorTableMetadata tableMetadata)
     {
         List<String> partitionedBy = firstNonNull(getPartitionedBy(tableMetadata.getProperties()), ImmutableList.of());
-        return getStatisticsCollectionMetadata(tableMetadata.getColumns(), partitionedBy, true);
+        return getStatisticsCollectionMetadata(tableMetadata.getColumns(), partitionedBy, true, true);
     }
 
-    private TableStatisticsMetadata getStatisticsCollectionMetadata(List<ColumnMetadata> columns, List<String> partitionedBy, boolean includeRowCount)
+    private TableStatisticsMetadata getStatisticsCollectionMetadata(List<ColumnMetadata> columns, List<String> partitionedBy, boolean includeRowCount, boolean includeHistograms)
     {
         Set<ColumnStatisticMetadata> columnStatistics = columns.stream()
                 .filter(column -> !partitionedBy.contains(column.getName()))
                 .filter(column -> !column.isHidden())
                 .map(this::getColumnStatisticMetadata)
                 .flatMap(List::stream)
+                .filter(statistic -> includeHistograms || statistic.getStatisticType() != HISTOGRAM)
                 .collect(toImmutableSet());
 
         Set<TableStatisticType> tableStatistics = includeRowCount ? ImmutableSet.of(ROW_COUNT) : ImmutableSet.of();
@@ -2297,14 +2380,24 @@ public class HiveMetadata
     public void commitPartition(ConnectorSession session, ConnectorOutputTableHandle tableHandle, Collection<Slice> fragments)
     {
         HiveOutputTableHandle handle = (HiveOutputTableHandle) tableHandle;
-        stagingFileCommitter.commitFiles(session, handle.getSchemaName(), handle.getTableName(), getPartitionUpdates(fragments));
+        List<PartitionUpdate> partitionUpdates = getPartitionUpdates(fragments);
+        stagingFileCommitter.commitFiles(session, handle.getSchemaName(), handle.getTableName(), partitionUpdates);
+        partitionUpdates.forEach(partitionUpdate -> invalidateDirectoryListing(partitionUpdate.getTargetPath()));
     }
 
     @Override
     public void commitPartition(ConnectorSession session, ConnectorInsertTableHandle tableHandle, Collection<Slice> fragments)
     {
         HiveInsertTableHandle handle = (HiveInsertTableHandle) tableHandle;
-        stagingFileCommitter.commitFiles(session, handle.getSchemaName(), handle.getTableName(), getPartitionUpdates(fragments));
+        List<PartitionUpdate> partitionUpdates = getPartitionUpdates(fragments);
+        stagingFileCommitter.commitFiles(session, handle.getSchemaName(), handle.getTableName(), partitionUpdates);
+        partitionUpdates.forEach(partitionUpdate -> invalidateDirectoryListing(partitionUpdate.getTargetPath()));
+    }
+
+    private void invalidateDirectoryListing(Path path)
+    {
+        writtenPaths.add(path);
+        directoryLister.invalidate(path);
     }
 
     private List<GrantInfo> buildGrants(SchemaTableName tableName, PrestoPrincipal principal)
@@ -2488,6 +2581,8 @@ public class HiveMetadata
     public void commit()
     {
         metastore.commit();
+        // the files are moved into place by the commit, so listings made before it are stale
+        writtenPaths.forEach(directoryLister::invalidate);
     }
 
     public static boolean isPartitionsSystemTable(SchemaTableName tableName)
@@ -632,7 +632,7 @@ public class HivePageSource
         }
     }
 
-    private static final class RowFilterLazyBlockLoader
+    static final class RowFilterLazyBlockLoader
             implements LazyBlockLoader<LazyBlock>
     {
         private Block block;
@@ -19,12 +19,18 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.RecordCursor;
 import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.Subfield;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.relation.Predicate;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.RowExpressionService;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.collect.ImmutableList;
@@ -35,7 +41,9 @@ import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -43,14 +51,19 @@ import java.util.OptionalInt;
 import java.util.Properties;
 import java.util.Set;
 
+import static com.facebook.presto.hive.FilteringPageSource.toInputReferences;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.SYNTHESIZED;
 import static com.facebook.presto.hive.HivePageSourceProvider.ColumnMapping.toColumnHandles;
+import static com.facebook.presto.hive.HiveSessionProperties.isPushdownFilterEnabled;
 import static com.facebook.presto.hive.HiveUtil.getPrefilledColumnValue;
+import static com.facebook.presto.hive.HiveUtil.parsePartitionValue;
+import static com.facebook.presto.spi.relation.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Maps.uniqueIndex;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -64,6 +77,8 @@ public class HivePageSourceProvider
     private final TypeManager typeManager;
 
     private final Set<HivePageSourceFactory> pageSourceFactories;
+    private final Set<HiveSelectivePageSourceFactory> selectivePageSourceFactories;
+    private final RowExpressionService rowExpressionService;
 
     @Inject
     public HivePageSourceProvider(
@@ -71,18 +86,33 @@ public class HivePageSourceProvider
             HdfsEnvironment hdfsEnvironment,
             Set<HiveRecordCursorProvider> cursorProviders,
             Set<HivePageSourceFactory> pageSourceFactories,
-            TypeManager typeManager)
+            Set<HiveSelectivePageSourceFactory> selectivePageSourceFactories,
+            TypeManager typeManager,
+            RowExpressionService rowExpressionService)
     {
         requireNonNull(hiveClientConfig, "hiveClientConfig is null");
         this.hiveStorageTimeZone = hiveClientConfig.getDateTimeZone();
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.cursorProviders = ImmutableSet.copyOf(requireNonNull(cursorProviders, "cursorProviders is null"));
         this.pageSourceFactories = ImmutableSet.copyOf(requireNonNull(pageSourceFactories, "pageSourceFactories is null"));
+        this.selectivePageSourceFactories = ImmutableSet.copyOf(requireNonNull(selectivePageSourceFactories, "selectivePageSourceFactories is null"));
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.rowExpressionService = requireNonNull(rowExpressionService, "rowExpressionService is null");
     }
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
+    {
+        return createPageSource(transaction, session, split, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            TupleDomain<ColumnHandle> dynamicFilter)
     {
         List<HiveColumnHandle> hiveColumns = columns.stream()
                 .map(HiveColumnHandle.class::cast)
@@ -91,8 +121,23 @@ public class HivePageSourceProvider
         HiveSplit hiveSplit = (HiveSplit) split;
         Path path = new Path(hiveSplit.getPath());
 
+        TupleDomain<HiveColumnHandle> hiveDynamicFilter = dynamicFilter.transform(HiveColumnHandle.class::cast);
+        if (!partitionMatchesDynamicFilter(hiveSplit, hiveDynamicFilter)) {
+            return new FixedPageSource(ImmutableList.of());
+        }
         Configuration configuration = hdfsEnvironment.getConfiguration(new HdfsContext(session, hiveSplit.getDatabase(), hiveSplit.getTable()), path);
 
+        if (isPushdownFilterEnabled(session)) {
+            return createPushdownFilterPageSource(session, hiveSplit, path, configuration, hiveColumns, hiveDynamicFilter);
+        }
+
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getDomainPredicate()
+                .transform(subfield -> isEntireColumn(subfield) ? hiveSplit.getPredicateColumns().get(subfield.getRootName()) : null)
+                .intersect(hiveDynamicFilter.transform(column -> column.getColumnType() == REGULAR ? column : null));
+        if (effectivePredicate.isNone()) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+
         Optional<ConnectorPageSource> pageSource = createHivePageSource(
                 cursorProviders,
                 pageSourceFactories,
@@ -104,9 +149,7 @@ public class HivePageSourceProvider
                 hiveSplit.getLength(),
                 hiveSplit.getFileSize(),
                 hiveSplit.getSchema(),
-                hiveSplit.getDomainPredicate()
-                        .transform(Subfield::getRootName)
-                        .transform(hiveSplit.getPredicateColumns()::get),
+                effectivePredicate,
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
@@ -120,6 +163,150 @@ public class HivePageSourceProvider
         throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
     }
 
+    private ConnectorPageSource createPushdownFilterPageSource(
+            ConnectorSession session,
+            HiveSplit hiveSplit,
+            Path path,
+            Configuration configuration,
+            List<HiveColumnHandle> hiveColumns,
+            TupleDomain<HiveColumnHandle> dynamicFilter)
+    {
+        // the filter has been removed from the plan, so all of it must be enforced here
+        Set<String> requestedColumnNames = hiveColumns.stream()
+                .map(HiveColumnHandle::getName)
+                .collect(toImmutableSet());
+        TupleDomain<Subfield> domainPredicate = hiveSplit.getDomainPredicate()
+                .intersect(dynamicFilter.transform(column -> column.getColumnType() == REGULAR && requestedColumnNames.contains(column.getName()) ? toSubfield(column) : null));
+        if (domainPredicate.isNone()) {
+            return new FixedPageSource(ImmutableList.of());
+        }
+
+        // the columns which are only needed to evaluate the filter follow the requested columns
+        List<HiveColumnHandle> columns = new ArrayList<>(hiveColumns);
+        hiveSplit.getPredicateColumns().values().stream()
+                .filter(column -> !requestedColumnNames.contains(column.getName()))
+                .forEach(columns::add);
+        Map<String, HiveColumnHandle> columnsByName = uniqueIndex(columns, HiveColumnHandle::getName);
+
+        for (HiveSelectivePageSourceFactory factory : selectivePageSourceFactories) {
+            Map<Subfield, Domain> pushedDomains = new LinkedHashMap<>();
+            Map<Subfield, Domain> residualDomains = new LinkedHashMap<>();
+            for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+                HiveColumnHandle column = columnsByName.get(entry.getKey().getRootName());
+                if (column.getColumnType() == REGULAR &&
+                        !hiveSplit.getColumnCoercions().containsKey(column.getHiveColumnIndex()) &&
+                        factory.supportsFilter(entry.getKey(), typeManager.getType(column.getTypeSignature()), entry.getValue())) {
+                    pushedDomains.put(entry.getKey(), entry.getValue());
+                }
+                else {
+                    residualDomains.put(entry.getKey(), entry.getValue());
+                }
+            }
+
+            Optional<ConnectorPageSource> pageSource = createSelectivePageSource(
+                    factory,
+                    configuration,
+                    session,
+                    path,
+                    hiveSplit.getTableBucketNumber(),
+                    hiveSplit.getStart(),
+                    hiveSplit.getLength(),
+                    hiveSplit.getFileSize(),
+                    hiveSplit.getSchema(),
+                    TupleDomain.withColumnDomains(pushedDomains),
+                    columns,
+                    hiveSplit.getPartitionKeys(),
+                    hiveStorageTimeZone,
+                    typeManager,
+                    hiveSplit.getColumnCoercions(),
+                    hiveSplit.getBucketConversion());
+            if (pageSource.isPresent()) {
+                return createFilteringPageSource(session, pageSource.get(), columns, hiveColumns.size(), residualDomains, hiveSplit.getRemainingPredicate());
+            }
+        }
+
+        TupleDomain<HiveColumnHandle> effectivePredicate = domainPredicate
+                .transform(subfield -> isEntireColumn(subfield) ? columnsByName.get(subfield.getRootName()) : null)
+                .transform(column -> column.getColumnType() == REGULAR ? column : null);
+        Optional<ConnectorPageSource> pageSource = createHivePageSource(
+                cursorProviders,
+                pageSourceFactories,
+                configuration,
+                session,
+                path,
+                hiveSplit.getTableBucketNumber(),
+                hiveSplit.getStart(),
+                hiveSplit.getLength(),
+                hiveSplit.getFileSize(),
+                hiveSplit.getSchema(),
+                effectivePredicate,
+                columns,
+                hiveSplit.getPartitionKeys(),
+                hiveStorageTimeZone,
+                typeManager,
+                hiveSplit.getColumnCoercions(),
+                hiveSplit.getBucketConversion(),
+                hiveSplit.isS3SelectPushdownEnabled());
+        if (pageSource.isPresent()) {
+            return createFilteringPageSource(session, pageSource.get(), columns, hiveColumns.size(), domainPredicate.getDomains().get(), hiveSplit.getRemainingPredicate());
+        }
+        throw new RuntimeException("Could not find a file reader for split " + hiveSplit);
+    }
+
+    private ConnectorPageSource createFilteringPageSource(
+            ConnectorSession session,
+            ConnectorPageSource pageSource,
+            List<HiveColumnHandle> columns,
+            int outputChannelCount,
+            Map<Subfield, Domain> residualDomains,
+            RowExpression remainingPredicate)
+    {
+        if (residualDomains.isEmpty() && TRUE_CONSTANT.equals(remainingPredicate) && columns.size() == outputChannelCount) {
+            return pageSource;
+        }
+
+        Optional<Predicate> predicate = Optional.empty();
+        if (!TRUE_CONSTANT.equals(remainingPredicate)) {
+            RowExpression inputPredicate = toInputReferences(remainingPredicate, columns);
+            predicate = Optional.of(rowExpressionService.getPredicateCompiler().compilePredicate(inputPredicate).get());
+        }
+        List<Type> types = columns.stream()
+                .map(column -> typeManager.getType(column.getTypeSignature()))
+                .collect(toImmutableList());
+        return new FilteringPageSource(pageSource, session, columns, types, residualDomains, predicate, outputChannelCount);
+    }
+
+    private static Subfield toSubfield(HiveColumnHandle column)
+    {
+        return new Subfield(column.getName(), ImmutableList.of());
+    }
+
+    private static boolean isEntireColumn(Subfield subfield)
+    {
+        return subfield.getPath().isEmpty();
+    }
+
+    private boolean partitionMatchesDynamicFilter(HiveSplit split, TupleDomain<HiveColumnHandle> dynamicFilter)
+    {
+        if (dynamicFilter.isNone()) {
+            return false;
+        }
+        Map<String, HivePartitionKey> partitionKeys = uniqueIndex(split.getPartitionKeys(), HivePartitionKey::getName);
+        for (Map.Entry<HiveColumnHandle, Domain> entry : dynamicFilter.getDomains().get().entrySet()) {
+            HiveColumnHandle column = entry.getKey();
+            HivePartitionKey partitionKey = partitionKeys.get(column.getName());
+            if (column.getColumnType() != PARTITION_KEY || partitionKey == null) {
+                continue;
+            }
+            Type type = typeManager.getType(column.getTypeSignature());
+            NullableValue value = parsePartitionValue(split.getPartitionName(), partitionKey.getValue(), type, hiveStorageTimeZone);
+            if (!entry.getValue().includesNullableValue(value.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static Optional<ConnectorPageSource> createHivePageSource(
             Set<HiveRecordCursorProvider> cursorProviders,
             Set<HivePageSourceFactory> pageSourceFactories,
@@ -148,17 +335,7 @@ public class HivePageSourceProvider
                 path,
                 tableBucketNumber);
         List<ColumnMapping> regularAndInterimColumnMappings = ColumnMapping.extractRegularAndInterimColumnMappings(columnMappings);
-
-        Optional<BucketAdaptation> bucketAdaptation = bucketConversion.map(conversion -> {
-            Map<Integer, ColumnMapping> hiveIndexToBlockIndex = uniqueIndex(regularAndInterimColumnMappings, columnMapping -> columnMapping.getHiveColumnHandle().getHiveColumnIndex());
-            int[] bucketColumnIndices = conversion.getBucketColumnHandles().stream()
-                    .mapToInt(columnHandle -> hiveIndexToBlockIndex.get(columnHandle.getHiveColumnIndex()).getIndex())
-                    .toArray();
-            List<HiveType> bucketColumnHiveTypes = conversion.getBucketColumnHandles().stream()
-                    .map(columnHandle -> hiveIndexToBlockIndex.get(columnHandle.getHiveColumnIndex()).getHiveColumnHandle().getHiveType())
-                    .collect(toImmutableList());
-            return new BucketAdaptation(bucketColumnIndices, bucketColumnHiveTypes, conversion.getTableBucketCount(), conversion.getPartitionBucketCount(), tableBucketNumber.getAsInt());
-        });
+        Optional<BucketAdaptation> bucketAdaptation = createBucketAdaptation(bucketConversion, tableBucketNumber, regularAndInterimColumnMappings);
 
         for (HivePageSourceFactory pageSourceFactory : pageSourceFactories) {
             Optional<? extends ConnectorPageSource> pageSource = pageSourceFactory.createPageSource(
@@ -236,6 +413,67 @@ public class HivePageSourceProvider
         return Optional.empty();
     }
 
+    public static Optional<ConnectorPageSource> createSelectivePageSource(
+            HiveSelectivePageSourceFactory selectivePageSourceFactory,
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            OptionalInt tableBucketNumber,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            TupleDomain<Subfield> domainPredicate,
+            List<HiveColumnHandle> hiveColumns,
+            List<HivePartitionKey> partitionKeys,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager,
+            Map<Integer, HiveType> columnCoercions,
+            Optional<BucketConversion> bucketConversion)
+    {
+        List<ColumnMapping> columnMappings = ColumnMapping.buildColumnMappings(
+                partitionKeys,
+                hiveColumns,
+                bucketConversion.map(BucketConversion::getBucketColumnHandles).orElse(ImmutableList.of()),
+                columnCoercions,
+                path,
+                tableBucketNumber);
+        List<ColumnMapping> regularAndInterimColumnMappings = ColumnMapping.extractRegularAndInterimColumnMappings(columnMappings);
+        Optional<BucketAdaptation> bucketAdaptation = createBucketAdaptation(bucketConversion, tableBucketNumber, regularAndInterimColumnMappings);
+
+        Optional<? extends ConnectorPageSource> pageSource = selectivePageSourceFactory.createPageSource(
+                configuration,
+                session,
+                path,
+                start,
+                length,
+                fileSize,
+                schema,
+                toColumnHandles(regularAndInterimColumnMappings, true),
+                domainPredicate,
+                hiveStorageTimeZone);
+        return pageSource.map(delegate -> new HivePageSource(
+                columnMappings,
+                bucketAdaptation,
+                hiveStorageTimeZone,
+                typeManager,
+                delegate));
+    }
+
+    private static Optional<BucketAdaptation> createBucketAdaptation(Optional<BucketConversion> bucketConversion, OptionalInt tableBucketNumber, List<ColumnMapping> regularAndInterimColumnMappings)
+    {
+        return bucketConversion.map(conversion -> {
+            Map<Integer, ColumnMapping> hiveIndexToBlockIndex = uniqueIndex(regularAndInterimColumnMappings, columnMapping -> columnMapping.getHiveColumnHandle().getHiveColumnIndex());
+            int[] bucketColumnIndices = conversion.getBucketColumnHandles().stream()
+                    .mapToInt(columnHandle -> hiveIndexToBlockIndex.get(columnHandle.getHiveColumnIndex()).getIndex())
+                    .toArray();
+            List<HiveType> bucketColumnHiveTypes = conversion.getBucketColumnHandles().stream()
+                    .map(columnHandle -> hiveIndexToBlockIndex.get(columnHandle.getHiveColumnIndex()).getHiveColumnHandle().getHiveType())
+                    .collect(toImmutableList());
+            return new BucketAdaptation(bucketColumnIndices, bucketColumnHiveTypes, conversion.getTableBucketCount(), conversion.getPartitionBucketCount(), tableBucketNumber.getAsInt());
+        });
+    }
+
     public static class ColumnMapping
     {
         private final ColumnMappingKind kind;
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * Creates page sources which evaluate filters while reading the file, so that only the rows
+ * passing the filters are decoded and returned.
+ */
+public interface HiveSelectivePageSourceFactory
+{
+    /**
+     * Returns true if the page sources of this factory can evaluate the specified domain
+     * on the specified subfield of a column of the specified type.
+     */
+    boolean supportsFilter(Subfield subfield, Type columnType, Domain domain);
+
+    /**
+     * Creates a page source which returns only the rows that pass all the domains in
+     * {@code domainPredicate}. All the domains are on the columns in {@code columns} and
+     * are supported according to {@link #supportsFilter}.
+     */
+    Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            TupleDomain<Subfield> domainPredicate,
+            DateTimeZone hiveStorageTimeZone);
+}
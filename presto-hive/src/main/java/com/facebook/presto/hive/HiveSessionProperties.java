@@ -72,6 +72,7 @@ public final class HiveSessionProperties
     public static final String RCFILE_OPTIMIZED_WRITER_ENABLED = "rcfile_optimized_writer_enabled";
     private static final String RCFILE_OPTIMIZED_WRITER_VALIDATE = "rcfile_optimized_writer_validate";
     private static final String SORTED_WRITING_ENABLED = "sorted_writing_enabled";
+    private static final String STREAMING_AGGREGATION_ENABLED = "streaming_aggregation_enabled";
     private static final String STATISTICS_ENABLED = "statistics_enabled";
     private static final String PARTITION_STATISTICS_SAMPLE_SIZE = "partition_statistics_sample_size";
     private static final String IGNORE_CORRUPTED_STATISTICS = "ignore_corrupted_statistics";
@@ -84,6 +85,7 @@ public final class HiveSessionProperties
     private static final String TEMPORARY_TABLE_STORAGE_FORMAT = "temporary_table_storage_format";
     private static final String TEMPORARY_TABLE_COMPRESSION_CODEC = "temporary_table_compression_codec";
     public static final String PUSHDOWN_FILTER_ENABLED = "pushdown_filter_enabled";
+    private static final String LOCAL_CACHE_AFFINITY_SCHEDULING_ENABLED = "local_cache_affinity_scheduling_enabled";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -289,6 +291,11 @@ public final class HiveSessionProperties
                         "Enable writing to bucketed sorted tables",
                         hiveClientConfig.isSortedWritingEnabled(),
                         false),
+                booleanProperty(
+                        STREAMING_AGGREGATION_ENABLED,
+                        "Expose the sort order of bucketed sorted tables to the engine, reading every bucket file as a single split",
+                        hiveClientConfig.isStreamingAggregationEnabled(),
+                        false),
                 booleanProperty(
                         STATISTICS_ENABLED,
                         "Experimental: Expose table statistics",
@@ -356,6 +363,11 @@ public final class HiveSessionProperties
                         PUSHDOWN_FILTER_ENABLED,
                         "Experimental: enable complex filter pushdown",
                         false,
+                        false),
+                booleanProperty(
+                        LOCAL_CACHE_AFFINITY_SCHEDULING_ENABLED,
+                        "Prefer to schedule the splits of a file on the same worker to use its local data cache",
+                        hiveClientConfig.isLocalCacheEnabled() && hiveClientConfig.isLocalCacheAffinitySchedulingEnabled(),
                         false));
     }
 
@@ -531,6 +543,11 @@ public final class HiveSessionProperties
         return session.getProperty(SORTED_WRITING_ENABLED, Boolean.class);
     }
 
+    public static boolean isStreamingAggregationEnabled(ConnectorSession session)
+    {
+        return session.getProperty(STREAMING_AGGREGATION_ENABLED, Boolean.class);
+    }
+
     public static boolean isS3SelectPushdownEnabled(ConnectorSession session)
     {
         return session.getProperty(S3_SELECT_PUSHDOWN_ENABLED, Boolean.class);
@@ -596,6 +613,11 @@ public final class HiveSessionProperties
         return session.getProperty(PUSHDOWN_FILTER_ENABLED, Boolean.class);
     }
 
+    public static boolean isLocalCacheAffinitySchedulingEnabled(ConnectorSession session)
+    {
+        return session.getProperty(LOCAL_CACHE_AFFINITY_SCHEDULING_ENABLED, Boolean.class);
+    }
+
     public static PropertyMetadata<DataSize> dataSizeSessionProperty(String name, String description, DataSize defaultValue, boolean hidden)
     {
         return new PropertyMetadata<>(
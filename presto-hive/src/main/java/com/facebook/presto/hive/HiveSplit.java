@@ -32,6 +32,8 @@ import java.util.Properties;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.hash.Hashing.murmur3_128;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Objects.requireNonNull;
 
 public class HiveSplit
@@ -56,6 +58,7 @@ public class HiveSplit
     private final Map<Integer, HiveType> columnCoercions; // key: hiveColumnIndex
     private final Optional<BucketConversion> bucketConversion;
     private final boolean s3SelectPushdownEnabled;
+    private final boolean cacheAffinity;
 
     @JsonCreator
     public HiveSplit(
@@ -77,7 +80,8 @@ public class HiveSplit
             @JsonProperty("predicateColumns") Map<String, HiveColumnHandle> predicateColumns,
             @JsonProperty("columnCoercions") Map<Integer, HiveType> columnCoercions,
             @JsonProperty("bucketConversion") Optional<BucketConversion> bucketConversion,
-            @JsonProperty("s3SelectPushdownEnabled") boolean s3SelectPushdownEnabled)
+            @JsonProperty("s3SelectPushdownEnabled") boolean s3SelectPushdownEnabled,
+            @JsonProperty("cacheAffinity") boolean cacheAffinity)
     {
         checkArgument(start >= 0, "start must be positive");
         checkArgument(length >= 0, "length must be positive");
@@ -116,6 +120,7 @@ public class HiveSplit
         this.columnCoercions = columnCoercions;
         this.bucketConversion = bucketConversion;
         this.s3SelectPushdownEnabled = s3SelectPushdownEnabled;
+        this.cacheAffinity = cacheAffinity;
     }
 
     @JsonProperty
@@ -239,6 +244,36 @@ public class HiveSplit
         return s3SelectPushdownEnabled;
     }
 
+    @JsonProperty
+    public boolean isCacheAffinity()
+    {
+        return cacheAffinity;
+    }
+
+    @Override
+    public List<HostAddress> getPreferredNodes(List<HostAddress> candidates)
+    {
+        if (!cacheAffinity || candidates.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        // rendezvous hashing, so that most files keep their node when nodes join or leave the cluster
+        HostAddress preferredNode = null;
+        long maxWeight = Long.MIN_VALUE;
+        for (HostAddress candidate : candidates) {
+            long weight = murmur3_128().newHasher()
+                    .putString(path, UTF_8)
+                    .putString(candidate.toString(), UTF_8)
+                    .hash()
+                    .asLong();
+            if (preferredNode == null || weight > maxWeight) {
+                preferredNode = candidate;
+                maxWeight = weight;
+            }
+        }
+        return ImmutableList.of(preferredNode);
+    }
+
     @Override
     public Object getInfo()
     {
@@ -253,6 +288,7 @@ public class HiveSplit
                 .put("forceLocalScheduling", forceLocalScheduling)
                 .put("partitionName", partitionName)
                 .put("s3SelectPushdownEnabled", s3SelectPushdownEnabled)
+                .put("cacheAffinity", cacheAffinity)
                 .build();
     }
 
@@ -58,7 +58,9 @@ import static com.facebook.presto.hive.HiveColumnHandle.isPathColumnHandle;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_DROPPED_DURING_QUERY;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
+import static com.facebook.presto.hive.HiveMetadata.getSortedBucketLocalProperties;
 import static com.facebook.presto.hive.HivePartition.UNPARTITIONED_ID;
+import static com.facebook.presto.hive.HiveSessionProperties.isStreamingAggregationEnabled;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.getProtectMode;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.makePartName;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.verifyOnline;
@@ -205,13 +207,19 @@ public class HiveSplitManager
         // sort partitions
         partitions = Ordering.natural().onResultOf(HivePartition::getPartitionId).reverse().sortedCopy(partitions);
 
+        // the layout exposes the sort order of the bucket files only when a single partition is read
+        boolean sortOrderPreserved = isStreamingAggregationEnabled(session) &&
+                bucketHandle.isPresent() &&
+                partitions.size() == 1 &&
+                !getSortedBucketLocalProperties(table, bucketHandle.get().getColumns()).isEmpty();
+
         Iterable<HivePartitionMetadata> hivePartitions = getPartitionMetadata(metastore, table, tableName, partitions, bucketHandle.map(HiveBucketHandle::toTableBucketProperty));
 
         HiveSplitLoader hiveSplitLoader = new BackgroundHiveSplitLoader(
                 table,
                 hivePartitions,
                 getPathDomain(layout.getDomainPredicate(), layout.getPredicateColumns()),
-                createBucketSplitInfo(bucketHandle, bucketFilter),
+                createBucketSplitInfo(bucketHandle, bucketFilter, sortOrderPreserved),
                 session,
                 hdfsEnvironment,
                 namenodeStats,
@@ -16,6 +16,8 @@ package com.facebook.presto.hive;
 import com.facebook.presto.hadoop.TextLineLengthLimitExceededException;
 import com.facebook.presto.hive.avro.PrestoAvroSerDe;
 import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.hive.metastore.SortingColumn;
+import com.facebook.presto.hive.metastore.Storage;
 import com.facebook.presto.hive.metastore.Table;
 import com.facebook.presto.hive.util.FooterAwareRecordReader;
 import com.facebook.presto.spi.ConnectorTableHandle;
@@ -854,6 +856,13 @@ public final class HiveUtil
         return columns.build();
     }
 
+    public static List<SortingColumn> getSortedBy(Storage storage)
+    {
+        return storage.getBucketProperty()
+                .map(HiveBucketProperty::getSortedBy)
+                .orElse(ImmutableList.of());
+    }
+
     public static void checkCondition(boolean condition, ErrorCodeSupplier errorCode, String formatString, Object... args)
     {
         if (!condition) {
@@ -0,0 +1,291 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveConnectorId;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.Path;
+
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.hash.Hashing.crc32c;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-through cache of remote file data on the local disk of a worker. Files are cached in
+ * pages aligned to the page size, each stored in its own local file together with a checksum
+ * which is validated when the page is read back. The least recently used pages are evicted
+ * when the cache exceeds its maximum size. The index of the cached pages is kept in memory,
+ * so the cache directory is cleared on startup.
+ */
+public class LocalDataCache
+{
+    private static final Logger log = Logger.get(LocalDataCache.class);
+    private static final int DIRECTORY_COUNT = 256;
+
+    private final Optional<File> directory;
+    private final int pageSize;
+    private final FileFormatDataSourceStats stats;
+    private final Cache<PageKey, CachedPage> pages;
+    private final AtomicLong nextPageId = new AtomicLong();
+
+    @Inject
+    public LocalDataCache(HiveClientConfig config, HiveConnectorId connectorId, FileFormatDataSourceStats stats)
+    {
+        this(
+                config.isLocalCacheEnabled() ? Optional.of(new File(config.getLocalCacheDirectory(), connectorId.toString())) : Optional.empty(),
+                config.getLocalCacheMaxSize(),
+                config.getLocalCachePageSize(),
+                stats);
+    }
+
+    public LocalDataCache(Optional<File> directory, DataSize maxSize, DataSize pageSize, FileFormatDataSourceStats stats)
+    {
+        this.directory = requireNonNull(directory, "directory is null");
+        requireNonNull(maxSize, "maxSize is null");
+        this.pageSize = toIntExact(requireNonNull(pageSize, "pageSize is null").toBytes());
+        checkArgument(this.pageSize > 0, "pageSize must be positive");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.pages = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .<PageKey, CachedPage>weigher((key, page) -> page.getLength())
+                .removalListener((RemovalListener<PageKey, CachedPage>) notification -> notification.getValue().delete())
+                .build();
+
+        directory.ifPresent(LocalDataCache::initializeDirectory);
+    }
+
+    public static LocalDataCache disabled()
+    {
+        return new LocalDataCache(Optional.empty(), new DataSize(0, BYTE), new DataSize(1, MEGABYTE), new FileFormatDataSourceStats());
+    }
+
+    /**
+     * Returns a stream which reads the data of the file through the cache, or the given
+     * stream if the cache is disabled.
+     */
+    public FSDataInputStream wrap(Path path, long fileSize, FSDataInputStream inputStream)
+    {
+        if (!directory.isPresent()) {
+            return inputStream;
+        }
+        return new FSDataInputStream(new CachingInputStream(this, path.toString(), fileSize, inputStream));
+    }
+
+    void read(String path, long fileSize, FSDataInputStream remote, long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        checkArgument(position >= 0 && position + length <= fileSize, "Read of %s bytes at %s is beyond the end of %s", length, position, path);
+        while (length > 0) {
+            long pageIndex = position / pageSize;
+            long pageStart = pageIndex * pageSize;
+            byte[] page = getPage(new PageKey(path, fileSize, pageIndex), remote, pageStart, toIntExact(min(pageSize, fileSize - pageStart)));
+
+            int pageOffset = toIntExact(position - pageStart);
+            int chunkLength = min(length, page.length - pageOffset);
+            System.arraycopy(page, pageOffset, buffer, offset, chunkLength);
+            position += chunkLength;
+            offset += chunkLength;
+            length -= chunkLength;
+        }
+    }
+
+    @VisibleForTesting
+    long getCachedBytes()
+    {
+        return pages.asMap().values().stream()
+                .mapToLong(CachedPage::getLength)
+                .sum();
+    }
+
+    private byte[] getPage(PageKey key, FSDataInputStream remote, long pageStart, int pageLength)
+            throws IOException
+    {
+        CachedPage cachedPage = pages.getIfPresent(key);
+        if (cachedPage != null) {
+            Optional<byte[]> data = readPage(cachedPage);
+            if (data.isPresent()) {
+                stats.addLocalCacheHit(pageLength);
+                return data.get();
+            }
+            pages.asMap().remove(key, cachedPage);
+        }
+
+        stats.addLocalCacheMiss();
+        byte[] data = new byte[pageLength];
+        remote.readFully(pageStart, data);
+        writePage(key, data);
+        return data;
+    }
+
+    private Optional<byte[]> readPage(CachedPage page)
+    {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(page.getFile().toPath());
+        }
+        catch (IOException e) {
+            // the page was evicted concurrently, or the local disk failed
+            return Optional.empty();
+        }
+
+        if (data.length != page.getLength() || checksum(data) != page.getChecksum()) {
+            stats.addLocalCacheChecksumFailure();
+            return Optional.empty();
+        }
+        return Optional.of(data);
+    }
+
+    private void writePage(PageKey key, byte[] data)
+    {
+        long pageId = nextPageId.getAndIncrement();
+        File file = new File(new File(directory.get(), format("%02x", pageId % DIRECTORY_COUNT)), String.valueOf(pageId));
+        try {
+            Files.write(file.toPath(), data);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to write cache page %s", file);
+            file.delete();
+            return;
+        }
+        // the page is published after it is completely written, so concurrent readers never see a partial page
+        pages.put(key, new CachedPage(file, data.length, checksum(data)));
+    }
+
+    private static int checksum(byte[] data)
+    {
+        return crc32c().hashBytes(data).asInt();
+    }
+
+    private static void initializeDirectory(File directory)
+    {
+        try {
+            if (directory.exists()) {
+                deleteRecursively(directory.toPath(), ALLOW_INSECURE);
+            }
+            for (int i = 0; i < DIRECTORY_COUNT; i++) {
+                Files.createDirectories(new File(directory, format("%02x", i)).toPath());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to initialize cache directory " + directory, e);
+        }
+    }
+
+    private static final class PageKey
+    {
+        private final String path;
+        private final long fileSize;
+        private final long pageIndex;
+
+        public PageKey(String path, long fileSize, long pageIndex)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.fileSize = fileSize;
+            this.pageIndex = pageIndex;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PageKey that = (PageKey) o;
+            return fileSize == that.fileSize &&
+                    pageIndex == that.pageIndex &&
+                    Objects.equals(path, that.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, fileSize, pageIndex);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("fileSize", fileSize)
+                    .add("pageIndex", pageIndex)
+                    .toString();
+        }
+    }
+
+    private static final class CachedPage
+    {
+        private final File file;
+        private final int length;
+        private final int checksum;
+
+        public CachedPage(File file, int length, int checksum)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.length = length;
+            this.checksum = checksum;
+        }
+
+        public File getFile()
+        {
+            return file;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        public int getChecksum()
+        {
+            return checksum;
+        }
+
+        public void delete()
+        {
+            if (!file.delete()) {
+                log.warn("Failed to delete cache page %s", file);
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@ package com.facebook.presto.hive.metastore.thrift;
 import com.facebook.presto.hive.HiveBasicStatistics;
 import com.facebook.presto.hive.HiveBucketProperty;
 import com.facebook.presto.hive.HiveType;
+import com.facebook.presto.hive.PartitionStatistics;
 import com.facebook.presto.hive.metastore.Column;
 import com.facebook.presto.hive.metastore.Database;
 import com.facebook.presto.hive.metastore.HiveColumnStatistics;
@@ -35,15 +36,20 @@ import com.facebook.presto.spi.security.PrincipalType;
 import com.facebook.presto.spi.security.RoleGrant;
 import com.facebook.presto.spi.security.SelectedRole;
 import com.facebook.presto.spi.statistics.ColumnStatisticType;
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
 import com.facebook.presto.spi.type.ArrayType;
 import com.facebook.presto.spi.type.DecimalType;
 import com.facebook.presto.spi.type.MapType;
 import com.facebook.presto.spi.type.RowType;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
 import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Streams;
+import com.google.common.primitives.Doubles;
 import com.google.common.primitives.Longs;
 import org.apache.hadoop.hive.metastore.api.BinaryColumnStatsData;
 import org.apache.hadoop.hive.metastore.api.BooleanColumnStatsData;
@@ -109,6 +115,7 @@ import static com.facebook.presto.hive.metastore.PrestoTableType.OTHER;
 import static com.facebook.presto.hive.metastore.PrestoTableType.VIRTUAL_VIEW;
 import static com.facebook.presto.spi.security.PrincipalType.ROLE;
 import static com.facebook.presto.spi.security.PrincipalType.USER;
+import static com.facebook.presto.spi.statistics.ColumnStatisticType.HISTOGRAM;
 import static com.facebook.presto.spi.statistics.ColumnStatisticType.MAX_VALUE;
 import static com.facebook.presto.spi.statistics.ColumnStatisticType.MAX_VALUE_SIZE_IN_BYTES;
 import static com.facebook.presto.spi.statistics.ColumnStatisticType.MIN_VALUE;
@@ -155,6 +162,8 @@ public final class ThriftMetastoreUtil
     private static final String RAW_DATA_SIZE = "rawDataSize";
     private static final String TOTAL_SIZE = "totalSize";
     private static final Set<String> STATS_PROPERTIES = ImmutableSet.of(NUM_FILES, NUM_ROWS, RAW_DATA_SIZE, TOTAL_SIZE);
+    // the metastore column statistics have no place for histograms, so they are kept in the table or partition parameters
+    private static final String COLUMN_HISTOGRAM_PREFIX = "presto.column_histogram.";
 
     private ThriftMetastoreUtil() {}
 
@@ -372,7 +381,10 @@ public final class ThriftMetastoreUtil
     public static org.apache.hadoop.hive.metastore.api.Partition toMetastoreApiPartition(PartitionWithStatistics partitionWithStatistics)
     {
         org.apache.hadoop.hive.metastore.api.Partition partition = toMetastoreApiPartition(partitionWithStatistics.getPartition());
-        partition.setParameters(updateStatisticsParameters(partition.getParameters(), partitionWithStatistics.getStatistics().getBasicStatistics()));
+        PartitionStatistics statistics = partitionWithStatistics.getStatistics();
+        partition.setParameters(updateColumnHistogramParameters(
+                updateStatisticsParameters(partition.getParameters(), statistics.getBasicStatistics()),
+                statistics.getColumnStatistics()));
         return partition;
     }
 
@@ -786,6 +798,64 @@ public final class ThriftMetastoreUtil
         return result.build();
     }
 
+    public static Map<String, EquiHeightHistogram> getColumnHistograms(Map<String, String> parameters)
+    {
+        ImmutableMap.Builder<String, EquiHeightHistogram> result = ImmutableMap.builder();
+        parameters.forEach((key, value) -> {
+            if (key.startsWith(COLUMN_HISTOGRAM_PREFIX)) {
+                parseHistogram(value).ifPresent(histogram -> result.put(key.substring(COLUMN_HISTOGRAM_PREFIX.length()), histogram));
+            }
+        });
+        return result.build();
+    }
+
+    private static Optional<EquiHeightHistogram> parseHistogram(String parameterValue)
+    {
+        ImmutableList.Builder<Double> boundaries = ImmutableList.builder();
+        for (String boundary : Splitter.on(',').split(parameterValue)) {
+            Double value = Doubles.tryParse(boundary);
+            if (value == null) {
+                return Optional.empty();
+            }
+            boundaries.add(value);
+        }
+        try {
+            return Optional.of(new EquiHeightHistogram(boundaries.build()));
+        }
+        catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static Map<String, String> updateColumnHistogramParameters(Map<String, String> parameters, Map<String, HiveColumnStatistics> columnStatistics)
+    {
+        ImmutableMap.Builder<String, String> result = ImmutableMap.builder();
+
+        parameters.forEach((key, value) -> {
+            if (!key.startsWith(COLUMN_HISTOGRAM_PREFIX)) {
+                result.put(key, value);
+            }
+        });
+
+        columnStatistics.forEach((column, statistics) -> statistics.getHistogram()
+                .ifPresent(histogram -> result.put(COLUMN_HISTOGRAM_PREFIX + column, Joiner.on(',').join(histogram.getBoundaries()))));
+
+        return result.build();
+    }
+
+    public static Map<String, HiveColumnStatistics> addColumnHistograms(Map<String, HiveColumnStatistics> columnStatistics, Map<String, EquiHeightHistogram> histograms)
+    {
+        if (histograms.isEmpty()) {
+            return columnStatistics;
+        }
+        ImmutableMap.Builder<String, HiveColumnStatistics> result = ImmutableMap.builder();
+        columnStatistics.forEach((column, statistics) -> {
+            EquiHeightHistogram histogram = histograms.get(column);
+            result.put(column, histogram == null ? statistics : HiveColumnStatistics.builder(statistics).setHistogram(histogram).build());
+        });
+        return result.build();
+    }
+
     public static ColumnStatisticsObj createMetastoreColumnStatistics(String columnName, HiveType columnType, HiveColumnStatistics statistics, OptionalLong rowCount)
     {
         TypeInfo typeInfo = columnType.getTypeInfo();
@@ -932,6 +1002,9 @@ public final class ThriftMetastoreUtil
         if (type.equals(BOOLEAN)) {
             return ImmutableSet.of(NUMBER_OF_NON_NULL_VALUES, NUMBER_OF_TRUE_VALUES);
         }
+        if (isHistogramSupportedType(type)) {
+            return ImmutableSet.of(MIN_VALUE, MAX_VALUE, NUMBER_OF_DISTINCT_VALUES, NUMBER_OF_NON_NULL_VALUES, HISTOGRAM);
+        }
         if (isNumericType(type) || type.equals(DATE) || type.equals(TIMESTAMP)) {
             // TODO #7122 support non-legacy TIMESTAMP
             return ImmutableSet.of(MIN_VALUE, MAX_VALUE, NUMBER_OF_DISTINCT_VALUES, NUMBER_OF_NON_NULL_VALUES);
@@ -950,6 +1023,14 @@ public final class ThriftMetastoreUtil
         throw new IllegalArgumentException("Unsupported type: " + type);
     }
 
+    private static boolean isHistogramSupportedType(Type type)
+    {
+        // types whose values map to doubles the same way as in the column statistics ranges
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) ||
+                type.equals(DOUBLE) || type.equals(REAL) ||
+                type.equals(DATE);
+    }
+
     private static boolean isNumericType(Type type)
     {
         return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) ||
@@ -0,0 +1,368 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.hive.HiveSelectivePageSourceFactory;
+import com.facebook.presto.hive.cache.LocalDataCache;
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.facebook.presto.orc.OrcEncoding;
+import com.facebook.presto.orc.OrcPredicate;
+import com.facebook.presto.orc.OrcReader;
+import com.facebook.presto.orc.OrcSelectiveRecordReader;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.orc.TupleDomainOrcPredicate;
+import com.facebook.presto.orc.TupleDomainOrcPredicate.ColumnReference;
+import com.facebook.presto.orc.cache.OrcFileTailCache;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.Subfield.NestedField;
+import com.facebook.presto.spi.Subfield.PathElement;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.CharType;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.RowType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_BAD_DATA;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CANNOT_OPEN_SPLIT;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_MISSING_DATA;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcLazyReadSmallRanges;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxReadBlockSize;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
+import static com.facebook.presto.hive.HiveSessionProperties.getOrcTinyStripeThreshold;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
+import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactory.getPhysicalHiveColumnHandles;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactory.splitError;
+import static com.facebook.presto.hive.orc.OrcPageSourceFactory.toCompactTupleDomain;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.DWRF;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.orc.TupleDomainFilterUtils.toFilter;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.Varchars.isVarcharType;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Strings.nullToEmpty;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Creates page sources for ORC and DWRF files which evaluate the filters column by column while
+ * reading, using {@link OrcSelectiveRecordReader}.
+ */
+public class OrcSelectivePageSourceFactory
+        implements HiveSelectivePageSourceFactory
+{
+    private final TypeManager typeManager;
+    private final boolean useOrcColumnNames;
+    private final HdfsEnvironment hdfsEnvironment;
+    private final FileFormatDataSourceStats stats;
+    private final int domainCompactionThreshold;
+    private final OrcFileTailCache fileTailCache;
+    private final LocalDataCache localDataCache;
+
+    @Inject
+    public OrcSelectivePageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            OrcFileTailCache fileTailCache,
+            LocalDataCache localDataCache)
+    {
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, stats, config.getDomainCompactionThreshold(), fileTailCache, localDataCache);
+    }
+
+    public OrcSelectivePageSourceFactory(
+            TypeManager typeManager,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            FileFormatDataSourceStats stats,
+            int domainCompactionThreshold,
+            OrcFileTailCache fileTailCache,
+            LocalDataCache localDataCache)
+    {
+        this.typeManager = requireNonNull(typeManager, "typeManager is null");
+        this.useOrcColumnNames = useOrcColumnNames;
+        this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.domainCompactionThreshold = domainCompactionThreshold;
+        this.fileTailCache = requireNonNull(fileTailCache, "fileTailCache is null");
+        this.localDataCache = requireNonNull(localDataCache, "localDataCache is null");
+    }
+
+    @Override
+    public boolean supportsFilter(Subfield subfield, Type columnType, Domain domain)
+    {
+        Type type = columnType;
+        for (PathElement pathElement : subfield.getPath()) {
+            if (!(pathElement instanceof NestedField) || !(type instanceof RowType)) {
+                return false;
+            }
+            String fieldName = ((NestedField) pathElement).getName();
+            Optional<Type> fieldType = ((RowType) type).getFields().stream()
+                    .filter(field -> field.getName().isPresent() && field.getName().get().equalsIgnoreCase(fieldName))
+                    .map(RowType.Field::getType)
+                    .findFirst();
+            if (!fieldType.isPresent()) {
+                return false;
+            }
+            type = fieldType.get();
+        }
+
+        // IS NULL and IS NOT NULL can be evaluated on values of any type
+        if (domain.isOnlyNull() || (domain.getValues().isAll() && !domain.isNullAllowed())) {
+            return true;
+        }
+
+        return type.equals(domain.getType()) && isSupportedType(type);
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        return type == BOOLEAN ||
+                type == TINYINT ||
+                type == SMALLINT ||
+                type == INTEGER ||
+                type == BIGINT ||
+                type == DATE ||
+                type == TIMESTAMP ||
+                type == DOUBLE ||
+                type == REAL ||
+                type instanceof DecimalType ||
+                isVarcharType(type) ||
+                type instanceof CharType;
+    }
+
+    @Override
+    public Optional<? extends ConnectorPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            TupleDomain<Subfield> domainPredicate,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        OrcEncoding orcEncoding;
+        if (isDeserializerClass(schema, OrcSerde.class)) {
+            orcEncoding = ORC;
+        }
+        else if (isDeserializerClass(schema, com.facebook.hive.orc.OrcSerde.class)) {
+            orcEncoding = DWRF;
+        }
+        else {
+            return Optional.empty();
+        }
+
+        if (fileSize == 0) {
+            if (orcEncoding == DWRF) {
+                throw new PrestoException(HIVE_BAD_DATA, "ORC file is empty: " + path);
+            }
+            // per HIVE-13040 and ORC-162, empty files are allowed
+            return Optional.of(new FixedPageSource(ImmutableList.of()));
+        }
+
+        if (domainPredicate.isNone()) {
+            return Optional.of(new FixedPageSource(ImmutableList.of()));
+        }
+
+        return Optional.of(createOrcSelectivePageSource(
+                orcEncoding,
+                hdfsEnvironment,
+                session.getUser(),
+                configuration,
+                path,
+                start,
+                length,
+                fileSize,
+                columns,
+                orcEncoding == ORC && useOrcColumnNames,
+                domainPredicate,
+                hiveStorageTimeZone,
+                typeManager,
+                getOrcMaxMergeDistance(session),
+                getOrcMaxBufferSize(session),
+                getOrcStreamBufferSize(session),
+                getOrcTinyStripeThreshold(session),
+                getOrcMaxReadBlockSize(session),
+                getOrcLazyReadSmallRanges(session),
+                orcEncoding == ORC && isOrcBloomFiltersEnabled(session),
+                stats,
+                domainCompactionThreshold,
+                fileTailCache,
+                localDataCache));
+    }
+
+    public static OrcSelectivePageSource createOrcSelectivePageSource(
+            OrcEncoding orcEncoding,
+            HdfsEnvironment hdfsEnvironment,
+            String sessionUser,
+            Configuration configuration,
+            Path path,
+            long start,
+            long length,
+            long fileSize,
+            List<HiveColumnHandle> columns,
+            boolean useOrcColumnNames,
+            TupleDomain<Subfield> domainPredicate,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager,
+            DataSize maxMergeDistance,
+            DataSize maxBufferSize,
+            DataSize streamBufferSize,
+            DataSize tinyStripeThreshold,
+            DataSize maxReadBlockSize,
+            boolean lazyReadSmallRanges,
+            boolean orcBloomFiltersEnabled,
+            FileFormatDataSourceStats stats,
+            int domainCompactionThreshold,
+            OrcFileTailCache fileTailCache,
+            LocalDataCache localDataCache)
+    {
+        checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
+
+        OrcDataSource orcDataSource;
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
+            FSDataInputStream inputStream = localDataCache.wrap(path, fileSize, fileSystem.open(path));
+            orcDataSource = new HdfsOrcDataSource(
+                    new OrcDataSourceId(path.toString()),
+                    fileSize,
+                    maxMergeDistance,
+                    maxBufferSize,
+                    streamBufferSize,
+                    lazyReadSmallRanges,
+                    inputStream,
+                    stats);
+        }
+        catch (Exception e) {
+            if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
+                    e instanceof FileNotFoundException) {
+                throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, splitError(e, path, start, length), e);
+        }
+
+        AggregatedMemoryContext systemMemoryUsage = newSimpleAggregatedMemoryContext();
+        try {
+            OrcReader reader = new OrcReader(orcDataSource, orcEncoding, maxMergeDistance, maxBufferSize, tinyStripeThreshold, maxReadBlockSize, fileTailCache);
+
+            List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
+            Map<String, HiveColumnHandle> columnsByName = new HashMap<>();
+            ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+            ImmutableList.Builder<Integer> outputColumns = ImmutableList.builder();
+            ImmutableList.Builder<ColumnReference<HiveColumnHandle>> columnReferences = ImmutableList.builder();
+            for (HiveColumnHandle column : physicalColumns) {
+                checkArgument(column.getColumnType() == REGULAR, "column type must be regular: %s", column);
+                Type type = typeManager.getType(column.getTypeSignature());
+                includedColumns.put(column.getHiveColumnIndex(), type);
+                outputColumns.add(column.getHiveColumnIndex());
+                columnReferences.add(new ColumnReference<>(column, column.getHiveColumnIndex(), type));
+                columnsByName.put(column.getName(), column);
+            }
+
+            Map<Integer, Map<Subfield, TupleDomainFilter>> filters = new LinkedHashMap<>();
+            for (Map.Entry<Subfield, Domain> entry : domainPredicate.getDomains().get().entrySet()) {
+                HiveColumnHandle column = columnsByName.get(entry.getKey().getRootName());
+                checkArgument(column != null, "Missing column for filter on %s", entry.getKey());
+                filters.computeIfAbsent(column.getHiveColumnIndex(), index -> new LinkedHashMap<>())
+                        .put(entry.getKey(), toFilter(entry.getValue()));
+            }
+
+            // the domains on entire columns are also used to skip stripes and row groups based on statistics
+            TupleDomain<HiveColumnHandle> entireColumnPredicate = domainPredicate
+                    .transform(subfield -> subfield.getPath().isEmpty() ? columnsByName.get(subfield.getRootName()) : null);
+            TupleDomain<HiveColumnHandle> compactEffectivePredicate = toCompactTupleDomain(entireColumnPredicate, domainCompactionThreshold);
+            OrcPredicate predicate = new TupleDomainOrcPredicate<>(compactEffectivePredicate, columnReferences.build(), orcBloomFiltersEnabled);
+
+            OrcSelectiveRecordReader recordReader = reader.createSelectiveRecordReader(
+                    includedColumns.build(),
+                    outputColumns.build(),
+                    filters,
+                    predicate,
+                    start,
+                    length,
+                    hiveStorageTimeZone,
+                    systemMemoryUsage,
+                    INITIAL_BATCH_SIZE);
+
+            return new OrcSelectivePageSource(
+                    recordReader,
+                    orcDataSource,
+                    systemMemoryUsage,
+                    stats);
+        }
+        catch (Exception e) {
+            try {
+                orcDataSource.close();
+            }
+            catch (IOException ignored) {
+            }
+            if (e instanceof PrestoException) {
+                throw (PrestoException) e;
+            }
+            String message = splitError(e, path, start, length);
+            if (e.getClass().getSimpleName().equals("BlockMissingException")) {
+                throw new PrestoException(HIVE_MISSING_DATA, message, e);
+            }
+            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, message, e);
+        }
+    }
+}
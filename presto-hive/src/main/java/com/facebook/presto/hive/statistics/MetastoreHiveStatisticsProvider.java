@@ -31,6 +31,7 @@ import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.statistics.ColumnStatistics;
 import com.facebook.presto.spi.statistics.DoubleRange;
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
 import com.facebook.presto.spi.statistics.Estimate;
 import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.DecimalType;
@@ -625,6 +626,7 @@ public class MetastoreHiveStatisticsProvider
                 .setNullsFraction(calculateNullsFraction(column, partitionStatistics))
                 .setDataSize(calculateDataSize(column, partitionStatistics, rowsCount))
                 .setRange(calculateRange(type, columnStatistics))
+                .setHistogram(calculateHistogram(column, partitionStatistics))
                 .build();
     }
 
@@ -702,6 +704,42 @@ public class MetastoreHiveStatisticsProvider
         return Estimate.of(((double) totalNullsCount) / totalRowCount);
     }
 
+    @VisibleForTesting
+    static Optional<EquiHeightHistogram> calculateHistogram(String column, Collection<PartitionStatistics> partitionStatistics)
+    {
+        List<EquiHeightHistogram> histograms = new ArrayList<>();
+        List<Double> valueCounts = new ArrayList<>();
+        for (PartitionStatistics statistics : partitionStatistics) {
+            HiveColumnStatistics columnStatistics = statistics.getColumnStatistics().get(column);
+            OptionalLong rowCount = statistics.getBasicStatistics().getRowCount();
+            if (columnStatistics == null || !rowCount.isPresent() || !columnStatistics.getNullsCount().isPresent()) {
+                // the histograms can only be combined when it is known how many values each of them describes
+                return Optional.empty();
+            }
+            long valueCount = rowCount.getAsLong() - columnStatistics.getNullsCount().getAsLong();
+            if (valueCount <= 0) {
+                continue;
+            }
+            if (!columnStatistics.getHistogram().isPresent()) {
+                return Optional.empty();
+            }
+            histograms.add(columnStatistics.getHistogram().get());
+            valueCounts.add((double) valueCount);
+        }
+
+        if (histograms.isEmpty()) {
+            return Optional.empty();
+        }
+        if (histograms.size() == 1) {
+            return Optional.of(histograms.get(0));
+        }
+        int bucketCount = histograms.stream()
+                .mapToInt(EquiHeightHistogram::getBucketCount)
+                .max()
+                .getAsInt();
+        return Optional.of(EquiHeightHistogram.merge(histograms, valueCounts, bucketCount));
+    }
+
     @VisibleForTesting
     static Estimate calculateDataSize(String column, Collection<PartitionStatistics> partitionStatistics, double totalRowCount)
     {
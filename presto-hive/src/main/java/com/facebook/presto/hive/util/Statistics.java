@@ -28,10 +28,12 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.statistics.ColumnStatisticMetadata;
 import com.facebook.presto.spi.statistics.ColumnStatisticType;
 import com.facebook.presto.spi.statistics.ComputedStatistics;
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
 import com.facebook.presto.spi.type.DecimalType;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlDecimal;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.joda.time.DateTimeZone;
 
@@ -53,6 +55,8 @@ import static com.facebook.presto.hive.HiveWriteUtils.createPartitionValues;
 import static com.facebook.presto.hive.util.Statistics.ReduceOperator.ADD;
 import static com.facebook.presto.hive.util.Statistics.ReduceOperator.MAX;
 import static com.facebook.presto.hive.util.Statistics.ReduceOperator.MIN;
+import static com.facebook.presto.hive.util.Statistics.ReduceOperator.SUBTRACT;
+import static com.facebook.presto.spi.statistics.ColumnStatisticType.HISTOGRAM;
 import static com.facebook.presto.spi.statistics.ColumnStatisticType.MAX_VALUE;
 import static com.facebook.presto.spi.statistics.ColumnStatisticType.MAX_VALUE_SIZE_IN_BYTES;
 import static com.facebook.presto.spi.statistics.ColumnStatisticType.MIN_VALUE;
@@ -84,7 +88,11 @@ public final class Statistics
     {
         return new PartitionStatistics(
                 reduce(first.getBasicStatistics(), second.getBasicStatistics(), ADD),
-                merge(first.getColumnStatistics(), second.getColumnStatistics()));
+                merge(
+                        first.getColumnStatistics(),
+                        first.getBasicStatistics().getRowCount(),
+                        second.getColumnStatistics(),
+                        second.getBasicStatistics().getRowCount()));
     }
 
     public static HiveBasicStatistics reduce(HiveBasicStatistics first, HiveBasicStatistics second, ReduceOperator operator)
@@ -97,16 +105,30 @@ public final class Statistics
     }
 
     public static Map<String, HiveColumnStatistics> merge(Map<String, HiveColumnStatistics> first, Map<String, HiveColumnStatistics> second)
+    {
+        return merge(first, OptionalLong.empty(), second, OptionalLong.empty());
+    }
+
+    private static Map<String, HiveColumnStatistics> merge(
+            Map<String, HiveColumnStatistics> first,
+            OptionalLong firstRowCount,
+            Map<String, HiveColumnStatistics> second,
+            OptionalLong secondRowCount)
     {
         // only keep columns that have statistics for both sides
         Set<String> columns = intersection(first.keySet(), second.keySet());
         return columns.stream()
                 .collect(toImmutableMap(
                         column -> column,
-                        column -> merge(first.get(column), second.get(column))));
+                        column -> merge(first.get(column), firstRowCount, second.get(column), secondRowCount)));
     }
 
     public static HiveColumnStatistics merge(HiveColumnStatistics first, HiveColumnStatistics second)
+    {
+        return merge(first, OptionalLong.empty(), second, OptionalLong.empty());
+    }
+
+    private static HiveColumnStatistics merge(HiveColumnStatistics first, OptionalLong firstRowCount, HiveColumnStatistics second, OptionalLong secondRowCount)
     {
         return new HiveColumnStatistics(
                 mergeIntegerStatistics(first.getIntegerStatistics(), second.getIntegerStatistics()),
@@ -117,7 +139,12 @@ public final class Statistics
                 reduce(first.getMaxValueSizeInBytes(), second.getMaxValueSizeInBytes(), MAX, true),
                 reduce(first.getTotalSizeInBytes(), second.getTotalSizeInBytes(), ADD, true),
                 reduce(first.getNullsCount(), second.getNullsCount(), ADD, false),
-                reduce(first.getDistinctValuesCount(), second.getDistinctValuesCount(), MAX, false));
+                reduce(first.getDistinctValuesCount(), second.getDistinctValuesCount(), MAX, false),
+                mergeHistograms(
+                        first.getHistogram(),
+                        reduce(firstRowCount, first.getNullsCount(), SUBTRACT, false),
+                        second.getHistogram(),
+                        reduce(secondRowCount, second.getNullsCount(), SUBTRACT, false)));
     }
 
     private static Optional<IntegerStatistics> mergeIntegerStatistics(Optional<IntegerStatistics> first, Optional<IntegerStatistics> second)
@@ -175,6 +202,31 @@ public final class Statistics
         return Optional.empty();
     }
 
+    private static Optional<EquiHeightHistogram> mergeHistograms(
+            Optional<EquiHeightHistogram> first,
+            OptionalLong firstValuesCount,
+            Optional<EquiHeightHistogram> second,
+            OptionalLong secondValuesCount)
+    {
+        // the histograms can only be combined when it is known how many values each of them describes
+        if (!firstValuesCount.isPresent() || !secondValuesCount.isPresent()) {
+            return Optional.empty();
+        }
+        if (firstValuesCount.getAsLong() == 0) {
+            return second;
+        }
+        if (secondValuesCount.getAsLong() == 0) {
+            return first;
+        }
+        if (!first.isPresent() || !second.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(EquiHeightHistogram.merge(
+                ImmutableList.of(first.get(), second.get()),
+                ImmutableList.of((double) firstValuesCount.getAsLong(), (double) secondValuesCount.getAsLong()),
+                Math.max(first.get().getBucketCount(), second.get().getBucketCount())));
+    }
+
     private static OptionalLong reduce(OptionalLong first, OptionalLong second, ReduceOperator operator, boolean returnFirstNonEmpty)
     {
         if (first.isPresent() && second.isPresent()) {
@@ -280,6 +332,9 @@ public final class Statistics
                 case MAX_VALUE:
                     setMinMaxForEmptyPartition(columnType, result);
                     break;
+                case HISTOGRAM:
+                    // there are no values to describe
+                    break;
                 default:
                     throw new PrestoException(HIVE_UNKNOWN_COLUMN_STATISTIC_TYPE, "Unknown column statistics type: " + columnStatisticType.name());
             }
@@ -403,6 +458,11 @@ public final class Statistics
             long numberOfNonNullValues = BIGINT.getLong(computedStatistics.get(NUMBER_OF_NON_NULL_VALUES), 0);
             result.setBooleanStatistics(new BooleanStatistics(OptionalLong.of(numberOfTrue), OptionalLong.of(numberOfNonNullValues - numberOfTrue)));
         }
+
+        // HISTOGRAM
+        if (computedStatistics.containsKey(HISTOGRAM)) {
+            result.setHistogram(getHistogram(computedStatistics.get(HISTOGRAM)));
+        }
         return result.build();
     }
 
@@ -455,6 +515,19 @@ public final class Statistics
         return block.isNull(0) ? Optional.empty() : Optional.of(((SqlDecimal) type.getObjectValue(session, block, 0)).toBigDecimal());
     }
 
+    private static Optional<EquiHeightHistogram> getHistogram(Block block)
+    {
+        if (block.isNull(0)) {
+            return Optional.empty();
+        }
+        Block boundaries = block.getObject(0, Block.class);
+        ImmutableList.Builder<Double> result = ImmutableList.builder();
+        for (int position = 0; position < boundaries.getPositionCount(); position++) {
+            result.add(DOUBLE.getDouble(boundaries, position));
+        }
+        return Optional.of(new EquiHeightHistogram(result.build()));
+    }
+
     public enum ReduceOperator
     {
         ADD,
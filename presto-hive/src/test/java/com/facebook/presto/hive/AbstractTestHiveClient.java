@@ -80,8 +80,11 @@ import com.facebook.presto.spi.predicate.Range;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.predicate.ValueSet;
 import com.facebook.presto.spi.security.PrestoPrincipal;
+import com.facebook.presto.spi.statistics.ColumnStatisticMetadata;
+import com.facebook.presto.spi.statistics.ColumnStatisticType;
 import com.facebook.presto.spi.statistics.ColumnStatistics;
 import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.spi.statistics.TableStatisticsMetadata;
 import com.facebook.presto.spi.type.ArrayType;
 import com.facebook.presto.spi.type.MapType;
 import com.facebook.presto.spi.type.NamedTypeSignature;
@@ -181,6 +184,7 @@ import static com.facebook.presto.hive.HiveTestUtils.arrayType;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultHiveDataStreamFactories;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultHiveFileWriterFactories;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultHiveRecordCursorProvider;
+import static com.facebook.presto.hive.HiveTestUtils.getDefaultHiveSelectivePageSourceFactories;
 import static com.facebook.presto.hive.HiveTestUtils.getDefaultOrcFileWriterFactory;
 import static com.facebook.presto.hive.HiveTestUtils.getTypes;
 import static com.facebook.presto.hive.HiveTestUtils.mapType;
@@ -208,6 +212,7 @@ import static com.facebook.presto.spi.connector.ConnectorSplitManager.SplitSched
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
 import static com.facebook.presto.spi.relation.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.spi.security.PrincipalType.USER;
+import static com.facebook.presto.spi.statistics.ColumnStatisticType.HISTOGRAM;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.CharType.createCharType;
@@ -788,6 +793,7 @@ public abstract class AbstractTestHiveClient
                 listeningDecorator(executor),
                 new HiveTypeTranslator(),
                 new HiveStagingFileCommitter(hdfsEnvironment, listeningDecorator(executor)),
+                new HadoopDirectoryLister(),
                 TEST_SERVER_VERSION);
         transactionManager = new HiveTransactionManager();
         splitManager = new HiveSplitManager(
@@ -820,7 +826,7 @@ public abstract class AbstractTestHiveClient
                 new HiveSessionProperties(hiveClientConfig, new OrcFileWriterConfig(), new ParquetFileWriterConfig()),
                 new HiveWriterStats(),
                 getDefaultOrcFileWriterFactory(hiveClientConfig));
-        pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, getDefaultHiveRecordCursorProvider(hiveClientConfig), getDefaultHiveDataStreamFactories(hiveClientConfig), TYPE_MANAGER);
+        pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, getDefaultHiveRecordCursorProvider(hiveClientConfig), getDefaultHiveDataStreamFactories(hiveClientConfig), getDefaultHiveSelectivePageSourceFactories(hiveClientConfig), TYPE_MANAGER, ROW_EXPRESSION_SERVICE);
     }
 
     /**
@@ -3238,6 +3244,32 @@ public abstract class AbstractTestHiveClient
         }
     }
 
+    @Test
+    public void testStatisticsCollectionMetadata()
+    {
+        HiveSessionProperties properties = new HiveSessionProperties(
+                getHiveClientConfig().setCollectColumnStatisticsOnWrite(true),
+                new OrcFileWriterConfig(), new ParquetFileWriterConfig());
+        ConnectorSession session = new TestingConnectorSession(properties.getSessionProperties());
+        ConnectorTableMetadata tableMetadata = new ConnectorTableMetadata(temporaryTable("statistics"), ImmutableList.of(new ColumnMetadata("id", BIGINT)));
+        Set<ColumnStatisticType> supportedStatistics = metastoreClient.getSupportedColumnStatistics(BIGINT);
+
+        try (Transaction transaction = newTransaction()) {
+            ConnectorMetadata metadata = transaction.getMetadata();
+
+            // histograms are only collected by ANALYZE
+            assertEquals(getColumnStatisticTypes(metadata.getStatisticsCollectionMetadata(session, tableMetadata)), supportedStatistics);
+            assertEquals(getColumnStatisticTypes(metadata.getStatisticsCollectionMetadataForWrite(session, tableMetadata)), difference(supportedStatistics, ImmutableSet.of(HISTOGRAM)));
+        }
+    }
+
+    private static Set<ColumnStatisticType> getColumnStatisticTypes(TableStatisticsMetadata statisticsMetadata)
+    {
+        return statisticsMetadata.getColumnStatistics().stream()
+                .map(ColumnStatisticMetadata::getStatisticType)
+                .collect(toImmutableSet());
+    }
+
     private ConnectorSession sampleSize(int sampleSize)
     {
         HiveSessionProperties properties = new HiveSessionProperties(
@@ -0,0 +1,211 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.hive.metastore.PrestoTableType.MANAGED_TABLE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private static final Path PATH = new Path("hdfs://VOL1:9000/db_name/table_name/ds=2019-01-01");
+    private static final List<LocatedFileStatus> FILES = ImmutableList.of(
+            locatedFileStatus(new Path(PATH, "file1")),
+            locatedFileStatus(new Path(PATH, "file2")));
+
+    @Test
+    public void testCachedTable()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = createLister(delegate, "test_dbname.test_table");
+        Table table = table("test_dbname", "test_table");
+
+        assertEquals(listAll(lister, table), FILES);
+        assertEquals(listAll(lister, table), FILES);
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(lister.getHitCount(), 1);
+        assertEquals(lister.getMissCount(), 1);
+        assertEquals(lister.getSize(), 1);
+
+        // a write by Presto invalidates the listing
+        lister.invalidate(PATH);
+        assertEquals(listAll(lister, table), FILES);
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testTableSelection()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = createLister(delegate, "test_dbname.*,other_dbname.other_table");
+
+        listAll(lister, table("test_dbname", "any_table"));
+        listAll(lister, table("test_dbname", "any_table"));
+        assertEquals(delegate.getListCount(), 1);
+
+        lister.flushCache();
+        listAll(lister, table("other_dbname", "other_table"));
+        listAll(lister, table("other_dbname", "other_table"));
+        assertEquals(delegate.getListCount(), 2);
+
+        // tables which are not selected are always listed
+        listAll(lister, table("other_dbname", "test_table"));
+        listAll(lister, table("other_dbname", "test_table"));
+        assertEquals(delegate.getListCount(), 4);
+        assertEquals(lister.getRequestCount(), 4);
+    }
+
+    @Test
+    public void testIncompleteListingNotCached()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = createLister(delegate, "*");
+        Table table = table("test_dbname", "test_table");
+
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(null, table, PATH);
+        iterator.next();
+        assertEquals(lister.getSize(), 0);
+
+        listAll(lister, table);
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getSize(), 1);
+    }
+
+    @Test
+    public void testInvalidationDuringListing()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = createLister(delegate, "*");
+        Table table = table("test_dbname", "test_table");
+
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(null, table, PATH);
+        iterator.next();
+        lister.invalidate(PATH);
+        while (iterator.hasNext()) {
+            iterator.next();
+        }
+        assertEquals(lister.getSize(), 0);
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        CountingDirectoryLister delegate = new CountingDirectoryLister();
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, HOURS), 0, ImmutableList.of("*"));
+        Table table = table("test_dbname", "test_table");
+
+        listAll(lister, table);
+        listAll(lister, table);
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getRequestCount(), 0);
+    }
+
+    private static CachingDirectoryLister createLister(DirectoryLister delegate, String tables)
+    {
+        return new CachingDirectoryLister(delegate, new Duration(1, HOURS), 1000, new HiveClientConfig().setFileStatusCacheTables(tables).getFileStatusCacheTables());
+    }
+
+    private static List<LocatedFileStatus> listAll(DirectoryLister lister, Table table)
+            throws IOException
+    {
+        ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(null, table, PATH);
+        while (iterator.hasNext()) {
+            files.add(iterator.next());
+        }
+        return files.build();
+    }
+
+    private static Table table(String databaseName, String tableName)
+    {
+        Table.Builder tableBuilder = Table.builder();
+        tableBuilder.getStorageBuilder()
+                .setStorageFormat(StorageFormat.create(
+                        "com.facebook.hive.orc.OrcSerde",
+                        "org.apache.hadoop.hive.ql.io.RCFileInputFormat",
+                        "org.apache.hadoop.hive.ql.io.RCFileInputFormat"))
+                .setLocation("hdfs://VOL1:9000/db_name/table_name");
+
+        return tableBuilder
+                .setDatabaseName(databaseName)
+                .setOwner("testOwner")
+                .setTableName(tableName)
+                .setTableType(MANAGED_TABLE)
+                .setDataColumns(ImmutableList.of(new Column("col1", HIVE_STRING, Optional.empty())))
+                .setParameters(ImmutableMap.of())
+                .build();
+    }
+
+    private static LocatedFileStatus locatedFileStatus(Path path)
+    {
+        return new LocatedFileStatus(0L, false, 0, 0L, 0L, 0L, null, null, null, null, path, new BlockLocation[] {});
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private int listCount;
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Table table, Path path)
+        {
+            listCount++;
+            return new RemoteIterator<LocatedFileStatus>()
+            {
+                private final Iterator<LocatedFileStatus> iterator = FILES.iterator();
+
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public LocatedFileStatus next()
+                {
+                    return iterator.next();
+                }
+            };
+        }
+
+        public int getListCount()
+        {
+            return listCount;
+        }
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.RowBlock;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.relation.InputReferenceExpression;
+import com.facebook.presto.spi.relation.LambdaDefinitionExpression;
+import com.facebook.presto.spi.relation.Predicate;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.SpecialFormExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.spi.type.RowType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveTestUtils.SESSION;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.spi.relation.SpecialFormExpression.Form.AND;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.RowType.field;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestFilteringPageSource
+{
+    private static final RowType ROW_TYPE = RowType.from(ImmutableList.of(field("x", BIGINT), field("y", VARCHAR)));
+    private static final List<HiveColumnHandle> COLUMNS = ImmutableList.of(
+            new HiveColumnHandle("a", HIVE_LONG, BIGINT.getTypeSignature(), 0, REGULAR, Optional.empty()),
+            new HiveColumnHandle("b", HIVE_STRING, VARCHAR.getTypeSignature(), 1, REGULAR, Optional.empty()),
+            new HiveColumnHandle("c", HiveType.valueOf("struct<x:bigint,y:string>"), ROW_TYPE.getTypeSignature(), 2, REGULAR, Optional.empty()));
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, ROW_TYPE);
+
+    @Test
+    public void testNoFilter()
+            throws IOException
+    {
+        assertFilteredRows(ImmutableMap.of(), Optional.empty(), 3, ImmutableList.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9));
+    }
+
+    @Test
+    public void testColumnDomain()
+            throws IOException
+    {
+        assertFilteredRows(
+                ImmutableMap.of(new Subfield("a"), Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 3L, true, 6L, false)), false)),
+                Optional.empty(),
+                3,
+                ImmutableList.of(3, 4, 5));
+
+        // null values only pass a domain which allows null
+        assertFilteredRows(
+                ImmutableMap.of(new Subfield("c"), Domain.onlyNull(ROW_TYPE)),
+                Optional.empty(),
+                3,
+                ImmutableList.of(0, 7));
+    }
+
+    @Test
+    public void testSubfieldDomain()
+            throws IOException
+    {
+        // the struct column is read only for the filter and is not part of the output
+        assertFilteredRows(
+                ImmutableMap.of(new Subfield("c.x"), Domain.create(ValueSet.ofRanges(Range.greaterThanOrEqual(BIGINT, 50L)), false)),
+                Optional.empty(),
+                2,
+                ImmutableList.of(5, 6, 8, 9));
+
+        assertFilteredRows(
+                ImmutableMap.of(new Subfield("c.y"), Domain.singleValue(VARCHAR, utf8Slice("y4"))),
+                Optional.empty(),
+                1,
+                ImmutableList.of(4));
+
+        // the subfield of a null struct is null
+        assertFilteredRows(
+                ImmutableMap.of(new Subfield("c.x"), Domain.create(ValueSet.ofRanges(Range.lessThan(BIGINT, 30L)), true)),
+                Optional.empty(),
+                3,
+                ImmutableList.of(0, 1, 2, 7));
+    }
+
+    @Test
+    public void testRemainingPredicate()
+            throws IOException
+    {
+        assertFilteredRows(ImmutableMap.of(), Optional.of(new EvenPredicate(0)), 3, ImmutableList.of(0, 2, 4, 6, 8));
+
+        // the domains and the remaining predicate must both pass
+        assertFilteredRows(
+                ImmutableMap.of(new Subfield("c.x"), Domain.create(ValueSet.ofRanges(Range.greaterThanOrEqual(BIGINT, 30L)), false)),
+                Optional.of(new EvenPredicate(0)),
+                2,
+                ImmutableList.of(4, 6, 8));
+    }
+
+    @Test
+    public void testLazyOutputBlock()
+            throws IOException
+    {
+        Page page = createPage();
+        Block lazyBlock = new LazyBlock(page.getPositionCount(), lazy -> lazy.setBlock(page.getBlock(1)));
+        Page lazyPage = new Page(page.getBlock(0), lazyBlock, page.getBlock(2));
+
+        try (ConnectorPageSource pageSource = new FilteringPageSource(
+                new FixedPageSource(ImmutableList.of(lazyPage)),
+                SESSION,
+                COLUMNS,
+                TYPES,
+                ImmutableMap.of(new Subfield("a"), Domain.singleValue(BIGINT, 2L)),
+                Optional.empty(),
+                2)) {
+            Page filtered = pageSource.getNextPage();
+            assertEquals(filtered.getPositionCount(), 1);
+
+            // the output column which is not filtered on stays lazy
+            Block block = filtered.getBlock(1);
+            assertTrue(block instanceof LazyBlock);
+            assertFalse(((LazyBlock) block).isLoaded());
+            assertEquals(VARCHAR.getSlice(block, 0), utf8Slice("b2"));
+        }
+    }
+
+    @Test
+    public void testToInputReferences()
+    {
+        VariableReferenceExpression a = new VariableReferenceExpression("a", BIGINT);
+        VariableReferenceExpression c = new VariableReferenceExpression("c", ROW_TYPE);
+        VariableReferenceExpression other = new VariableReferenceExpression("other", BIGINT);
+
+        assertEquals(
+                FilteringPageSource.toInputReferences(new SpecialFormExpression(AND, BOOLEAN, a, c, other), COLUMNS),
+                new SpecialFormExpression(AND, BOOLEAN, new InputReferenceExpression(0, BIGINT), new InputReferenceExpression(2, ROW_TYPE), other));
+
+        // lambda arguments shadow the columns
+        RowExpression lambda = new LambdaDefinitionExpression(ImmutableList.of(BIGINT), ImmutableList.of("a"), new SpecialFormExpression(AND, BOOLEAN, a, c));
+        assertEquals(
+                FilteringPageSource.toInputReferences(lambda, COLUMNS),
+                new LambdaDefinitionExpression(ImmutableList.of(BIGINT), ImmutableList.of("a"), new SpecialFormExpression(AND, BOOLEAN, a, new InputReferenceExpression(2, ROW_TYPE))));
+    }
+
+    private static void assertFilteredRows(Map<Subfield, Domain> domains, Optional<Predicate> remainingPredicate, int outputChannelCount, List<Integer> expectedRows)
+            throws IOException
+    {
+        Page page = createPage();
+        try (ConnectorPageSource pageSource = new FilteringPageSource(
+                new FixedPageSource(ImmutableList.of(page)),
+                SESSION,
+                COLUMNS,
+                TYPES,
+                domains,
+                remainingPredicate,
+                outputChannelCount)) {
+            Page filtered = pageSource.getNextPage();
+            assertEquals(filtered.getChannelCount(), outputChannelCount);
+            assertEquals(filtered.getPositionCount(), expectedRows.size());
+            for (int position = 0; position < expectedRows.size(); position++) {
+                int row = expectedRows.get(position);
+                assertEquals(BIGINT.getLong(filtered.getBlock(0), position), row);
+                if (outputChannelCount > 1) {
+                    assertEquals(VARCHAR.getSlice(filtered.getBlock(1), position), utf8Slice("b" + row));
+                }
+                if (outputChannelCount > 2) {
+                    assertEquals(filtered.getBlock(2).isNull(position), page.getBlock(2).isNull(row));
+                }
+            }
+            assertNull(pageSource.getNextPage());
+            assertTrue(pageSource.isFinished());
+        }
+    }
+
+    /**
+     * Creates rows {@code (i, 'b' || i, ROW(i * 10, 'y' || i))} for i in [0, 10), where the struct of rows 0 and 7 is null.
+     */
+    private static Page createPage()
+    {
+        int positionCount = 10;
+        BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder varcharBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+        BlockBuilder xBuilder = BIGINT.createBlockBuilder(null, positionCount);
+        BlockBuilder yBuilder = VARCHAR.createBlockBuilder(null, positionCount);
+        boolean[] rowIsNull = new boolean[positionCount];
+        for (int row = 0; row < positionCount; row++) {
+            BIGINT.writeLong(bigintBuilder, row);
+            VARCHAR.writeSlice(varcharBuilder, utf8Slice("b" + row));
+            rowIsNull[row] = row == 0 || row == 7;
+            if (rowIsNull[row]) {
+                xBuilder.appendNull();
+                yBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(xBuilder, row * 10);
+                VARCHAR.writeSlice(yBuilder, utf8Slice("y" + row));
+            }
+        }
+        Block rowBlock = RowBlock.fromFieldBlocks(positionCount, Optional.of(rowIsNull), new Block[] {xBuilder.build(), yBuilder.build()});
+        return new Page(bigintBuilder.build(), varcharBuilder.build(), rowBlock);
+    }
+
+    private static class EvenPredicate
+            implements Predicate
+    {
+        private final int channel;
+
+        public EvenPredicate(int channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        public int[] getInputChannels()
+        {
+            return new int[] {channel};
+        }
+
+        @Override
+        public boolean evaluate(ConnectorSession session, Page page, int position)
+        {
+            // the page only contains the input channels of the predicate
+            return BIGINT.getLong(page.getBlock(0), position) % 2 == 0;
+        }
+    }
+}
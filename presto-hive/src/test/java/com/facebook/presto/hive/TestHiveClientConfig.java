@@ -79,12 +79,14 @@ public class TestHiveClientConfig
                 .setRespectTableFormat(true)
                 .setImmutablePartitions(false)
                 .setSortedWritingEnabled(true)
+                .setStreamingAggregationEnabled(false)
                 .setMaxPartitionsPerWriter(100)
                 .setMaxOpenSortFiles(50)
                 .setWriteValidationThreads(16)
                 .setTextMaxLineLength(new DataSize(100, Unit.MEGABYTE))
                 .setUseParquetColumnNames(false)
                 .setFailOnCorruptedParquetStatistics(true)
+                .setParquetMetadataCacheSize(new DataSize(0, Unit.BYTE))
                 .setUseOrcColumnNames(false)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcBloomFiltersEnabled(false)
@@ -94,6 +96,7 @@ public class TestHiveClientConfig
                 .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE))
                 .setOrcTinyStripeThreshold(new DataSize(8, Unit.MEGABYTE))
                 .setOrcMaxReadBlockSize(new DataSize(16, Unit.MEGABYTE))
+                .setOrcFileTailCacheSize(new DataSize(0, Unit.BYTE))
                 .setOrcLazyReadSmallRanges(true)
                 .setRcfileOptimizedWriterEnabled(true)
                 .setRcfileWriterValidate(false)
@@ -126,7 +129,15 @@ public class TestHiveClientConfig
                 .setTemporaryStagingDirectoryPath("/tmp/presto-${USER}")
                 .setTemporaryTableSchema("default")
                 .setTemporaryTableStorageFormat(ORC)
-                .setTemporaryTableCompressionCodec(SNAPPY));
+                .setTemporaryTableCompressionCodec(SNAPPY)
+                .setLocalCacheEnabled(false)
+                .setLocalCacheDirectory(null)
+                .setLocalCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setLocalCachePageSize(new DataSize(1, Unit.MEGABYTE))
+                .setLocalCacheAffinitySchedulingEnabled(true)
+                .setFileStatusCacheTables("")
+                .setFileStatusCacheMaxSize(1_000_000)
+                .setFileStatusCacheExpireAfterWrite(new Duration(1, TimeUnit.MINUTES)));
     }
 
     @Test
@@ -176,6 +187,7 @@ public class TestHiveClientConfig
                 .put("hive.text.max-line-length", "13MB")
                 .put("hive.parquet.use-column-names", "true")
                 .put("hive.parquet.fail-on-corrupted-statistics", "false")
+                .put("hive.parquet.metadata-cache-size", "32MB")
                 .put("hive.orc.use-column-names", "true")
                 .put("hive.orc.bloom-filters.enabled", "true")
                 .put("hive.orc.default-bloom-filter-fpp", "0.96")
@@ -184,6 +196,7 @@ public class TestHiveClientConfig
                 .put("hive.orc.stream-buffer-size", "55kB")
                 .put("hive.orc.tiny-stripe-threshold", "61kB")
                 .put("hive.orc.max-read-block-size", "66kB")
+                .put("hive.orc.file-tail-cache-size", "64MB")
                 .put("hive.orc.lazy-read-small-ranges", "false")
                 .put("hive.rcfile-optimized-writer.enabled", "false")
                 .put("hive.rcfile.writer.validate", "true")
@@ -197,6 +210,7 @@ public class TestHiveClientConfig
                 .put("hive.skip-target-cleanup-on-rollback", "true")
                 .put("hive.bucket-execution", "false")
                 .put("hive.sorted-writing", "false")
+                .put("hive.streaming-aggregation-enabled", "true")
                 .put("hive.ignore-table-bucketing", "true")
                 .put("hive.fs.cache.max-size", "1010")
                 .put("hive.table-statistics-enabled", "false")
@@ -217,6 +231,14 @@ public class TestHiveClientConfig
                 .put("hive.temporary-table-schema", "other")
                 .put("hive.temporary-table-storage-format", "DWRF")
                 .put("hive.temporary-table-compression-codec", "NONE")
+                .put("hive.local-cache.enabled", "true")
+                .put("hive.local-cache.directory", "/mnt/ssd/cache")
+                .put("hive.local-cache.max-size", "100GB")
+                .put("hive.local-cache.page-size", "256kB")
+                .put("hive.local-cache.affinity-scheduling-enabled", "false")
+                .put("hive.file-status-cache-tables", "foo.bar1, foo.bar2")
+                .put("hive.file-status-cache-size", "1000")
+                .put("hive.file-status-cache-expire-time", "30m")
                 .build();
 
         HiveClientConfig expected = new HiveClientConfig()
@@ -262,6 +284,7 @@ public class TestHiveClientConfig
                 .setTextMaxLineLength(new DataSize(13, Unit.MEGABYTE))
                 .setUseParquetColumnNames(true)
                 .setFailOnCorruptedParquetStatistics(false)
+                .setParquetMetadataCacheSize(new DataSize(32, Unit.MEGABYTE))
                 .setUseOrcColumnNames(true)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcBloomFiltersEnabled(true)
@@ -271,6 +294,7 @@ public class TestHiveClientConfig
                 .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE))
                 .setOrcTinyStripeThreshold(new DataSize(61, Unit.KILOBYTE))
                 .setOrcMaxReadBlockSize(new DataSize(66, Unit.KILOBYTE))
+                .setOrcFileTailCacheSize(new DataSize(64, Unit.MEGABYTE))
                 .setOrcLazyReadSmallRanges(false)
                 .setRcfileOptimizedWriterEnabled(false)
                 .setRcfileWriterValidate(true)
@@ -284,6 +308,7 @@ public class TestHiveClientConfig
                 .setSkipTargetCleanupOnRollback(true)
                 .setBucketExecutionEnabled(false)
                 .setSortedWritingEnabled(false)
+                .setStreamingAggregationEnabled(true)
                 .setIgnoreTableBucketing(true)
                 .setFileSystemMaxCacheSize(1010)
                 .setTableStatisticsEnabled(false)
@@ -304,7 +329,15 @@ public class TestHiveClientConfig
                 .setTemporaryStagingDirectoryPath("updated")
                 .setTemporaryTableSchema("other")
                 .setTemporaryTableStorageFormat(DWRF)
-                .setTemporaryTableCompressionCodec(NONE);
+                .setTemporaryTableCompressionCodec(NONE)
+                .setLocalCacheEnabled(true)
+                .setLocalCacheDirectory("/mnt/ssd/cache")
+                .setLocalCacheMaxSize(new DataSize(100, Unit.GIGABYTE))
+                .setLocalCachePageSize(new DataSize(256, Unit.KILOBYTE))
+                .setLocalCacheAffinitySchedulingEnabled(false)
+                .setFileStatusCacheTables("foo.bar1,foo.bar2")
+                .setFileStatusCacheMaxSize(1000)
+                .setFileStatusCacheExpireAfterWrite(new Duration(30, TimeUnit.MINUTES));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
@@ -1909,6 +1909,70 @@ public class TestHiveIntegrationSmokeTest
                 "SELECT custkey, COUNT(*) FROM orders GROUP BY custkey");
     }
 
+    @Test
+    public void testStreamingAggregationOnSortedBucketedTable()
+    {
+        try {
+            assertUpdate(
+                    getParallelWriteSession(),
+                    "CREATE TABLE test_streaming_aggregation " +
+                            "WITH (bucketed_by = ARRAY['custkey'], bucket_count = 4, sorted_by = ARRAY['custkey', 'orderkey']) " +
+                            "AS SELECT custkey, orderkey, totalprice FROM tpch.tiny.orders",
+                    15000);
+
+            Session session = Session.builder(getSession())
+                    .setCatalogSessionProperty(catalog, "streaming_aggregation_enabled", "true")
+                    .build();
+            @Language("SQL") String query = "SELECT custkey, count(*), sum(totalprice) FROM test_streaming_aggregation GROUP BY custkey";
+            String plan = (String) computeActual(session, "EXPLAIN " + query).getOnlyValue();
+            assertTrue(plan.contains("Aggregate(STREAMING)"), plan);
+            assertQuery(session, query, "SELECT custkey, count(*), sum(totalprice) FROM orders GROUP BY custkey");
+            assertQuery(
+                    session,
+                    "SELECT custkey, orderkey, count(*) FROM test_streaming_aggregation GROUP BY custkey, orderkey",
+                    "SELECT custkey, orderkey, count(*) FROM orders GROUP BY custkey, orderkey");
+
+            // the input is not grouped on keys which do not contain the bucket columns
+            String orderkeyPlan = (String) computeActual(session, "EXPLAIN SELECT orderkey, count(*) FROM test_streaming_aggregation GROUP BY orderkey").getOnlyValue();
+            assertFalse(orderkeyPlan.contains("Aggregate(STREAMING)"), orderkeyPlan);
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS test_streaming_aggregation");
+        }
+    }
+
+    @Test
+    public void testStreamingAggregationOnSortedBucketedPartitionedTable()
+    {
+        try {
+            assertUpdate(
+                    getParallelWriteSession(),
+                    "CREATE TABLE test_streaming_aggregation_partitioned " +
+                            "WITH (partitioned_by = ARRAY['orderstatus'], bucketed_by = ARRAY['custkey'], bucket_count = 4, sorted_by = ARRAY['custkey']) " +
+                            "AS SELECT custkey, totalprice, orderstatus FROM tpch.tiny.orders",
+                    15000);
+
+            Session session = Session.builder(getSession())
+                    .setCatalogSessionProperty(catalog, "streaming_aggregation_enabled", "true")
+                    .build();
+
+            // a single partition is read as whole sorted bucket files
+            @Language("SQL") String singlePartitionQuery = "SELECT custkey, count(*), max(totalprice) FROM test_streaming_aggregation_partitioned WHERE orderstatus = 'O' GROUP BY custkey";
+            String singlePartitionPlan = (String) computeActual(session, "EXPLAIN " + singlePartitionQuery).getOnlyValue();
+            assertTrue(singlePartitionPlan.contains("Aggregate(STREAMING)"), singlePartitionPlan);
+            assertQuery(session, singlePartitionQuery, "SELECT custkey, count(*), max(totalprice) FROM orders WHERE orderstatus = 'O' GROUP BY custkey");
+
+            // the rows of several partitions are not sorted, so they are read like any other table
+            @Language("SQL") String query = "SELECT custkey, count(*), max(totalprice) FROM test_streaming_aggregation_partitioned GROUP BY custkey";
+            String plan = (String) computeActual(session, "EXPLAIN " + query).getOnlyValue();
+            assertFalse(plan.contains("Aggregate(STREAMING)"), plan);
+            assertQuery(session, query, "SELECT custkey, count(*), max(totalprice) FROM orders GROUP BY custkey");
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS test_streaming_aggregation_partitioned");
+        }
+    }
+
     @Test
     public void testScaleWriters()
     {
@@ -4119,6 +4183,66 @@ public class TestHiveIntegrationSmokeTest
         assertQuerySucceeds(pushdownFilterEnabled, "SELECT comment FROM lineitem WHERE comment LIKE 'abc%'");
     }
 
+    @Test
+    public void testPushdownFilter()
+    {
+        Session pushdownFilterEnabled = Session.builder(getQueryRunner().getDefaultSession())
+                .setCatalogSessionProperty(catalog, PUSHDOWN_FILTER_ENABLED, "true")
+                .build();
+
+        // filters on projected and non-projected columns
+        assertQuery(pushdownFilterEnabled, "SELECT linenumber, quantity FROM lineitem WHERE orderkey < 100 AND shipmode = 'AIR'");
+        assertQuery(pushdownFilterEnabled, "SELECT count(*) FROM orders WHERE orderpriority IN ('1-URGENT', '2-HIGH') AND custkey BETWEEN 100 AND 200");
+        assertQuery(pushdownFilterEnabled, "SELECT orderkey FROM lineitem WHERE discount > 0.05 AND returnflag = 'R' AND linenumber = 3");
+
+        // remaining predicate
+        assertQuery(pushdownFilterEnabled, "SELECT orderkey, linenumber FROM lineitem WHERE partkey < 50 AND linenumber % 2 = 0");
+        assertQuery(pushdownFilterEnabled, "SELECT orderkey FROM orders WHERE comment LIKE '%express%'");
+    }
+
+    @Test
+    public void testPushdownFilterOnNestedTypes()
+    {
+        Session pushdownFilterEnabled = Session.builder(getQueryRunner().getDefaultSession())
+                .setCatalogSessionProperty(catalog, PUSHDOWN_FILTER_ENABLED, "true")
+                .build();
+
+        assertUpdate("" +
+                "CREATE TABLE test_pushdown_filter_nested\n" +
+                "WITH (format = 'ORC', partitioned_by = ARRAY['ds']) AS\n" +
+                "SELECT\n" +
+                "   orderkey,\n" +
+                "   orderpriority,\n" +
+                "   IF(orderkey % 5 = 0, NULL, comment) comment,\n" +
+                "   CAST(ROW(custkey, orderstatus) AS ROW(custkey BIGINT, status VARCHAR)) info,\n" +
+                "   CAST(totalprice AS REAL) price,\n" +
+                "   CAST(shippriority AS TINYINT) priority,\n" +
+                "   IF(orderkey % 7 = 0, NULL, ARRAY[orderkey, custkey]) keys,\n" +
+                "   '2019-01-0' || CAST(orderkey % 3 AS VARCHAR) ds\n" +
+                "FROM orders", 15000);
+
+        List<String> queries = ImmutableList.of(
+                // dictionary and direct encoded strings
+                "SELECT orderkey, price FROM test_pushdown_filter_nested WHERE orderpriority = '1-URGENT'",
+                "SELECT orderkey, info FROM test_pushdown_filter_nested WHERE comment IS NULL",
+                "SELECT orderkey, comment FROM test_pushdown_filter_nested WHERE comment > 'y'",
+                // struct fields
+                "SELECT orderkey, info FROM test_pushdown_filter_nested WHERE info.custkey BETWEEN 100 AND 200",
+                "SELECT orderkey FROM test_pushdown_filter_nested WHERE info.status = 'F' AND info.custkey < 50",
+                // types read by the batch reader
+                "SELECT orderkey, keys FROM test_pushdown_filter_nested WHERE price > 300000",
+                "SELECT orderkey FROM test_pushdown_filter_nested WHERE keys IS NULL AND priority = 0",
+                "SELECT orderkey, keys FROM test_pushdown_filter_nested WHERE keys[2] < 100",
+                // partition key and remaining predicate
+                "SELECT orderkey, ds FROM test_pushdown_filter_nested WHERE ds = '2019-01-01' AND orderkey % 2 = 0",
+                "SELECT count(*) FROM test_pushdown_filter_nested WHERE info.custkey + orderkey < 1000");
+        for (String query : queries) {
+            assertEqualsIgnoreOrder(computeActual(pushdownFilterEnabled, query).getMaterializedRows(), computeActual(query).getMaterializedRows());
+        }
+
+        assertUpdate("DROP TABLE test_pushdown_filter_nested");
+    }
+
     @Test
     public void testGroupByWithUnion()
     {
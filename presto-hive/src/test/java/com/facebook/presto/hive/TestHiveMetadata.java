@@ -13,7 +13,14 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.hive.metastore.Column;
+import com.facebook.presto.hive.metastore.SortingColumn;
+import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.GroupingProperty;
 import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.facebook.presto.spi.type.VarcharType;
@@ -22,9 +29,21 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slices;
 import org.testng.annotations.Test;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.facebook.presto.hive.HiveMetadata.createPredicate;
+import static com.facebook.presto.hive.HiveMetadata.getSortedBucketLocalProperties;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveUtil.hiveColumnHandles;
+import static com.facebook.presto.hive.metastore.PrestoTableType.MANAGED_TABLE;
+import static com.facebook.presto.hive.metastore.SortingColumn.Order.ASCENDING;
+import static com.facebook.presto.hive.metastore.SortingColumn.Order.DESCENDING;
+import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.function.Function.identity;
+import static org.testng.Assert.assertEquals;
 
 public class TestHiveMetadata
 {
@@ -85,4 +104,49 @@ public class TestHiveMetadata
 
         createPredicate(ImmutableList.of(TEST_COLUMN_HANDLE), partitions.build());
     }
+
+    @Test
+    public void testSortedBucketLocalProperties()
+    {
+        Table table = bucketedTable(ImmutableList.of("b"), ImmutableList.of(
+                new SortingColumn("a", ASCENDING),
+                new SortingColumn("b", ASCENDING),
+                new SortingColumn("c", DESCENDING)));
+        Map<String, HiveColumnHandle> columns = hiveColumnHandles(table).stream()
+                .collect(toImmutableMap(HiveColumnHandle::getName, identity()));
+
+        // rows are grouped on the sort columns up to the last bucket column, and sorted on the others
+        assertEquals(
+                getSortedBucketLocalProperties(table, ImmutableList.of(columns.get("b"))),
+                ImmutableList.of(
+                        new GroupingProperty<ColumnHandle>(ImmutableList.of(columns.get("a"), columns.get("b"))),
+                        new SortingProperty<ColumnHandle>(columns.get("c"), DESC_NULLS_LAST)));
+
+        // the same sort column values can be in several bucket files
+        Table notSortedOnBucketColumns = bucketedTable(ImmutableList.of("c"), ImmutableList.of(new SortingColumn("a", ASCENDING)));
+        assertEquals(getSortedBucketLocalProperties(notSortedOnBucketColumns, ImmutableList.of(columns.get("c"))), ImmutableList.of());
+
+        Table notSorted = bucketedTable(ImmutableList.of("a"), ImmutableList.of());
+        assertEquals(getSortedBucketLocalProperties(notSorted, ImmutableList.of(columns.get("a"))), ImmutableList.of());
+    }
+
+    private static Table bucketedTable(List<String> bucketedBy, List<SortingColumn> sortedBy)
+    {
+        Table.Builder tableBuilder = Table.builder();
+        tableBuilder.getStorageBuilder()
+                .setStorageFormat(StorageFormat.fromHiveStorageFormat(HiveStorageFormat.ORC))
+                .setLocation("hdfs://VOL1:9000/db_name/table_name")
+                .setBucketProperty(Optional.of(new HiveBucketProperty(bucketedBy, 8, sortedBy)));
+        return tableBuilder
+                .setDatabaseName("test_dbname")
+                .setOwner("testOwner")
+                .setTableName("test_table")
+                .setTableType(MANAGED_TABLE)
+                .setDataColumns(ImmutableList.of(
+                        new Column("a", HIVE_LONG, Optional.empty()),
+                        new Column("b", HIVE_LONG, Optional.empty()),
+                        new Column("c", HIVE_LONG, Optional.empty())))
+                .setParameters(ImmutableMap.of())
+                .build();
+    }
 }
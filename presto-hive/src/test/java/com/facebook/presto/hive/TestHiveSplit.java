@@ -30,6 +30,7 @@ import com.facebook.presto.type.TypeDeserializer;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.Module;
@@ -39,19 +40,24 @@ import io.airlift.json.JsonCodec;
 import io.airlift.json.JsonModule;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
+import java.util.Set;
 
 import static com.facebook.presto.hive.HiveType.HIVE_LONG;
 import static com.facebook.presto.hive.HiveType.HIVE_STRING;
 import static com.facebook.presto.spi.relation.LogicalRowExpressions.TRUE_CONSTANT;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.inject.multibindings.Multibinder.newSetBinder;
 import static io.airlift.configuration.ConfigBinder.configBinder;
 import static io.airlift.json.JsonBinder.jsonBinder;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestHiveSplit
 {
@@ -87,7 +93,8 @@ public class TestHiveSplit
                         32,
                         16,
                         ImmutableList.of(new HiveColumnHandle("col", HIVE_LONG, BIGINT.getTypeSignature(), 5, ColumnType.REGULAR, Optional.of("comment"))))),
-                false);
+                false,
+                true);
 
         JsonCodec<HiveSplit> codec = getJsonCodec();
         String json = codec.toJson(expected);
@@ -107,6 +114,62 @@ public class TestHiveSplit
         assertEquals(actual.getBucketConversion(), expected.getBucketConversion());
         assertEquals(actual.isForceLocalScheduling(), expected.isForceLocalScheduling());
         assertEquals(actual.isS3SelectPushdownEnabled(), expected.isS3SelectPushdownEnabled());
+        assertEquals(actual.isCacheAffinity(), expected.isCacheAffinity());
+    }
+
+    @Test
+    public void testPreferredNodes()
+    {
+        List<HostAddress> candidates = ImmutableList.of(
+                HostAddress.fromParts("10.0.0.1", 8080),
+                HostAddress.fromParts("10.0.0.2", 8080),
+                HostAddress.fromParts("10.0.0.3", 8080),
+                HostAddress.fromParts("10.0.0.4", 8080));
+
+        assertEquals(createSplit("s3://bucket/file", false).getPreferredNodes(candidates), ImmutableList.of());
+        assertEquals(createSplit("s3://bucket/file", true).getPreferredNodes(ImmutableList.of()), ImmutableList.of());
+
+        Set<HostAddress> preferredNodes = new HashSet<>();
+        for (int i = 0; i < 100; i++) {
+            String path = "s3://bucket/file" + i;
+            HostAddress preferredNode = getOnlyElement(createSplit(path, true).getPreferredNodes(candidates));
+            assertTrue(candidates.contains(preferredNode));
+            preferredNodes.add(preferredNode);
+
+            // the choice is stable, and only changes for the files of a node which leaves the cluster
+            assertEquals(createSplit(path, true).getPreferredNodes(candidates), ImmutableList.of(preferredNode));
+            List<HostAddress> remainingCandidates = candidates.subList(0, 3);
+            if (remainingCandidates.contains(preferredNode)) {
+                assertEquals(createSplit(path, true).getPreferredNodes(remainingCandidates), ImmutableList.of(preferredNode));
+            }
+        }
+        // the files are spread over the nodes
+        assertEquals(preferredNodes, ImmutableSet.copyOf(candidates));
+    }
+
+    private static HiveSplit createSplit(String path, boolean cacheAffinity)
+    {
+        return new HiveSplit(
+                "db",
+                "table",
+                "partitionId",
+                path,
+                0,
+                10,
+                10,
+                new Properties(),
+                ImmutableList.of(),
+                ImmutableList.of(),
+                OptionalInt.empty(),
+                OptionalInt.empty(),
+                false,
+                TupleDomain.all(),
+                TRUE_CONSTANT,
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                Optional.empty(),
+                false,
+                cacheAffinity);
     }
 
     private JsonCodec<HiveSplit> getJsonCodec()
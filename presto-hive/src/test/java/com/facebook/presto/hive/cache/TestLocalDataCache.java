@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.FileFormatDataSourceStats;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestLocalDataCache
+{
+    private static final int FILE_SIZE = 10_000;
+    private static final DataSize PAGE_SIZE = new DataSize(1, KILOBYTE);
+
+    private File tempDirectory;
+    private File cacheDirectory;
+    private Path path;
+    private byte[] data;
+    private FileSystem fileSystem;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        // a local file stands in for the remote file system
+        tempDirectory = createTempDir();
+        cacheDirectory = new File(tempDirectory, "cache");
+        File file = new File(tempDirectory, "data");
+        data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        Files.write(file.toPath(), data);
+        path = new Path(file.toURI());
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(tempDirectory.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testReadThrough()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDirectory), new DataSize(1, MEGABYTE), PAGE_SIZE, stats);
+
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertReadFully(inputStream, 100, 50);
+            assertEquals(stats.getLocalCacheMisses().getTotalCount(), 1);
+
+            // a range which spans several pages only loads the pages which are not cached yet
+            assertReadFully(inputStream, 900, 2_500);
+            assertEquals(stats.getLocalCacheMisses().getTotalCount(), 4);
+            assertEquals(stats.getLocalCacheHits().getTotalCount(), 1);
+
+            // the last page is shorter than the page size
+            assertReadFully(inputStream, FILE_SIZE - 10, 10);
+            assertReadFully(inputStream, 0, FILE_SIZE);
+            assertEquals(stats.getLocalCacheMisses().getTotalCount(), 10);
+            assertEquals(cache.getCachedBytes(), FILE_SIZE);
+        }
+
+        // a new stream for the same file is served from the cache
+        long hits = stats.getLocalCacheHits().getTotalCount();
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertReadFully(inputStream, 0, FILE_SIZE);
+        }
+        assertEquals(stats.getLocalCacheMisses().getTotalCount(), 10);
+        assertEquals(stats.getLocalCacheHits().getTotalCount(), hits + 10);
+        assertTrue(stats.getLocalCacheBytesServed().getTotalCount() >= FILE_SIZE);
+        assertTrue(stats.getLocalCacheHitRate() > 0.5);
+    }
+
+    @Test
+    public void testSequentialRead()
+            throws IOException
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDirectory), new DataSize(1, MEGABYTE), PAGE_SIZE, new FileFormatDataSourceStats());
+
+        try (FSDataInputStream inputStream = open(cache)) {
+            inputStream.seek(FILE_SIZE - 1_500);
+            assertEquals(inputStream.read(), data[FILE_SIZE - 1_500] & 0xFF);
+
+            byte[] buffer = new byte[2_000];
+            int bytesRead = inputStream.read(buffer, 0, buffer.length);
+            assertEquals(bytesRead, 1_499);
+            assertEquals(Arrays.copyOf(buffer, bytesRead), Arrays.copyOfRange(data, FILE_SIZE - 1_499, FILE_SIZE));
+            assertEquals(inputStream.getPos(), FILE_SIZE);
+            assertEquals(inputStream.read(), -1);
+
+            try {
+                inputStream.readFully(FILE_SIZE - 10, new byte[20]);
+                fail("expected EOFException");
+            }
+            catch (EOFException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void testChecksumValidation()
+            throws IOException
+    {
+        FileFormatDataSourceStats stats = new FileFormatDataSourceStats();
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDirectory), new DataSize(1, MEGABYTE), PAGE_SIZE, stats);
+
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertReadFully(inputStream, 0, FILE_SIZE);
+        }
+
+        // corrupted pages are detected and read again from the remote file
+        List<File> pageFiles = listPageFiles();
+        assertEquals(pageFiles.size(), 10);
+        for (File pageFile : pageFiles) {
+            byte[] page = Files.readAllBytes(pageFile.toPath());
+            page[0]++;
+            Files.write(pageFile.toPath(), page);
+        }
+
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertReadFully(inputStream, 0, FILE_SIZE);
+        }
+        assertEquals(stats.getLocalCacheChecksumFailures().getTotalCount(), 10);
+        assertEquals(stats.getLocalCacheMisses().getTotalCount(), 20);
+
+        // the replaced pages are valid again
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertReadFully(inputStream, 0, FILE_SIZE);
+        }
+        assertEquals(stats.getLocalCacheMisses().getTotalCount(), 20);
+        assertEquals(listPageFiles().size(), 10);
+    }
+
+    @Test
+    public void testEviction()
+            throws IOException
+    {
+        LocalDataCache cache = new LocalDataCache(Optional.of(cacheDirectory), new DataSize(4, KILOBYTE), PAGE_SIZE, new FileFormatDataSourceStats());
+
+        try (FSDataInputStream inputStream = open(cache)) {
+            assertReadFully(inputStream, 0, FILE_SIZE);
+            assertReadFully(inputStream, 0, FILE_SIZE);
+        }
+        assertTrue(cache.getCachedBytes() <= new DataSize(4, KILOBYTE).toBytes());
+
+        // the files of evicted pages are deleted
+        long cachedBytes = listPageFiles().stream()
+                .mapToLong(File::length)
+                .sum();
+        assertEquals(cachedBytes, cache.getCachedBytes());
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        try (FSDataInputStream inputStream = fileSystem.open(path)) {
+            assertSame(LocalDataCache.disabled().wrap(path, FILE_SIZE, inputStream), inputStream);
+        }
+    }
+
+    private FSDataInputStream open(LocalDataCache cache)
+            throws IOException
+    {
+        return cache.wrap(path, FILE_SIZE, fileSystem.open(path));
+    }
+
+    private void assertReadFully(FSDataInputStream inputStream, int position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length];
+        inputStream.readFully(position, buffer);
+        assertEquals(buffer, Arrays.copyOfRange(data, position, position + length));
+    }
+
+    private List<File> listPageFiles()
+            throws IOException
+    {
+        return Files.walk(cacheDirectory.toPath())
+                .filter(Files::isRegularFile)
+                .map(java.nio.file.Path::toFile)
+                .collect(toImmutableList());
+    }
+}
@@ -20,6 +20,8 @@ import com.facebook.presto.hive.metastore.DecimalStatistics;
 import com.facebook.presto.hive.metastore.DoubleStatistics;
 import com.facebook.presto.hive.metastore.HiveColumnStatistics;
 import com.facebook.presto.hive.metastore.IntegerStatistics;
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.hadoop.hive.metastore.api.BinaryColumnStatsData;
 import org.apache.hadoop.hive.metastore.api.BooleanColumnStatsData;
@@ -36,12 +38,16 @@ import org.testng.annotations.Test;
 import java.math.BigDecimal;
 import java.nio.ByteBuffer;
 import java.time.LocalDate;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalDouble;
 import java.util.OptionalLong;
 
+import static com.facebook.presto.hive.metastore.HiveColumnStatistics.createIntegerColumnStatistics;
 import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.fromMetastoreApiColumnStatistics;
+import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.getColumnHistograms;
 import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.getHiveBasicStatistics;
+import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.updateColumnHistogramParameters;
 import static com.facebook.presto.hive.metastore.thrift.ThriftMetastoreUtil.updateStatisticsParameters;
 import static org.apache.hadoop.hive.metastore.api.ColumnStatisticsData.binaryStats;
 import static org.apache.hadoop.hive.metastore.api.ColumnStatisticsData.booleanStats;
@@ -375,4 +381,22 @@ public class TestThriftMetastoreUtil
     {
         assertEquals(getHiveBasicStatistics(updateStatisticsParameters(ImmutableMap.of(), expected)), expected);
     }
+
+    @Test
+    public void testColumnHistogramsRoundTrip()
+    {
+        EquiHeightHistogram histogram = new EquiHeightHistogram(ImmutableList.of(-1.5, 0.0, 0.1, 1e20));
+        HiveColumnStatistics statistics = HiveColumnStatistics.builder(createIntegerColumnStatistics(OptionalLong.of(-1), OptionalLong.of(1), OptionalLong.of(0), OptionalLong.of(3)))
+                .setHistogram(histogram)
+                .build();
+        Map<String, String> parameters = updateColumnHistogramParameters(
+                ImmutableMap.of("param", "value", "presto.column_histogram.removed", "1,2"),
+                ImmutableMap.of("column", statistics, "other", HiveColumnStatistics.empty()));
+        assertEquals(parameters.get("param"), "value");
+        assertEquals(getColumnHistograms(parameters), ImmutableMap.of("column", histogram));
+
+        // malformed histograms are ignored
+        assertEquals(getColumnHistograms(ImmutableMap.of("presto.column_histogram.column", "1,x")), ImmutableMap.of());
+        assertEquals(getColumnHistograms(ImmutableMap.of("presto.column_histogram.column", "2,1")), ImmutableMap.of());
+    }
 }
@@ -30,6 +30,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.statistics.ColumnStatistics;
 import com.facebook.presto.spi.statistics.DoubleRange;
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
 import com.facebook.presto.spi.statistics.Estimate;
 import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.DecimalType;
@@ -37,6 +38,7 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.TestingConnectorSession;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Doubles;
 import org.joda.time.DateTimeZone;
 import org.testng.annotations.Test;
 
@@ -64,6 +66,7 @@ import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvide
 import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateDataSizeForPartitioningKey;
 import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateDistinctPartitionKeys;
 import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateDistinctValuesCount;
+import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateHistogram;
 import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateNullsFraction;
 import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateNullsFractionForPartitioningKey;
 import static com.facebook.presto.hive.statistics.MetastoreHiveStatisticsProvider.calculateRange;
@@ -527,6 +530,23 @@ public class TestMetastoreHiveStatisticsProvider
         assertEquals(calculateNullsFraction(COLUMN, ImmutableList.of(rowsCountAndNullsCount(0, 0), rowsCountAndNullsCount(0, 0))), Estimate.of(0));
     }
 
+    @Test
+    public void testCalculateHistogram()
+    {
+        EquiHeightHistogram lowValues = histogram(0, 5, 10);
+        EquiHeightHistogram highValues = histogram(10, 15, 20);
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of()), Optional.empty());
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCount(1000))), Optional.empty());
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCountAndNullsCount(1000, 0))), Optional.empty());
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCountAndNullsCount(1000, 1000))), Optional.empty());
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCountNullsCountAndHistogram(1000, 0, lowValues))), Optional.of(lowValues));
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCountNullsCountAndHistogram(1000, 0, lowValues), rowsCountAndNullsCount(1000, 1000))), Optional.of(lowValues));
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCountNullsCountAndHistogram(1000, 0, lowValues), rowsCountAndNullsCount(1000, 0))), Optional.empty());
+        assertEquals(
+                calculateHistogram(COLUMN, ImmutableList.of(rowsCountNullsCountAndHistogram(1000, 0, lowValues), rowsCountNullsCountAndHistogram(2000, 1000, highValues))),
+                Optional.of(histogram(0, 10, 20)));
+    }
+
     @Test
     public void testCalculateDataSize()
     {
@@ -800,6 +820,18 @@ public class TestMetastoreHiveStatisticsProvider
                 ImmutableMap.of(COLUMN, HiveColumnStatistics.builder().setNullsCount(nullsCount).build()));
     }
 
+    private static PartitionStatistics rowsCountNullsCountAndHistogram(long rowsCount, long nullsCount, EquiHeightHistogram histogram)
+    {
+        return new PartitionStatistics(
+                new HiveBasicStatistics(0, rowsCount, 0, 0),
+                ImmutableMap.of(COLUMN, HiveColumnStatistics.builder().setNullsCount(nullsCount).setHistogram(histogram).build()));
+    }
+
+    private static EquiHeightHistogram histogram(double... boundaries)
+    {
+        return new EquiHeightHistogram(Doubles.asList(boundaries));
+    }
+
     private static PartitionStatistics rowsCountAndDataSize(long rowsCount, long dataSize)
     {
         return new PartitionStatistics(
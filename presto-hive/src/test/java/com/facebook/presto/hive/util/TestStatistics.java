@@ -14,12 +14,15 @@
 package com.facebook.presto.hive.util;
 
 import com.facebook.presto.hive.HiveBasicStatistics;
+import com.facebook.presto.hive.PartitionStatistics;
 import com.facebook.presto.hive.metastore.BooleanStatistics;
 import com.facebook.presto.hive.metastore.DateStatistics;
 import com.facebook.presto.hive.metastore.DecimalStatistics;
 import com.facebook.presto.hive.metastore.DoubleStatistics;
 import com.facebook.presto.hive.metastore.HiveColumnStatistics;
 import com.facebook.presto.hive.metastore.IntegerStatistics;
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.testng.annotations.Test;
 
@@ -234,6 +237,26 @@ public class TestStatistics
         assertThat(merge(ImmutableMap.of(), ImmutableMap.of())).isEqualTo(ImmutableMap.of());
     }
 
+    @Test
+    public void testMergeHistograms()
+    {
+        HiveColumnStatistics first = HiveColumnStatistics.builder(createIntegerColumnStatistics(OptionalLong.of(0), OptionalLong.of(10), OptionalLong.of(0), OptionalLong.of(10)))
+                .setHistogram(new EquiHeightHistogram(ImmutableList.of(0.0, 5.0, 10.0)))
+                .build();
+        HiveColumnStatistics second = HiveColumnStatistics.builder(createIntegerColumnStatistics(OptionalLong.of(10), OptionalLong.of(20), OptionalLong.of(10), OptionalLong.of(10)))
+                .setHistogram(new EquiHeightHistogram(ImmutableList.of(10.0, 15.0, 20.0)))
+                .build();
+
+        // the first side has 30 values and the second side has 10
+        PartitionStatistics merged = merge(
+                new PartitionStatistics(new HiveBasicStatistics(OptionalLong.empty(), OptionalLong.of(30), OptionalLong.empty(), OptionalLong.empty()), ImmutableMap.of("column", first)),
+                new PartitionStatistics(new HiveBasicStatistics(OptionalLong.empty(), OptionalLong.of(20), OptionalLong.empty(), OptionalLong.empty()), ImmutableMap.of("column", second)));
+        assertThat(merged.getColumnStatistics().get("column").getHistogram()).isEqualTo(Optional.of(new EquiHeightHistogram(ImmutableList.of(0.0, 20.0 / 3, 20.0))));
+
+        // the number of values on each side is not known
+        assertThat(merge(first, second).getHistogram()).isEqualTo(Optional.empty());
+    }
+
     private static void assertMergeHiveColumnStatistics(HiveColumnStatistics first, HiveColumnStatistics second, HiveColumnStatistics expected)
     {
         assertThat(merge(first, second)).isEqualTo(expected);
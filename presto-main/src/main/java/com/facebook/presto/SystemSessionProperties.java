@@ -16,13 +16,17 @@ package com.facebook.presto;
 import com.facebook.presto.execution.QueryManagerConfig;
 import com.facebook.presto.execution.QueryManagerConfig.ExchangeMaterializationStrategy;
 import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import com.facebook.presto.memory.MemoryManagerConfig;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.session.PropertyMetadata;
 import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationStrategy;
 import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinDistributionType;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinPushdownStrategy;
 import com.facebook.presto.sql.analyzer.FeaturesConfig.JoinReorderingStrategy;
 import com.facebook.presto.sql.analyzer.FeaturesConfig.PartialMergePushdownStrategy;
+import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -58,9 +62,16 @@ public final class SystemSessionProperties
     public static final String OPTIMIZE_HASH_GENERATION = "optimize_hash_generation";
     public static final String JOIN_DISTRIBUTION_TYPE = "join_distribution_type";
     public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String DISTRIBUTE_SKEWED_JOIN_KEYS = "distribute_skewed_join_keys";
+    public static final String SKEWED_JOIN_KEY_VALUES = "skewed_join_key_values";
+    public static final String JOIN_BLOOM_FILTER_ENABLED = "join_bloom_filter_enabled";
+    public static final String JOIN_BLOOM_FILTER_MAX_SIZE = "join_bloom_filter_max_size";
     public static final String DISTRIBUTED_JOIN = "distributed_join";
     public static final String DISTRIBUTED_INDEX_JOIN = "distributed_index_join";
     public static final String HASH_PARTITION_COUNT = "hash_partition_count";
+    public static final String ADAPTIVE_HASH_PARTITION_COUNT = "adaptive_hash_partition_count";
+    public static final String HASH_PARTITION_TARGET_INPUT_SIZE = "hash_partition_target_input_size";
+    public static final String REASSIGN_STRAGGLER_SPLITS = "reassign_straggler_splits";
     public static final String PARTITIONING_PROVIDER_CATALOG = "partitioning_provider_catalog";
     public static final String EXCHANGE_MATERIALIZATION_STRATEGY = "exchange_materialization_strategy";
     public static final String GROUPED_EXECUTION_FOR_AGGREGATION = "grouped_execution_for_aggregation";
@@ -106,10 +117,16 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER = "iterative_optimizer_enabled";
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
+    public static final String EXCHANGE_ADAPTIVE_COMPRESSION = "exchange_adaptive_compression";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
     public static final String PUSH_PARTIAL_AGGREGATION_THROUGH_JOIN = "push_partial_aggregation_through_join";
+    public static final String PUSH_AGGREGATION_INTO_CONNECTOR = "push_aggregation_into_connector";
+    public static final String PUSH_LIMIT_INTO_CONNECTOR = "push_limit_into_connector";
+    public static final String JOIN_PUSHDOWN_STRATEGY = "join_pushdown_strategy";
+    public static final String AGGREGATION_STRATEGY = "aggregation_strategy";
     public static final String PARSE_DECIMAL_LITERALS_AS_DOUBLE = "parse_decimal_literals_as_double";
     public static final String FORCE_SINGLE_NODE_OUTPUT = "force_single_node_output";
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_SIZE = "filter_and_project_min_output_page_size";
@@ -129,6 +146,12 @@ public final class SystemSessionProperties
     public static final String DEFAULT_FILTER_FACTOR_ENABLED = "default_filter_factor_enabled";
     public static final String PUSH_LIMIT_THROUGH_OUTER_JOIN = "push_limit_through_outer_join";
     public static final String MAX_CONCURRENT_MATERIALIZATIONS = "max_concurrent_materializations";
+    public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
+    public static final String DYNAMIC_FILTERING_MAX_DISTINCT_VALUES = "dynamic_filtering_max_distinct_values";
+    public static final String PLAN_CACHE_ENABLED = "plan_cache_enabled";
+    public static final String RESULT_CACHE_ENABLED = "result_cache_enabled";
+    public static final String BATCHED_GROUP_BY_HASH_ENABLED = "batched_group_by_hash_enabled";
+    public static final String OPTIMIZED_REPARTITIONING_ENABLED = "optimized_repartitioning";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -181,6 +204,30 @@ public final class SystemSessionProperties
                         true,
                         value -> DataSize.valueOf((String) value),
                         DataSize::toString),
+                booleanProperty(
+                        DISTRIBUTE_SKEWED_JOIN_KEYS,
+                        "Spread the rows of frequent join keys across the partitions of partitioned joins",
+                        featuresConfig.isDistributeSkewedJoinKeys(),
+                        false),
+                stringProperty(
+                        SKEWED_JOIN_KEY_VALUES,
+                        "List of join key values known to be frequent, separated by |",
+                        null,
+                        false),
+                booleanProperty(
+                        JOIN_BLOOM_FILTER_ENABLED,
+                        "Filter the probe side of partitioned joins with a Bloom filter of the build side keys before it is shuffled",
+                        featuresConfig.isJoinBloomFilterEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_BLOOM_FILTER_MAX_SIZE,
+                        "Maximum size of the Bloom filter of the build side keys of a partitioned join",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getJoinBloomFilterMaxSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
                 booleanProperty(
                         DISTRIBUTED_INDEX_JOIN,
                         "Distribute index joins on join keys instead of executing inline",
@@ -191,6 +238,25 @@ public final class SystemSessionProperties
                         "Number of partitions for distributed joins and aggregations",
                         queryManagerConfig.getHashPartitionCount(),
                         false),
+                booleanProperty(
+                        ADAPTIVE_HASH_PARTITION_COUNT,
+                        "Choose the number of partitions of each hash partitioned stage from the estimated size of its input",
+                        queryManagerConfig.isAdaptiveHashPartitionCount(),
+                        false),
+                new PropertyMetadata<>(
+                        HASH_PARTITION_TARGET_INPUT_SIZE,
+                        "Target size of the input of each partition when the number of partitions is adaptive",
+                        VARCHAR,
+                        DataSize.class,
+                        queryManagerConfig.getHashPartitionTargetInputSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
+                booleanProperty(
+                        REASSIGN_STRAGGLER_SPLITS,
+                        "Move the queued splits of source tasks that fall far behind the other tasks of their stage to other tasks",
+                        queryManagerConfig.isReassignStragglerSplits(),
+                        false),
                 stringProperty(
                         PARTITIONING_PROVIDER_CATALOG,
                         "Name of the catalog providing custom partitioning",
@@ -498,6 +564,23 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                new PropertyMetadata<>(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        format("Codec used to compress pages in exchanges. Options are %s",
+                                Stream.of(PageCompressionCodec.values())
+                                        .map(PageCompressionCodec::name)
+                                        .collect(joining(","))),
+                        VARCHAR,
+                        PageCompressionCodec.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false,
+                        value -> PageCompressionCodec.valueOf(((String) value).toUpperCase()),
+                        PageCompressionCodec::name),
+                booleanProperty(
+                        EXCHANGE_ADAPTIVE_COMPRESSION,
+                        "Skip the compression of exchange pages which are not expected to shrink",
+                        featuresConfig.isExchangeAdaptiveCompressionEnabled(),
+                        false),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -513,6 +596,40 @@ public final class SystemSessionProperties
                         "Allow pushing aggregations below joins",
                         featuresConfig.isPushAggregationThroughJoin(),
                         false),
+                booleanProperty(
+                        PUSH_AGGREGATION_INTO_CONNECTOR,
+                        "Let connectors compute aggregations over their tables",
+                        featuresConfig.isPushAggregationIntoConnector(),
+                        false),
+                booleanProperty(
+                        PUSH_LIMIT_INTO_CONNECTOR,
+                        "Let connectors limit the rows of their tables below LIMIT and TopN",
+                        featuresConfig.isPushLimitIntoConnector(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_PUSHDOWN_STRATEGY,
+                        format("The strategy to use for letting connectors join two of their tables. Options are %s",
+                                Stream.of(JoinPushdownStrategy.values())
+                                        .map(JoinPushdownStrategy::name)
+                                        .collect(joining(","))),
+                        VARCHAR,
+                        JoinPushdownStrategy.class,
+                        featuresConfig.getJoinPushdownStrategy(),
+                        false,
+                        value -> JoinPushdownStrategy.valueOf(((String) value).toUpperCase()),
+                        JoinPushdownStrategy::name),
+                new PropertyMetadata<>(
+                        AGGREGATION_STRATEGY,
+                        format("The strategy to use for grouped aggregations whose input is not grouped on the grouping keys. Options are %s",
+                                Stream.of(AggregationStrategy.values())
+                                        .map(AggregationStrategy::name)
+                                        .collect(joining(","))),
+                        VARCHAR,
+                        AggregationStrategy.class,
+                        featuresConfig.getAggregationStrategy(),
+                        false,
+                        value -> AggregationStrategy.valueOf(((String) value).toUpperCase()),
+                        AggregationStrategy::name),
                 booleanProperty(
                         PUSH_PARTIAL_AGGREGATION_THROUGH_JOIN,
                         "Push partial aggregations below joins",
@@ -620,6 +737,36 @@ public final class SystemSessionProperties
                         MAX_CONCURRENT_MATERIALIZATIONS,
                         "Maximum number of materializing plan sections that can run concurrently",
                         featuresConfig.getMaxConcurrentMaterializations(),
+                        false),
+                booleanProperty(
+                        ENABLE_DYNAMIC_FILTERING,
+                        "Experimental: Filter the probe side table scan of a join using the join keys collected from the build side",
+                        featuresConfig.isEnableDynamicFiltering(),
+                        false),
+                integerProperty(
+                        DYNAMIC_FILTERING_MAX_DISTINCT_VALUES,
+                        "Experimental: Maximum number of distinct join keys collected per build partition for dynamic filtering, after which only the range of the keys is used",
+                        featuresConfig.getDynamicFilteringMaxDistinctValues(),
+                        false),
+                booleanProperty(
+                        PLAN_CACHE_ENABLED,
+                        "Reuse the optimized plan of an identical earlier query",
+                        featuresConfig.isPlanCacheEnabled(),
+                        false),
+                booleanProperty(
+                        RESULT_CACHE_ENABLED,
+                        "Reuse the results of an identical earlier query over unchanged data",
+                        queryManagerConfig.isResultCacheEnabled(),
+                        false),
+                booleanProperty(
+                        BATCHED_GROUP_BY_HASH_ENABLED,
+                        "Experimental: Group rows of hash aggregations in batches, one column at a time",
+                        featuresConfig.isBatchedGroupByHashEnabled(),
+                        false),
+                booleanProperty(
+                        OPTIMIZED_REPARTITIONING_ENABLED,
+                        "Experimental: Partition the output of a task one column at a time",
+                        featuresConfig.isOptimizedRepartitioningEnabled(),
                         false));
     }
 
@@ -657,6 +804,30 @@ public final class SystemSessionProperties
         return Optional.ofNullable(session.getSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class));
     }
 
+    public static boolean isDistributeSkewedJoinKeys(Session session)
+    {
+        return session.getSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, Boolean.class);
+    }
+
+    public static List<String> getSkewedJoinKeyValues(Session session)
+    {
+        String values = session.getSystemProperty(SKEWED_JOIN_KEY_VALUES, String.class);
+        if (values == null) {
+            return ImmutableList.of();
+        }
+        return Splitter.on('|').trimResults().omitEmptyStrings().splitToList(values);
+    }
+
+    public static boolean isJoinBloomFilterEnabled(Session session)
+    {
+        return session.getSystemProperty(JOIN_BLOOM_FILTER_ENABLED, Boolean.class);
+    }
+
+    public static DataSize getJoinBloomFilterMaxSize(Session session)
+    {
+        return session.getSystemProperty(JOIN_BLOOM_FILTER_MAX_SIZE, DataSize.class);
+    }
+
     public static boolean isDistributedIndexJoinEnabled(Session session)
     {
         return session.getSystemProperty(DISTRIBUTED_INDEX_JOIN, Boolean.class);
@@ -667,6 +838,21 @@ public final class SystemSessionProperties
         return session.getSystemProperty(HASH_PARTITION_COUNT, Integer.class);
     }
 
+    public static boolean isAdaptiveHashPartitionCount(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_HASH_PARTITION_COUNT, Boolean.class);
+    }
+
+    public static DataSize getHashPartitionTargetInputSize(Session session)
+    {
+        return session.getSystemProperty(HASH_PARTITION_TARGET_INPUT_SIZE, DataSize.class);
+    }
+
+    public static boolean isReassignStragglerSplits(Session session)
+    {
+        return session.getSystemProperty(REASSIGN_STRAGGLER_SPLITS, Boolean.class);
+    }
+
     public static String getPartitioningProviderCatalog(Session session)
     {
         return session.getSystemProperty(PARTITIONING_PROVIDER_CATALOG, String.class);
@@ -906,6 +1092,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static PageCompressionCodec getExchangeCompressionCodec(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, PageCompressionCodec.class);
+    }
+
+    public static boolean isExchangeAdaptiveCompressionEnabled(Session session)
+    {
+        return session.getSystemProperty(EXCHANGE_ADAPTIVE_COMPRESSION, Boolean.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -921,6 +1117,26 @@ public final class SystemSessionProperties
         return session.getSystemProperty(PUSH_PARTIAL_AGGREGATION_THROUGH_JOIN, Boolean.class);
     }
 
+    public static boolean shouldPushAggregationIntoConnector(Session session)
+    {
+        return session.getSystemProperty(PUSH_AGGREGATION_INTO_CONNECTOR, Boolean.class);
+    }
+
+    public static boolean shouldPushLimitIntoConnector(Session session)
+    {
+        return session.getSystemProperty(PUSH_LIMIT_INTO_CONNECTOR, Boolean.class);
+    }
+
+    public static JoinPushdownStrategy getJoinPushdownStrategy(Session session)
+    {
+        return session.getSystemProperty(JOIN_PUSHDOWN_STRATEGY, JoinPushdownStrategy.class);
+    }
+
+    public static AggregationStrategy getAggregationStrategy(Session session)
+    {
+        return session.getSystemProperty(AGGREGATION_STRATEGY, AggregationStrategy.class);
+    }
+
     public static boolean isParseDecimalLiteralsAsDouble(Session session)
     {
         return session.getSystemProperty(PARSE_DECIMAL_LITERALS_AS_DOUBLE, Boolean.class);
@@ -1052,4 +1268,34 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(MAX_CONCURRENT_MATERIALIZATIONS, Integer.class);
     }
+
+    public static boolean isEnableDynamicFiltering(Session session)
+    {
+        return session.getSystemProperty(ENABLE_DYNAMIC_FILTERING, Boolean.class);
+    }
+
+    public static int getDynamicFilteringMaxDistinctValues(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_MAX_DISTINCT_VALUES, Integer.class);
+    }
+
+    public static boolean isPlanCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(PLAN_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isBatchedGroupByHashEnabled(Session session)
+    {
+        return session.getSystemProperty(BATCHED_GROUP_BY_HASH_ENABLED, Boolean.class);
+    }
+
+    public static boolean isOptimizedRepartitioningEnabled(Session session)
+    {
+        return session.getSystemProperty(OPTIMIZED_REPARTITIONING_ENABLED, Boolean.class);
+    }
 }
@@ -73,7 +73,7 @@ public class AggregationStatsRule
                     return 0.0;
                 }
                 return 1.0 / (symbolStatistics.getDistinctValuesCount() + 1);
-            }));
+            }).withoutHistogram());
         }
 
         double rowsCount = 1;
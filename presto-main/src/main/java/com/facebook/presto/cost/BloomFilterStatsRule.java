@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.FunctionManager;
+import com.facebook.presto.operator.aggregation.BloomFilterAggregation;
+import com.facebook.presto.operator.scalar.BloomFilterFunction;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.TypeProvider;
+import com.facebook.presto.sql.planner.iterative.Lookup;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Aggregation;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.GenericLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.SymbolReference;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static com.facebook.presto.operator.aggregation.BloomFilter.getFalsePositiveProbability;
+import static com.facebook.presto.sql.planner.SymbolsExtractor.extractUniqueVariable;
+import static com.facebook.presto.sql.planner.plan.Patterns.filter;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.isExpression;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.lang.Double.isNaN;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimates the rows of the probe side of a join that pass the Bloom filter of the build side
+ * keys added by {@link com.facebook.presto.sql.planner.iterative.rule.AddJoinProbeBloomFilter}.
+ * The filter keeps the probe rows that have a match, assuming the keys of the side with fewer
+ * distinct keys are contained in the other side, and the false positives among the rest.
+ * <p>
+ * Only the plan shape produced by the rule, before exchanges are added, is recognized.
+ */
+public class BloomFilterStatsRule
+        extends SimpleStatsRule<FilterNode>
+{
+    private static final Pattern<FilterNode> PATTERN = filter();
+    private static final QualifiedName MIGHT_CONTAIN = QualifiedName.of(BloomFilterFunction.NAME);
+
+    private final FunctionManager functionManager;
+
+    public BloomFilterStatsRule(StatsNormalizer normalizer, FunctionManager functionManager)
+    {
+        super(normalizer);
+        this.functionManager = requireNonNull(functionManager, "functionManager is null");
+    }
+
+    @Override
+    public Pattern<FilterNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    protected Optional<PlanNodeStatsEstimate> doCalculate(FilterNode node, StatsProvider statsProvider, Lookup lookup, Session session, TypeProvider types)
+    {
+        if (!isExpression(node.getPredicate()) || !isMightContainCall(castToExpression(node.getPredicate()))) {
+            return Optional.empty();
+        }
+        List<Expression> arguments = ((FunctionCall) castToExpression(node.getPredicate())).getArguments();
+
+        PlanNode source = lookup.resolve(node.getSource());
+        if (!(source instanceof JoinNode) || !((JoinNode) source).isCrossJoin()) {
+            return Optional.empty();
+        }
+        JoinNode crossJoin = (JoinNode) source;
+        PlanNode filterSource = lookup.resolve(crossJoin.getRight());
+        if (!(filterSource instanceof AggregationNode) || ((AggregationNode) filterSource).getAggregations().size() != 1) {
+            return Optional.empty();
+        }
+        AggregationNode aggregationNode = (AggregationNode) filterSource;
+        Aggregation aggregation = getOnlyElement(aggregationNode.getAggregations().values());
+        PlanNode hashSource = lookup.resolve(aggregationNode.getSource());
+        if (!functionManager.getFunctionMetadata(aggregation.getFunctionHandle()).getName().equals(BloomFilterAggregation.NAME)
+                || !arguments.get(0).equals(new SymbolReference(getOnlyElement(aggregationNode.getAggregations().keySet()).getName()))
+                || !(hashSource instanceof ProjectNode)) {
+            return Optional.empty();
+        }
+
+        ProjectNode hashProject = (ProjectNode) hashSource;
+        Optional<RowExpression> buildHash = getAssignment(hashProject, aggregation.getArguments().get(0));
+        OptionalLong bits = getBigintValue(getAssignment(hashProject, aggregation.getArguments().get(1)));
+        OptionalLong hashFunctions = getBigintValue(getAssignment(hashProject, aggregation.getArguments().get(2)));
+        if (!buildHash.isPresent() || !isExpression(buildHash.get()) || !bits.isPresent() || !hashFunctions.isPresent()) {
+            return Optional.empty();
+        }
+
+        double selectivity = estimateSelectivity(
+                statsProvider.getStats(crossJoin.getLeft()),
+                extractUniqueVariable(arguments.get(1), types),
+                statsProvider.getStats(hashProject.getSource()),
+                extractUniqueVariable(castToExpression(buildHash.get()), types),
+                bits.getAsLong(),
+                toIntExact(hashFunctions.getAsLong()));
+        if (isNaN(selectivity)) {
+            return Optional.empty();
+        }
+        return Optional.of(statsProvider.getStats(crossJoin).mapOutputRowCount(rowCount -> rowCount * selectivity));
+    }
+
+    /**
+     * Returns the estimated fraction of the probe rows that pass a Bloom filter of the given
+     * size holding the build side keys, or NaN if it cannot be estimated.
+     */
+    public static double estimateSelectivity(
+            PlanNodeStatsEstimate probeStats,
+            Collection<VariableReferenceExpression> probeKeys,
+            PlanNodeStatsEstimate buildStats,
+            Collection<VariableReferenceExpression> buildKeys,
+            long bits,
+            int hashFunctions)
+    {
+        double probeKeyCount = estimateDistinctKeys(probeStats, probeKeys);
+        double buildKeyCount = estimateDistinctKeys(buildStats, buildKeys);
+        if (probeKeyCount == 0) {
+            return 1;
+        }
+        double matchingFraction = min(1, buildKeyCount / probeKeyCount);
+        return matchingFraction + (1 - matchingFraction) * getFalsePositiveProbability(bits, hashFunctions, buildKeyCount);
+    }
+
+    /**
+     * Returns the estimated number of distinct combinations of the given keys, or NaN if it is unknown.
+     */
+    public static double estimateDistinctKeys(PlanNodeStatsEstimate stats, Collection<VariableReferenceExpression> keys)
+    {
+        double distinctKeys = 1;
+        for (VariableReferenceExpression key : keys) {
+            distinctKeys *= stats.getVariableStatistics(key).getDistinctValuesCount();
+        }
+        return min(distinctKeys, stats.getOutputRowCount());
+    }
+
+    private static boolean isMightContainCall(Expression predicate)
+    {
+        return predicate instanceof FunctionCall
+                && ((FunctionCall) predicate).getName().equals(MIGHT_CONTAIN)
+                && ((FunctionCall) predicate).getArguments().size() == 2;
+    }
+
+    private static Optional<RowExpression> getAssignment(ProjectNode project, RowExpression argument)
+    {
+        if (!isExpression(argument) || !(castToExpression(argument) instanceof SymbolReference)) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(project.getAssignments().get(Symbol.from(castToExpression(argument))));
+    }
+
+    private static OptionalLong getBigintValue(Optional<RowExpression> expression)
+    {
+        if (!expression.isPresent() || !isExpression(expression.get()) || !(castToExpression(expression.get()) instanceof GenericLiteral)) {
+            return OptionalLong.empty();
+        }
+        return OptionalLong.of(Long.parseLong(((GenericLiteral) castToExpression(expression.get())).getValue()));
+    }
+}
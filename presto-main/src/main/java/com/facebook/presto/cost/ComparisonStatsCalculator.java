@@ -90,7 +90,7 @@ public final class ComparisonStatsCalculator
             filterRange = new StatisticRange(NEGATIVE_INFINITY, POSITIVE_INFINITY, 1);
         }
         StatisticRange intersectRange = expressionRange.intersect(filterRange);
-        double filterFactor = 1 - expressionRange.overlapPercentWith(intersectRange);
+        double filterFactor = 1 - expressionRange.overlapValuesFractionWith(intersectRange);
 
         PlanNodeStatsEstimate.Builder estimate = PlanNodeStatsEstimate.buildFrom(inputStatistics);
         estimate.setOutputRowCount(filterFactor * (1 - expressionStatistics.getNullsFraction()) * inputStatistics.getOutputRowCount());
@@ -133,7 +133,7 @@ public final class ComparisonStatsCalculator
         StatisticRange expressionRange = StatisticRange.from(expressionStatistics);
         StatisticRange intersectRange = expressionRange.intersect(filterRange);
 
-        double filterFactor = expressionRange.overlapPercentWith(intersectRange);
+        double filterFactor = expressionRange.overlapValuesFractionWith(intersectRange);
 
         PlanNodeStatsEstimate estimate = inputStatistics.mapOutputRowCount(rowCount -> filterFactor * (1 - expressionStatistics.getNullsFraction()) * rowCount);
         if (expressionVariable.isPresent()) {
@@ -141,6 +141,7 @@ public final class ComparisonStatsCalculator
                     VariableStatsEstimate.builder()
                             .setAverageRowSize(expressionStatistics.getAverageRowSize())
                             .setStatisticsRange(intersectRange)
+                            .setHistogram(expressionStatistics.getHistogram())
                             .setNullsFraction(0.0)
                             .build();
             estimate = estimate.mapVariableColumnStatistics(expressionVariable.get(), oldStats -> symbolNewEstimate);
@@ -191,7 +192,7 @@ public final class ComparisonStatsCalculator
         double nullsFilterFactor = (1 - leftExpressionStatistics.getNullsFraction()) * (1 - rightExpressionStatistics.getNullsFraction());
         double leftNdv = leftExpressionRange.getDistinctValuesCount();
         double rightNdv = rightExpressionRange.getDistinctValuesCount();
-        double filterFactor = 1.0 / max(leftNdv, rightNdv, 1);
+        double filterFactor = firstNonNaN(leftExpressionRange.equalValuesFractionWith(rightExpressionRange), 1.0 / max(leftNdv, rightNdv, 1));
         double retainedNdv = min(leftNdv, rightNdv);
 
         PlanNodeStatsEstimate.Builder estimate = PlanNodeStatsEstimate.buildFrom(inputStatistics)
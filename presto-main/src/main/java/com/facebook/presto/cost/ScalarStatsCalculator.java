@@ -54,6 +54,7 @@ import com.google.common.collect.ImmutableList;
 import javax.inject.Inject;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.OptionalDouble;
 
 import static com.facebook.presto.cost.StatsUtil.toStatsRepresentation;
@@ -238,6 +239,7 @@ public class ScalarStatsCalculator
                 return VariableStatsEstimate.buildFrom(stats)
                         .setLowValue(-stats.getHighValue())
                         .setHighValue(-stats.getLowValue())
+                        .setHistogram(Optional.empty())
                         .build();
             }
             throw new IllegalStateException(format("Unexpected sign: %s(%s)" + call.getDisplayName(), call.getFunctionHandle()));
@@ -451,6 +453,7 @@ public class ScalarStatsCalculator
                     return VariableStatsEstimate.buildFrom(stats)
                             .setLowValue(-stats.getHighValue())
                             .setHighValue(-stats.getLowValue())
+                            .setHistogram(Optional.empty())
                             .build();
                 default:
                     throw new IllegalStateException("Unexpected sign: " + node.getSign());
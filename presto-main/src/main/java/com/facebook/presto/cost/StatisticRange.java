@@ -13,7 +13,11 @@
  */
 package com.facebook.presto.cost;
 
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
+
 import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeSet;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -42,8 +46,17 @@ public class StatisticRange
     private final double high;
 
     private final double distinctValues;
+    /**
+     * Distribution of the values, only meaningful within [{@code low}, {@code high}]
+     */
+    private final Optional<EquiHeightHistogram> histogram;
 
     public StatisticRange(double low, double high, double distinctValues)
+    {
+        this(low, high, distinctValues, Optional.empty());
+    }
+
+    public StatisticRange(double low, double high, double distinctValues, Optional<EquiHeightHistogram> histogram)
     {
         checkArgument(
                 low <= high || (isNaN(low) && isNaN(high)),
@@ -55,6 +68,7 @@ public class StatisticRange
 
         checkArgument(distinctValues >= 0 || isNaN(distinctValues), "Distinct values count should be non-negative, got: %s", distinctValues);
         this.distinctValues = distinctValues;
+        this.histogram = requireNonNull(histogram, "histogram is null");
     }
 
     public static StatisticRange empty()
@@ -64,7 +78,7 @@ public class StatisticRange
 
     public static StatisticRange from(VariableStatsEstimate estimate)
     {
-        return new StatisticRange(estimate.getLowValue(), estimate.getHighValue(), estimate.getDistinctValuesCount());
+        return new StatisticRange(estimate.getLowValue(), estimate.getHighValue(), estimate.getDistinctValuesCount(), estimate.getHistogram());
     }
 
     public double getLow()
@@ -82,6 +96,11 @@ public class StatisticRange
         return distinctValues;
     }
 
+    public Optional<EquiHeightHistogram> getHistogram()
+    {
+        return histogram;
+    }
+
     public double length()
     {
         return high - low;
@@ -127,6 +146,135 @@ public class StatisticRange
         return NaN;
     }
 
+    /**
+     * Returns the fraction of the values of this range that fall within the other range. Unlike
+     * {@link #overlapPercentWith}, which assumes the values are spread evenly, this follows the
+     * histogram of this range when there is one.
+     */
+    public double overlapValuesFractionWith(StatisticRange other)
+    {
+        requireNonNull(other, "other is null");
+
+        if (!histogram.isPresent() || this.isEmpty() || other.isEmpty() || this.distinctValues == 0 || other.distinctValues == 0) {
+            return overlapPercentWith(other);
+        }
+        double total = valuesFraction(low, high);
+        double overlapLow = max(low, other.low);
+        double overlapHigh = min(high, other.high);
+        if (!(total > 0) || overlapLow > overlapHigh) {
+            return overlapPercentWith(other);
+        }
+
+        double fraction = valuesFraction(overlapLow, overlapHigh);
+        if (overlapLow == overlapHigh && fraction == 0) {
+            // a single value that is not frequent enough to show in the histogram
+            fraction = singleValueFraction(overlapLow);
+            if (isNaN(fraction)) {
+                return overlapPercentWith(other);
+            }
+        }
+        return min(fraction / total, 1);
+    }
+
+    /**
+     * Returns the fraction of pairs of values, one from this range and one from the other range,
+     * that are equal, or {@code NaN} when either range has no histogram.
+     */
+    public double equalValuesFractionWith(StatisticRange other)
+    {
+        requireNonNull(other, "other is null");
+
+        if (!this.histogram.isPresent() || !other.histogram.isPresent()) {
+            return NaN;
+        }
+        if (this.isEmpty() || other.isEmpty() || this.distinctValues == 0 || other.distinctValues == 0) {
+            return 0;
+        }
+        double thisTotal = this.valuesFraction(this.low, this.high);
+        double otherTotal = other.valuesFraction(other.low, other.high);
+        if (!(thisTotal > 0) || !(otherTotal > 0) || isNaN(this.distinctValues) || isNaN(other.distinctValues)) {
+            return NaN;
+        }
+        double overlapLow = max(this.low, other.low);
+        double overlapHigh = min(this.high, other.high);
+        if (overlapLow > overlapHigh) {
+            return 0;
+        }
+
+        // both distributions are linear between the boundaries of the histograms, apart from the frequent values at the boundaries
+        TreeSet<Double> points = new TreeSet<>();
+        points.add(overlapLow);
+        points.add(overlapHigh);
+        addBoundaries(points, this.histogram.get(), overlapLow, overlapHigh);
+        addBoundaries(points, other.histogram.get(), overlapLow, overlapHigh);
+
+        double result = 0;
+        Double previous = null;
+        for (double point : points) {
+            double thisPointFraction = this.valuesFraction(point, point);
+            double otherPointFraction = other.valuesFraction(point, point);
+            if (thisPointFraction > 0 || otherPointFraction > 0) {
+                double thisValueFraction = thisPointFraction > 0 ? thisPointFraction : this.singleValueFraction(point);
+                double otherValueFraction = otherPointFraction > 0 ? otherPointFraction : other.singleValueFraction(point);
+                if (isNaN(thisValueFraction) || isNaN(otherValueFraction)) {
+                    return NaN;
+                }
+                result += thisValueFraction / thisTotal * otherValueFraction / otherTotal;
+            }
+            if (previous != null) {
+                double thisFraction = this.openSegmentValuesFraction(previous, point) / thisTotal;
+                double otherFraction = other.openSegmentValuesFraction(previous, point) / otherTotal;
+                double thisDistinctValues = this.distinctValuesBetween(previous, point);
+                double otherDistinctValues = other.distinctValuesBetween(previous, point);
+                if (isNaN(thisDistinctValues) || isNaN(otherDistinctValues)) {
+                    return NaN;
+                }
+                result += thisFraction * otherFraction / max(max(thisDistinctValues, otherDistinctValues), 1);
+            }
+            previous = point;
+        }
+        return min(result, 1);
+    }
+
+    private static void addBoundaries(TreeSet<Double> points, EquiHeightHistogram histogram, double low, double high)
+    {
+        for (double boundary : histogram.getBoundaries()) {
+            if (low < boundary && boundary < high) {
+                points.add(boundary);
+            }
+        }
+    }
+
+    private double valuesFraction(double low, double high)
+    {
+        return histogram.get().fractionBetween(low, high);
+    }
+
+    private double openSegmentValuesFraction(double low, double high)
+    {
+        return max(valuesFraction(low, high) - valuesFraction(low, low) - valuesFraction(high, high), 0);
+    }
+
+    /**
+     * Fraction of the values equal to the given value, when the value is not frequent
+     * enough to show in the histogram, assuming the distinct values are spread evenly.
+     */
+    private double singleValueFraction(double value)
+    {
+        if (isNaN(distinctValues) || distinctValues == 0 || !isFinite(length()) || length() == 0) {
+            return NaN;
+        }
+        return histogram.get().density(value) * length() / distinctValues;
+    }
+
+    private double distinctValuesBetween(double low, double high)
+    {
+        if (!isFinite(length()) || length() == 0) {
+            return NaN;
+        }
+        return distinctValues * (high - low) / length();
+    }
+
     private double overlappingDistinctValues(StatisticRange other)
     {
         double overlapPercentOfLeft = overlapPercentWith(other);
@@ -144,7 +292,7 @@ public class StatisticRange
         double newLow = max(low, other.low);
         double newHigh = min(high, other.high);
         if (newLow <= newHigh) {
-            return new StatisticRange(newLow, newHigh, overlappingDistinctValues(other));
+            return new StatisticRange(newLow, newHigh, overlappingDistinctValues(other), histogram);
         }
         return empty();
     }
@@ -207,13 +355,14 @@ public class StatisticRange
         StatisticRange that = (StatisticRange) o;
         return Double.compare(that.low, low) == 0 &&
                 Double.compare(that.high, high) == 0 &&
-                Double.compare(that.distinctValues, distinctValues) == 0;
+                Double.compare(that.distinctValues, distinctValues) == 0 &&
+                Objects.equals(histogram, that.histogram);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(low, high, distinctValues);
+        return Objects.hash(low, high, distinctValues, histogram);
     }
 
     @Override
@@ -222,6 +371,7 @@ public class StatisticRange
         return toStringHelper(this)
                 .add("range", format("[%s-%s]", low, high))
                 .add("ndv", distinctValues)
+                .add("histogram", histogram.orElse(null))
                 .toString();
     }
 }
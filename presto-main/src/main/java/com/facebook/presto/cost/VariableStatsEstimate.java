@@ -13,10 +13,12 @@
  */
 package com.facebook.presto.cost;
 
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Function;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -27,6 +29,7 @@ import static java.lang.Double.POSITIVE_INFINITY;
 import static java.lang.Double.isInfinite;
 import static java.lang.Double.isNaN;
 import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
 
 public class VariableStatsEstimate
 {
@@ -39,6 +42,8 @@ public class VariableStatsEstimate
     private final double nullsFraction;
     private final double averageRowSize;
     private final double distinctValuesCount;
+    // distribution of the values, only meaningful within [lowValue, highValue]
+    private final Optional<EquiHeightHistogram> histogram;
 
     public static VariableStatsEstimate unknown()
     {
@@ -50,13 +55,24 @@ public class VariableStatsEstimate
         return ZERO;
     }
 
+    public VariableStatsEstimate(
+            double lowValue,
+            double highValue,
+            double nullsFraction,
+            double averageRowSize,
+            double distinctValuesCount)
+    {
+        this(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount, Optional.empty());
+    }
+
     @JsonCreator
     public VariableStatsEstimate(
             @JsonProperty("lowValue") double lowValue,
             @JsonProperty("highValue") double highValue,
             @JsonProperty("nullsFraction") double nullsFraction,
             @JsonProperty("averageRowSize") double averageRowSize,
-            @JsonProperty("distinctValuesCount") double distinctValuesCount)
+            @JsonProperty("distinctValuesCount") double distinctValuesCount,
+            @JsonProperty("histogram") Optional<EquiHeightHistogram> histogram)
     {
         checkArgument(
                 lowValue <= highValue || (isNaN(lowValue) && isNaN(highValue)),
@@ -79,6 +95,7 @@ public class VariableStatsEstimate
         checkArgument(distinctValuesCount >= 0 || isNaN(distinctValuesCount), "Distinct values count should be non-negative, got: %s", distinctValuesCount);
         // TODO normalize distinctValuesCount for an empty range (or validate it is already normalized)
         this.distinctValuesCount = distinctValuesCount;
+        this.histogram = requireNonNull(histogram, "histogram is null");
     }
 
     @JsonProperty
@@ -101,7 +118,7 @@ public class VariableStatsEstimate
 
     public StatisticRange statisticRange()
     {
-        return new StatisticRange(lowValue, highValue, distinctValuesCount);
+        return new StatisticRange(lowValue, highValue, distinctValuesCount, histogram);
     }
 
     public double getValuesFraction()
@@ -121,6 +138,12 @@ public class VariableStatsEstimate
         return distinctValuesCount;
     }
 
+    @JsonProperty
+    public Optional<EquiHeightHistogram> getHistogram()
+    {
+        return histogram;
+    }
+
     public VariableStatsEstimate mapNullsFraction(Function<Double, Double> mappingFunction)
     {
         return buildFrom(this).setNullsFraction(mappingFunction.apply(nullsFraction)).build();
@@ -131,6 +154,18 @@ public class VariableStatsEstimate
         return buildFrom(this).setDistinctValuesCount(mappingFunction.apply(distinctValuesCount)).build();
     }
 
+    /**
+     * Returns these statistics without the distribution of the values, for when the values
+     * no longer occur with the same frequencies, e.g. after grouping or a change of sign.
+     */
+    public VariableStatsEstimate withoutHistogram()
+    {
+        if (!histogram.isPresent()) {
+            return this;
+        }
+        return buildFrom(this).setHistogram(Optional.empty()).build();
+    }
+
     public boolean isUnknown()
     {
         return this.equals(UNKNOWN);
@@ -157,13 +192,14 @@ public class VariableStatsEstimate
                 Double.compare(averageRowSize, that.averageRowSize) == 0 &&
                 Double.compare(distinctValuesCount, that.distinctValuesCount) == 0 &&
                 Double.compare(lowValue, that.lowValue) == 0 &&
-                Double.compare(highValue, that.highValue) == 0;
+                Double.compare(highValue, that.highValue) == 0 &&
+                Objects.equals(histogram, that.histogram);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount);
+        return Objects.hash(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount, histogram);
     }
 
     @Override
@@ -174,6 +210,7 @@ public class VariableStatsEstimate
                 .add("nulls", nullsFraction)
                 .add("ndv", distinctValuesCount)
                 .add("rowSize", averageRowSize)
+                .add("histogram", histogram.orElse(null))
                 .toString();
     }
 
@@ -189,7 +226,8 @@ public class VariableStatsEstimate
                 .setHighValue(other.getHighValue())
                 .setNullsFraction(other.getNullsFraction())
                 .setAverageRowSize(other.getAverageRowSize())
-                .setDistinctValuesCount(other.getDistinctValuesCount());
+                .setDistinctValuesCount(other.getDistinctValuesCount())
+                .setHistogram(other.getHistogram());
     }
 
     public static final class Builder
@@ -199,6 +237,7 @@ public class VariableStatsEstimate
         private double nullsFraction = NaN;
         private double averageRowSize = NaN;
         private double distinctValuesCount = NaN;
+        private Optional<EquiHeightHistogram> histogram = Optional.empty();
 
         public Builder setStatisticsRange(StatisticRange range)
         {
@@ -237,9 +276,15 @@ public class VariableStatsEstimate
             return this;
         }
 
+        public Builder setHistogram(Optional<EquiHeightHistogram> histogram)
+        {
+            this.histogram = requireNonNull(histogram, "histogram is null");
+            return this;
+        }
+
         public VariableStatsEstimate build()
         {
-            return new VariableStatsEstimate(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount);
+            return new VariableStatsEstimate(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount, histogram);
         }
     }
 }
@@ -27,6 +27,7 @@ import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.resourceGroups.QueryType;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupId;
 import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanCache;
 import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.Statement;
 import com.facebook.presto.transaction.TransactionManager;
@@ -63,6 +64,7 @@ public class DataDefinitionExecution<T extends Statement>
     private final AccessControl accessControl;
     private final QueryStateMachine stateMachine;
     private final List<Expression> parameters;
+    private final PlanCache planCache;
 
     private DataDefinitionExecution(
             DataDefinitionTask<T> task,
@@ -71,7 +73,8 @@ public class DataDefinitionExecution<T extends Statement>
             Metadata metadata,
             AccessControl accessControl,
             QueryStateMachine stateMachine,
-            List<Expression> parameters)
+            List<Expression> parameters,
+            PlanCache planCache)
     {
         this.task = requireNonNull(task, "task is null");
         this.statement = requireNonNull(statement, "statement is null");
@@ -80,6 +83,7 @@ public class DataDefinitionExecution<T extends Statement>
         this.accessControl = requireNonNull(accessControl, "accessControl is null");
         this.stateMachine = requireNonNull(stateMachine, "stateMachine is null");
         this.parameters = parameters;
+        this.planCache = requireNonNull(planCache, "planCache is null");
     }
 
     @Override
@@ -172,6 +176,10 @@ public class DataDefinitionExecution<T extends Statement>
                 @Override
                 public void onSuccess(@Nullable Object result)
                 {
+                    if (!task.isTransactionControl()) {
+                        // the statement may have changed tables or views which cached plans read
+                        planCache.invalidateAll();
+                    }
                     stateMachine.transitionToFinishing();
                 }
 
@@ -286,6 +294,7 @@ public class DataDefinitionExecution<T extends Statement>
         private final AccessControl accessControl;
         private final ExecutorService executor;
         private final Map<Class<? extends Statement>, DataDefinitionTask<?>> tasks;
+        private final PlanCache planCache;
 
         @Inject
         public DataDefinitionExecutionFactory(
@@ -294,7 +303,8 @@ public class DataDefinitionExecution<T extends Statement>
                 MetadataManager metadata,
                 AccessControl accessControl,
                 @ForQueryExecution ExecutorService executor,
-                Map<Class<? extends Statement>, DataDefinitionTask<?>> tasks)
+                Map<Class<? extends Statement>, DataDefinitionTask<?>> tasks,
+                PlanCache planCache)
         {
             this.locationFactory = requireNonNull(locationFactory, "locationFactory is null");
             this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
@@ -302,6 +312,7 @@ public class DataDefinitionExecution<T extends Statement>
             this.accessControl = requireNonNull(accessControl, "accessControl is null");
             this.executor = requireNonNull(executor, "executor is null");
             this.tasks = requireNonNull(tasks, "tasks is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
         }
 
         @Override
@@ -342,7 +353,7 @@ public class DataDefinitionExecution<T extends Statement>
                     metadata,
                     warningCollector);
             stateMachine.setUpdateType(task.getName());
-            return new DataDefinitionExecution<>(task, statement, transactionManager, metadata, accessControl, stateMachine, parameters);
+            return new DataDefinitionExecution<>(task, statement, transactionManager, metadata, accessControl, stateMachine, parameters, planCache);
         }
     }
 }
@@ -18,6 +18,7 @@ import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
@@ -25,8 +26,12 @@ import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 @DefunctConfig({
         "query.max-pending-splits-per-node",
         "query.queue-config-file",
@@ -42,6 +47,9 @@ public class QueryManagerConfig
     private int maxQueuedQueries = 5000;
 
     private int hashPartitionCount = 100;
+    private boolean adaptiveHashPartitionCount;
+    private DataSize hashPartitionTargetInputSize = new DataSize(1, GIGABYTE);
+    private boolean reassignStragglerSplits;
     private String partitioningProviderCatalog = GlobalSystemConnector.NAME;
     private ExchangeMaterializationStrategy exchangeMaterializationStrategy = ExchangeMaterializationStrategy.NONE;
     private Duration minQueryExpireAge = new Duration(15, TimeUnit.MINUTES);
@@ -68,6 +76,13 @@ public class QueryManagerConfig
     private int requiredWorkers = 1;
     private Duration requiredWorkersMaxWait = new Duration(5, TimeUnit.MINUTES);
 
+    private boolean resultCacheEnabled;
+    private DataSize resultCacheMaxSize = new DataSize(1, GIGABYTE);
+    private DataSize resultCacheMaxResultSize = new DataSize(100, MEGABYTE);
+    private DataSize resultCacheMaxInMemoryResultSize = new DataSize(1, MEGABYTE);
+    private String resultCacheSpillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "result-cache").toString();
+    private Duration resultCacheExpireAfterWrite = new Duration(10, TimeUnit.MINUTES);
+
     @Min(1)
     public int getScheduleSplitBatchSize()
     {
@@ -138,6 +153,46 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isAdaptiveHashPartitionCount()
+    {
+        return adaptiveHashPartitionCount;
+    }
+
+    @Config("query.adaptive-hash-partition-count")
+    @ConfigDescription("Choose the number of partitions of each hash partitioned stage from the estimated size of its input")
+    public QueryManagerConfig setAdaptiveHashPartitionCount(boolean adaptiveHashPartitionCount)
+    {
+        this.adaptiveHashPartitionCount = adaptiveHashPartitionCount;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getHashPartitionTargetInputSize()
+    {
+        return hashPartitionTargetInputSize;
+    }
+
+    @Config("query.hash-partition-target-input-size")
+    @ConfigDescription("Target size of the input of each partition when the number of partitions is adaptive")
+    public QueryManagerConfig setHashPartitionTargetInputSize(DataSize hashPartitionTargetInputSize)
+    {
+        this.hashPartitionTargetInputSize = hashPartitionTargetInputSize;
+        return this;
+    }
+
+    public boolean isReassignStragglerSplits()
+    {
+        return reassignStragglerSplits;
+    }
+
+    @Config("query.reassign-straggler-splits")
+    @ConfigDescription("Move the queued splits of source tasks that fall far behind the other tasks of their stage to other tasks")
+    public QueryManagerConfig setReassignStragglerSplits(boolean reassignStragglerSplits)
+    {
+        this.reassignStragglerSplits = reassignStragglerSplits;
+        return this;
+    }
+
     @NotNull
     public String getPartitioningProviderCatalog()
     {
@@ -410,6 +465,88 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isResultCacheEnabled()
+    {
+        return resultCacheEnabled;
+    }
+
+    @Config("query.result-cache.enabled")
+    @ConfigDescription("Reuse the results of identical queries over unchanged data")
+    public QueryManagerConfig setResultCacheEnabled(boolean resultCacheEnabled)
+    {
+        this.resultCacheEnabled = resultCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxSize()
+    {
+        return resultCacheMaxSize;
+    }
+
+    @Config("query.result-cache.max-size")
+    @ConfigDescription("Maximum total size of the cached query results, in memory and on disk")
+    public QueryManagerConfig setResultCacheMaxSize(DataSize resultCacheMaxSize)
+    {
+        this.resultCacheMaxSize = resultCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxResultSize()
+    {
+        return resultCacheMaxResultSize;
+    }
+
+    @Config("query.result-cache.max-result-size")
+    @ConfigDescription("Results of queries larger than this are not cached")
+    public QueryManagerConfig setResultCacheMaxResultSize(DataSize resultCacheMaxResultSize)
+    {
+        this.resultCacheMaxResultSize = resultCacheMaxResultSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxInMemoryResultSize()
+    {
+        return resultCacheMaxInMemoryResultSize;
+    }
+
+    @Config("query.result-cache.max-in-memory-result-size")
+    @ConfigDescription("Cached results larger than this are written to local disk")
+    public QueryManagerConfig setResultCacheMaxInMemoryResultSize(DataSize resultCacheMaxInMemoryResultSize)
+    {
+        this.resultCacheMaxInMemoryResultSize = resultCacheMaxInMemoryResultSize;
+        return this;
+    }
+
+    @NotNull
+    public String getResultCacheSpillPath()
+    {
+        return resultCacheSpillPath;
+    }
+
+    @Config("query.result-cache.spill-path")
+    @ConfigDescription("Local directory for cached results which are too large to be kept in memory")
+    public QueryManagerConfig setResultCacheSpillPath(String resultCacheSpillPath)
+    {
+        this.resultCacheSpillPath = resultCacheSpillPath;
+        return this;
+    }
+
+    @NotNull
+    public Duration getResultCacheExpireAfterWrite()
+    {
+        return resultCacheExpireAfterWrite;
+    }
+
+    @Config("query.result-cache.expire-after-write")
+    public QueryManagerConfig setResultCacheExpireAfterWrite(Duration resultCacheExpireAfterWrite)
+    {
+        this.resultCacheExpireAfterWrite = resultCacheExpireAfterWrite;
+        return this;
+    }
+
     public enum ExchangeMaterializationStrategy
     {
         NONE,
@@ -0,0 +1,493 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.function.FunctionHandle;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.type.TimeZoneKey;
+import com.facebook.presto.sql.SqlPath;
+import com.facebook.presto.sql.analyzer.Analysis;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanCache;
+import com.facebook.presto.sql.planner.plan.IndexSourceNode;
+import com.facebook.presto.sql.tree.Query;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.log.Logger;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.isResultCacheEnabled;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readSerializedPages;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeSerializedPage;
+import static com.facebook.presto.sql.SqlFormatter.formatSql;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the final results of deterministic queries on the coordinator, so that an identical
+ * query over unchanged data is answered without scheduling any stages. Results are keyed on
+ * the text of the query and of the views it reads, its parameters, the session settings which
+ * affect the results, and the data versions which the connectors report for every table the
+ * query reads. Queries over tables whose connectors do not report versions are never cached.
+ * <p>
+ * Results are kept in memory as serialized pages, and written to local disk once they
+ * exceed the in-memory limit. Results over the maximum result size are not cached.
+ */
+public class QueryResultCache
+{
+    private static final Logger log = Logger.get(QueryResultCache.class);
+    private static final String FILE_SUFFIX = ".pages";
+
+    private final Metadata metadata;
+    private final SqlQueryManagerStats stats;
+    private final long maxResultSize;
+    private final long maxInMemoryResultSize;
+    private final Path spillPath;
+    private final Cache<ResultCacheKey, CachedResult> cache;
+
+    @Inject
+    public QueryResultCache(QueryManagerConfig config, Metadata metadata, SqlQueryManagerStats stats)
+    {
+        this(
+                metadata,
+                stats,
+                config.getResultCacheMaxSize(),
+                config.getResultCacheMaxResultSize(),
+                config.getResultCacheMaxInMemoryResultSize(),
+                Paths.get(config.getResultCacheSpillPath()),
+                config.getResultCacheExpireAfterWrite());
+    }
+
+    public QueryResultCache(
+            Metadata metadata,
+            SqlQueryManagerStats stats,
+            DataSize maxSize,
+            DataSize maxResultSize,
+            DataSize maxInMemoryResultSize,
+            Path spillPath,
+            Duration expireAfterWrite)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.stats = requireNonNull(stats, "stats is null");
+        this.maxResultSize = requireNonNull(maxResultSize, "maxResultSize is null").toBytes();
+        this.maxInMemoryResultSize = requireNonNull(maxInMemoryResultSize, "maxInMemoryResultSize is null").toBytes();
+        this.spillPath = requireNonNull(spillPath, "spillPath is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(requireNonNull(maxSize, "maxSize is null").toBytes())
+                .<ResultCacheKey, CachedResult>weigher((key, result) -> (int) min(result.getSizeInBytes(), Integer.MAX_VALUE))
+                .expireAfterWrite(requireNonNull(expireAfterWrite, "expireAfterWrite is null").toMillis(), MILLISECONDS)
+                .removalListener((RemovalListener<ResultCacheKey, CachedResult>) notification -> notification.getValue().delete())
+                .build();
+
+        deleteSpilledResults(spillPath);
+    }
+
+    /**
+     * Returns the key under which the results of the query are cached, or empty if the results
+     * of the query must not be reused.
+     */
+    public Optional<ResultCacheKey> createKey(Session session, Analysis analysis, Plan plan)
+    {
+        if (!isResultCacheEnabled(session) || !(analysis.getStatement() instanceof Query)) {
+            return Optional.empty();
+        }
+
+        if (PlanCache.dependsOnStartTime(analysis) || analysis.hasSampledRelations()) {
+            return Optional.empty();
+        }
+        for (FunctionHandle functionHandle : analysis.getFunctionHandles().values()) {
+            if (!metadata.getFunctionManager().getFunctionMetadata(functionHandle).isDeterministic()) {
+                return Optional.empty();
+            }
+        }
+
+        ImmutableList.Builder<String> dataVersions = ImmutableList.builder();
+        for (PlanNode node : searchFrom(plan.getRoot()).findAll()) {
+            if (node instanceof IndexSourceNode) {
+                return Optional.empty();
+            }
+            if (node instanceof TableScanNode) {
+                Optional<String> dataVersion = metadata.getDataVersion(session, ((TableScanNode) node).getTable());
+                if (!dataVersion.isPresent()) {
+                    return Optional.empty();
+                }
+                dataVersions.add(dataVersion.get());
+            }
+        }
+
+        // the text of the plan is not a faithful key, as it abbreviates domains and literals
+        String sql = formatSql(analysis.getStatement(), Optional.of(analysis.getParameters()));
+        // the definition of a view can change without changing the data versions of its tables
+        List<String> namedQueries = analysis.getNamedQueries().stream()
+                .map(query -> formatSql(query, Optional.empty()))
+                .collect(toImmutableList());
+        return Optional.of(new ResultCacheKey(sql, namedQueries, dataVersions.build(), session));
+    }
+
+    /**
+     * Returns a reader of the cached results for the key.
+     */
+    public Optional<ResultReader> get(ResultCacheKey key)
+    {
+        CachedResult result = cache.getIfPresent(key);
+        if (result != null) {
+            try {
+                ResultReader reader = result.openReader();
+                stats.resultCacheHit();
+                return Optional.of(reader);
+            }
+            catch (IOException e) {
+                // the result was evicted concurrently, or the local disk failed
+                cache.asMap().remove(key, result);
+            }
+        }
+        stats.resultCacheMiss();
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a writer which caches the results of the query once they are complete.
+     */
+    public ResultWriter createWriter(ResultCacheKey key)
+    {
+        return new ResultWriter(key);
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @VisibleForTesting
+    long getSizeInBytes()
+    {
+        return cache.asMap().values().stream()
+                .mapToLong(CachedResult::getSizeInBytes)
+                .sum();
+    }
+
+    private static void deleteSpilledResults(Path directory)
+    {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FILE_SUFFIX)) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete cached results in %s", directory);
+        }
+    }
+
+    /**
+     * Collects the pages of a query result as the client consumes them. Used under the lock of the query.
+     */
+    public class ResultWriter
+    {
+        private final ResultCacheKey key;
+        private final ImmutableList.Builder<SerializedPage> pages = ImmutableList.builder();
+        private long sizeInBytes;
+        private Optional<File> file = Optional.empty();
+        private Optional<SliceOutput> output = Optional.empty();
+        private boolean done;
+
+        private ResultWriter(ResultCacheKey key)
+        {
+            this.key = requireNonNull(key, "key is null");
+        }
+
+        public void append(SerializedPage page)
+        {
+            if (done) {
+                return;
+            }
+
+            sizeInBytes += page.getSizeInBytes();
+            if (sizeInBytes > maxResultSize) {
+                abort();
+                return;
+            }
+
+            try {
+                if (output.isPresent()) {
+                    writeSerializedPage(output.get(), page);
+                    return;
+                }
+                pages.add(page);
+                if (sizeInBytes > maxInMemoryResultSize) {
+                    spill();
+                }
+            }
+            catch (IOException | UncheckedIOException e) {
+                log.warn(e, "Failed to write cached result");
+                abort();
+            }
+        }
+
+        public void commit()
+        {
+            if (done) {
+                return;
+            }
+            done = true;
+
+            try {
+                if (output.isPresent()) {
+                    output.get().close();
+                    cache.put(key, new CachedResult(ImmutableList.of(), file, sizeInBytes));
+                }
+                else {
+                    cache.put(key, new CachedResult(pages.build(), Optional.empty(), sizeInBytes));
+                }
+            }
+            catch (IOException | UncheckedIOException e) {
+                log.warn(e, "Failed to write cached result");
+                file.ifPresent(File::delete);
+            }
+        }
+
+        public void abort()
+        {
+            if (done) {
+                return;
+            }
+            done = true;
+
+            try {
+                if (output.isPresent()) {
+                    output.get().close();
+                }
+            }
+            catch (IOException | UncheckedIOException e) {
+                log.warn(e, "Failed to close cached result");
+            }
+            file.ifPresent(File::delete);
+        }
+
+        private void spill()
+                throws IOException
+        {
+            Files.createDirectories(spillPath);
+            File spillFile = Files.createTempFile(spillPath, "result", FILE_SUFFIX).toFile();
+            file = Optional.of(spillFile);
+            output = Optional.of(new OutputStreamSliceOutput(Files.newOutputStream(spillFile.toPath())));
+            for (SerializedPage page : pages.build()) {
+                writeSerializedPage(output.get(), page);
+            }
+        }
+    }
+
+    /**
+     * Serves the pages of a cached result to a single query.
+     */
+    public static class ResultReader
+            implements Closeable
+    {
+        private final SettableFuture<?> finished = SettableFuture.create();
+        private final Optional<Closeable> input;
+
+        @GuardedBy("this")
+        private final Iterator<SerializedPage> pages;
+
+        private ResultReader(Iterator<SerializedPage> pages, Optional<Closeable> input)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+            this.input = requireNonNull(input, "input is null");
+        }
+
+        /**
+         * Returns the next page, or null once all pages were returned.
+         */
+        public synchronized SerializedPage pollPage()
+        {
+            if (finished.isDone()) {
+                return null;
+            }
+            if (!pages.hasNext()) {
+                close();
+                return null;
+            }
+            return pages.next();
+        }
+
+        public boolean isFinished()
+        {
+            return finished.isDone();
+        }
+
+        /**
+         * Returns a future which completes once all pages were returned, or the reader was closed.
+         */
+        public ListenableFuture<?> getFinishedFuture()
+        {
+            return finished;
+        }
+
+        @Override
+        public synchronized void close()
+        {
+            if (finished.isDone()) {
+                return;
+            }
+            try {
+                if (input.isPresent()) {
+                    input.get().close();
+                }
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to close cached result");
+            }
+            finished.set(null);
+        }
+    }
+
+    private static class CachedResult
+    {
+        private final List<SerializedPage> pages;
+        private final Optional<File> file;
+        private final long sizeInBytes;
+
+        public CachedResult(List<SerializedPage> pages, Optional<File> file, long sizeInBytes)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+            this.file = requireNonNull(file, "file is null");
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+
+        public ResultReader openReader()
+                throws IOException
+        {
+            if (!file.isPresent()) {
+                return new ResultReader(pages.iterator(), Optional.empty());
+            }
+            // an open file can still be read after the result is evicted and the file is deleted
+            InputStreamSliceInput input = new InputStreamSliceInput(Files.newInputStream(file.get().toPath()));
+            return new ResultReader(readSerializedPages(input), Optional.of(input));
+        }
+
+        public void delete()
+        {
+            file.ifPresent(File::delete);
+        }
+    }
+
+    public static final class ResultCacheKey
+    {
+        private final String sql;
+        private final List<String> namedQueries;
+        private final List<String> dataVersions;
+        private final String user;
+        private final Optional<String> catalog;
+        private final Optional<String> schema;
+        private final SqlPath path;
+        private final TimeZoneKey timeZoneKey;
+        private final Locale locale;
+        private final Map<String, String> systemProperties;
+        private final Map<ConnectorId, Map<String, String>> connectorProperties;
+
+        private ResultCacheKey(String sql, List<String> namedQueries, List<String> dataVersions, Session session)
+        {
+            this.sql = requireNonNull(sql, "sql is null");
+            this.namedQueries = requireNonNull(namedQueries, "namedQueries is null");
+            this.dataVersions = requireNonNull(dataVersions, "dataVersions is null");
+            this.user = session.getUser();
+            this.catalog = session.getCatalog();
+            this.schema = session.getSchema();
+            this.path = session.getPath();
+            this.timeZoneKey = session.getTimeZoneKey();
+            this.locale = session.getLocale();
+            this.systemProperties = session.getSystemProperties();
+            this.connectorProperties = session.getConnectorProperties();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ResultCacheKey that = (ResultCacheKey) o;
+            return Objects.equals(sql, that.sql) &&
+                    Objects.equals(namedQueries, that.namedQueries) &&
+                    Objects.equals(dataVersions, that.dataVersions) &&
+                    Objects.equals(user, that.user) &&
+                    Objects.equals(catalog, that.catalog) &&
+                    Objects.equals(schema, that.schema) &&
+                    Objects.equals(path, that.path) &&
+                    Objects.equals(timeZoneKey, that.timeZoneKey) &&
+                    Objects.equals(locale, that.locale) &&
+                    Objects.equals(systemProperties, that.systemProperties) &&
+                    Objects.equals(connectorProperties, that.connectorProperties);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sql, namedQueries, dataVersions, user, catalog, schema, path, timeZoneKey, locale, systemProperties, connectorProperties);
+        }
+    }
+}
@@ -15,6 +15,8 @@ package com.facebook.presto.execution;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.execution.QueryExecution.QueryOutputInfo;
+import com.facebook.presto.execution.QueryResultCache.ResultCacheKey;
+import com.facebook.presto.execution.QueryResultCache.ResultReader;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.warnings.WarningCollector;
 import com.facebook.presto.memory.VersionedMemoryPoolId;
@@ -137,6 +139,8 @@ public class QueryStateMachine
 
     private final AtomicReference<String> updateType = new AtomicReference<>();
 
+    private final AtomicBoolean planCacheHit = new AtomicBoolean();
+
     private final AtomicReference<ExecutionFailureInfo> failureCause = new AtomicReference<>();
 
     private final AtomicReference<Set<Input>> inputs = new AtomicReference<>(ImmutableSet.of());
@@ -538,6 +542,7 @@ public class QueryStateMachine
                 queryStateTimer.getAnalysisTime(),
                 queryStateTimer.getPlanningTime(),
                 queryStateTimer.getFinishingTime(),
+                planCacheHit.get(),
 
                 totalTasks,
                 runningTasks,
@@ -603,6 +608,16 @@ public class QueryStateMachine
         outputManager.setColumns(columnNames, columnTypes);
     }
 
+    public void setResultCacheKey(ResultCacheKey resultCacheKey)
+    {
+        outputManager.setResultCacheKey(resultCacheKey);
+    }
+
+    public void setCachedResult(ResultReader cachedResult)
+    {
+        outputManager.setCachedResult(cachedResult);
+    }
+
     public void updateOutputLocations(Map<URI, TaskId> newExchangeLocations, boolean noMoreExchangeLocations)
     {
         outputManager.updateOutputLocations(newExchangeLocations, noMoreExchangeLocations);
@@ -711,6 +726,11 @@ public class QueryStateMachine
         this.updateType.set(updateType);
     }
 
+    public void setPlanCacheHit(boolean planCacheHit)
+    {
+        this.planCacheHit.set(planCacheHit);
+    }
+
     public QueryState getQueryState()
     {
         return queryState.get();
@@ -1015,6 +1035,7 @@ public class QueryStateMachine
                 queryStats.getAnalysisTime(),
                 queryStats.getTotalPlanningTime(),
                 queryStats.getFinishingTime(),
+                queryStats.isPlanCacheHit(),
                 queryStats.getTotalTasks(),
                 queryStats.getRunningTasks(),
                 queryStats.getCompletedTasks(),
@@ -1065,6 +1086,10 @@ public class QueryStateMachine
         private final Map<URI, TaskId> exchangeLocations = new LinkedHashMap<>();
         @GuardedBy("this")
         private boolean noMoreExchangeLocations;
+        @GuardedBy("this")
+        private Optional<ResultCacheKey> resultCacheKey = Optional.empty();
+        @GuardedBy("this")
+        private Optional<ResultReader> cachedResult = Optional.empty();
 
         public QueryOutputManager(Executor executor)
         {
@@ -1102,6 +1127,18 @@ public class QueryStateMachine
             queryOutputInfo.ifPresent(info -> fireStateChanged(info, outputInfoListeners));
         }
 
+        public synchronized void setResultCacheKey(ResultCacheKey resultCacheKey)
+        {
+            checkState(columnNames == null, "result cache key must be set before output fields");
+            this.resultCacheKey = Optional.of(requireNonNull(resultCacheKey, "resultCacheKey is null"));
+        }
+
+        public synchronized void setCachedResult(ResultReader cachedResult)
+        {
+            checkState(columnNames == null, "cached result must be set before output fields");
+            this.cachedResult = Optional.of(requireNonNull(cachedResult, "cachedResult is null"));
+        }
+
         public void updateOutputLocations(Map<URI, TaskId> newExchangeLocations, boolean noMoreExchangeLocations)
         {
             requireNonNull(newExchangeLocations, "newExchangeLocations is null");
@@ -1127,7 +1164,7 @@ public class QueryStateMachine
             if (columnNames == null || columnTypes == null) {
                 return Optional.empty();
             }
-            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations));
+            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations, resultCacheKey, cachedResult));
         }
 
         private void fireStateChanged(QueryOutputInfo queryOutputInfo, List<Consumer<QueryOutputInfo>> outputInfoListeners)
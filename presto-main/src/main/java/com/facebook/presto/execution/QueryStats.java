@@ -52,6 +52,7 @@ public class QueryStats
     private final Duration analysisTime;
     private final Duration totalPlanningTime;
     private final Duration finishingTime;
+    private final boolean planCacheHit;
 
     private final int totalTasks;
     private final int runningTasks;
@@ -111,6 +112,7 @@ public class QueryStats
             @JsonProperty("analysisTime") Duration analysisTime,
             @JsonProperty("totalPlanningTime") Duration totalPlanningTime,
             @JsonProperty("finishingTime") Duration finishingTime,
+            @JsonProperty("planCacheHit") boolean planCacheHit,
 
             @JsonProperty("totalTasks") int totalTasks,
             @JsonProperty("runningTasks") int runningTasks,
@@ -168,6 +170,7 @@ public class QueryStats
         this.analysisTime = requireNonNull(analysisTime, "analysisTime is null");
         this.totalPlanningTime = requireNonNull(totalPlanningTime, "totalPlanningTime is null");
         this.finishingTime = requireNonNull(finishingTime, "finishingTime is null");
+        this.planCacheHit = planCacheHit;
 
         checkArgument(totalTasks >= 0, "totalTasks is negative");
         this.totalTasks = totalTasks;
@@ -239,6 +242,7 @@ public class QueryStats
                 new Duration(0, MILLISECONDS),
                 new Duration(0, MILLISECONDS),
                 new Duration(0, MILLISECONDS),
+                false,
                 0,
                 0,
                 0,
@@ -341,6 +345,12 @@ public class QueryStats
         return finishingTime;
     }
 
+    @JsonProperty
+    public boolean isPlanCacheHit()
+    {
+        return planCacheHit;
+    }
+
     @JsonProperty
     public int getTotalTasks()
     {
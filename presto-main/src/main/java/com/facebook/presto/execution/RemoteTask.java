@@ -20,6 +20,8 @@ import com.facebook.presto.spi.plan.PlanNodeId;
 import com.google.common.collect.Multimap;
 import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.List;
+
 public interface RemoteTask
 {
     TaskId getTaskId();
@@ -42,6 +44,13 @@ public interface RemoteTask
 
     ListenableFuture<?> removeRemoteSource(TaskId remoteSourceTaskId);
 
+    /**
+     * Takes back up to {@code maxSplits} splits of the source that are queued in the task
+     * and have not started running, so they can be scheduled on another task. The returned
+     * future holds the revoked splits, which will not be run by this task.
+     */
+    ListenableFuture<List<Split>> revokeQueuedSplits(PlanNodeId sourceId, int maxSplits);
+
     /**
      * Listener is always notified asynchronously using a dedicated notification thread pool so, care should
      * be taken to avoid leaking {@code this} when adding a listener in a constructor. Additionally, it is
@@ -18,6 +18,8 @@ import com.facebook.presto.SystemSessionProperties;
 import com.facebook.presto.cost.CostCalculator;
 import com.facebook.presto.cost.StatsCalculator;
 import com.facebook.presto.execution.QueryPreparer.PreparedQuery;
+import com.facebook.presto.execution.QueryResultCache.ResultCacheKey;
+import com.facebook.presto.execution.QueryResultCache.ResultReader;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
@@ -29,6 +31,7 @@ import com.facebook.presto.execution.warnings.WarningCollector;
 import com.facebook.presto.failureDetector.FailureDetector;
 import com.facebook.presto.memory.VersionedMemoryPoolId;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.QualifiedObjectName;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.security.AccessControl;
 import com.facebook.presto.server.BasicQueryInfo;
@@ -38,6 +41,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.plan.PlanNodeIdAllocator;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
 import com.facebook.presto.spi.resourceGroups.QueryType;
 import com.facebook.presto.spi.resourceGroups.ResourceGroupId;
 import com.facebook.presto.split.CloseableSplitSourceProvider;
@@ -52,14 +56,23 @@ import com.facebook.presto.sql.planner.NodePartitioningManager;
 import com.facebook.presto.sql.planner.OutputExtractor;
 import com.facebook.presto.sql.planner.PartitioningHandle;
 import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanCache;
+import com.facebook.presto.sql.planner.PlanCache.CachedPlan;
+import com.facebook.presto.sql.planner.PlanCache.PlanCacheKey;
 import com.facebook.presto.sql.planner.PlanFragmenter;
 import com.facebook.presto.sql.planner.PlanOptimizers;
 import com.facebook.presto.sql.planner.SplitSourceFactory;
 import com.facebook.presto.sql.planner.SubPlan;
 import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
 import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.tree.Analyze;
+import com.facebook.presto.sql.tree.CreateTableAsSelect;
+import com.facebook.presto.sql.tree.Delete;
 import com.facebook.presto.sql.tree.Explain;
+import com.facebook.presto.sql.tree.Insert;
+import com.facebook.presto.sql.tree.Statement;
 import com.facebook.presto.transaction.TransactionManager;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.SetThreadName;
@@ -80,12 +93,15 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
+import static com.facebook.presto.execution.QueryState.FINISHED;
 import static com.facebook.presto.execution.buffer.OutputBuffers.BROADCAST_PARTITION_ID;
 import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static com.facebook.presto.execution.scheduler.SqlQueryScheduler.createSqlQueryScheduler;
+import static com.facebook.presto.metadata.MetadataUtil.createQualifiedObjectName;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static io.airlift.concurrent.MoreFutures.addExceptionCallback;
 import static io.airlift.concurrent.MoreFutures.addSuccessCallback;
 import static io.airlift.units.DataSize.Unit.BYTE;
@@ -124,6 +140,10 @@ public class SqlQueryExecution
     private final Analysis analysis;
     private final StatsCalculator statsCalculator;
     private final CostCalculator costCalculator;
+    private final PlanCache planCache;
+    private final long planCacheGeneration;
+    private final Optional<PlanCacheKey> planCacheKey;
+    private final QueryResultCache resultCache;
 
     private SqlQueryExecution(
             String query,
@@ -154,6 +174,8 @@ public class SqlQueryExecution
             SplitSchedulerStats schedulerStats,
             StatsCalculator statsCalculator,
             CostCalculator costCalculator,
+            PlanCache planCache,
+            QueryResultCache resultCache,
             WarningCollector warningCollector)
     {
         try (SetThreadName ignored = new SetThreadName("Query-%s", session.getQueryId())) {
@@ -174,6 +196,8 @@ public class SqlQueryExecution
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
+            this.resultCache = requireNonNull(resultCache, "resultCache is null");
 
             checkArgument(scheduleSplitBatchSize > 0, "scheduleSplitBatchSize must be greater than 0");
             this.scheduleSplitBatchSize = scheduleSplitBatchSize;
@@ -196,6 +220,7 @@ public class SqlQueryExecution
 
             // analyze query
             requireNonNull(preparedQuery, "preparedQuery is null");
+            this.planCacheGeneration = planCache.getGeneration();
             Analyzer analyzer = new Analyzer(
                     stateMachine.getSession(),
                     metadata,
@@ -214,6 +239,15 @@ public class SqlQueryExecution
             }
 
             stateMachine.setUpdateType(analysis.getUpdateType());
+            this.planCacheKey = planCache.createKey(stateMachine.getSession(), preparedQuery.getStatement(), preparedQuery.getParameters(), analysis);
+
+            // cached plans which read the table written by the query are stale once the query finishes
+            getWriteTarget(stateMachine.getSession(), preparedQuery.getStatement()).ifPresent(table ->
+                    stateMachine.addStateChangeListener(state -> {
+                        if (state == FINISHED) {
+                            planCache.invalidate(table);
+                        }
+                    }));
 
             // when the query finishes cache the final query info, and clear the reference to the output stage
             AtomicReference<SqlQueryScheduler> queryScheduler = this.queryScheduler;
@@ -355,6 +389,11 @@ public class SqlQueryExecution
 
                 metadata.beginQuery(getSession(), plan.getConnectors());
 
+                // serve the results of an identical earlier query, if the results were cached
+                if (startCachedResult()) {
+                    return;
+                }
+
                 // plan distribution of query
                 planDistribution(plan);
 
@@ -378,6 +417,42 @@ public class SqlQueryExecution
         }
     }
 
+    private boolean startCachedResult()
+    {
+        Optional<ResultCacheKey> resultCacheKey = resultCache.createKey(getSession(), analysis, queryPlan.get());
+        if (!resultCacheKey.isPresent()) {
+            return false;
+        }
+
+        Optional<ResultReader> cachedResult = resultCache.get(resultCacheKey.get());
+        if (!cachedResult.isPresent()) {
+            stateMachine.setResultCacheKey(resultCacheKey.get());
+            return false;
+        }
+
+        ResultReader reader = cachedResult.get();
+        stateMachine.addStateChangeListener(state -> {
+            if (state.isDone()) {
+                reader.close();
+            }
+        });
+
+        // no stages are scheduled, so the query finishes once the client has read the results
+        OutputNode outputNode = (OutputNode) queryPlan.get().getRoot();
+        stateMachine.setCachedResult(reader);
+        stateMachine.setColumns(
+                outputNode.getColumnNames(),
+                outputNode.getOutputVariables().stream()
+                        .map(VariableReferenceExpression::getType)
+                        .collect(toImmutableList()));
+        stateMachine.updateOutputLocations(ImmutableMap.of(), true);
+        if (stateMachine.transitionToStarting()) {
+            stateMachine.transitionToRunning();
+            addSuccessCallback(reader.getFinishedFuture(), stateMachine::transitionToFinishing);
+        }
+        return true;
+    }
+
     @Override
     public void addStateChangeListener(StateChangeListener<QueryState> stateChangeListener)
     {
@@ -419,10 +494,23 @@ public class SqlQueryExecution
         // time analysis phase
         stateMachine.beginAnalysis();
 
-        // plan query
-        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
-        LogicalPlanner logicalPlanner = new LogicalPlanner(false, stateMachine.getSession(), planOptimizers, idAllocator, metadata, sqlParser, statsCalculator, costCalculator, stateMachine.getWarningCollector());
-        Plan plan = logicalPlanner.plan(analysis);
+        // plan query, or reuse the plan of an identical query
+        Optional<CachedPlan> cachedPlan = planCacheKey.flatMap(key -> planCache.get(stateMachine.getSession(), key));
+        PlanNodeIdAllocator idAllocator;
+        Plan plan;
+        if (cachedPlan.isPresent()) {
+            idAllocator = cachedPlan.get().createIdAllocator();
+            plan = cachedPlan.get().getPlan();
+            stateMachine.setPlanCacheHit(true);
+        }
+        else {
+            idAllocator = new PlanNodeIdAllocator();
+            LogicalPlanner logicalPlanner = new LogicalPlanner(false, stateMachine.getSession(), planOptimizers, idAllocator, metadata, sqlParser, statsCalculator, costCalculator, stateMachine.getWarningCollector());
+            plan = logicalPlanner.plan(analysis);
+            if (planCacheKey.isPresent()) {
+                planCache.put(planCacheKey.get(), analysis, plan, planCacheGeneration);
+            }
+        }
         queryPlan.set(plan);
 
         // extract inputs
@@ -443,6 +531,26 @@ public class SqlQueryExecution
         return new PlanRoot(fragmentedPlan, !explainAnalyze, extractConnectors(analysis));
     }
 
+    private static Optional<QualifiedObjectName> getWriteTarget(Session session, Statement statement)
+    {
+        if (statement instanceof Explain && ((Explain) statement).isAnalyze()) {
+            return getWriteTarget(session, ((Explain) statement).getStatement());
+        }
+        if (statement instanceof Insert) {
+            return Optional.of(createQualifiedObjectName(session, statement, ((Insert) statement).getTarget()));
+        }
+        if (statement instanceof CreateTableAsSelect) {
+            return Optional.of(createQualifiedObjectName(session, statement, ((CreateTableAsSelect) statement).getName()));
+        }
+        if (statement instanceof Delete) {
+            return Optional.of(createQualifiedObjectName(session, statement, ((Delete) statement).getTable().getName()));
+        }
+        if (statement instanceof Analyze) {
+            return Optional.of(createQualifiedObjectName(session, statement, ((Analyze) statement).getTableName()));
+        }
+        return Optional.empty();
+    }
+
     private static Set<ConnectorId> extractConnectors(Analysis analysis)
     {
         ImmutableSet.Builder<ConnectorId> connectors = ImmutableSet.builder();
@@ -674,6 +782,8 @@ public class SqlQueryExecution
         private final ClusterSizeMonitor clusterSizeMonitor;
         private final StatsCalculator statsCalculator;
         private final CostCalculator costCalculator;
+        private final PlanCache planCache;
+        private final QueryResultCache resultCache;
 
         @Inject
         SqlQueryExecutionFactory(QueryManagerConfig config,
@@ -697,7 +807,9 @@ public class SqlQueryExecution
                 SplitSchedulerStats schedulerStats,
                 ClusterSizeMonitor clusterSizeMonitor,
                 StatsCalculator statsCalculator,
-                CostCalculator costCalculator)
+                CostCalculator costCalculator,
+                PlanCache planCache,
+                QueryResultCache resultCache)
         {
             requireNonNull(config, "config is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
@@ -723,6 +835,8 @@ public class SqlQueryExecution
             this.planOptimizers = planOptimizers.get();
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
+            this.resultCache = requireNonNull(resultCache, "resultCache is null");
         }
 
         @Override
@@ -767,6 +881,8 @@ public class SqlQueryExecution
                     schedulerStats,
                     statsCalculator,
                     costCalculator,
+                    planCache,
+                    resultCache,
                     warningCollector);
 
             return execution;
@@ -124,7 +124,7 @@ public class SqlQueryManager
 
     private final Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories;
 
-    private final SqlQueryManagerStats stats = new SqlQueryManagerStats();
+    private final SqlQueryManagerStats stats;
 
     private final WarningCollectorFactory warningCollectorFactory;
 
@@ -146,7 +146,8 @@ public class SqlQueryManager
             SessionPropertyDefaults sessionPropertyDefaults,
             ClusterSizeMonitor clusterSizeMonitor,
             Map<Class<? extends Statement>, QueryExecutionFactory<?>> executionFactories,
-            WarningCollectorFactory warningCollectorFactory)
+            WarningCollectorFactory warningCollectorFactory,
+            SqlQueryManagerStats stats)
     {
         this.queryPreparer = requireNonNull(queryPreparer, "queryPreparer is null");
 
@@ -173,6 +174,7 @@ public class SqlQueryManager
         this.sessionPropertyDefaults = requireNonNull(sessionPropertyDefaults, "sessionPropertyDefaults is null");
 
         this.clusterSizeMonitor = requireNonNull(clusterSizeMonitor, "clusterSizeMonitor is null");
+        this.stats = requireNonNull(stats, "stats is null");
 
         this.path = sqlEnvironmentConfig.getPath();
         this.maxQueryLength = queryManagerConfig.getMaxQueryLength();
@@ -47,6 +47,8 @@ public class SqlQueryManagerStats
     private final TimeStat queuedTime = new TimeStat(MILLISECONDS);
     private final DistributionStat wallInputBytesRate = new DistributionStat();
     private final DistributionStat cpuInputByteRate = new DistributionStat();
+    private final CounterStat resultCacheHits = new CounterStat();
+    private final CounterStat resultCacheMisses = new CounterStat();
 
     public void queryQueued()
     {
@@ -114,6 +116,16 @@ public class SqlQueryManagerStats
         }
     }
 
+    public void resultCacheHit()
+    {
+        resultCacheHits.update(1);
+    }
+
+    public void resultCacheMiss()
+    {
+        resultCacheMisses.update(1);
+    }
+
     @Managed
     public long getRunningQueries()
     {
@@ -245,4 +257,18 @@ public class SqlQueryManagerStats
     {
         return cpuInputByteRate;
     }
+
+    @Managed
+    @Nested
+    public CounterStat getResultCacheHits()
+    {
+        return resultCacheHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getResultCacheMisses()
+    {
+        return resultCacheMisses;
+    }
 }
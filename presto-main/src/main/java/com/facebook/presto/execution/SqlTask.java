@@ -16,6 +16,7 @@ package com.facebook.presto.execution;
 import com.facebook.presto.Session;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.execution.buffer.DirectPageBufferPool;
 import com.facebook.presto.execution.buffer.LazyOutputBuffer;
 import com.facebook.presto.execution.buffer.OutputBuffer;
 import com.facebook.presto.execution.buffer.OutputBuffers;
@@ -97,6 +98,7 @@ public class SqlTask
             ExecutorService taskNotificationExecutor,
             Function<SqlTask, ?> onDone,
             DataSize maxBufferSize,
+            Optional<DirectPageBufferPool> directPageBufferPool,
             CounterStat failedTasks)
     {
         SqlTask sqlTask = new SqlTask(
@@ -107,7 +109,8 @@ public class SqlTask
                 sqlTaskExecutionFactory,
                 exchangeClientSupplier,
                 taskNotificationExecutor,
-                maxBufferSize);
+                maxBufferSize,
+                directPageBufferPool);
         sqlTask.initialize(onDone, failedTasks);
         return sqlTask;
     }
@@ -120,7 +123,8 @@ public class SqlTask
             SqlTaskExecutionFactory sqlTaskExecutionFactory,
             ExchangeClientSupplier exchangeClientSupplier,
             ExecutorService taskNotificationExecutor,
-            DataSize maxBufferSize)
+            DataSize maxBufferSize,
+            Optional<DirectPageBufferPool> directPageBufferPool)
     {
         this.taskId = requireNonNull(taskId, "taskId is null");
         this.taskInstanceId = UUID.randomUUID().toString();
@@ -140,7 +144,8 @@ public class SqlTask
                 maxBufferSize,
                 // Pass a memory context supplier instead of a memory context to the output buffer,
                 // because we haven't created the task context that holds the the memory context yet.
-                () -> queryContext.getTaskContextByTaskId(taskId).localSystemMemoryContext());
+                () -> queryContext.getTaskContextByTaskId(taskId).localSystemMemoryContext(),
+                directPageBufferPool);
         taskStateMachine = new TaskStateMachine(taskId, taskNotificationExecutor);
     }
 
@@ -428,6 +433,14 @@ public class SqlTask
         return outputBuffer.get(bufferId, startingSequenceId, maxSize);
     }
 
+    public ListenableFuture<BufferResult> readTaskResults(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return outputBuffer.read(bufferId, startingSequenceId, maxSize);
+    }
+
     public void acknowledgeTaskResults(OutputBufferId bufferId, long sequenceId)
     {
         requireNonNull(bufferId, "bufferId is null");
@@ -455,6 +468,20 @@ public class SqlTask
                 .forEach(exchangeClient -> exchangeClient.removeRemoteSource(sourceTaskId));
     }
 
+    public Set<Long> revokeQueuedSplits(Set<Long> sequenceIds)
+    {
+        requireNonNull(sequenceIds, "sequenceIds is null");
+
+        SqlTaskExecution taskExecution = taskHolderReference.get().getTaskExecution();
+        if (taskExecution == null) {
+            // no split has been added to the task, or the task is done
+            return ImmutableSet.of();
+        }
+
+        log.debug("Revoking %s queued splits from task %s", sequenceIds.size(), taskId);
+        return taskExecution.revokeQueuedSplits(sequenceIds);
+    }
+
     public void failed(Throwable cause)
     {
         requireNonNull(cause, "cause is null");
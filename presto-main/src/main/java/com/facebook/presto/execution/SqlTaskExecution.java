@@ -74,6 +74,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
@@ -133,6 +134,9 @@ public class SqlTaskExecution
     @GuardedBy("this")
     private long maxAcknowledgedSplit = Long.MIN_VALUE;
 
+    @GuardedBy("this")
+    private final Set<Long> revokedSplits = new HashSet<>();
+
     @GuardedBy("this")
     private final SchedulingLifespanManager schedulingLifespanManager;
 
@@ -364,6 +368,45 @@ public class SqlTaskExecution
         return updatedRemoteSources;
     }
 
+    /**
+     * Takes back the queued partitioned splits with the given sequence ids, so they can be scheduled
+     * on another task. Only remotely accessible splits of ungrouped pipelines whose drivers have not
+     * started are revoked. Returns the requested splits that are revoked, including those revoked by
+     * earlier calls, so the request can be retried.
+     */
+    public synchronized Set<Long> revokeQueuedSplits(Set<Long> sequenceIds)
+    {
+        try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
+            List<SplitRunner> runners = taskExecutor.removeQueuedSplits(taskHandle, runner -> isRevocable(runner, sequenceIds));
+            for (SplitRunner runner : runners) {
+                DriverSplitRunner splitRunner = (DriverSplitRunner) runner;
+                splitRunner.revoke();
+                status.decrementRemainingDriver(splitRunner.getLifespan());
+                revokedSplits.add(splitRunner.getPartitionedSplit().getSequenceId());
+            }
+
+            // the revoked splits may have been the last ones of the task
+            checkTaskCompletion();
+
+            return sequenceIds.stream()
+                    .filter(revokedSplits::contains)
+                    .collect(toImmutableSet());
+        }
+    }
+
+    private static boolean isRevocable(SplitRunner runner, Set<Long> sequenceIds)
+    {
+        if (!(runner instanceof DriverSplitRunner)) {
+            return false;
+        }
+        DriverSplitRunner splitRunner = (DriverSplitRunner) runner;
+        ScheduledSplit partitionedSplit = splitRunner.getPartitionedSplit();
+        return partitionedSplit != null &&
+                splitRunner.getLifespan().isTaskWide() &&
+                partitionedSplit.getSplit().isRemotelyAccessible() &&
+                sequenceIds.contains(partitionedSplit.getSequenceId());
+    }
+
     @GuardedBy("this")
     private void mergeIntoPendingSplits(PlanNodeId planNodeId, Set<ScheduledSplit> scheduledSplits, Set<Lifespan> noMoreSplitsForLifespan, boolean noMoreSplits)
     {
@@ -966,6 +1009,13 @@ public class SqlTaskExecution
             return driver;
         }
 
+        public void driverRunnerRevoked(DriverContext driverContext)
+        {
+            pipelineContext.splitRevoked(driverContext);
+            status.decrementPendingCreation(pipelineContext.getPipelineId(), driverContext.getLifespan());
+            closeDriverFactoryIfFullyCreated();
+        }
+
         public void noMoreDriverRunner(Iterable<Lifespan> lifespans)
         {
             for (Lifespan lifespan : lifespans) {
@@ -1047,6 +1097,25 @@ public class SqlTaskExecution
             return lifespan;
         }
 
+        @Nullable
+        public ScheduledSplit getPartitionedSplit()
+        {
+            return partitionedSplit;
+        }
+
+        /**
+         * Marks a runner that was removed from the task executor before it started as done,
+         * and releases its driver context.
+         */
+        public void revoke()
+        {
+            synchronized (this) {
+                checkState(driver == null, "Cannot revoke a split runner that has created its driver");
+                closed = true;
+            }
+            driverSplitRunnerFactory.driverRunnerRevoked(driverContext);
+        }
+
         @Override
         public synchronized boolean isFinished()
         {
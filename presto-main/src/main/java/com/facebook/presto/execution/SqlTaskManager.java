@@ -17,6 +17,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.event.SplitMonitor;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.execution.buffer.DirectPageBufferPool;
 import com.facebook.presto.execution.buffer.OutputBuffers;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.execution.executor.TaskExecutor;
@@ -60,6 +61,7 @@ import java.io.Closeable;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -108,6 +110,7 @@ public class SqlTaskManager
     private String coordinatorId;
 
     private final CounterStat failedTasks = new CounterStat();
+    private final DirectPageBufferPool directPageBufferPool;
 
     @Inject
     public SqlTaskManager(
@@ -131,6 +134,8 @@ public class SqlTaskManager
         clientTimeout = config.getClientTimeout();
 
         DataSize maxBufferSize = config.getSinkMaxBufferSize();
+        directPageBufferPool = new DirectPageBufferPool(config.getSinkOffHeapPoolSize());
+        Optional<DirectPageBufferPool> outputBufferPool = config.isSinkOffHeapBufferEnabled() ? Optional.of(directPageBufferPool) : Optional.empty();
 
         taskNotificationExecutor = newFixedThreadPool(config.getTaskNotificationThreads(), threadsNamed("task-notification-%s"));
         taskNotificationExecutorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) taskNotificationExecutor);
@@ -162,6 +167,7 @@ public class SqlTaskManager
                             return null;
                         },
                         maxBufferSize,
+                        outputBufferPool,
                         failedTasks)));
     }
 
@@ -279,6 +285,13 @@ public class SqlTaskManager
         return taskNotificationExecutorMBean;
     }
 
+    @Managed(description = "Direct memory of output buffers")
+    @Nested
+    public DirectPageBufferPool getDirectPageBufferPool()
+    {
+        return directPageBufferPool;
+    }
+
     @Managed(description = "Failed tasks counter")
     @Nested
     public CounterStat getFailedTasks()
@@ -377,6 +390,17 @@ public class SqlTaskManager
         return tasks.getUnchecked(taskId).getTaskResults(bufferId, startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> readTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(startingSequenceId >= 0, "startingSequenceId is negative");
+        requireNonNull(maxSize, "maxSize is null");
+
+        return tasks.getUnchecked(taskId).readTaskResults(bufferId, startingSequenceId, maxSize);
+    }
+
     @Override
     public void acknowledgeTaskResults(TaskId taskId, OutputBufferId bufferId, long sequenceId)
     {
@@ -405,6 +429,15 @@ public class SqlTaskManager
         tasks.getUnchecked(taskId).removeRemoteSource(remoteSourceTaskId);
     }
 
+    @Override
+    public Set<Long> revokeQueuedSplits(TaskId taskId, Set<Long> sequenceIds)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(sequenceIds, "sequenceIds is null");
+
+        return tasks.getUnchecked(taskId).revokeQueuedSplits(sequenceIds);
+    }
+
     @Override
     public TaskInfo cancelTask(TaskId taskId)
     {
@@ -372,6 +372,7 @@ public class StageStateMachine
 
         long processedInputDataSize = 0;
         long processedInputPositions = 0;
+        long maxTaskProcessedInputPositions = 0;
 
         long bufferedDataSize = 0;
         long outputDataSize = 0;
@@ -426,6 +427,7 @@ public class StageStateMachine
 
             processedInputDataSize += taskStats.getProcessedInputDataSize().toBytes();
             processedInputPositions += taskStats.getProcessedInputPositions();
+            maxTaskProcessedInputPositions = max(maxTaskProcessedInputPositions, taskStats.getProcessedInputPositions());
 
             bufferedDataSize += taskInfo.getOutputBuffers().getTotalBufferedBytes();
             outputDataSize += taskStats.getOutputDataSize().toBytes();
@@ -480,6 +482,7 @@ public class StageStateMachine
                 rawInputPositions,
                 succinctBytes(processedInputDataSize),
                 processedInputPositions,
+                processedInputPositions == 0 ? 0 : (double) maxTaskProcessedInputPositions * totalTasks / processedInputPositions,
                 succinctBytes(bufferedDataSize),
                 succinctBytes(outputDataSize),
                 outputPositions,
@@ -72,6 +72,7 @@ public class StageStats
 
     private final DataSize processedInputDataSize;
     private final long processedInputPositions;
+    private final double taskInputSkew;
 
     private final DataSize bufferedDataSize;
     private final DataSize outputDataSize;
@@ -118,6 +119,7 @@ public class StageStats
 
             @JsonProperty("processedInputDataSize") DataSize processedInputDataSize,
             @JsonProperty("processedInputPositions") long processedInputPositions,
+            @JsonProperty("taskInputSkew") double taskInputSkew,
 
             @JsonProperty("bufferedDataSize") DataSize bufferedDataSize,
             @JsonProperty("outputDataSize") DataSize outputDataSize,
@@ -173,6 +175,8 @@ public class StageStats
         this.processedInputDataSize = requireNonNull(processedInputDataSize, "processedInputDataSize is null");
         checkArgument(processedInputPositions >= 0, "processedInputPositions is negative");
         this.processedInputPositions = processedInputPositions;
+        checkArgument(taskInputSkew >= 0, "taskInputSkew is negative");
+        this.taskInputSkew = taskInputSkew;
 
         this.bufferedDataSize = requireNonNull(bufferedDataSize, "bufferedDataSize is null");
         this.outputDataSize = requireNonNull(outputDataSize, "outputDataSize is null");
@@ -336,6 +340,16 @@ public class StageStats
         return processedInputPositions;
     }
 
+    /**
+     * Returns the processed input positions of the task with the most input divided by the
+     * average of all the tasks, or zero if the stage has not processed any input.
+     */
+    @JsonProperty
+    public double getTaskInputSkew()
+    {
+        return taskInputSkew;
+    }
+
     @JsonProperty
     public DataSize getBufferedDataSize()
     {
@@ -26,6 +26,7 @@ import io.airlift.units.DataSize;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Set;
 
 public interface TaskManager
 {
@@ -107,6 +108,12 @@ public interface TaskManager
      */
     ListenableFuture<BufferResult> getTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
 
+    /**
+     * Gets results from a task like {@link #getTaskResults}, but does not acknowledge the
+     * results before the starting sequence id.
+     */
+    ListenableFuture<BufferResult> readTaskResults(TaskId taskId, OutputBufferId bufferId, long startingSequenceId, DataSize maxSize);
+
     /**
      * Acknowledges previously received results.
      */
@@ -136,4 +143,12 @@ public interface TaskManager
      * from {@code remoteSourceTaskId} will be ignored.
      */
     void removeRemoteSource(TaskId taskId, TaskId remoteSourceTaskId);
+
+    /**
+     * Takes back the splits with the given sequence ids that are still queued in
+     * {@code taskId}, so they can be scheduled on another task. Returns the sequence ids
+     * of the splits that will not run in this task, including splits revoked by an
+     * earlier call.
+     */
+    Set<Long> revokeQueuedSplits(TaskId taskId, Set<Long> sequenceIds);
 }
@@ -57,6 +57,8 @@ public class TaskManagerConfig
     private Duration splitConcurrencyAdjustmentInterval = new Duration(100, TimeUnit.MILLISECONDS);
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
+    private boolean sinkOffHeapBufferEnabled;
+    private DataSize sinkOffHeapPoolSize = new DataSize(256, Unit.MEGABYTE);
     private DataSize maxPagePartitioningBufferSize = new DataSize(32, Unit.MEGABYTE);
 
     private Duration clientTimeout = new Duration(2, TimeUnit.MINUTES);
@@ -74,6 +76,7 @@ public class TaskManagerConfig
     private int taskYieldThreads = 3;
 
     private BigDecimal levelTimeMultiplier = new BigDecimal(2.0);
+    private boolean workStealingEnabled;
 
     private boolean legacyLifespanCompletionCondition;
 
@@ -211,6 +214,19 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isWorkStealingEnabled()
+    {
+        return workStealingEnabled;
+    }
+
+    @Config("task.work-stealing-enabled")
+    @ConfigDescription("Give each worker thread its own queue of splits, and let idle threads steal splits from the other queues")
+    public TaskManagerConfig setWorkStealingEnabled(boolean workStealingEnabled)
+    {
+        this.workStealingEnabled = workStealingEnabled;
+        return this;
+    }
+
     @Min(1)
     public int getMaxWorkerThreads()
     {
@@ -325,6 +341,33 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isSinkOffHeapBufferEnabled()
+    {
+        return sinkOffHeapBufferEnabled;
+    }
+
+    @Config("sink.off-heap-buffer-enabled")
+    @ConfigDescription("Store the pages of output buffers in direct memory")
+    public TaskManagerConfig setSinkOffHeapBufferEnabled(boolean sinkOffHeapBufferEnabled)
+    {
+        this.sinkOffHeapBufferEnabled = sinkOffHeapBufferEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getSinkOffHeapPoolSize()
+    {
+        return sinkOffHeapPoolSize;
+    }
+
+    @Config("sink.off-heap-pool-size")
+    @ConfigDescription("Maximum size of the direct memory kept for reuse by output buffers")
+    public TaskManagerConfig setSinkOffHeapPoolSize(DataSize sinkOffHeapPoolSize)
+    {
+        this.sinkOffHeapPoolSize = sinkOffHeapPoolSize;
+        return this;
+    }
+
     @NotNull
     public DataSize getMaxPagePartitioningBufferSize()
     {
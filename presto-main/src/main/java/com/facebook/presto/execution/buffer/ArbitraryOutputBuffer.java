@@ -64,6 +64,7 @@ public class ArbitraryOutputBuffer
         implements OutputBuffer
 {
     private final OutputBufferMemoryManager memoryManager;
+    private final DirectPageStore pageStore;
 
     @GuardedBy("this")
     private OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(ARBITRARY);
@@ -89,8 +90,20 @@ public class ArbitraryOutputBuffer
             DataSize maxBufferSize,
             Supplier<LocalMemoryContext> systemMemoryContextSupplier,
             Executor notificationExecutor)
+    {
+        this(taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier, notificationExecutor, Optional.empty());
+    }
+
+    public ArbitraryOutputBuffer(
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            DataSize maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            Executor notificationExecutor,
+            Optional<DirectPageBufferPool> directPageBufferPool)
     {
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
+        this.pageStore = new DirectPageStore(taskInstanceId, directPageBufferPool);
         this.state = requireNonNull(state, "state is null");
         requireNonNull(maxBufferSize, "maxBufferSize is null");
         checkArgument(maxBufferSize.toBytes() > 0, "maxBufferSize must be at least 1");
@@ -226,18 +239,21 @@ public class ArbitraryOutputBuffer
             return;
         }
 
+        // copy the pages to direct memory, if enabled
+        List<SerializedPage> storedPages = pageStore.store(pages);
+
         // reserve memory
-        long bytesAdded = pages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
+        long bytesAdded = storedPages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
         memoryManager.updateMemoryUsage(bytesAdded);
 
         // update stats
-        long rowCount = pages.stream().mapToLong(SerializedPage::getPositionCount).sum();
+        long rowCount = storedPages.stream().mapToLong(SerializedPage::getPositionCount).sum();
         totalRowsAdded.addAndGet(rowCount);
-        totalPagesAdded.addAndGet(pages.size());
-        outstandingPageCountPerLifespan.computeIfAbsent(lifespan, ignored -> new AtomicLong()).addAndGet(pages.size());
+        totalPagesAdded.addAndGet(storedPages.size());
+        outstandingPageCountPerLifespan.computeIfAbsent(lifespan, ignored -> new AtomicLong()).addAndGet(storedPages.size());
 
         // create page reference counts with an initial single reference
-        List<SerializedPageReference> serializedPageReferences = pages.stream()
+        List<SerializedPageReference> serializedPageReferences = storedPages.stream()
                 .map(pageSplit -> new SerializedPageReference(
                         pageSplit,
                         1,
@@ -273,6 +289,16 @@ public class ArbitraryOutputBuffer
         return getBuffer(bufferId).getPages(startingSequenceId, maxSize, Optional.of(masterBuffer));
     }
 
+    @Override
+    public ListenableFuture<BufferResult> read(OutputBufferId bufferId, long startingSequenceId, DataSize maxSize)
+    {
+        checkState(!Thread.holdsLock(this), "Can not get pages while holding a lock on this");
+        requireNonNull(bufferId, "bufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return getBuffer(bufferId).readPages(startingSequenceId, maxSize, Optional.of(masterBuffer));
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long sequenceId)
     {
@@ -323,6 +349,7 @@ public class ArbitraryOutputBuffer
             masterBuffer.destroy();
 
             safeGetBuffersSnapshot().forEach(ClientBuffer::destroy);
+            pageStore.checkReleased();
 
             memoryManager.setNoBlockOnFull();
             forceFreeMemory();
@@ -527,5 +554,6 @@ public class ArbitraryOutputBuffer
         }
 
         memoryManager.updateMemoryUsage(-pageSplit.getRetainedSizeInBytes());
+        pageStore.release(pageSplit);
     }
 }
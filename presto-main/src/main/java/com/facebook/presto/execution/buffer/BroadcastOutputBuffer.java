@@ -32,6 +32,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -58,6 +59,7 @@ public class BroadcastOutputBuffer
     private final String taskInstanceId;
     private final StateMachine<BufferState> state;
     private final OutputBufferMemoryManager memoryManager;
+    private final DirectPageStore pageStore;
 
     @GuardedBy("this")
     private OutputBuffers outputBuffers = OutputBuffers.createInitialEmptyOutputBuffers(BROADCAST);
@@ -82,8 +84,20 @@ public class BroadcastOutputBuffer
             DataSize maxBufferSize,
             Supplier<LocalMemoryContext> systemMemoryContextSupplier,
             Executor notificationExecutor)
+    {
+        this(taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier, notificationExecutor, Optional.empty());
+    }
+
+    public BroadcastOutputBuffer(
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            DataSize maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            Executor notificationExecutor,
+            Optional<DirectPageBufferPool> directPageBufferPool)
     {
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
+        this.pageStore = new DirectPageStore(taskInstanceId, directPageBufferPool);
         this.state = requireNonNull(state, "state is null");
         this.memoryManager = new OutputBufferMemoryManager(
                 requireNonNull(maxBufferSize, "maxBufferSize is null").toBytes(),
@@ -212,19 +226,22 @@ public class BroadcastOutputBuffer
             return;
         }
 
+        // copy the pages to direct memory, if enabled
+        List<SerializedPage> storedPages = pageStore.store(pages);
+
         // reserve memory
-        long bytesAdded = pages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
+        long bytesAdded = storedPages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
         memoryManager.updateMemoryUsage(bytesAdded);
 
         // update stats
-        long rowCount = pages.stream().mapToLong(SerializedPage::getPositionCount).sum();
+        long rowCount = storedPages.stream().mapToLong(SerializedPage::getPositionCount).sum();
         totalRowsAdded.addAndGet(rowCount);
-        totalPagesAdded.addAndGet(pages.size());
-        totalBufferedPages.addAndGet(pages.size());
-        outstandingPageCountPerLifespan.computeIfAbsent(lifespan, ignore -> new AtomicLong()).addAndGet(pages.size());
+        totalPagesAdded.addAndGet(storedPages.size());
+        totalBufferedPages.addAndGet(storedPages.size());
+        outstandingPageCountPerLifespan.computeIfAbsent(lifespan, ignore -> new AtomicLong()).addAndGet(storedPages.size());
 
         // create page reference counts with an initial single reference
-        List<SerializedPageReference> serializedPageReferences = pages.stream()
+        List<SerializedPageReference> serializedPageReferences = storedPages.stream()
                 .map(pageSplit -> new SerializedPageReference(
                         pageSplit,
                         1,
@@ -267,6 +284,16 @@ public class BroadcastOutputBuffer
         return getBuffer(outputBufferId).getPages(startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> read(OutputBufferId outputBufferId, long startingSequenceId, DataSize maxSize)
+    {
+        checkState(!Thread.holdsLock(this), "Can not get pages while holding a lock on this");
+        requireNonNull(outputBufferId, "outputBufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return getBuffer(outputBufferId).readPages(startingSequenceId, maxSize, Optional.empty());
+    }
+
     @Override
     public void acknowledge(OutputBufferId bufferId, long sequenceId)
     {
@@ -310,6 +337,7 @@ public class BroadcastOutputBuffer
             noMoreBuffers();
 
             safeGetBuffersSnapshot().forEach(ClientBuffer::destroy);
+            pageStore.checkReleased();
 
             memoryManager.setNoBlockOnFull();
             forceFreeMemory();
@@ -446,5 +474,6 @@ public class BroadcastOutputBuffer
 
         checkState(totalBufferedPages.decrementAndGet() >= 0);
         memoryManager.updateMemoryUsage(-pageSplit.getRetainedSizeInBytes());
+        pageStore.release(pageSplit);
     }
 }
@@ -172,8 +172,17 @@ class ClientBuffer
         // acknowledge pages first, out side of locks to not trigger callbacks while holding the lock
         acknowledgePages(sequenceId);
 
+        return readPages(sequenceId, maxSize, pagesSupplier);
+    }
+
+    /**
+     * Reads pages without acknowledging the pages before the sequence id, which may be ahead
+     * of the acknowledged pages up to the end of the buffered pages.
+     */
+    public ListenableFuture<BufferResult> readPages(long sequenceId, DataSize maxSize, Optional<PagesSupplier> pagesSupplier)
+    {
         // attempt to load some data before processing the read
-        pagesSupplier.ifPresent(supplier -> loadPagesIfNecessary(supplier, maxSize));
+        pagesSupplier.ifPresent(supplier -> loadPagesIfNecessary(supplier, sequenceId, maxSize));
 
         PendingRead oldPendingRead = null;
         try {
@@ -184,7 +193,7 @@ class ClientBuffer
 
                 // Return results immediately if we have data, there will be no more data, or this is
                 // an out of order request
-                if (!pages.isEmpty() || noMorePages || sequenceId != currentSequenceId.get()) {
+                if (noMorePages || sequenceId != currentSequenceId.get() + pages.size()) {
                     return immediateFuture(processRead(sequenceId, maxSize));
                 }
 
@@ -230,15 +239,17 @@ class ClientBuffer
         // Get the max size from the current pending read, which may not be the
         // same pending read instance by the time pages are loaded but this is
         // safe since the size is rechecked before returning pages.
+        long sequenceId;
         DataSize maxSize;
         synchronized (this) {
             if (pendingRead == null) {
                 return;
             }
+            sequenceId = pendingRead.getSequenceId();
             maxSize = pendingRead.getMaxSize();
         }
 
-        boolean dataAddedOrNoMorePages = loadPagesIfNecessary(pagesSupplier, maxSize);
+        boolean dataAddedOrNoMorePages = loadPagesIfNecessary(pagesSupplier, sequenceId, maxSize);
 
         if (dataAddedOrNoMorePages) {
             PendingRead pendingRead;
@@ -252,9 +263,9 @@ class ClientBuffer
     }
 
     /**
-     * If there no data, attempt to load some from the pages supplier.
+     * If there no data after the sequence id, attempt to load some from the pages supplier.
      */
-    private boolean loadPagesIfNecessary(PagesSupplier pagesSupplier, DataSize maxSize)
+    private boolean loadPagesIfNecessary(PagesSupplier pagesSupplier, long sequenceId, DataSize maxSize)
     {
         checkState(!Thread.holdsLock(this), "Can not load pages while holding a lock on this");
 
@@ -265,7 +276,7 @@ class ClientBuffer
                 return false;
             }
 
-            if (!pages.isEmpty()) {
+            if (pages.size() > Math.max(sequenceId - currentSequenceId.get(), 0)) {
                 return false;
             }
 
@@ -341,19 +352,25 @@ class ClientBuffer
             return emptyResults(taskInstanceId, currentSequenceId.get(), true);
         }
 
-        // if request is for pages after the current position, there is a bug somewhere
-        // a read call is always proceeded by acknowledge pages, which
-        // will advance the sequence id to at least the request position, unless
-        // the buffer is destroyed, and in that case the buffer will be empty with
-        // no more pages set, which is checked above
-        verify(sequenceId == currentSequenceId.get(), "Invalid sequence id");
+        // if request is for pages after the buffered pages, there is a bug somewhere
+        // a read call is either proceeded by acknowledge pages, which will advance
+        // the sequence id to at least the request position, or reads ahead from
+        // the next token of a previous read, unless the buffer is destroyed, and in
+        // that case the buffer will be empty with no more pages set, which is checked above
+        int skippedPages = toIntExact(sequenceId - currentSequenceId.get());
+        verify(skippedPages <= pages.size(), "Invalid sequence id");
+
+        // a read ahead has reached the end of this buffer
+        if (skippedPages == pages.size() && noMorePages) {
+            return emptyResults(taskInstanceId, sequenceId, true);
+        }
 
         // read the new pages
         long maxBytes = maxSize.toBytes();
         List<SerializedPage> result = new ArrayList<>();
         long bytes = 0;
 
-        for (SerializedPageReference page : pages) {
+        for (SerializedPageReference page : pages.subList(skippedPages, pages.size())) {
             bytes += page.getRetainedSizeInBytes();
             // break (and don't add) if this page would exceed the limit
             if (!result.isEmpty() && bytes > maxBytes) {
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Integer.numberOfLeadingZeros;
+import static java.lang.Integer.numberOfTrailingZeros;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pool of direct buffers for the serialized pages of output buffers, shared by all tasks of a node.
+ * <p>
+ * Buffers are allocated in power of two sizes, and released buffers are kept for reuse up to the
+ * max pooled size. Buffers which are not released are not reused, and their memory is freed when
+ * they are garbage collected.
+ */
+@ThreadSafe
+public class DirectPageBufferPool
+{
+    private static final int MIN_BUFFER_SIZE_SHIFT = 12;
+    // serialized pages are split at 1MB before compression, so this fits all but a few pages
+    private static final int MAX_BUFFER_SIZE_SHIFT = 22;
+
+    private final long maxPooledBytes;
+    private final Queue<ByteBuffer>[] pooledBuffers;
+
+    private final AtomicLong pooledBytes = new AtomicLong();
+    private final AtomicLong allocatedBytes = new AtomicLong();
+    private final AtomicLong allocatedBuffers = new AtomicLong();
+    private final AtomicLong reusedBuffers = new AtomicLong();
+    private final AtomicLong leakedPages = new AtomicLong();
+    private final AtomicLong leakedBytes = new AtomicLong();
+
+    @SuppressWarnings("unchecked")
+    public DirectPageBufferPool(DataSize maxPooledSize)
+    {
+        this.maxPooledBytes = requireNonNull(maxPooledSize, "maxPooledSize is null").toBytes();
+        pooledBuffers = new Queue[MAX_BUFFER_SIZE_SHIFT - MIN_BUFFER_SIZE_SHIFT + 1];
+        for (int i = 0; i < pooledBuffers.length; i++) {
+            pooledBuffers[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Returns a buffer with the given size remaining, or empty if the size is too large to be pooled.
+     */
+    public Optional<ByteBuffer> allocate(int size)
+    {
+        checkArgument(size >= 0, "size is negative");
+        int shift = max(MIN_BUFFER_SIZE_SHIFT, Integer.SIZE - numberOfLeadingZeros(max(size - 1, 0)));
+        if (shift > MAX_BUFFER_SIZE_SHIFT) {
+            return Optional.empty();
+        }
+
+        ByteBuffer buffer = pooledBuffers[shift - MIN_BUFFER_SIZE_SHIFT].poll();
+        if (buffer != null) {
+            pooledBytes.addAndGet(-buffer.capacity());
+            reusedBuffers.incrementAndGet();
+        }
+        else {
+            buffer = ByteBuffer.allocateDirect(1 << shift);
+            allocatedBuffers.incrementAndGet();
+        }
+        allocatedBytes.addAndGet(buffer.capacity());
+
+        buffer.clear();
+        buffer.limit(size);
+        return Optional.of(buffer);
+    }
+
+    public void release(ByteBuffer buffer)
+    {
+        int capacity = buffer.capacity();
+        allocatedBytes.addAndGet(-capacity);
+        if (pooledBytes.addAndGet(capacity) <= maxPooledBytes) {
+            pooledBuffers[numberOfTrailingZeros(capacity) - MIN_BUFFER_SIZE_SHIFT].offer(buffer);
+        }
+        else {
+            pooledBytes.addAndGet(-capacity);
+        }
+    }
+
+    void recordLeak(long pages, long bytes)
+    {
+        leakedPages.addAndGet(pages);
+        leakedBytes.addAndGet(bytes);
+        allocatedBytes.addAndGet(-bytes);
+    }
+
+    @Managed
+    public long getAllocatedBytes()
+    {
+        return allocatedBytes.get();
+    }
+
+    @Managed
+    public long getPooledBytes()
+    {
+        return pooledBytes.get();
+    }
+
+    @Managed
+    public long getAllocatedBuffers()
+    {
+        return allocatedBuffers.get();
+    }
+
+    @Managed
+    public long getReusedBuffers()
+    {
+        return reusedBuffers.get();
+    }
+
+    @Managed
+    public long getLeakedPages()
+    {
+        return leakedPages.get();
+    }
+
+    @Managed
+    public long getLeakedBytes()
+    {
+        return leakedBytes.get();
+    }
+}
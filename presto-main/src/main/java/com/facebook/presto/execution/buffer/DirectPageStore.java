@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slice;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stores the serialized pages of an output buffer in pooled direct memory, so that large
+ * buffers do not fill the heap. The memory of a page is returned to the pool when the output
+ * buffer dereferences the page. The retained size of a stored page includes the whole pooled
+ * buffer, so the output buffer memory accounting covers the direct memory.
+ */
+@ThreadSafe
+class DirectPageStore
+{
+    private static final Logger log = Logger.get(DirectPageStore.class);
+
+    private final String taskInstanceId;
+    private final Optional<DirectPageBufferPool> pool;
+    // pages are compared by identity
+    private final Map<SerializedPage, ByteBuffer> storedPages = new ConcurrentHashMap<>();
+
+    public DirectPageStore(String taskInstanceId, Optional<DirectPageBufferPool> pool)
+    {
+        this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
+        this.pool = requireNonNull(pool, "pool is null");
+    }
+
+    /**
+     * Returns the pages to add to the output buffer, which are copies in direct memory when
+     * a pool is present. Pages which are too large for the pool are kept on the heap.
+     */
+    public List<SerializedPage> store(List<SerializedPage> pages)
+    {
+        if (!pool.isPresent()) {
+            return pages;
+        }
+
+        ImmutableList.Builder<SerializedPage> storedPages = ImmutableList.builder();
+        for (SerializedPage page : pages) {
+            storedPages.add(store(page, pool.get()));
+        }
+        return storedPages.build();
+    }
+
+    private SerializedPage store(SerializedPage page, DirectPageBufferPool pool)
+    {
+        Optional<ByteBuffer> buffer = pool.allocate(page.getSizeInBytes());
+        if (!buffer.isPresent()) {
+            return page;
+        }
+
+        Slice slice = wrappedBuffer(buffer.get());
+        slice.setBytes(0, page.getSlice());
+        SerializedPage storedPage = new SerializedPage(slice, page.getPageCodecMarkers(), page.getPositionCount(), page.getUncompressedSizeInBytes());
+        storedPages.put(storedPage, buffer.get());
+        return storedPage;
+    }
+
+    /**
+     * Called when the output buffer no longer references the page.
+     */
+    public void release(SerializedPage page)
+    {
+        ByteBuffer buffer = storedPages.remove(page);
+        if (buffer != null) {
+            pool.get().release(buffer);
+        }
+    }
+
+    /**
+     * Called when the output buffer is destroyed, after all pages should have been released.
+     * The memory of the pages which are still stored is not reused.
+     */
+    public void checkReleased()
+    {
+        if (storedPages.isEmpty()) {
+            return;
+        }
+
+        int leakedPages = 0;
+        long leakedBytes = 0;
+        for (SerializedPage page : storedPages.keySet()) {
+            // the page may be released concurrently
+            ByteBuffer buffer = storedPages.remove(page);
+            if (buffer != null) {
+                leakedPages++;
+                leakedBytes += buffer.capacity();
+            }
+        }
+        if (leakedPages == 0) {
+            return;
+        }
+        pool.get().recordLeak(leakedPages, leakedBytes);
+        log.warn("Output buffer of task %s was destroyed with %s pages in direct memory (%s bytes)", taskInstanceId, leakedPages, leakedBytes);
+    }
+}
@@ -108,6 +108,12 @@ public class DiscardingOutputBuffer
         throw new UnsupportedOperationException("DiscardingOutputBuffer must not have any active readers");
     }
 
+    @Override
+    public ListenableFuture<BufferResult> read(OutputBuffers.OutputBufferId bufferId, long token, DataSize maxSize)
+    {
+        throw new UnsupportedOperationException("DiscardingOutputBuffer must not have any active readers");
+    }
+
     @Override
     public void acknowledge(OutputBuffers.OutputBufferId bufferId, long token)
     {
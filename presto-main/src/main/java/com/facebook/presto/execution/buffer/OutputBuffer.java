@@ -68,6 +68,13 @@ public interface OutputBuffer
      */
     ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize);
 
+    /**
+     * Gets pages from the output buffer like {@link #get}, but does not acknowledge the pages
+     * before the token. The token may be ahead of the acknowledged pages, up to the next token
+     * of the last result, which allows a client to read pages before it acknowledges them.
+     */
+    ListenableFuture<BufferResult> read(OutputBufferId bufferId, long token, DataSize maxSize);
+
     /**
      * Acknowledges the previously received pages from the output buffer.
      */
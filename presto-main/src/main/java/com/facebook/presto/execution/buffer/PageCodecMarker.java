@@ -25,7 +25,9 @@ import static com.google.common.base.Preconditions.checkArgument;
 public enum PageCodecMarker
 {
     COMPRESSED(1),
-    ENCRYPTED(2);
+    ENCRYPTED(2),
+    // set together with COMPRESSED when the page is compressed with Snappy instead of LZ4
+    SNAPPY(3);
 
     private final int mask;
 
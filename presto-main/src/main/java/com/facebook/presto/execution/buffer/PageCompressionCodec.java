@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+
+import static com.facebook.presto.execution.buffer.PageCodecMarker.COMPRESSED;
+import static com.google.common.base.Preconditions.checkArgument;
+
+public enum PageCompressionCodec
+{
+    LZ4 {
+        @Override
+        public Compressor createCompressor()
+        {
+            return new Lz4Compressor();
+        }
+
+        @Override
+        public Decompressor createDecompressor()
+        {
+            return new Lz4Decompressor();
+        }
+
+        @Override
+        public byte setMarkers(byte markers)
+        {
+            return COMPRESSED.set(markers);
+        }
+    },
+    SNAPPY {
+        @Override
+        public Compressor createCompressor()
+        {
+            return new SnappyCompressor();
+        }
+
+        @Override
+        public Decompressor createDecompressor()
+        {
+            return new SnappyDecompressor();
+        }
+
+        @Override
+        public byte setMarkers(byte markers)
+        {
+            return PageCodecMarker.SNAPPY.set(COMPRESSED.set(markers));
+        }
+    };
+
+    public abstract Compressor createCompressor();
+
+    public abstract Decompressor createDecompressor();
+
+    /**
+     * Marks a page as compressed with this codec.
+     */
+    public abstract byte setMarkers(byte markers);
+
+    /**
+     * Returns the codec a page is compressed with. Pages compressed before the codec
+     * was recorded in the markers are compressed with LZ4.
+     */
+    public static PageCompressionCodec fromMarkers(byte markers)
+    {
+        checkArgument(COMPRESSED.isSet(markers), "Page is not compressed");
+        return PageCodecMarker.SNAPPY.isSet(markers) ? SNAPPY : LZ4;
+    }
+}
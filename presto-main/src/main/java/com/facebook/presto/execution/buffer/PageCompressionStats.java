@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Compression statistics of the pages serialized with one codec. Pages are skipped
+ * when the adaptive compression does not expect them to shrink, and are not compressed
+ * when they were compressed but did not shrink enough.
+ */
+public class PageCompressionStats
+{
+    private final long pages;
+    private final long compressedPages;
+    private final long skippedPages;
+    private final DataSize uncompressedSize;
+    private final DataSize compressedSize;
+    private final Duration compressionTime;
+
+    @JsonCreator
+    public PageCompressionStats(
+            @JsonProperty("pages") long pages,
+            @JsonProperty("compressedPages") long compressedPages,
+            @JsonProperty("skippedPages") long skippedPages,
+            @JsonProperty("uncompressedSize") DataSize uncompressedSize,
+            @JsonProperty("compressedSize") DataSize compressedSize,
+            @JsonProperty("compressionTime") Duration compressionTime)
+    {
+        this.pages = pages;
+        this.compressedPages = compressedPages;
+        this.skippedPages = skippedPages;
+        this.uncompressedSize = uncompressedSize;
+        this.compressedSize = compressedSize;
+        this.compressionTime = compressionTime;
+    }
+
+    @JsonProperty
+    public long getPages()
+    {
+        return pages;
+    }
+
+    @JsonProperty
+    public long getCompressedPages()
+    {
+        return compressedPages;
+    }
+
+    @JsonProperty
+    public long getSkippedPages()
+    {
+        return skippedPages;
+    }
+
+    /**
+     * Size of the serialized pages before compression.
+     */
+    @JsonProperty
+    public DataSize getUncompressedSize()
+    {
+        return uncompressedSize;
+    }
+
+    /**
+     * Size of the serialized pages after compression, including the pages which were not compressed.
+     */
+    @JsonProperty
+    public DataSize getCompressedSize()
+    {
+        return compressedSize;
+    }
+
+    @JsonProperty
+    public Duration getCompressionTime()
+    {
+        return compressionTime;
+    }
+
+    public PageCompressionStats mergeWith(PageCompressionStats other)
+    {
+        return new PageCompressionStats(
+                pages + other.pages,
+                compressedPages + other.compressedPages,
+                skippedPages + other.skippedPages,
+                new DataSize(uncompressedSize.toBytes() + other.uncompressedSize.toBytes(), BYTE).convertToMostSuccinctDataSize(),
+                new DataSize(compressedSize.toBytes() + other.compressedSize.toBytes(), BYTE).convertToMostSuccinctDataSize(),
+                new Duration(compressionTime.roundTo(NANOSECONDS) + other.compressionTime.roundTo(NANOSECONDS), NANOSECONDS).convertToMostSuccinctTimeUnit());
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("pages", pages)
+                .add("compressedPages", compressedPages)
+                .add("skippedPages", skippedPages)
+                .add("uncompressedSize", uncompressedSize)
+                .add("compressedSize", compressedSize)
+                .add("compressionTime", compressionTime)
+                .toString();
+    }
+}
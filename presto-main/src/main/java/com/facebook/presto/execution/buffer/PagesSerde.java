@@ -16,17 +16,26 @@ package com.facebook.presto.execution.buffer;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spiller.SpillCipher;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
 import java.nio.ByteBuffer;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.execution.buffer.PageCodecMarker.COMPRESSED;
 import static com.facebook.presto.execution.buffer.PageCodecMarker.ENCRYPTED;
@@ -34,25 +43,43 @@ import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readRawPage;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeRawPage;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 @NotThreadSafe
 public class PagesSerde
 {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
+    private static final int MAX_SKIPPED_PAGES = 64;
 
     private final BlockEncodingSerde blockEncodingSerde;
+    private final Optional<PageCompressionCodec> compressionCodec;
     private final Optional<Compressor> compressor;
-    private final Optional<Decompressor> decompressor;
+    private final boolean adaptiveCompression;
     private final Optional<SpillCipher> spillCipher;
+    private final Map<PageCompressionCodec, Decompressor> decompressors = new EnumMap<>(PageCompressionCodec.class);
 
-    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher)
+    // pages with the same block encodings usually compress alike
+    private final Map<List<String>, CompressionSample> compressionSamples = new HashMap<>();
+
+    // the statistics are read by other threads
+    private final AtomicLong pages = new AtomicLong();
+    private final AtomicLong compressedPages = new AtomicLong();
+    private final AtomicLong skippedPages = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressionNanos = new AtomicLong();
+
+    public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<PageCompressionCodec> compressionCodec, boolean adaptiveCompression, Optional<SpillCipher> spillCipher)
     {
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
-        checkArgument(compressor.isPresent() == decompressor.isPresent(), "compressor and decompressor must both be present or both be absent");
-        this.compressor = requireNonNull(compressor, "compressor is null");
-        this.decompressor = requireNonNull(decompressor, "decompressor is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.compressor = compressionCodec.map(PageCompressionCodec::createCompressor);
+        this.adaptiveCompression = adaptiveCompression;
         this.spillCipher = requireNonNull(spillCipher, "spillCipher is null");
         checkState(!spillCipher.isPresent() || !spillCipher.get().isDestroyed(), "spillCipher is already destroyed");
     }
@@ -66,13 +93,29 @@ public class PagesSerde
         byte markers = PageCodecMarker.none();
 
         if (compressor.isPresent()) {
-            ByteBuffer compressionBuffer = ByteBuffer.allocate(compressor.get().maxCompressedLength(uncompressedSize));
-            compressor.get().compress(slice.toByteBuffer(), compressionBuffer);
-            compressionBuffer.flip();
-            if ((((double) compressionBuffer.remaining()) / uncompressedSize) <= MINIMUM_COMPRESSION_RATIO) {
-                slice = Slices.wrappedBuffer(compressionBuffer);
-                markers = COMPRESSED.set(markers);
+            CompressionSample sample = adaptiveCompression ? getCompressionSample(page) : null;
+            if (sample == null || sample.shouldCompress()) {
+                long start = System.nanoTime();
+                ByteBuffer compressionBuffer = ByteBuffer.allocate(compressor.get().maxCompressedLength(uncompressedSize));
+                compressor.get().compress(slice.toByteBuffer(), compressionBuffer);
+                compressionBuffer.flip();
+                boolean shrunk = (((double) compressionBuffer.remaining()) / uncompressedSize) <= MINIMUM_COMPRESSION_RATIO;
+                if (shrunk) {
+                    slice = Slices.wrappedBuffer(compressionBuffer);
+                    markers = compressionCodec.get().setMarkers(markers);
+                    compressedPages.incrementAndGet();
+                }
+                if (sample != null) {
+                    sample.recordCompression(shrunk);
+                }
+                compressionNanos.addAndGet(System.nanoTime() - start);
+            }
+            else {
+                skippedPages.incrementAndGet();
             }
+            pages.incrementAndGet();
+            uncompressedBytes.addAndGet(uncompressedSize);
+            compressedBytes.addAndGet(slice.length());
         }
 
         if (spillCipher.isPresent()) {
@@ -100,12 +143,13 @@ public class PagesSerde
         }
 
         if (COMPRESSED.isSet(serializedPage.getPageCodecMarkers())) {
-            checkState(decompressor.isPresent(), "Page is compressed, but decompressor is missing");
+            // the codec is recorded in the page, as the pages of an exchange may be compressed by serdes with different settings
+            Decompressor decompressor = decompressors.computeIfAbsent(PageCompressionCodec.fromMarkers(serializedPage.getPageCodecMarkers()), PageCompressionCodec::createDecompressor);
 
             int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
             ByteBuffer decompressionBuffer = ByteBuffer.allocate(uncompressedSize);
 
-            decompressor.get().decompress(slice.toByteBuffer(), decompressionBuffer);
+            decompressor.decompress(slice.toByteBuffer(), decompressionBuffer);
             decompressionBuffer.flip();
             checkState(decompressionBuffer.remaining() == uncompressedSize);
 
@@ -114,4 +158,61 @@ public class PagesSerde
 
         return readRawPage(serializedPage.getPositionCount(), slice.getInput(), blockEncodingSerde);
     }
+
+    /**
+     * Returns the compression statistics of the serialized pages by codec. Can be called by any thread.
+     */
+    public Map<PageCompressionCodec, PageCompressionStats> getCompressionStats()
+    {
+        if (!compressionCodec.isPresent()) {
+            return ImmutableMap.of();
+        }
+        return ImmutableMap.of(compressionCodec.get(), new PageCompressionStats(
+                pages.get(),
+                compressedPages.get(),
+                skippedPages.get(),
+                new DataSize(uncompressedBytes.get(), BYTE).convertToMostSuccinctDataSize(),
+                new DataSize(compressedBytes.get(), BYTE).convertToMostSuccinctDataSize(),
+                new Duration(compressionNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit()));
+    }
+
+    private CompressionSample getCompressionSample(Page page)
+    {
+        ImmutableList.Builder<String> encodings = ImmutableList.builder();
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            encodings.add(page.getBlock(channel).getEncodingName());
+        }
+        return compressionSamples.computeIfAbsent(encodings.build(), key -> new CompressionSample());
+    }
+
+    /**
+     * Skips the compression of pages which are not expected to shrink. Each time a compressed
+     * page does not shrink, twice as many of the following pages are not compressed, up to a
+     * limit, after which a page is compressed again to sample the data.
+     */
+    private static class CompressionSample
+    {
+        private int skipCount;
+        private int remainingSkippedPages;
+
+        public boolean shouldCompress()
+        {
+            if (remainingSkippedPages > 0) {
+                remainingSkippedPages--;
+                return false;
+            }
+            return true;
+        }
+
+        public void recordCompression(boolean shrunk)
+        {
+            if (shrunk) {
+                skipCount = 0;
+            }
+            else {
+                skipCount = min(max(1, skipCount * 2), MAX_SKIPPED_PAGES);
+            }
+            remainingSkippedPages = skipCount;
+        }
+    }
 }
@@ -25,12 +25,20 @@ import java.util.Iterator;
 
 import static com.facebook.presto.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.block.BlockSerdeUtil.writeBlock;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.lang.Math.toIntExact;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
 
 public class PagesSerdeUtil
 {
+    // token, next token, buffer complete, page count and size of the pages
+    public static final int BUFFER_RESULT_HEADER_SIZE = SIZE_OF_LONG + SIZE_OF_LONG + SIZE_OF_BYTE + SIZE_OF_INT + SIZE_OF_INT;
+
+    private static final int SERIALIZED_PAGE_HEADER_SIZE = SIZE_OF_INT + SIZE_OF_BYTE + SIZE_OF_INT + SIZE_OF_INT;
+
     private PagesSerdeUtil()
     {
     }
@@ -85,6 +93,24 @@ public class PagesSerdeUtil
         return size;
     }
 
+    /**
+     * Writes a buffer result as one frame of a stream of results. The frame has a header of
+     * {@link #BUFFER_RESULT_HEADER_SIZE} bytes, which is followed by the serialized pages.
+     */
+    public static void writeBufferResult(SliceOutput sliceOutput, BufferResult result)
+    {
+        long pagesSize = 0;
+        for (SerializedPage page : result.getSerializedPages()) {
+            pagesSize += SERIALIZED_PAGE_HEADER_SIZE + page.getSizeInBytes();
+        }
+        sliceOutput.writeLong(result.getToken());
+        sliceOutput.writeLong(result.getNextToken());
+        sliceOutput.writeBoolean(result.isBufferComplete());
+        sliceOutput.writeInt(result.size());
+        sliceOutput.writeInt(toIntExact(pagesSize));
+        writeSerializedPages(sliceOutput, result.getSerializedPages());
+    }
+
     public static long writePages(PagesSerde serde, SliceOutput sliceOutput, Page... pages)
     {
         return writePages(serde, sliceOutput, asList(pages).iterator());
@@ -24,6 +24,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -50,6 +51,7 @@ public class PartitionedOutputBuffer
     private final StateMachine<BufferState> state;
     private final OutputBuffers outputBuffers;
     private final OutputBufferMemoryManager memoryManager;
+    private final DirectPageStore pageStore;
 
     private final List<ClientBuffer> partitions;
 
@@ -67,8 +69,21 @@ public class PartitionedOutputBuffer
             DataSize maxBufferSize,
             Supplier<LocalMemoryContext> systemMemoryContextSupplier,
             Executor notificationExecutor)
+    {
+        this(taskInstanceId, state, outputBuffers, maxBufferSize, systemMemoryContextSupplier, notificationExecutor, Optional.empty());
+    }
+
+    public PartitionedOutputBuffer(
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            OutputBuffers outputBuffers,
+            DataSize maxBufferSize,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            Executor notificationExecutor,
+            Optional<DirectPageBufferPool> directPageBufferPool)
     {
         this.state = requireNonNull(state, "state is null");
+        this.pageStore = new DirectPageStore(taskInstanceId, directPageBufferPool);
 
         requireNonNull(outputBuffers, "outputBuffers is null");
         checkArgument(outputBuffers.getType() == PARTITIONED, "Expected a PARTITIONED output buffer descriptor");
@@ -196,18 +211,21 @@ public class PartitionedOutputBuffer
             return;
         }
 
+        // copy the pages to direct memory, if enabled
+        List<SerializedPage> storedPages = pageStore.store(pages);
+
         // reserve memory
-        long bytesAdded = pages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
+        long bytesAdded = storedPages.stream().mapToLong(SerializedPage::getRetainedSizeInBytes).sum();
         memoryManager.updateMemoryUsage(bytesAdded);
 
         // update stats
-        long rowCount = pages.stream().mapToLong(SerializedPage::getPositionCount).sum();
+        long rowCount = storedPages.stream().mapToLong(SerializedPage::getPositionCount).sum();
         totalRowsAdded.addAndGet(rowCount);
-        totalPagesAdded.addAndGet(pages.size());
-        outstandingPageCountPerLifespan.computeIfAbsent(lifespan, ignore -> new AtomicLong()).addAndGet(pages.size());
+        totalPagesAdded.addAndGet(storedPages.size());
+        outstandingPageCountPerLifespan.computeIfAbsent(lifespan, ignore -> new AtomicLong()).addAndGet(storedPages.size());
 
         // create page reference counts with an initial single reference
-        List<SerializedPageReference> serializedPageReferences = pages.stream()
+        List<SerializedPageReference> serializedPageReferences = storedPages.stream()
                 .map(bufferedPage -> new SerializedPageReference(
                         bufferedPage,
                         1,
@@ -248,6 +266,15 @@ public class PartitionedOutputBuffer
         return partitions.get(outputBufferId.getId()).getPages(startingSequenceId, maxSize);
     }
 
+    @Override
+    public ListenableFuture<BufferResult> read(OutputBufferId outputBufferId, long startingSequenceId, DataSize maxSize)
+    {
+        requireNonNull(outputBufferId, "outputBufferId is null");
+        checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
+
+        return partitions.get(outputBufferId.getId()).readPages(startingSequenceId, maxSize, Optional.empty());
+    }
+
     @Override
     public void acknowledge(OutputBufferId outputBufferId, long sequenceId)
     {
@@ -284,6 +311,7 @@ public class PartitionedOutputBuffer
         // ignore destroy if the buffer already in a terminal state.
         if (state.setIf(FINISHED, oldState -> !oldState.isTerminal())) {
             partitions.forEach(ClientBuffer::destroy);
+            pageStore.checkReleased();
             memoryManager.setNoBlockOnFull();
             forceFreeMemory();
         }
@@ -338,5 +366,6 @@ public class PartitionedOutputBuffer
         }
 
         memoryManager.updateMemoryUsage(-pageSplit.getRetainedSizeInBytes());
+        pageStore.release(pageSplit);
     }
 }
@@ -59,12 +59,14 @@ import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
 
 import static com.facebook.presto.execution.executor.MultilevelSplitQueue.computeLevel;
 import static com.facebook.presto.util.MoreMath.min;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.concurrent.Threads.threadsNamed;
@@ -347,6 +349,17 @@ public class TaskExecutor
         return finishedFutures;
     }
 
+    /**
+     * Removes the queued leaf splits of the task that match the predicate. The removed splits
+     * have not started running and never will, and their finished futures never complete.
+     */
+    public List<SplitRunner> removeQueuedSplits(TaskHandle taskHandle, Predicate<SplitRunner> predicate)
+    {
+        return taskHandle.removeQueuedLeafSplits(predicate).stream()
+                .map(PrioritizedSplitRunner::getSplitRunner)
+                .collect(toImmutableList());
+    }
+
     private void splitFinished(PrioritizedSplitRunner split)
     {
         completedSplitsPerLevel.incrementAndGet(split.getPriority().getLevel());
@@ -14,6 +14,7 @@
 package com.facebook.presto.execution.executor;
 
 import com.facebook.presto.execution.SplitConcurrencyController;
+import com.facebook.presto.execution.SplitRunner;
 import com.facebook.presto.execution.TaskId;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.Duration;
@@ -23,12 +24,14 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.OptionalInt;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.DoubleSupplier;
+import java.util.function.Predicate;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkState;
@@ -140,6 +143,20 @@ public class TaskHandle
         queuedLeafSplits.add(split);
     }
 
+    // Returns the queued splits that match the predicate. These splits will not be run, and the caller must dispose of them.
+    public synchronized List<PrioritizedSplitRunner> removeQueuedLeafSplits(Predicate<SplitRunner> predicate)
+    {
+        ImmutableList.Builder<PrioritizedSplitRunner> builder = ImmutableList.builder();
+        for (Iterator<PrioritizedSplitRunner> iterator = queuedLeafSplits.iterator(); iterator.hasNext(); ) {
+            PrioritizedSplitRunner split = iterator.next();
+            if (predicate.test(split.getSplitRunner())) {
+                iterator.remove();
+                builder.add(split);
+            }
+        }
+        return builder.build();
+    }
+
     public synchronized void recordIntermediateSplit(PrioritizedSplitRunner split)
     {
         checkState(!destroyed, "Cannot add split to destroyed task handle");
@@ -0,0 +1,341 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.google.common.annotations.VisibleForTesting;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.facebook.presto.execution.executor.MultilevelSplitQueue.LEVEL_THRESHOLD_SECONDS;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.floorMod;
+
+/**
+ * A split queue with a local queue for each runner thread, so that runner threads do not
+ * contend on a single lock when they take and return splits.
+ * <p>
+ * A split returned by a runner thread after its quanta goes to the local queue of that thread,
+ * and splits offered by other threads are spread over the local queues. Runner threads still
+ * select the level to run from the scheduled time of all levels, like {@link MultilevelSplitQueue}
+ * does, and then take the split with the lowest priority of that level from their own queue.
+ * When their queue has no split of that level, they steal one from another queue. The priority
+ * order within a level is therefore only kept within each local queue.
+ */
+@ThreadSafe
+public class WorkStealingSplitQueue
+        extends MultilevelSplitQueue
+{
+    // the first queue holds splits offered before any runner thread takes splits
+    private final List<LocalQueue> localQueues = new CopyOnWriteArrayList<>(new LocalQueue[] {new LocalQueue()});
+    private final ThreadLocal<LocalQueue> runnerQueue = new ThreadLocal<>();
+    private final AtomicInteger nextQueue = new AtomicInteger();
+
+    private final AtomicInteger[] levelWaitingSplits = new AtomicInteger[LEVEL_THRESHOLD_SECONDS.length];
+    private final AtomicInteger waitingSplits = new AtomicInteger();
+
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final Condition notEmpty = idleLock.newCondition();
+    private final AtomicInteger idleRunners = new AtomicInteger();
+
+    private final AtomicLong localSplits = new AtomicLong();
+    private final AtomicLong stolenSplits = new AtomicLong();
+
+    public WorkStealingSplitQueue(double levelTimeMultiplier)
+    {
+        super(levelTimeMultiplier);
+        for (int level = 0; level < levelWaitingSplits.length; level++) {
+            levelWaitingSplits[level] = new AtomicInteger();
+        }
+    }
+
+    @Override
+    public void offer(PrioritizedSplitRunner split)
+    {
+        checkArgument(split != null, "split is null");
+
+        split.setReady();
+        int level = split.getPriority().getLevel();
+        LocalQueue queue = runnerQueue.get();
+        if (queue == null) {
+            queue = localQueues.get(floorMod(nextQueue.getAndIncrement(), localQueues.size()));
+        }
+        queue.offer(level, split);
+
+        // the split is counted after it is added, so a runner which claims it will find it
+        if (levelWaitingSplits[level].getAndIncrement() <= 0) {
+            updateEmptyLevelTime(level);
+        }
+        waitingSplits.incrementAndGet();
+        if (idleRunners.get() > 0) {
+            idleLock.lock();
+            try {
+                notEmpty.signal();
+            }
+            finally {
+                idleLock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public PrioritizedSplitRunner take()
+            throws InterruptedException
+    {
+        LocalQueue queue = getRunnerQueue();
+        while (true) {
+            PrioritizedSplitRunner result = pollSplit(queue);
+            if (result == null) {
+                awaitSplits();
+                continue;
+            }
+
+            if (result.updateLevelPriority()) {
+                offer(result);
+                continue;
+            }
+
+            splitSelected(result);
+            return result;
+        }
+    }
+
+    private LocalQueue getRunnerQueue()
+    {
+        LocalQueue queue = runnerQueue.get();
+        if (queue == null) {
+            queue = new LocalQueue();
+            localQueues.add(queue);
+            runnerQueue.set(queue);
+        }
+        return queue;
+    }
+
+    /**
+     * The waiting splits of each level are claimed before they are taken from the queues, so
+     * that a split offered concurrently sees the level as empty, like it would if the split
+     * had been taken from a shared queue.
+     */
+    private PrioritizedSplitRunner pollSplit(LocalQueue queue)
+    {
+        int level = selectLevel(candidate -> levelWaitingSplits[candidate].get() > 0);
+        if (level == -1 || !claimSplit(level)) {
+            return null;
+        }
+
+        PrioritizedSplitRunner split = pollLocalSplit(queue, level);
+        if (split == null) {
+            split = steal(queue, level);
+            if (split == null) {
+                // the claimed split was taken by another runner or removed, so release the claim
+                levelWaitingSplits[level].incrementAndGet();
+                return null;
+            }
+            stolenSplits.incrementAndGet();
+        }
+        waitingSplits.decrementAndGet();
+        return split;
+    }
+
+    /**
+     * Takes the split with the lowest priority from the queue of the runner, unless the queue of
+     * another random runner has a split with a lower priority. This keeps splits in the queues of
+     * busy runners from waiting behind the splits of a runner which always has work in the level.
+     */
+    private PrioritizedSplitRunner pollLocalSplit(LocalQueue queue, int level)
+    {
+        List<LocalQueue> queues = localQueues;
+        if (queues.size() > 1) {
+            LocalQueue other = queues.get(ThreadLocalRandom.current().nextInt(queues.size()));
+            if (other != queue) {
+                PrioritizedSplitRunner otherSplit = other.peek(level);
+                PrioritizedSplitRunner localSplit = queue.peek(level);
+                if (otherSplit != null && (localSplit == null || otherSplit.compareTo(localSplit) < 0)) {
+                    PrioritizedSplitRunner split = other.poll(level);
+                    if (split != null) {
+                        stolenSplits.incrementAndGet();
+                        return split;
+                    }
+                }
+            }
+        }
+
+        PrioritizedSplitRunner split = queue.poll(level);
+        if (split != null) {
+            localSplits.incrementAndGet();
+        }
+        return split;
+    }
+
+    private boolean claimSplit(int level)
+    {
+        while (true) {
+            int splits = levelWaitingSplits[level].get();
+            if (splits <= 0) {
+                return false;
+            }
+            if (levelWaitingSplits[level].compareAndSet(splits, splits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    private PrioritizedSplitRunner steal(LocalQueue thief, int level)
+    {
+        List<LocalQueue> queues = localQueues;
+        int start = ThreadLocalRandom.current().nextInt(queues.size());
+        for (int i = 0; i < queues.size(); i++) {
+            LocalQueue victim = queues.get((start + i) % queues.size());
+            if (victim != thief) {
+                PrioritizedSplitRunner split = victim.poll(level);
+                if (split != null) {
+                    return split;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void awaitSplits()
+            throws InterruptedException
+    {
+        idleLock.lockInterruptibly();
+        idleRunners.incrementAndGet();
+        try {
+            // offer signals after it increments the waiting splits, if any runner is idle
+            while (waitingSplits.get() == 0) {
+                notEmpty.await();
+            }
+        }
+        finally {
+            idleRunners.decrementAndGet();
+            idleLock.unlock();
+        }
+    }
+
+    @Override
+    public void remove(PrioritizedSplitRunner split)
+    {
+        checkArgument(split != null, "split is null");
+        for (LocalQueue queue : localQueues) {
+            int level = queue.remove(split);
+            if (level != -1) {
+                levelWaitingSplits[level].decrementAndGet();
+                waitingSplits.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void removeAll(Collection<PrioritizedSplitRunner> splits)
+    {
+        for (PrioritizedSplitRunner split : splits) {
+            remove(split);
+        }
+    }
+
+    @Override
+    public int size()
+    {
+        return waitingSplits.get();
+    }
+
+    @VisibleForTesting
+    int getRunnerQueueSize()
+    {
+        return getRunnerQueue().size();
+    }
+
+    @Managed
+    public int getLocalQueues()
+    {
+        return localQueues.size();
+    }
+
+    @Managed
+    public long getLocalSplits()
+    {
+        return localSplits.get();
+    }
+
+    @Managed
+    public long getStolenSplits()
+    {
+        return stolenSplits.get();
+    }
+
+    @ThreadSafe
+    private static class LocalQueue
+    {
+        @GuardedBy("this")
+        private final List<PriorityQueue<PrioritizedSplitRunner>> levelWaitingSplits = new ArrayList<>(LEVEL_THRESHOLD_SECONDS.length);
+
+        public LocalQueue()
+        {
+            for (int level = 0; level < LEVEL_THRESHOLD_SECONDS.length; level++) {
+                levelWaitingSplits.add(new PriorityQueue<>());
+            }
+        }
+
+        public synchronized void offer(int level, PrioritizedSplitRunner split)
+        {
+            levelWaitingSplits.get(level).offer(split);
+        }
+
+        public synchronized PrioritizedSplitRunner poll(int level)
+        {
+            return levelWaitingSplits.get(level).poll();
+        }
+
+        public synchronized PrioritizedSplitRunner peek(int level)
+        {
+            return levelWaitingSplits.get(level).peek();
+        }
+
+        /**
+         * @return the level the split was removed from, or -1 if the queue does not contain the split
+         */
+        public synchronized int remove(PrioritizedSplitRunner split)
+        {
+            for (int level = 0; level < levelWaitingSplits.size(); level++) {
+                if (levelWaitingSplits.get(level).remove(split)) {
+                    return level;
+                }
+            }
+            return -1;
+        }
+
+        public synchronized int size()
+        {
+            int total = 0;
+            for (PriorityQueue<PrioritizedSplitRunner> level : levelWaitingSplits) {
+                total += level.size();
+            }
+            return total;
+        }
+    }
+}
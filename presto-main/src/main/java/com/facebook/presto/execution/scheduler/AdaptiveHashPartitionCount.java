@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsAndCosts;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import io.airlift.units.DataSize;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.getHashPartitionTargetInputSize;
+import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPLICATE;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.lang.Double.NaN;
+import static java.lang.Math.ceil;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Chooses the number of partitions of a hash partitioned stage from the estimated size of the
+ * data it reads from its source stages, so that small stages do not run as many tasks as the
+ * configured hash partition count.
+ */
+public final class AdaptiveHashPartitionCount
+{
+    private AdaptiveHashPartitionCount() {}
+
+    public static int getPartitionCount(Session session, PlanFragment fragment, List<PlanFragment> sourceFragments, int maxPartitionCount)
+    {
+        return getPartitionCount(estimateInputSizeInBytes(fragment, sourceFragments), getHashPartitionTargetInputSize(session), maxPartitionCount);
+    }
+
+    public static int getPartitionCount(double inputSizeInBytes, DataSize targetInputSize, int maxPartitionCount)
+    {
+        checkArgument(maxPartitionCount > 0, "maxPartitionCount must be positive");
+        if (Double.isNaN(inputSizeInBytes)) {
+            return maxPartitionCount;
+        }
+        double partitionCount = ceil(inputSizeInBytes / max(targetInputSize.toBytes(), 1));
+        return (int) max(1, min(partitionCount, maxPartitionCount));
+    }
+
+    /**
+     * Returns the estimated size of the data the fragment reads from the given source fragments,
+     * or NaN if it is unknown. Replicated sources are not counted, since every partition reads
+     * all of their data regardless of the number of partitions.
+     */
+    public static double estimateInputSizeInBytes(PlanFragment fragment, List<PlanFragment> sourceFragments)
+    {
+        Set<PlanFragmentId> replicatedSources = fragment.getRemoteSourceNodes().stream()
+                .filter(node -> node.getExchangeType() == REPLICATE)
+                .flatMap(node -> node.getSourceFragmentIds().stream())
+                .collect(toImmutableSet());
+
+        double inputSizeInBytes = 0;
+        for (PlanFragment sourceFragment : sourceFragments) {
+            if (replicatedSources.contains(sourceFragment.getId())) {
+                continue;
+            }
+            inputSizeInBytes += estimateOutputSizeInBytes(sourceFragment.getRoot(), sourceFragment.getPartitioningScheme().getOutputLayout(), sourceFragment.getStatsAndCosts());
+        }
+        return inputSizeInBytes;
+    }
+
+    private static double estimateOutputSizeInBytes(PlanNode node, List<VariableReferenceExpression> outputVariables, StatsAndCosts statsAndCosts)
+    {
+        PlanNodeStatsEstimate stats = statsAndCosts.getStats().get(node.getId());
+        if (stats != null && !stats.isOutputRowCountUnknown()) {
+            return stats.getOutputSizeInBytes(outputVariables);
+        }
+        if (node.getSources().isEmpty()) {
+            return NaN;
+        }
+
+        // nodes without an estimate, like partial aggregations, are bounded by the size of their input
+        double outputSizeInBytes = 0;
+        for (PlanNode source : node.getSources()) {
+            outputSizeInBytes += estimateOutputSizeInBytes(source, source.getOutputVariables(), statsAndCosts);
+        }
+        return outputSizeInBytes;
+    }
+}
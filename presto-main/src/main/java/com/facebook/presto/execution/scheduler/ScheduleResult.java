@@ -29,6 +29,7 @@ public class ScheduleResult
     public enum BlockedReason
     {
         WRITER_SCALING,
+        SPLIT_REASSIGNMENT,
         NO_ACTIVE_DRIVER_GROUP,
         SPLIT_QUEUES_FULL,
         WAITING_FOR_SOURCE,
@@ -39,6 +40,7 @@ public class ScheduleResult
         {
             switch (this) {
                 case WRITER_SCALING:
+                case SPLIT_REASSIGNMENT:
                     throw new IllegalArgumentException("cannot be combined");
                 case NO_ACTIVE_DRIVER_GROUP:
                     return other;
@@ -18,6 +18,7 @@ import com.facebook.presto.execution.RemoteTask;
 import com.facebook.presto.metadata.InternalNode;
 import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
@@ -40,6 +41,8 @@ import static com.facebook.presto.execution.scheduler.NodeScheduler.selectExactN
 import static com.facebook.presto.execution.scheduler.NodeScheduler.selectNodes;
 import static com.facebook.presto.execution.scheduler.NodeScheduler.toWhenHasSplitQueueSpaceFuture;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 
 public class SimpleNodeSelector
@@ -106,6 +109,11 @@ public class SimpleNodeSelector
         NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
 
         ResettableRandomizedIterator<InternalNode> randomCandidates = randomizedNodes(nodeMap, includeCoordinator, ImmutableSet.of());
+        List<HostAddress> candidateHosts = nodeMap.getNodesByHostAndPort().values().stream()
+                .filter(node -> includeCoordinator || !nodeMap.getCoordinatorNodeIds().contains(node.getNodeIdentifier()))
+                .map(InternalNode::getHostAndPort)
+                .sorted(comparing(HostAddress::toString))
+                .collect(toImmutableList());
         Set<InternalNode> blockedExactNodes = new HashSet<>();
         boolean splitWaitingForAnyNode = false;
         for (Split split : splits) {
@@ -116,7 +124,10 @@ public class SimpleNodeSelector
                 candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
             }
             else {
-                candidateNodes = selectNodes(minCandidates, randomCandidates);
+                candidateNodes = selectPreferredNodes(nodeMap, split.getPreferredNodes(candidateHosts), assignmentStats);
+                if (candidateNodes.isEmpty()) {
+                    candidateNodes = selectNodes(minCandidates, randomCandidates);
+                }
             }
             if (candidateNodes.isEmpty()) {
                 log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
@@ -168,6 +179,20 @@ public class SimpleNodeSelector
         return new SplitPlacementResult(blocked, assignment);
     }
 
+    private List<InternalNode> selectPreferredNodes(NodeMap nodeMap, List<HostAddress> preferredHosts, NodeAssignmentStats assignmentStats)
+    {
+        if (preferredHosts.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        // the preference is soft, so fall back to any node when none of the preferred nodes has room for the split
+        List<InternalNode> preferredNodes = selectExactNodes(nodeMap, preferredHosts, includeCoordinator);
+        if (preferredNodes.stream().noneMatch(node -> assignmentStats.getTotalSplitCount(node) < maxSplitsPerNode)) {
+            return ImmutableList.of();
+        }
+        return preferredNodes;
+    }
+
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, BucketNodeMap bucketNodeMap)
     {
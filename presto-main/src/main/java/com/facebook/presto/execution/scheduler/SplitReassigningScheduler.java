@@ -0,0 +1,207 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.scheduler;
+
+import com.facebook.presto.execution.RemoteTask;
+import com.facebook.presto.execution.SqlStageExecution;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.metadata.InternalNode;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Multimap;
+import com.google.common.collect.Ordering;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReason.SPLIT_REASSIGNMENT;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Comparator.comparingInt;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Keeps scheduling a source stage after all its splits are assigned, and moves the queued
+ * splits of tasks that fall far behind the other tasks of the stage to the tasks that are
+ * ahead. A task falls behind when it has many more splits queued than the median task of
+ * the stage. Only splits that have not started running are moved, so no split runs twice.
+ * <p>
+ * Scheduling finishes, and the tasks are told that there are no more splits, once no task
+ * has queued splits left.
+ */
+public class SplitReassigningScheduler
+        implements StageScheduler
+{
+    private static final int STRAGGLER_QUEUED_SPLITS_RATIO = 2;
+    private static final int MIN_STRAGGLER_QUEUED_SPLITS = 2;
+    private static final long REASSIGNMENT_INTERVAL_MILLIS = 500;
+
+    private final SqlStageExecution stage;
+    private final PlanNodeId partitionedNode;
+    private final StageScheduler sourceScheduler;
+    private final ScheduledExecutorService executor;
+
+    private final Map<RemoteTask, ListenableFuture<List<Split>>> revocations = new LinkedHashMap<>();
+    // tasks that received splits of a straggler are not considered stragglers, so splits do not move back and forth
+    private final Set<TaskId> reassignmentTargets = new HashSet<>();
+    private boolean sourceSchedulerFinished;
+
+    public SplitReassigningScheduler(SqlStageExecution stage, PlanNodeId partitionedNode, StageScheduler sourceScheduler, ScheduledExecutorService executor)
+    {
+        this.stage = requireNonNull(stage, "stage is null");
+        this.partitionedNode = requireNonNull(partitionedNode, "partitionedNode is null");
+        this.sourceScheduler = requireNonNull(sourceScheduler, "sourceScheduler is null");
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    @Override
+    public ScheduleResult schedule()
+    {
+        Set<RemoteTask> newTasks = ImmutableSet.of();
+        int splitsScheduled = 0;
+        if (!sourceSchedulerFinished) {
+            ScheduleResult result = sourceScheduler.schedule();
+            if (!result.isFinished()) {
+                return result;
+            }
+            sourceSchedulerFinished = true;
+            newTasks = result.getNewTasks();
+            splitsScheduled = result.getSplitsScheduled();
+        }
+
+        if (stage.getState().isDone()) {
+            return ScheduleResult.nonBlocked(true, newTasks, splitsScheduled);
+        }
+
+        List<RemoteTask> tasks = stage.getAllTasks().stream()
+                .filter(task -> !task.getTaskStatus().getState().isDone())
+                .collect(toImmutableList());
+        splitsScheduled += reassignRevokedSplits(tasks);
+
+        if (revocations.isEmpty() && tasks.stream().allMatch(task -> task.getQueuedPartitionedSplitCount() == 0)) {
+            return ScheduleResult.nonBlocked(true, newTasks, splitsScheduled);
+        }
+
+        revokeStragglerSplits(tasks);
+
+        // check the tasks again after an interval, or as soon as revoked splits arrive
+        // the query scheduler cancels the returned future, so it must not be the future of a revocation
+        SettableFuture<?> future = SettableFuture.create();
+        executor.schedule(() -> future.set(null), REASSIGNMENT_INTERVAL_MILLIS, MILLISECONDS);
+        revocations.values().forEach(revocation -> revocation.addListener(() -> future.set(null), directExecutor()));
+        return ScheduleResult.blocked(false, newTasks, future, SPLIT_REASSIGNMENT, splitsScheduled);
+    }
+
+    private void revokeStragglerSplits(List<RemoteTask> tasks)
+    {
+        if (tasks.size() < 2) {
+            return;
+        }
+        Map<RemoteTask, Integer> queuedSplits = tasks.stream()
+                .collect(toImmutableMap(Function.identity(), RemoteTask::getQueuedPartitionedSplitCount));
+        List<Integer> sortedQueuedSplits = Ordering.natural().sortedCopy(queuedSplits.values());
+        int medianQueuedSplits = sortedQueuedSplits.get((sortedQueuedSplits.size() - 1) / 2);
+
+        for (Entry<RemoteTask, Integer> entry : queuedSplits.entrySet()) {
+            RemoteTask task = entry.getKey();
+            int queued = entry.getValue();
+            if (revocations.containsKey(task) || reassignmentTargets.contains(task.getTaskId())) {
+                continue;
+            }
+            if (queued >= MIN_STRAGGLER_QUEUED_SPLITS && queued > STRAGGLER_QUEUED_SPLITS_RATIO * medianQueuedSplits) {
+                // leave the task as many splits as the median task has queued
+                revocations.put(task, task.revokeQueuedSplits(partitionedNode, queued - medianQueuedSplits));
+            }
+        }
+    }
+
+    private int reassignRevokedSplits(List<RemoteTask> tasks)
+    {
+        int splitsScheduled = 0;
+        for (Iterator<Entry<RemoteTask, ListenableFuture<List<Split>>>> iterator = revocations.entrySet().iterator(); iterator.hasNext(); ) {
+            Entry<RemoteTask, ListenableFuture<List<Split>>> entry = iterator.next();
+            if (!entry.getValue().isDone()) {
+                continue;
+            }
+            iterator.remove();
+
+            // a failed revocation fails the query, since the splits may or may not have been revoked
+            List<Split> splits = getFutureValue(entry.getValue());
+            if (!splits.isEmpty()) {
+                assignSplits(entry.getKey(), splits, tasks);
+                splitsScheduled += splits.size();
+            }
+        }
+        return splitsScheduled;
+    }
+
+    private void assignSplits(RemoteTask straggler, List<Split> splits, List<RemoteTask> tasks)
+    {
+        List<RemoteTask> targets = tasks.stream()
+                .filter(task -> !task.equals(straggler))
+                .filter(task -> !revocations.containsKey(task))
+                .collect(toImmutableList());
+        if (targets.isEmpty()) {
+            targets = tasks;
+        }
+        // the splits cannot be dropped, so this fails the query if every task of the stage is done
+        checkState(!targets.isEmpty(), "No task to assign the splits revoked from task %s to", straggler.getTaskId());
+
+        // give each split to the target with the fewest queued splits
+        Map<RemoteTask, Integer> queuedSplits = new HashMap<>();
+        targets.forEach(task -> queuedSplits.put(task, task.getQueuedPartitionedSplitCount()));
+        Map<RemoteTask, List<Split>> assignments = new LinkedHashMap<>();
+        for (Split split : splits) {
+            RemoteTask target = targets.stream()
+                    .min(comparingInt(queuedSplits::get))
+                    .get();
+            queuedSplits.merge(target, 1, Integer::sum);
+            assignments.computeIfAbsent(target, task -> new ArrayList<>()).add(split);
+        }
+
+        Map<String, InternalNode> nodes = stage.getScheduledNodes().stream()
+                .collect(toImmutableMap(InternalNode::getNodeIdentifier, Function.identity()));
+        for (Entry<RemoteTask, List<Split>> assignment : assignments.entrySet()) {
+            RemoteTask target = assignment.getKey();
+            reassignmentTargets.add(target.getTaskId());
+            Multimap<PlanNodeId, Split> targetSplits = ImmutableMultimap.<PlanNodeId, Split>builder()
+                    .putAll(partitionedNode, assignment.getValue())
+                    .build();
+            stage.scheduleSplits(nodes.get(target.getNodeId()), targetSplits, ImmutableMultimap.of());
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        sourceScheduler.close();
+    }
+}
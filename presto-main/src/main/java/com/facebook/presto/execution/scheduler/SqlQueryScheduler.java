@@ -75,6 +75,8 @@ import static com.facebook.presto.SystemSessionProperties.getConcurrentLifespans
 import static com.facebook.presto.SystemSessionProperties.getMaxConcurrentMaterializations;
 import static com.facebook.presto.SystemSessionProperties.getMaxTasksPerStage;
 import static com.facebook.presto.SystemSessionProperties.getWriterMinSize;
+import static com.facebook.presto.SystemSessionProperties.isAdaptiveHashPartitionCount;
+import static com.facebook.presto.SystemSessionProperties.isReassignStragglerSplits;
 import static com.facebook.presto.execution.BasicStageStats.aggregateBasicStageStats;
 import static com.facebook.presto.execution.SqlStageExecution.createSqlStageExecution;
 import static com.facebook.presto.execution.StageState.ABORTED;
@@ -91,6 +93,7 @@ import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.plan.ExchangeNode.Type.REPLICATE;
@@ -426,7 +429,11 @@ public class SqlQueryScheduler
             SplitPlacementPolicy placementPolicy = new DynamicSplitPlacementPolicy(nodeSelector, stage::getAllTasks);
 
             checkArgument(!plan.getFragment().getStageExecutionDescriptor().isStageGroupedExecution());
-            stageSchedulers.put(stageId, newSourcePartitionedSchedulerAsStageScheduler(stage, planNodeId, splitSource, placementPolicy, splitBatchSize));
+            StageScheduler stageScheduler = newSourcePartitionedSchedulerAsStageScheduler(stage, planNodeId, splitSource, placementPolicy, splitBatchSize);
+            if (isReassignStragglerSplits(session)) {
+                stageScheduler = new SplitReassigningScheduler(stage, planNodeId, stageScheduler, schedulerExecutor);
+            }
+            stageSchedulers.put(stageId, stageScheduler);
             bucketToPartition = Optional.of(new int[1]);
         }
         else if (partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION)) {
@@ -509,6 +516,9 @@ public class SqlQueryScheduler
             else {
                 // all sources are remote
                 NodePartitionMap nodePartitionMap = partitioningCache.apply(plan.getFragment().getPartitioning());
+                if (partitioningHandle.equals(FIXED_HASH_DISTRIBUTION) && isAdaptiveHashPartitionCount(session)) {
+                    nodePartitionMap = getAdaptiveNodePartitionMap(session, stageId, plan, nodePartitionMap);
+                }
                 List<InternalNode> partitionToNode = nodePartitionMap.getPartitionToNode();
                 // todo this should asynchronously wait a standard timeout period before failing
                 checkCondition(!partitionToNode.isEmpty(), NO_NODES_AVAILABLE, "No worker nodes available");
@@ -577,6 +587,32 @@ public class SqlQueryScheduler
         return stages.build();
     }
 
+    private static NodePartitionMap getAdaptiveNodePartitionMap(Session session, StageId stageId, StreamingSubPlan plan, NodePartitionMap nodePartitionMap)
+    {
+        // the partition count is bound to the output partitioning of the source stages when
+        // they are created, so it is chosen from the estimated size of their output
+        List<InternalNode> nodes = nodePartitionMap.getPartitionToNode();
+        if (nodes.isEmpty()) {
+            return nodePartitionMap;
+        }
+        List<PlanFragment> sourceFragments = plan.getChildren().stream()
+                .map(StreamingSubPlan::getFragment)
+                .collect(toImmutableList());
+        int partitionCount = AdaptiveHashPartitionCount.getPartitionCount(session, plan.getFragment(), sourceFragments, nodes.size());
+        if (partitionCount == nodes.size()) {
+            return nodePartitionMap;
+        }
+
+        // the stages of a section share the selected nodes, so start each stage at a different node
+        ImmutableList.Builder<InternalNode> partitionToNode = ImmutableList.builder();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitionToNode.add(nodes.get((stageId.getId() + partition) % nodes.size()));
+        }
+        return new NodePartitionMap(partitionToNode.build(), split -> {
+            throw new UnsupportedOperationException("System distribution does not support source splits");
+        });
+    }
+
     public BasicStageStats getBasicStageStats()
     {
         List<BasicStageStats> stageStats = stages.values().stream()
@@ -732,6 +768,7 @@ public class SqlQueryScheduler
                     if (result.getBlockedReason().isPresent()) {
                         switch (result.getBlockedReason().get()) {
                             case WRITER_SCALING:
+                            case SPLIT_REASSIGNMENT:
                                 // no-op
                                 break;
                             case WAITING_FOR_SOURCE:
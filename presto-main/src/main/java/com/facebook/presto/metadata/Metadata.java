@@ -17,11 +17,14 @@ import com.facebook.presto.Session;
 import com.facebook.presto.spi.CatalogSchemaName;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.ConnectorJoinCondition;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.api.Experimental;
@@ -111,6 +114,36 @@ public interface Metadata
      */
     PushdownFilterResult pushdownFilter(Session session, TableHandle tableHandle, RowExpression filter);
 
+    /**
+     * Experimental: returns a table handle that computes the given aggregation over the layout of {@code tableHandle},
+     * or empty if the connector cannot compute it.
+     */
+    Optional<PushdownAggregationResult> pushdownAggregation(Session session, TableHandle tableHandle, List<ColumnHandle> groupingColumns, List<ConnectorAggregateFunction> aggregates);
+
+    /**
+     * Experimental: returns a table handle that produces at most {@code limit} rows of the layout of {@code tableHandle},
+     * or empty if the connector cannot limit the rows.
+     */
+    Optional<PushdownLimitResult> pushdownLimit(Session session, TableHandle tableHandle, long limit);
+
+    /**
+     * Experimental: returns a table handle whose rows include the first {@code count} rows of the layout of {@code tableHandle}
+     * in {@code sortOrder}, or empty if the connector cannot select them.
+     */
+    Optional<PushdownLimitResult> pushdownTopN(Session session, TableHandle tableHandle, long count, List<SortingProperty<ColumnHandle>> sortOrder);
+
+    /**
+     * Experimental: returns a table handle that computes the inner join of the layouts of two tables of the same connector
+     * on the given conditions, or empty if the connector cannot join them.
+     */
+    Optional<PushdownJoinResult> pushdownJoin(
+            Session session,
+            TableHandle leftTableHandle,
+            TableHandle rightTableHandle,
+            List<ConnectorJoinCondition> conditions,
+            List<ColumnHandle> leftColumns,
+            List<ColumnHandle> rightColumns);
+
     /**
      * Return a partitioning handle which the connector can transparently convert both {@code left} and {@code right} into.
      */
@@ -135,6 +168,12 @@ public interface Metadata
 
     Optional<Object> getInfo(Session session, TableHandle handle);
 
+    /**
+     * Returns the version of the data read through the layout of the table handle, or empty if
+     * the connector does not know when the data changes.
+     */
+    Optional<String> getDataVersion(Session session, TableHandle handle);
+
     /**
      * Return the metadata for the specified table handle.
      *
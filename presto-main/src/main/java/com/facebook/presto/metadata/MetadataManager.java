@@ -18,10 +18,15 @@ import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.spi.CatalogSchemaName;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
+import com.facebook.presto.spi.ConnectorJoinCondition;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPushdownAggregationResult;
 import com.facebook.presto.spi.ConnectorPushdownFilterResult;
+import com.facebook.presto.spi.ConnectorPushdownJoinResult;
+import com.facebook.presto.spi.ConnectorPushdownLimitResult;
 import com.facebook.presto.spi.ConnectorResolvedIndex;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
@@ -34,6 +39,7 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -111,6 +117,7 @@ import static com.facebook.presto.spi.relation.LogicalRowExpressions.FALSE_CONST
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
 import static com.facebook.presto.transaction.InMemoryTransactionManager.createTestTransactionManager;
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
@@ -443,6 +450,105 @@ public class MetadataManager
         return new PushdownFilterResult(fromConnectorLayout(connectorId, tableHandle.getConnectorHandle(), tableHandle.getTransaction(), connectorResult.getLayout()), connectorResult.getUnenforcedConstraint());
     }
 
+    @Override
+    public Optional<PushdownAggregationResult> pushdownAggregation(Session session, TableHandle tableHandle, List<ColumnHandle> groupingColumns, List<ConnectorAggregateFunction> aggregates)
+    {
+        checkArgument(tableHandle.getLayout().isPresent(), "Cannot pushdown aggregation into table without layout");
+
+        ConnectorId connectorId = tableHandle.getConnectorId();
+
+        CatalogMetadata catalogMetadata = getCatalogMetadata(session, connectorId);
+        ConnectorMetadata metadata = catalogMetadata.getMetadataFor(connectorId);
+        ConnectorSession connectorSession = session.toConnectorSession(connectorId);
+        Optional<ConnectorPushdownAggregationResult> connectorResult = metadata.pushdownAggregation(
+                connectorSession,
+                tableHandle.getConnectorHandle(),
+                tableHandle.getLayout().get(),
+                groupingColumns,
+                aggregates);
+
+        return connectorResult.map(result -> {
+            checkState(result.getGroupingColumns().size() == groupingColumns.size(), "Connector returned %s grouping columns for %s grouping keys", result.getGroupingColumns().size(), groupingColumns.size());
+            checkState(result.getAggregateColumns().size() == aggregates.size(), "Connector returned %s aggregate columns for %s aggregates", result.getAggregateColumns().size(), aggregates.size());
+            return new PushdownAggregationResult(
+                    new TableHandle(connectorId, result.getTableHandle(), tableHandle.getTransaction(), Optional.empty()),
+                    result.getGroupingColumns(),
+                    result.getAggregateColumns());
+        });
+    }
+
+    @Override
+    public Optional<PushdownLimitResult> pushdownLimit(Session session, TableHandle tableHandle, long limit)
+    {
+        checkArgument(tableHandle.getLayout().isPresent(), "Cannot pushdown limit into table without layout");
+
+        ConnectorId connectorId = tableHandle.getConnectorId();
+
+        CatalogMetadata catalogMetadata = getCatalogMetadata(session, connectorId);
+        ConnectorMetadata metadata = catalogMetadata.getMetadataFor(connectorId);
+        ConnectorSession connectorSession = session.toConnectorSession(connectorId);
+        return metadata.pushdownLimit(connectorSession, tableHandle.getConnectorHandle(), tableHandle.getLayout().get(), limit)
+                .map(result -> toPushdownLimitResult(tableHandle, result));
+    }
+
+    @Override
+    public Optional<PushdownLimitResult> pushdownTopN(Session session, TableHandle tableHandle, long count, List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        checkArgument(tableHandle.getLayout().isPresent(), "Cannot pushdown TopN into table without layout");
+
+        ConnectorId connectorId = tableHandle.getConnectorId();
+
+        CatalogMetadata catalogMetadata = getCatalogMetadata(session, connectorId);
+        ConnectorMetadata metadata = catalogMetadata.getMetadataFor(connectorId);
+        ConnectorSession connectorSession = session.toConnectorSession(connectorId);
+        return metadata.pushdownTopN(connectorSession, tableHandle.getConnectorHandle(), tableHandle.getLayout().get(), count, sortOrder)
+                .map(result -> toPushdownLimitResult(tableHandle, result));
+    }
+
+    @Override
+    public Optional<PushdownJoinResult> pushdownJoin(
+            Session session,
+            TableHandle leftTableHandle,
+            TableHandle rightTableHandle,
+            List<ConnectorJoinCondition> conditions,
+            List<ColumnHandle> leftColumns,
+            List<ColumnHandle> rightColumns)
+    {
+        checkArgument(leftTableHandle.getLayout().isPresent() && rightTableHandle.getLayout().isPresent(), "Cannot pushdown join of tables without layout");
+        checkArgument(leftTableHandle.getConnectorId().equals(rightTableHandle.getConnectorId()), "Cannot pushdown join of tables of different connectors");
+
+        ConnectorId connectorId = leftTableHandle.getConnectorId();
+
+        CatalogMetadata catalogMetadata = getCatalogMetadata(session, connectorId);
+        ConnectorMetadata metadata = catalogMetadata.getMetadataFor(connectorId);
+        ConnectorSession connectorSession = session.toConnectorSession(connectorId);
+        Optional<ConnectorPushdownJoinResult> connectorResult = metadata.pushdownJoin(
+                connectorSession,
+                leftTableHandle.getConnectorHandle(),
+                leftTableHandle.getLayout().get(),
+                rightTableHandle.getConnectorHandle(),
+                rightTableHandle.getLayout().get(),
+                conditions,
+                leftColumns,
+                rightColumns);
+
+        return connectorResult.map(result -> {
+            checkState(result.getLeftColumns().size() == leftColumns.size(), "Connector returned %s left columns for %s requested columns", result.getLeftColumns().size(), leftColumns.size());
+            checkState(result.getRightColumns().size() == rightColumns.size(), "Connector returned %s right columns for %s requested columns", result.getRightColumns().size(), rightColumns.size());
+            return new PushdownJoinResult(
+                    new TableHandle(connectorId, result.getTableHandle(), leftTableHandle.getTransaction(), Optional.empty()),
+                    result.getLeftColumns(),
+                    result.getRightColumns());
+        });
+    }
+
+    private static PushdownLimitResult toPushdownLimitResult(TableHandle tableHandle, ConnectorPushdownLimitResult result)
+    {
+        return new PushdownLimitResult(
+                new TableHandle(tableHandle.getConnectorId(), result.getTableHandle(), tableHandle.getTransaction(), Optional.empty()),
+                result.isLimitGuaranteed());
+    }
+
     @Override
     public Optional<PartitioningHandle> getCommonPartitioning(Session session, PartitioningHandle left, PartitioningHandle right)
     {
@@ -499,6 +605,14 @@ public class MetadataManager
         return handle.getLayout().flatMap(tableLayout -> metadata.getInfo(tableLayout));
     }
 
+    @Override
+    public Optional<String> getDataVersion(Session session, TableHandle handle)
+    {
+        ConnectorId connectorId = handle.getConnectorId();
+        ConnectorMetadata metadata = getMetadata(session, connectorId);
+        return handle.getLayout().flatMap(tableLayout -> metadata.getDataVersion(session.toConnectorSession(connectorId), tableLayout));
+    }
+
     @Override
     public TableMetadata getTableMetadata(Session session, TableHandle tableHandle)
     {
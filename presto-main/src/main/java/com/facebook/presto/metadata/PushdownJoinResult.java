@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.metadata;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.TableHandle;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+public class PushdownJoinResult
+{
+    private final TableHandle tableHandle;
+    private final List<ColumnHandle> leftColumns;
+    private final List<ColumnHandle> rightColumns;
+
+    public PushdownJoinResult(TableHandle tableHandle, List<ColumnHandle> leftColumns, List<ColumnHandle> rightColumns)
+    {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.leftColumns = ImmutableList.copyOf(requireNonNull(leftColumns, "leftColumns is null"));
+        this.rightColumns = ImmutableList.copyOf(requireNonNull(rightColumns, "rightColumns is null"));
+    }
+
+    public TableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public List<ColumnHandle> getLeftColumns()
+    {
+        return leftColumns;
+    }
+
+    public List<ColumnHandle> getRightColumns()
+    {
+        return rightColumns;
+    }
+}
@@ -0,0 +1,685 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.array.LongBigArray;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.gen.JoinCompiler;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.gen.JoinCompiler.PagesHashStrategyFactory;
+import static com.facebook.presto.util.HashCollisionsEstimator.estimateNumberOfHashCollisions;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@link GroupByHash} which processes the input in batches of rows instead of one row at a time.
+ * For each batch, the hash codes of all rows are calculated one column at a time, the rows probe the
+ * table with linear probing over flat arrays of full hash codes, and the rows whose hash code matches
+ * a group are compared with it one column at a time. The per column loops are generated for each
+ * combination of key types by {@link JoinCompiler}.
+ * <p>
+ * Unlike {@link MultiChannelGroupByHash}, group ids are not necessarily assigned in the order in
+ * which the groups first appear in the input.
+ */
+// This implementation assumes arrays used in the hash are always a power of 2
+public class BatchedGroupByHash
+        implements GroupByHash
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BatchedGroupByHash.class).instanceSize();
+    private static final float FILL_RATIO = 0.75f;
+    private static final int BATCH_SIZE = 1024;
+
+    private final List<Type> types;
+    private final List<Type> hashTypes;
+    private final int[] channels;
+
+    private final PagesHashStrategy hashStrategy;
+    private final List<ObjectArrayList<Block>> channelBuilders;
+    private final Optional<Integer> inputHashChannel;
+    private final OptionalInt precomputedHashChannel;
+    private PageBuilder currentPageBuilder;
+
+    private long completedPagesMemorySize;
+
+    private int hashCapacity;
+    private int maxFill;
+    private int mask;
+    private int[] groupIdsByHash;
+    private long[] rawHashByHashPosition;
+
+    private final LongBigArray groupAddressByGroupId;
+
+    private int nextGroupId;
+    private long hashCollisions;
+    private double expectedHashCollisions;
+
+    // per batch state, indexed by the row in the batch unless noted otherwise
+    private final long[] batchHashes = new long[BATCH_SIZE];
+    private final int[] batchHashPositions = new int[BATCH_SIZE];
+    private final int[] batchGroupIds = new int[BATCH_SIZE];
+    private final int[] pendingRows = new int[BATCH_SIZE];
+    // indexed by the candidate in the current probe round
+    private final int[] candidateRows = new int[BATCH_SIZE];
+    private final int[] candidateBlockIndexes = new int[BATCH_SIZE];
+    private final int[] candidatePositions = new int[BATCH_SIZE];
+    private final int[] candidateRowPositions = new int[BATCH_SIZE];
+    private final boolean[] candidateMatches = new boolean[BATCH_SIZE];
+
+    // reserve enough memory before rehash
+    private final UpdateMemory updateMemory;
+    private long preallocatedMemoryInBytes;
+    private long currentPageSizeInBytes;
+
+    public BatchedGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            JoinCompiler joinCompiler,
+            UpdateMemory updateMemory)
+    {
+        this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
+
+        requireNonNull(joinCompiler, "joinCompiler is null");
+        requireNonNull(hashChannels, "hashChannels is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.inputHashChannel = requireNonNull(inputHashChannel, "inputHashChannel is null");
+        this.types = inputHashChannel.isPresent() ? ImmutableList.copyOf(Iterables.concat(hashTypes, ImmutableList.of(BIGINT))) : this.hashTypes;
+        this.channels = hashChannels.clone();
+
+        // For each hashed channel, create an appendable list to hold the blocks (builders).  As we
+        // add new values we append them to the existing block builder until it fills up and then
+        // we add a new block builder to each list.
+        ImmutableList.Builder<Integer> outputChannels = ImmutableList.builder();
+        ImmutableList.Builder<ObjectArrayList<Block>> channelBuilders = ImmutableList.builder();
+        for (int i = 0; i < hashChannels.length; i++) {
+            outputChannels.add(i);
+            channelBuilders.add(ObjectArrayList.wrap(new Block[1024], 0));
+        }
+        if (inputHashChannel.isPresent()) {
+            this.precomputedHashChannel = OptionalInt.of(hashChannels.length);
+            channelBuilders.add(ObjectArrayList.wrap(new Block[1024], 0));
+        }
+        else {
+            this.precomputedHashChannel = OptionalInt.empty();
+        }
+        this.channelBuilders = channelBuilders.build();
+        PagesHashStrategyFactory pagesHashStrategyFactory = joinCompiler.compilePagesHashStrategyFactory(this.types, outputChannels.build());
+        hashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(this.channelBuilders, this.precomputedHashChannel);
+
+        startNewPage();
+
+        // reserve memory for the arrays
+        hashCapacity = arraySize(expectedSize, FILL_RATIO);
+
+        maxFill = calculateMaxFill(hashCapacity);
+        mask = hashCapacity - 1;
+        groupIdsByHash = new int[hashCapacity];
+        Arrays.fill(groupIdsByHash, -1);
+
+        rawHashByHashPosition = new long[hashCapacity];
+
+        groupAddressByGroupId = new LongBigArray();
+        groupAddressByGroupId.ensureCapacity(maxFill);
+
+        // This interface is used for actively reserving memory (push model) for rehash.
+        // The caller can also query memory usage on this object (pull model)
+        this.updateMemory = requireNonNull(updateMemory, "updateMemory is null");
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        long address = groupAddressByGroupId.get(groupId);
+        int blockIndex = decodeSliceIndex(address);
+        int position = decodePosition(address);
+        return hashStrategy.hashPosition(blockIndex, position);
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return INSTANCE_SIZE +
+                (sizeOf(channelBuilders.get(0).elements()) * channelBuilders.size()) +
+                completedPagesMemorySize +
+                currentPageBuilder.getRetainedSizeInBytes() +
+                sizeOf(groupIdsByHash) +
+                groupAddressByGroupId.sizeOf() +
+                sizeOf(rawHashByHashPosition) +
+                sizeOf(batchHashes) +
+                sizeOf(batchHashPositions) +
+                sizeOf(batchGroupIds) +
+                sizeOf(pendingRows) +
+                sizeOf(candidateRows) +
+                sizeOf(candidateBlockIndexes) +
+                sizeOf(candidatePositions) +
+                sizeOf(candidateRowPositions) +
+                sizeOf(candidateMatches) +
+                preallocatedMemoryInBytes;
+    }
+
+    @Override
+    public long getHashCollisions()
+    {
+        return hashCollisions;
+    }
+
+    @Override
+    public double getExpectedHashCollisions()
+    {
+        return expectedHashCollisions + estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        long address = groupAddressByGroupId.get(groupId);
+        int blockIndex = decodeSliceIndex(address);
+        int position = decodePosition(address);
+        hashStrategy.appendTo(blockIndex, position, pageBuilder, outputChannelOffset);
+    }
+
+    @Override
+    public Work<?> addPage(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        if (isRunLengthEncoded(page)) {
+            return new AddRunLengthEncodedPageWork(page);
+        }
+        return new AddPageWork(page);
+    }
+
+    @Override
+    public Work<GroupByIdBlock> getGroupIds(Page page)
+    {
+        currentPageSizeInBytes = page.getRetainedSizeInBytes();
+        if (isRunLengthEncoded(page)) {
+            return new GetRunLengthEncodedGroupIdsWork(page);
+        }
+        return new GetGroupIdsWork(page);
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        long rawHash = hashStrategy.hashRow(position, page);
+        int hashPosition = getHashPosition(rawHash, mask);
+
+        // look for a slot containing this key
+        while (groupIdsByHash[hashPosition] != -1) {
+            if (rawHashByHashPosition[hashPosition] == rawHash) {
+                long address = groupAddressByGroupId.get(groupIdsByHash[hashPosition]);
+                if (hashStrategy.positionNotDistinctFromRow(decodeSliceIndex(address), decodePosition(address), position, page, hashChannels)) {
+                    // found an existing slot for this key
+                    return true;
+                }
+            }
+            // increment position and mask to handle wrap around
+            hashPosition = (hashPosition + 1) & mask;
+        }
+
+        return false;
+    }
+
+    @VisibleForTesting
+    @Override
+    public int getCapacity()
+    {
+        return hashCapacity;
+    }
+
+    /**
+     * Processes the next batch of rows of the page.
+     *
+     * @return the number of processed rows, which is zero if the hash is full and the first row needs a new group
+     */
+    private int tryProcessBatch(Page page, int offset)
+    {
+        return processBatch(page, offset, min(BATCH_SIZE, page.getPositionCount() - offset));
+    }
+
+    /**
+     * Finds or adds the groups of the rows of the batch. When the hash is full, the rows which need a new group
+     * are not added, and only the rows before the first of them are processed. The group ids of the processed
+     * rows are in {@code batchGroupIds}.
+     *
+     * @return the number of processed rows
+     */
+    private int processBatch(Page page, int offset, int length)
+    {
+        if (precomputedHashChannel.isPresent()) {
+            Block hashBlock = page.getBlock(inputHashChannel.get());
+            for (int row = 0; row < length; row++) {
+                batchHashes[row] = BIGINT.getLong(hashBlock, offset + row);
+            }
+        }
+        else {
+            hashStrategy.hashRows(offset, length, page, channels, batchHashes);
+        }
+
+        for (int row = 0; row < length; row++) {
+            batchHashPositions[row] = getHashPosition(batchHashes[row], mask);
+            pendingRows[row] = row;
+        }
+
+        // Each round moves the pending rows to an empty slot, where they are added as a new group, or to the next
+        // slot whose hash matches, where they become a candidate. Rows with the same key are in the same slot in
+        // each round, so the first one adds the group and the others find it in the same round.
+        int processedCount = length;
+        int pendingCount = length;
+        while (pendingCount > 0) {
+            int candidateCount = 0;
+            for (int i = 0; i < pendingCount; i++) {
+                int row = pendingRows[i];
+                long rawHash = batchHashes[row];
+                int hashPosition = batchHashPositions[row];
+                while (true) {
+                    int groupId = groupIdsByHash[hashPosition];
+                    if (groupId == -1) {
+                        if (nextGroupId < maxFill) {
+                            batchGroupIds[row] = addNewGroup(hashPosition, offset + row, page, rawHash);
+                        }
+                        else {
+                            // the hash is full, so this row is processed again after the rehash
+                            processedCount = min(processedCount, row);
+                        }
+                        break;
+                    }
+                    if (rawHashByHashPosition[hashPosition] == rawHash) {
+                        long address = groupAddressByGroupId.get(groupId);
+                        candidateRows[candidateCount] = row;
+                        candidateBlockIndexes[candidateCount] = decodeSliceIndex(address);
+                        candidatePositions[candidateCount] = decodePosition(address);
+                        candidateRowPositions[candidateCount] = offset + row;
+                        candidateMatches[candidateCount] = true;
+                        candidateCount++;
+                        break;
+                    }
+                    // increment position and mask to handle wrap around
+                    hashPosition = (hashPosition + 1) & mask;
+                    hashCollisions++;
+                }
+                batchHashPositions[row] = hashPosition;
+            }
+
+            hashStrategy.positionsNotDistinctFromRows(
+                    candidateBlockIndexes,
+                    candidatePositions,
+                    candidateRowPositions,
+                    candidateCount,
+                    page,
+                    channels,
+                    candidateMatches);
+
+            pendingCount = 0;
+            for (int candidate = 0; candidate < candidateCount; candidate++) {
+                int row = candidateRows[candidate];
+                int hashPosition = batchHashPositions[row];
+                if (candidateMatches[candidate]) {
+                    // found an existing slot for this key
+                    batchGroupIds[row] = groupIdsByHash[hashPosition];
+                }
+                else {
+                    batchHashPositions[row] = (hashPosition + 1) & mask;
+                    hashCollisions++;
+                    pendingRows[pendingCount] = row;
+                    pendingCount++;
+                }
+            }
+        }
+        return processedCount;
+    }
+
+    private int addNewGroup(int hashPosition, int position, Page page, long rawHash)
+    {
+        // add the row to the open page
+        for (int i = 0; i < channels.length; i++) {
+            int hashChannel = channels[i];
+            Type type = types.get(i);
+            type.appendTo(page.getBlock(hashChannel), position, currentPageBuilder.getBlockBuilder(i));
+        }
+        if (precomputedHashChannel.isPresent()) {
+            BIGINT.writeLong(currentPageBuilder.getBlockBuilder(precomputedHashChannel.getAsInt()), rawHash);
+        }
+        currentPageBuilder.declarePosition();
+        int pageIndex = channelBuilders.get(0).size() - 1;
+        int pagePosition = currentPageBuilder.getPositionCount() - 1;
+        long address = encodeSyntheticAddress(pageIndex, pagePosition);
+
+        // record group id in hash
+        int groupId = nextGroupId++;
+
+        rawHashByHashPosition[hashPosition] = rawHash;
+        groupIdsByHash[hashPosition] = groupId;
+        groupAddressByGroupId.set(groupId, address);
+
+        // create new page builder if this page is full
+        if (currentPageBuilder.isFull()) {
+            startNewPage();
+        }
+
+        // the capacity is checked before each new group, so there is no rehash here
+        return groupId;
+    }
+
+    private void startNewPage()
+    {
+        if (currentPageBuilder != null) {
+            completedPagesMemorySize += currentPageBuilder.getRetainedSizeInBytes();
+            currentPageBuilder = currentPageBuilder.newPageBuilderLike();
+        }
+        else {
+            currentPageBuilder = new PageBuilder(types);
+        }
+
+        for (int i = 0; i < types.size(); i++) {
+            channelBuilders.get(i).add(currentPageBuilder.getBlockBuilder(i));
+        }
+    }
+
+    private boolean tryRehash()
+    {
+        long newCapacityLong = hashCapacity * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = toIntExact(newCapacityLong);
+
+        // An estimate of how much extra memory is needed before we can go ahead and expand the hash table.
+        // This includes the new capacity for rawHashByHashPosition, groupIdsByHash, and groupAddressByGroupId as well as the size of the current page
+        preallocatedMemoryInBytes = (newCapacity - hashCapacity) * (long) (Long.BYTES + Integer.BYTES) +
+                (calculateMaxFill(newCapacity) - maxFill) * Long.BYTES +
+                currentPageSizeInBytes;
+        if (!updateMemory.update()) {
+            // reserved memory but has exceeded the limit
+            return false;
+        }
+        preallocatedMemoryInBytes = 0;
+
+        expectedHashCollisions += estimateNumberOfHashCollisions(getGroupCount(), hashCapacity);
+
+        int newMask = newCapacity - 1;
+        long[] rawHashes = new long[newCapacity];
+        int[] newValue = new int[newCapacity];
+        Arrays.fill(newValue, -1);
+
+        // the full hash codes are kept in the table, so the groups do not need to be hashed again
+        for (int oldIndex = 0; oldIndex < hashCapacity; oldIndex++) {
+            if (groupIdsByHash[oldIndex] == -1) {
+                continue;
+            }
+
+            long rawHash = rawHashByHashPosition[oldIndex];
+            // find an empty slot for the group
+            int pos = getHashPosition(rawHash, newMask);
+            while (newValue[pos] != -1) {
+                pos = (pos + 1) & newMask;
+                hashCollisions++;
+            }
+
+            // record the mapping
+            rawHashes[pos] = rawHash;
+            newValue[pos] = groupIdsByHash[oldIndex];
+        }
+
+        this.mask = newMask;
+        this.hashCapacity = newCapacity;
+        this.maxFill = calculateMaxFill(newCapacity);
+        this.rawHashByHashPosition = rawHashes;
+        this.groupIdsByHash = newValue;
+        groupAddressByGroupId.ensureCapacity(maxFill);
+        return true;
+    }
+
+    private static int getHashPosition(long rawHash, int mask)
+    {
+        return (int) (murmurHash3(rawHash) & mask);
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must be greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    private boolean isRunLengthEncoded(Page page)
+    {
+        for (int i = 0; i < channels.length; i++) {
+            if (!(page.getBlock(channels[i]) instanceof RunLengthEncodedBlock)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private class AddPageWork
+            implements Work<Void>
+    {
+        private final Page page;
+
+        private int lastPosition;
+
+        public AddPageWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+
+            while (lastPosition < positionCount) {
+                int processed = tryProcessBatch(page, lastPosition);
+                // We can only proceed if tryRehash() successfully did a rehash.
+                if (processed == 0 && !tryRehash()) {
+                    return false;
+                }
+                lastPosition += processed;
+            }
+            return true;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class AddRunLengthEncodedPageWork
+            implements Work<Void>
+    {
+        private final Page page;
+
+        private boolean finished;
+
+        public AddRunLengthEncodedPageWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            checkState(!finished);
+            if (page.getPositionCount() == 0) {
+                finished = true;
+                return true;
+            }
+
+            // Only needs to process the first row since it is Run Length Encoded
+            while (processBatch(page, 0, 1) == 0) {
+                // We can only proceed if tryRehash() successfully did a rehash.
+                if (!tryRehash()) {
+                    return false;
+                }
+            }
+            finished = true;
+
+            return true;
+        }
+
+        @Override
+        public Void getResult()
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class GetGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final BlockBuilder blockBuilder;
+        private final Page page;
+
+        private boolean finished;
+        private int lastPosition;
+
+        public GetGroupIdsWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+            // we know the exact size required for the block
+            this.blockBuilder = BIGINT.createFixedSizeBlockBuilder(page.getPositionCount());
+        }
+
+        @Override
+        public boolean process()
+        {
+            int positionCount = page.getPositionCount();
+            checkState(lastPosition <= positionCount, "position count out of bound");
+            checkState(!finished);
+
+            while (lastPosition < positionCount) {
+                int processed = tryProcessBatch(page, lastPosition);
+                // We can only proceed if tryRehash() successfully did a rehash.
+                if (processed == 0 && !tryRehash()) {
+                    return false;
+                }
+                // output the group ids for the batch
+                for (int row = 0; row < processed; row++) {
+                    BIGINT.writeLong(blockBuilder, batchGroupIds[row]);
+                }
+                lastPosition += processed;
+            }
+            return true;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(lastPosition == page.getPositionCount(), "process has not yet finished");
+            checkState(!finished, "result has produced");
+            finished = true;
+            return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+        }
+    }
+
+    private class GetRunLengthEncodedGroupIdsWork
+            implements Work<GroupByIdBlock>
+    {
+        private final Page page;
+
+        int groupId = -1;
+        private boolean processFinished;
+        private boolean resultProduced;
+
+        public GetRunLengthEncodedGroupIdsWork(Page page)
+        {
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        @Override
+        public boolean process()
+        {
+            checkState(!processFinished);
+            if (page.getPositionCount() == 0) {
+                processFinished = true;
+                return true;
+            }
+
+            // Only needs to process the first row since it is Run Length Encoded
+            while (processBatch(page, 0, 1) == 0) {
+                // We can only proceed if tryRehash() successfully did a rehash.
+                if (!tryRehash()) {
+                    return false;
+                }
+            }
+            groupId = batchGroupIds[0];
+            processFinished = true;
+            return true;
+        }
+
+        @Override
+        public GroupByIdBlock getResult()
+        {
+            checkState(processFinished);
+            checkState(!resultProduced);
+            resultProduced = true;
+
+            return new GroupByIdBlock(
+                    nextGroupId,
+                    new RunLengthEncodedBlock(
+                            BIGINT.createFixedSizeBlockBuilder(1).writeLong(groupId).build(),
+                            page.getPositionCount()));
+        }
+    }
+}
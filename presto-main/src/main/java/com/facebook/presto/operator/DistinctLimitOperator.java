@@ -14,24 +14,38 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
 import static java.util.Objects.requireNonNull;
 
 public class DistinctLimitOperator
@@ -48,6 +62,8 @@ public class DistinctLimitOperator
         private final Optional<Integer> hashChannel;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public DistinctLimitOperatorFactory(
                 int operatorId,
@@ -57,6 +73,20 @@ public class DistinctLimitOperator
                 long limit,
                 Optional<Integer> hashChannel,
                 JoinCompiler joinCompiler)
+        {
+            this(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+        }
+
+        public DistinctLimitOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> distinctChannels,
+                long limit,
+                Optional<Integer> hashChannel,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -67,6 +97,8 @@ public class DistinctLimitOperator
             this.limit = limit;
             this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -77,7 +109,7 @@ public class DistinctLimitOperator
             List<Type> distinctTypes = distinctChannels.stream()
                     .map(sourceTypes::get)
                     .collect(toImmutableList());
-            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler);
+            return new DistinctLimitOperator(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
 
         @Override
@@ -89,47 +121,87 @@ public class DistinctLimitOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler);
+            return new DistinctLimitOperatorFactory(operatorId, planNodeId, sourceTypes, distinctChannels, limit, hashChannel, joinCompiler, spillEnabled, partitioningSpillerFactory);
         }
     }
 
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private Page inputPage;
     private long remainingLimit;
 
     private boolean finishing;
 
+    private final List<Integer> distinctChannels;
+    private final List<Type> distinctTypes;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
     private final List<Integer> outputChannels;
-    private final GroupByHash groupByHash;
+    private final List<Integer> spilledOutputChannels;
+    private GroupByHash groupByHash;
     private long nextDistinctId;
 
     // for yield when memory is not available
     private GroupByIdBlock groupByIds;
     private Work<GroupByIdBlock> unfinishedWork;
 
+    // the distinct rows which were output before the first spill, and the input rows after it
+    private Optional<PartitioningSpiller> outputRowsSpiller = Optional.empty();
+    private Optional<PartitioningSpiller> inputRowsSpiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    private boolean inputRowsFlushed;
+    private Iterator<Page> spilledOutputRows;
+    private Iterator<Page> spilledInputRows;
+    private Work<?> unfinishedSpilledWork;
+    private int nextSpilledPartition;
+
     public DistinctLimitOperator(OperatorContext operatorContext, List<Integer> distinctChannels, List<Type> distinctTypes, long limit, Optional<Integer> hashChannel, JoinCompiler joinCompiler)
+    {
+        this(operatorContext, distinctChannels, distinctTypes, limit, hashChannel, joinCompiler, false, unsupportedPartitioningSpillerFactory());
+    }
+
+    public DistinctLimitOperator(
+            OperatorContext operatorContext,
+            List<Integer> distinctChannels,
+            List<Type> distinctTypes,
+            long limit,
+            Optional<Integer> hashChannel,
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
-        requireNonNull(distinctChannels, "distinctChannels is null");
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
+        this.distinctChannels = ImmutableList.copyOf(requireNonNull(distinctChannels, "distinctChannels is null"));
+        this.distinctTypes = ImmutableList.copyOf(requireNonNull(distinctTypes, "distinctTypes is null"));
         checkArgument(limit >= 0, "limit must be at least zero");
-        requireNonNull(hashChannel, "hashChannel is null");
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = Math.min((int) limit, 10_000);
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
 
         outputChannels = ImmutableList.<Integer>builder()
                 .addAll(distinctChannels)
                 .addAll(hashChannel.map(ImmutableList::of).orElse(ImmutableList.of()))
                 .build();
+        spilledOutputChannels = IntStream.range(0, outputChannels.size())
+                .boxed()
+                .collect(toImmutableList());
 
-        this.groupByHash = createGroupByHash(
-                distinctTypes,
-                Ints.toArray(distinctChannels),
-                hashChannel,
-                Math.min((int) limit, 10_000),
-                isDictionaryAggregationEnabled(operatorContext.getSession()),
-                joinCompiler,
-                this::updateMemoryReservation);
+        // when spill is enabled, updateMemoryReservation never yields before finish,
+        // as the revocable memory is given back by spilling instead
+        this.groupByHash = createInputGroupByHash();
         remainingLimit = limit;
     }
 
@@ -148,13 +220,28 @@ public class DistinctLimitOperator
     @Override
     public boolean isFinished()
     {
-        return !hasUnfinishedInput() && (finishing || remainingLimit == 0);
+        if (hasUnfinishedInput() || !spillInProgress.isDone()) {
+            return false;
+        }
+        if (remainingLimit == 0) {
+            return true;
+        }
+        return finishing && !hasSpilledRowsToRead();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing && remainingLimit > 0 && !hasUnfinishedInput();
+        return !finishing && remainingLimit > 0 && !hasUnfinishedInput() && spillInProgress.isDone();
     }
 
     @Override
@@ -162,6 +249,13 @@ public class DistinctLimitOperator
     {
         checkState(needsInput());
 
+        if (outputRowsSpiller.isPresent()) {
+            // the distinct rows can no longer be output right away, as they may have been output before a spill
+            verify(groupByHash.addPage(page).process());
+            updateMemoryReservation();
+            return;
+        }
+
         inputPage = page;
         unfinishedWork = groupByHash.getGroupIds(page);
         processUnfinishedWork();
@@ -171,14 +265,80 @@ public class DistinctLimitOperator
     @Override
     public Page getOutput()
     {
+        if (!spillInProgress.isDone()) {
+            return null;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
         if (unfinishedWork != null && !processUnfinishedWork()) {
             return null;
         }
 
-        if (groupByIds == null) {
+        if (groupByIds != null) {
+            return getDistinctOutput();
+        }
+
+        if (!finishing || remainingLimit == 0 || !outputRowsSpiller.isPresent()) {
+            return null;
+        }
+
+        if (!inputRowsFlushed) {
+            // the input rows in memory are spilled as well, and all rows are then read back one partition at a time
+            inputRowsFlushed = true;
+            spillInProgress = inputRowsSpiller.get().spill(buildPages(groupByHash));
             return null;
         }
 
+        return processSpilledRows();
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (finishing || remainingLimit == 0 || hasUnfinishedInput() || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+
+        if (!outputRowsSpiller.isPresent()) {
+            // the distinct rows output so far are needed to tell which of the later rows are distinct
+            outputRowsSpiller = Optional.of(createSpiller());
+            inputRowsSpiller = Optional.of(createSpiller());
+            spillInProgress = outputRowsSpiller.get().spill(buildPages(groupByHash));
+        }
+        else {
+            spillInProgress = inputRowsSpiller.get().spill(buildPages(groupByHash));
+        }
+        finishMemoryRevoke = () -> {
+            groupByHash = createInputGroupByHash();
+            updateMemoryReservation();
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+            outputRowsSpiller.ifPresent(closer::register);
+            inputRowsSpiller.ifPresent(closer::register);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Page getDistinctOutput()
+    {
         verify(inputPage != null);
         int distinctCount = 0;
         int[] distinctPositions = new int[inputPage.getPositionCount()];
@@ -203,11 +363,55 @@ public class DistinctLimitOperator
         return result;
     }
 
+    private Page processSpilledRows()
+    {
+        while (true) {
+            if (unfinishedSpilledWork != null) {
+                if (!unfinishedSpilledWork.process()) {
+                    return null;
+                }
+                unfinishedSpilledWork = null;
+            }
+
+            if (spilledInputRows == null) {
+                if (nextSpilledPartition == SPILL_PARTITION_COUNT) {
+                    return null;
+                }
+                groupByHash = createSpilledGroupByHash();
+                updateMemoryReservation();
+                spilledOutputRows = outputRowsSpiller.get().getSpilledPages(nextSpilledPartition);
+                spilledInputRows = inputRowsSpiller.get().getSpilledPages(nextSpilledPartition);
+                nextSpilledPartition++;
+            }
+
+            if (spilledOutputRows.hasNext()) {
+                unfinishedSpilledWork = groupByHash.addPage(spilledOutputRows.next());
+                continue;
+            }
+
+            if (!spilledInputRows.hasNext()) {
+                spilledInputRows = null;
+                continue;
+            }
+
+            // the groups of the rows output before the first spill come first, so the new groups are the distinct rows
+            nextDistinctId = groupByHash.getGroupCount();
+            inputPage = spilledInputRows.next();
+            unfinishedWork = groupByHash.getGroupIds(inputPage);
+            if (!processUnfinishedWork()) {
+                return null;
+            }
+            return getDistinctOutput();
+        }
+    }
+
     private Page maskToDistinctOutputPositions(int distinctCount, int[] distinctPositions)
     {
         Page result = null;
         if (distinctCount > 0) {
-            Block[] blocks = outputChannels.stream()
+            // the spilled rows only contain the output channels
+            List<Integer> channels = outputRowsSpiller.isPresent() ? spilledOutputChannels : outputChannels;
+            Block[] blocks = channels.stream()
                     .map(inputPage::getBlock)
                     .map(block -> block.getPositions(distinctPositions, 0, distinctCount))
                     .toArray(Block[]::new);
@@ -232,6 +436,72 @@ public class DistinctLimitOperator
         return inputPage != null || unfinishedWork != null;
     }
 
+    private boolean hasSpilledRowsToRead()
+    {
+        return outputRowsSpiller.isPresent() && (spilledInputRows != null || nextSpilledPartition < SPILL_PARTITION_COUNT);
+    }
+
+    private GroupByHash createInputGroupByHash()
+    {
+        return createGroupByHash(
+                distinctTypes,
+                Ints.toArray(distinctChannels),
+                hashChannel,
+                expectedPositions,
+                isDictionaryAggregationEnabled(operatorContext.getSession()),
+                joinCompiler,
+                this::updateMemoryReservation);
+    }
+
+    private GroupByHash createSpilledGroupByHash()
+    {
+        return createGroupByHash(
+                distinctTypes,
+                IntStream.range(0, distinctTypes.size()).toArray(),
+                hashChannel.map(channel -> distinctTypes.size()),
+                expectedPositions,
+                isDictionaryAggregationEnabled(operatorContext.getSession()),
+                joinCompiler,
+                this::updateMemoryReservation);
+    }
+
+    private PartitioningSpiller createSpiller()
+    {
+        List<Integer> spilledDistinctChannels = IntStream.range(0, distinctTypes.size())
+                .boxed()
+                .collect(toImmutableList());
+        HashGenerator hashGenerator = hashChannel.isPresent() ? new PrecomputedHashGenerator(distinctTypes.size()) : new InterpretedHashGenerator(distinctTypes, spilledDistinctChannels);
+        return partitioningSpillerFactory.create(
+                groupByHash.getTypes(),
+                new LocalPartitionGenerator(hashGenerator, SPILL_PARTITION_COUNT),
+                operatorContext.getSpillContext().newLocalSpillContext(),
+                operatorContext.newAggregateSystemMemoryContext());
+    }
+
+    private static Iterator<Page> buildPages(GroupByHash groupByHash)
+    {
+        return new AbstractIterator<Page>()
+        {
+            private final PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+            private int groupId;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (groupId == groupByHash.getGroupCount()) {
+                    return endOfData();
+                }
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && groupId < groupByHash.getGroupCount()) {
+                    pageBuilder.declarePosition();
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+                    groupId++;
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
     /**
      * Update memory usage.
      *
@@ -242,6 +512,11 @@ public class DistinctLimitOperator
     // The following implementation is a hybrid model, where the push model is going to call the pull model causing reentrancy
     private boolean updateMemoryReservation()
     {
+        if (spillEnabled && !finishing && remainingLimit > 0) {
+            localRevocableMemoryContext.setBytes(groupByHash.getEstimatedSize());
+            return true;
+        }
+        localRevocableMemoryContext.setBytes(0);
         // Operator/driver will be blocked on memory after we call localUserMemoryContext.setBytes().
         // If memory is not available, once we return, this operator will be blocked until memory is available.
         localUserMemoryContext.setBytes(groupByHash.getEstimatedSize());
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Removes the rows of the pages produced by a table scan which do not satisfy a dynamic filter.
+ * Connectors are only required to use a dynamic filter as a hint, so the scan operators apply
+ * it again before the rows reach the rest of the pipeline.
+ */
+final class DynamicFilterPageFilter
+{
+    private final OperatorContext operatorContext;
+    private final int[] channels;
+    private final Domain[] domains;
+
+    private DynamicFilterPageFilter(OperatorContext operatorContext, int[] channels, Domain[] domains)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.channels = requireNonNull(channels, "channels is null");
+        this.domains = requireNonNull(domains, "domains is null");
+        checkArgument(channels.length == domains.length, "channels and domains must have the same length");
+    }
+
+    /**
+     * @return a filter for the pages with the given columns, or empty if the predicate does not restrict any of them
+     */
+    public static Optional<DynamicFilterPageFilter> create(OperatorContext operatorContext, TupleDomain<ColumnHandle> predicate, List<ColumnHandle> columns)
+    {
+        requireNonNull(predicate, "predicate is null");
+        checkArgument(!predicate.isNone(), "predicate is none");
+        Map<ColumnHandle, Domain> columnDomains = predicate.getDomains().get();
+
+        int[] channels = new int[columns.size()];
+        Domain[] domains = new Domain[columns.size()];
+        int filterCount = 0;
+        for (int channel = 0; channel < columns.size(); channel++) {
+            Domain domain = columnDomains.get(columns.get(channel));
+            if (domain != null && !domain.isAll()) {
+                channels[filterCount] = channel;
+                domains[filterCount] = domain;
+                filterCount++;
+            }
+        }
+        if (filterCount == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new DynamicFilterPageFilter(
+                operatorContext,
+                Arrays.copyOf(channels, filterCount),
+                Arrays.copyOf(domains, filterCount)));
+    }
+
+    public Page filter(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        int[] retainedPositions = new int[positionCount];
+        int retainedCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (matches(page, position)) {
+                retainedPositions[retainedCount] = position;
+                retainedCount++;
+            }
+        }
+
+        if (retainedCount == positionCount) {
+            return page;
+        }
+
+        int prunedCount = positionCount - retainedCount;
+        operatorContext.recordDynamicFilterPrunedInput(getLoadedSizeInBytes(page) * prunedCount / positionCount, prunedCount);
+
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = getPositions(page.getBlock(channel), retainedPositions, retainedCount);
+        }
+        return new Page(retainedCount, blocks);
+    }
+
+    private boolean matches(Page page, int position)
+    {
+        for (int i = 0; i < channels.length; i++) {
+            Block block = page.getBlock(channels[i]);
+            Domain domain = domains[i];
+            if (block.isNull(position)) {
+                if (!domain.isNullAllowed()) {
+                    return false;
+                }
+                continue;
+            }
+            Type type = domain.getType();
+            if (!domain.getValues().containsValue(readNativeValue(type, block, position))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long getLoadedSizeInBytes(Page page)
+    {
+        long sizeInBytes = 0;
+        for (int channel = 0; channel < page.getChannelCount(); channel++) {
+            Block block = page.getBlock(channel);
+            if (!(block instanceof LazyBlock) || ((LazyBlock) block).isLoaded()) {
+                sizeInBytes += block.getSizeInBytes();
+            }
+        }
+        return sizeInBytes;
+    }
+
+    private static Block getPositions(Block block, int[] positions, int length)
+    {
+        if (block instanceof LazyBlock && !((LazyBlock) block).isLoaded()) {
+            // do not force loading of the columns the filter did not need
+            LazyBlock lazyBlock = (LazyBlock) block;
+            return new LazyBlock(length, filtered -> filtered.setBlock(lazyBlock.getLoadedBlock().getPositions(positions, 0, length)));
+        }
+        return block.getPositions(positions, 0, length);
+    }
+}
@@ -24,6 +24,7 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -33,14 +34,20 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class ExchangeClientFactory
         implements ExchangeClientSupplier
 {
+    // each results stream holds a connection until it ends, and idle streams end after a few seconds
+    private static final int MAX_STREAM_CONNECTIONS_PER_SERVER = 250;
+    private static final Duration STREAM_IDLE_TIMEOUT = new Duration(30, SECONDS);
+
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
     private final Duration maxErrorDuration;
     private final HttpClient httpClient;
+    private final Optional<PageStreamClient> pageStreamClient;
     private final DataSize maxResponseSize;
     private final boolean acknowledgePages;
     private final ScheduledExecutorService scheduler;
@@ -60,6 +67,7 @@ public class ExchangeClientFactory
                 config.getMaxErrorDuration(),
                 config.isAcknowledgePages(),
                 config.getPageBufferClientMaxCallbackThreads(),
+                config.isStreamingEnabled(),
                 httpClient,
                 scheduler);
     }
@@ -71,6 +79,7 @@ public class ExchangeClientFactory
             Duration maxErrorDuration,
             boolean acknowledgePages,
             int pageBufferClientMaxCallbackThreads,
+            boolean streamingEnabled,
             HttpClient httpClient,
             ScheduledExecutorService scheduler)
     {
@@ -79,6 +88,12 @@ public class ExchangeClientFactory
         this.maxErrorDuration = requireNonNull(maxErrorDuration, "maxErrorDuration is null");
         this.acknowledgePages = acknowledgePages;
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        if (streamingEnabled) {
+            this.pageStreamClient = Optional.of(new PageStreamClient(MAX_STREAM_CONNECTIONS_PER_SERVER, STREAM_IDLE_TIMEOUT));
+        }
+        else {
+            this.pageStreamClient = Optional.empty();
+        }
 
         // Use only 0.75 of the maxResponseSize to leave room for additional bytes from the encoding
         // TODO figure out a better way to compute the size of data that will be transferred over the network
@@ -100,6 +115,7 @@ public class ExchangeClientFactory
     public void stop()
     {
         pageBufferClientCallbackExecutor.shutdownNow();
+        pageStreamClient.ifPresent(PageStreamClient::close);
     }
 
     @Managed
@@ -119,6 +135,7 @@ public class ExchangeClientFactory
                 maxErrorDuration,
                 acknowledgePages,
                 httpClient,
+                pageStreamClient,
                 scheduler,
                 systemMemoryContext,
                 pageBufferClientCallbackExecutor);
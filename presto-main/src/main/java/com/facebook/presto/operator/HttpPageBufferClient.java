@@ -21,6 +21,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.net.MediaType;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.HttpStatus;
@@ -46,6 +47,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.concurrent.Executor;
@@ -110,6 +112,7 @@ public final class HttpPageBufferClient
     }
 
     private final HttpClient httpClient;
+    private final Optional<PageStreamClient> pageStreamClient;
     private final DataSize maxResponseSize;
     private final boolean acknowledgePages;
     private final URI location;
@@ -120,7 +123,7 @@ public final class HttpPageBufferClient
     @GuardedBy("this")
     private boolean closed;
     @GuardedBy("this")
-    private HttpResponseFuture<?> future;
+    private ListenableFuture<?> future;
     @GuardedBy("this")
     private DateTime lastUpdate = DateTime.now();
     @GuardedBy("this")
@@ -167,8 +170,24 @@ public final class HttpPageBufferClient
             ScheduledExecutorService scheduler,
             Ticker ticker,
             Executor pageBufferClientCallbackExecutor)
+    {
+        this(httpClient, Optional.empty(), maxResponseSize, maxErrorDuration, acknowledgePages, location, clientCallback, scheduler, ticker, pageBufferClientCallbackExecutor);
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            Optional<PageStreamClient> pageStreamClient,
+            DataSize maxResponseSize,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            URI location,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Ticker ticker,
+            Executor pageBufferClientCallbackExecutor)
     {
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        this.pageStreamClient = requireNonNull(pageStreamClient, "pageStreamClient is null");
         this.maxResponseSize = requireNonNull(maxResponseSize, "maxResponseSize is null");
         this.acknowledgePages = acknowledgePages;
         this.location = requireNonNull(location, "location is null");
@@ -199,8 +218,11 @@ public final class HttpPageBufferClient
             state = "queued";
         }
         String httpRequestState = "not scheduled";
-        if (future != null) {
-            httpRequestState = future.getState();
+        if (future instanceof HttpResponseFuture) {
+            httpRequestState = ((HttpResponseFuture<?>) future).getState();
+        }
+        else if (future != null) {
+            httpRequestState = "streaming";
         }
 
         long rejectedRows = rowsRejected.get();
@@ -287,6 +309,9 @@ public final class HttpPageBufferClient
         if (completed) {
             sendDelete();
         }
+        else if (pageStreamClient.isPresent()) {
+            sendStreamResults(pageStreamClient.get());
+        }
         else {
             sendGetResults();
         }
@@ -313,108 +338,153 @@ public final class HttpPageBufferClient
 
                 backoff.success();
 
-                List<SerializedPage> pages;
                 try {
-                    boolean shouldAcknowledge = false;
-                    synchronized (HttpPageBufferClient.this) {
-                        if (taskInstanceId == null) {
-                            taskInstanceId = result.getTaskInstanceId();
-                        }
-
-                        if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
-                            // TODO: update error message
-                            throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
-                        }
-
-                        if (result.getToken() == token) {
-                            pages = result.getPages();
-                            token = result.getNextToken();
-                            shouldAcknowledge = pages.size() > 0;
-                        }
-                        else {
-                            pages = ImmutableList.of();
-                        }
-                    }
-
-                    if (shouldAcknowledge && acknowledgePages) {
-                        // Acknowledge token without handling the response.
-                        // The next request will also make sure the token is acknowledged.
-                        // This is to fast release the pages on the buffer side.
-                        URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(result.getNextToken())).appendPath("acknowledge").build();
-                        httpClient.executeAsync(prepareGet().setUri(uri).build(), new ResponseHandler<Void, RuntimeException>()
-                        {
-                            @Override
-                            public Void handleException(Request request, Exception exception)
-                            {
-                                log.debug(exception, "Acknowledge request failed: %s", uri);
-                                return null;
-                            }
-
-                            @Override
-                            public Void handle(Request request, Response response)
-                            {
-                                if (familyForStatusCode(response.getStatusCode()) != HttpStatus.Family.SUCCESSFUL) {
-                                    log.debug("Unexpected acknowledge response code: %s", response.getStatusCode());
-                                }
-                                return null;
-                            }
-                        });
-                    }
+                    processResponse(uri, result);
                 }
                 catch (PrestoException e) {
                     handleFailure(e, resultFuture);
                     return;
                 }
 
-                // add pages:
-                // addPages must be called regardless of whether pages is an empty list because
-                // clientCallback can keep stats of requests and responses. For example, it may
-                // keep track of how often a client returns empty response and adjust request
-                // frequency or buffer size.
-                if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
-                    pagesReceived.addAndGet(pages.size());
-                    rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
-                }
-                else {
-                    pagesRejected.addAndGet(pages.size());
-                    rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
-                }
-
-                synchronized (HttpPageBufferClient.this) {
-                    // client is complete, acknowledge it by sending it a delete in the next request
-                    if (result.isClientComplete()) {
-                        completed = true;
-                    }
-                    if (future == resultFuture) {
-                        future = null;
-                    }
-                    lastUpdate = DateTime.now();
-                }
-                requestsCompleted.incrementAndGet();
-                clientCallback.requestComplete(HttpPageBufferClient.this);
+                requestSucceeded(resultFuture);
             }
 
             @Override
             public void onFailure(Throwable t)
             {
-                log.debug("Request to %s failed %s", uri, t);
+                requestFailed(uri, t, resultFuture);
+            }
+        }, pageBufferClientCallbackExecutor);
+    }
+
+    private synchronized void sendStreamResults(PageStreamClient pageStreamClient)
+    {
+        URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(token)).appendPath("stream").build();
+        // the frames are processed as they arrive, and the request completes when the stream ends
+        ListenableFuture<?> resultFuture = pageStreamClient.streamPages(uri, maxResponseSize, frame -> processResponse(uri, frame));
+
+        future = resultFuture;
+        Futures.addCallback(resultFuture, new FutureCallback<Object>()
+        {
+            @Override
+            public void onSuccess(@Nullable Object result)
+            {
                 checkNotHoldsLock(this);
 
-                t = rewriteException(t);
-                if (!(t instanceof PrestoException) && backoff.failure()) {
-                    String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
-                            WORKER_NODE_ERROR,
-                            uri,
-                            backoff.getFailureCount(),
-                            backoff.getFailureDuration().convertTo(SECONDS),
-                            backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
-                    t = new PageTransportTimeoutException(fromUri(uri), message, t);
-                }
-                handleFailure(t, resultFuture);
+                backoff.success();
+                requestSucceeded(resultFuture);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                requestFailed(uri, t, resultFuture);
             }
         }, pageBufferClientCallbackExecutor);
     }
 
+    private void processResponse(URI uri, PagesResponse result)
+    {
+        List<SerializedPage> pages;
+        boolean shouldAcknowledge = false;
+        synchronized (this) {
+            if (taskInstanceId == null) {
+                taskInstanceId = result.getTaskInstanceId();
+            }
+
+            if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
+                // TODO: update error message
+                throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(uri)));
+            }
+
+            if (result.getToken() == token) {
+                pages = result.getPages();
+                token = result.getNextToken();
+                shouldAcknowledge = pages.size() > 0;
+            }
+            else {
+                pages = ImmutableList.of();
+            }
+        }
+
+        if (shouldAcknowledge && acknowledgePages) {
+            // Acknowledge token without handling the response.
+            // The next request will also make sure the token is acknowledged.
+            // This is to fast release the pages on the buffer side.
+            URI acknowledgeUri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(result.getNextToken())).appendPath("acknowledge").build();
+            httpClient.executeAsync(prepareGet().setUri(acknowledgeUri).build(), new ResponseHandler<Void, RuntimeException>()
+            {
+                @Override
+                public Void handleException(Request request, Exception exception)
+                {
+                    log.debug(exception, "Acknowledge request failed: %s", acknowledgeUri);
+                    return null;
+                }
+
+                @Override
+                public Void handle(Request request, Response response)
+                {
+                    if (familyForStatusCode(response.getStatusCode()) != HttpStatus.Family.SUCCESSFUL) {
+                        log.debug("Unexpected acknowledge response code: %s", response.getStatusCode());
+                    }
+                    return null;
+                }
+            });
+        }
+
+        // add pages:
+        // addPages must be called regardless of whether pages is an empty list because
+        // clientCallback can keep stats of requests and responses. For example, it may
+        // keep track of how often a client returns empty response and adjust request
+        // frequency or buffer size.
+        if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
+            pagesReceived.addAndGet(pages.size());
+            rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+        }
+        else {
+            pagesRejected.addAndGet(pages.size());
+            rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+        }
+
+        synchronized (this) {
+            // client is complete, acknowledge it by sending it a delete in the next request
+            if (result.isClientComplete()) {
+                completed = true;
+            }
+            lastUpdate = DateTime.now();
+        }
+    }
+
+    private void requestSucceeded(ListenableFuture<?> resultFuture)
+    {
+        synchronized (this) {
+            if (future == resultFuture) {
+                future = null;
+            }
+            lastUpdate = DateTime.now();
+        }
+        requestsCompleted.incrementAndGet();
+        clientCallback.requestComplete(HttpPageBufferClient.this);
+    }
+
+    private void requestFailed(URI uri, Throwable t, ListenableFuture<?> resultFuture)
+    {
+        log.debug("Request to %s failed %s", uri, t);
+        checkNotHoldsLock(this);
+
+        t = rewriteException(t);
+        if (!(t instanceof PrestoException) && backoff.failure()) {
+            String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
+                    WORKER_NODE_ERROR,
+                    uri,
+                    backoff.getFailureCount(),
+                    backoff.getFailureDuration().convertTo(SECONDS),
+                    backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
+            t = new PageTransportTimeoutException(fromUri(uri), message, t);
+        }
+        handleFailure(t, resultFuture);
+    }
+
     private synchronized void sendDelete()
     {
         HttpResponseFuture<StatusResponse> resultFuture = httpClient.executeAsync(prepareDelete().setUri(location).build(), createStatusResponseHandler());
@@ -461,7 +531,7 @@ public final class HttpPageBufferClient
         checkState(!Thread.holdsLock(lock), "Cannot execute this method while holding a lock");
     }
 
-    private void handleFailure(Throwable t, HttpResponseFuture<?> expectedFuture)
+    private void handleFailure(Throwable t, ListenableFuture<?> expectedFuture)
     {
         // Can not delegate to other callback while holding a lock on this
         checkNotHoldsLock(this);
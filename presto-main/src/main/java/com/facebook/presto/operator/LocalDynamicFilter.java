@@ -0,0 +1,255 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.spi.predicate.Utils.blockToNativeValue;
+import static com.facebook.presto.spi.predicate.Utils.nativeValueToBlock;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the join keys seen by all {@link HashBuilderOperator}s of a single join and exposes them
+ * as a predicate on the columns of the probe side table scan. Since only rows whose join keys are
+ * present on the build side can produce output of an inner join, the table scan (and the connector
+ * behind it) is free to skip all the rows which do not satisfy this predicate.
+ * <p>
+ * The predicate is {@link TupleDomain#all()} until every build partition has reported its keys.
+ */
+@ThreadSafe
+public class LocalDynamicFilter
+{
+    private final Map<Integer, ColumnHandle> probeColumns;
+    private final List<Type> keyTypes;
+    private final int expectedPartitions;
+    private final int maxDistinctValues;
+
+    @GuardedBy("this")
+    private final List<List<Domain>> partitionDomains = new ArrayList<>();
+
+    @GuardedBy("this")
+    private TupleDomain<ColumnHandle> predicate = TupleDomain.all();
+
+    /**
+     * @param probeColumns mapping from the index of the join key to the probe side table scan column it is read from
+     * @param keyTypes types of all the join keys
+     * @param expectedPartitions number of build partitions which have to report their keys before the filter is complete
+     * @param maxDistinctValues maximum number of distinct values collected per key, after which only the range of the values is kept
+     */
+    public LocalDynamicFilter(Map<Integer, ColumnHandle> probeColumns, List<Type> keyTypes, int expectedPartitions, int maxDistinctValues)
+    {
+        this.probeColumns = ImmutableMap.copyOf(requireNonNull(probeColumns, "probeColumns is null"));
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+        checkArgument(probeColumns.keySet().stream().allMatch(index -> index >= 0 && index < keyTypes.size()), "probeColumns refer to unknown join keys");
+        checkArgument(expectedPartitions > 0, "expectedPartitions must be positive");
+        checkArgument(maxDistinctValues >= 0, "maxDistinctValues is negative");
+        this.expectedPartitions = expectedPartitions;
+        this.maxDistinctValues = maxDistinctValues;
+    }
+
+    public Collector createCollector(List<Integer> keyChannels)
+    {
+        return new Collector(keyChannels);
+    }
+
+    public synchronized TupleDomain<ColumnHandle> getCurrentPredicate()
+    {
+        return predicate;
+    }
+
+    public synchronized boolean isComplete()
+    {
+        return partitionDomains.size() == expectedPartitions;
+    }
+
+    private synchronized void addPartition(List<Domain> domains)
+    {
+        checkState(partitionDomains.size() < expectedPartitions, "All partitions of the dynamic filter have already been collected");
+        partitionDomains.add(domains);
+        if (partitionDomains.size() < expectedPartitions) {
+            return;
+        }
+
+        ImmutableMap.Builder<ColumnHandle, Domain> columnDomains = ImmutableMap.builder();
+        for (Map.Entry<Integer, ColumnHandle> entry : probeColumns.entrySet()) {
+            int keyIndex = entry.getKey();
+            List<Domain> keyDomains = partitionDomains.stream()
+                    .map(partition -> partition.get(keyIndex))
+                    .collect(toImmutableList());
+            columnDomains.put(entry.getValue(), Domain.union(keyDomains));
+        }
+        predicate = TupleDomain.withColumnDomains(columnDomains.build());
+    }
+
+    /**
+     * Accumulates the join keys of a single build partition. Keys are collected as a set of distinct
+     * values until {@code maxDistinctValues} is exceeded; from then on only the minimum and the
+     * maximum value are tracked for orderable types, while other types stop being filtered on.
+     */
+    @NotThreadSafe
+    public class Collector
+    {
+        private final int[] keyChannels;
+        private final List<Set<Object>> values;
+        private final Block[] minValues;
+        private final Block[] maxValues;
+        private final boolean[] unrestricted;
+        private boolean finished;
+
+        private Collector(List<Integer> keyChannels)
+        {
+            requireNonNull(keyChannels, "keyChannels is null");
+            checkArgument(keyChannels.size() == keyTypes.size(), "Expected %s key channels, but got %s", keyTypes.size(), keyChannels.size());
+            this.keyChannels = keyChannels.stream().mapToInt(Integer::intValue).toArray();
+            this.values = new ArrayList<>(keyTypes.size());
+            for (Type type : keyTypes) {
+                values.add(type.isComparable() ? new HashSet<>() : null);
+            }
+            this.minValues = new Block[keyTypes.size()];
+            this.maxValues = new Block[keyTypes.size()];
+            this.unrestricted = new boolean[keyTypes.size()];
+            for (int keyIndex = 0; keyIndex < keyTypes.size(); keyIndex++) {
+                unrestricted[keyIndex] = !probeColumns.containsKey(keyIndex) || !keyTypes.get(keyIndex).isComparable();
+            }
+        }
+
+        public void addPage(Page page)
+        {
+            checkState(!finished, "Collector is already finished");
+            for (int keyIndex = 0; keyIndex < keyChannels.length; keyIndex++) {
+                if (unrestricted[keyIndex]) {
+                    continue;
+                }
+                Block block = page.getBlock(keyChannels[keyIndex]);
+                for (int position = 0; position < block.getPositionCount() && !unrestricted[keyIndex]; position++) {
+                    // null keys never match, so they do not need to be collected
+                    if (!block.isNull(position)) {
+                        addValue(keyIndex, block, position);
+                    }
+                }
+            }
+        }
+
+        private void addValue(int keyIndex, Block block, int position)
+        {
+            Type type = keyTypes.get(keyIndex);
+            Object value = readNativeValue(type, block, position);
+            if (isNaN(type, value)) {
+                // NaN does not have a place in the range of the values
+                unrestricted[keyIndex] = true;
+                values.set(keyIndex, null);
+                return;
+            }
+
+            Set<Object> keyValues = values.get(keyIndex);
+            if (keyValues == null) {
+                if (type.compareTo(block, position, minValues[keyIndex], 0) < 0) {
+                    minValues[keyIndex] = block.getSingleValueBlock(position);
+                }
+                if (type.compareTo(block, position, maxValues[keyIndex], 0) > 0) {
+                    maxValues[keyIndex] = block.getSingleValueBlock(position);
+                }
+                return;
+            }
+
+            keyValues.add(value);
+            if (keyValues.size() > maxDistinctValues) {
+                values.set(keyIndex, null);
+                if (!type.isOrderable()) {
+                    unrestricted[keyIndex] = true;
+                    return;
+                }
+                Range span = ValueSet.copyOf(type, keyValues).getRanges().getSpan();
+                minValues[keyIndex] = nativeValueToBlock(type, span.getLow().getValue());
+                maxValues[keyIndex] = nativeValueToBlock(type, span.getHigh().getValue());
+            }
+        }
+
+        /**
+         * Publishes the collected keys to the dynamic filter. Must be called exactly once, after all the
+         * input of the build partition has been added.
+         */
+        public void finish()
+        {
+            checkState(!finished, "Collector is already finished");
+            finished = true;
+
+            ImmutableList.Builder<Domain> domains = ImmutableList.builder();
+            for (int keyIndex = 0; keyIndex < keyTypes.size(); keyIndex++) {
+                domains.add(buildDomain(keyIndex));
+            }
+            addPartition(domains.build());
+        }
+
+        private Domain buildDomain(int keyIndex)
+        {
+            Type type = keyTypes.get(keyIndex);
+            if (unrestricted[keyIndex]) {
+                return Domain.all(type);
+            }
+            Set<Object> keyValues = values.get(keyIndex);
+            if (keyValues != null) {
+                if (keyValues.isEmpty()) {
+                    return Domain.none(type);
+                }
+                return Domain.create(ValueSet.copyOf(type, keyValues), false);
+            }
+            return Domain.create(
+                    ValueSet.ofRanges(Range.range(
+                            type,
+                            blockToNativeValue(type, minValues[keyIndex]),
+                            true,
+                            blockToNativeValue(type, maxValues[keyIndex]),
+                            true)),
+                    false);
+        }
+    }
+
+    private static boolean isNaN(Type type, Object value)
+    {
+        if (value instanceof Double) {
+            return Double.isNaN((double) value);
+        }
+        if (type.equals(REAL)) {
+            return Float.isNaN(intBitsToFloat(toIntExact((long) value)));
+        }
+        return false;
+    }
+}
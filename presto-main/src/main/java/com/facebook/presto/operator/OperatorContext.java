@@ -72,6 +72,9 @@ public class OperatorContext
 
     private final AtomicLong physicalWrittenDataSize = new AtomicLong();
 
+    private final CounterStat dynamicFilterPrunedPositions = new CounterStat();
+    private final CounterStat dynamicFilterPrunedDataSize = new CounterStat();
+
     private final AtomicReference<SettableFuture<?>> memoryFuture;
     private final AtomicReference<SettableFuture<?>> revocableMemoryFuture;
     private final AtomicReference<BlockedMonitor> blockedMonitor = new AtomicReference<>();
@@ -181,6 +184,16 @@ public class OperatorContext
         inputPositions.update(positions);
     }
 
+    /**
+     * Record the input that was discarded by a dynamic filter before being processed.
+     * This metric is valid only for source operators.
+     */
+    public void recordDynamicFilterPrunedInput(long sizeInBytes, long positions)
+    {
+        dynamicFilterPrunedDataSize.update(sizeInBytes);
+        dynamicFilterPrunedPositions.update(positions);
+    }
+
     void recordGetOutput(OperationTimer operationTimer, Page page)
     {
         operationTimer.recordOperationComplete(getOutputTiming);
@@ -478,6 +491,9 @@ public class OperatorContext
 
                 succinctBytes(spillContext.getSpilledBytes()),
 
+                dynamicFilterPrunedPositions.getTotalCount(),
+                succinctBytes(dynamicFilterPrunedDataSize.getTotalCount()),
+
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
                 info);
     }
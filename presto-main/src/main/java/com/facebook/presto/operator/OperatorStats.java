@@ -75,6 +75,9 @@ public class OperatorStats
 
     private final DataSize spilledDataSize;
 
+    private final long dynamicFilterPrunedPositions;
+    private final DataSize dynamicFilterPrunedDataSize;
+
     private final Optional<BlockedReason> blockedReason;
 
     private final OperatorInfo info;
@@ -120,6 +123,9 @@ public class OperatorStats
 
             @JsonProperty("spilledDataSize") DataSize spilledDataSize,
 
+            @JsonProperty("dynamicFilterPrunedPositions") long dynamicFilterPrunedPositions,
+            @JsonProperty("dynamicFilterPrunedDataSize") DataSize dynamicFilterPrunedDataSize,
+
             @JsonProperty("blockedReason") Optional<BlockedReason> blockedReason,
 
             @JsonProperty("info") OperatorInfo info)
@@ -168,6 +174,10 @@ public class OperatorStats
 
         this.spilledDataSize = requireNonNull(spilledDataSize, "spilledDataSize is null");
 
+        checkArgument(dynamicFilterPrunedPositions >= 0, "dynamicFilterPrunedPositions is negative");
+        this.dynamicFilterPrunedPositions = dynamicFilterPrunedPositions;
+        this.dynamicFilterPrunedDataSize = requireNonNull(dynamicFilterPrunedDataSize, "dynamicFilterPrunedDataSize is null");
+
         this.blockedReason = blockedReason;
 
         this.info = info;
@@ -353,6 +363,18 @@ public class OperatorStats
         return spilledDataSize;
     }
 
+    @JsonProperty
+    public long getDynamicFilterPrunedPositions()
+    {
+        return dynamicFilterPrunedPositions;
+    }
+
+    @JsonProperty
+    public DataSize getDynamicFilterPrunedDataSize()
+    {
+        return dynamicFilterPrunedDataSize;
+    }
+
     @JsonProperty
     public Optional<BlockedReason> getBlockedReason()
     {
@@ -406,6 +428,9 @@ public class OperatorStats
 
         long spilledDataSize = this.spilledDataSize.toBytes();
 
+        long dynamicFilterPrunedPositions = this.dynamicFilterPrunedPositions;
+        long dynamicFilterPrunedDataSize = this.dynamicFilterPrunedDataSize.toBytes();
+
         Optional<BlockedReason> blockedReason = this.blockedReason;
 
         Mergeable<OperatorInfo> base = getMergeableInfoOrNull(info);
@@ -446,6 +471,9 @@ public class OperatorStats
 
             spilledDataSize += operator.getSpilledDataSize().toBytes();
 
+            dynamicFilterPrunedPositions += operator.getDynamicFilterPrunedPositions();
+            dynamicFilterPrunedDataSize += operator.getDynamicFilterPrunedDataSize().toBytes();
+
             if (operator.getBlockedReason().isPresent()) {
                 blockedReason = operator.getBlockedReason();
             }
@@ -496,6 +524,9 @@ public class OperatorStats
 
                 succinctBytes(spilledDataSize),
 
+                dynamicFilterPrunedPositions,
+                succinctBytes(dynamicFilterPrunedDataSize),
+
                 blockedReason,
 
                 (OperatorInfo) base);
@@ -550,6 +581,8 @@ public class OperatorStats
                 peakSystemMemoryReservation,
                 peakTotalMemoryReservation,
                 spilledDataSize,
+                dynamicFilterPrunedPositions,
+                dynamicFilterPrunedDataSize,
                 blockedReason,
                 (info != null && info.isFinal()) ? info : null);
     }
@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.facebook.presto.operator.HttpPageBufferClient.PagesResponse;
+import com.google.common.collect.ImmutableList;
+import com.google.common.net.MediaType;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_STREAM_TYPE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.BUFFER_RESULT_HEADER_SIZE;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readSerializedPages;
+import static com.facebook.presto.operator.HttpPageBufferClient.PagesResponse.createPagesResponse;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Streams the results of remote output buffers. Each response carries a sequence of frames,
+ * which are passed to the listener as they arrive, so that the pages of a buffer do not wait
+ * for a new request once the previous pages have been received.
+ * <p>
+ * Responses are read asynchronously by the selector threads of the client, and connections
+ * are kept open and reused for the following requests to the same node. The client limits the
+ * size of each response with the max size header, and the server buffers the pages sent until
+ * they are acknowledged, so the memory used on both sides is bounded by the exchange buffers.
+ */
+@ThreadSafe
+public class PageStreamClient
+        implements Closeable
+{
+    private final HttpClient httpClient;
+    private final Duration idleTimeout;
+
+    public PageStreamClient(int maxConnectionsPerServer, Duration idleTimeout)
+    {
+        this.idleTimeout = requireNonNull(idleTimeout, "idleTimeout is null");
+
+        httpClient = new HttpClient();
+        httpClient.setName("exchange-stream");
+        httpClient.setMaxConnectionsPerDestination(maxConnectionsPerServer);
+        httpClient.setIdleTimeout(idleTimeout.toMillis());
+        try {
+            httpClient.start();
+        }
+        catch (Exception e) {
+            throw new RuntimeException("Failed to start exchange stream client", e);
+        }
+    }
+
+    /**
+     * Requests the frames of a results stream. The listener is called for every frame of the
+     * response, and the returned future completes when the response ends. Cancelling the future
+     * aborts the response.
+     */
+    public ListenableFuture<?> streamPages(URI uri, DataSize maxSize, FrameListener listener)
+    {
+        SettableFuture<Void> future = SettableFuture.create();
+        Request request = httpClient.newRequest(uri)
+                .method(HttpMethod.GET)
+                .header(PRESTO_MAX_SIZE, maxSize.toString())
+                .idleTimeout(idleTimeout.toMillis(), MILLISECONDS);
+        request.send(new StreamResponseListener(uri, listener, future));
+
+        future.addListener(() -> {
+            if (future.isCancelled()) {
+                request.abort(new RuntimeException("Results stream cancelled"));
+            }
+        }, directExecutor());
+        return future;
+    }
+
+    @Override
+    public void close()
+    {
+        try {
+            httpClient.stop();
+        }
+        catch (Exception e) {
+            throw new RuntimeException("Failed to stop exchange stream client", e);
+        }
+    }
+
+    public interface FrameListener
+    {
+        /**
+         * Called for every frame of a results stream. Must not block.
+         */
+        void frameReceived(PagesResponse frame);
+    }
+
+    private static class StreamResponseListener
+            extends Response.Listener.Adapter
+    {
+        private final URI uri;
+        private final FrameListener listener;
+        private final SettableFuture<Void> future;
+
+        private String taskInstanceId;
+
+        private final byte[] header = new byte[BUFFER_RESULT_HEADER_SIZE];
+        private int headerPosition;
+        private byte[] pages;
+        private int pagesPosition;
+
+        private StreamResponseListener(URI uri, FrameListener listener, SettableFuture<Void> future)
+        {
+            this.uri = requireNonNull(uri, "uri is null");
+            this.listener = requireNonNull(listener, "listener is null");
+            this.future = requireNonNull(future, "future is null");
+        }
+
+        @Override
+        public void onHeaders(Response response)
+        {
+            if (response.getStatus() != 200) {
+                response.abort(new PageTransportErrorException(format("Expected response code from %s to be 200, but was %s %s", uri, response.getStatus(), response.getReason())));
+                return;
+            }
+
+            String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+            if (contentType == null || !mediaTypeMatches(contentType, PRESTO_PAGES_STREAM_TYPE)) {
+                response.abort(new PageTransportErrorException(format("Expected %s response from %s but got %s", PRESTO_PAGES_STREAM_TYPE, uri, contentType)));
+                return;
+            }
+
+            taskInstanceId = response.getHeaders().get(PRESTO_TASK_INSTANCE_ID);
+            if (taskInstanceId == null) {
+                response.abort(new PageTransportErrorException(format("Expected %s header from %s", PRESTO_TASK_INSTANCE_ID, uri)));
+            }
+        }
+
+        @Override
+        public void onContent(Response response, ByteBuffer content)
+        {
+            try {
+                while (content.hasRemaining()) {
+                    if (headerPosition < header.length) {
+                        int length = min(content.remaining(), header.length - headerPosition);
+                        content.get(header, headerPosition, length);
+                        headerPosition += length;
+                        if (headerPosition == header.length) {
+                            pages = new byte[wrappedBuffer(header).getInt(BUFFER_RESULT_HEADER_SIZE - SIZE_OF_INT)];
+                            pagesPosition = 0;
+                        }
+                    }
+                    else {
+                        int length = min(content.remaining(), pages.length - pagesPosition);
+                        content.get(pages, pagesPosition, length);
+                        pagesPosition += length;
+                    }
+
+                    if (headerPosition == header.length && pagesPosition == pages.length) {
+                        listener.frameReceived(readFrame());
+                        headerPosition = 0;
+                        pages = null;
+                    }
+                }
+            }
+            catch (RuntimeException e) {
+                response.abort(e);
+            }
+        }
+
+        private PagesResponse readFrame()
+        {
+            SliceInput input = wrappedBuffer(header).getInput();
+            long token = input.readLong();
+            long nextToken = input.readLong();
+            boolean complete = input.readBoolean();
+            int pageCount = input.readInt();
+
+            // the pages reference the bytes of the frame, which are not reused
+            Slice slice = wrappedBuffer(pages);
+            List<SerializedPage> serializedPages = ImmutableList.copyOf(readSerializedPages(slice.getInput()));
+            if (serializedPages.size() != pageCount) {
+                throw new PageTransportErrorException(format("Expected %s pages in frame from %s, but got %s", pageCount, uri, serializedPages.size()));
+            }
+            return createPagesResponse(taskInstanceId, token, nextToken, serializedPages, complete);
+        }
+
+        @Override
+        public void onComplete(Result result)
+        {
+            if (result.isFailed()) {
+                future.setException(result.getFailure());
+            }
+            else if (headerPosition != 0) {
+                future.setException(new PageTransportErrorException(format("Results stream from %s ended within a frame", uri)));
+            }
+            else {
+                future.set(null);
+            }
+        }
+
+        private static boolean mediaTypeMatches(String value, MediaType range)
+        {
+            try {
+                return MediaType.parse(value).is(range);
+            }
+            catch (IllegalArgumentException | IllegalStateException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -84,6 +84,22 @@ public interface PagesHashStrategy
      */
     boolean positionNotDistinctFromRow(int leftBlockIndex, int leftPosition, int rightPosition, Page page, int[] rightChannels);
 
+    /**
+     * Calculates the hash codes of the hashed columns in the Page for the {@code length} positions starting
+     * at {@code offset}, and stores them at the start of {@code hashes}. The hash codes are the same as the
+     * ones returned by {@link #hashRow} and {@link #hashPosition}. The columns are hashed one at a time.
+     */
+    void hashRows(int offset, int length, Page page, int[] rightChannels, long[] hashes);
+
+    /**
+     * Compares the hashed columns in this PagesHashStrategy to the hashed columns in the Page for a batch
+     * of {@code count} candidate pairs under "not distinct from" semantics. Clears {@code result[i]} if
+     * the values at {@code leftBlockIndexes[i]} and {@code leftPositions[i]} are distinct from the row at
+     * {@code rightPositions[i]}. Pairs whose result is already cleared are skipped. The columns are
+     * compared one at a time.
+     */
+    void positionsNotDistinctFromRows(int[] leftBlockIndexes, int[] leftPositions, int[] rightPositions, int count, Page page, int[] rightChannels, boolean[] result);
+
     /**
      * Compares the hashed columns in this PagesHashStrategy at the specified positions.
      */
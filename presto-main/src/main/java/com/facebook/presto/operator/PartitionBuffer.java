@@ -0,0 +1,393 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.IntArrayBlock;
+import com.facebook.presto.spi.block.IntArrayBlockBuilder;
+import com.facebook.presto.spi.block.LongArrayBlock;
+import com.facebook.presto.spi.block.LongArrayBlockBuilder;
+import com.facebook.presto.spi.block.VariableWidthBlock;
+import com.facebook.presto.spi.block.VariableWidthBlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slices;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Math.max;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffers the rows of one output partition one column at a time. The values of fixed width
+ * and variable width types are copied in bulk into arrays, which become the blocks of the
+ * output page without another copy. Values of other types are appended to a block builder.
+ */
+final class PartitionBuffer
+{
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final ColumnBuffer[] columns;
+    private final long maxPageSizeInBytes;
+    private int positionCount;
+
+    PartitionBuffer(List<Type> types, long maxPageSizeInBytes)
+    {
+        requireNonNull(types, "types is null");
+        this.columns = new ColumnBuffer[types.size()];
+        for (int channel = 0; channel < columns.length; channel++) {
+            columns[channel] = createColumnBuffer(types.get(channel));
+        }
+        this.maxPageSizeInBytes = maxPageSizeInBytes;
+    }
+
+    /**
+     * Appends the values at {@code positions[offset]} to {@code positions[offset + length - 1]}
+     * of every block. Each column is read from its own block and positions, which allows the
+     * values of dictionary and run length encoded blocks to be read from the underlying block.
+     */
+    public void append(Block[] blocks, int[][] positions, int offset, int length)
+    {
+        for (int channel = 0; channel < columns.length; channel++) {
+            columns[channel].append(blocks[channel], positions[channel], offset, length);
+        }
+        positionCount += length;
+    }
+
+    public boolean isEmpty()
+    {
+        return positionCount == 0;
+    }
+
+    public boolean isFull()
+    {
+        return getSizeInBytes() >= maxPageSizeInBytes;
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    public long getSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (ColumnBuffer column : columns) {
+            sizeInBytes += column.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (ColumnBuffer column : columns) {
+            sizeInBytes += column.getRetainedSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Returns the buffered rows and empties the buffer.
+     */
+    public Page build()
+    {
+        Block[] blocks = new Block[columns.length];
+        for (int channel = 0; channel < columns.length; channel++) {
+            blocks[channel] = columns[channel].build();
+        }
+        Page page = new Page(positionCount, blocks);
+        positionCount = 0;
+        return page;
+    }
+
+    private static ColumnBuffer createColumnBuffer(Type type)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, INITIAL_CAPACITY);
+        if (blockBuilder instanceof LongArrayBlockBuilder) {
+            return new LongColumnBuffer();
+        }
+        if (blockBuilder instanceof IntArrayBlockBuilder) {
+            return new IntColumnBuffer();
+        }
+        if (blockBuilder instanceof VariableWidthBlockBuilder) {
+            return new VariableWidthColumnBuffer();
+        }
+        return new BlockBuilderColumnBuffer(type, blockBuilder);
+    }
+
+    private interface ColumnBuffer
+    {
+        void append(Block block, int[] positions, int offset, int length);
+
+        long getSizeInBytes();
+
+        long getRetainedSizeInBytes();
+
+        Block build();
+    }
+
+    private static class LongColumnBuffer
+            implements ColumnBuffer
+    {
+        private long[] values = new long[0];
+        private boolean[] valueIsNull = new boolean[0];
+        private boolean hasNullValue;
+        private int positionCount;
+
+        @Override
+        public void append(Block block, int[] positions, int offset, int length)
+        {
+            ensureCapacity(positionCount + length);
+            if (block.mayHaveNull()) {
+                for (int i = offset; i < offset + length; i++) {
+                    int position = positions[i];
+                    if (block.isNull(position)) {
+                        valueIsNull[positionCount] = true;
+                        hasNullValue = true;
+                    }
+                    else {
+                        values[positionCount] = block.getLong(position);
+                    }
+                    positionCount++;
+                }
+            }
+            else {
+                for (int i = offset; i < offset + length; i++) {
+                    values[positionCount] = block.getLong(positions[i]);
+                    positionCount++;
+                }
+            }
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return (Long.BYTES + Byte.BYTES) * (long) positionCount;
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return sizeOf(values) + sizeOf(valueIsNull);
+        }
+
+        @Override
+        public Block build()
+        {
+            Block block = new LongArrayBlock(positionCount, hasNullValue ? Optional.of(valueIsNull) : Optional.empty(), values);
+            values = new long[0];
+            valueIsNull = new boolean[0];
+            hasNullValue = false;
+            positionCount = 0;
+            return block;
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (values.length < capacity) {
+                int newCapacity = max(capacity, max(INITIAL_CAPACITY, values.length * 2));
+                values = Arrays.copyOf(values, newCapacity);
+                valueIsNull = Arrays.copyOf(valueIsNull, newCapacity);
+            }
+        }
+    }
+
+    private static class IntColumnBuffer
+            implements ColumnBuffer
+    {
+        private int[] values = new int[0];
+        private boolean[] valueIsNull = new boolean[0];
+        private boolean hasNullValue;
+        private int positionCount;
+
+        @Override
+        public void append(Block block, int[] positions, int offset, int length)
+        {
+            ensureCapacity(positionCount + length);
+            if (block.mayHaveNull()) {
+                for (int i = offset; i < offset + length; i++) {
+                    int position = positions[i];
+                    if (block.isNull(position)) {
+                        valueIsNull[positionCount] = true;
+                        hasNullValue = true;
+                    }
+                    else {
+                        values[positionCount] = block.getInt(position);
+                    }
+                    positionCount++;
+                }
+            }
+            else {
+                for (int i = offset; i < offset + length; i++) {
+                    values[positionCount] = block.getInt(positions[i]);
+                    positionCount++;
+                }
+            }
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return (Integer.BYTES + Byte.BYTES) * (long) positionCount;
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return sizeOf(values) + sizeOf(valueIsNull);
+        }
+
+        @Override
+        public Block build()
+        {
+            Block block = new IntArrayBlock(positionCount, hasNullValue ? Optional.of(valueIsNull) : Optional.empty(), values);
+            values = new int[0];
+            valueIsNull = new boolean[0];
+            hasNullValue = false;
+            positionCount = 0;
+            return block;
+        }
+
+        private void ensureCapacity(int capacity)
+        {
+            if (values.length < capacity) {
+                int newCapacity = max(capacity, max(INITIAL_CAPACITY, values.length * 2));
+                values = Arrays.copyOf(values, newCapacity);
+                valueIsNull = Arrays.copyOf(valueIsNull, newCapacity);
+            }
+        }
+    }
+
+    private static class VariableWidthColumnBuffer
+            implements ColumnBuffer
+    {
+        private int[] offsets = new int[1];
+        private boolean[] valueIsNull = new boolean[0];
+        private boolean hasNullValue;
+        private byte[] bytes = new byte[0];
+        private int positionCount;
+
+        @Override
+        public void append(Block block, int[] positions, int offset, int length)
+        {
+            ensurePositionCapacity(positionCount + length);
+            for (int i = offset; i < offset + length; i++) {
+                int position = positions[i];
+                int dataSize = offsets[positionCount];
+                if (block.isNull(position)) {
+                    valueIsNull[positionCount] = true;
+                    hasNullValue = true;
+                }
+                else {
+                    int sliceLength = block.getSliceLength(position);
+                    ensureBytesCapacity(dataSize + sliceLength);
+                    block.getSlice(position, 0, sliceLength).getBytes(0, bytes, dataSize, sliceLength);
+                    dataSize += sliceLength;
+                }
+                positionCount++;
+                offsets[positionCount] = dataSize;
+            }
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return offsets[positionCount] + (Integer.BYTES + Byte.BYTES) * (long) positionCount;
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return sizeOf(offsets) + sizeOf(valueIsNull) + sizeOf(bytes);
+        }
+
+        @Override
+        public Block build()
+        {
+            Block block = new VariableWidthBlock(
+                    positionCount,
+                    Slices.wrappedBuffer(bytes, 0, offsets[positionCount]),
+                    offsets,
+                    hasNullValue ? Optional.of(valueIsNull) : Optional.empty());
+            offsets = new int[1];
+            valueIsNull = new boolean[0];
+            hasNullValue = false;
+            bytes = new byte[0];
+            positionCount = 0;
+            return block;
+        }
+
+        private void ensurePositionCapacity(int capacity)
+        {
+            if (valueIsNull.length < capacity) {
+                int newCapacity = max(capacity, max(INITIAL_CAPACITY, valueIsNull.length * 2));
+                offsets = Arrays.copyOf(offsets, newCapacity + 1);
+                valueIsNull = Arrays.copyOf(valueIsNull, newCapacity);
+            }
+        }
+
+        private void ensureBytesCapacity(int capacity)
+        {
+            if (bytes.length < capacity) {
+                bytes = Arrays.copyOf(bytes, max(capacity, bytes.length * 2));
+            }
+        }
+    }
+
+    private static class BlockBuilderColumnBuffer
+            implements ColumnBuffer
+    {
+        private final Type type;
+        private BlockBuilder blockBuilder;
+
+        public BlockBuilderColumnBuffer(Type type, BlockBuilder blockBuilder)
+        {
+            this.type = requireNonNull(type, "type is null");
+            this.blockBuilder = requireNonNull(blockBuilder, "blockBuilder is null");
+        }
+
+        @Override
+        public void append(Block block, int[] positions, int offset, int length)
+        {
+            for (int i = offset; i < offset + length; i++) {
+                type.appendTo(block, positions[i], blockBuilder);
+            }
+        }
+
+        @Override
+        public long getSizeInBytes()
+        {
+            return blockBuilder.getSizeInBytes();
+        }
+
+        @Override
+        public long getRetainedSizeInBytes()
+        {
+            return blockBuilder.getRetainedSizeInBytes();
+        }
+
+        @Override
+        public Block build()
+        {
+            Block block = blockBuilder.build();
+            blockBuilder = blockBuilder.newBlockBuilderLike(null);
+            return block;
+        }
+    }
+}
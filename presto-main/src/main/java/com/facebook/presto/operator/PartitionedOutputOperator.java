@@ -15,6 +15,8 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.execution.Lifespan;
 import com.facebook.presto.execution.buffer.OutputBuffer;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
+import com.facebook.presto.execution.buffer.PageCompressionStats;
 import com.facebook.presto.execution.buffer.PagesSerde;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.execution.buffer.SerializedPage;
@@ -22,6 +24,7 @@ import com.facebook.presto.memory.context.LocalMemoryContext;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.block.RunLengthEncodedBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.relation.ConstantExpression;
@@ -29,10 +32,14 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.util.Mergeable;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
+import java.util.Arrays;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.atomic.AtomicLong;
@@ -59,6 +66,7 @@ public class PartitionedOutputOperator
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel;
         private final DataSize maxMemory;
+        private final boolean optimizedRepartitioning;
 
         public PartitionedOutputFactory(
                 PartitionFunction partitionFunction,
@@ -68,6 +76,19 @@ public class PartitionedOutputOperator
                 OptionalInt nullChannel,
                 OutputBuffer outputBuffer,
                 DataSize maxMemory)
+        {
+            this(partitionFunction, partitionChannels, partitionConstants, replicatesAnyRow, nullChannel, outputBuffer, maxMemory, false);
+        }
+
+        public PartitionedOutputFactory(
+                PartitionFunction partitionFunction,
+                List<Integer> partitionChannels,
+                List<Optional<ConstantExpression>> partitionConstants,
+                boolean replicatesAnyRow,
+                OptionalInt nullChannel,
+                OutputBuffer outputBuffer,
+                DataSize maxMemory,
+                boolean optimizedRepartitioning)
         {
             this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
             this.partitionChannels = requireNonNull(partitionChannels, "partitionChannels is null");
@@ -76,6 +97,7 @@ public class PartitionedOutputOperator
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
+            this.optimizedRepartitioning = optimizedRepartitioning;
         }
 
         @Override
@@ -98,7 +120,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    optimizedRepartitioning);
         }
     }
 
@@ -117,6 +140,7 @@ public class PartitionedOutputOperator
         private final OutputBuffer outputBuffer;
         private final PagesSerdeFactory serdeFactory;
         private final DataSize maxMemory;
+        private final boolean optimizedRepartitioning;
 
         public PartitionedOutputOperatorFactory(
                 int operatorId,
@@ -130,7 +154,8 @@ public class PartitionedOutputOperator
                 OptionalInt nullChannel,
                 OutputBuffer outputBuffer,
                 PagesSerdeFactory serdeFactory,
-                DataSize maxMemory)
+                DataSize maxMemory,
+                boolean optimizedRepartitioning)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -144,6 +169,7 @@ public class PartitionedOutputOperator
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
             this.serdeFactory = requireNonNull(serdeFactory, "serdeFactory is null");
             this.maxMemory = requireNonNull(maxMemory, "maxMemory is null");
+            this.optimizedRepartitioning = optimizedRepartitioning;
         }
 
         @Override
@@ -161,7 +187,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    optimizedRepartitioning);
         }
 
         @Override
@@ -184,7 +211,8 @@ public class PartitionedOutputOperator
                     nullChannel,
                     outputBuffer,
                     serdeFactory,
-                    maxMemory);
+                    maxMemory,
+                    optimizedRepartitioning);
         }
     }
 
@@ -206,7 +234,8 @@ public class PartitionedOutputOperator
             OptionalInt nullChannel,
             OutputBuffer outputBuffer,
             PagesSerdeFactory serdeFactory,
-            DataSize maxMemory)
+            DataSize maxMemory,
+            boolean optimizedRepartitioning)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.pagePreprocessor = requireNonNull(pagePreprocessor, "pagePreprocessor is null");
@@ -220,7 +249,8 @@ public class PartitionedOutputOperator
                 serdeFactory,
                 sourceTypes,
                 maxMemory,
-                operatorContext.getDriverContext().getLifespan());
+                operatorContext.getDriverContext().getLifespan(),
+                optimizedRepartitioning);
 
         operatorContext.setInfoSupplier(this::getInfo);
         this.systemMemoryContext = operatorContext.newLocalSystemMemoryContext(PartitionedOutputOperator.class.getSimpleName());
@@ -308,8 +338,20 @@ public class PartitionedOutputOperator
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
         private final AtomicLong rowsAdded = new AtomicLong();
         private final AtomicLong pagesAdded = new AtomicLong();
+        private final boolean optimizedRepartitioning;
         private boolean hasAnyRowBeenReplicated;
 
+        // for partitioning one column at a time
+        private final PartitionBuffer[] partitionBuffers;
+        private final int[] partitionSizes;
+        private final int[] partitionEnds;
+        private final Block[] sourceBlocks;
+        private final int[][] sourcePositions;
+        private final int[][] channelPositions;
+        private int[] partitionAssignments = new int[0];
+        private int[] groupedPositions = new int[0];
+        private int[] zeroPositions = new int[0];
+
         public PagePartitioner(
                 PartitionFunction partitionFunction,
                 List<Integer> partitionChannels,
@@ -320,7 +362,8 @@ public class PartitionedOutputOperator
                 PagesSerdeFactory serdeFactory,
                 List<Type> sourceTypes,
                 DataSize maxMemory,
-                Lifespan lifespan)
+                Lifespan lifespan,
+                boolean optimizedRepartitioning)
         {
             this.partitionFunction = requireNonNull(partitionFunction, "partitionFunction is null");
             this.partitionChannels = requireNonNull(partitionChannels, "partitionChannels is null");
@@ -333,15 +376,31 @@ public class PartitionedOutputOperator
             this.sourceTypes = requireNonNull(sourceTypes, "sourceTypes is null");
             this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
             this.lifespan = requireNonNull(lifespan, "lifespan is null");
+            this.optimizedRepartitioning = optimizedRepartitioning;
 
             int partitionCount = partitionFunction.getPartitionCount();
             int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
             pageSize = max(1, pageSize);
 
-            this.pageBuilders = new PageBuilder[partitionCount];
-            for (int i = 0; i < partitionCount; i++) {
-                pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
+            if (optimizedRepartitioning) {
+                this.pageBuilders = new PageBuilder[0];
+                this.partitionBuffers = new PartitionBuffer[partitionCount];
+                for (int i = 0; i < partitionCount; i++) {
+                    partitionBuffers[i] = new PartitionBuffer(sourceTypes, pageSize);
+                }
+            }
+            else {
+                this.pageBuilders = new PageBuilder[partitionCount];
+                for (int i = 0; i < partitionCount; i++) {
+                    pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
+                }
+                this.partitionBuffers = new PartitionBuffer[0];
             }
+            this.partitionSizes = new int[partitionCount];
+            this.partitionEnds = new int[partitionCount];
+            this.sourceBlocks = new Block[sourceTypes.size()];
+            this.sourcePositions = new int[sourceTypes.size()][];
+            this.channelPositions = new int[sourceTypes.size()][0];
         }
 
         public ListenableFuture<?> isFull()
@@ -357,6 +416,9 @@ public class PartitionedOutputOperator
             for (PageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getSizeInBytes();
             }
+            for (PartitionBuffer partitionBuffer : partitionBuffers) {
+                sizeInBytes += partitionBuffer.getSizeInBytes();
+            }
             return sizeInBytes;
         }
 
@@ -369,18 +431,26 @@ public class PartitionedOutputOperator
             for (PageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getRetainedSizeInBytes();
             }
+            for (PartitionBuffer partitionBuffer : partitionBuffers) {
+                sizeInBytes += partitionBuffer.getRetainedSizeInBytes();
+            }
             return sizeInBytes;
         }
 
         public PartitionedOutputInfo getInfo()
         {
-            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage());
+            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), serde.getCompressionStats());
         }
 
         public void partitionPage(Page page)
         {
             requireNonNull(page, "page is null");
 
+            if (optimizedRepartitioning) {
+                partitionPageByColumn(page);
+                return;
+            }
+
             Page partitionFunctionArgs = getPartitionFunctionArguments(page);
             for (int position = 0; position < page.getPositionCount(); position++) {
                 boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
@@ -399,6 +469,96 @@ public class PartitionedOutputOperator
             flush(false);
         }
 
+        /**
+         * Assigns all positions of the page to partitions first, and then appends the positions
+         * of each partition one column at a time.
+         */
+        private void partitionPageByColumn(Page page)
+        {
+            int positionCount = page.getPositionCount();
+            if (partitionAssignments.length < positionCount) {
+                partitionAssignments = new int[positionCount];
+                groupedPositions = new int[positionCount];
+                for (int channel = 0; channel < channelPositions.length; channel++) {
+                    channelPositions[channel] = new int[positionCount];
+                }
+                zeroPositions = new int[positionCount];
+            }
+            Arrays.fill(partitionSizes, 0);
+
+            // the replicated positions are kept after the positions of all partitions
+            int replicatedCount = 0;
+            Page partitionFunctionArgs = getPartitionFunctionArguments(page);
+            Block nullBlock = nullChannel.isPresent() ? page.getBlock(nullChannel.getAsInt()) : null;
+            for (int position = 0; position < positionCount; position++) {
+                boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
+                        nullBlock != null && nullBlock.isNull(position);
+                if (shouldReplicate) {
+                    partitionAssignments[position] = -1;
+                    replicatedCount++;
+                    hasAnyRowBeenReplicated = true;
+                }
+                else {
+                    int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
+                    partitionAssignments[position] = partition;
+                    partitionSizes[partition]++;
+                }
+            }
+
+            // group the positions by partition, keeping the order of the page within each partition
+            int offset = 0;
+            for (int partition = 0; partition < partitionSizes.length; partition++) {
+                partitionEnds[partition] = offset;
+                offset += partitionSizes[partition];
+            }
+            int replicatedOffset = offset;
+            for (int position = 0; position < positionCount; position++) {
+                int partition = partitionAssignments[position];
+                if (partition >= 0) {
+                    groupedPositions[partitionEnds[partition]] = position;
+                    partitionEnds[partition]++;
+                }
+                else {
+                    groupedPositions[offset] = position;
+                    offset++;
+                }
+            }
+
+            // read the values of dictionary and run length encoded blocks from the underlying block
+            for (int channel = 0; channel < sourceBlocks.length; channel++) {
+                Block block = page.getBlock(channel).getLoadedBlock();
+                if (block instanceof RunLengthEncodedBlock) {
+                    sourceBlocks[channel] = ((RunLengthEncodedBlock) block).getValue();
+                    sourcePositions[channel] = zeroPositions;
+                }
+                else if (block instanceof DictionaryBlock) {
+                    DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+                    int[] positions = channelPositions[channel];
+                    for (int i = 0; i < positionCount; i++) {
+                        positions[i] = dictionaryBlock.getId(groupedPositions[i]);
+                    }
+                    sourceBlocks[channel] = dictionaryBlock.getDictionary();
+                    sourcePositions[channel] = positions;
+                }
+                else {
+                    sourceBlocks[channel] = block;
+                    sourcePositions[channel] = groupedPositions;
+                }
+            }
+
+            for (int partition = 0; partition < partitionBuffers.length; partition++) {
+                if (replicatedCount > 0) {
+                    partitionBuffers[partition].append(sourceBlocks, sourcePositions, replicatedOffset, replicatedCount);
+                }
+                int partitionSize = partitionSizes[partition];
+                if (partitionSize > 0) {
+                    partitionBuffers[partition].append(sourceBlocks, sourcePositions, partitionEnds[partition] - partitionSize, partitionSize);
+                }
+            }
+            Arrays.fill(sourceBlocks, null);
+            flush(false);
+        }
+
         private Page getPartitionFunctionArguments(Page page)
         {
             Block[] blocks = new Block[partitionChannels.size()];
@@ -432,17 +592,27 @@ public class PartitionedOutputOperator
                 if (!partitionPageBuilder.isEmpty() && (force || partitionPageBuilder.isFull())) {
                     Page pagePartition = partitionPageBuilder.build();
                     partitionPageBuilder.reset();
-
-                    List<SerializedPage> serializedPages = splitPage(pagePartition, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
-                            .map(serde::serialize)
-                            .collect(toImmutableList());
-
-                    outputBuffer.enqueue(lifespan, partition, serializedPages);
-                    pagesAdded.incrementAndGet();
-                    rowsAdded.addAndGet(pagePartition.getPositionCount());
+                    enqueue(partition, pagePartition);
+                }
+            }
+            for (int partition = 0; partition < partitionBuffers.length; partition++) {
+                PartitionBuffer partitionBuffer = partitionBuffers[partition];
+                if (!partitionBuffer.isEmpty() && (force || partitionBuffer.isFull())) {
+                    enqueue(partition, partitionBuffer.build());
                 }
             }
         }
+
+        private void enqueue(int partition, Page pagePartition)
+        {
+            List<SerializedPage> serializedPages = splitPage(pagePartition, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
+                    .map(serde::serialize)
+                    .collect(toImmutableList());
+
+            outputBuffer.enqueue(lifespan, partition, serializedPages);
+            pagesAdded.incrementAndGet();
+            rowsAdded.addAndGet(pagePartition.getPositionCount());
+        }
     }
 
     public static class PartitionedOutputInfo
@@ -451,16 +621,19 @@ public class PartitionedOutputOperator
         private final long rowsAdded;
         private final long pagesAdded;
         private final long outputBufferPeakMemoryUsage;
+        private final Map<PageCompressionCodec, PageCompressionStats> compressionStats;
 
         @JsonCreator
         public PartitionedOutputInfo(
                 @JsonProperty("rowsAdded") long rowsAdded,
                 @JsonProperty("pagesAdded") long pagesAdded,
-                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage)
+                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage,
+                @JsonProperty("compressionStats") Map<PageCompressionCodec, PageCompressionStats> compressionStats)
         {
             this.rowsAdded = rowsAdded;
             this.pagesAdded = pagesAdded;
             this.outputBufferPeakMemoryUsage = outputBufferPeakMemoryUsage;
+            this.compressionStats = ImmutableMap.copyOf(requireNonNull(compressionStats, "compressionStats is null"));
         }
 
         @JsonProperty
@@ -481,13 +654,23 @@ public class PartitionedOutputOperator
             return outputBufferPeakMemoryUsage;
         }
 
+        @JsonProperty
+        public Map<PageCompressionCodec, PageCompressionStats> getCompressionStats()
+        {
+            return compressionStats;
+        }
+
         @Override
         public PartitionedOutputInfo mergeWith(PartitionedOutputInfo other)
         {
+            Map<PageCompressionCodec, PageCompressionStats> mergedCompressionStats = new EnumMap<>(PageCompressionCodec.class);
+            mergedCompressionStats.putAll(compressionStats);
+            other.compressionStats.forEach((codec, stats) -> mergedCompressionStats.merge(codec, stats, PageCompressionStats::mergeWith));
             return new PartitionedOutputInfo(
                     rowsAdded + other.rowsAdded,
                     pagesAdded + other.pagesAdded,
-                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage));
+                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage),
+                    mergedCompressionStats);
         }
 
         @Override
@@ -503,6 +686,7 @@ public class PartitionedOutputOperator
                     .add("rowsAdded", rowsAdded)
                     .add("pagesAdded", pagesAdded)
                     .add("outputBufferPeakMemoryUsage", outputBufferPeakMemoryUsage)
+                    .add("compressionStats", compressionStats)
                     .toString();
         }
     }
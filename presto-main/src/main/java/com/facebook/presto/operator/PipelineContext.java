@@ -165,6 +165,19 @@ public class PipelineContext
         totalSplits.addAndGet(count);
     }
 
+    /**
+     * Removes the driver of a split that was taken back from the task before the driver was created.
+     */
+    public void splitRevoked(DriverContext driverContext)
+    {
+        requireNonNull(driverContext, "driverContext is null");
+
+        if (!drivers.remove(driverContext)) {
+            throw new IllegalArgumentException("Unknown driver " + driverContext);
+        }
+        totalSplits.decrementAndGet();
+    }
+
     public void driverFinished(DriverContext driverContext)
     {
         requireNonNull(driverContext, "driverContext is null");
@@ -29,6 +29,7 @@ import com.facebook.presto.spi.UpdatablePageSource;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.LazyBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.EmptySplit;
 import com.facebook.presto.split.EmptySplitPageSource;
@@ -67,9 +68,11 @@ public class ScanFilterAndProjectOperator
     private final LocalMemoryContext outputMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
     private final MergingPageOutput mergingOutput;
+    private final Supplier<TupleDomain<ColumnHandle>> dynamicFilterSupplier;
 
     private RecordCursor cursor;
     private ConnectorPageSource pageSource;
+    private Optional<DynamicFilterPageFilter> dynamicFilter = Optional.empty();
 
     private Split split;
 
@@ -86,7 +89,8 @@ public class ScanFilterAndProjectOperator
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
             Iterable<Type> types,
-            MergingPageOutput mergingOutput)
+            MergingPageOutput mergingOutput,
+            Supplier<TupleDomain<ColumnHandle>> dynamicFilterSupplier)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
@@ -98,6 +102,7 @@ public class ScanFilterAndProjectOperator
         this.pageProcessorMemoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.outputMemoryContext = operatorContext.newLocalSystemMemoryContext(ScanFilterAndProjectOperator.class.getSimpleName());
         this.mergingOutput = requireNonNull(mergingOutput, "mergingOutput is null");
+        this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
 
         this.pageBuilder = new PageBuilder(ImmutableList.copyOf(requireNonNull(types, "types is null")));
     }
@@ -218,12 +223,20 @@ public class ScanFilterAndProjectOperator
         }
 
         if (!finishing && pageSource == null && cursor == null) {
-            ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
-            if (source instanceof RecordPageSource) {
-                cursor = ((RecordPageSource) source).getCursor();
+            TupleDomain<ColumnHandle> dynamicFilterPredicate = dynamicFilterSupplier.get();
+            if (dynamicFilterPredicate.isNone()) {
+                // no row of the split can satisfy the dynamic filter
+                pageSource = new EmptySplitPageSource();
             }
             else {
-                pageSource = source;
+                ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, dynamicFilterPredicate);
+                if (source instanceof RecordPageSource) {
+                    cursor = ((RecordPageSource) source).getCursor();
+                }
+                else {
+                    pageSource = source;
+                    dynamicFilter = DynamicFilterPageFilter.create(operatorContext, dynamicFilterPredicate, columns);
+                }
             }
         }
 
@@ -276,6 +289,9 @@ public class ScanFilterAndProjectOperator
 
             if (page != null) {
                 page = recordProcessedInput(page);
+                if (dynamicFilter.isPresent()) {
+                    page = dynamicFilter.get().filter(page);
+                }
 
                 // update operator stats
                 long endCompletedBytes = pageSource.getCompletedBytes();
@@ -334,6 +350,7 @@ public class ScanFilterAndProjectOperator
         private final List<Type> types;
         private final DataSize minOutputPageSize;
         private final int minOutputPageRowCount;
+        private final Supplier<TupleDomain<ColumnHandle>> dynamicFilterSupplier;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -346,7 +363,8 @@ public class ScanFilterAndProjectOperator
                 Iterable<ColumnHandle> columns,
                 List<Type> types,
                 DataSize minOutputPageSize,
-                int minOutputPageRowCount)
+                int minOutputPageRowCount,
+                Supplier<TupleDomain<ColumnHandle>> dynamicFilterSupplier)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -358,6 +376,7 @@ public class ScanFilterAndProjectOperator
             this.types = requireNonNull(types, "types is null");
             this.minOutputPageSize = requireNonNull(minOutputPageSize, "minOutputPageSize is null");
             this.minOutputPageRowCount = minOutputPageRowCount;
+            this.dynamicFilterSupplier = requireNonNull(dynamicFilterSupplier, "dynamicFilterSupplier is null");
         }
 
         @Override
@@ -379,7 +398,8 @@ public class ScanFilterAndProjectOperator
                     pageProcessor.get(),
                     columns,
                     types,
-                    new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount));
+                    new MergingPageOutput(types, minOutputPageSize.toBytes(), minOutputPageRowCount),
+                    dynamicFilterSupplier);
         }
 
         @Override
@@ -23,6 +23,7 @@ import com.google.common.collect.ImmutableList;
 import org.openjdk.jol.info.ClassLayout;
 
 import java.lang.invoke.MethodHandle;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -218,6 +219,47 @@ public class SimplePagesHashStrategy
         return true;
     }
 
+    @Override
+    public void hashRows(int offset, int length, Page page, int[] rightChannels, long[] hashes)
+    {
+        Arrays.fill(hashes, 0, length, 0);
+        for (int i = 0; i < hashChannels.size(); i++) {
+            Type type = types.get(hashChannels.get(i));
+            Block block = page.getBlock(rightChannels[i]);
+            for (int position = 0; position < length; position++) {
+                hashes[position] = hashes[position] * 31 + TypeUtils.hashPosition(type, block, offset + position);
+            }
+        }
+    }
+
+    @Override
+    public void positionsNotDistinctFromRows(int[] leftBlockIndexes, int[] leftPositions, int[] rightPositions, int count, Page page, int[] rightChannels, boolean[] result)
+    {
+        for (int channel = 0; channel < hashChannels.size(); channel++) {
+            int hashChannel = hashChannels.get(channel);
+            Type type = types.get(hashChannel);
+            List<Block> leftBlocks = channels.get(hashChannel);
+            Block rightBlock = page.getBlock(rightChannels[channel]);
+            MethodHandle methodHandle = distinctFromMethodHandles.get(hashChannel);
+            for (int i = 0; i < count; i++) {
+                if (!result[i]) {
+                    continue;
+                }
+                Block leftBlock = leftBlocks.get(leftBlockIndexes[i]);
+                if (groupByUsesEqualTo) {
+                    result[i] = TypeUtils.positionEqualsPosition(type, leftBlock, leftPositions[i], rightBlock, rightPositions[i]);
+                    continue;
+                }
+                try {
+                    result[i] = (boolean) methodHandle.invokeExact(leftBlock, leftPositions[i], rightBlock, rightPositions[i]);
+                }
+                catch (Throwable t) {
+                    throw internalError(t);
+                }
+            }
+        }
+    }
+
     @Override
     public boolean positionEqualsPosition(int leftBlockIndex, int leftPosition, int rightBlockIndex, int rightPosition)
     {
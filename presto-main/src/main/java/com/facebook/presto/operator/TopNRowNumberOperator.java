@@ -14,16 +14,23 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.PartitioningSpiller;
+import com.facebook.presto.spiller.PartitioningSpillerFactory;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
@@ -31,8 +38,13 @@ import java.util.Optional;
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spiller.PartitioningSpillerFactory.unsupportedPartitioningSpillerFactory;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.transform;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 
 public class TopNRowNumberOperator
@@ -59,6 +71,8 @@ public class TopNRowNumberOperator
         private final boolean generateRowNumber;
         private boolean closed;
         private final JoinCompiler joinCompiler;
+        private final boolean spillEnabled;
+        private final PartitioningSpillerFactory partitioningSpillerFactory;
 
         public TopNRowNumberOperatorFactory(
                 int operatorId,
@@ -74,6 +88,41 @@ public class TopNRowNumberOperator
                 Optional<Integer> hashChannel,
                 int expectedPositions,
                 JoinCompiler joinCompiler)
+        {
+            this(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    partitionChannels,
+                    partitionTypes,
+                    sortChannels,
+                    sortOrder,
+                    maxRowCountPerPartition,
+                    partial,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    false,
+                    unsupportedPartitioningSpillerFactory());
+        }
+
+        public TopNRowNumberOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<Integer> partitionChannels,
+                List<? extends Type> partitionTypes,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int maxRowCountPerPartition,
+                boolean partial,
+                Optional<Integer> hashChannel,
+                int expectedPositions,
+                JoinCompiler joinCompiler,
+                boolean spillEnabled,
+                PartitioningSpillerFactory partitioningSpillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -91,6 +140,8 @@ public class TopNRowNumberOperator
             this.generateRowNumber = !partial;
             this.expectedPositions = expectedPositions;
             this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+            this.spillEnabled = spillEnabled;
+            this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
         }
 
         @Override
@@ -110,7 +161,10 @@ public class TopNRowNumberOperator
                     generateRowNumber,
                     hashChannel,
                     expectedPositions,
-                    joinCompiler);
+                    joinCompiler,
+                    // like partial aggregations, the partial step is not spilled
+                    spillEnabled && !partial,
+                    partitioningSpillerFactory);
         }
 
         @Override
@@ -122,22 +176,58 @@ public class TopNRowNumberOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new TopNRowNumberOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, partitionChannels, partitionTypes, sortChannels, sortOrder, maxRowCountPerPartition, partial, hashChannel, expectedPositions, joinCompiler);
+            return new TopNRowNumberOperatorFactory(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    partitionChannels,
+                    partitionTypes,
+                    sortChannels,
+                    sortOrder,
+                    maxRowCountPerPartition,
+                    partial,
+                    hashChannel,
+                    expectedPositions,
+                    joinCompiler,
+                    spillEnabled,
+                    partitioningSpillerFactory);
         }
     }
 
+    // spilled rows are partitioned by the hash of their partition channels, so that each partition can be read back separately
+    private static final int SPILL_PARTITION_COUNT = 16;
+
     private final OperatorContext operatorContext;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
+    private final List<Type> sourceTypes;
     private final List<Integer> outputChannels;
-
-    private final GroupByHash groupByHash;
-    private final GroupedTopNBuilder groupedTopNBuilder;
+    private final List<Integer> partitionChannels;
+    private final List<Type> partitionTypes;
+    private final PageWithPositionComparator comparator;
+    private final int maxRowCountPerPartition;
+    private final boolean generateRowNumber;
+    private final Optional<Integer> hashChannel;
+    private final int expectedPositions;
+    private final JoinCompiler joinCompiler;
+    private final boolean spillEnabled;
+    private final PartitioningSpillerFactory partitioningSpillerFactory;
+
+    private GroupByHash groupByHash;
+    private GroupedTopNBuilder groupedTopNBuilder;
 
     private boolean finishing;
     private Work<?> unfinishedWork;
     private Iterator<Page> outputIterator;
 
+    private Optional<PartitioningSpiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    private Iterator<Page> spilledPages;
+    private int nextSpilledPartition;
+
     public TopNRowNumberOperator(
             OperatorContext operatorContext,
             List<? extends Type> sourceTypes,
@@ -150,10 +240,13 @@ public class TopNRowNumberOperator
             boolean generateRowNumber,
             Optional<Integer> hashChannel,
             int expectedPositions,
-            JoinCompiler joinCompiler)
+            JoinCompiler joinCompiler,
+            boolean spillEnabled,
+            PartitioningSpillerFactory partitioningSpillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
 
         ImmutableList.Builder<Integer> outputChannelsBuilder = ImmutableList.builder();
         for (int channel : requireNonNull(outputChannels, "outputChannels is null")) {
@@ -165,29 +258,35 @@ public class TopNRowNumberOperator
         this.outputChannels = outputChannelsBuilder.build();
 
         checkArgument(maxRowCountPerPartition > 0, "maxRowCountPerPartition must be > 0");
-
         if (!partitionChannels.isEmpty()) {
             checkArgument(expectedPositions > 0, "expectedPositions must be > 0");
-            groupByHash = createGroupByHash(
-                    partitionTypes,
-                    Ints.toArray(partitionChannels),
-                    hashChannel,
-                    expectedPositions,
-                    isDictionaryAggregationEnabled(operatorContext.getSession()),
-                    joinCompiler,
-                    this::updateMemoryReservation);
-        }
-        else {
-            groupByHash = new NoChannelGroupByHash();
         }
 
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
+        this.partitionChannels = ImmutableList.copyOf(requireNonNull(partitionChannels, "partitionChannels is null"));
+        this.partitionTypes = ImmutableList.copyOf(requireNonNull(partitionTypes, "partitionTypes is null"));
+        this.maxRowCountPerPartition = maxRowCountPerPartition;
+        this.generateRowNumber = generateRowNumber;
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.expectedPositions = expectedPositions;
+        this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
+        this.spillEnabled = spillEnabled;
+        this.partitioningSpillerFactory = requireNonNull(partitioningSpillerFactory, "partitioningSpillerFactory is null");
+
         List<Type> types = toTypes(sourceTypes, outputChannels, generateRowNumber);
-        this.groupedTopNBuilder = new GroupedTopNBuilder(
-                ImmutableList.copyOf(sourceTypes),
-                new SimplePageWithPositionComparator(types, sortChannels, sortOrders),
-                maxRowCountPerPartition,
-                generateRowNumber,
-                groupByHash);
+        this.comparator = new SimplePageWithPositionComparator(types, sortChannels, sortOrders);
+
+        if (spillEnabled) {
+            // Report memory usage but do not yield for memory, so that the input is never left half processed when
+            // memory is revoked. The memory is revocable until the input is finished.
+            this.groupedTopNBuilder = createGroupedTopNBuilder(() -> {
+                updateMemoryReservation();
+                return true;
+            });
+        }
+        else {
+            this.groupedTopNBuilder = createGroupedTopNBuilder(this::updateMemoryReservation);
+        }
     }
 
     @Override
@@ -206,7 +305,21 @@ public class TopNRowNumberOperator
     public boolean isFinished()
     {
         // has no more input, has finished flushing, and has no unfinished work
-        return finishing && outputIterator != null && !outputIterator.hasNext() && unfinishedWork == null;
+        return finishing &&
+                outputIterator != null &&
+                !outputIterator.hasNext() &&
+                unfinishedWork == null &&
+                spillInProgress.isDone() &&
+                !hasSpilledPagesToRead();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return spillInProgress;
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -223,6 +336,7 @@ public class TopNRowNumberOperator
         checkState(unfinishedWork == null, "Cannot add input with the operator when unfinished work is not empty");
         checkState(outputIterator == null, "Cannot add input with the operator when flushing");
         requireNonNull(page, "page is null");
+        checkSuccess(spillInProgress, "spilling failed");
         unfinishedWork = groupedTopNBuilder.processPage(page);
         if (unfinishedWork.process()) {
             unfinishedWork = null;
@@ -233,36 +347,102 @@ public class TopNRowNumberOperator
     @Override
     public Page getOutput()
     {
-        if (unfinishedWork != null) {
-            boolean finished = unfinishedWork.process();
-            updateMemoryReservation();
-            if (!finished) {
+        while (true) {
+            if (!spillInProgress.isDone()) {
                 return null;
             }
-            unfinishedWork = null;
-        }
+            checkSuccess(spillInProgress, "spilling failed");
+
+            if (unfinishedWork != null) {
+                boolean finished = unfinishedWork.process();
+                updateMemoryReservation();
+                if (!finished) {
+                    return null;
+                }
+                unfinishedWork = null;
+            }
 
-        if (!finishing) {
-            return null;
-        }
+            if (!finishing) {
+                return null;
+            }
 
-        if (outputIterator == null) {
-            // start flushing
+            if (outputIterator == null) {
+                // start flushing
+                startFlushing();
+                continue;
+            }
+
+            if (outputIterator.hasNext()) {
+                Page page = outputIterator.next();
+                // rewrite to expected column ordering
+                Block[] blocks = new Block[page.getChannelCount()];
+                for (int i = 0; i < outputChannels.size(); i++) {
+                    blocks[i] = page.getBlock(outputChannels.get(i));
+                }
+                updateMemoryReservation();
+                return new Page(blocks);
+            }
+
+            if (!hasSpilledPagesToRead()) {
+                updateMemoryReservation();
+                return null;
+            }
+
+            if (spilledPages == null) {
+                // each group is spilled to a single partition, so the partitions are processed one at a time
+                groupedTopNBuilder = createGroupedTopNBuilder(this::updateMemoryReservation);
+                spilledPages = spiller.get().getSpilledPages(nextSpilledPartition);
+                nextSpilledPartition++;
+            }
+
+            if (spilledPages.hasNext()) {
+                unfinishedWork = groupedTopNBuilder.processPage(spilledPages.next());
+                continue;
+            }
+
+            spilledPages = null;
             outputIterator = groupedTopNBuilder.buildResult();
         }
+    }
 
-        Page output = null;
-        if (outputIterator.hasNext()) {
-            Page page = outputIterator.next();
-            // rewrite to expected column ordering
-            Block[] blocks = new Block[page.getChannelCount()];
-            for (int i = 0; i < outputChannels.size(); i++) {
-                blocks[i] = page.getBlock(outputChannels.get(i));
-            }
-            output = new Page(blocks);
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+        if (finishing || localRevocableMemoryContext.getBytes() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        checkState(unfinishedWork == null, "Cannot spill with unfinished work");
+
+        spillInProgress = spillGroupedTopNBuilder();
+        finishMemoryRevoke = () -> {
+            groupedTopNBuilder = createGroupedTopNBuilder(() -> {
+                updateMemoryReservation();
+                return true;
+            });
+            updateMemoryReservation();
+        };
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    @Override
+    public void close()
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(() -> localRevocableMemoryContext.setBytes(0));
+            spiller.ifPresent(closer::register);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
         }
-        updateMemoryReservation();
-        return output;
     }
 
     @VisibleForTesting
@@ -272,10 +452,89 @@ public class TopNRowNumberOperator
         return groupByHash.getCapacity();
     }
 
+    private void startFlushing()
+    {
+        // the rows in memory can no longer be revoked
+        long revocableBytes = localRevocableMemoryContext.getBytes();
+        localRevocableMemoryContext.setBytes(0);
+        if (!spiller.isPresent() && localUserMemoryContext.trySetBytes(localUserMemoryContext.getBytes() + revocableBytes)) {
+            outputIterator = groupedTopNBuilder.buildResult();
+            return;
+        }
+
+        // the rows in memory are spilled as well, and all groups are then read back one partition at a time
+        localRevocableMemoryContext.setBytes(revocableBytes);
+        spillInProgress = spillGroupedTopNBuilder();
+        outputIterator = emptyIterator();
+    }
+
+    private ListenableFuture<?> spillGroupedTopNBuilder()
+    {
+        if (!spiller.isPresent()) {
+            HashGenerator hashGenerator = hashChannel.isPresent() ? new PrecomputedHashGenerator(hashChannel.get()) : new InterpretedHashGenerator(partitionTypes, partitionChannels);
+            spiller = Optional.of(partitioningSpillerFactory.create(
+                    sourceTypes,
+                    new LocalPartitionGenerator(hashGenerator, SPILL_PARTITION_COUNT),
+                    operatorContext.getSpillContext().newLocalSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        // the top rows of each group so far are spilled without their row numbers, and ranked again when they are read back
+        Iterator<Page> pages = groupedTopNBuilder.buildResult();
+        if (generateRowNumber) {
+            pages = transform(pages, this::removeRowNumber);
+        }
+        return spiller.get().spill(pages);
+    }
+
+    private Page removeRowNumber(Page page)
+    {
+        Block[] blocks = new Block[sourceTypes.size()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private boolean hasSpilledPagesToRead()
+    {
+        return spilledPages != null || (spiller.isPresent() && nextSpilledPartition < SPILL_PARTITION_COUNT);
+    }
+
+    private GroupedTopNBuilder createGroupedTopNBuilder(UpdateMemory updateMemory)
+    {
+        if (!partitionChannels.isEmpty()) {
+            groupByHash = createGroupByHash(
+                    partitionTypes,
+                    Ints.toArray(partitionChannels),
+                    hashChannel,
+                    expectedPositions,
+                    isDictionaryAggregationEnabled(operatorContext.getSession()),
+                    joinCompiler,
+                    updateMemory);
+        }
+        else {
+            groupByHash = new NoChannelGroupByHash();
+        }
+
+        return new GroupedTopNBuilder(
+                sourceTypes,
+                comparator,
+                maxRowCountPerPartition,
+                generateRowNumber,
+                groupByHash);
+    }
+
     private boolean updateMemoryReservation()
     {
         // TODO: may need to use trySetMemoryReservation with a compaction to free memory (but that may cause GC pressure)
-        localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        if (spillEnabled && !finishing) {
+            localRevocableMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(groupedTopNBuilder.getEstimatedSizeInBytes());
+        }
         return operatorContext.isWaitingForMemory().isDone();
     }
 
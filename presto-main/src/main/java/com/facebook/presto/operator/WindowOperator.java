@@ -22,12 +22,17 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.sql.gen.OrderingCompiler;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -36,11 +41,15 @@ import java.util.function.BiPredicate;
 import java.util.stream.Stream;
 
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.util.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.concat;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.airlift.concurrent.MoreFutures.checkSuccess;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -63,6 +72,9 @@ public class WindowOperator
         private final int expectedPositions;
         private boolean closed;
         private final PagesIndex.Factory pagesIndexFactory;
+        private final boolean spillEnabled;
+        private final Optional<SpillerFactory> spillerFactory;
+        private final OrderingCompiler orderingCompiler;
 
         public WindowOperatorFactory(
                 int operatorId,
@@ -76,7 +88,10 @@ public class WindowOperator
                 List<SortOrder> sortOrder,
                 int preSortedChannelPrefix,
                 int expectedPositions,
-                PagesIndex.Factory pagesIndexFactory)
+                PagesIndex.Factory pagesIndexFactory,
+                boolean spillEnabled,
+                Optional<SpillerFactory> spillerFactory,
+                OrderingCompiler orderingCompiler)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -104,6 +119,10 @@ public class WindowOperator
             this.sortOrder = ImmutableList.copyOf(sortOrder);
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+            checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
         }
 
         @Override
@@ -123,7 +142,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    orderingCompiler);
         }
 
         @Override
@@ -147,7 +169,10 @@ public class WindowOperator
                     sortOrder,
                     preSortedChannelPrefix,
                     expectedPositions,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    spillEnabled,
+                    spillerFactory,
+                    orderingCompiler);
         }
     }
 
@@ -160,13 +185,16 @@ public class WindowOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final int[] outputChannels;
     private final List<FramedWindowFunction> windowFunctions;
     private final List<Integer> orderChannels;
     private final List<SortOrder> ordering;
     private final LocalMemoryContext localUserMemoryContext;
+    private final LocalMemoryContext localRevocableMemoryContext;
 
     private final int[] preGroupedChannels;
+    private final int[] unGroupedPartitionChannels;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -186,6 +214,21 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    private final boolean spillEnabled;
+    private final Optional<SpillerFactory> spillerFactory;
+    private final OrderingCompiler orderingCompiler;
+
+    private Optional<Spiller> spiller = Optional.empty();
+    private ListenableFuture<?> spillInProgress = immediateFuture(null);
+    private Runnable finishMemoryRevoke = () -> {};
+    // the pre-grouped channels of the current group, once its rows have been spilled and cleared from the pagesIndex
+    private Page spilledGroupRow;
+
+    // sorted runs of a spilled group of rows, merged and loaded into the pagesIndex one partition at a time
+    private Optional<Spiller> mergingSpiller = Optional.empty();
+    private Iterator<Optional<Page>> spilledPages;
+    private Page pendingSpilledPage;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -197,7 +240,10 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             int expectedPositions,
-            PagesIndex.Factory pagesIndexFactory)
+            PagesIndex.Factory pagesIndexFactory,
+            boolean spillEnabled,
+            Optional<SpillerFactory> spillerFactory,
+            OrderingCompiler orderingCompiler)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -212,8 +258,12 @@ public class WindowOperator
         checkArgument(preSortedChannelPrefix <= sortChannels.size(), "Cannot have more pre-sorted channels than specified sorted channels");
         checkArgument(preSortedChannelPrefix == 0 || ImmutableSet.copyOf(preGroupedChannels).equals(ImmutableSet.copyOf(partitionChannels)), "preSortedChannelPrefix can only be greater than zero if all partition channels are pre-grouped");
 
+        checkArgument(!spillEnabled || spillerFactory.isPresent(), "Spiller Factory is not present when spill is enabled");
+
         this.operatorContext = operatorContext;
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.localUserMemoryContext = operatorContext.localUserMemoryContext();
+        this.localRevocableMemoryContext = operatorContext.localRevocableMemoryContext();
         this.outputChannels = Ints.toArray(outputChannels);
         this.windowFunctions = windowFunctionDefinitions.stream()
                 .map(functionDefinition -> new FramedWindowFunction(functionDefinition.createWindowFunction(), functionDefinition.getFrameInfo()))
@@ -233,6 +283,7 @@ public class WindowOperator
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, OptionalInt.empty());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
                 .collect(toImmutableList());
@@ -252,6 +303,12 @@ public class WindowOperator
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
 
+        // A group of rows which is a single partition must be in memory as a whole, so spilling
+        // is only useful when the groups are split into partitions by the ungrouped channels
+        this.spillEnabled = spillEnabled && !unGroupedPartitionChannels.isEmpty();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+
         windowInfo = new WindowInfo.DriverWindowInfoBuilder();
         operatorContext.setInfoSupplier(this::getWindowInfo);
     }
@@ -270,6 +327,11 @@ public class WindowOperator
     @Override
     public void finish()
     {
+        if (!spillInProgress.isDone()) {
+            return;
+        }
+        checkSuccess(spillInProgress, "spilling failed");
+
         if (state == State.FINISHING || state == State.FINISHED) {
             return;
         }
@@ -298,6 +360,7 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator can not take input at this time");
         requireNonNull(page, "page is null");
         checkState(pendingInput == null, "Operator already has pending input");
+        checkSuccess(spillInProgress, "spilling failed");
 
         if (page.getPositionCount() == 0) {
             return;
@@ -307,7 +370,7 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
     }
 
     /**
@@ -316,7 +379,14 @@ public class WindowOperator
     private boolean processPendingInput()
     {
         checkState(pendingInput != null);
-        pendingInput = updatePagesIndex(pendingInput);
+        if (pagesIndex.getPositionCount() == 0 && spilledGroupRow != null &&
+                !preGroupedPartitionHashStrategy.rowEqualsRow(0, spilledGroupRow, 0, rearrangePage(pendingInput, preGroupedChannels))) {
+            // the pendingInput starts a new group, so the spilled group is complete
+            finishPagesIndex();
+            return true;
+        }
+
+        pendingInput = updatePagesIndex(pendingInput, preGroupedChannels, preGroupedPartitionHashStrategy);
 
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
@@ -332,15 +402,15 @@ public class WindowOperator
      * @return the unused section of the page, or null if fully applied.
      * pagesIndex guaranteed to have at least one row after this method returns
      */
-    private Page updatePagesIndex(Page page)
+    private Page updatePagesIndex(Page page, int[] groupChannels, PagesHashStrategy groupHashStrategy)
     {
         checkArgument(page.getPositionCount() > 0);
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
-        Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
-            // Find the position where the pre-grouped columns change
-            int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
+        Page groupedPage = rearrangePage(page, groupChannels);
+        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(groupHashStrategy, 0, 0, groupedPage)) {
+            // Find the position where the grouped columns change
+            int groupEnd = findGroupEnd(groupedPage, groupHashStrategy, 0);
 
             // Add the section of the page that contains values for the current group
             pagesIndex.addPage(page.getRegion(0, groupEnd));
@@ -377,7 +447,7 @@ public class WindowOperator
         }
 
         Page page = extractOutput();
-        localUserMemoryContext.setBytes(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryUsage();
         return page;
     }
 
@@ -395,8 +465,8 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
-                    // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    // Try to extract more partitions from the spilled rows or the pendingInput
+                    if (loadNextPartitions()) {
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
@@ -428,6 +498,60 @@ public class WindowOperator
         return page;
     }
 
+    /**
+     * @return true if the pagesIndex has been loaded with one or more partitions
+     */
+    private boolean loadNextPartitions()
+    {
+        if (spilledPages != null) {
+            if (loadNextSpilledPartition()) {
+                return true;
+            }
+            closeSpilledPages();
+        }
+
+        if (pendingInput != null && processPendingInput()) {
+            return spilledPages == null || loadNextSpilledPartition();
+        }
+        return false;
+    }
+
+    private boolean loadNextSpilledPartition()
+    {
+        // the merged runs are sorted on the ungrouped partition channels, so every group of rows is a whole partition
+        while (true) {
+            if (pendingSpilledPage == null) {
+                if (!spilledPages.hasNext()) {
+                    break;
+                }
+                // the partition must be loaded as a whole before it can be processed, so yields are ignored
+                Optional<Page> page = spilledPages.next();
+                if (!page.isPresent() || page.get().getPositionCount() == 0) {
+                    continue;
+                }
+                pendingSpilledPage = page.get();
+            }
+
+            pendingSpilledPage = updatePagesIndex(pendingSpilledPage, unGroupedPartitionChannels, unGroupedPartitionHashStrategy);
+            if (pendingSpilledPage != null) {
+                break;
+            }
+        }
+
+        if (pagesIndex.getPositionCount() == 0) {
+            return false;
+        }
+        windowInfo.addIndex(pagesIndex);
+        return true;
+    }
+
+    private void closeSpilledPages()
+    {
+        spilledPages = null;
+        mergingSpiller.ifPresent(Spiller::close);
+        mergingSpiller = Optional.empty();
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
@@ -442,10 +566,116 @@ public class WindowOperator
 
     private void finishPagesIndex()
     {
+        // Convert revocable memory to user memory, as the rows of a complete group can no longer be revoked
+        long revocableBytes = localRevocableMemoryContext.getBytes();
+        if (revocableBytes > 0) {
+            localRevocableMemoryContext.setBytes(0);
+            if (!localUserMemoryContext.trySetBytes(localUserMemoryContext.getBytes() + revocableBytes)) {
+                // the group does not fit in memory, so it is spilled and merged from disk
+                localRevocableMemoryContext.setBytes(revocableBytes);
+                getFutureValue(spillToDisk());
+                finishMemoryRevoke();
+            }
+        }
+
+        if (spiller.isPresent()) {
+            // the group has been partially spilled, so the rest of it is spilled as well,
+            // and the pagesIndex is reloaded with one partition at a time from the merged runs
+            getFutureValue(spillToDisk());
+            finishMemoryRevoke();
+            mergingSpiller = spiller;
+            spiller = Optional.empty();
+            spilledGroupRow = null;
+            spilledPages = mergeSpilledPages(mergingSpiller.get());
+            return;
+        }
+
         sortPagesIndexIfNecessary();
         windowInfo.addIndex(pagesIndex);
     }
 
+    @Override
+    public ListenableFuture<?> startMemoryRevoke()
+    {
+        if (state != State.NEEDS_INPUT || localRevocableMemoryContext.getBytes() == 0) {
+            // the revocable memory has been converted to user memory in the meantime
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+        return spillToDisk();
+    }
+
+    private ListenableFuture<?> spillToDisk()
+    {
+        checkSuccess(spillInProgress, "spilling failed");
+
+        if (pagesIndex.getPositionCount() == 0) {
+            finishMemoryRevoke = () -> {};
+            return immediateFuture(null);
+        }
+
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.get().create(
+                    sourceTypes,
+                    operatorContext.getSpillContext(),
+                    operatorContext.newAggregateSystemMemoryContext()));
+        }
+
+        if (spilledGroupRow == null) {
+            Block[] blocks = new Block[preGroupedChannels.length];
+            for (int i = 0; i < preGroupedChannels.length; i++) {
+                blocks[i] = pagesIndex.getSingleValueBlock(preGroupedChannels[i], 0);
+            }
+            spilledGroupRow = new Page(1, blocks);
+        }
+
+        // the pre-grouped channels are the same for all the rows, so the runs are sorted on the remaining partition and sort channels
+        pagesIndex.sort(orderChannels, ordering);
+        spillInProgress = spiller.get().spill(pagesIndex.getSortedPages());
+        finishMemoryRevoke = () -> {
+            pagesIndex.clear();
+            updateMemoryUsage();
+        };
+
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke()
+    {
+        finishMemoryRevoke.run();
+        finishMemoryRevoke = () -> {};
+    }
+
+    private Iterator<Optional<Page>> mergeSpilledPages(Spiller spiller)
+    {
+        List<WorkProcessor<Page>> sortedRuns = spiller.getSpills().stream()
+                .map(WorkProcessor::fromIterator)
+                .collect(toImmutableList());
+
+        return mergeSortedPages(
+                sortedRuns,
+                orderingCompiler.compilePageWithPositionComparator(sourceTypes, orderChannels, ordering),
+                sourceTypes,
+                operatorContext.aggregateUserMemoryContext(),
+                operatorContext.getDriverContext().getYieldSignal())
+                .yieldingIterator();
+    }
+
+    private void updateMemoryUsage()
+    {
+        long bytes = pagesIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && state == State.NEEDS_INPUT && pagesIndex.getPositionCount() > 0) {
+            // the rows of an incomplete group can be spilled
+            localUserMemoryContext.setBytes(0);
+            localRevocableMemoryContext.setBytes(bytes);
+        }
+        else {
+            localRevocableMemoryContext.setBytes(0);
+            localUserMemoryContext.setBytes(bytes);
+        }
+    }
+
     // Assumes input grouped on relevant pagesHashStrategy columns
     private static int findGroupEnd(Page page, PagesHashStrategy pagesHashStrategy, int startPosition)
     {
@@ -497,5 +727,7 @@ public class WindowOperator
     public void close()
     {
         driverWindowInfo.set(Optional.of(windowInfo.build()));
+        spiller.ifPresent(Spiller::close);
+        mergingSpiller.ifPresent(Spiller::close);
     }
 }
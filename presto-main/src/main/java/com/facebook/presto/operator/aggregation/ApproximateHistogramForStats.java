@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.operator.aggregation.state.QuantileDigestState;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.function.AggregationFunction;
+import com.facebook.presto.spi.function.AggregationState;
+import com.facebook.presto.spi.function.CombineFunction;
+import com.facebook.presto.spi.function.InputFunction;
+import com.facebook.presto.spi.function.OutputFunction;
+import com.facebook.presto.spi.function.SqlType;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.QuantileDigest;
+
+import java.util.List;
+
+import static com.facebook.presto.operator.aggregation.FloatingPointBitsConverterUtil.doubleToSortableLong;
+import static com.facebook.presto.operator.aggregation.FloatingPointBitsConverterUtil.sortableLongToDouble;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Computes the boundaries of an equi-height histogram of the input values, in the double
+ * representation used by the column statistics, for
+ * {@link com.facebook.presto.spi.statistics.ColumnStatisticType#HISTOGRAM}.
+ */
+@AggregationFunction(value = ApproximateHistogramForStats.NAME, hidden = true)
+public final class ApproximateHistogramForStats
+{
+    public static final String NAME = "$internal$approx_histogram_for_stats";
+
+    public static final int BUCKET_COUNT = 50;
+    private static final double MAX_ERROR = 0.005;
+    private static final List<Double> QUANTILES;
+
+    static {
+        ImmutableList.Builder<Double> quantiles = ImmutableList.builder();
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            quantiles.add((double) i / BUCKET_COUNT);
+        }
+        QUANTILES = quantiles.build();
+    }
+
+    private ApproximateHistogramForStats() {}
+
+    @InputFunction
+    public static void bigintInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.BIGINT) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void integerInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.INTEGER) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void smallintInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.SMALLINT) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void tinyintInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.TINYINT) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void dateInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.DATE) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void doubleInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.DOUBLE) double value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void realInput(@AggregationState QuantileDigestState state, @SqlType(StandardTypes.REAL) long value)
+    {
+        add(state, intBitsToFloat(toIntExact(value)));
+    }
+
+    private static void add(QuantileDigestState state, double value)
+    {
+        if (Double.isNaN(value)) {
+            return;
+        }
+        QuantileDigest digest = state.getQuantileDigest();
+        if (digest == null) {
+            digest = new QuantileDigest(MAX_ERROR);
+            state.setQuantileDigest(digest);
+            state.addMemoryUsage(digest.estimatedInMemorySizeInBytes());
+        }
+        state.addMemoryUsage(-digest.estimatedInMemorySizeInBytes());
+        digest.add(doubleToSortableLong(value));
+        state.addMemoryUsage(digest.estimatedInMemorySizeInBytes());
+    }
+
+    @CombineFunction
+    public static void combine(@AggregationState QuantileDigestState state, @AggregationState QuantileDigestState otherState)
+    {
+        QuantileDigest input = otherState.getQuantileDigest();
+        if (input == null) {
+            return;
+        }
+        QuantileDigest previous = state.getQuantileDigest();
+        if (previous == null) {
+            state.setQuantileDigest(input);
+            state.addMemoryUsage(input.estimatedInMemorySizeInBytes());
+        }
+        else {
+            state.addMemoryUsage(-previous.estimatedInMemorySizeInBytes());
+            previous.merge(input);
+            state.addMemoryUsage(previous.estimatedInMemorySizeInBytes());
+        }
+    }
+
+    @OutputFunction("array(double)")
+    public static void output(@AggregationState QuantileDigestState state, BlockBuilder out)
+    {
+        QuantileDigest digest = state.getQuantileDigest();
+        if (digest == null || digest.getCount() == 0.0) {
+            out.appendNull();
+            return;
+        }
+
+        List<Long> boundaries = digest.getQuantiles(QUANTILES);
+        BlockBuilder entryBuilder = out.beginBlockEntry();
+        double previous = sortableLongToDouble(digest.getMin());
+        for (int i = 0; i < boundaries.size(); i++) {
+            double boundary;
+            if (i == 0) {
+                boundary = sortableLongToDouble(digest.getMin());
+            }
+            else if (i == boundaries.size() - 1) {
+                boundary = sortableLongToDouble(digest.getMax());
+            }
+            else {
+                boundary = sortableLongToDouble(boundaries.get(i));
+            }
+            // the quantiles of the digest are approximate, keep the boundaries sorted
+            previous = Math.max(previous, boundary);
+            DOUBLE.writeDouble(entryBuilder, previous);
+        }
+        out.closeEntry();
+    }
+}
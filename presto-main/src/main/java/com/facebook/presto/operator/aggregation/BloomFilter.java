@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.spi.PrestoException;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.slice.XxHash64;
+
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.lang.Math.exp;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.pow;
+import static java.lang.Math.round;
+
+/**
+ * A Bloom filter of 64-bit hashes, stored in a slice that holds the number of hash functions
+ * followed by the words of the bit set. Filters are updated in place, and filters of the same
+ * size are merged by combining their bit sets.
+ */
+public final class BloomFilter
+{
+    public static final int MAX_HASH_FUNCTIONS = 16;
+
+    private static final int WORDS_OFFSET = SIZE_OF_INT;
+    private static final double LN2_SQUARED = log(2) * log(2);
+
+    private BloomFilter() {}
+
+    public static Slice create(long bits, int hashFunctions)
+    {
+        checkArgument(bits > 0, "bits must be positive");
+        checkArgument(hashFunctions > 0 && hashFunctions <= MAX_HASH_FUNCTIONS, "hashFunctions must be between 1 and %s", MAX_HASH_FUNCTIONS);
+        long words = (bits + Long.SIZE - 1) / Long.SIZE;
+        checkArgument(words <= (Integer.MAX_VALUE - WORDS_OFFSET) / SIZE_OF_LONG, "bits is too large: %s", bits);
+
+        Slice filter = Slices.allocate(WORDS_OFFSET + (int) words * SIZE_OF_LONG);
+        filter.setInt(0, hashFunctions);
+        return filter;
+    }
+
+    public static void add(Slice filter, long hash)
+    {
+        int hashFunctions = getHashFunctionCount(filter);
+        long bits = getBitCount(filter);
+        long hash1 = XxHash64.hash(hash);
+        long hash2 = XxHash64.hash(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+            int index = WORDS_OFFSET + (int) (bit / Long.SIZE) * SIZE_OF_LONG;
+            filter.setLong(index, filter.getLong(index) | (1L << bit));
+        }
+    }
+
+    public static boolean mightContain(Slice filter, long hash)
+    {
+        int hashFunctions = getHashFunctionCount(filter);
+        long bits = getBitCount(filter);
+        long hash1 = XxHash64.hash(hash);
+        long hash2 = XxHash64.hash(hash1);
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = ((hash1 + i * hash2) & Long.MAX_VALUE) % bits;
+            int index = WORDS_OFFSET + (int) (bit / Long.SIZE) * SIZE_OF_LONG;
+            if ((filter.getLong(index) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the hashes of {@code other} to {@code filter}.
+     */
+    public static void merge(Slice filter, Slice other)
+    {
+        if (filter.length() != other.length() || getHashFunctionCount(filter) != getHashFunctionCount(other)) {
+            throw new PrestoException(INVALID_FUNCTION_ARGUMENT, "Cannot merge Bloom filters of different sizes");
+        }
+        for (int index = WORDS_OFFSET; index < filter.length(); index += SIZE_OF_LONG) {
+            filter.setLong(index, filter.getLong(index) | other.getLong(index));
+        }
+    }
+
+    private static int getHashFunctionCount(Slice filter)
+    {
+        if (filter.length() <= WORDS_OFFSET || (filter.length() - WORDS_OFFSET) % SIZE_OF_LONG != 0) {
+            throw new PrestoException(INVALID_FUNCTION_ARGUMENT, "Invalid Bloom filter");
+        }
+        return filter.getInt(0);
+    }
+
+    private static long getBitCount(Slice filter)
+    {
+        return (long) (filter.length() - WORDS_OFFSET) * Byte.SIZE;
+    }
+
+    /**
+     * Returns the size in bytes of a filter of the given number of bits.
+     */
+    public static long getSizeInBytes(long bits)
+    {
+        return WORDS_OFFSET + (bits + Long.SIZE - 1) / Long.SIZE * SIZE_OF_LONG;
+    }
+
+    /**
+     * Returns the number of bits for which a filter of {@code keys} distinct keys has the given
+     * false positive probability.
+     */
+    public static long getOptimalBitCount(double keys, double falsePositiveProbability)
+    {
+        return max(Long.SIZE, (long) (-max(keys, 1) * log(falsePositiveProbability) / LN2_SQUARED));
+    }
+
+    /**
+     * Returns the number of hash functions that minimizes the false positive probability of a
+     * filter of the given number of bits holding {@code keys} distinct keys.
+     */
+    public static int getOptimalHashFunctionCount(long bits, double keys)
+    {
+        long count = round((double) bits / max(keys, 1) * log(2));
+        return (int) min(MAX_HASH_FUNCTIONS, max(1, count));
+    }
+
+    public static double getFalsePositiveProbability(long bits, int hashFunctions, double keys)
+    {
+        return pow(1 - exp(-hashFunctions * keys / bits), hashFunctions);
+    }
+}
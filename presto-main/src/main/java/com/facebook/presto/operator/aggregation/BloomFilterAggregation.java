@@ -0,0 +1,73 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.operator.aggregation.state.SliceState;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.function.AggregationFunction;
+import com.facebook.presto.spi.function.AggregationState;
+import com.facebook.presto.spi.function.CombineFunction;
+import com.facebook.presto.spi.function.InputFunction;
+import com.facebook.presto.spi.function.OutputFunction;
+import com.facebook.presto.spi.function.SqlType;
+import com.facebook.presto.spi.type.StandardTypes;
+import io.airlift.slice.Slices;
+
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Builds a {@link BloomFilter} of the hashes of the input rows, with the given number of bits
+ * and hash functions.
+ */
+@AggregationFunction(value = BloomFilterAggregation.NAME, hidden = true)
+public final class BloomFilterAggregation
+{
+    public static final String NAME = "$internal$bloom_filter";
+
+    private BloomFilterAggregation() {}
+
+    @InputFunction
+    public static void input(
+            @AggregationState SliceState state,
+            @SqlType(StandardTypes.BIGINT) long hash,
+            @SqlType(StandardTypes.BIGINT) long bits,
+            @SqlType(StandardTypes.BIGINT) long hashFunctions)
+    {
+        if (state.getSlice() == null) {
+            state.setSlice(BloomFilter.create(bits, toIntExact(hashFunctions)));
+        }
+        BloomFilter.add(state.getSlice(), hash);
+    }
+
+    @CombineFunction
+    public static void combine(@AggregationState SliceState state, @AggregationState SliceState otherState)
+    {
+        if (otherState.getSlice() == null) {
+            return;
+        }
+        if (state.getSlice() == null) {
+            state.setSlice(Slices.copyOf(otherState.getSlice()));
+        }
+        else {
+            BloomFilter.merge(state.getSlice(), otherState.getSlice());
+        }
+    }
+
+    @OutputFunction(StandardTypes.VARBINARY)
+    public static void output(@AggregationState SliceState state, BlockBuilder out)
+    {
+        SliceState.write(VARBINARY, state, out);
+    }
+}
@@ -14,8 +14,10 @@
 package com.facebook.presto.operator.aggregation.state;
 
 import com.facebook.presto.spi.function.AccumulatorState;
+import com.facebook.presto.spi.function.AccumulatorStateMetadata;
 import io.airlift.stats.QuantileDigest;
 
+@AccumulatorStateMetadata(stateSerializerClass = QuantileDigestStateSerializer.class, stateFactoryClass = QuantileDigestStateFactory.class)
 public interface QuantileDigestState
         extends AccumulatorState
 {
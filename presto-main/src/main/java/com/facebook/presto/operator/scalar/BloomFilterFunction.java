@@ -0,0 +1,34 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.scalar;
+
+import com.facebook.presto.operator.aggregation.BloomFilter;
+import com.facebook.presto.spi.function.ScalarFunction;
+import com.facebook.presto.spi.function.SqlType;
+import com.facebook.presto.spi.type.StandardTypes;
+import io.airlift.slice.Slice;
+
+public final class BloomFilterFunction
+{
+    public static final String NAME = "$internal$bloom_filter_might_contain";
+
+    private BloomFilterFunction() {}
+
+    @ScalarFunction(value = NAME, hidden = true)
+    @SqlType(StandardTypes.BOOLEAN)
+    public static boolean mightContain(@SqlType(StandardTypes.VARBINARY) Slice filter, @SqlType(StandardTypes.BIGINT) long hash)
+    {
+        return BloomFilter.mightContain(filter, hash);
+    }
+}
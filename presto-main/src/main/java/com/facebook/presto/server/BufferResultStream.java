@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManager;
+import com.facebook.presto.execution.buffer.BufferResult;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.glassfish.jersey.server.ChunkedOutput;
+
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.presto.execution.buffer.BufferResult.emptyResults;
+import static io.airlift.concurrent.MoreFutures.addTimeout;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streams the results of an output buffer as a sequence of frames in one response.
+ * <p>
+ * The first read acknowledges the pages before the requested token, like a regular results
+ * request does. The following reads continue from the next token of the previous frame without
+ * acknowledging it, so if the response does not reach the client, the client can request the
+ * same pages again. The stream ends when the client has been sent the number of bytes it asked
+ * for, when the buffer is complete, or when no pages arrive within the wait time.
+ */
+class BufferResultStream
+{
+    private static final Logger log = Logger.get(BufferResultStream.class);
+
+    private final TaskManager taskManager;
+    private final TaskId taskId;
+    private final OutputBufferId bufferId;
+    private final Duration waitTime;
+    private final ChunkedOutput<BufferResult> output;
+    private final Executor responseExecutor;
+    private final ScheduledExecutorService timeoutExecutor;
+
+    // only accessed by one read at a time
+    private long remainingBytes;
+
+    BufferResultStream(
+            TaskManager taskManager,
+            TaskId taskId,
+            OutputBufferId bufferId,
+            DataSize maxSize,
+            Duration waitTime,
+            ChunkedOutput<BufferResult> output,
+            Executor responseExecutor,
+            ScheduledExecutorService timeoutExecutor)
+    {
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.taskId = requireNonNull(taskId, "taskId is null");
+        this.bufferId = requireNonNull(bufferId, "bufferId is null");
+        this.remainingBytes = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.waitTime = requireNonNull(waitTime, "waitTime is null");
+        this.output = requireNonNull(output, "output is null");
+        this.responseExecutor = requireNonNull(responseExecutor, "responseExecutor is null");
+        this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+    }
+
+    public void start(long token)
+    {
+        read(token, true);
+    }
+
+    private void read(long token, boolean acknowledge)
+    {
+        DataSize maxSize = new DataSize(remainingBytes, BYTE);
+        ListenableFuture<BufferResult> resultFuture;
+        if (acknowledge) {
+            resultFuture = taskManager.getTaskResults(taskId, bufferId, token, maxSize);
+        }
+        else {
+            resultFuture = taskManager.readTaskResults(taskId, bufferId, token, maxSize);
+        }
+        resultFuture = addTimeout(
+                resultFuture,
+                () -> emptyResults(taskManager.getTaskInstanceId(taskId), token, false),
+                waitTime,
+                timeoutExecutor);
+
+        Futures.addCallback(resultFuture, new FutureCallback<BufferResult>()
+        {
+            @Override
+            public void onSuccess(BufferResult result)
+            {
+                // nothing arrived within the wait time, so let the client send a new request
+                if (result.isEmpty() && !result.isBufferComplete()) {
+                    close();
+                    return;
+                }
+
+                try {
+                    output.write(result);
+                }
+                catch (IOException | RuntimeException e) {
+                    // the client has most likely disconnected, and will request the pages again
+                    log.debug(e, "Failed to stream results of %s", taskId);
+                    close();
+                    return;
+                }
+
+                for (SerializedPage page : result.getSerializedPages()) {
+                    remainingBytes -= page.getRetainedSizeInBytes();
+                }
+                if (result.isBufferComplete() || remainingBytes <= 0 || output.isClosed()) {
+                    close();
+                    return;
+                }
+                read(result.getNextToken(), false);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                log.debug(t, "Failed to read results of %s", taskId);
+                close();
+            }
+        }, responseExecutor);
+    }
+
+    private void close()
+    {
+        try {
+            output.close();
+        }
+        catch (IOException e) {
+            log.debug(e, "Failed to close results stream of %s", taskId);
+        }
+    }
+}
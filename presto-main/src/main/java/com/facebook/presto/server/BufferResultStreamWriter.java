@@ -0,0 +1,72 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.buffer.BufferResult;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_STREAM;
+import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writeBufferResult;
+
+/**
+ * Writes a buffer result as one frame of a streamed results response.
+ */
+@Provider
+@Produces(PRESTO_PAGES_STREAM)
+public class BufferResultStreamWriter
+        implements MessageBodyWriter<BufferResult>
+{
+    private static final MediaType PRESTO_PAGES_STREAM_TYPE = MediaType.valueOf(PRESTO_PAGES_STREAM);
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return BufferResult.class.isAssignableFrom(type) && mediaType.isCompatible(PRESTO_PAGES_STREAM_TYPE);
+    }
+
+    @Override
+    public long getSize(BufferResult bufferResult, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(BufferResult bufferResult,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+        writeBufferResult(sliceOutput, bufferResult);
+        // We use flush instead of close, because the underlying stream would be closed and that is not allowed.
+        sliceOutput.flush();
+    }
+}
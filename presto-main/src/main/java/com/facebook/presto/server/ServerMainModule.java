@@ -38,6 +38,7 @@ import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.execution.executor.MultilevelSplitQueue;
 import com.facebook.presto.execution.executor.TaskExecutor;
+import com.facebook.presto.execution.executor.WorkStealingSplitQueue;
 import com.facebook.presto.execution.scheduler.FlatNetworkTopology;
 import com.facebook.presto.execution.scheduler.LegacyNetworkTopology;
 import com.facebook.presto.execution.scheduler.NetworkTopology;
@@ -294,7 +295,6 @@ public class ServerMainModule
         newExporter(binder).export(TaskManager.class).withGeneratedName();
         binder.bind(TaskExecutor.class).in(Scopes.SINGLETON);
         newExporter(binder).export(TaskExecutor.class).withGeneratedName();
-        binder.bind(MultilevelSplitQueue.class).in(Scopes.SINGLETON);
         newExporter(binder).export(MultilevelSplitQueue.class).withGeneratedName();
         binder.bind(LocalExecutionPlanner.class).in(Scopes.SINGLETON);
         configBinder(binder).bindConfig(CompilerConfig.class);
@@ -325,6 +325,7 @@ public class ServerMainModule
         smileCodecBinder(binder).bindSmileCodec(TaskStatus.class);
         smileCodecBinder(binder).bindSmileCodec(TaskInfo.class);
         jaxrsBinder(binder).bind(PagesResponseWriter.class);
+        jaxrsBinder(binder).bind(BufferResultStreamWriter.class);
 
         // exchange client
         binder.bind(ExchangeClientSupplier.class).to(ExchangeClientFactory.class).in(Scopes.SINGLETON);
@@ -476,6 +477,17 @@ public class ServerMainModule
         binder.bind(ExecutorCleanup.class).in(Scopes.SINGLETON);
     }
 
+    @Provides
+    @Singleton
+    public static MultilevelSplitQueue createSplitQueue(TaskManagerConfig config)
+    {
+        double levelTimeMultiplier = config.getLevelTimeMultiplier().doubleValue();
+        if (config.isWorkStealingEnabled()) {
+            return new WorkStealingSplitQueue(levelTimeMultiplier);
+        }
+        return new MultilevelSplitQueue(levelTimeMultiplier);
+    }
+
     @Provides
     @Singleton
     @ForExchange
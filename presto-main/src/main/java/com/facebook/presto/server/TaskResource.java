@@ -25,6 +25,7 @@ import com.facebook.presto.execution.buffer.SerializedPage;
 import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.spi.Page;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.reflect.TypeToken;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -32,6 +33,7 @@ import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.stats.TimeStat;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import org.glassfish.jersey.server.ChunkedOutput;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
@@ -56,12 +58,14 @@ import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_STREAM;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
@@ -300,6 +304,36 @@ public class TaskResource
         asyncResponse.register((CompletionCallback) throwable -> resultsRequestTime.add(Duration.nanosSince(start)));
     }
 
+    @GET
+    @Path("{taskId}/results/{bufferId}/{token}/stream")
+    @Produces(PRESTO_PAGES_STREAM)
+    public Response streamResults(
+            @PathParam("taskId") TaskId taskId,
+            @PathParam("bufferId") OutputBufferId bufferId,
+            @PathParam("token") final long token,
+            @HeaderParam(PRESTO_MAX_SIZE) DataSize maxSize)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(bufferId, "bufferId is null");
+        requireNonNull(maxSize, "maxSize is null");
+
+        ChunkedOutput<BufferResult> output = new ChunkedOutput<>(BufferResult.class);
+        new BufferResultStream(
+                taskManager,
+                taskId,
+                bufferId,
+                maxSize,
+                randomizeWaitTime(DEFAULT_MAX_WAIT_TIME),
+                output,
+                responseExecutor,
+                timeoutExecutor)
+                .start(token);
+
+        return Response.ok(output)
+                .header(PRESTO_TASK_INSTANCE_ID, taskManager.getTaskInstanceId(taskId))
+                .build();
+    }
+
     @GET
     @Path("{taskId}/results/{bufferId}/{token}/acknowledge")
     public void acknowledgeResults(
@@ -334,6 +368,17 @@ public class TaskResource
         taskManager.removeRemoteSource(taskId, remoteSourceTaskId);
     }
 
+    @DELETE
+    @Path("{taskId}/splits")
+    @Produces(APPLICATION_JSON)
+    public Set<Long> revokeQueuedSplits(@PathParam("taskId") TaskId taskId, @QueryParam("sequenceId") List<Long> sequenceIds)
+    {
+        requireNonNull(taskId, "taskId is null");
+        requireNonNull(sequenceIds, "sequenceIds is null");
+
+        return taskManager.revokeQueuedSplits(taskId, ImmutableSet.copyOf(sequenceIds));
+    }
+
     @Managed
     @Nested
     public TimeStat getReadFromOutputBufferTime()
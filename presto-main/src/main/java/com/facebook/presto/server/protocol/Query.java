@@ -23,6 +23,9 @@ import com.facebook.presto.client.StatementStats;
 import com.facebook.presto.execution.QueryExecution;
 import com.facebook.presto.execution.QueryInfo;
 import com.facebook.presto.execution.QueryManager;
+import com.facebook.presto.execution.QueryResultCache;
+import com.facebook.presto.execution.QueryResultCache.ResultReader;
+import com.facebook.presto.execution.QueryResultCache.ResultWriter;
 import com.facebook.presto.execution.QueryState;
 import com.facebook.presto.execution.QueryStats;
 import com.facebook.presto.execution.StageInfo;
@@ -98,6 +101,8 @@ class Query
     @GuardedBy("this")
     private final ExchangeClient exchangeClient;
 
+    private final QueryResultCache resultCache;
+
     private final Executor resultsProcessorExecutor;
     private final ScheduledExecutorService timeoutExecutor;
 
@@ -158,17 +163,26 @@ class Query
     @GuardedBy("this")
     private Long updateCount;
 
+    // the results of an identical earlier query, which are served instead of the exchange
+    @GuardedBy("this")
+    private ResultReader cachedResult;
+
+    // collects the results read from the exchange, if they may be reused by later queries
+    @GuardedBy("this")
+    private ResultWriter resultWriter;
+
     public static Query create(
             SessionContext sessionContext,
             String query,
             QueryManager queryManager,
             SessionPropertyManager sessionPropertyManager,
             ExchangeClient exchangeClient,
+            QueryResultCache resultCache,
             Executor dataProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
             BlockEncodingSerde blockEncodingSerde)
     {
-        Query result = new Query(sessionContext, query, queryManager, sessionPropertyManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
+        Query result = new Query(sessionContext, query, queryManager, sessionPropertyManager, exchangeClient, resultCache, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
 
         // register listeners after submission finishes
         addSuccessCallback(result.submissionFuture, () -> {
@@ -191,6 +205,7 @@ class Query
             QueryManager queryManager,
             SessionPropertyManager sessionPropertyManager,
             ExchangeClient exchangeClient,
+            QueryResultCache resultCache,
             Executor resultsProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
             BlockEncodingSerde blockEncodingSerde)
@@ -200,6 +215,7 @@ class Query
         requireNonNull(queryManager, "queryManager is null");
         requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
         requireNonNull(exchangeClient, "exchangeClient is null");
+        requireNonNull(resultCache, "resultCache is null");
         requireNonNull(resultsProcessorExecutor, "resultsProcessorExecutor is null");
         requireNonNull(timeoutExecutor, "timeoutExecutor is null");
         requireNonNull(blockEncodingSerde, "serde is null");
@@ -210,6 +226,7 @@ class Query
         queryId = queryManager.createQueryId();
         submissionFuture = new QuerySubmissionFuture(queryId, query, sessionContext, queryManager);
         this.exchangeClient = exchangeClient;
+        this.resultCache = resultCache;
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
         this.blockEncodingSerde = blockEncodingSerde;
@@ -235,6 +252,12 @@ class Query
     public synchronized void dispose()
     {
         exchangeClient.close();
+        if (cachedResult != null) {
+            cachedResult.close();
+        }
+        if (resultWriter != null) {
+            resultWriter.abort();
+        }
     }
 
     public QueryId getQueryId()
@@ -323,6 +346,11 @@ class Query
             return submissionFuture;
         }
 
+        // cached results are available immediately
+        if (cachedResult != null && !cachedResult.isFinished()) {
+            return immediateFuture(null);
+        }
+
         // if the exchange client is open, wait for data
         if (!exchangeClient.isClosed()) {
             return exchangeClient.isBlocked();
@@ -419,7 +447,7 @@ class Query
             long rows = 0;
             long targetResultBytes = targetResultSize.toBytes();
             while (bytes < targetResultBytes) {
-                SerializedPage serializedPage = exchangeClient.pollPage();
+                SerializedPage serializedPage = pollPage();
                 if (serializedPage == null) {
                     break;
                 }
@@ -457,9 +485,10 @@ class Query
         }
 
         closeExchangeClientIfNecessary(queryInfo);
+        updateResultCache(queryInfo);
 
         // for queries with no output, return a fake result for clients that require it
-        if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent()) {
+        if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent() && cachedResult == null) {
             columns = ImmutableList.of(new Column("result", BooleanType.BOOLEAN));
             data = ImmutableSet.of(ImmutableList.of(true));
         }
@@ -470,7 +499,7 @@ class Query
         // (2)there is more data to send (due to buffering)
         URI nextResultsUri = null;
         if (!queryInfo.isFinalQueryInfo() && !queryInfo.getState().equals(QueryState.FAILED)
-                || !exchangeClient.isClosed()) {
+                || !exchangeClient.isClosed() || (cachedResult != null && !cachedResult.isFinished())) {
             nextResultsUri = createNextResultsUri(scheme, uriInfo);
         }
 
@@ -535,10 +564,45 @@ class Query
         }
     }
 
+    private synchronized SerializedPage pollPage()
+    {
+        if (cachedResult != null) {
+            return cachedResult.pollPage();
+        }
+
+        SerializedPage page = exchangeClient.pollPage();
+        if (page != null && resultWriter != null) {
+            resultWriter.append(page);
+        }
+        return page;
+    }
+
+    private synchronized void updateResultCache(QueryInfo queryInfo)
+    {
+        if (resultWriter == null) {
+            return;
+        }
+        // the results are complete once the query has finished and the client has read all pages
+        if (queryInfo.getState() == FAILED) {
+            resultWriter.abort();
+        }
+        else if (queryInfo.getState() == QueryState.FINISHED && exchangeClient.isClosed()) {
+            resultWriter.commit();
+        }
+    }
+
     private synchronized void setQueryOutputInfo(QueryExecution.QueryOutputInfo outputInfo)
     {
         // if first callback, set column names
         if (columns == null) {
+            if (outputInfo.getCachedResult().isPresent()) {
+                cachedResult = outputInfo.getCachedResult().get();
+                exchangeClient.close();
+            }
+            else if (outputInfo.getResultCacheKey().isPresent()) {
+                resultWriter = resultCache.createWriter(outputInfo.getResultCacheKey().get());
+            }
+
             List<String> columnNames = outputInfo.getColumnNames();
             List<Type> columnTypes = outputInfo.getColumnTypes();
             checkArgument(columnNames.size() == columnTypes.size(), "Column names and types size mismatch");
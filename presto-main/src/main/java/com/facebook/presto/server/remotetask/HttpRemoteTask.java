@@ -49,11 +49,13 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.concurrent.SetThreadName;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
 import io.airlift.http.client.ResponseHandler;
 import io.airlift.http.client.StatusResponseHandler.StatusResponse;
+import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import org.joda.time.DateTime;
@@ -64,6 +66,7 @@ import javax.annotation.concurrent.GuardedBy;
 import java.net.URI;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -81,6 +84,7 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.SystemSessionProperties.isReassignStragglerSplits;
 import static com.facebook.presto.execution.TaskInfo.createInitialTask;
 import static com.facebook.presto.execution.TaskState.ABORTED;
 import static com.facebook.presto.execution.TaskState.FAILED;
@@ -100,6 +104,7 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.util.concurrent.Futures.addCallback;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpStatus.NO_CONTENT;
 import static io.airlift.http.client.HttpStatus.OK;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
@@ -107,6 +112,8 @@ import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.preparePost;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static io.airlift.http.client.StatusResponseHandler.createStatusResponseHandler;
+import static io.airlift.json.JsonCodec.listJsonCodec;
+import static java.lang.Math.max;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -116,6 +123,7 @@ public final class HttpRemoteTask
         implements RemoteTask
 {
     private static final Logger log = Logger.get(HttpRemoteTask.class);
+    private static final JsonCodec<List<Long>> SEQUENCE_IDS_CODEC = listJsonCodec(Long.class);
 
     private final TaskId taskId;
     private final URI taskLocation;
@@ -146,6 +154,11 @@ public final class HttpRemoteTask
     private volatile int pendingSourceSplitCount;
     @GuardedBy("this")
     private final SetMultimap<PlanNodeId, Lifespan> pendingNoMoreSplitsForLifespan = HashMultimap.create();
+    // splits that can be revoked and scheduled on another task, by sequence id
+    // these are only tracked when straggler split reassignment is enabled, until there are no more splits for the source
+    private final boolean trackRevocableSplits;
+    @GuardedBy("this")
+    private final Map<Long, ScheduledSplit> revocableSplits = new LinkedHashMap<>();
     @GuardedBy("this")
     // The keys of this map represent all plan nodes that have "no more splits".
     // The boolean value of each entry represents whether the "no more splits" notification is pending delivery to workers.
@@ -237,6 +250,7 @@ public final class HttpRemoteTask
             this.maxErrorDuration = maxErrorDuration;
             this.stats = stats;
             this.isBinaryTransportEnabled = isBinaryTransportEnabled;
+            this.trackRevocableSplits = isReassignStragglerSplits(session);
 
             this.tableScanPlanNodeIds = ImmutableSet.copyOf(planFragment.getTableScanSchedulingOrder());
             this.remoteSourcePlanNodeIds = planFragment.getRemoteSourceNodes().stream()
@@ -246,6 +260,7 @@ public final class HttpRemoteTask
             for (Entry<PlanNodeId, Split> entry : requireNonNull(initialSplits, "initialSplits is null").entries()) {
                 ScheduledSplit scheduledSplit = new ScheduledSplit(nextSplitId.getAndIncrement(), entry.getKey(), entry.getValue());
                 pendingSplits.put(entry.getKey(), scheduledSplit);
+                trackRevocableSplit(scheduledSplit);
             }
             pendingSourceSplitCount = planFragment.getTableScanSchedulingOrder().stream()
                     .filter(initialSplits::containsKey)
@@ -355,7 +370,9 @@ public final class HttpRemoteTask
             checkState(!noMoreSplits.containsKey(sourceId), "noMoreSplits has already been set for %s", sourceId);
             int added = 0;
             for (Split split : splits) {
-                if (pendingSplits.put(sourceId, new ScheduledSplit(nextSplitId.getAndIncrement(), sourceId, split))) {
+                ScheduledSplit scheduledSplit = new ScheduledSplit(nextSplitId.getAndIncrement(), sourceId, split);
+                if (pendingSplits.put(sourceId, scheduledSplit)) {
+                    trackRevocableSplit(scheduledSplit);
                     added++;
                 }
             }
@@ -381,10 +398,21 @@ public final class HttpRemoteTask
         }
 
         noMoreSplits.put(sourceId, true);
+        revocableSplits.values().removeIf(split -> split.getPlanNodeId().equals(sourceId));
         needsUpdate.set(true);
         scheduleUpdate();
     }
 
+    private synchronized void trackRevocableSplit(ScheduledSplit split)
+    {
+        if (trackRevocableSplits &&
+                tableScanPlanNodeIds.contains(split.getPlanNodeId()) &&
+                split.getSplit().isRemotelyAccessible() &&
+                split.getSplit().getLifespan().isTaskWide()) {
+            revocableSplits.put(split.getSequenceId(), split);
+        }
+    }
+
     @Override
     public synchronized void noMoreSplits(PlanNodeId sourceId, Lifespan lifespan)
     {
@@ -479,6 +507,108 @@ public final class HttpRemoteTask
         addCallback(httpClient.executeAsync(request, createStatusResponseHandler()), callback, directExecutor());
     }
 
+    @Override
+    public synchronized ListenableFuture<List<Split>> revokeQueuedSplits(PlanNodeId sourceId, int maxSplits)
+    {
+        checkArgument(maxSplits >= 0, "maxSplits is negative");
+        if (getTaskStatus().getState().isDone()) {
+            return immediateFuture(ImmutableList.of());
+        }
+
+        // only splits the worker has acknowledged can be revoked, and the most recently added splits are the last ones it runs
+        List<Long> acknowledgedSplits = revocableSplits.values().stream()
+                .filter(split -> split.getPlanNodeId().equals(sourceId))
+                .filter(split -> !pendingSplits.containsEntry(sourceId, split))
+                .map(ScheduledSplit::getSequenceId)
+                .collect(toImmutableList());
+        List<Long> sequenceIds = acknowledgedSplits.subList(max(0, acknowledgedSplits.size() - maxSplits), acknowledgedSplits.size());
+        if (sequenceIds.isEmpty()) {
+            return immediateFuture(ImmutableList.of());
+        }
+
+        HttpUriBuilder uriBuilder = uriBuilderFrom(taskLocation).appendPath("splits");
+        for (long sequenceId : sequenceIds) {
+            uriBuilder.addParameter("sequenceId", String.valueOf(sequenceId));
+        }
+        URI splitsUri = uriBuilder.build();
+
+        Request request = prepareDelete()
+                .setUri(splitsUri)
+                .build();
+        RequestErrorTracker errorTracker = new RequestErrorTracker(
+                taskId,
+                splitsUri,
+                maxErrorDuration,
+                errorScheduledExecutor,
+                "Revoke queued splits");
+
+        SettableFuture<List<Long>> future = SettableFuture.create();
+        doRevokeQueuedSplits(errorTracker, request, future);
+        return Futures.transform(future, this::removeRevokedSplits, directExecutor());
+    }
+
+    /// This method may call itself recursively when retrying for failures
+    private void doRevokeQueuedSplits(RequestErrorTracker errorTracker, Request request, SettableFuture<List<Long>> future)
+    {
+        errorTracker.startRequest();
+
+        FutureCallback<JsonResponse<List<Long>>> callback = new FutureCallback<JsonResponse<List<Long>>>() {
+            @Override
+            public void onSuccess(@Nullable JsonResponse<List<Long>> response)
+            {
+                // the splits may have been revoked, so this cannot be retried as if the request was not delivered
+                if (response == null) {
+                    future.setException(new PrestoException(GENERIC_INTERNAL_ERROR, "Request failed with null response"));
+                    return;
+                }
+                if (response.getStatusCode() != OK.code() || !response.hasValue()) {
+                    future.setException(new PrestoException(GENERIC_INTERNAL_ERROR, "Request failed with HTTP status " + response.getStatusCode()));
+                    return;
+                }
+                future.set(response.getValue());
+            }
+
+            @Override
+            public void onFailure(Throwable failedReason)
+            {
+                if (failedReason instanceof RejectedExecutionException && httpClient.isClosed()) {
+                    log.error("Unable to revoke splits at %s. HTTP client is closed", request.getUri());
+                    future.setException(failedReason);
+                    return;
+                }
+                // record failure
+                try {
+                    errorTracker.requestFailed(failedReason);
+                }
+                catch (PrestoException e) {
+                    future.setException(e);
+                    return;
+                }
+                // if throttled due to error, asynchronously wait for timeout and try again
+                ListenableFuture<?> errorRateLimit = errorTracker.acquireRequestPermit();
+                if (errorRateLimit.isDone()) {
+                    doRevokeQueuedSplits(errorTracker, request, future);
+                }
+                else {
+                    errorRateLimit.addListener(() -> doRevokeQueuedSplits(errorTracker, request, future), errorScheduledExecutor);
+                }
+            }
+        };
+
+        addCallback(httpClient.executeAsync(request, createFullJsonResponseHandler(SEQUENCE_IDS_CODEC)), callback, directExecutor());
+    }
+
+    private synchronized List<Split> removeRevokedSplits(List<Long> sequenceIds)
+    {
+        ImmutableList.Builder<Split> splits = ImmutableList.builder();
+        for (long sequenceId : sequenceIds) {
+            ScheduledSplit split = revocableSplits.remove(sequenceId);
+            checkState(split != null, "Split %s was revoked from task %s after it was released", sequenceId, taskId);
+            splits.add(split.getSplit());
+        }
+        return splits.build();
+    }
+
     @Override
     public int getPartitionedSplitCount()
     {
@@ -692,6 +822,7 @@ public final class HttpRemoteTask
 
         // clear pending splits to free memory
         pendingSplits.clear();
+        revocableSplits.clear();
         pendingSourceSplitCount = 0;
         partitionedSplitCountTracker.setPartitionedSplitCount(getPartitionedSplitCount());
         splitQueueHasSpace = true;
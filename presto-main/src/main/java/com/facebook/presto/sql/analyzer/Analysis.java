@@ -583,6 +583,14 @@ public class Analysis
         return namedQueries.get(NodeRef.of(table));
     }
 
+    /**
+     * Returns the queries of the views and WITH clauses referenced by the statement, in the order they were analyzed.
+     */
+    public List<Query> getNamedQueries()
+    {
+        return ImmutableList.copyOf(namedQueries.values());
+    }
+
     public void registerNamedQuery(Table tableReference, Query query)
     {
         requireNonNull(tableReference, "tableReference is null");
@@ -618,6 +626,11 @@ public class Analysis
         return sampleRatios.get(key);
     }
 
+    public boolean hasSampledRelations()
+    {
+        return !sampleRatios.isEmpty();
+    }
+
     public void setGroupingOperations(QuerySpecification querySpecification, List<GroupingOperation> groupingOperations)
     {
         this.groupingOperations.put(NodeRef.of(querySpecification), ImmutableList.copyOf(groupingOperations));
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.analyzer;
 
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.facebook.presto.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -65,6 +66,9 @@ public class FeaturesConfig
     private boolean distributedIndexJoinsEnabled;
     private JoinDistributionType joinDistributionType = PARTITIONED;
     private DataSize joinMaxBroadcastTableSize;
+    private boolean distributeSkewedJoinKeys;
+    private boolean joinBloomFilterEnabled;
+    private DataSize joinBloomFilterMaxSize = new DataSize(8, DataSize.Unit.MEGABYTE);
     private boolean colocatedJoinsEnabled;
     private boolean groupedExecutionForAggregationEnabled;
     private boolean groupedExecutionForEligibleTableScansEnabled;
@@ -85,6 +89,8 @@ public class FeaturesConfig
     private boolean enableIntermediateAggregations;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private PageCompressionCodec exchangeCompressionCodec = PageCompressionCodec.LZ4;
+    private boolean exchangeAdaptiveCompressionEnabled;
     private boolean legacyArrayAgg;
     private boolean legacyLogFunction;
     private boolean groupByUsesEqualTo;
@@ -116,6 +122,10 @@ public class FeaturesConfig
     private boolean printStatsForNonJoinQuery;
     private boolean defaultFilterFactorEnabled;
     private boolean pushAggregationThroughJoin = true;
+    private boolean pushAggregationIntoConnector = true;
+    private boolean pushLimitIntoConnector = true;
+    private JoinPushdownStrategy joinPushdownStrategy = JoinPushdownStrategy.AUTOMATIC;
+    private AggregationStrategy aggregationStrategy = AggregationStrategy.AUTOMATIC;
     private double memoryRevokingTarget = 0.5;
     private double memoryRevokingThreshold = 0.9;
     private boolean parseDecimalLiteralsAsDouble;
@@ -134,6 +144,15 @@ public class FeaturesConfig
     private boolean jsonSerdeCodeGenerationEnabled;
     private int maxConcurrentMaterializations = 10;
 
+    private boolean enableDynamicFiltering;
+    private int dynamicFilteringMaxDistinctValues = 1000;
+
+    private boolean planCacheEnabled;
+    private long planCacheMaxSize = 1000;
+    private Duration planCacheExpireAfterWrite = new Duration(1, MINUTES);
+    private boolean batchedGroupByHashEnabled;
+    private boolean optimizedRepartitioningEnabled;
+
     public enum JoinReorderingStrategy
     {
         NONE,
@@ -164,6 +183,20 @@ public class FeaturesConfig
         PUSH_THROUGH_LOW_MEMORY_OPERATORS
     }
 
+    public enum JoinPushdownStrategy
+    {
+        NONE,
+        AUTOMATIC,
+        ALWAYS,
+    }
+
+    public enum AggregationStrategy
+    {
+        HASH,
+        SORT,
+        AUTOMATIC,
+    }
+
     public double getCpuCostWeight()
     {
         return cpuCostWeight;
@@ -320,6 +353,46 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isDistributeSkewedJoinKeys()
+    {
+        return distributeSkewedJoinKeys;
+    }
+
+    @Config("optimizer.distribute-skewed-join-keys")
+    @ConfigDescription("Spread the rows of frequent join keys across the partitions of partitioned joins")
+    public FeaturesConfig setDistributeSkewedJoinKeys(boolean distributeSkewedJoinKeys)
+    {
+        this.distributeSkewedJoinKeys = distributeSkewedJoinKeys;
+        return this;
+    }
+
+    public boolean isJoinBloomFilterEnabled()
+    {
+        return joinBloomFilterEnabled;
+    }
+
+    @Config("optimizer.join-bloom-filter-enabled")
+    @ConfigDescription("Filter the probe side of partitioned joins with a Bloom filter of the build side keys before it is shuffled")
+    public FeaturesConfig setJoinBloomFilterEnabled(boolean joinBloomFilterEnabled)
+    {
+        this.joinBloomFilterEnabled = joinBloomFilterEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getJoinBloomFilterMaxSize()
+    {
+        return joinBloomFilterMaxSize;
+    }
+
+    @Config("optimizer.join-bloom-filter-max-size")
+    @ConfigDescription("Maximum size of the Bloom filter of the build side keys of a partitioned join")
+    public FeaturesConfig setJoinBloomFilterMaxSize(DataSize joinBloomFilterMaxSize)
+    {
+        this.joinBloomFilterMaxSize = joinBloomFilterMaxSize;
+        return this;
+    }
+
     public boolean isGroupedExecutionForAggregationEnabled()
     {
         return groupedExecutionForAggregationEnabled;
@@ -833,6 +906,32 @@ public class FeaturesConfig
         return this;
     }
 
+    public PageCompressionCodec getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec used to compress pages in exchanges, when compression is enabled")
+    public FeaturesConfig setExchangeCompressionCodec(PageCompressionCodec exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = requireNonNull(exchangeCompressionCodec, "exchangeCompressionCodec is null");
+        return this;
+    }
+
+    public boolean isExchangeAdaptiveCompressionEnabled()
+    {
+        return exchangeAdaptiveCompressionEnabled;
+    }
+
+    @Config("exchange.adaptive-compression-enabled")
+    @ConfigDescription("Skip the compression of exchange pages which are not expected to shrink")
+    public FeaturesConfig setExchangeAdaptiveCompressionEnabled(boolean exchangeAdaptiveCompressionEnabled)
+    {
+        this.exchangeAdaptiveCompressionEnabled = exchangeAdaptiveCompressionEnabled;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -857,6 +956,58 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isPushAggregationIntoConnector()
+    {
+        return pushAggregationIntoConnector;
+    }
+
+    @Config("optimizer.push-aggregation-into-connector")
+    @ConfigDescription("Let connectors compute aggregations over their tables")
+    public FeaturesConfig setPushAggregationIntoConnector(boolean value)
+    {
+        this.pushAggregationIntoConnector = value;
+        return this;
+    }
+
+    public boolean isPushLimitIntoConnector()
+    {
+        return pushLimitIntoConnector;
+    }
+
+    @Config("optimizer.push-limit-into-connector")
+    @ConfigDescription("Let connectors limit the rows of their tables below LIMIT and TopN")
+    public FeaturesConfig setPushLimitIntoConnector(boolean value)
+    {
+        this.pushLimitIntoConnector = value;
+        return this;
+    }
+
+    public JoinPushdownStrategy getJoinPushdownStrategy()
+    {
+        return joinPushdownStrategy;
+    }
+
+    @Config("optimizer.join-pushdown-strategy")
+    @ConfigDescription("The strategy to use for letting connectors join two of their tables")
+    public FeaturesConfig setJoinPushdownStrategy(JoinPushdownStrategy joinPushdownStrategy)
+    {
+        this.joinPushdownStrategy = joinPushdownStrategy;
+        return this;
+    }
+
+    public AggregationStrategy getAggregationStrategy()
+    {
+        return aggregationStrategy;
+    }
+
+    @Config("optimizer.aggregation-strategy")
+    @ConfigDescription("The strategy to use for grouped aggregations whose input is not grouped on the grouping keys")
+    public FeaturesConfig setAggregationStrategy(AggregationStrategy aggregationStrategy)
+    {
+        this.aggregationStrategy = aggregationStrategy;
+        return this;
+    }
+
     public boolean isParseDecimalLiteralsAsDouble()
     {
         return parseDecimalLiteralsAsDouble;
@@ -1029,4 +1180,98 @@ public class FeaturesConfig
     {
         return maxConcurrentMaterializations;
     }
+
+    public boolean isEnableDynamicFiltering()
+    {
+        return enableDynamicFiltering;
+    }
+
+    @Config("experimental.enable-dynamic-filtering")
+    @ConfigDescription("Filter the probe side table scan of a join using the join keys collected from the build side")
+    public FeaturesConfig setEnableDynamicFiltering(boolean enableDynamicFiltering)
+    {
+        this.enableDynamicFiltering = enableDynamicFiltering;
+        return this;
+    }
+
+    @Min(0)
+    public int getDynamicFilteringMaxDistinctValues()
+    {
+        return dynamicFilteringMaxDistinctValues;
+    }
+
+    @Config("experimental.dynamic-filtering-max-distinct-values")
+    @ConfigDescription("Maximum number of distinct join keys collected per build partition, after which only the range of the keys is used")
+    public FeaturesConfig setDynamicFilteringMaxDistinctValues(int dynamicFilteringMaxDistinctValues)
+    {
+        this.dynamicFilteringMaxDistinctValues = dynamicFilteringMaxDistinctValues;
+        return this;
+    }
+
+    public boolean isPlanCacheEnabled()
+    {
+        return planCacheEnabled;
+    }
+
+    @Config("plan-cache.enabled")
+    @ConfigDescription("Reuse the optimized plans of repeated queries")
+    public FeaturesConfig setPlanCacheEnabled(boolean planCacheEnabled)
+    {
+        this.planCacheEnabled = planCacheEnabled;
+        return this;
+    }
+
+    @Min(0)
+    public long getPlanCacheMaxSize()
+    {
+        return planCacheMaxSize;
+    }
+
+    @Config("plan-cache.max-size")
+    @ConfigDescription("Maximum number of plans held by the plan cache")
+    public FeaturesConfig setPlanCacheMaxSize(long planCacheMaxSize)
+    {
+        this.planCacheMaxSize = planCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public Duration getPlanCacheExpireAfterWrite()
+    {
+        return planCacheExpireAfterWrite;
+    }
+
+    @Config("plan-cache.expire-after-write")
+    @ConfigDescription("Time after which a cached plan is discarded, which bounds how long changes made outside of Presto go unnoticed")
+    public FeaturesConfig setPlanCacheExpireAfterWrite(Duration planCacheExpireAfterWrite)
+    {
+        this.planCacheExpireAfterWrite = planCacheExpireAfterWrite;
+        return this;
+    }
+
+    public boolean isBatchedGroupByHashEnabled()
+    {
+        return batchedGroupByHashEnabled;
+    }
+
+    @Config("experimental.batched-group-by-hash-enabled")
+    @ConfigDescription("Group rows of hash aggregations in batches, one column at a time")
+    public FeaturesConfig setBatchedGroupByHashEnabled(boolean batchedGroupByHashEnabled)
+    {
+        this.batchedGroupByHashEnabled = batchedGroupByHashEnabled;
+        return this;
+    }
+
+    public boolean isOptimizedRepartitioningEnabled()
+    {
+        return optimizedRepartitioningEnabled;
+    }
+
+    @Config("experimental.optimized-repartitioning")
+    @ConfigDescription("Partition the output of a task one column at a time")
+    public FeaturesConfig setOptimizedRepartitioningEnabled(boolean optimizedRepartitioningEnabled)
+    {
+        this.optimizedRepartitioningEnabled = optimizedRepartitioningEnabled;
+        return this;
+    }
 }
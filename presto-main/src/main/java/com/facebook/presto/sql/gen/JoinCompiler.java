@@ -73,12 +73,14 @@ import static com.facebook.presto.bytecode.Access.STATIC;
 import static com.facebook.presto.bytecode.Access.a;
 import static com.facebook.presto.bytecode.Parameter.arg;
 import static com.facebook.presto.bytecode.ParameterizedType.type;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.add;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantFalse;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantInt;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantLong;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantNull;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.constantTrue;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.getStatic;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.lessThan;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.newInstance;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.notEqual;
 import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
@@ -231,6 +233,8 @@ public class JoinCompiler
         generatePositionEqualsRowMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, true);
         generatePositionEqualsRowMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, false);
         generatePositionNotDistinctFromRowWithPageMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields);
+        generateHashRowsMethod(classDefinition, callSiteBinder, joinChannelTypes);
+        generatePositionsNotDistinctFromRowsMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields);
         generatePositionEqualsRowWithPageMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields);
         generatePositionEqualsPositionMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, true);
         generatePositionEqualsPositionMethod(classDefinition, callSiteBinder, joinChannelTypes, joinChannelFields, false);
@@ -684,40 +688,181 @@ public class JoinCompiler
                     .invoke("get", Object.class, leftBlockIndex)
                     .cast(Block.class);
             BytecodeExpression rightBlock = page.invoke("getBlock", Block.class, rightChannels.getElement(index));
-            Type type = joinChannelTypes.get(index);
-            // This is a hack for performance reasons.
-            // Type.equalTo takes two pairs of Block+position.
-            // On the other hand, NOT_DISTINCT_FROM is an operator. It takes two Slices.
-            // As a result, two Slices must be constructed for each invocation, which has a nontrivial cost.
-            // For these types, their equal semantics is known to be the same as not-distinct-from except for null values.
-            //
-            // The plan is to allow scalar function to optionally provide an additional implementation using Block+position calling convention.
-            // At that point, we'll be able to fully deprecate Type.equalTo (and friends) and remove this hack.
-            if (type.getJavaType().equals(Slice.class)) {
-                switch (type.getTypeSignature().getBase()) {
-                    case StandardTypes.CHAR:
-                    case StandardTypes.IPADDRESS:
-                    case StandardTypes.JSON:
-                    case StandardTypes.DECIMAL:
-                    case StandardTypes.VARBINARY:
-                    case StandardTypes.VARCHAR:
-                        body.append(new IfStatement()
-                                .condition(typeEquals(constantType(callSiteBinder, type), leftBlock, leftBlockPosition, rightBlock, rightPosition))
-                                .ifFalse(constantFalse().ret()));
-                        continue;
-                }
+            body.append(ifDistinctFrom(
+                    scope,
+                    callSiteBinder,
+                    joinChannelTypes.get(index),
+                    leftBlock,
+                    leftBlockPosition,
+                    rightBlock,
+                    rightPosition,
+                    constantFalse().ret()));
+        }
+        body.append(constantTrue().ret());
+    }
+
+    private static void generateHashRowsMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, List<Type> joinChannelTypes)
+    {
+        Parameter offset = arg("offset", int.class);
+        Parameter length = arg("length", int.class);
+        Parameter page = arg("page", Page.class);
+        Parameter rightChannels = arg("rightChannels", int[].class);
+        Parameter hashes = arg("hashes", long[].class);
+        MethodDefinition hashRowsMethod = classDefinition.declareMethod(a(PUBLIC), "hashRows", type(void.class), offset, length, page, rightChannels, hashes);
+
+        Scope scope = hashRowsMethod.getScope();
+        BytecodeBlock body = hashRowsMethod.getBody();
+        Variable block = scope.declareVariable(Block.class, "block");
+        Variable position = scope.declareVariable(int.class, "position");
+
+        // hash one column at a time, so that the type of each loop is fixed
+        for (int index = 0; index < joinChannelTypes.size(); index++) {
+            BytecodeExpression type = constantType(callSiteBinder, joinChannelTypes.get(index));
+
+            BytecodeBlock hash = new BytecodeBlock()
+                    .append(hashes)
+                    .append(position);
+            if (index > 0) {
+                hash.append(hashes.getElement(position))
+                        .push(31L)
+                        .append(OpCode.LMUL);
             }
-            ScalarFunctionImplementation operator = functionManager.getScalarFunctionImplementation(functionManager.resolveOperator(OperatorType.IS_DISTINCT_FROM, fromTypes(type, type)));
-            callSiteBinder.bind(operator.getMethodHandle());
-            List<BytecodeNode> argumentsBytecode = new ArrayList<>();
-            argumentsBytecode.add(generateInputReference(callSiteBinder, scope, type, leftBlock, leftBlockPosition));
-            argumentsBytecode.add(generateInputReference(callSiteBinder, scope, type, rightBlock, rightPosition));
+            hash.append(typeHashCode(type, block, add(offset, position)));
+            if (index > 0) {
+                hash.append(OpCode.LADD);
+            }
+            hash.append(OpCode.LASTORE);
 
-            body.append(new IfStatement()
-                    .condition(BytecodeUtils.generateInvocation(scope, "isDistinctFrom", operator, Optional.empty(), argumentsBytecode, callSiteBinder))
-                    .ifTrue(constantFalse().ret()));
+            body.append(block.set(page.invoke("getBlock", Block.class, rightChannels.getElement(index))))
+                    .append(new ForLoop()
+                            .initialize(position.set(constantInt(0)))
+                            .condition(lessThan(position, length))
+                            .update(position.increment())
+                            .body(hash));
         }
-        body.append(constantTrue().ret());
+
+        if (joinChannelTypes.isEmpty()) {
+            body.append(new ForLoop()
+                    .initialize(position.set(constantInt(0)))
+                    .condition(lessThan(position, length))
+                    .update(position.increment())
+                    .body(hashes.setElement(position, constantLong(0L))));
+        }
+        body.ret();
+    }
+
+    private void generatePositionsNotDistinctFromRowsMethod(
+            ClassDefinition classDefinition,
+            CallSiteBinder callSiteBinder,
+            List<Type> joinChannelTypes,
+            List<FieldDefinition> joinChannelFields)
+    {
+        Parameter leftBlockIndexes = arg("leftBlockIndexes", int[].class);
+        Parameter leftPositions = arg("leftPositions", int[].class);
+        Parameter rightPositions = arg("rightPositions", int[].class);
+        Parameter count = arg("count", int.class);
+        Parameter page = arg("page", Page.class);
+        Parameter rightChannels = arg("rightChannels", int[].class);
+        Parameter result = arg("result", boolean[].class);
+
+        MethodDefinition positionsNotDistinctFromRowsMethod = classDefinition.declareMethod(
+                a(PUBLIC),
+                "positionsNotDistinctFromRows",
+                type(void.class),
+                leftBlockIndexes,
+                leftPositions,
+                rightPositions,
+                count,
+                page,
+                rightChannels,
+                result);
+
+        Variable thisVariable = positionsNotDistinctFromRowsMethod.getThis();
+        Scope scope = positionsNotDistinctFromRowsMethod.getScope();
+        BytecodeBlock body = positionsNotDistinctFromRowsMethod.getBody();
+        scope.declareVariable("wasNull", body, constantFalse());
+        Variable leftBlock = scope.declareVariable(Block.class, "leftBlock");
+        Variable rightBlock = scope.declareVariable(Block.class, "rightBlock");
+        Variable leftPosition = scope.declareVariable(int.class, "leftPosition");
+        Variable rightPosition = scope.declareVariable(int.class, "rightPosition");
+        Variable candidate = scope.declareVariable(int.class, "candidate");
+
+        // compare one column at a time, so that the type of each loop is fixed
+        for (int index = 0; index < joinChannelTypes.size(); index++) {
+            BytecodeBlock compare = new BytecodeBlock()
+                    .append(leftBlock.set(thisVariable
+                            .getField(joinChannelFields.get(index))
+                            .invoke("get", Object.class, leftBlockIndexes.getElement(candidate))
+                            .cast(Block.class)))
+                    .append(leftPosition.set(leftPositions.getElement(candidate)))
+                    .append(rightPosition.set(rightPositions.getElement(candidate)))
+                    .append(ifDistinctFrom(
+                            scope,
+                            callSiteBinder,
+                            joinChannelTypes.get(index),
+                            leftBlock,
+                            leftPosition,
+                            rightBlock,
+                            rightPosition,
+                            result.setElement(candidate, constantFalse())));
+
+            body.append(rightBlock.set(page.invoke("getBlock", Block.class, rightChannels.getElement(index))))
+                    .append(new ForLoop()
+                            .initialize(candidate.set(constantInt(0)))
+                            .condition(lessThan(candidate, count))
+                            .update(candidate.increment())
+                            .body(new IfStatement()
+                                    .condition(result.getElement(candidate))
+                                    .ifTrue(compare)));
+        }
+        body.ret();
+    }
+
+    private BytecodeNode ifDistinctFrom(
+            Scope scope,
+            CallSiteBinder callSiteBinder,
+            Type type,
+            BytecodeExpression leftBlock,
+            BytecodeExpression leftBlockPosition,
+            BytecodeExpression rightBlock,
+            BytecodeExpression rightPosition,
+            BytecodeNode ifDistinct)
+    {
+        if (groupByUsesEqualTo) {
+            return new IfStatement()
+                    .condition(typeEquals(constantType(callSiteBinder, type), leftBlock, leftBlockPosition, rightBlock, rightPosition))
+                    .ifFalse(ifDistinct);
+        }
+        // This is a hack for performance reasons.
+        // Type.equalTo takes two pairs of Block+position.
+        // On the other hand, NOT_DISTINCT_FROM is an operator. It takes two Slices.
+        // As a result, two Slices must be constructed for each invocation, which has a nontrivial cost.
+        // For these types, their equal semantics is known to be the same as not-distinct-from except for null values.
+        //
+        // The plan is to allow scalar function to optionally provide an additional implementation using Block+position calling convention.
+        // At that point, we'll be able to fully deprecate Type.equalTo (and friends) and remove this hack.
+        if (type.getJavaType().equals(Slice.class)) {
+            switch (type.getTypeSignature().getBase()) {
+                case StandardTypes.CHAR:
+                case StandardTypes.IPADDRESS:
+                case StandardTypes.JSON:
+                case StandardTypes.DECIMAL:
+                case StandardTypes.VARBINARY:
+                case StandardTypes.VARCHAR:
+                    return new IfStatement()
+                            .condition(typeEquals(constantType(callSiteBinder, type), leftBlock, leftBlockPosition, rightBlock, rightPosition))
+                            .ifFalse(ifDistinct);
+            }
+        }
+        ScalarFunctionImplementation operator = functionManager.getScalarFunctionImplementation(functionManager.resolveOperator(OperatorType.IS_DISTINCT_FROM, fromTypes(type, type)));
+        callSiteBinder.bind(operator.getMethodHandle());
+        List<BytecodeNode> argumentsBytecode = new ArrayList<>();
+        argumentsBytecode.add(generateInputReference(callSiteBinder, scope, type, leftBlock, leftBlockPosition));
+        argumentsBytecode.add(generateInputReference(callSiteBinder, scope, type, rightBlock, rightPosition));
+
+        return new IfStatement()
+                .condition(BytecodeUtils.generateInvocation(scope, "isDistinctFrom", operator, Optional.empty(), argumentsBytecode, callSiteBinder))
+                .ifTrue(ifDistinct);
     }
 
     private static void generatePositionEqualsPositionMethod(
@@ -19,6 +19,7 @@ import com.facebook.presto.execution.ExplainAnalyzeContext;
 import com.facebook.presto.execution.StageId;
 import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.execution.buffer.OutputBuffer;
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import com.facebook.presto.execution.buffer.PagesSerdeFactory;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.FunctionManager;
@@ -40,6 +41,7 @@ import com.facebook.presto.operator.JoinBridgeManager;
 import com.facebook.presto.operator.JoinOperatorFactory;
 import com.facebook.presto.operator.JoinOperatorFactory.OuterOperatorFactoryResult;
 import com.facebook.presto.operator.LimitOperator.LimitOperatorFactory;
+import com.facebook.presto.operator.LocalDynamicFilter;
 import com.facebook.presto.operator.LocalPlannerAware;
 import com.facebook.presto.operator.LookupJoinOperators;
 import com.facebook.presto.operator.LookupOuterOperator.LookupOuterOperatorFactory;
@@ -114,6 +116,7 @@ import com.facebook.presto.spi.plan.FilterNode;
 import com.facebook.presto.spi.plan.PlanNode;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.relation.CallExpression;
 import com.facebook.presto.spi.relation.ConstantExpression;
 import com.facebook.presto.spi.relation.InputReferenceExpression;
@@ -179,6 +182,7 @@ import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.NodeRef;
 import com.facebook.presto.sql.tree.SymbolReference;
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ContiguousSet;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableBiMap;
@@ -209,17 +213,24 @@ import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
+import static com.facebook.presto.SystemSessionProperties.getDynamicFilteringMaxDistinctValues;
+import static com.facebook.presto.SystemSessionProperties.getExchangeCompressionCodec;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static com.facebook.presto.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isEnableDynamicFiltering;
+import static com.facebook.presto.SystemSessionProperties.isExchangeAdaptiveCompressionEnabled;
 import static com.facebook.presto.SystemSessionProperties.isExchangeCompressionEnabled;
+import static com.facebook.presto.SystemSessionProperties.isOptimizedRepartitioningEnabled;
 import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.NestedLoopBuildOperator.NestedLoopBuildOperatorFactory;
@@ -269,6 +280,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.DiscreteDomain.integers;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Range.closedOpen;
@@ -441,7 +453,8 @@ public class LocalExecutionPlanner
                         partitioningScheme.isReplicateNullsAndAny(),
                         nullChannel,
                         outputBuffer,
-                        maxPagePartitioningBufferSize),
+                        maxPagePartitioningBufferSize,
+                        isOptimizedRepartitioningEnabled(taskContext.getSession())),
                 taskExchangeClientManager);
     }
 
@@ -476,7 +489,7 @@ public class LocalExecutionPlanner
                                 plan.getId(),
                                 outputTypes,
                                 pagePreprocessor,
-                                new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session))))
+                                createExchangePagesSerdeFactory(session)))
                         .build(),
                 context.getDriverInstanceCount(),
                 physicalOperation.getPipelineExecutionStrategy());
@@ -494,6 +507,13 @@ public class LocalExecutionPlanner
         return new LocalExecutionPlan(context.getDriverFactories(), partitionedSourceOrder, stageExecutionDescriptor);
     }
 
+    private PagesSerdeFactory createExchangePagesSerdeFactory(Session session)
+    {
+        // pages record the codec they are compressed with, so readers do not depend on these settings
+        Optional<PageCompressionCodec> compressionCodec = isExchangeCompressionEnabled(session) ? Optional.of(getExchangeCompressionCodec(session)) : Optional.empty();
+        return new PagesSerdeFactory(blockEncodingSerde, compressionCodec, isExchangeAdaptiveCompressionEnabled(session));
+    }
+
     private static void addLookupOuterDrivers(LocalExecutionPlanContext context)
     {
         // For an outer join on the lookup side (RIGHT or FULL) add an additional
@@ -531,6 +551,7 @@ public class LocalExecutionPlanner
         private final TaskExchangeClientManager taskExchangeClientManager;
         private final List<DriverFactory> driverFactories;
         private final Optional<IndexSourceContext> indexSourceContext;
+        private final Multimap<PlanNodeId, Supplier<TupleDomain<ColumnHandle>>> dynamicFilters;
 
         // this is shared with all subContexts
         private final AtomicInteger nextPipelineId;
@@ -541,7 +562,7 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(TaskContext taskContext, TypeProvider types, TaskExchangeClientManager taskExchangeClientManager)
         {
-            this(taskContext, types, taskExchangeClientManager, new ArrayList<>(), Optional.empty(), new AtomicInteger(0));
+            this(taskContext, types, taskExchangeClientManager, new ArrayList<>(), Optional.empty(), ArrayListMultimap.create(), new AtomicInteger(0));
         }
 
         private LocalExecutionPlanContext(
@@ -550,6 +571,7 @@ public class LocalExecutionPlanner
                 TaskExchangeClientManager taskExchangeClientManager,
                 List<DriverFactory> driverFactories,
                 Optional<IndexSourceContext> indexSourceContext,
+                Multimap<PlanNodeId, Supplier<TupleDomain<ColumnHandle>>> dynamicFilters,
                 AtomicInteger nextPipelineId)
         {
             this.taskContext = taskContext;
@@ -557,6 +579,7 @@ public class LocalExecutionPlanner
             this.taskExchangeClientManager = taskExchangeClientManager;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
+            this.dynamicFilters = dynamicFilters;
             this.nextPipelineId = nextPipelineId;
         }
 
@@ -604,6 +627,22 @@ public class LocalExecutionPlanner
             return indexSourceContext;
         }
 
+        public void addDynamicFilter(PlanNodeId tableScanId, Supplier<TupleDomain<ColumnHandle>> dynamicFilter)
+        {
+            dynamicFilters.put(tableScanId, dynamicFilter);
+        }
+
+        public Supplier<TupleDomain<ColumnHandle>> getDynamicFilter(PlanNodeId tableScanId)
+        {
+            List<Supplier<TupleDomain<ColumnHandle>>> tableScanDynamicFilters = ImmutableList.copyOf(dynamicFilters.get(tableScanId));
+            if (tableScanDynamicFilters.isEmpty()) {
+                return TupleDomain::all;
+            }
+            return () -> tableScanDynamicFilters.stream()
+                    .map(Supplier::get)
+                    .reduce(TupleDomain.all(), TupleDomain::intersect);
+        }
+
         private int getNextPipelineId()
         {
             return nextPipelineId.getAndIncrement();
@@ -627,12 +666,12 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(taskContext, types, taskExchangeClientManager, driverFactories, indexSourceContext, nextPipelineId);
+            return new LocalExecutionPlanContext(taskContext, types, taskExchangeClientManager, driverFactories, indexSourceContext, dynamicFilters, nextPipelineId);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(taskContext, types, taskExchangeClientManager, driverFactories, Optional.of(indexSourceContext), nextPipelineId);
+            return new LocalExecutionPlanContext(taskContext, types, taskExchangeClientManager, driverFactories, Optional.of(indexSourceContext), dynamicFilters, nextPipelineId);
         }
 
         public OptionalInt getDriverInstanceCount()
@@ -867,7 +906,9 @@ public class LocalExecutionPlanner
                     node.isPartial(),
                     hashChannel,
                     1000,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()),
+                    partitioningSpillerFactory);
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
@@ -952,7 +993,10 @@ public class LocalExecutionPlanner
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
                     10_000,
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()),
+                    Optional.of(spillerFactory),
+                    orderingCompiler);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), context, source);
         }
@@ -1009,7 +1053,10 @@ public class LocalExecutionPlanner
                     10_000,
                     orderByChannels,
                     sortOrder.build(),
-                    pagesIndexFactory);
+                    pagesIndexFactory,
+                    isSpillEnabled(context.getSession()),
+                    Optional.of(spillerFactory),
+                    orderingCompiler);
 
             return new PhysicalOperation(operator, source.getLayout(), context, source);
         }
@@ -1038,7 +1085,9 @@ public class LocalExecutionPlanner
                     distinctChannels,
                     node.getLimit(),
                     hashChannel,
-                    joinCompiler);
+                    joinCompiler,
+                    isSpillEnabled(context.getSession()) && !node.isPartial(),
+                    partitioningSpillerFactory);
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, source);
         }
 
@@ -1228,7 +1277,8 @@ public class LocalExecutionPlanner
                             columns,
                             projections.stream().map(RowExpression::getType).collect(toImmutableList()),
                             getFilterAndProjectMinOutputPageSize(session),
-                            getFilterAndProjectMinOutputPageRowCount(session));
+                            getFilterAndProjectMinOutputPageRowCount(session),
+                            context.getDynamicFilter(sourceNode.getId()));
 
                     return new PhysicalOperation(operatorFactory, outputMappings, context, stageExecutionDescriptor.isScanGroupedExecution(sourceNode.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
                 }
@@ -1280,7 +1330,7 @@ public class LocalExecutionPlanner
                 columns.add(node.getAssignments().get(variable));
             }
 
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, columns, context.getDynamicFilter(node.getId()));
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, stageExecutionDescriptor.isScanGroupedExecution(node.getId()) ? GROUPED_EXECUTION : UNGROUPED_EXECUTION);
         }
 
@@ -1903,12 +1953,22 @@ public class LocalExecutionPlanner
                 Optional<VariableReferenceExpression> buildHashVariable,
                 LocalExecutionPlanContext context)
         {
+            // The dynamic filter has to be registered before the probe side table scan is planned,
+            // but it can only be created once the number of build partitions is known
+            AtomicReference<LocalDynamicFilter> dynamicFilter = new AtomicReference<>();
+            Optional<DynamicFilterProbe> dynamicFilterProbe = getDynamicFilterProbe(node, probeNode, probeVariables, context.getSession());
+            dynamicFilterProbe.ifPresent(probe -> context.addDynamicFilter(
+                    probe.getTableScanId(),
+                    () -> Optional.ofNullable(dynamicFilter.get())
+                            .map(LocalDynamicFilter::getCurrentPredicate)
+                            .orElse(TupleDomain.all())));
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
             JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactory =
-                    createLookupSourceFactory(node, buildNode, buildVariables, buildHashVariable, probeSource, context);
+                    createLookupSourceFactory(node, buildNode, buildVariables, buildHashVariable, probeSource, dynamicFilterProbe, dynamicFilter::set, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeVariables, probeHashVariable, lookupSourceFactory, context);
 
@@ -1921,12 +1981,66 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operator, outputMappings.build(), context, probeSource);
         }
 
+        private Optional<DynamicFilterProbe> getDynamicFilterProbe(JoinNode node, PlanNode probeNode, List<VariableReferenceExpression> probeVariables, Session session)
+        {
+            if (!isEnableDynamicFiltering(session) || (node.getType() != INNER && node.getType() != RIGHT)) {
+                return Optional.empty();
+            }
+
+            // follow the probe side down to the table scan, as long as the join keys are passed through unchanged
+            Map<VariableReferenceExpression, VariableReferenceExpression> keyMappings = probeVariables.stream()
+                    .distinct()
+                    .collect(toImmutableMap(Function.identity(), Function.identity()));
+            PlanNode source = probeNode;
+            while (!(source instanceof TableScanNode)) {
+                if (source instanceof FilterNode) {
+                    source = ((FilterNode) source).getSource();
+                }
+                else if (source instanceof ProjectNode) {
+                    Assignments assignments = ((ProjectNode) source).getAssignments();
+                    ImmutableMap.Builder<VariableReferenceExpression, VariableReferenceExpression> sourceMappings = ImmutableMap.builder();
+                    for (Map.Entry<VariableReferenceExpression, VariableReferenceExpression> entry : keyMappings.entrySet()) {
+                        RowExpression expression = assignments.get(entry.getValue());
+                        if (expression instanceof VariableReferenceExpression) {
+                            sourceMappings.put(entry.getKey(), (VariableReferenceExpression) expression);
+                        }
+                    }
+                    keyMappings = sourceMappings.build();
+                    source = ((ProjectNode) source).getSource();
+                }
+                else {
+                    return Optional.empty();
+                }
+            }
+
+            TableScanNode tableScan = (TableScanNode) source;
+            if (stageExecutionDescriptor.isScanGroupedExecution(tableScan.getId())) {
+                // the build side of a grouped execution only sees the rows of a single lifespan
+                return Optional.empty();
+            }
+
+            ImmutableMap.Builder<Integer, ColumnHandle> columns = ImmutableMap.builder();
+            for (int keyIndex = 0; keyIndex < probeVariables.size(); keyIndex++) {
+                VariableReferenceExpression scanVariable = keyMappings.get(probeVariables.get(keyIndex));
+                if (scanVariable != null && tableScan.getAssignments().containsKey(scanVariable)) {
+                    columns.put(keyIndex, tableScan.getAssignments().get(scanVariable));
+                }
+            }
+            Map<Integer, ColumnHandle> probeColumns = columns.build();
+            if (probeColumns.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new DynamicFilterProbe(tableScan.getId(), probeColumns));
+        }
+
         private JoinBridgeManager<PartitionedLookupSourceFactory> createLookupSourceFactory(
                 JoinNode node,
                 PlanNode buildNode,
                 List<VariableReferenceExpression> buildVariables,
                 Optional<VariableReferenceExpression> buildHashVariable,
                 PhysicalOperation probeSource,
+                Optional<DynamicFilterProbe> dynamicFilterProbe,
+                Consumer<LocalDynamicFilter> dynamicFilterConsumer,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -1978,6 +2092,14 @@ public class LocalExecutionPlanner
             ImmutableList<Type> buildOutputTypes = buildOutputChannels.stream()
                     .map(buildSource.getTypes()::get)
                     .collect(toImmutableList());
+            Optional<LocalDynamicFilter> dynamicFilter = dynamicFilterProbe.map(probe -> new LocalDynamicFilter(
+                    probe.getColumns(),
+                    buildVariables.stream()
+                            .map(VariableReferenceExpression::getType)
+                            .collect(toImmutableList()),
+                    partitionCount,
+                    getDynamicFilteringMaxDistinctValues(context.getSession())));
+            dynamicFilter.ifPresent(dynamicFilterConsumer);
             JoinBridgeManager<PartitionedLookupSourceFactory> lookupSourceFactoryManager = new JoinBridgeManager<>(
                     buildOuter,
                     probeSource.getPipelineExecutionStrategy(),
@@ -2005,7 +2127,8 @@ public class LocalExecutionPlanner
                     10_000,
                     pagesIndexFactory,
                     spillEnabled && !buildOuter && partitionCount > 1,
-                    singleStreamSpillerFactory);
+                    singleStreamSpillerFactory,
+                    dynamicFilter);
 
             context.addDriverFactory(
                     buildContext.isInputDriver(),
@@ -2895,4 +3018,26 @@ public class LocalExecutionPlanner
             return source;
         }
     }
+
+    private static class DynamicFilterProbe
+    {
+        private final PlanNodeId tableScanId;
+        private final Map<Integer, ColumnHandle> columns;
+
+        public DynamicFilterProbe(PlanNodeId tableScanId, Map<Integer, ColumnHandle> columns)
+        {
+            this.tableScanId = requireNonNull(tableScanId, "tableScanId is null");
+            this.columns = ImmutableMap.copyOf(requireNonNull(columns, "columns is null"));
+        }
+
+        public PlanNodeId getTableScanId()
+        {
+            return tableScanId;
+        }
+
+        public Map<Integer, ColumnHandle> getColumns()
+        {
+            return columns;
+        }
+    }
 }
@@ -0,0 +1,333 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.QualifiedObjectName;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeIdAllocator;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.type.TimeZoneKey;
+import com.facebook.presto.sql.SqlPath;
+import com.facebook.presto.sql.analyzer.Analysis;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.plan.IndexSourceNode;
+import com.facebook.presto.sql.tree.CurrentTime;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.NodeRef;
+import com.facebook.presto.sql.tree.Query;
+import com.facebook.presto.sql.tree.Statement;
+import com.facebook.presto.transaction.TransactionManager;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import org.weakref.jmx.Managed;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.facebook.presto.SystemSessionProperties.isPlanCacheEnabled;
+import static com.facebook.presto.sql.SqlFormatter.formatSql;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.lang.Math.max;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the optimized plans of queries, so that repeated queries skip logical planning and
+ * optimization. Queries are still analyzed, which checks access and resolves the tables in the
+ * transaction of the query. The cached plan is then bound to that transaction.
+ * <p>
+ * Plans are keyed on the formatted statement with its parameter values, and on the parts of the
+ * session that affect planning. There are no metadata versions to compare against, so plans are
+ * invalidated when Presto writes to or changes a table they read, and otherwise expire after a
+ * fixed time. Plans which depend on the start time of the query are not cached.
+ */
+public class PlanCache
+{
+    private static final Set<String> START_TIME_FUNCTIONS = ImmutableSet.of(
+            "now",
+            "current_date",
+            "current_time",
+            "current_timestamp",
+            "localtime",
+            "localtimestamp");
+
+    private final TransactionManager transactionManager;
+    private final Cache<PlanCacheKey, CachedPlan> cache;
+
+    // incremented on every invalidation, so that plans created before it are not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    @Inject
+    public PlanCache(FeaturesConfig featuresConfig, TransactionManager transactionManager)
+    {
+        this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(featuresConfig.getPlanCacheMaxSize())
+                .expireAfterWrite(featuresConfig.getPlanCacheExpireAfterWrite().toMillis(), MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the key under which the plan of the query is cached, or empty if the plan
+     * of the query must not be cached.
+     */
+    public Optional<PlanCacheKey> createKey(Session session, Statement statement, List<Expression> parameters, Analysis analysis)
+    {
+        if (!isPlanCacheEnabled(session) || !(statement instanceof Query)) {
+            return Optional.empty();
+        }
+
+        // expressions which depend on the start time of the query are folded into the plan
+        if (dependsOnStartTime(analysis)) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new PlanCacheKey(formatSql(statement, Optional.of(parameters)), session));
+    }
+
+    /**
+     * Returns whether the analyzed query uses the start time of the query, like {@code now()} does.
+     */
+    public static boolean dependsOnStartTime(Analysis analysis)
+    {
+        for (NodeRef<Expression> expression : analysis.getTypes().keySet()) {
+            if (expression.getNode() instanceof CurrentTime) {
+                return true;
+            }
+        }
+        for (NodeRef<FunctionCall> functionCall : analysis.getFunctionHandles().keySet()) {
+            if (START_TIME_FUNCTIONS.contains(functionCall.getNode().getName().getSuffix().toLowerCase(ENGLISH))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the counter to pass to {@link #put}, which must be read before the query is analyzed.
+     */
+    public long getGeneration()
+    {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached plan for the key, bound to the transaction of the session.
+     */
+    public Optional<CachedPlan> get(Session session, PlanCacheKey key)
+    {
+        CachedPlan cachedPlan = cache.getIfPresent(key);
+        if (cachedPlan == null) {
+            return Optional.empty();
+        }
+        PlanNode root = bindToTransaction(cachedPlan.getPlan().getRoot(), session);
+        Plan plan = new Plan(root, cachedPlan.getPlan().getTypes(), cachedPlan.getPlan().getStatsAndCosts());
+        return Optional.of(new CachedPlan(plan, cachedPlan.getTables(), cachedPlan.nextPlanNodeId));
+    }
+
+    public void put(PlanCacheKey key, Analysis analysis, Plan plan, long generation)
+    {
+        int maxPlanNodeId = -1;
+        for (PlanNode node : searchFrom(plan.getRoot()).findAll()) {
+            if (node instanceof IndexSourceNode) {
+                // index handles are bound to the transaction as well
+                return;
+            }
+            try {
+                maxPlanNodeId = max(maxPlanNodeId, Integer.parseInt(node.getId().toString()));
+            }
+            catch (NumberFormatException e) {
+                return;
+            }
+        }
+
+        Set<QualifiedObjectName> tables = analysis.getTableColumnReferences().values().stream()
+                .flatMap(tableColumns -> tableColumns.keySet().stream())
+                .collect(toImmutableSet());
+        cache.put(key, new CachedPlan(plan, tables, maxPlanNodeId + 1));
+
+        // a table may have been changed while the query was planned
+        if (this.generation.get() != generation) {
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Called after Presto has changed the data, layout or statistics of a table.
+     */
+    public void invalidate(QualifiedObjectName table)
+    {
+        generation.incrementAndGet();
+        cache.asMap().values().removeIf(cachedPlan -> cachedPlan.getTables().contains(table));
+    }
+
+    @Managed
+    public void invalidateAll()
+    {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    private PlanNode bindToTransaction(PlanNode node, Session session)
+    {
+        if (node instanceof TableScanNode) {
+            TableScanNode tableScan = (TableScanNode) node;
+            TableHandle table = tableScan.getTable();
+            return new TableScanNode(
+                    tableScan.getId(),
+                    new TableHandle(
+                            table.getConnectorId(),
+                            table.getConnectorHandle(),
+                            transactionManager.getConnectorTransaction(session.getRequiredTransactionId(), table.getConnectorId()),
+                            table.getLayout()),
+                    tableScan.getOutputVariables(),
+                    tableScan.getAssignments(),
+                    tableScan.getCurrentConstraint(),
+                    tableScan.getEnforcedConstraint());
+        }
+
+        List<PlanNode> sources = node.getSources().stream()
+                .map(source -> bindToTransaction(source, session))
+                .collect(toImmutableList());
+        if (sources.isEmpty()) {
+            return node;
+        }
+        return node.replaceChildren(sources);
+    }
+
+    public static final class CachedPlan
+    {
+        private final Plan plan;
+        private final Set<QualifiedObjectName> tables;
+        private final int nextPlanNodeId;
+
+        private CachedPlan(Plan plan, Set<QualifiedObjectName> tables, int nextPlanNodeId)
+        {
+            this.plan = requireNonNull(plan, "plan is null");
+            this.tables = requireNonNull(tables, "tables is null");
+            this.nextPlanNodeId = nextPlanNodeId;
+        }
+
+        public Plan getPlan()
+        {
+            return plan;
+        }
+
+        public Set<QualifiedObjectName> getTables()
+        {
+            return tables;
+        }
+
+        /**
+         * Returns an allocator for further plan nodes, whose ids do not collide with the nodes of the plan.
+         */
+        public PlanNodeIdAllocator createIdAllocator()
+        {
+            return new PlanNodeIdAllocator(nextPlanNodeId);
+        }
+    }
+
+    public static final class PlanCacheKey
+    {
+        private final String sql;
+        private final String user;
+        private final Optional<String> catalog;
+        private final Optional<String> schema;
+        private final SqlPath path;
+        private final TimeZoneKey timeZoneKey;
+        private final Locale locale;
+        private final Map<String, String> systemProperties;
+        private final Map<ConnectorId, Map<String, String>> connectorProperties;
+
+        private PlanCacheKey(String sql, Session session)
+        {
+            this.sql = requireNonNull(sql, "sql is null");
+            this.user = session.getUser();
+            this.catalog = session.getCatalog();
+            this.schema = session.getSchema();
+            this.path = session.getPath();
+            this.timeZoneKey = session.getTimeZoneKey();
+            this.locale = session.getLocale();
+            this.systemProperties = session.getSystemProperties();
+            this.connectorProperties = session.getConnectorProperties();
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            PlanCacheKey that = (PlanCacheKey) o;
+            return Objects.equals(sql, that.sql) &&
+                    Objects.equals(user, that.user) &&
+                    Objects.equals(catalog, that.catalog) &&
+                    Objects.equals(schema, that.schema) &&
+                    Objects.equals(path, that.path) &&
+                    Objects.equals(timeZoneKey, that.timeZoneKey) &&
+                    Objects.equals(locale, that.locale) &&
+                    Objects.equals(systemProperties, that.systemProperties) &&
+                    Objects.equals(connectorProperties, that.connectorProperties);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(sql, user, catalog, schema, path, timeZoneKey, locale, systemProperties, connectorProperties);
+        }
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.metadata.FunctionManager;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.operator.aggregation.ApproximateHistogramForStats;
 import com.facebook.presto.operator.aggregation.MaxDataSizeForStats;
 import com.facebook.presto.operator.aggregation.SumDataSizeForStats;
 import com.facebook.presto.spi.PrestoException;
@@ -26,6 +27,7 @@ import com.facebook.presto.spi.statistics.ColumnStatisticMetadata;
 import com.facebook.presto.spi.statistics.ColumnStatisticType;
 import com.facebook.presto.spi.statistics.TableStatisticType;
 import com.facebook.presto.spi.statistics.TableStatisticsMetadata;
+import com.facebook.presto.spi.type.ArrayType;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.analyzer.TypeSignatureProvider;
 import com.facebook.presto.sql.planner.plan.AggregationNode;
@@ -44,6 +46,7 @@ import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.facebook.presto.spi.statistics.TableStatisticType.ROW_COUNT;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToRowExpression;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
@@ -128,6 +131,8 @@ public class StatisticsAggregationPlanner
                 return createAggregation(SumDataSizeForStats.NAME, symbolReference, input.getType(), BIGINT);
             case MAX_VALUE_SIZE_IN_BYTES:
                 return createAggregation(MaxDataSizeForStats.NAME, symbolReference, input.getType(), BIGINT);
+            case HISTOGRAM:
+                return createAggregation(ApproximateHistogramForStats.NAME, symbolReference, input.getType(), new ArrayType(DOUBLE));
             default:
                 throw new IllegalArgumentException("Unsupported statistic type: " + statisticType);
         }
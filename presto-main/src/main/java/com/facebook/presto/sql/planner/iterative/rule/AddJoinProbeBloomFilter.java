@@ -0,0 +1,316 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.TaskCountEstimator;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.FunctionManager;
+import com.facebook.presto.operator.aggregation.BloomFilterAggregation;
+import com.facebook.presto.operator.scalar.BloomFilterFunction;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.CallExpression;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.Lookup;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.optimizations.SymbolMapper;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Aggregation;
+import com.facebook.presto.sql.planner.plan.Assignments;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.GenericLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.getJoinBloomFilterMaxSize;
+import static com.facebook.presto.SystemSessionProperties.isJoinBloomFilterEnabled;
+import static com.facebook.presto.cost.BloomFilterStatsRule.estimateDistinctKeys;
+import static com.facebook.presto.cost.BloomFilterStatsRule.estimateSelectivity;
+import static com.facebook.presto.operator.aggregation.BloomFilter.getOptimalBitCount;
+import static com.facebook.presto.operator.aggregation.BloomFilter.getOptimalHashFunctionCount;
+import static com.facebook.presto.operator.aggregation.BloomFilter.getSizeInBytes;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+import static com.facebook.presto.sql.planner.ExpressionDeterminismEvaluator.isDeterministic;
+import static com.facebook.presto.sql.planner.optimizations.HashGenerationOptimizer.getHashExpression;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.globalAggregation;
+import static com.facebook.presto.sql.planner.plan.AssignmentUtils.identitiesAsSymbolReferences;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static com.facebook.presto.sql.planner.plan.Patterns.join;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.asSymbolReference;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToRowExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.isExpression;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filters the probe side of a partitioned join with a Bloom filter of the build side keys, so
+ * that probe rows without a match are dropped before they are shuffled. Transforms
+ * <pre>
+ * - Join (PARTITIONED) l = r
+ *     - L
+ *     - R
+ * </pre>
+ * into
+ * <pre>
+ * - Join (PARTITIONED) l = r
+ *     - Project (L outputs)
+ *         - Filter $internal$bloom_filter_might_contain(filter, hash(l))
+ *             - Join (REPLICATED, cross)
+ *                 - L
+ *                 - Aggregation filter := $internal$bloom_filter(hash(r'), bits, hash functions)
+ *                     - R'
+ *     - R
+ * </pre>
+ * where R' is a copy of R, which must be a deterministic table scan, optionally filtered and
+ * projected. The filter is computed from a separate scan of the build side, and broadcast to
+ * the source stage of the probe side.
+ * <p>
+ * The filter is added when the estimated probe bytes it keeps off the network exceed the bytes
+ * of the build keys scanned again plus the bytes of the filter broadcast to the probe tasks.
+ * Only inner and right joins are transformed, since the probe rows without a match are not
+ * returned by them.
+ */
+public class AddJoinProbeBloomFilter
+        implements Rule<JoinNode>
+{
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+    private static final QualifiedName MIGHT_CONTAIN = QualifiedName.of(BloomFilterFunction.NAME);
+
+    private static final Pattern<JoinNode> PATTERN = join()
+            .matching(joinNode -> joinNode.getDistributionType().equals(Optional.of(PARTITIONED))
+                    && (joinNode.getType() == INNER || joinNode.getType() == RIGHT)
+                    && !joinNode.getCriteria().isEmpty());
+
+    private final FunctionManager functionManager;
+    private final TaskCountEstimator taskCountEstimator;
+
+    public AddJoinProbeBloomFilter(FunctionManager functionManager, TaskCountEstimator taskCountEstimator)
+    {
+        this.functionManager = requireNonNull(functionManager, "functionManager is null");
+        this.taskCountEstimator = requireNonNull(taskCountEstimator, "taskCountEstimator is null");
+    }
+
+    @Override
+    public Pattern<JoinNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return isJoinBloomFilterEnabled(session);
+    }
+
+    @Override
+    public Result apply(JoinNode joinNode, Captures captures, Context context)
+    {
+        if (isFiltered(joinNode, context.getLookup())) {
+            return Result.empty();
+        }
+
+        Map<VariableReferenceExpression, VariableReferenceExpression> buildMapping = new HashMap<>();
+        Optional<PlanNode> buildCopy = copy(joinNode.getRight(), buildMapping, context);
+        if (!buildCopy.isPresent()) {
+            return Result.empty();
+        }
+
+        List<VariableReferenceExpression> probeKeys = joinNode.getCriteria().stream()
+                .map(EquiJoinClause::getLeft)
+                .collect(toImmutableList());
+        List<VariableReferenceExpression> buildKeys = joinNode.getCriteria().stream()
+                .map(EquiJoinClause::getRight)
+                .collect(toImmutableList());
+        PlanNodeStatsEstimate probeStats = context.getStatsProvider().getStats(joinNode.getLeft());
+        PlanNodeStatsEstimate buildStats = context.getStatsProvider().getStats(joinNode.getRight());
+
+        double buildKeyCount = estimateDistinctKeys(buildStats, buildKeys);
+        long maxBits = getJoinBloomFilterMaxSize(context.getSession()).toBytes() * Byte.SIZE;
+        long bits = min(getOptimalBitCount(buildKeyCount, FALSE_POSITIVE_PROBABILITY), maxBits);
+        int hashFunctions = getOptimalHashFunctionCount(bits, buildKeyCount);
+        double selectivity = estimateSelectivity(probeStats, probeKeys, buildStats, buildKeys, bits, hashFunctions);
+
+        double savedBytes = probeStats.getOutputSizeInBytes(joinNode.getLeft().getOutputVariables()) * (1 - selectivity);
+        double addedBytes = buildStats.getOutputSizeInBytes(buildKeys) + getSizeInBytes(bits) * taskCountEstimator.estimateSourceDistributedTaskCount();
+        // NaN compares as false
+        if (!(savedBytes > addedBytes)) {
+            return Result.empty();
+        }
+
+        VariableReferenceExpression buildHash = context.getSymbolAllocator().newVariable("hash", BIGINT);
+        VariableReferenceExpression bitsVariable = context.getSymbolAllocator().newVariable("bits", BIGINT);
+        VariableReferenceExpression hashFunctionsVariable = context.getSymbolAllocator().newVariable("hash_functions", BIGINT);
+        VariableReferenceExpression filter = context.getSymbolAllocator().newVariable("bloom_filter", VARBINARY);
+        List<VariableReferenceExpression> copiedBuildKeys = buildKeys.stream()
+                .map(buildMapping::get)
+                .collect(toImmutableList());
+        PlanNode filterSource = new AggregationNode(
+                context.getIdAllocator().getNextId(),
+                new ProjectNode(
+                        context.getIdAllocator().getNextId(),
+                        buildCopy.get(),
+                        Assignments.builder()
+                                .put(buildHash, castToRowExpression(getHashExpression(copiedBuildKeys).get()))
+                                .put(bitsVariable, castToRowExpression(bigintLiteral(bits)))
+                                .put(hashFunctionsVariable, castToRowExpression(bigintLiteral(hashFunctions)))
+                                .build()),
+                ImmutableMap.of(filter, new Aggregation(
+                        new CallExpression(
+                                BloomFilterAggregation.NAME,
+                                functionManager.lookupFunction(BloomFilterAggregation.NAME, fromTypes(BIGINT, BIGINT, BIGINT)),
+                                VARBINARY,
+                                ImmutableList.of(
+                                        castToRowExpression(asSymbolReference(buildHash)),
+                                        castToRowExpression(asSymbolReference(bitsVariable)),
+                                        castToRowExpression(asSymbolReference(hashFunctionsVariable)))),
+                        Optional.empty(),
+                        Optional.empty(),
+                        false,
+                        Optional.empty())),
+                globalAggregation(),
+                ImmutableList.of(),
+                SINGLE,
+                Optional.empty(),
+                Optional.empty());
+
+        PlanNode probe = joinNode.getLeft();
+        PlanNode filteredProbe = new ProjectNode(
+                context.getIdAllocator().getNextId(),
+                new FilterNode(
+                        context.getIdAllocator().getNextId(),
+                        new JoinNode(
+                                context.getIdAllocator().getNextId(),
+                                INNER,
+                                probe,
+                                filterSource,
+                                ImmutableList.of(),
+                                ImmutableList.<VariableReferenceExpression>builder()
+                                        .addAll(probe.getOutputVariables())
+                                        .add(filter)
+                                        .build(),
+                                Optional.empty(),
+                                Optional.empty(),
+                                Optional.empty(),
+                                Optional.of(REPLICATED)),
+                        castToRowExpression(new FunctionCall(
+                                MIGHT_CONTAIN,
+                                ImmutableList.of(asSymbolReference(filter), getHashExpression(probeKeys).get())))),
+                Assignments.copyOf(identitiesAsSymbolReferences(probe.getOutputVariables())));
+
+        return Result.ofPlanNode(joinNode.replaceChildren(ImmutableList.of(filteredProbe, joinNode.getRight())));
+    }
+
+    /**
+     * Copies a deterministic table scan, optionally filtered and projected, with new plan node
+     * ids and variables. The variables of the copy are added to the mapping.
+     */
+    private static Optional<PlanNode> copy(PlanNode node, Map<VariableReferenceExpression, VariableReferenceExpression> mapping, Context context)
+    {
+        node = context.getLookup().resolve(node);
+        if (node instanceof TableScanNode) {
+            TableScanNode tableScan = (TableScanNode) node;
+            ImmutableMap.Builder<VariableReferenceExpression, ColumnHandle> assignments = ImmutableMap.builder();
+            for (Map.Entry<VariableReferenceExpression, ColumnHandle> entry : tableScan.getAssignments().entrySet()) {
+                VariableReferenceExpression variable = context.getSymbolAllocator().newVariable(entry.getKey());
+                mapping.put(entry.getKey(), variable);
+                assignments.put(variable, entry.getValue());
+            }
+            return Optional.of(new TableScanNode(
+                    context.getIdAllocator().getNextId(),
+                    tableScan.getTable(),
+                    tableScan.getOutputVariables().stream()
+                            .map(mapping::get)
+                            .collect(toImmutableList()),
+                    assignments.build(),
+                    tableScan.getCurrentConstraint(),
+                    tableScan.getEnforcedConstraint(),
+                    tableScan.isTemporaryTable()));
+        }
+        if (node instanceof FilterNode) {
+            FilterNode filterNode = (FilterNode) node;
+            if (!isDeterministicExpression(filterNode.getPredicate())) {
+                return Optional.empty();
+            }
+            return copy(filterNode.getSource(), mapping, context)
+                    .map(source -> new FilterNode(context.getIdAllocator().getNextId(), source, new SymbolMapper(mapping).map(filterNode.getPredicate())));
+        }
+        if (node instanceof ProjectNode) {
+            ProjectNode projectNode = (ProjectNode) node;
+            if (!projectNode.getAssignments().getExpressions().stream().allMatch(AddJoinProbeBloomFilter::isDeterministicExpression)) {
+                return Optional.empty();
+            }
+            Optional<PlanNode> source = copy(projectNode.getSource(), mapping, context);
+            if (!source.isPresent()) {
+                return Optional.empty();
+            }
+            SymbolMapper mapper = new SymbolMapper(mapping);
+            Assignments.Builder assignments = Assignments.builder();
+            for (Map.Entry<VariableReferenceExpression, RowExpression> entry : projectNode.getAssignments().entrySet()) {
+                VariableReferenceExpression variable = context.getSymbolAllocator().newVariable(entry.getKey());
+                assignments.put(variable, mapper.map(entry.getValue()));
+                mapping.put(entry.getKey(), variable);
+            }
+            return Optional.of(new ProjectNode(context.getIdAllocator().getNextId(), source.get(), assignments.build()));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isDeterministicExpression(RowExpression expression)
+    {
+        return isExpression(expression) && isDeterministic(castToExpression(expression));
+    }
+
+    private static boolean isFiltered(JoinNode joinNode, Lookup lookup)
+    {
+        PlanNode probe = lookup.resolve(joinNode.getLeft());
+        if (!(probe instanceof ProjectNode)) {
+            return false;
+        }
+        PlanNode filter = lookup.resolve(((ProjectNode) probe).getSource());
+        if (!(filter instanceof FilterNode) || !isExpression(((FilterNode) filter).getPredicate())) {
+            return false;
+        }
+        Expression predicate = castToExpression(((FilterNode) filter).getPredicate());
+        return predicate instanceof FunctionCall && ((FunctionCall) predicate).getName().equals(MIGHT_CONTAIN);
+    }
+
+    private static Expression bigintLiteral(long value)
+    {
+        return new GenericLiteral("BIGINT", String.valueOf(value));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsProvider;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationStrategy;
+import com.facebook.presto.sql.planner.OrderingScheme;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
+
+import java.util.List;
+
+import static com.facebook.presto.SystemSessionProperties.getAggregationStrategy;
+import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemory;
+import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationStrategy.HASH;
+import static com.facebook.presto.sql.analyzer.FeaturesConfig.AggregationStrategy.SORT;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.planner.plan.Patterns.aggregation;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.lang.Double.isNaN;
+import static java.util.function.Function.identity;
+
+/**
+ * Chooses between hash and sort-based aggregation for grouped aggregations
+ * that cannot stream over their input as it is.
+ * <p>
+ * Aggregations whose input is already grouped on the grouping keys are made streaming by
+ * {@link com.facebook.presto.sql.planner.optimizations.AddLocalExchanges}. This includes scans
+ * of tables whose layouts expose such grouping as local properties, e.g. bucketed and sorted
+ * Hive tables when the streaming_aggregation_enabled Hive session property is set.
+ * For the others, this rule sorts the input on the grouping keys and streams over the
+ * sorted input when the hash table of a hash aggregation is estimated not to fit
+ * in the memory of the query and nearly every input row is a group of its own,
+ * so that grouping is bound by the sort, which spills gracefully, rather than by
+ * a hash table which has to be spilled and merged.
+ * <p>
+ * The sort is inserted directly under the aggregation, so this rule must run after
+ * AddLocalExchanges, which already partitioned the input of the aggregation on the
+ * grouping keys, and before partial aggregations are pushed through exchanges.
+ */
+public class DetermineAggregationStrategy
+        implements Rule<AggregationNode>
+{
+    // fraction of the input rows which must be distinct groups for sorting to pay off
+    private static final double MIN_GROUPS_PER_INPUT_ROW = 0.5;
+
+    private static final Pattern<AggregationNode> PATTERN = aggregation()
+            .matching(node -> node.getStep() == SINGLE
+                    && !node.getGroupingKeys().isEmpty()
+                    && node.getGroupingSetCount() == 1
+                    && node.getPreGroupedVariables().isEmpty()
+                    && !node.getHashVariable().isPresent());
+
+    @Override
+    public Pattern<AggregationNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return getAggregationStrategy(session) != HASH;
+    }
+
+    @Override
+    public Result apply(AggregationNode node, Captures captures, Context context)
+    {
+        AggregationStrategy aggregationStrategy = getAggregationStrategy(context.getSession());
+        if (aggregationStrategy != SORT && !isSortCheaper(node, context)) {
+            return Result.empty();
+        }
+
+        List<VariableReferenceExpression> groupingKeys = node.getGroupingKeys();
+        OrderingScheme orderingScheme = new OrderingScheme(
+                groupingKeys,
+                groupingKeys.stream().collect(toImmutableMap(identity(), variable -> ASC_NULLS_LAST)));
+        SortNode sortNode = new SortNode(context.getIdAllocator().getNextId(), node.getSource(), orderingScheme);
+
+        return Result.ofPlanNode(new AggregationNode(
+                node.getId(),
+                sortNode,
+                node.getAggregations(),
+                node.getGroupingSets(),
+                groupingKeys,
+                node.getStep(),
+                node.getHashVariable(),
+                node.getGroupIdVariable()));
+    }
+
+    private static boolean isSortCheaper(AggregationNode node, Context context)
+    {
+        Session session = context.getSession();
+        if (!isSpillEnabled(session)) {
+            // without spilling, the sort has to hold all of its input in memory
+            return false;
+        }
+
+        StatsProvider statsProvider = context.getStatsProvider();
+        PlanNodeStatsEstimate sourceStats = statsProvider.getStats(node.getSource());
+        PlanNodeStatsEstimate aggregationStats = statsProvider.getStats(node);
+        double inputRows = sourceStats.getOutputRowCount();
+        double groups = aggregationStats.getOutputRowCount();
+        double hashTableSize = aggregationStats.getOutputSizeInBytes(node.getOutputVariables());
+        if (isNaN(inputRows) || isNaN(groups) || isNaN(hashTableSize)) {
+            return false;
+        }
+
+        return hashTableSize > getQueryMaxMemory(session).toBytes()
+                && groups >= inputRows * MIN_GROUPS_PER_INPUT_ROW;
+    }
+}
@@ -0,0 +1,237 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.spi.type.ArrayType;
+import com.facebook.presto.sql.planner.iterative.Lookup;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.Assignments;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.UnnestNode;
+import com.facebook.presto.sql.tree.ArrayConstructor;
+import com.facebook.presto.sql.tree.Cast;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.GenericLiteral;
+import com.facebook.presto.sql.tree.IfExpression;
+import com.facebook.presto.sql.tree.InListExpression;
+import com.facebook.presto.sql.tree.InPredicate;
+import com.facebook.presto.sql.tree.IsNullPredicate;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.StringLiteral;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.getHashPartitionCount;
+import static com.facebook.presto.SystemSessionProperties.getSkewedJoinKeyValues;
+import static com.facebook.presto.SystemSessionProperties.isDistributeSkewedJoinKeys;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.ExpressionUtils.combineDisjuncts;
+import static com.facebook.presto.sql.planner.plan.AssignmentUtils.identitiesAsSymbolReferences;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.Patterns.join;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.asSymbolReference;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToRowExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.isExpression;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getLast;
+
+/**
+ * Spreads the rows of frequent join keys across the partitions of a partitioned join, so that
+ * they are not all processed by the task of a single partition. The frequent keys are the values
+ * of the skewed_join_key_values session property, and the NULL key of the probe side of a left
+ * join when its statistics show it is more frequent than the share of a single partition.
+ * Transforms
+ * <pre>
+ * - Join (PARTITIONED) l1 = r1 AND l2 = r2
+ *     - L
+ *     - R
+ * </pre>
+ * into
+ * <pre>
+ * - Join (PARTITIONED) l1 = r1 AND l2 = r2 AND l_salt = r_salt
+ *     - Project
+ *           l_salt := IF(l1 IS NULL OR l1 IN (frequent values) OR l2 IN (frequent values), random(N), 0)
+ *         - L
+ *     - Unnest r_salts AS r_salt
+ *         - Project
+ *               r_salts := IF(r1 IN (frequent values) OR r2 IN (frequent values), sequence(0, N - 1), ARRAY[0])
+ *             - R
+ * </pre>
+ * where N is the hash partition count. A row is spread if any of its join keys is frequent.
+ * The probe rows of a frequent key are assigned random salts, and the build rows of the key
+ * are copied for each salt, so that every probe row still meets all the build rows of its key.
+ * The frequent values are converted to the type of each key with TRY_CAST, so values which
+ * are not valid for a key never match it. Right and full joins are not transformed, since the
+ * copies of unmatched build rows would be returned more than once.
+ */
+public class DistributeSkewedJoinKeys
+        implements Rule<JoinNode>
+{
+    private static final QualifiedName RANDOM = QualifiedName.of("random");
+    private static final QualifiedName SEQUENCE = QualifiedName.of("sequence");
+
+    private static final Pattern<JoinNode> PATTERN = join()
+            .matching(joinNode -> joinNode.getDistributionType().equals(Optional.of(PARTITIONED))
+                    && (joinNode.getType() == INNER || joinNode.getType() == LEFT)
+                    && !joinNode.getCriteria().isEmpty());
+
+    @Override
+    public Pattern<JoinNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return isDistributeSkewedJoinKeys(session);
+    }
+
+    @Override
+    public Result apply(JoinNode joinNode, Captures captures, Context context)
+    {
+        int saltCount = getHashPartitionCount(context.getSession());
+        if (saltCount <= 1 || isSalted(joinNode, context.getLookup())) {
+            return Result.empty();
+        }
+
+        List<String> frequentValues = getSkewedJoinKeyValues(context.getSession());
+        ImmutableList.Builder<Expression> frequentProbeKeys = ImmutableList.builder();
+        ImmutableList.Builder<Expression> frequentBuildKeys = ImmutableList.builder();
+        for (EquiJoinClause clause : joinNode.getCriteria()) {
+            if (joinNode.getType() == LEFT && hasFrequentNulls(joinNode.getLeft(), clause.getLeft(), saltCount, context)) {
+                frequentProbeKeys.add(new IsNullPredicate(asSymbolReference(clause.getLeft())));
+            }
+            if (!frequentValues.isEmpty()) {
+                frequentProbeKeys.add(new InPredicate(asSymbolReference(clause.getLeft()), toValueList(frequentValues, clause.getLeft())));
+                frequentBuildKeys.add(new InPredicate(asSymbolReference(clause.getRight()), toValueList(frequentValues, clause.getRight())));
+            }
+        }
+        List<Expression> probeConditions = frequentProbeKeys.build();
+        List<Expression> buildConditions = frequentBuildKeys.build();
+        if (probeConditions.isEmpty()) {
+            return Result.empty();
+        }
+
+        // the probe rows of frequent keys are assigned random salts
+        VariableReferenceExpression probeSalt = context.getSymbolAllocator().newVariable("salt", BIGINT);
+        Expression probeSaltExpression = new IfExpression(
+                combineDisjuncts(probeConditions),
+                new FunctionCall(RANDOM, ImmutableList.of(bigintLiteral(saltCount))),
+                bigintLiteral(0));
+        PlanNode probe = new ProjectNode(
+                context.getIdAllocator().getNextId(),
+                joinNode.getLeft(),
+                Assignments.builder()
+                        .putAll(identitiesAsSymbolReferences(joinNode.getLeft().getOutputVariables()))
+                        .put(probeSalt, castToRowExpression(probeSaltExpression))
+                        .build());
+
+        // the build rows of frequent keys are copied for every salt, NULL keys do not match any probe row
+        VariableReferenceExpression buildSalt = context.getSymbolAllocator().newVariable("salt", BIGINT);
+        PlanNode build;
+        if (buildConditions.isEmpty()) {
+            build = new ProjectNode(
+                    context.getIdAllocator().getNextId(),
+                    joinNode.getRight(),
+                    Assignments.builder()
+                            .putAll(identitiesAsSymbolReferences(joinNode.getRight().getOutputVariables()))
+                            .put(buildSalt, castToRowExpression(bigintLiteral(0)))
+                            .build());
+        }
+        else {
+            VariableReferenceExpression buildSalts = context.getSymbolAllocator().newVariable("salts", new ArrayType(BIGINT));
+            Expression buildSaltsExpression = new IfExpression(
+                    combineDisjuncts(buildConditions),
+                    new FunctionCall(SEQUENCE, ImmutableList.of(bigintLiteral(0), bigintLiteral(saltCount - 1))),
+                    new ArrayConstructor(ImmutableList.of(bigintLiteral(0))));
+            build = new UnnestNode(
+                    context.getIdAllocator().getNextId(),
+                    new ProjectNode(
+                            context.getIdAllocator().getNextId(),
+                            joinNode.getRight(),
+                            Assignments.builder()
+                                    .putAll(identitiesAsSymbolReferences(joinNode.getRight().getOutputVariables()))
+                                    .put(buildSalts, castToRowExpression(buildSaltsExpression))
+                                    .build()),
+                    joinNode.getRight().getOutputVariables(),
+                    ImmutableMap.of(buildSalts, ImmutableList.of(buildSalt)),
+                    Optional.empty());
+        }
+
+        return Result.ofPlanNode(new JoinNode(
+                joinNode.getId(),
+                joinNode.getType(),
+                probe,
+                build,
+                ImmutableList.<EquiJoinClause>builder()
+                        .addAll(joinNode.getCriteria())
+                        .add(new EquiJoinClause(probeSalt, buildSalt))
+                        .build(),
+                joinNode.getOutputVariables(),
+                joinNode.getFilter(),
+                joinNode.getLeftHashVariable(),
+                joinNode.getRightHashVariable(),
+                joinNode.getDistributionType()));
+    }
+
+    private static boolean hasFrequentNulls(PlanNode probe, VariableReferenceExpression probeKey, int partitionCount, Context context)
+    {
+        double nullsFraction = context.getStatsProvider().getStats(probe).getVariableStatistics(probeKey).getNullsFraction();
+        // NaN compares as false
+        return nullsFraction > 1.0 / partitionCount;
+    }
+
+    private static boolean isSalted(JoinNode joinNode, Lookup lookup)
+    {
+        PlanNode probe = lookup.resolve(joinNode.getLeft());
+        if (!(probe instanceof ProjectNode)) {
+            return false;
+        }
+        RowExpression salt = ((ProjectNode) probe).getAssignments().get(getLast(joinNode.getCriteria()).getLeft());
+        if (salt == null || !isExpression(salt) || !(castToExpression(salt) instanceof IfExpression)) {
+            return false;
+        }
+        Expression trueValue = ((IfExpression) castToExpression(salt)).getTrueValue();
+        return trueValue instanceof FunctionCall && ((FunctionCall) trueValue).getName().equals(RANDOM);
+    }
+
+    private static InListExpression toValueList(List<String> values, VariableReferenceExpression key)
+    {
+        String type = key.getType().getTypeSignature().toString();
+        return new InListExpression(values.stream()
+                .map(value -> new Cast(new StringLiteral(value), type, true))
+                .collect(toImmutableList()));
+    }
+
+    private static Expression bigintLiteral(long value)
+    {
+        return new GenericLiteral("BIGINT", String.valueOf(value));
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Capture;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.PushdownAggregationResult;
+import com.facebook.presto.metadata.TableLayoutResult;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.relation.RowExpression;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Aggregation;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.SymbolReference;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.shouldPushAggregationIntoConnector;
+import static com.facebook.presto.matching.Capture.newCapture;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.planner.plan.Patterns.aggregation;
+import static com.facebook.presto.sql.planner.plan.Patterns.source;
+import static com.facebook.presto.sql.planner.plan.Patterns.tableScan;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.isExpression;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Replaces an aggregation over a table scan with a scan of a table handle, provided by the connector,
+ * that computes the aggregation in the data source. Only single step aggregations with a single grouping
+ * set, whose grouping keys and aggregate arguments are columns of the table, are offered to the connector.
+ * <p>
+ * Must run after PickTableLayout, so that the connector sees the layout chosen for the predicate.
+ */
+public class PushAggregationIntoTableScan
+        implements Rule<AggregationNode>
+{
+    private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+
+    private static final Pattern<AggregationNode> PATTERN = aggregation()
+            .matching(PushAggregationIntoTableScan::isSupportedAggregation)
+            .with(source().matching(tableScan().capturedAs(TABLE_SCAN)));
+
+    private final Metadata metadata;
+
+    public PushAggregationIntoTableScan(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public Pattern<AggregationNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return shouldPushAggregationIntoConnector(session);
+    }
+
+    private static boolean isSupportedAggregation(AggregationNode node)
+    {
+        return node.getStep() == SINGLE &&
+                node.getGroupingSetCount() == 1 &&
+                !node.getHashVariable().isPresent() &&
+                !node.getGroupIdVariable().isPresent() &&
+                node.getAggregations().values().stream().noneMatch(aggregation ->
+                        aggregation.getFilter().isPresent() || aggregation.getOrderBy().isPresent() || aggregation.getMask().isPresent());
+    }
+
+    @Override
+    public Result apply(AggregationNode node, Captures captures, Context context)
+    {
+        TableScanNode tableScan = captures.get(TABLE_SCAN);
+        if (!tableScan.getTable().getLayout().isPresent() || tableScan.isTemporaryTable()) {
+            return Result.empty();
+        }
+
+        Map<String, ColumnHandle> columns = tableScan.getAssignments().entrySet().stream()
+                .collect(toImmutableMap(entry -> entry.getKey().getName(), Map.Entry::getValue));
+
+        ImmutableList.Builder<ColumnHandle> groupingColumns = ImmutableList.builder();
+        for (VariableReferenceExpression groupingKey : node.getGroupingKeys()) {
+            ColumnHandle column = columns.get(groupingKey.getName());
+            if (column == null) {
+                return Result.empty();
+            }
+            groupingColumns.add(column);
+        }
+
+        List<VariableReferenceExpression> aggregationVariables = ImmutableList.copyOf(node.getAggregations().keySet());
+        ImmutableList.Builder<ConnectorAggregateFunction> aggregates = ImmutableList.builder();
+        for (VariableReferenceExpression variable : aggregationVariables) {
+            Aggregation aggregation = node.getAggregations().get(variable);
+            ImmutableList.Builder<ColumnHandle> arguments = ImmutableList.builder();
+            for (RowExpression argument : aggregation.getArguments()) {
+                Optional<ColumnHandle> column = getVariableName(argument).map(columns::get);
+                if (!column.isPresent()) {
+                    return Result.empty();
+                }
+                arguments.add(column.get());
+            }
+            aggregates.add(new ConnectorAggregateFunction(
+                    metadata.getFunctionManager().getFunctionMetadata(aggregation.getFunctionHandle()).getName(),
+                    arguments.build(),
+                    aggregation.getCall().getType(),
+                    aggregation.isDistinct()));
+        }
+
+        Session session = context.getSession();
+        Optional<PushdownAggregationResult> result = metadata.pushdownAggregation(session, tableScan.getTable(), groupingColumns.build(), aggregates.build());
+        if (!result.isPresent()) {
+            return Result.empty();
+        }
+
+        ImmutableMap.Builder<VariableReferenceExpression, ColumnHandle> assignments = ImmutableMap.builder();
+        for (int i = 0; i < node.getGroupingKeys().size(); i++) {
+            assignments.put(node.getGroupingKeys().get(i), result.get().getGroupingColumns().get(i));
+        }
+        for (int i = 0; i < aggregationVariables.size(); i++) {
+            assignments.put(aggregationVariables.get(i), result.get().getAggregateColumns().get(i));
+        }
+        Map<VariableReferenceExpression, ColumnHandle> newAssignments = assignments.build();
+
+        TableLayoutResult layout = metadata.getLayout(
+                session,
+                result.get().getTableHandle(),
+                Constraint.alwaysTrue(),
+                Optional.of(ImmutableSet.copyOf(newAssignments.values())));
+
+        return Result.ofPlanNode(new TableScanNode(
+                node.getId(),
+                layout.getLayout().getNewTableHandle(),
+                node.getOutputVariables(),
+                newAssignments,
+                layout.getLayout().getPredicate(),
+                TupleDomain.all()));
+    }
+
+    private static Optional<String> getVariableName(RowExpression argument)
+    {
+        if (argument instanceof VariableReferenceExpression) {
+            return Optional.of(((VariableReferenceExpression) argument).getName());
+        }
+        if (isExpression(argument)) {
+            Expression expression = castToExpression(argument);
+            if (expression instanceof SymbolReference) {
+                return Optional.of(((SymbolReference) expression).getName());
+            }
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,266 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.PushdownJoinResult;
+import com.facebook.presto.metadata.TableLayoutResult;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorJoinCondition;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.TypeProvider;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.getJoinPushdownStrategy;
+import static com.facebook.presto.sql.ExpressionUtils.combineConjuncts;
+import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinPushdownStrategy.AUTOMATIC;
+import static com.facebook.presto.sql.analyzer.FeaturesConfig.JoinPushdownStrategy.NONE;
+import static com.facebook.presto.sql.planner.SymbolsExtractor.extractUniqueVariable;
+import static com.facebook.presto.sql.planner.iterative.rule.Util.restrictOutputs;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.Patterns.join;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToExpression;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToRowExpression;
+import static com.facebook.presto.sql.relational.ProjectNodeUtils.isIdentity;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lets the connector join two of its tables when both sides of an inner equi-join are table scans of the
+ * connector, optionally filtered and pruned. The filters and the join filter are kept above the joined table scan.
+ * <p>
+ * With the AUTOMATIC strategy the join is pushed only when the estimated size of the joined rows is no larger than
+ * the estimated size of both sides, that is when reading the joined rows transfers less than reading both tables.
+ * <p>
+ * Must run after PickTableLayout, so that the connector joins the layouts chosen for the predicates of both sides.
+ */
+public class PushJoinIntoTableScan
+        implements Rule<JoinNode>
+{
+    private static final Pattern<JoinNode> PATTERN = join()
+            .matching(node -> node.getType() == INNER &&
+                    !node.getCriteria().isEmpty() &&
+                    !node.getLeftHashVariable().isPresent() &&
+                    !node.getRightHashVariable().isPresent());
+
+    private final Metadata metadata;
+
+    public PushJoinIntoTableScan(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public Pattern<JoinNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return getJoinPushdownStrategy(session) != NONE;
+    }
+
+    @Override
+    public Result apply(JoinNode node, Captures captures, Context context)
+    {
+        PlanNode leftSource = skipIdentityProjection(node.getLeft(), context);
+        PlanNode rightSource = skipIdentityProjection(node.getRight(), context);
+        Optional<FilterNode> leftFilter = getFilter(leftSource, context);
+        Optional<FilterNode> rightFilter = getFilter(rightSource, context);
+        Optional<TableScanNode> leftTableScan = getTableScan(leftFilter.map(FilterNode::getSource).orElse(leftSource), context);
+        Optional<TableScanNode> rightTableScan = getTableScan(rightFilter.map(FilterNode::getSource).orElse(rightSource), context);
+        if (!leftTableScan.isPresent() || !rightTableScan.isPresent()) {
+            return Result.empty();
+        }
+        TableScanNode left = leftTableScan.get();
+        TableScanNode right = rightTableScan.get();
+        if (!left.getTable().getConnectorId().equals(right.getTable().getConnectorId()) ||
+                !left.getTable().getTransaction().equals(right.getTable().getTransaction())) {
+            return Result.empty();
+        }
+        if (getJoinPushdownStrategy(context.getSession()) == AUTOMATIC && !isSelective(node, context)) {
+            return Result.empty();
+        }
+
+        ImmutableList.Builder<ConnectorJoinCondition> conditions = ImmutableList.builder();
+        for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+            ColumnHandle leftColumn = left.getAssignments().get(clause.getLeft());
+            ColumnHandle rightColumn = right.getAssignments().get(clause.getRight());
+            if (leftColumn == null || rightColumn == null) {
+                return Result.empty();
+            }
+            conditions.add(new ConnectorJoinCondition(leftColumn, rightColumn));
+        }
+
+        // the filters of both sides and the join filter are applied to the joined rows
+        ImmutableList.Builder<Expression> predicateBuilder = ImmutableList.builder();
+        leftFilter.ifPresent(filter -> predicateBuilder.add(castToExpression(filter.getPredicate())));
+        rightFilter.ifPresent(filter -> predicateBuilder.add(castToExpression(filter.getPredicate())));
+        node.getFilter().ifPresent(filter -> predicateBuilder.add(castToExpression(filter)));
+        List<Expression> predicates = predicateBuilder.build();
+        TypeProvider types = context.getSymbolAllocator().getTypes();
+        Set<VariableReferenceExpression> requiredVariables = ImmutableSet.<VariableReferenceExpression>builder()
+                .addAll(node.getOutputVariables())
+                .addAll(extractUniqueVariable(predicates, types))
+                .build();
+        List<VariableReferenceExpression> leftVariables = left.getOutputVariables().stream()
+                .filter(requiredVariables::contains)
+                .collect(toImmutableList());
+        List<VariableReferenceExpression> rightVariables = right.getOutputVariables().stream()
+                .filter(requiredVariables::contains)
+                .collect(toImmutableList());
+
+        Optional<PushdownJoinResult> result = metadata.pushdownJoin(
+                context.getSession(),
+                left.getTable(),
+                right.getTable(),
+                conditions.build(),
+                leftVariables.stream().map(left.getAssignments()::get).collect(toImmutableList()),
+                rightVariables.stream().map(right.getAssignments()::get).collect(toImmutableList()));
+        if (!result.isPresent()) {
+            return Result.empty();
+        }
+
+        Optional<TableScanNode> joinedTableScan = createJoinedTableScan(context, left, right, leftVariables, rightVariables, result.get());
+        if (!joinedTableScan.isPresent()) {
+            return Result.empty();
+        }
+        PlanNode joined = joinedTableScan.get();
+        if (!predicates.isEmpty()) {
+            joined = new FilterNode(context.getIdAllocator().getNextId(), joined, castToRowExpression(combineConjuncts(predicates)));
+        }
+        return Result.ofPlanNode(restrictOutputs(context.getIdAllocator(), joined, ImmutableSet.copyOf(node.getOutputVariables())).orElse(joined));
+    }
+
+    private Optional<TableScanNode> createJoinedTableScan(
+            Context context,
+            TableScanNode left,
+            TableScanNode right,
+            List<VariableReferenceExpression> leftVariables,
+            List<VariableReferenceExpression> rightVariables,
+            PushdownJoinResult result)
+    {
+        ImmutableMap.Builder<VariableReferenceExpression, ColumnHandle> assignments = ImmutableMap.builder();
+        ImmutableMap.Builder<ColumnHandle, ColumnHandle> leftColumns = ImmutableMap.builder();
+        ImmutableMap.Builder<ColumnHandle, ColumnHandle> rightColumns = ImmutableMap.builder();
+        for (int i = 0; i < leftVariables.size(); i++) {
+            assignments.put(leftVariables.get(i), result.getLeftColumns().get(i));
+            leftColumns.put(left.getAssignments().get(leftVariables.get(i)), result.getLeftColumns().get(i));
+        }
+        for (int i = 0; i < rightVariables.size(); i++) {
+            assignments.put(rightVariables.get(i), result.getRightColumns().get(i));
+            rightColumns.put(right.getAssignments().get(rightVariables.get(i)), result.getRightColumns().get(i));
+        }
+        Map<VariableReferenceExpression, ColumnHandle> joinedAssignments = assignments.build();
+
+        // the predicates the connector enforced for either side must still be enforced by the joined table
+        Optional<TupleDomain<ColumnHandle>> leftEnforcedConstraint = translate(left.getEnforcedConstraint(), leftColumns.build());
+        Optional<TupleDomain<ColumnHandle>> rightEnforcedConstraint = translate(right.getEnforcedConstraint(), rightColumns.build());
+        if (!leftEnforcedConstraint.isPresent() || !rightEnforcedConstraint.isPresent()) {
+            return Optional.empty();
+        }
+        TupleDomain<ColumnHandle> enforcedConstraint = leftEnforcedConstraint.get().intersect(rightEnforcedConstraint.get());
+
+        TableLayoutResult layout = metadata.getLayout(
+                context.getSession(),
+                result.getTableHandle(),
+                new Constraint<>(enforcedConstraint),
+                Optional.of(ImmutableSet.copyOf(joinedAssignments.values())));
+        if (!layout.getUnenforcedConstraint().isAll()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new TableScanNode(
+                context.getIdAllocator().getNextId(),
+                layout.getLayout().getNewTableHandle(),
+                ImmutableList.<VariableReferenceExpression>builder()
+                        .addAll(leftVariables)
+                        .addAll(rightVariables)
+                        .build(),
+                joinedAssignments,
+                layout.getLayout().getPredicate(),
+                enforcedConstraint));
+    }
+
+    private static Optional<TupleDomain<ColumnHandle>> translate(TupleDomain<ColumnHandle> constraint, Map<ColumnHandle, ColumnHandle> columns)
+    {
+        // a constraint on a column that is not read cannot be translated to the joined table
+        if (constraint.getDomains().isPresent() && !columns.keySet().containsAll(constraint.getDomains().get().keySet())) {
+            return Optional.empty();
+        }
+        return Optional.of(constraint.transform(columns::get));
+    }
+
+    private static boolean isSelective(JoinNode node, Context context)
+    {
+        // unknown sizes compare false, so the join is not pushed without statistics
+        double joinedSize = context.getStatsProvider().getStats(node).getOutputSizeInBytes(node.getOutputVariables());
+        double leftSize = context.getStatsProvider().getStats(node.getLeft()).getOutputSizeInBytes(node.getLeft().getOutputVariables());
+        double rightSize = context.getStatsProvider().getStats(node.getRight()).getOutputSizeInBytes(node.getRight().getOutputVariables());
+        return joinedSize <= leftSize + rightSize;
+    }
+
+    private static PlanNode skipIdentityProjection(PlanNode node, Context context)
+    {
+        // the projection only prunes columns, and the joined table scan reads only the columns the join needs
+        PlanNode resolved = context.getLookup().resolve(node);
+        if (resolved instanceof ProjectNode && isIdentity((ProjectNode) resolved)) {
+            return ((ProjectNode) resolved).getSource();
+        }
+        return resolved;
+    }
+
+    private static Optional<FilterNode> getFilter(PlanNode node, Context context)
+    {
+        PlanNode resolved = context.getLookup().resolve(node);
+        if (resolved instanceof FilterNode) {
+            return Optional.of((FilterNode) resolved);
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<TableScanNode> getTableScan(PlanNode node, Context context)
+    {
+        PlanNode resolved = context.getLookup().resolve(node);
+        if (!(resolved instanceof TableScanNode)) {
+            return Optional.empty();
+        }
+        TableScanNode tableScan = (TableScanNode) resolved;
+        if (!tableScan.getTable().getLayout().isPresent() || tableScan.isTemporaryTable()) {
+            return Optional.empty();
+        }
+        return Optional.of(tableScan);
+    }
+}
@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.matching.Capture;
+import com.facebook.presto.matching.Captures;
+import com.facebook.presto.matching.Pattern;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.PushdownLimitResult;
+import com.facebook.presto.metadata.TableLayoutResult;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.SortingProperty;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.Rule;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.shouldPushLimitIntoConnector;
+import static com.facebook.presto.matching.Capture.newCapture;
+import static com.facebook.presto.sql.planner.plan.Patterns.limit;
+import static com.facebook.presto.sql.planner.plan.Patterns.source;
+import static com.facebook.presto.sql.planner.plan.Patterns.tableScan;
+import static com.facebook.presto.sql.planner.plan.Patterns.topN;
+import static com.facebook.presto.sql.planner.plan.TopNNode.Step.SINGLE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lets the connector limit the rows of a table scan below a LIMIT or a TopN. A LIMIT is removed when the
+ * connector guarantees the limit over all its splits, a TopN is always kept to sort the rows and to select
+ * among the rows of the splits.
+ * <p>
+ * Must run after PickTableLayout, so that the connector limits the rows of the layout chosen for the predicate.
+ */
+public class PushLimitIntoTableScan
+{
+    private final Metadata metadata;
+
+    public PushLimitIntoTableScan(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    public Set<Rule<?>> rules()
+    {
+        return ImmutableSet.of(
+                pushLimitIntoTableScan(),
+                pushTopNIntoTableScan());
+    }
+
+    public PushLimitIntoTableScanRule pushLimitIntoTableScan()
+    {
+        return new PushLimitIntoTableScanRule(metadata);
+    }
+
+    public PushTopNIntoTableScanRule pushTopNIntoTableScan()
+    {
+        return new PushTopNIntoTableScanRule(metadata);
+    }
+
+    private static final class PushLimitIntoTableScanRule
+            implements Rule<LimitNode>
+    {
+        private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+
+        private static final Pattern<LimitNode> PATTERN = limit()
+                .with(source().matching(tableScan().capturedAs(TABLE_SCAN)));
+
+        private final Metadata metadata;
+
+        private PushLimitIntoTableScanRule(Metadata metadata)
+        {
+            this.metadata = requireNonNull(metadata, "metadata is null");
+        }
+
+        @Override
+        public Pattern<LimitNode> getPattern()
+        {
+            return PATTERN;
+        }
+
+        @Override
+        public boolean isEnabled(Session session)
+        {
+            return shouldPushLimitIntoConnector(session);
+        }
+
+        @Override
+        public Result apply(LimitNode node, Captures captures, Context context)
+        {
+            TableScanNode tableScan = captures.get(TABLE_SCAN);
+            if (!canPushIntoTableScan(tableScan)) {
+                return Result.empty();
+            }
+
+            Optional<PushdownLimitResult> result = metadata.pushdownLimit(context.getSession(), tableScan.getTable(), node.getCount());
+            Optional<TableScanNode> limitedTableScan = result.flatMap(value -> replaceTableHandle(metadata, context.getSession(), tableScan, value));
+            if (!limitedTableScan.isPresent()) {
+                return Result.empty();
+            }
+            if (result.get().isLimitGuaranteed()) {
+                return Result.ofPlanNode(limitedTableScan.get());
+            }
+            return Result.ofPlanNode(node.replaceChildren(ImmutableList.of(limitedTableScan.get())));
+        }
+    }
+
+    private static final class PushTopNIntoTableScanRule
+            implements Rule<TopNNode>
+    {
+        private static final Capture<TableScanNode> TABLE_SCAN = newCapture();
+
+        private static final Pattern<TopNNode> PATTERN = topN()
+                .matching(node -> node.getStep() == SINGLE)
+                .with(source().matching(tableScan().capturedAs(TABLE_SCAN)));
+
+        private final Metadata metadata;
+
+        private PushTopNIntoTableScanRule(Metadata metadata)
+        {
+            this.metadata = requireNonNull(metadata, "metadata is null");
+        }
+
+        @Override
+        public Pattern<TopNNode> getPattern()
+        {
+            return PATTERN;
+        }
+
+        @Override
+        public boolean isEnabled(Session session)
+        {
+            return shouldPushLimitIntoConnector(session);
+        }
+
+        @Override
+        public Result apply(TopNNode node, Captures captures, Context context)
+        {
+            TableScanNode tableScan = captures.get(TABLE_SCAN);
+            if (!canPushIntoTableScan(tableScan)) {
+                return Result.empty();
+            }
+
+            ImmutableList.Builder<SortingProperty<ColumnHandle>> sortOrder = ImmutableList.builder();
+            for (VariableReferenceExpression variable : node.getOrderingScheme().getOrderBy()) {
+                ColumnHandle column = tableScan.getAssignments().get(variable);
+                if (column == null) {
+                    return Result.empty();
+                }
+                sortOrder.add(new SortingProperty<>(column, node.getOrderingScheme().getOrdering(variable)));
+            }
+
+            // the TopN stays, the rows of the table are neither sorted nor necessarily limited across splits
+            return metadata.pushdownTopN(context.getSession(), tableScan.getTable(), node.getCount(), sortOrder.build())
+                    .flatMap(result -> replaceTableHandle(metadata, context.getSession(), tableScan, result))
+                    .map(limitedTableScan -> Result.ofPlanNode(node.replaceChildren(ImmutableList.of(limitedTableScan))))
+                    .orElse(Result.empty());
+        }
+    }
+
+    private static boolean canPushIntoTableScan(TableScanNode tableScan)
+    {
+        return tableScan.getTable().getLayout().isPresent() && !tableScan.isTemporaryTable();
+    }
+
+    private static Optional<TableScanNode> replaceTableHandle(Metadata metadata, Session session, TableScanNode tableScan, PushdownLimitResult result)
+    {
+        // a connector that returns the table handle it was given would make the rules fire forever
+        if (result.getTableHandle().getConnectorHandle().equals(tableScan.getTable().getConnectorHandle())) {
+            return Optional.empty();
+        }
+
+        TableLayoutResult layout = metadata.getLayout(
+                session,
+                result.getTableHandle(),
+                new Constraint<>(tableScan.getEnforcedConstraint()),
+                Optional.of(ImmutableSet.copyOf(tableScan.getAssignments().values())));
+        // the predicate the connector enforced under the limit must still be enforced by the limited table
+        if (!layout.getUnenforcedConstraint().isAll()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(new TableScanNode(
+                tableScan.getId(),
+                layout.getLayout().getNewTableHandle(),
+                tableScan.getOutputVariables(),
+                tableScan.getAssignments(),
+                layout.getLayout().getPredicate(),
+                tableScan.getEnforcedConstraint()));
+    }
+}
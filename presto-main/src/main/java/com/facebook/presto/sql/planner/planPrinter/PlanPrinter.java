@@ -113,9 +113,13 @@ import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.SystemSessionProperties.getHashPartitionTargetInputSize;
+import static com.facebook.presto.SystemSessionProperties.isAdaptiveHashPartitionCount;
 import static com.facebook.presto.execution.StageInfo.getAllStages;
+import static com.facebook.presto.execution.scheduler.AdaptiveHashPartitionCount.estimateInputSizeInBytes;
 import static com.facebook.presto.metadata.CastType.CAST;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.planPrinter.PlanNodeStatsSummarizer.aggregateStageStats;
 import static com.facebook.presto.sql.planner.planPrinter.TextRenderer.formatDouble;
@@ -126,6 +130,7 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.airlift.units.DataSize.succinctBytes;
 import static java.lang.String.format;
 import static java.util.Arrays.stream;
 import static java.util.Objects.requireNonNull;
@@ -269,6 +274,20 @@ public class PlanPrinter
                             formatDouble(sdAmongTasks),
                             formatPositions(stageStats.getOutputPositions()),
                             stageStats.getOutputDataSize()));
+
+            if (fragment.getPartitioning().equals(FIXED_HASH_DISTRIBUTION) && isAdaptiveHashPartitionCount(session)) {
+                List<PlanFragment> sourceFragments = stageInfo.get().getSubStages().stream()
+                        .map(StageInfo::getPlan)
+                        .filter(Optional::isPresent)
+                        .map(Optional::get)
+                        .collect(toImmutableList());
+                double inputSizeInBytes = estimateInputSizeInBytes(fragment, sourceFragments);
+                builder.append(indentString(1))
+                        .append(format("Partitions: %s (estimated input: %s, target per partition: %s)\n",
+                                stageInfo.get().getTasks().size(),
+                                Double.isNaN(inputSizeInBytes) ? "?" : succinctBytes((long) inputSizeInBytes),
+                                getHashPartitionTargetInputSize(session)));
+            }
         }
 
         PartitioningScheme partitioningScheme = fragment.getPartitioningScheme();
@@ -136,6 +136,9 @@ import com.facebook.presto.sql.planner.LocalExecutionPlanner.LocalExecutionPlan;
 import com.facebook.presto.sql.planner.LogicalPlanner;
 import com.facebook.presto.sql.planner.NodePartitioningManager;
 import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanCache;
+import com.facebook.presto.sql.planner.PlanCache.CachedPlan;
+import com.facebook.presto.sql.planner.PlanCache.PlanCacheKey;
 import com.facebook.presto.sql.planner.PlanFragmenter;
 import com.facebook.presto.sql.planner.PlanOptimizers;
 import com.facebook.presto.sql.planner.RuleStatsRecorder;
@@ -143,6 +146,7 @@ import com.facebook.presto.sql.planner.SubPlan;
 import com.facebook.presto.sql.planner.iterative.IterativeOptimizer;
 import com.facebook.presto.sql.planner.optimizations.PlanOptimizer;
 import com.facebook.presto.sql.planner.optimizations.TranslateExpressions;
+import com.facebook.presto.sql.planner.plan.TableFinishNode;
 import com.facebook.presto.sql.planner.planPrinter.PlanPrinter;
 import com.facebook.presto.sql.planner.sanity.PlanSanityChecker;
 import com.facebook.presto.sql.relational.RowExpressionDeterminismEvaluator;
@@ -155,6 +159,7 @@ import com.facebook.presto.sql.tree.DropTable;
 import com.facebook.presto.sql.tree.DropView;
 import com.facebook.presto.sql.tree.Explain;
 import com.facebook.presto.sql.tree.Prepare;
+import com.facebook.presto.sql.tree.Query;
 import com.facebook.presto.sql.tree.RenameColumn;
 import com.facebook.presto.sql.tree.RenameTable;
 import com.facebook.presto.sql.tree.ResetSession;
@@ -248,6 +253,7 @@ public class LocalQueryRunner
     private final FileSingleStreamSpillerFactory singleStreamSpillerFactory;
     private final SpillerFactory spillerFactory;
     private final PartitioningSpillerFactory partitioningSpillerFactory;
+    private final PlanCache planCache;
 
     private final PageFunctionCompiler pageFunctionCompiler;
     private final ExpressionCompiler expressionCompiler;
@@ -325,6 +331,7 @@ public class LocalQueryRunner
                 transactionManager);
         this.splitManager = new SplitManager(metadata, new QueryManagerConfig(), nodeSchedulerConfig);
         this.planFragmenter = new PlanFragmenter(this.metadata, this.nodePartitioningManager, new QueryManagerConfig(), sqlParser);
+        this.planCache = new PlanCache(featuresConfig, transactionManager);
         this.joinCompiler = new JoinCompiler(metadata, featuresConfig);
         this.pageIndexerFactory = new GroupByHashPageIndexerFactory(joinCompiler);
         this.statsCalculator = createNewStatsCalculator(metadata);
@@ -446,7 +453,12 @@ public class LocalQueryRunner
 
     public static LocalQueryRunner queryRunnerWithFakeNodeCountForStats(Session defaultSession, int nodeCount)
     {
-        return new LocalQueryRunner(defaultSession, new FeaturesConfig(), new NodeSpillConfig(), false, false, nodeCount);
+        return queryRunnerWithFakeNodeCountForStats(defaultSession, new FeaturesConfig(), nodeCount);
+    }
+
+    public static LocalQueryRunner queryRunnerWithFakeNodeCountForStats(Session defaultSession, FeaturesConfig featuresConfig, int nodeCount)
+    {
+        return new LocalQueryRunner(defaultSession, featuresConfig, new NodeSpillConfig(), false, false, nodeCount);
     }
 
     @Override
@@ -481,6 +493,11 @@ public class LocalQueryRunner
         return sqlParser;
     }
 
+    public PlanCache getPlanCache()
+    {
+        return planCache;
+    }
+
     @Override
     public Metadata getMetadata()
     {
@@ -676,6 +693,11 @@ public class LocalQueryRunner
                 done = !processed;
             }
 
+            if (searchFrom(plan.getRoot()).where(TableFinishNode.class::isInstance).matches()) {
+                // cached plans may read the table which was written
+                planCache.invalidateAll();
+            }
+
             verify(builder.get() != null, "Output operator was not created");
             return new MaterializedResultWithPlan(builder.get().build(), plan);
         }
@@ -848,9 +870,31 @@ public class LocalQueryRunner
 
         assertFormattedSql(sqlParser, createParsingOptions(session), preparedQuery.getStatement());
 
+        // the plan cache of the coordinator only holds distributed plans of queries
+        if (!forceSingleNode && stage != LogicalPlanner.Stage.CREATED && preparedQuery.getStatement() instanceof Query) {
+            return createCachedPlan(session, preparedQuery, stage, warningCollector);
+        }
         return createPlan(session, sql, getPlanOptimizers(forceSingleNode), stage, warningCollector);
     }
 
+    private Plan createCachedPlan(Session session, PreparedQuery preparedQuery, LogicalPlanner.Stage stage, WarningCollector warningCollector)
+    {
+        long generation = planCache.getGeneration();
+        Analyzer analyzer = new Analyzer(session, metadata, sqlParser, accessControl, Optional.empty(), preparedQuery.getParameters(), warningCollector);
+        Analysis analysis = analyzer.analyze(preparedQuery.getStatement());
+
+        Optional<PlanCacheKey> key = planCache.createKey(session, preparedQuery.getStatement(), preparedQuery.getParameters(), analysis);
+        Optional<CachedPlan> cachedPlan = key.flatMap(planCacheKey -> planCache.get(session, planCacheKey));
+        if (cachedPlan.isPresent()) {
+            return cachedPlan.get().getPlan();
+        }
+
+        LogicalPlanner logicalPlanner = new LogicalPlanner(false, session, getPlanOptimizers(false), new PlanSanityChecker(true), new PlanNodeIdAllocator(), metadata, sqlParser, statsCalculator, costCalculator, warningCollector);
+        Plan plan = logicalPlanner.plan(analysis, stage);
+        key.ifPresent(planCacheKey -> planCache.put(planCacheKey, analysis, plan, generation));
+        return plan;
+    }
+
     public List<PlanOptimizer> getPlanOptimizers(boolean forceSingleNode)
     {
         FeaturesConfig featuresConfig = new FeaturesConfig()
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.spi.plan.PlanNode;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.plan.Assignments;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.relational.OriginalExpressionUtils.castToRowExpression;
+import static java.lang.Math.exp;
+import static java.lang.Math.pow;
+
+public class TestBloomFilterStatsRule
+        extends BaseStatsCalculatorTest
+{
+    private static final PlanNodeId PROBE_ID = new PlanNodeId("probe");
+    private static final PlanNodeId BUILD_ID = new PlanNodeId("build");
+
+    @Test
+    public void testSelectivity()
+    {
+        tester().assertStatsFor(pb -> createFilteredProbe(pb, 959, 7))
+                .withSourceStats(PROBE_ID, stats("a", 1000, 1000))
+                .withSourceStats(BUILD_ID, stats("b", 100, 100))
+                .withSourceStats(stats("a", 1000, 1000))
+                // 10% of the probe rows match, and about 1% of the rest are false positives
+                .check(check -> check.outputRowsCount(1000 * (0.1 + 0.9 * pow(1 - exp(-7 * 100.0 / 959), 7))));
+    }
+
+    @Test
+    public void testSmallFilter()
+    {
+        tester().assertStatsFor(pb -> createFilteredProbe(pb, 64, 1))
+                .withSourceStats(PROBE_ID, stats("a", 1000, 1000))
+                .withSourceStats(BUILD_ID, stats("b", 100, 100))
+                .withSourceStats(stats("a", 1000, 1000))
+                .check(check -> check.outputRowsCount(1000 * (0.1 + 0.9 * (1 - exp(-100.0 / 64)))));
+    }
+
+    @Test
+    public void testAllProbeKeysMatch()
+    {
+        tester().assertStatsFor(pb -> createFilteredProbe(pb, 959, 7))
+                .withSourceStats(PROBE_ID, stats("a", 1000, 100))
+                .withSourceStats(BUILD_ID, stats("b", 100, 100))
+                .withSourceStats(stats("a", 1000, 100))
+                .check(check -> check.outputRowsCount(1000));
+    }
+
+    private static PlanNode createFilteredProbe(PlanBuilder pb, long bits, int hashFunctions)
+    {
+        VariableReferenceExpression a = pb.variable("a", BIGINT);
+        VariableReferenceExpression b = pb.variable("b", BIGINT);
+        VariableReferenceExpression hash = pb.variable("hash", BIGINT);
+        VariableReferenceExpression bitsVariable = pb.variable("bits", BIGINT);
+        VariableReferenceExpression hashFunctionsVariable = pb.variable("hash_functions", BIGINT);
+        VariableReferenceExpression filter = pb.variable("filter", VARBINARY);
+
+        PlanNode filterSource = pb.aggregation(builder -> builder
+                .source(pb.project(
+                        Assignments.builder()
+                                .put(hash, castToRowExpression(expression("b")))
+                                .put(bitsVariable, castToRowExpression(expression("BIGINT '" + bits + "'")))
+                                .put(hashFunctionsVariable, castToRowExpression(expression("BIGINT '" + hashFunctions + "'")))
+                                .build(),
+                        pb.values(BUILD_ID, b)))
+                .addAggregation(filter, expression("\"$internal$bloom_filter\"(hash, bits, hash_functions)"), ImmutableList.of(BIGINT, BIGINT, BIGINT))
+                .globalGrouping());
+        return pb.filter(
+                expression("\"$internal$bloom_filter_might_contain\"(filter, a)"),
+                pb.join(INNER, pb.values(PROBE_ID, a), filterSource));
+    }
+
+    private static PlanNodeStatsEstimate stats(String variable, double rowCount, double distinctValues)
+    {
+        return PlanNodeStatsEstimate.builder()
+                .setOutputRowCount(rowCount)
+                .addVariableStatistics(new VariableReferenceExpression(variable, BIGINT), VariableStatsEstimate.builder()
+                        .setLowValue(0)
+                        .setHighValue(rowCount)
+                        .setDistinctValuesCount(distinctValues)
+                        .setNullsFraction(0)
+                        .build())
+                .build();
+    }
+}
@@ -13,8 +13,12 @@
  */
 package com.facebook.presto.cost;
 
+import com.facebook.presto.spi.statistics.EquiHeightHistogram;
+import com.google.common.primitives.Doubles;
 import org.testng.annotations.Test;
 
+import java.util.Optional;
+
 import static com.facebook.presto.cost.EstimateAssertion.assertEstimateEquals;
 import static java.lang.Double.NEGATIVE_INFINITY;
 import static java.lang.Double.NaN;
@@ -59,6 +63,42 @@ public class TestStatisticRange
         assertOverlap(unboundedRange(0.0), unboundedRange(0), 0);
     }
 
+    @Test
+    public void testOverlapValuesFractionWith()
+    {
+        // a third of the values are between 0 and 10
+        StatisticRange zeroToForty = range(0, 40, 40, histogram(0, 10, 20, 40));
+        assertEstimateEquals(zeroToForty.overlapValuesFractionWith(range(0, 10, 10)), 1.0 / 3, "overlapValuesFractionWith");
+        assertEstimateEquals(zeroToForty.overlapValuesFractionWith(range(5, 30, 10)), 2.0 / 3, "overlapValuesFractionWith");
+        assertEstimateEquals(zeroToForty.overlapValuesFractionWith(range(5, 5, 1)), 1.0 / 30, "overlapValuesFractionWith");
+        assertEstimateEquals(zeroToForty.overlapValuesFractionWith(range(50, 60, 10)), 0, "overlapValuesFractionWith");
+
+        // the histogram is restricted to the range
+        assertEstimateEquals(range(0, 20, 20, histogram(0, 10, 20, 40)).overlapValuesFractionWith(range(0, 10, 10)), 0.5, "overlapValuesFractionWith");
+
+        // a value frequent enough to fill a bucket
+        assertEstimateEquals(range(0, 10, 10, histogram(0, 5, 5, 10)).overlapValuesFractionWith(range(5, 5, 1)), 1.0 / 3, "overlapValuesFractionWith");
+
+        // without a histogram
+        assertEstimateEquals(range(0, 40, 40).overlapValuesFractionWith(range(0, 10, 10)), 0.25, "overlapValuesFractionWith");
+    }
+
+    @Test
+    public void testEqualValuesFractionWith()
+    {
+        assertEquals(range(0, 10, 10).equalValuesFractionWith(range(0, 10, 10, histogram(0, 10))), NaN);
+        assertEquals(range(0, 10, 10, histogram(0, 10)).equalValuesFractionWith(range(0, 10, 10)), NaN);
+
+        // evenly spread values
+        assertEstimateEquals(range(0, 10, 10, histogram(0, 10)).equalValuesFractionWith(range(0, 10, 10, histogram(0, 10))), 0.1, "equalValuesFractionWith");
+        assertEstimateEquals(range(0, 10, 10, histogram(0, 10)).equalValuesFractionWith(range(20, 30, 10, histogram(20, 30))), 0, "equalValuesFractionWith");
+
+        // half of the values on both sides are 0
+        StatisticRange skewed = range(0, 10, 10, histogram(0, 0, 10));
+        assertEstimateEquals(skewed.equalValuesFractionWith(skewed), 0.25 + 0.5 * 0.5 / 10, "equalValuesFractionWith");
+        assertEstimateEquals(skewed.equalValuesFractionWith(range(0, 10, 10, histogram(0, 10))), 0.5 * 0.1 + 0.5 / 10, "equalValuesFractionWith");
+    }
+
     @Test
     public void testIntersect()
     {
@@ -109,6 +149,16 @@ public class TestStatisticRange
         return new StatisticRange(low, high, distinctValues);
     }
 
+    private static StatisticRange range(double low, double high, double distinctValues, EquiHeightHistogram histogram)
+    {
+        return new StatisticRange(low, high, distinctValues, Optional.of(histogram));
+    }
+
+    private static EquiHeightHistogram histogram(double... boundaries)
+    {
+        return new EquiHeightHistogram(Doubles.asList(boundaries));
+    }
+
     private static StatisticRange unboundedRange(double distinctValues)
     {
         return new StatisticRange(NEGATIVE_INFINITY, POSITIVE_INFINITY, distinctValues);
@@ -118,6 +118,7 @@ public class MockQueryExecution
                         new Duration(8, NANOSECONDS),
 
                         new Duration(100, NANOSECONDS),
+                        false,
 
                         9,
                         10,
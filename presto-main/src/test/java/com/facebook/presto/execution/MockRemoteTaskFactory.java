@@ -83,6 +83,8 @@ import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
 import static com.facebook.presto.util.Failures.toFailures;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
@@ -377,6 +379,21 @@ public class MockRemoteTaskFactory
             throw new UnsupportedOperationException();
         }
 
+        @Override
+        public synchronized ListenableFuture<List<Split>> revokeQueuedSplits(PlanNodeId sourceId, int maxSplits)
+        {
+            if (taskStateMachine.getState().isDone()) {
+                return immediateFuture(ImmutableList.of());
+            }
+            List<Split> revoked = splits.get(sourceId).stream()
+                    .limit(Math.min(maxSplits, getQueuedPartitionedSplitCount()))
+                    .collect(toImmutableList());
+            revoked.forEach(split -> splits.remove(sourceId, split));
+            partitionedSplitCountTracker.setPartitionedSplitCount(getPartitionedSplitCount());
+            updateSplitQueueSpace();
+            return immediateFuture(revoked);
+        }
+
         @Override
         public void addStateChangeListener(StateChangeListener<TaskStatus> stateChangeListener)
         {
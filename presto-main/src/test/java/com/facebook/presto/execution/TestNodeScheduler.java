@@ -271,6 +271,28 @@ public class TestNodeScheduler
         assertEquals(assignments.size(), 1);
     }
 
+    @Test
+    public void testSchedulePreferredNodes()
+    {
+        TestingTransactionHandle transactionHandle = TestingTransactionHandle.create();
+        HostAddress preferredHost = HostAddress.fromString("127.0.0.1:13");
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            splits.add(new Split(CONNECTOR_ID, transactionHandle, new TestSplitPreferred(preferredHost)));
+        }
+        Multimap<InternalNode, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.size(), 25);
+
+        // the preferred node gets splits until it is full, the remaining splits go to the other nodes
+        for (InternalNode node : assignments.keySet()) {
+            if (node.getHostAndPort().equals(preferredHost)) {
+                assertEquals(assignments.get(node).size(), 20);
+            }
+        }
+        assertEquals(assignments.keySet().stream().filter(node -> node.getHostAndPort().equals(preferredHost)).count(), 1);
+    }
+
     @Test
     public void testBasicAssignment()
     {
@@ -480,6 +502,24 @@ public class TestNodeScheduler
         }
     }
 
+    private static class TestSplitPreferred
+            extends TestSplitRemote
+    {
+        private final HostAddress preferredHost;
+
+        public TestSplitPreferred(HostAddress preferredHost)
+        {
+            this.preferredHost = requireNonNull(preferredHost, "preferredHost is null");
+        }
+
+        @Override
+        public List<HostAddress> getPreferredNodes(List<HostAddress> candidates)
+        {
+            assertTrue(candidates.contains(preferredHost));
+            return ImmutableList.of(preferredHost);
+        }
+    }
+
     private static class TestNetworkTopology
             implements NetworkTopology
     {
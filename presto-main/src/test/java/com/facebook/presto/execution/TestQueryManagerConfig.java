@@ -16,12 +16,17 @@ package com.facebook.presto.execution;
 import com.facebook.presto.execution.QueryManagerConfig.ExchangeMaterializationStrategy;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.configuration.testing.ConfigAssertions;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import java.nio.file.Paths;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 public class TestQueryManagerConfig
 {
     @Test
@@ -39,6 +44,9 @@ public class TestQueryManagerConfig
                 .setMaxConcurrentQueries(1000)
                 .setMaxQueuedQueries(5000)
                 .setHashPartitionCount(100)
+                .setAdaptiveHashPartitionCount(false)
+                .setHashPartitionTargetInputSize(new DataSize(1, GIGABYTE))
+                .setReassignStragglerSplits(false)
                 .setPartitioningProviderCatalog("system")
                 .setExchangeMaterializationStrategy(ExchangeMaterializationStrategy.NONE)
                 .setQueryManagerExecutorPoolSize(5)
@@ -52,7 +60,13 @@ public class TestQueryManagerConfig
                 .setInitializationRequiredWorkers(1)
                 .setInitializationTimeout(new Duration(5, TimeUnit.MINUTES))
                 .setRequiredWorkers(1)
-                .setRequiredWorkersMaxWait(new Duration(5, TimeUnit.MINUTES)));
+                .setRequiredWorkersMaxWait(new Duration(5, TimeUnit.MINUTES))
+                .setResultCacheEnabled(false)
+                .setResultCacheMaxSize(new DataSize(1, GIGABYTE))
+                .setResultCacheMaxResultSize(new DataSize(100, MEGABYTE))
+                .setResultCacheMaxInMemoryResultSize(new DataSize(1, MEGABYTE))
+                .setResultCacheSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "result-cache").toString())
+                .setResultCacheExpireAfterWrite(new Duration(10, TimeUnit.MINUTES)));
     }
 
     @Test
@@ -70,6 +84,9 @@ public class TestQueryManagerConfig
                 .put("query.max-concurrent-queries", "10")
                 .put("query.max-queued-queries", "15")
                 .put("query.hash-partition-count", "16")
+                .put("query.adaptive-hash-partition-count", "true")
+                .put("query.hash-partition-target-input-size", "256MB")
+                .put("query.reassign-straggler-splits", "true")
                 .put("query.partitioning-provider-catalog", "hive")
                 .put("query.exchange-materialization-strategy", "ALL")
                 .put("query.manager-executor-pool-size", "11")
@@ -84,6 +101,12 @@ public class TestQueryManagerConfig
                 .put("query-manager.initialization-timeout", "1m")
                 .put("query-manager.required-workers", "333")
                 .put("query-manager.required-workers-max-wait", "33m")
+                .put("query.result-cache.enabled", "true")
+                .put("query.result-cache.max-size", "10GB")
+                .put("query.result-cache.max-result-size", "1GB")
+                .put("query.result-cache.max-in-memory-result-size", "10MB")
+                .put("query.result-cache.spill-path", "/tmp/result-cache")
+                .put("query.result-cache.expire-after-write", "1h")
                 .build();
 
         QueryManagerConfig expected = new QueryManagerConfig()
@@ -98,6 +121,9 @@ public class TestQueryManagerConfig
                 .setMaxConcurrentQueries(10)
                 .setMaxQueuedQueries(15)
                 .setHashPartitionCount(16)
+                .setAdaptiveHashPartitionCount(true)
+                .setHashPartitionTargetInputSize(new DataSize(256, MEGABYTE))
+                .setReassignStragglerSplits(true)
                 .setPartitioningProviderCatalog("hive")
                 .setExchangeMaterializationStrategy(ExchangeMaterializationStrategy.ALL)
                 .setQueryManagerExecutorPoolSize(11)
@@ -111,7 +137,13 @@ public class TestQueryManagerConfig
                 .setInitializationRequiredWorkers(200)
                 .setInitializationTimeout(new Duration(1, TimeUnit.MINUTES))
                 .setRequiredWorkers(333)
-                .setRequiredWorkersMaxWait(new Duration(33, TimeUnit.MINUTES));
+                .setRequiredWorkersMaxWait(new Duration(33, TimeUnit.MINUTES))
+                .setResultCacheEnabled(true)
+                .setResultCacheMaxSize(new DataSize(10, GIGABYTE))
+                .setResultCacheMaxResultSize(new DataSize(1, GIGABYTE))
+                .setResultCacheMaxInMemoryResultSize(new DataSize(10, MEGABYTE))
+                .setResultCacheSpillPath("/tmp/result-cache")
+                .setResultCacheExpireAfterWrite(new Duration(1, TimeUnit.HOURS));
 
         ConfigAssertions.assertFullMapping(properties, expected);
     }
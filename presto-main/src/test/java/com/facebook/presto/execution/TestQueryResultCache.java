@@ -0,0 +1,223 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.QueryResultCache.ResultCacheKey;
+import com.facebook.presto.execution.QueryResultCache.ResultReader;
+import com.facebook.presto.execution.QueryResultCache.ResultWriter;
+import com.facebook.presto.execution.buffer.PagesSerde;
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.facebook.presto.execution.warnings.WarningCollector;
+import com.facebook.presto.sql.analyzer.Analysis;
+import com.facebook.presto.sql.analyzer.Analyzer;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.facebook.presto.SequencePageBuilder.createSequencePage;
+import static com.facebook.presto.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.ParsingUtil.createParsingOptions;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static com.google.common.io.Files.createTempDir;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.testing.Closeables.closeAllRuntimeException;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.stream.Collectors.joining;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestQueryResultCache
+{
+    private static final PagesSerde SERDE = testingPagesSerde();
+    private static final SerializedPage PAGE = SERDE.serialize(createSequencePage(ImmutableList.of(BIGINT), 100, 0));
+
+    private LocalQueryRunner runner;
+    private File spillPath;
+
+    @BeforeClass
+    public void setUp()
+    {
+        runner = new LocalQueryRunner(testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .setSystemProperty("result_cache_enabled", "true")
+                .build());
+        runner.createCatalog("tpch", new TpchConnectorFactory(1), ImmutableMap.of());
+        spillPath = createTempDir();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        closeAllRuntimeException(runner);
+        runner = null;
+        deleteRecursively(spillPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testCachedResult()
+    {
+        SqlQueryManagerStats stats = new SqlQueryManagerStats();
+        QueryResultCache resultCache = createResultCache(stats, new DataSize(1, MEGABYTE));
+        ResultCacheKey key = createKey("SELECT name FROM nation WHERE regionkey = 1").get();
+
+        assertFalse(resultCache.get(key).isPresent());
+        writeResult(resultCache, key, 3);
+        assertEquals(resultCache.getSize(), 1);
+        assertReadsPages(resultCache.get(key).get(), 3);
+        assertEquals(stats.getResultCacheHits().getTotalCount(), 1);
+        assertEquals(stats.getResultCacheMisses().getTotalCount(), 1);
+
+        // an aborted result is not cached
+        ResultCacheKey otherKey = createKey("SELECT name FROM nation WHERE regionkey = 2").get();
+        ResultWriter writer = resultCache.createWriter(otherKey);
+        writer.append(PAGE);
+        writer.abort();
+        writer.commit();
+        assertFalse(resultCache.get(otherKey).isPresent());
+    }
+
+    @Test
+    public void testSpilledResult()
+    {
+        QueryResultCache resultCache = createResultCache(new SqlQueryManagerStats(), new DataSize(PAGE.getSizeInBytes(), BYTE));
+        ResultCacheKey key = createKey("SELECT name FROM region").get();
+
+        writeResult(resultCache, key, 3);
+        assertEquals(spillPath.list().length, 1);
+        assertReadsPages(resultCache.get(key).get(), 3);
+
+        // spilled results are deleted with the entry
+        resultCache.invalidateAll();
+        assertEquals(spillPath.list().length, 0);
+    }
+
+    @Test
+    public void testLargeResultNotCached()
+    {
+        QueryResultCache resultCache = createResultCache(new SqlQueryManagerStats(), new DataSize(PAGE.getSizeInBytes(), BYTE));
+        ResultCacheKey key = createKey("SELECT name FROM nation").get();
+
+        writeResult(resultCache, key, 20);
+        assertFalse(resultCache.get(key).isPresent());
+        assertEquals(resultCache.getSizeInBytes(), 0);
+        assertEquals(spillPath.list().length, 0);
+    }
+
+    @Test
+    public void testKey()
+    {
+        assertEquals(
+                createKey("SELECT name FROM nation WHERE regionkey = 1"),
+                createKey("SELECT name FROM nation WHERE regionkey = 1"));
+        assertFalse(createKey("SELECT name FROM nation WHERE regionkey = 1").equals(createKey("SELECT name FROM nation WHERE regionkey = 2")));
+
+        // queries whose plans print the same must not share results
+        assertFalse(createKey("SELECT name FROM nation WHERE nationkey IN (" + IntStream.range(0, 40).mapToObj(Integer::toString).collect(joining(",")) + ")")
+                .equals(createKey("SELECT name FROM nation WHERE nationkey IN (" + IntStream.range(0, 40).map(i -> i * 2).mapToObj(Integer::toString).collect(joining(",")) + ")")));
+
+        // the same text resolves to different tables in another schema
+        Session otherSchema = Session.builder(runner.getDefaultSession())
+                .setSchema("sf1")
+                .build();
+        assertFalse(createKey("SELECT name FROM nation").equals(createKey(otherSchema, "SELECT name FROM nation")));
+
+        // non-deterministic results are not cached
+        assertFalse(createKey("SELECT name, rand() FROM nation").isPresent());
+        assertFalse(createKey("SELECT name FROM nation WHERE now() > TIMESTAMP '2019-01-01 00:00:00'").isPresent());
+        assertFalse(createKey("SELECT name FROM nation TABLESAMPLE BERNOULLI (10)").isPresent());
+
+        Session session = testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .build();
+        assertFalse(createKey(session, "SELECT name FROM nation").isPresent());
+    }
+
+    private QueryResultCache createResultCache(SqlQueryManagerStats stats, DataSize maxInMemoryResultSize)
+    {
+        return new QueryResultCache(
+                runner.getMetadata(),
+                stats,
+                new DataSize(10, MEGABYTE),
+                new DataSize(PAGE.getSizeInBytes() * 10, BYTE),
+                maxInMemoryResultSize,
+                spillPath.toPath(),
+                new Duration(1, HOURS));
+    }
+
+    private static void writeResult(QueryResultCache resultCache, ResultCacheKey key, int pageCount)
+    {
+        ResultWriter writer = resultCache.createWriter(key);
+        for (int i = 0; i < pageCount; i++) {
+            writer.append(PAGE);
+        }
+        writer.commit();
+    }
+
+    private static void assertReadsPages(ResultReader reader, int pageCount)
+    {
+        for (int i = 0; i < pageCount; i++) {
+            assertEquals(SERDE.deserialize(reader.pollPage()).getPositionCount(), 100);
+        }
+        assertFalse(reader.isFinished());
+        assertNull(reader.pollPage());
+        assertTrue(reader.isFinished());
+        assertTrue(reader.getFinishedFuture().isDone());
+    }
+
+    private Optional<ResultCacheKey> createKey(@Language("SQL") String sql)
+    {
+        return createKey(runner.getDefaultSession(), sql);
+    }
+
+    private Optional<ResultCacheKey> createKey(Session session, @Language("SQL") String sql)
+    {
+        QueryResultCache resultCache = createResultCache(new SqlQueryManagerStats(), new DataSize(1, MEGABYTE));
+        return runner.inTransaction(session, transactionSession -> {
+            Analyzer analyzer = new Analyzer(
+                    transactionSession,
+                    runner.getMetadata(),
+                    runner.getSqlParser(),
+                    runner.getAccessControl(),
+                    Optional.empty(),
+                    ImmutableList.of(),
+                    WarningCollector.NOOP);
+            Analysis analysis = analyzer.analyze(runner.getSqlParser().createStatement(sql, createParsingOptions(transactionSession)));
+            Plan plan = runner.createPlan(transactionSession, sql, WarningCollector.NOOP);
+            return resultCache.createKey(transactionSession, analysis, plan);
+        });
+    }
+}
@@ -69,6 +69,8 @@ public class TestQueryStats
                     succinctBytes(128L),
                     succinctBytes(129L),
                     succinctBytes(130L),
+                    131L,
+                    succinctBytes(132L),
                     Optional.empty(),
                     null),
             new OperatorStats(
@@ -102,6 +104,8 @@ public class TestQueryStats
                     succinctBytes(228L),
                     succinctBytes(229L),
                     succinctBytes(230L),
+                    231L,
+                    succinctBytes(232L),
                     Optional.empty(),
                     null),
             new OperatorStats(
@@ -135,6 +139,8 @@ public class TestQueryStats
                     succinctBytes(328L),
                     succinctBytes(329L),
                     succinctBytes(330L),
+                    331L,
+                    succinctBytes(332L),
                     Optional.empty(),
                     null));
 
@@ -151,6 +157,7 @@ public class TestQueryStats
 
             new Duration(100, NANOSECONDS),
             new Duration(200, NANOSECONDS),
+            true,
 
             9,
             10,
@@ -228,6 +235,7 @@ public class TestQueryStats
 
         assertEquals(actual.getTotalPlanningTime(), new Duration(100, NANOSECONDS));
         assertEquals(actual.getFinishingTime(), new Duration(200, NANOSECONDS));
+        assertEquals(actual.isPlanCacheHit(), true);
 
         assertEquals(actual.getTotalTasks(), 9);
         assertEquals(actual.getRunningTasks(), 10);
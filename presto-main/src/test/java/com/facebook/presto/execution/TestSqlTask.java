@@ -324,6 +324,7 @@ public class TestSqlTask
                 taskNotificationExecutor,
                 Functions.identity(),
                 new DataSize(32, MEGABYTE),
+                Optional.empty(),
                 new CounterStat());
     }
 }
@@ -56,7 +56,9 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Ticker;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
@@ -71,6 +73,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Queue;
@@ -300,6 +303,94 @@ public class TestSqlTaskExecution
         }
     }
 
+    @Test(timeOut = 20_000)
+    public void testRevokeQueuedSplits()
+            throws Exception
+    {
+        ScheduledExecutorService taskNotificationExecutor = newScheduledThreadPool(10, threadsNamed("task-notification-%s"));
+        ScheduledExecutorService driverYieldExecutor = newScheduledThreadPool(2, threadsNamed("driver-yield-%s"));
+        // run one driver of the task at a time, so the other splits stay queued
+        TaskExecutor taskExecutor = new TaskExecutor(1, 1, 1, 1, Ticker.systemTicker());
+        taskExecutor.start();
+
+        try {
+            TaskStateMachine taskStateMachine = new TaskStateMachine(TASK_ID, taskNotificationExecutor);
+            PartitionedOutputBuffer outputBuffer = newTestingOutputBuffer(taskNotificationExecutor);
+            OutputBufferConsumer outputBufferConsumer = new OutputBufferConsumer(outputBuffer, OUTPUT_BUFFER_ID);
+
+            TestingScanOperatorFactory testingScanOperatorFactory = new TestingScanOperatorFactory(0, TABLE_SCAN_NODE_ID, ImmutableList.of(VARCHAR));
+            TaskOutputOperatorFactory taskOutputOperatorFactory = new TaskOutputOperatorFactory(
+                    1,
+                    TABLE_SCAN_NODE_ID,
+                    outputBuffer,
+                    Function.identity(),
+                    new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), false));
+            LocalExecutionPlan localExecutionPlan = new LocalExecutionPlan(
+                    ImmutableList.of(new DriverFactory(
+                            0,
+                            true,
+                            true,
+                            ImmutableList.of(testingScanOperatorFactory, taskOutputOperatorFactory),
+                            OptionalInt.empty(),
+                            UNGROUPED_EXECUTION)),
+                    ImmutableList.of(TABLE_SCAN_NODE_ID),
+                    StageExecutionDescriptor.ungroupedExecution());
+            TaskContext taskContext = newTestingTaskContext(taskNotificationExecutor, driverYieldExecutor, taskStateMachine);
+            SqlTaskExecution sqlTaskExecution = SqlTaskExecution.createSqlTaskExecution(
+                    taskStateMachine,
+                    taskContext,
+                    outputBuffer,
+                    ImmutableList.of(),
+                    localExecutionPlan,
+                    taskExecutor,
+                    taskNotificationExecutor,
+                    createTestSplitMonitor());
+
+            // block the first driver, and queue the other two splits behind it
+            testingScanOperatorFactory.getPauser().pause();
+            Map<Long, Integer> splitPositions = ImmutableMap.of(0L, 10, 1L, 20, 2L, 30);
+            sqlTaskExecution.addSources(ImmutableList.of(new TaskSource(
+                    TABLE_SCAN_NODE_ID,
+                    ImmutableSet.of(
+                            newScheduledSplit(0, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 0, 10),
+                            newScheduledSplit(1, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 100000, 20),
+                            newScheduledSplit(2, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 200000, 30)),
+                    false)));
+            waitUntilEquals(() -> taskContext.getTaskStats().getRunningPartitionedDrivers(), 1, ASSERT_WAIT_TIMEOUT);
+            assertEquals(taskContext.getTaskStats().getQueuedPartitionedDrivers(), 2);
+
+            // the running split is not revoked
+            Set<Long> revoked = sqlTaskExecution.revokeQueuedSplits(splitPositions.keySet());
+            assertEquals(revoked.size(), 2);
+            assertEquals(taskContext.getTaskStats().getQueuedPartitionedDrivers(), 0);
+            assertEquals(taskContext.getTaskStats().getRunningPartitionedDrivers(), 1);
+
+            // revoking again returns the splits revoked before
+            assertEquals(sqlTaskExecution.revokeQueuedSplits(splitPositions.keySet()), revoked);
+
+            // splits that were revoked are not added again
+            sqlTaskExecution.addSources(ImmutableList.of(new TaskSource(
+                    TABLE_SCAN_NODE_ID,
+                    ImmutableSet.of(newScheduledSplit(1, TABLE_SCAN_NODE_ID, Lifespan.taskWide(), 100000, 20)),
+                    true)));
+            testingScanOperatorFactory.getPauser().resume();
+
+            // only the split that was running produces output
+            long runningSplit = Sets.difference(splitPositions.keySet(), revoked).iterator().next();
+            outputBufferConsumer.consume(splitPositions.get(runningSplit), ASSERT_WAIT_TIMEOUT);
+            outputBufferConsumer.assertBufferComplete(ASSERT_WAIT_TIMEOUT);
+
+            outputBufferConsumer.abort(); // complete the task by calling abort on it
+            TaskState taskState = taskStateMachine.getStateChange(TaskState.RUNNING).get(10, SECONDS);
+            assertEquals(taskState, TaskState.FINISHED);
+        }
+        finally {
+            taskExecutor.stop();
+            taskNotificationExecutor.shutdownNow();
+            driverYieldExecutor.shutdown();
+        }
+    }
+
     @Test(dataProvider = "executionStrategies", timeOut = 20_000)
     public void testComplex(PipelineExecutionStrategy executionStrategy)
             throws Exception
@@ -64,6 +64,7 @@ public class TestStageStats
 
             new DataSize(21, BYTE),
             22,
+            1.5,
 
             new DataSize(23, BYTE),
             new DataSize(24, BYTE),
@@ -126,6 +127,7 @@ public class TestStageStats
 
         assertEquals(actual.getProcessedInputDataSize(), new DataSize(21, BYTE));
         assertEquals(actual.getProcessedInputPositions(), 22);
+        assertEquals(actual.getTaskInputSkew(), 1.5);
 
         assertEquals(actual.getBufferedDataSize(), new DataSize(23, BYTE));
         assertEquals(actual.getOutputDataSize(), new DataSize(24, BYTE));
@@ -17,6 +17,7 @@ import com.facebook.presto.execution.buffer.ClientBuffer.PagesSupplier;
 import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.BigintType;
+import com.google.common.base.VerifyException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
@@ -174,6 +175,70 @@ public class TestClientBuffer
         assertBufferDestroyed(buffer, 6);
     }
 
+    @Test
+    public void testReadAhead()
+    {
+        ClientBuffer buffer = new ClientBuffer(TASK_INSTANCE_ID, BUFFER_ID);
+        for (int i = 0; i < 3; i++) {
+            addPage(buffer, createPage(i));
+        }
+
+        // read the first page, and then the following pages without acknowledging it
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, 0, sizeOfPages(1), NO_WAIT), bufferResult(0, createPage(0)));
+        assertBufferResultEquals(TYPES, readBufferResult(buffer, 1, sizeOfPages(10), NO_WAIT), bufferResult(1, createPage(1), createPage(2)));
+        assertBufferInfo(buffer, 3, 0);
+
+        // a read after all pages waits for more pages
+        ListenableFuture<BufferResult> pendingRead = buffer.readPages(3, sizeOfPages(10), Optional.empty());
+        assertFalse(pendingRead.isDone());
+        addPage(buffer, createPage(3));
+        assertBufferResultEquals(TYPES, getFuture(pendingRead, NO_WAIT), bufferResult(3, createPage(3)));
+        assertBufferInfo(buffer, 4, 0);
+
+        // pages can be read again until they are acknowledged
+        assertBufferResultEquals(TYPES, readBufferResult(buffer, 1, sizeOfPages(1), NO_WAIT), bufferResult(1, createPage(1)));
+        buffer.acknowledgePages(2);
+        assertBufferInfo(buffer, 2, 2);
+        assertBufferResultEquals(TYPES, readBufferResult(buffer, 1, sizeOfPages(1), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 1, false));
+
+        // a read after all pages of a finished buffer completes the buffer
+        buffer.setNoMorePages();
+        assertBufferResultEquals(TYPES, readBufferResult(buffer, 4, sizeOfPages(10), NO_WAIT), emptyResults(TASK_INSTANCE_ID, 4, true));
+        assertBufferInfo(buffer, 2, 2);
+
+        // reading past the buffered pages is invalid
+        try {
+            buffer.readPages(5, sizeOfPages(10), Optional.empty());
+            fail("Expected " + INVALID_SEQUENCE_ID);
+        }
+        catch (VerifyException e) {
+            assertEquals(e.getMessage(), INVALID_SEQUENCE_ID);
+        }
+    }
+
+    @Test
+    public void testReadAheadPullBuffer()
+    {
+        ClientBuffer buffer = new ClientBuffer(TASK_INSTANCE_ID, BUFFER_ID);
+        TestingPagesSupplier supplier = new TestingPagesSupplier();
+        supplier.addPage(createPage(0));
+        assertBufferResultEquals(TYPES, getBufferResult(buffer, supplier, 0, sizeOfPages(10), NO_WAIT), bufferResult(0, createPage(0)));
+
+        // reading after the pages which are not acknowledged loads more pages
+        supplier.addPage(createPage(1));
+        assertBufferResultEquals(TYPES, readBufferResult(buffer, supplier, 1, sizeOfPages(10), NO_WAIT), bufferResult(1, createPage(1)));
+        assertEquals(supplier.getBufferedPages(), 0);
+        assertBufferInfo(buffer, 2, 0);
+
+        // a pending read is completed when the supplier has more pages
+        ListenableFuture<BufferResult> pendingRead = buffer.readPages(2, sizeOfPages(10), Optional.of(supplier));
+        assertFalse(pendingRead.isDone());
+        supplier.addPage(createPage(2));
+        buffer.loadPagesIfNecessary(supplier);
+        assertBufferResultEquals(TYPES, getFuture(pendingRead, NO_WAIT), bufferResult(2, createPage(2)));
+        assertBufferInfo(buffer, 3, 0);
+    }
+
     @Test
     public void testDuplicateRequests()
     {
@@ -380,6 +445,16 @@ public class TestClientBuffer
         return getFuture(future, maxWait);
     }
 
+    private static BufferResult readBufferResult(ClientBuffer buffer, long sequenceId, DataSize maxSize, Duration maxWait)
+    {
+        return getFuture(buffer.readPages(sequenceId, maxSize, Optional.empty()), maxWait);
+    }
+
+    private static BufferResult readBufferResult(ClientBuffer buffer, PagesSupplier supplier, long sequenceId, DataSize maxSize, Duration maxWait)
+    {
+        return getFuture(buffer.readPages(sequenceId, maxSize, Optional.of(supplier)), maxWait);
+    }
+
     private static AtomicBoolean addPage(ClientBuffer buffer, Page page)
     {
         AtomicBoolean dereferenced = new AtomicBoolean(true);
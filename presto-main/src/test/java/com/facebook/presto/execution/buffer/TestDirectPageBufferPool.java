@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.buffer;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.execution.buffer.BufferTestUtils.PAGES_SERDE;
+import static com.facebook.presto.execution.buffer.BufferTestUtils.createPage;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestDirectPageBufferPool
+{
+    @Test
+    public void testAllocate()
+    {
+        DirectPageBufferPool pool = new DirectPageBufferPool(new DataSize(1, MEGABYTE));
+
+        ByteBuffer buffer = pool.allocate(5000).get();
+        assertTrue(buffer.isDirect());
+        assertEquals(buffer.capacity(), 8192);
+        assertEquals(buffer.remaining(), 5000);
+        assertEquals(pool.allocate(1).get().capacity(), 4096);
+        assertEquals(pool.allocate(4096).get().capacity(), 4096);
+        assertEquals(pool.allocate(4 * 1024 * 1024).get().capacity(), 4 * 1024 * 1024);
+        assertFalse(pool.allocate(4 * 1024 * 1024 + 1).isPresent());
+        assertEquals(pool.getAllocatedBuffers(), 4);
+        assertEquals(pool.getAllocatedBytes(), 8192 + 4096 + 4096 + 4 * 1024 * 1024);
+    }
+
+    @Test
+    public void testReuse()
+    {
+        DirectPageBufferPool pool = new DirectPageBufferPool(new DataSize(16, KILOBYTE));
+
+        ByteBuffer buffer = pool.allocate(5000).get();
+        pool.release(buffer);
+        assertEquals(pool.getAllocatedBytes(), 0);
+        assertEquals(pool.getPooledBytes(), 8192);
+
+        // the released buffer is reused for the same size class only
+        ByteBuffer smallBuffer = pool.allocate(100).get();
+        assertNotSame(smallBuffer, buffer);
+        ByteBuffer reusedBuffer = pool.allocate(6000).get();
+        assertSame(reusedBuffer, buffer);
+        assertEquals(reusedBuffer.position(), 0);
+        assertEquals(reusedBuffer.remaining(), 6000);
+        assertEquals(pool.getReusedBuffers(), 1);
+        assertEquals(pool.getPooledBytes(), 0);
+
+        // buffers are not pooled beyond the max pooled size
+        ByteBuffer largeBuffer = pool.allocate(10000).get();
+        pool.release(largeBuffer);
+        pool.release(reusedBuffer);
+        pool.release(smallBuffer);
+        assertEquals(pool.getPooledBytes(), 16384);
+        assertEquals(pool.getAllocatedBytes(), 0);
+        assertSame(pool.allocate(10000).get(), largeBuffer);
+        assertNotSame(pool.allocate(6000).get(), reusedBuffer);
+    }
+
+    @Test
+    public void testStorePages()
+    {
+        DirectPageBufferPool pool = new DirectPageBufferPool(new DataSize(1, MEGABYTE));
+        DirectPageStore store = new DirectPageStore("task-instance-id", Optional.of(pool));
+
+        List<SerializedPage> pages = ImmutableList.of(PAGES_SERDE.serialize(createPage(1)), PAGES_SERDE.serialize(createPage(2)));
+        List<SerializedPage> storedPages = store.store(pages);
+        assertEquals(storedPages.size(), 2);
+        for (int i = 0; i < pages.size(); i++) {
+            SerializedPage page = pages.get(i);
+            SerializedPage storedPage = storedPages.get(i);
+            assertNull(storedPage.getSlice().getBase());
+            assertEquals(storedPage.getSlice(), page.getSlice());
+            assertEquals(storedPage.getPositionCount(), page.getPositionCount());
+            assertEquals(storedPage.getUncompressedSizeInBytes(), page.getUncompressedSizeInBytes());
+            assertEquals(storedPage.getPageCodecMarkers(), page.getPageCodecMarkers());
+            assertTrue(storedPage.getRetainedSizeInBytes() >= 4096);
+        }
+        assertEquals(pool.getAllocatedBytes(), 8192);
+
+        // releasing a page twice or releasing a page which was not stored has no effect
+        store.release(storedPages.get(0));
+        store.release(storedPages.get(0));
+        store.release(pages.get(1));
+        assertEquals(pool.getAllocatedBytes(), 4096);
+        assertEquals(pool.getPooledBytes(), 4096);
+
+        // pages which are not released are recorded as leaked
+        store.checkReleased();
+        assertEquals(pool.getLeakedPages(), 1);
+        assertEquals(pool.getLeakedBytes(), 4096);
+        assertEquals(pool.getAllocatedBytes(), 0);
+        assertEquals(pool.getPooledBytes(), 4096);
+    }
+
+    @Test
+    public void testStoreDisabled()
+    {
+        DirectPageStore store = new DirectPageStore("task-instance-id", Optional.empty());
+        List<SerializedPage> pages = ImmutableList.of(PAGES_SERDE.serialize(createPage(1)));
+        assertSame(store.store(pages), pages);
+        store.release(pages.get(0));
+        store.checkReleased();
+    }
+}
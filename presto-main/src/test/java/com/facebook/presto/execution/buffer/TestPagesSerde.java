@@ -13,18 +13,27 @@
  */
 package com.facebook.presto.execution.buffer;
 
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.type.TestingTypeManager;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
 
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.execution.buffer.PageCodecMarker.COMPRESSED;
+import static com.facebook.presto.execution.buffer.PageCompressionCodec.LZ4;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.readPages;
 import static com.facebook.presto.execution.buffer.PagesSerdeUtil.writePages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
@@ -32,6 +41,7 @@ import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -59,6 +69,66 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testCompressionCodecs()
+    {
+        BlockEncodingManager blockEncodingSerde = new BlockEncodingManager(new TestingTypeManager());
+        Page page = new Page(createLongSequenceBlock(0, 1000), createLongSequenceBlock(0, 1000));
+        PagesSerde uncompressedSerde = new PagesSerdeFactory(blockEncodingSerde, false).createPagesSerde();
+
+        for (PageCompressionCodec codec : PageCompressionCodec.values()) {
+            PagesSerde serde = new PagesSerdeFactory(blockEncodingSerde, Optional.of(codec), false).createPagesSerde();
+            SerializedPage serializedPage = serde.serialize(page);
+            assertTrue(COMPRESSED.isSet(serializedPage.getPageCodecMarkers()));
+            assertEquals(PageCompressionCodec.fromMarkers(serializedPage.getPageCodecMarkers()), codec);
+
+            // the codec is read from the page
+            assertPageEquals(ImmutableList.of(BIGINT, BIGINT), serde.deserialize(serializedPage), page);
+            assertPageEquals(ImmutableList.of(BIGINT, BIGINT), uncompressedSerde.deserialize(serializedPage), page);
+
+            PageCompressionStats stats = serde.getCompressionStats().get(codec);
+            assertEquals(stats.getPages(), 1);
+            assertEquals(stats.getCompressedPages(), 1);
+            assertEquals(stats.getSkippedPages(), 0);
+            assertEquals(stats.getUncompressedSize().toBytes(), serializedPage.getUncompressedSizeInBytes());
+            assertEquals(stats.getCompressedSize().toBytes(), serializedPage.getSizeInBytes());
+        }
+        assertEquals(uncompressedSerde.getCompressionStats(), ImmutableMap.of());
+    }
+
+    @Test
+    public void testAdaptiveCompression()
+    {
+        PagesSerde serde = new PagesSerdeFactory(new BlockEncodingManager(new TestingTypeManager()), Optional.of(LZ4), true).createPagesSerde();
+
+        // random values do not shrink, so fewer pages are compressed over time
+        Random random = new Random(0);
+        Page incompressiblePage = createRandomPage(random);
+        for (int i = 0; i < 100; i++) {
+            SerializedPage serializedPage = serde.serialize(incompressiblePage);
+            assertFalse(COMPRESSED.isSet(serializedPage.getPageCodecMarkers()));
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serializedPage), incompressiblePage);
+        }
+        PageCompressionStats stats = serde.getCompressionStats().get(LZ4);
+        assertEquals(stats.getPages(), 100);
+        assertEquals(stats.getCompressedPages(), 0);
+        assertTrue(stats.getSkippedPages() > 80, "skipped pages: " + stats.getSkippedPages());
+
+        // pages with other encodings are sampled separately
+        Page compressiblePage = new Page(new DictionaryBlock(createLongSequenceBlock(0, 1), new int[10000]));
+        assertTrue(COMPRESSED.isSet(serde.serialize(compressiblePage).getPageCodecMarkers()));
+
+        // once the data shrinks again, the pages are compressed
+        Page sequencePage = new Page(createLongSequenceBlock(0, 1000));
+        int compressedPages = 0;
+        for (int i = 0; i < 100; i++) {
+            if (COMPRESSED.isSet(serde.serialize(sequencePage).getPageCodecMarkers())) {
+                compressedPages++;
+            }
+        }
+        assertTrue(compressedPages > 30, "compressed pages: " + compressedPages);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
@@ -106,6 +176,15 @@ public class TestPagesSerde
         assertEquals(secondValueSize, 4 + 3); // length + "bob" (null shared with first entry)
     }
 
+    private static Page createRandomPage(Random random)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, random.nextLong());
+        }
+        return new Page(builder.build());
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage)
     {
         PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
@@ -27,6 +27,7 @@ import org.testng.annotations.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.ScheduledExecutorService;
 
 import static com.facebook.presto.execution.buffer.BufferResult.emptyResults;
@@ -54,9 +55,11 @@ import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimp
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -837,7 +840,49 @@ public class TestPartitionedOutputBuffer
         assertEquals(memoryManager.getBufferedBytes(), 0);
     }
 
+    @Test
+    public void testOffHeapPages()
+    {
+        DirectPageBufferPool pool = new DirectPageBufferPool(new DataSize(1, MEGABYTE));
+        PartitionedOutputBuffer buffer = createPartitionedBuffer(
+                createInitialEmptyOutputBuffers(PARTITIONED)
+                        .withBuffer(FIRST, 0)
+                        .withBuffer(SECOND, 1)
+                        .withNoMoreBufferIds(),
+                new DataSize(1, MEGABYTE),
+                Optional.of(pool));
+
+        for (int i = 0; i < 3; i++) {
+            addPage(buffer, createPage(i), 0);
+            addPage(buffer, createPage(i), 1);
+        }
+        assertEquals(pool.getAllocatedBuffers(), 6);
+        assertTrue(buffer.getMemoryManager().getBufferedBytes() >= pool.getAllocatedBytes());
+
+        // the pages are read from direct memory
+        BufferResult result = getBufferResult(buffer, FIRST, 0, new DataSize(1, MEGABYTE), NO_WAIT);
+        assertNull(result.getSerializedPages().get(0).getSlice().getBase());
+        assertBufferResultEquals(TYPES, result, bufferResult(0, createPage(0), createPage(1), createPage(2)));
+
+        // acknowledged pages are returned to the pool and reused
+        acknowledgeBufferResult(buffer, FIRST, 3);
+        assertEquals(pool.getAllocatedBytes(), pool.getPooledBytes());
+        addPage(buffer, createPage(3), 0);
+        assertEquals(pool.getAllocatedBuffers(), 6);
+        assertEquals(pool.getReusedBuffers(), 1);
+
+        // destroying the buffer releases the pages which were not acknowledged
+        buffer.destroy();
+        assertEquals(pool.getAllocatedBytes(), 0);
+        assertEquals(pool.getLeakedPages(), 0);
+    }
+
     private PartitionedOutputBuffer createPartitionedBuffer(OutputBuffers buffers, DataSize dataSize)
+    {
+        return createPartitionedBuffer(buffers, dataSize, Optional.empty());
+    }
+
+    private PartitionedOutputBuffer createPartitionedBuffer(OutputBuffers buffers, DataSize dataSize, Optional<DirectPageBufferPool> directPageBufferPool)
     {
         PartitionedOutputBuffer buffer = new PartitionedOutputBuffer(
                 TASK_INSTANCE_ID,
@@ -845,7 +890,8 @@ public class TestPartitionedOutputBuffer
                 buffers,
                 dataSize,
                 () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
-                stateNotificationExecutor);
+                stateNotificationExecutor,
+                directPageBufferPool);
         buffer.registerLifespanCompletionCallback(ignore -> {});
         return buffer;
     }
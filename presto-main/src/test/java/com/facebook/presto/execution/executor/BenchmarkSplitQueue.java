@@ -0,0 +1,283 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.presto.execution.SplitRunner;
+import com.facebook.presto.execution.TaskId;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.lang.Math.min;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures how many split quanta the runner threads of a split queue can schedule, for many
+ * short splits. The quanta do little work, so the throughput is bound by the queue.
+ * <p>
+ * Each quanta charges 10ms of scheduled time to its task, so the tasks move through the first
+ * levels of the queue. The fairness of each run is the Jain index of the quanta run by each task
+ * in the first half of the run, which is 1 when all tasks run the same number of quanta. The average
+ * and the minimum fairness of the runs of an iteration are reported as secondary results.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@BenchmarkMode(Mode.Throughput)
+public class BenchmarkSplitQueue
+{
+    private static final int TASKS = 50;
+    private static final int SPLITS_PER_TASK = 20;
+    private static final int QUANTA_PER_SPLIT = 50;
+    private static final int TOTAL_QUANTA = TASKS * SPLITS_PER_TASK * QUANTA_PER_SPLIT;
+    private static final long QUANTA_SCHEDULED_NANOS = MILLISECONDS.toNanos(10);
+    private static final int QUANTA_WORK_TOKENS = 100;
+
+    @Benchmark
+    @OperationsPerInvocation(TOTAL_QUANTA)
+    public void scheduleSplits(BenchmarkData data, FairnessCounters counters)
+            throws Exception
+    {
+        counters.add(data.run());
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class FairnessCounters
+    {
+        private double fairnessSum;
+        private double minFairness;
+        private int runs;
+
+        @Setup(Level.Iteration)
+        public void reset()
+        {
+            fairnessSum = 0;
+            minFairness = 1;
+            runs = 0;
+        }
+
+        public void add(double fairness)
+        {
+            fairnessSum += fairness;
+            minFairness = min(minFairness, fairness);
+            runs++;
+        }
+
+        public double fairness()
+        {
+            return runs == 0 ? 0 : fairnessSum / runs;
+        }
+
+        public double minFairness()
+        {
+            return runs == 0 ? 0 : minFairness;
+        }
+    }
+
+    @SuppressWarnings("FieldMayBeFinal")
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"multilevel", "work_stealing"})
+        private String queueType = "multilevel";
+
+        @Param({"1", "4", "16", "64"})
+        private int runnerThreads = 4;
+
+        private ExecutorService executor;
+
+        private MultilevelSplitQueue queue;
+        private Map<TaskHandle, Integer> taskIndexes;
+        private Map<PrioritizedSplitRunner, AtomicInteger> remainingQuanta;
+
+        @Setup
+        public void setup()
+        {
+            executor = newFixedThreadPool(runnerThreads, daemonThreadsNamed("runner-%s"));
+        }
+
+        @Setup(Level.Invocation)
+        public void createSplits()
+        {
+            queue = queueType.equals("work_stealing") ? new WorkStealingSplitQueue(2) : new MultilevelSplitQueue(2);
+
+            ImmutableMap.Builder<TaskHandle, Integer> taskIndexes = ImmutableMap.builder();
+            ImmutableMap.Builder<PrioritizedSplitRunner, AtomicInteger> remainingQuanta = ImmutableMap.builder();
+            List<PrioritizedSplitRunner> splits = new ArrayList<>();
+            for (int task = 0; task < TASKS; task++) {
+                TaskHandle taskHandle = new TaskHandle(new TaskId("query" + task, 0, 0), queue, () -> 0, 1, new Duration(1, SECONDS), OptionalInt.empty());
+                taskIndexes.put(taskHandle, task);
+                for (int split = 0; split < SPLITS_PER_TASK; split++) {
+                    PrioritizedSplitRunner splitRunner = new PrioritizedSplitRunner(
+                            taskHandle,
+                            new BenchmarkSplit(),
+                            Ticker.systemTicker(),
+                            new CounterStat(),
+                            new CounterStat(),
+                            new TimeStat(),
+                            new TimeStat());
+                    remainingQuanta.put(splitRunner, new AtomicInteger(QUANTA_PER_SPLIT));
+                    splits.add(splitRunner);
+                }
+            }
+            this.taskIndexes = taskIndexes.build();
+            this.remainingQuanta = remainingQuanta.build();
+            splits.forEach(queue::offer);
+        }
+
+        public double run()
+                throws InterruptedException
+        {
+            // the runners of the previous run may still be running, so they must not see the state of this run
+            MultilevelSplitQueue queue = this.queue;
+            Map<TaskHandle, Integer> taskIndexes = this.taskIndexes;
+            Map<PrioritizedSplitRunner, AtomicInteger> remainingQuanta = this.remainingQuanta;
+            AtomicInteger completedQuanta = new AtomicInteger();
+            AtomicIntegerArray taskQuanta = new AtomicIntegerArray(TASKS);
+            CountDownLatch finished = new CountDownLatch(1);
+
+            for (int thread = 0; thread < runnerThreads; thread++) {
+                executor.execute(() -> {
+                    try {
+                        while (completedQuanta.get() < TOTAL_QUANTA) {
+                            PrioritizedSplitRunner split = queue.take();
+                            Blackhole.consumeCPU(QUANTA_WORK_TOKENS);
+                            split.getTaskHandle().addScheduledNanos(QUANTA_SCHEDULED_NANOS);
+
+                            int completed = completedQuanta.incrementAndGet();
+                            if (completed <= TOTAL_QUANTA / 2) {
+                                taskQuanta.incrementAndGet(taskIndexes.get(split.getTaskHandle()));
+                            }
+                            if (remainingQuanta.get(split).decrementAndGet() > 0) {
+                                queue.offer(split);
+                            }
+                            else if (completed == TOTAL_QUANTA) {
+                                finished.countDown();
+                            }
+                        }
+                    }
+                    catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+
+            finished.await();
+            return jainIndex(taskQuanta);
+        }
+
+        @TearDown(Level.Invocation)
+        public void stopRunners()
+        {
+            // runners blocked in take are interrupted, and a new pool is used for the next run
+            executor.shutdownNow();
+            executor = newFixedThreadPool(runnerThreads, daemonThreadsNamed("runner-%s"));
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            executor.shutdownNow();
+        }
+
+        private static double jainIndex(AtomicIntegerArray values)
+        {
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (int i = 0; i < values.length(); i++) {
+                sum += values.get(i);
+                sumOfSquares += (double) values.get(i) * values.get(i);
+            }
+            return sum * sum / (values.length() * sumOfSquares);
+        }
+    }
+
+    private static class BenchmarkSplit
+            implements SplitRunner
+    {
+        @Override
+        public boolean isFinished()
+        {
+            return false;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "benchmark-split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    public static void main(String[] args)
+            throws Throwable
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkSplitQueue.class.getSimpleName() + ".*")
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -21,6 +21,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.testing.TestingTicker;
 import io.airlift.units.Duration;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
@@ -45,12 +46,18 @@ import static org.testng.Assert.assertTrue;
 
 public class TestTaskExecutor
 {
-    @Test(invocationCount = 100)
-    public void testTasksComplete()
+    @DataProvider
+    public static Object[][] workStealing()
+    {
+        return new Object[][] {{false}, {true}};
+    }
+
+    @Test(invocationCount = 100, dataProvider = "workStealing")
+    public void testTasksComplete(boolean workStealing)
             throws Exception
     {
         TestingTicker ticker = new TestingTicker();
-        TaskExecutor taskExecutor = new TaskExecutor(4, 8, 3, 4, ticker);
+        TaskExecutor taskExecutor = new TaskExecutor(4, 8, 3, 4, createSplitQueue(workStealing), ticker);
         taskExecutor.start();
         ticker.increment(20, MILLISECONDS);
 
@@ -212,12 +219,12 @@ public class TestTaskExecutor
         }
     }
 
-    @Test(invocationCount = 100)
-    public void testLevelMultipliers()
+    @Test(invocationCount = 100, dataProvider = "workStealing")
+    public void testLevelMultipliers(boolean workStealing)
             throws Exception
     {
         TestingTicker ticker = new TestingTicker();
-        TaskExecutor taskExecutor = new TaskExecutor(1, 3, 3, 4, new MultilevelSplitQueue(2), ticker);
+        TaskExecutor taskExecutor = new TaskExecutor(1, 3, 3, 4, createSplitQueue(workStealing), ticker);
         taskExecutor.start();
         ticker.increment(20, MILLISECONDS);
 
@@ -475,6 +482,14 @@ public class TestTaskExecutor
         }
     }
 
+    private static MultilevelSplitQueue createSplitQueue(boolean workStealing)
+    {
+        if (workStealing) {
+            return new WorkStealingSplitQueue(2);
+        }
+        return new MultilevelSplitQueue(2);
+    }
+
     private static class TestingJob
             implements SplitRunner
     {
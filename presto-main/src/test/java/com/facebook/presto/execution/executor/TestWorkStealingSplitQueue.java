@@ -0,0 +1,224 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution.executor;
+
+import com.facebook.presto.execution.SplitRunner;
+import com.facebook.presto.execution.TaskId;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.stats.CounterStat;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class TestWorkStealingSplitQueue
+{
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testSameOrderAsMultilevelSplitQueue()
+            throws Exception
+    {
+        // when all splits are in the queue of one runner thread, they are selected in the same order as from the shared queue
+        assertEquals(runSplits(new WorkStealingSplitQueue(2)), runSplits(new MultilevelSplitQueue(2)));
+    }
+
+    private static List<String> runSplits(MultilevelSplitQueue queue)
+            throws InterruptedException
+    {
+        // take a split first, so that this thread is a runner thread of the queue
+        queue.offer(createSplit(createTaskHandle(queue, "first")));
+        queue.take();
+
+        // the tasks have very different quanta, so they move through the levels at different speeds
+        long[] quantaMillis = {10, 100, 1000, 5000};
+        for (int task = 0; task < quantaMillis.length; task++) {
+            TaskHandle taskHandle = createTaskHandle(queue, "task" + task);
+            for (int split = 0; split < 2; split++) {
+                queue.offer(createSplit(taskHandle));
+            }
+        }
+
+        List<String> selectedTasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            PrioritizedSplitRunner split = queue.take();
+            String taskId = split.getTaskHandle().getTaskId().getQueryId().getId();
+            selectedTasks.add(taskId);
+            split.getTaskHandle().addScheduledNanos(MILLISECONDS.toNanos(quantaMillis[taskId.charAt(4) - '0']));
+            queue.offer(split);
+        }
+        return selectedTasks;
+    }
+
+    @Test
+    public void testLocalQueue()
+            throws Exception
+    {
+        WorkStealingSplitQueue queue = new WorkStealingSplitQueue(2);
+        TaskHandle taskHandle = createTaskHandle(queue, "test");
+        PrioritizedSplitRunner split = createSplit(taskHandle);
+        queue.offer(split);
+
+        // the first take moves the split from the queue of the other threads
+        assertSame(queue.take(), split);
+        assertEquals(queue.getStolenSplits(), 1);
+
+        // splits returned by a runner thread stay in its queue
+        queue.offer(split);
+        assertEquals(queue.getRunnerQueueSize(), 1);
+        assertEquals(queue.size(), 1);
+        assertSame(queue.take(), split);
+        assertEquals(queue.getLocalSplits(), 1);
+        assertEquals(queue.getStolenSplits(), 1);
+        assertEquals(queue.size(), 0);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testSteal()
+            throws Exception
+    {
+        WorkStealingSplitQueue queue = new WorkStealingSplitQueue(2);
+        TaskHandle taskHandle = createTaskHandle(queue, "test");
+        queue.offer(createSplit(taskHandle));
+
+        // another runner thread takes the split and adds more splits to its own queue
+        List<PrioritizedSplitRunner> splits = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            splits.add(createSplit(taskHandle));
+        }
+        executor.submit(() -> {
+            queue.take();
+            splits.forEach(queue::offer);
+            return null;
+        }).get(10, SECONDS);
+        assertEquals(queue.getLocalQueues(), 2);
+        assertEquals(queue.size(), 10);
+
+        // this thread steals all of them
+        for (int i = 0; i < splits.size(); i++) {
+            queue.take();
+        }
+        assertEquals(queue.getStolenSplits(), 11);
+        assertEquals(queue.getLocalSplits(), 0);
+        assertEquals(queue.size(), 0);
+    }
+
+    @Test(timeOut = 30_000)
+    public void testTakeWaitsForSplits()
+            throws Exception
+    {
+        WorkStealingSplitQueue queue = new WorkStealingSplitQueue(2);
+        TaskHandle taskHandle = createTaskHandle(queue, "test");
+
+        Future<PrioritizedSplitRunner> firstTake = executor.submit(queue::take);
+        Future<PrioritizedSplitRunner> secondTake = executor.submit(queue::take);
+        PrioritizedSplitRunner firstSplit = createSplit(taskHandle);
+        PrioritizedSplitRunner secondSplit = createSplit(taskHandle);
+        queue.offer(firstSplit);
+        queue.offer(secondSplit);
+
+        assertEquals(ImmutableSet.of(firstTake.get(10, SECONDS), secondTake.get(10, SECONDS)), ImmutableSet.of(firstSplit, secondSplit));
+        assertEquals(queue.size(), 0);
+    }
+
+    @Test
+    public void testRemove()
+            throws Exception
+    {
+        WorkStealingSplitQueue queue = new WorkStealingSplitQueue(2);
+        TaskHandle taskHandle = createTaskHandle(queue, "test");
+        PrioritizedSplitRunner first = createSplit(taskHandle);
+        PrioritizedSplitRunner second = createSplit(taskHandle);
+        PrioritizedSplitRunner third = createSplit(taskHandle);
+        queue.offer(first);
+        queue.offer(second);
+        queue.offer(third);
+        assertEquals(queue.size(), 3);
+
+        queue.remove(second);
+        queue.remove(second);
+        assertEquals(queue.size(), 2);
+        queue.removeAll(ImmutableList.of(first, second));
+        assertEquals(queue.size(), 1);
+        assertSame(queue.take(), third);
+        assertEquals(queue.size(), 0);
+    }
+
+    private static TaskHandle createTaskHandle(MultilevelSplitQueue queue, String queryId)
+    {
+        return new TaskHandle(new TaskId(queryId, 0, 0), queue, () -> 0, 1, new Duration(1, SECONDS), OptionalInt.empty());
+    }
+
+    private static PrioritizedSplitRunner createSplit(TaskHandle taskHandle)
+    {
+        return new PrioritizedSplitRunner(
+                taskHandle,
+                new TestingSplitRunner(),
+                Ticker.systemTicker(),
+                new CounterStat(),
+                new CounterStat(),
+                new TimeStat(),
+                new TimeStat());
+    }
+
+    private static class TestingSplitRunner
+            implements SplitRunner
+    {
+        @Override
+        public boolean isFinished()
+        {
+            return false;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "testing split";
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
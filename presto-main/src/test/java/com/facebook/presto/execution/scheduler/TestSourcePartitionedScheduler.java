@@ -74,6 +74,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
 import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.execution.scheduler.ScheduleResult.BlockedReason.SPLIT_REASSIGNMENT;
 import static com.facebook.presto.execution.scheduler.SourcePartitionedScheduler.newSourcePartitionedSchedulerAsStageScheduler;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
@@ -412,6 +413,63 @@ public class TestSourcePartitionedScheduler
         secondStage.abort();
     }
 
+    @Test
+    public void testReassignStragglerSplits()
+    {
+        NodeTaskMap nodeTaskMap = new NodeTaskMap(finalizerService);
+
+        // Schedule 15 splits - there are 3 nodes, each node should get 5 splits
+        SubPlan plan = createPlan();
+        SqlStageExecution stage = createSqlStageExecution(plan, nodeTaskMap);
+        StageScheduler scheduler = new SplitReassigningScheduler(
+                stage,
+                TABLE_SCAN_NODE_ID,
+                getSourcePartitionedScheduler(createFixedSplitSource(15, TestingSplit::createRemoteSplit), stage, nodeManager, nodeTaskMap, 200),
+                scheduledExecutor);
+
+        ScheduleResult scheduleResult = scheduler.schedule();
+        assertEquals(scheduleResult.getNewTasks().size(), 3);
+        assertEquals(scheduleResult.getSplitsScheduled(), 15);
+        assertPartitionedSplitCount(stage, 15);
+
+        // scheduling does not finish while the tasks have queued splits
+        scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getBlockedReason(), Optional.of(SPLIT_REASSIGNMENT));
+        assertEquals(scheduleResult.getSplitsScheduled(), 0);
+
+        // two tasks finish their splits, and the splits of the third task are moved to them
+        List<RemoteTask> tasks = stage.getAllTasks();
+        ((MockRemoteTask) tasks.get(0)).clearSplits();
+        ((MockRemoteTask) tasks.get(1)).clearSplits();
+        scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getSplitsScheduled(), 0);
+
+        scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getNewTasks().size(), 0);
+        assertEquals(scheduleResult.getSplitsScheduled(), 5);
+        assertEquals(tasks.get(0).getPartitionedSplitCount(), 3);
+        assertEquals(tasks.get(1).getPartitionedSplitCount(), 2);
+        assertEquals(tasks.get(2).getPartitionedSplitCount(), 0);
+
+        // the tasks that received splits are not stragglers, even though they are now behind
+        scheduleResult = scheduler.schedule();
+        assertFalse(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getSplitsScheduled(), 0);
+        assertPartitionedSplitCount(stage, 5);
+
+        // scheduling finishes once no splits are queued
+        ((MockRemoteTask) tasks.get(0)).clearSplits();
+        ((MockRemoteTask) tasks.get(1)).clearSplits();
+        scheduleResult = scheduler.schedule();
+        assertTrue(scheduleResult.isFinished());
+        assertEquals(scheduleResult.getSplitsScheduled(), 0);
+
+        stage.abort();
+    }
+
     private static void assertPartitionedSplitCount(SqlStageExecution stage, int expectedPartitionedSplitCount)
     {
         assertEquals(stage.getAllTasks().stream().mapToInt(RemoteTask::getPartitionedSplitCount).sum(), expectedPartitionedSplitCount);
@@ -17,9 +17,12 @@ import com.facebook.presto.Session;
 import com.facebook.presto.spi.CatalogSchemaName;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.ConnectorJoinCondition;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.TableHandle;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -139,6 +142,36 @@ public abstract class AbstractMockMetadata
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<PushdownAggregationResult> pushdownAggregation(Session session, TableHandle tableHandle, List<ColumnHandle> groupingColumns, List<ConnectorAggregateFunction> aggregates)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<PushdownLimitResult> pushdownLimit(Session session, TableHandle tableHandle, long limit)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<PushdownLimitResult> pushdownTopN(Session session, TableHandle tableHandle, long count, List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<PushdownJoinResult> pushdownJoin(
+            Session session,
+            TableHandle leftTableHandle,
+            TableHandle rightTableHandle,
+            List<ConnectorJoinCondition> conditions,
+            List<ColumnHandle> leftColumns,
+            List<ColumnHandle> rightColumns)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public Optional<PartitioningHandle> getCommonPartitioning(Session session, PartitioningHandle left, PartitioningHandle right)
     {
@@ -163,6 +196,12 @@ public abstract class AbstractMockMetadata
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public Optional<String> getDataVersion(Session session, TableHandle handle)
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public TableMetadata getTableMetadata(Session session, TableHandle tableHandle)
     {
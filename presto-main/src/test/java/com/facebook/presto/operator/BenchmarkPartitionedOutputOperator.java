@@ -23,7 +23,9 @@ import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputF
 import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.plan.PlanNodeId;
 import com.facebook.presto.spi.type.RowType;
 import com.facebook.presto.spi.type.Type;
@@ -37,7 +39,9 @@ import org.openjdk.jmh.annotations.Fork;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Mode;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.runner.Runner;
@@ -97,11 +101,29 @@ public class BenchmarkPartitionedOutputOperator
         private static final int ENTRIES_PER_PAGE = 256;
         private static final DataSize MAX_MEMORY = new DataSize(1, GIGABYTE);
         private static final RowType rowType = RowType.anonymous(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR));
-        private static final List<Type> TYPES = ImmutableList.of(BIGINT, rowType, rowType, rowType);
+        private static final List<Type> ROW_TYPES = ImmutableList.of(BIGINT, rowType, rowType, rowType);
+        private static final List<Type> VARCHAR_TYPES = ImmutableList.of(BIGINT, VARCHAR, VARCHAR, VARCHAR);
         private static final ExecutorService EXECUTOR = newCachedThreadPool(daemonThreadsNamed("test-EXECUTOR-%s"));
         private static final ScheduledExecutorService SCHEDULER = newScheduledThreadPool(1, daemonThreadsNamed("test-%s"));
 
-        private final Page dataPage = createPage();
+        @Param({"ROW", "VARCHAR"})
+        private String valueType = "ROW";
+
+        @Param({"false", "true"})
+        private boolean optimizedRepartitioning;
+
+        @Param({"false", "true"})
+        private boolean dictionaryEncoded;
+
+        private List<Type> types;
+        private Page dataPage;
+
+        @Setup
+        public void setup()
+        {
+            types = valueType.equals("ROW") ? ROW_TYPES : VARCHAR_TYPES;
+            dataPage = createPage();
+        }
 
         private int getPageCount()
         {
@@ -132,28 +154,50 @@ public class BenchmarkPartitionedOutputOperator
                     false,
                     OptionalInt.empty(),
                     buffer,
-                    new DataSize(1, GIGABYTE));
+                    new DataSize(1, GIGABYTE),
+                    optimizedRepartitioning);
             return (PartitionedOutputOperator) operatorFactory
-                    .createOutputOperator(0, new PlanNodeId("plan-node-0"), TYPES, Function.identity(), serdeFactory)
+                    .createOutputOperator(0, new PlanNodeId("plan-node-0"), types, Function.identity(), serdeFactory)
                     .createOperator(createDriverContext());
         }
 
         private Page createPage()
         {
             List<Object>[] testRows = generateTestRows(ImmutableList.of(VARCHAR, VARCHAR, VARCHAR, VARCHAR), ENTRIES_PER_PAGE);
-            PageBuilder pageBuilder = new PageBuilder(TYPES);
+            PageBuilder pageBuilder = new PageBuilder(types);
             BlockBuilder bigintBlockBuilder = pageBuilder.getBlockBuilder(0);
             BlockBuilder rowBlockBuilder = pageBuilder.getBlockBuilder(1);
             BlockBuilder rowBlockBuilder2 = pageBuilder.getBlockBuilder(2);
             BlockBuilder rowBlockBuilder3 = pageBuilder.getBlockBuilder(3);
             for (int i = 0; i < ENTRIES_PER_PAGE; i++) {
                 BIGINT.writeLong(bigintBlockBuilder, i);
-                writeRow(testRows[i], rowBlockBuilder);
-                writeRow(testRows[i], rowBlockBuilder2);
-                writeRow(testRows[i], rowBlockBuilder3);
+                if (types == ROW_TYPES) {
+                    writeRow(testRows[i], rowBlockBuilder);
+                    writeRow(testRows[i], rowBlockBuilder2);
+                    writeRow(testRows[i], rowBlockBuilder3);
+                }
+                else {
+                    VARCHAR.writeSlice(rowBlockBuilder, utf8Slice((String) testRows[i].get(0)));
+                    VARCHAR.writeSlice(rowBlockBuilder2, utf8Slice((String) testRows[i].get(1)));
+                    VARCHAR.writeSlice(rowBlockBuilder3, utf8Slice((String) testRows[i].get(2)));
+                }
             }
             pageBuilder.declarePositions(ENTRIES_PER_PAGE);
-            return pageBuilder.build();
+            Page page = pageBuilder.build();
+            if (!dictionaryEncoded) {
+                return page;
+            }
+
+            // the rows reference every other value of the page
+            int[] ids = new int[ENTRIES_PER_PAGE];
+            for (int i = 0; i < ENTRIES_PER_PAGE; i++) {
+                ids[i] = (i * 2) % ENTRIES_PER_PAGE;
+            }
+            Block[] blocks = new Block[page.getChannelCount()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = new DictionaryBlock(page.getBlock(channel), ids);
+            }
+            return new Page(ENTRIES_PER_PAGE, blocks);
         }
 
         private void writeRow(List<Object> testRow, BlockBuilder rowBlockBuilder)
@@ -217,6 +261,7 @@ public class BenchmarkPartitionedOutputOperator
     {
         // assure the benchmarks are valid before running
         BenchmarkData data = new BenchmarkData();
+        data.setup();
         new BenchmarkPartitionedOutputOperator().addPage(data);
         Options options = new OptionsBuilder()
                 .verbosity(VerboseMode.NORMAL)
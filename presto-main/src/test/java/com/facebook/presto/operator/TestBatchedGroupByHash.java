@@ -0,0 +1,273 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.gen.JoinCompiler;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.metadata.MetadataManager.createTestMetadataManager;
+import static com.facebook.presto.operator.UpdateMemory.NOOP;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.type.TypeUtils.getHashBlock;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBatchedGroupByHash
+{
+    private static final List<Type> TYPES = ImmutableList.of(VARCHAR, BIGINT, DOUBLE);
+    private static final int[] CHANNELS = {0, 1, 2};
+
+    @DataProvider
+    public Object[][] hashEnabledAndGroupByUsesEqualTo()
+    {
+        return new Object[][] {{true, true}, {true, false}, {false, true}, {false, false}};
+    }
+
+    @Test(dataProvider = "hashEnabledAndGroupByUsesEqualTo")
+    public void testSameGroupsAsMultiChannelGroupByHash(boolean hashEnabled, boolean groupByUsesEqualTo)
+    {
+        JoinCompiler joinCompiler = new JoinCompiler(createTestMetadataManager(), new FeaturesConfig().setGroupByUsesEqualTo(groupByUsesEqualTo));
+        Optional<Integer> hashChannel = hashEnabled ? Optional.of(CHANNELS.length) : Optional.empty();
+        GroupByHash batchedGroupByHash = new BatchedGroupByHash(TYPES, CHANNELS, hashChannel, 10, joinCompiler, NOOP);
+        GroupByHash expectedGroupByHash = new MultiChannelGroupByHash(TYPES, CHANNELS, hashChannel, 10, false, joinCompiler, NOOP);
+
+        // the pages span several batches, repeat keys within and across batches and force a few rehashes
+        Random random = new Random(42);
+        Map<Long, Long> expectedGroupIds = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            Page page = createPage(random, 3000, hashEnabled);
+            assertSameGroupIds(getGroupIds(batchedGroupByHash, page), getGroupIds(expectedGroupByHash, page), expectedGroupIds);
+        }
+        assertEquals(batchedGroupByHash.getGroupCount(), expectedGroupByHash.getGroupCount());
+
+        // the values and hashes of the groups are the same
+        for (Map.Entry<Long, Long> entry : expectedGroupIds.entrySet()) {
+            int groupId = entry.getKey().intValue();
+            int expectedGroupId = entry.getValue().intValue();
+            assertEquals(getValues(batchedGroupByHash, groupId), getValues(expectedGroupByHash, expectedGroupId));
+            assertEquals(batchedGroupByHash.getRawHash(groupId), expectedGroupByHash.getRawHash(expectedGroupId));
+        }
+    }
+
+    @Test
+    public void testAddPage()
+    {
+        JoinCompiler joinCompiler = new JoinCompiler(createTestMetadataManager(), new FeaturesConfig());
+        GroupByHash groupByHash = new BatchedGroupByHash(TYPES, CHANNELS, Optional.empty(), 10, joinCompiler, NOOP);
+
+        Page page = createPage(new Random(0), 5000, false);
+        assertTrue(groupByHash.addPage(page).process());
+        int groupCount = groupByHash.getGroupCount();
+
+        // adding the same rows again does not add groups
+        assertTrue(groupByHash.addPage(page).process());
+        assertEquals(groupByHash.getGroupCount(), groupCount);
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertTrue(groupByHash.contains(position, page, CHANNELS));
+        }
+
+        Page otherPage = new Page(createStringsBlock("not a value"), createLongsBlock(1L), createLongsBlock(1L));
+        assertFalse(groupByHash.contains(0, otherPage, CHANNELS));
+    }
+
+    @Test
+    public void testRunLengthEncodedPage()
+    {
+        JoinCompiler joinCompiler = new JoinCompiler(createTestMetadataManager(), new FeaturesConfig());
+        GroupByHash groupByHash = new BatchedGroupByHash(ImmutableList.of(VARCHAR, BIGINT), new int[] {0, 1}, Optional.empty(), 10, joinCompiler, NOOP);
+
+        Page page = new Page(
+                new RunLengthEncodedBlock(createStringsBlock("value"), 100),
+                new RunLengthEncodedBlock(createLongsBlock(1L), 100));
+        GroupByIdBlock groupIds = getGroupIds(groupByHash, page);
+        assertEquals(groupIds.getGroupCount(), 1);
+        assertEquals(groupIds.getPositionCount(), 100);
+        assertEquals(groupIds.getGroupId(99), 0);
+
+        assertTrue(groupByHash.addPage(page).process());
+        assertEquals(groupByHash.getGroupCount(), 1);
+    }
+
+    @Test
+    public void testRehashOnlyWhenFull()
+    {
+        JoinCompiler joinCompiler = new JoinCompiler(createTestMetadataManager(), new FeaturesConfig());
+        GroupByHash groupByHash = new BatchedGroupByHash(ImmutableList.of(BIGINT), new int[] {0}, Optional.empty(), 100, joinCompiler, NOOP);
+        int capacity = groupByHash.getCapacity();
+        int maxFill = (int) Math.ceil(capacity * 0.75);
+
+        // fill the hash up to its maximum fill
+        assertTrue(groupByHash.addPage(new Page(createLongSequenceBlock(0, maxFill))).process());
+        assertEquals(groupByHash.getGroupCount(), maxFill);
+        assertEquals(groupByHash.getCapacity(), capacity);
+
+        // batches of existing groups do not rehash the full hash
+        List<Long> existingValues = LongStream.range(0, 3000)
+                .map(value -> value % maxFill)
+                .boxed()
+                .collect(toImmutableList());
+        GroupByIdBlock groupIds = getGroupIds(groupByHash, new Page(createLongsBlock(existingValues)));
+        for (int position = 0; position < existingValues.size(); position++) {
+            assertEquals(groupIds.getGroupId(position), (long) existingValues.get(position));
+        }
+        assertEquals(groupByHash.getGroupCount(), maxFill);
+        assertEquals(groupByHash.getCapacity(), capacity);
+
+        // existing groups followed by a new group process the existing groups before rehashing
+        Page page = new Page(createLongSequenceBlock(maxFill - 10, maxFill + 1));
+        groupIds = getGroupIds(groupByHash, page);
+        assertEquals(groupIds.getGroupId(page.getPositionCount() - 1), maxFill);
+        assertEquals(groupByHash.getGroupCount(), maxFill + 1);
+        assertEquals(groupByHash.getCapacity(), capacity * 2);
+    }
+
+    @Test
+    public void testMemoryReservationYield()
+    {
+        int length = 100_000;
+        Block valuesBlock = createStringSequenceBlock(0, length);
+        Block hashBlock = getHashBlock(ImmutableList.of(VARCHAR), valuesBlock);
+        Page page = new Page(valuesBlock, hashBlock);
+        AtomicInteger currentQuota = new AtomicInteger(0);
+        AtomicInteger allowedQuota = new AtomicInteger(3);
+        UpdateMemory updateMemory = () -> {
+            if (currentQuota.get() < allowedQuota.get()) {
+                currentQuota.getAndIncrement();
+                return true;
+            }
+            return false;
+        };
+        int yields = 0;
+
+        JoinCompiler joinCompiler = new JoinCompiler(createTestMetadataManager(), new FeaturesConfig());
+        GroupByHash groupByHash = new BatchedGroupByHash(ImmutableList.of(VARCHAR), new int[] {0}, Optional.of(1), 1, joinCompiler, updateMemory);
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        boolean finish = false;
+        while (!finish) {
+            finish = work.process();
+            if (!finish) {
+                assertEquals(currentQuota.get(), allowedQuota.get());
+                // assert if we are blocked, we are going to be blocked again without changing allowedQuota
+                assertFalse(work.process());
+                assertEquals(currentQuota.get(), allowedQuota.get());
+                yields++;
+                allowedQuota.getAndAdd(3);
+            }
+        }
+        assertTrue(yields > 0);
+
+        GroupByIdBlock groupIds = work.getResult();
+        assertEquals(groupIds.getGroupCount(), length);
+        assertEquals(groupByHash.getGroupCount(), length);
+        assertEquals(new HashSet<>(getGroupIdList(groupIds)).size(), length);
+    }
+
+    private static Page createPage(Random random, int positionCount, boolean hashEnabled)
+    {
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        for (int position = 0; position < positionCount; position++) {
+            pageBuilder.declarePosition();
+            // few distinct values per column, so that most keys repeat
+            if (random.nextInt(20) == 0) {
+                pageBuilder.getBlockBuilder(0).appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(pageBuilder.getBlockBuilder(0), utf8Slice("value" + random.nextInt(100)));
+            }
+            if (random.nextInt(20) == 0) {
+                pageBuilder.getBlockBuilder(1).appendNull();
+            }
+            else {
+                BIGINT.writeLong(pageBuilder.getBlockBuilder(1), random.nextInt(10));
+            }
+            DOUBLE.writeDouble(pageBuilder.getBlockBuilder(2), random.nextInt(3));
+        }
+        Page page = pageBuilder.build();
+        if (!hashEnabled) {
+            return page;
+        }
+        return page.appendColumn(getHashBlock(TYPES, page.getBlock(0), page.getBlock(1), page.getBlock(2)));
+    }
+
+    private static GroupByIdBlock getGroupIds(GroupByHash groupByHash, Page page)
+    {
+        Work<GroupByIdBlock> work = groupByHash.getGroupIds(page);
+        assertTrue(work.process());
+        return work.getResult();
+    }
+
+    private static void assertSameGroupIds(GroupByIdBlock actual, GroupByIdBlock expected, Map<Long, Long> expectedGroupIds)
+    {
+        assertEquals(actual.getGroupCount(), expected.getGroupCount());
+        assertEquals(actual.getPositionCount(), expected.getPositionCount());
+        for (int position = 0; position < actual.getPositionCount(); position++) {
+            Long expectedGroupId = expectedGroupIds.putIfAbsent(actual.getGroupId(position), expected.getGroupId(position));
+            if (expectedGroupId != null) {
+                assertEquals(expectedGroupId.longValue(), expected.getGroupId(position));
+            }
+        }
+        // no two groups map to the same expected group
+        assertEquals(new HashSet<>(expectedGroupIds.values()).size(), expectedGroupIds.size());
+    }
+
+    private static List<Object> getValues(GroupByHash groupByHash, int groupId)
+    {
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        pageBuilder.declarePosition();
+        groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+        Page page = pageBuilder.build();
+
+        ImmutableList.Builder<Object> values = ImmutableList.builder();
+        for (int channel = 0; channel < TYPES.size(); channel++) {
+            Object value = TYPES.get(channel).getObjectValue(null, page.getBlock(channel), 0);
+            values.add(value == null ? "null" : value);
+        }
+        return values.build();
+    }
+
+    private static List<Long> getGroupIdList(GroupByIdBlock groupIds)
+    {
+        ImmutableList.Builder<Long> list = ImmutableList.builder();
+        for (int position = 0; position < groupIds.getPositionCount(); position++) {
+            list.add(groupIds.getGroupId(position));
+        }
+        return list.build();
+    }
+}
@@ -27,6 +27,7 @@ import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.testing.MaterializedResult;
@@ -179,7 +180,8 @@ public class TestDriver
                                 .build());
                     }
                 },
-                ImmutableList.of());
+                ImmutableList.of(),
+                TupleDomain::all);
 
         PageConsumerOperator sink = createSinkOperator(types);
         Driver driver = Driver.createDriver(driverContext, source, sink);
@@ -484,7 +486,7 @@ public class TestDriver
                 PageSourceProvider pageSourceProvider,
                 Iterable<ColumnHandle> columns)
         {
-            super(operatorContext, planNodeId, pageSourceProvider, columns);
+            super(operatorContext, planNodeId, pageSourceProvider, columns, TupleDomain::all);
         }
 
         @Override
@@ -508,7 +510,7 @@ public class TestDriver
                 PageSourceProvider pageSourceProvider,
                 Iterable<ColumnHandle> columns)
         {
-            super(operatorContext, planNodeId, pageSourceProvider, columns);
+            super(operatorContext, planNodeId, pageSourceProvider, columns, TupleDomain::all);
         }
 
         @Override
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.operator.LocalDynamicFilter.Collector;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.testing.TestingMetadata.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalDynamicFilter
+{
+    private static final ColumnHandle PROBE_COLUMN = new TestingColumnHandle("probe");
+
+    @Test
+    public void testDistinctValues()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(BIGINT), 2, 10);
+
+        Collector first = filter.createCollector(ImmutableList.of(0));
+        first.addPage(new Page(createLongsBlock(1L, 2L, null)));
+        first.finish();
+        assertFalse(filter.isComplete());
+        assertEquals(filter.getCurrentPredicate(), TupleDomain.all());
+
+        Collector second = filter.createCollector(ImmutableList.of(0));
+        second.addPage(new Page(createLongsBlock(2L, 5L)));
+        second.finish();
+        assertTrue(filter.isComplete());
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.multipleValues(BIGINT, ImmutableList.of(1L, 2L, 5L)))));
+    }
+
+    @Test
+    public void testRangeAfterTooManyValues()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(BIGINT), 1, 2);
+
+        Collector collector = filter.createCollector(ImmutableList.of(0));
+        collector.addPage(new Page(createLongsBlock(7L, 3L, 5L)));
+        collector.addPage(new Page(createLongsBlock(10L, 4L)));
+        collector.finish();
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 3L, true, 10L, true)), false))));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(BIGINT), 1, 10);
+
+        Collector collector = filter.createCollector(ImmutableList.of(0));
+        collector.addPage(new Page(createLongsBlock((Long) null)));
+        collector.finish();
+        assertTrue(filter.getCurrentPredicate().isNone());
+    }
+
+    @Test
+    public void testNaN()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(0, PROBE_COLUMN), ImmutableList.of(DOUBLE), 1, 10);
+
+        Collector collector = filter.createCollector(ImmutableList.of(0));
+        collector.addPage(new Page(createDoublesBlock(1.0, Double.NaN)));
+        collector.finish();
+        assertEquals(filter.getCurrentPredicate(), TupleDomain.all());
+    }
+
+    @Test
+    public void testKeysWithoutProbeColumn()
+    {
+        LocalDynamicFilter filter = new LocalDynamicFilter(ImmutableMap.of(1, PROBE_COLUMN), ImmutableList.of(BIGINT, VARCHAR), 1, 10);
+
+        Collector collector = filter.createCollector(ImmutableList.of(1, 0));
+        collector.addPage(new Page(createStringsBlock("a", "b"), createLongsBlock(1L, 2L)));
+        collector.finish();
+        assertEquals(
+                filter.getCurrentPredicate(),
+                TupleDomain.withColumnDomains(ImmutableMap.of(PROBE_COLUMN, Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("a"), utf8Slice("b"))))));
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputInfo;
 import com.facebook.presto.spi.plan.PlanNodeId;
+import com.google.common.collect.ImmutableMap;
 import io.airlift.json.JsonCodec;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -30,7 +31,7 @@ import static org.testng.Assert.assertNull;
 public class TestOperatorStats
 {
     private static final SplitOperatorInfo NON_MERGEABLE_INFO = new SplitOperatorInfo("some_info");
-    private static final PartitionedOutputInfo MERGEABLE_INFO = new PartitionedOutputInfo(1, 2, 1024);
+    private static final PartitionedOutputInfo MERGEABLE_INFO = new PartitionedOutputInfo(1, 2, 1024, ImmutableMap.of());
 
     public static final OperatorStats EXPECTED = new OperatorStats(
             0,
@@ -70,6 +71,8 @@ public class TestOperatorStats
             new DataSize(23, BYTE),
             new DataSize(24, BYTE),
             new DataSize(25, BYTE),
+            26,
+            new DataSize(27, BYTE),
             Optional.empty(),
             NON_MERGEABLE_INFO);
 
@@ -111,6 +114,8 @@ public class TestOperatorStats
             new DataSize(23, BYTE),
             new DataSize(24, BYTE),
             new DataSize(25, BYTE),
+            26,
+            new DataSize(27, BYTE),
             Optional.empty(),
             MERGEABLE_INFO);
 
@@ -161,6 +166,8 @@ public class TestOperatorStats
         assertEquals(actual.getPeakSystemMemoryReservation(), new DataSize(23, BYTE));
         assertEquals(actual.getPeakTotalMemoryReservation(), new DataSize(24, BYTE));
         assertEquals(actual.getSpilledDataSize(), new DataSize(25, BYTE));
+        assertEquals(actual.getDynamicFilterPrunedPositions(), 26);
+        assertEquals(actual.getDynamicFilterPrunedDataSize(), new DataSize(27, BYTE));
         assertEquals(actual.getInfo().getClass(), SplitOperatorInfo.class);
         assertEquals(((SplitOperatorInfo) actual.getInfo()).getSplitInfo(), NON_MERGEABLE_INFO.getSplitInfo());
     }
@@ -203,6 +210,8 @@ public class TestOperatorStats
         assertEquals(actual.getPeakSystemMemoryReservation(), new DataSize(23, BYTE));
         assertEquals(actual.getPeakTotalMemoryReservation(), new DataSize(24, BYTE));
         assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 25, BYTE));
+        assertEquals(actual.getDynamicFilterPrunedPositions(), 3 * 26);
+        assertEquals(actual.getDynamicFilterPrunedDataSize(), new DataSize(3 * 27, BYTE));
         assertNull(actual.getInfo());
     }
 
@@ -244,6 +253,8 @@ public class TestOperatorStats
         assertEquals(actual.getPeakSystemMemoryReservation(), new DataSize(23, BYTE));
         assertEquals(actual.getPeakTotalMemoryReservation(), new DataSize(24, BYTE));
         assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 25, BYTE));
+        assertEquals(actual.getDynamicFilterPrunedPositions(), 3 * 26);
+        assertEquals(actual.getDynamicFilterPrunedDataSize(), new DataSize(3 * 27, BYTE));
         assertEquals(actual.getInfo().getClass(), PartitionedOutputInfo.class);
         assertEquals(((PartitionedOutputInfo) actual.getInfo()).getPagesAdded(), 3 * MERGEABLE_INFO.getPagesAdded());
     }
@@ -0,0 +1,194 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.execution.StateMachine;
+import com.facebook.presto.execution.buffer.OutputBuffers;
+import com.facebook.presto.execution.buffer.OutputBuffers.OutputBufferId;
+import com.facebook.presto.execution.buffer.PagesSerde;
+import com.facebook.presto.execution.buffer.PagesSerdeFactory;
+import com.facebook.presto.execution.buffer.PartitionedOutputBuffer;
+import com.facebook.presto.execution.buffer.SerializedPage;
+import com.facebook.presto.memory.context.SimpleLocalMemoryContext;
+import com.facebook.presto.operator.PartitionedOutputOperator.PartitionedOutputFactory;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.testing.MaterializedRow;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Function;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.BlockAssertions.createBooleanSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createIntsBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.execution.buffer.BufferState.OPEN;
+import static com.facebook.presto.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static com.facebook.presto.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static com.facebook.presto.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Collections.nCopies;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+@Test(singleThreaded = true)
+public class TestPartitionedOutputOperator
+{
+    private static final int PARTITION_COUNT = 4;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, BIGINT, INTEGER, BOOLEAN);
+    private static final PagesSerde SERDE = new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false).createPagesSerde();
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testOptimizedRepartitioning()
+    {
+        List<Page> input = ImmutableList.of(
+                new Page(
+                        createLongSequenceBlock(0, 100),
+                        createStringSequenceBlock(0, 100),
+                        createLongSequenceBlock(100, 200),
+                        createIntsBlock(nCopies(100, 5)),
+                        createBooleanSequenceBlock(0, 100)),
+                new Page(
+                        new DictionaryBlock(createLongSequenceBlock(0, 10), new int[] {9, 3, 3, 0, 7, 1, 1}),
+                        new DictionaryBlock(createStringsBlock("a", "b", null), new int[] {2, 0, 1, 1, 0, 2, 2}),
+                        new RunLengthEncodedBlock(createLongsBlock(42), 7),
+                        new DictionaryBlock(createIntsBlock(1, null, 3), new int[] {0, 1, 2, 1, 0, 0, 1}),
+                        new RunLengthEncodedBlock(createBooleansBlock(true), 7)));
+
+        List<List<MaterializedRow>> expected = partition(input, false, OptionalInt.empty());
+        assertEquals(expected.stream().mapToInt(List::size).sum(), 107);
+        List<List<MaterializedRow>> actual = partition(input, true, OptionalInt.empty());
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            assertFalse(expected.get(partition).isEmpty());
+            // the rows of a partition keep the order of the input
+            assertEquals(actual.get(partition), expected.get(partition));
+        }
+    }
+
+    @Test
+    public void testOptimizedRepartitioningReplicatesNulls()
+    {
+        List<Page> input = ImmutableList.of(
+                new Page(
+                        createLongsBlock(1L, null, 2L, 3L, null, 4L),
+                        createStringsBlock("a", "b", "c", "d", "e", "f"),
+                        new RunLengthEncodedBlock(createLongsBlock(42), 6),
+                        createIntsBlock(1, 2, null, 4, 5, 6),
+                        createBooleansBlock(true, false, true, null, true, false)));
+
+        List<List<MaterializedRow>> expected = partition(input, false, OptionalInt.of(0));
+        List<List<MaterializedRow>> actual = partition(input, true, OptionalInt.of(0));
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            assertEqualsIgnoreOrder(actual.get(partition), expected.get(partition));
+        }
+        // the first row and both null rows are sent to every partition
+        assertEquals(actual.stream().mapToInt(List::size).sum(), 6 + (PARTITION_COUNT - 1) * 3);
+    }
+
+    private List<List<MaterializedRow>> partition(List<Page> input, boolean optimizedRepartitioning, OptionalInt nullChannel)
+    {
+        OutputBuffers buffers = createInitialEmptyOutputBuffers(PARTITIONED);
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            buffers = buffers.withBuffer(new OutputBufferId(partition), partition);
+        }
+        PartitionedOutputBuffer buffer = new PartitionedOutputBuffer(
+                "task-instance-id",
+                new StateMachine<>("bufferState", scheduledExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                buffers.withNoMoreBufferIds(),
+                new DataSize(Long.MAX_VALUE, BYTE),
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                scheduledExecutor);
+        buffer.registerLifespanCompletionCallback(ignore -> {});
+
+        PartitionedOutputFactory outputFactory = new PartitionedOutputFactory(
+                new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), PARTITION_COUNT),
+                ImmutableList.of(0),
+                ImmutableList.of(Optional.empty()),
+                nullChannel.isPresent(),
+                nullChannel,
+                buffer,
+                new DataSize(1, MEGABYTE),
+                optimizedRepartitioning);
+        DriverContext driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        Operator operator = outputFactory
+                .createOutputOperator(0, new PlanNodeId("test"), TYPES, Function.identity(), new PagesSerdeFactory(new BlockEncodingManager(new TypeRegistry()), false))
+                .createOperator(driverContext);
+        for (Page page : input) {
+            operator.addInput(page);
+        }
+        operator.finish();
+
+        ImmutableList.Builder<List<MaterializedRow>> partitions = ImmutableList.builder();
+        for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+            List<SerializedPage> serializedPages = getFutureValue(buffer.get(new OutputBufferId(partition), 0, new DataSize(1, MEGABYTE))).getSerializedPages();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
+            for (SerializedPage serializedPage : serializedPages) {
+                pages.add(SERDE.deserialize(serializedPage));
+            }
+            partitions.add(toMaterializedResult(TEST_SESSION, TYPES, pages.build()).getMaterializedRows());
+        }
+        return partitions.build();
+    }
+}
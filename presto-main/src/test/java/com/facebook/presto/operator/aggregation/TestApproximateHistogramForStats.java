@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.metadata.FunctionManager;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static com.facebook.presto.block.BlockAssertions.createBlockOfReals;
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.operator.aggregation.AggregationTestUtils.assertAggregation;
+import static com.facebook.presto.operator.aggregation.ApproximateHistogramForStats.BUCKET_COUNT;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.sql.analyzer.TypeSignatureProvider.fromTypes;
+
+public class TestApproximateHistogramForStats
+{
+    private static final FunctionManager functionManager = MetadataManager.createTestMetadataManager().getFunctionManager();
+
+    @Test
+    public void testNullsOnly()
+    {
+        assertAggregation(getAggregation(BIGINT), null, createLongsBlock(null, null));
+        assertAggregation(getAggregation(DOUBLE), null, createDoublesBlock(null, Double.NaN));
+    }
+
+    @Test
+    public void testSingleValue()
+    {
+        assertAggregation(getAggregation(BIGINT), Collections.nCopies(BUCKET_COUNT + 1, 7.0), createLongsBlock(null, 7L, 7L));
+        assertAggregation(getAggregation(DOUBLE), Collections.nCopies(BUCKET_COUNT + 1, -1.5), createDoublesBlock(-1.5, null, -1.5));
+        assertAggregation(getAggregation(REAL), Collections.nCopies(BUCKET_COUNT + 1, 0.25), createBlockOfReals(0.25f, null));
+    }
+
+    @Test
+    public void testEvenlySpreadValues()
+    {
+        assertAggregation(
+                getAggregation(BIGINT),
+                (actual, expected) -> boundariesWithin((List<?>) actual, (List<?>) expected, 2),
+                "evenly spread values",
+                new Page(createLongSequenceBlock(0, 1001)),
+                expectedBoundaries(0, 1000));
+    }
+
+    private static List<Double> expectedBoundaries(double low, double high)
+    {
+        ImmutableList.Builder<Double> boundaries = ImmutableList.builder();
+        for (int i = 0; i <= BUCKET_COUNT; i++) {
+            boundaries.add(low + (high - low) * i / BUCKET_COUNT);
+        }
+        return boundaries.build();
+    }
+
+    private static boolean boundariesWithin(List<?> actual, List<?> expected, double tolerance)
+    {
+        if (actual == null || actual.size() != expected.size()) {
+            return false;
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            if (Math.abs((Double) actual.get(i) - (Double) expected.get(i)) > tolerance) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static InternalAggregationFunction getAggregation(Type type)
+    {
+        return functionManager.getAggregateFunctionImplementation(functionManager.lookupFunction(ApproximateHistogramForStats.NAME, fromTypes(type)));
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation;
+
+import com.facebook.presto.spi.PrestoException;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.operator.aggregation.BloomFilter.getFalsePositiveProbability;
+import static com.facebook.presto.operator.aggregation.BloomFilter.getOptimalBitCount;
+import static com.facebook.presto.operator.aggregation.BloomFilter.getOptimalHashFunctionCount;
+import static com.facebook.presto.operator.aggregation.BloomFilter.getSizeInBytes;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestBloomFilter
+{
+    @Test
+    public void testMightContain()
+    {
+        int keys = 10_000;
+        long bits = getOptimalBitCount(keys, 0.01);
+        int hashFunctions = getOptimalHashFunctionCount(bits, keys);
+        Slice filter = BloomFilter.create(bits, hashFunctions);
+        assertEquals(filter.length(), getSizeInBytes(bits));
+        assertFalse(BloomFilter.mightContain(filter, 0));
+
+        for (long hash = 0; hash < keys; hash++) {
+            BloomFilter.add(filter, hash);
+        }
+        for (long hash = 0; hash < keys; hash++) {
+            assertTrue(BloomFilter.mightContain(filter, hash));
+        }
+
+        int falsePositives = 0;
+        for (long hash = keys; hash < 11 * keys; hash++) {
+            if (BloomFilter.mightContain(filter, hash)) {
+                falsePositives++;
+            }
+        }
+        double expected = getFalsePositiveProbability(bits, hashFunctions, keys);
+        assertEquals(expected, 0.01, 0.001);
+        assertEquals(falsePositives / (10.0 * keys), expected, 0.005);
+    }
+
+    @Test
+    public void testMerge()
+    {
+        Slice filter = BloomFilter.create(1000, 3);
+        Slice other = BloomFilter.create(1000, 3);
+        BloomFilter.add(filter, 1);
+        BloomFilter.add(other, 2);
+
+        BloomFilter.merge(filter, other);
+        assertTrue(BloomFilter.mightContain(filter, 1));
+        assertTrue(BloomFilter.mightContain(filter, 2));
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Cannot merge Bloom filters of different sizes")
+    public void testMergeDifferentSizes()
+    {
+        BloomFilter.merge(BloomFilter.create(1000, 3), BloomFilter.create(2000, 3));
+    }
+
+    @Test
+    public void testOptimalSize()
+    {
+        assertEquals(getOptimalBitCount(0, 0.01), Long.SIZE);
+        assertEquals(getOptimalBitCount(1000, 0.01), 9585);
+        assertEquals(getOptimalHashFunctionCount(9585, 1000), 7);
+        assertEquals(getOptimalHashFunctionCount(Long.SIZE, 0), BloomFilter.MAX_HASH_FUNCTIONS);
+        assertEquals(getOptimalHashFunctionCount(Long.SIZE, 1000), 1);
+    }
+}
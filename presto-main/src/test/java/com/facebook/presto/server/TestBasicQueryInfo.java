@@ -64,6 +64,7 @@ public class TestBasicQueryInfo
                                 Duration.valueOf("9m"),
                                 Duration.valueOf("10m"),
                                 Duration.valueOf("11m"),
+                                false,
                                 13,
                                 14,
                                 15,
@@ -114,6 +114,7 @@ public class TestQueryStateInfo
                         Duration.valueOf("9m"),
                         Duration.valueOf("10m"),
                         Duration.valueOf("11m"),
+                        false,
                         13,
                         14,
                         15,
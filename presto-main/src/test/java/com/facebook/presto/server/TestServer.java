@@ -15,11 +15,14 @@ package com.facebook.presto.server;
 
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.execution.SqlQueryManagerStats;
 import com.facebook.presto.server.testing.TestingPrestoServer;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.type.TimeZoneNotSupportedException;
+import com.facebook.presto.tpch.TpchPlugin;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.inject.Key;
 import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
@@ -38,6 +41,7 @@ import java.util.List;
 import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_COUNT;
 import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static com.facebook.presto.SystemSessionProperties.QUERY_MAX_MEMORY;
+import static com.facebook.presto.SystemSessionProperties.RESULT_CACHE_ENABLED;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CATALOG;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLIENT_INFO;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PATH;
@@ -60,6 +64,7 @@ import static io.airlift.json.JsonCodec.jsonCodec;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static javax.ws.rs.core.Response.Status.OK;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertNull;
 
@@ -177,6 +182,53 @@ public class TestServer
         assertEquals(rows, ImmutableList.of(ImmutableList.of("system")));
     }
 
+    @Test
+    public void testResultCache()
+    {
+        server.installPlugin(new TpchPlugin());
+        server.createCatalog("tpch", "tpch");
+        SqlQueryManagerStats stats = server.getInstance(Key.get(SqlQueryManagerStats.class));
+
+        String sql = "SELECT name FROM tpch.tiny.nation WHERE regionkey = 1 ORDER BY name";
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        executeWithResultCache(sql, rows);
+        assertEquals(rows.build().size(), 5);
+        assertEquals(stats.getResultCacheMisses().getTotalCount(), 1);
+        assertEquals(stats.getResultCacheHits().getTotalCount(), 0);
+
+        // the identical query is served from the cache without scheduling any stages
+        ImmutableList.Builder<List<Object>> cachedRows = ImmutableList.builder();
+        QueryResults queryResults = executeWithResultCache(sql, cachedRows);
+        assertEquals(cachedRows.build(), rows.build());
+        assertEquals(stats.getResultCacheHits().getTotalCount(), 1);
+        assertFalse(server.getQueryManager().getFullQueryInfo(new QueryId(queryResults.getId())).getOutputStage().isPresent());
+
+        // non-deterministic queries are not cached
+        executeWithResultCache("SELECT name, rand() FROM tpch.tiny.nation", ImmutableList.builder());
+        assertEquals(stats.getResultCacheMisses().getTotalCount(), 1);
+    }
+
+    private QueryResults executeWithResultCache(String sql, ImmutableList.Builder<List<Object>> data)
+    {
+        Request request = preparePost()
+                .setUri(uriFor("/v1/statement"))
+                .setBodyGenerator(createStaticBodyGenerator(sql, UTF_8))
+                .setHeader(PRESTO_USER, "user")
+                .setHeader(PRESTO_SOURCE, "source")
+                .setHeader(PRESTO_SESSION, RESULT_CACHE_ENABLED + "=true")
+                .build();
+
+        QueryResults queryResults = client.execute(request, createJsonResponseHandler(QUERY_RESULTS_CODEC));
+        while (queryResults.getNextUri() != null) {
+            queryResults = client.execute(prepareGet().setUri(queryResults.getNextUri()).build(), createJsonResponseHandler(QUERY_RESULTS_CODEC));
+            if (queryResults.getData() != null) {
+                data.addAll(queryResults.getData());
+            }
+        }
+        assertNull(queryResults.getError());
+        return queryResults;
+    }
+
     @Test
     public void testTransactionSupport()
     {
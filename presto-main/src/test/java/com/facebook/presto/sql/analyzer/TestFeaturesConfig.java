@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.sql.analyzer;
 
+import com.facebook.presto.execution.buffer.PageCompressionCodec;
 import com.facebook.presto.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import com.facebook.presto.operator.aggregation.histogram.HistogramGroupImplementation;
 import com.facebook.presto.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -54,6 +55,9 @@ public class TestFeaturesConfig
                 .setDistributedIndexJoinsEnabled(false)
                 .setJoinDistributionType(PARTITIONED)
                 .setJoinMaxBroadcastTableSize(null)
+                .setDistributeSkewedJoinKeys(false)
+                .setJoinBloomFilterEnabled(false)
+                .setJoinBloomFilterMaxSize(new DataSize(8, MEGABYTE))
                 .setGroupedExecutionForAggregationEnabled(false)
                 .setGroupedExecutionForEligibleTableScansEnabled(false)
                 .setDynamicScheduleForGroupedExecutionEnabled(false)
@@ -95,11 +99,17 @@ public class TestFeaturesConfig
                 .setPrintStatsForNonJoinQuery(false)
                 .setDefaultFilterFactorEnabled(false)
                 .setExchangeCompressionEnabled(false)
+                .setExchangeCompressionCodec(PageCompressionCodec.LZ4)
+                .setExchangeAdaptiveCompressionEnabled(false)
                 .setLegacyTimestamp(true)
                 .setLegacyRowFieldOrdinalAccess(false)
                 .setLegacyCharToVarcharCoercion(false)
                 .setEnableIntermediateAggregations(false)
                 .setPushAggregationThroughJoin(true)
+                .setPushAggregationIntoConnector(true)
+                .setPushLimitIntoConnector(true)
+                .setJoinPushdownStrategy(FeaturesConfig.JoinPushdownStrategy.AUTOMATIC)
+                .setAggregationStrategy(FeaturesConfig.AggregationStrategy.AUTOMATIC)
                 .setParseDecimalLiteralsAsDouble(false)
                 .setForceSingleNodeOutput(true)
                 .setPagesIndexEagerCompactionEnabled(false)
@@ -116,7 +126,14 @@ public class TestFeaturesConfig
                 .setLegacyUnnestArrayRows(false)
                 .setJsonSerdeCodeGenerationEnabled(false)
                 .setPushLimitThroughOuterJoin(true)
-                .setMaxConcurrentMaterializations(10));
+                .setMaxConcurrentMaterializations(10)
+                .setEnableDynamicFiltering(false)
+                .setDynamicFilteringMaxDistinctValues(1000)
+                .setPlanCacheEnabled(false)
+                .setPlanCacheMaxSize(1000)
+                .setPlanCacheExpireAfterWrite(new Duration(1, MINUTES))
+                .setBatchedGroupByHashEnabled(false)
+                .setOptimizedRepartitioningEnabled(false));
     }
 
     @Test
@@ -141,6 +158,9 @@ public class TestFeaturesConfig
                 .put("distributed-index-joins-enabled", "true")
                 .put("join-distribution-type", "BROADCAST")
                 .put("join-max-broadcast-table-size", "42GB")
+                .put("optimizer.distribute-skewed-join-keys", "true")
+                .put("optimizer.join-bloom-filter-enabled", "true")
+                .put("optimizer.join-bloom-filter-max-size", "1MB")
                 .put("grouped-execution-for-aggregation-enabled", "true")
                 .put("experimental.grouped-execution-for-eligible-table-scans-enabled", "true")
                 .put("dynamic-schedule-for-grouped-execution", "true")
@@ -162,6 +182,10 @@ public class TestFeaturesConfig
                 .put("optimizer.push-table-write-through-union", "false")
                 .put("optimizer.dictionary-aggregation", "true")
                 .put("optimizer.push-aggregation-through-join", "false")
+                .put("optimizer.push-aggregation-into-connector", "false")
+                .put("optimizer.push-limit-into-connector", "false")
+                .put("optimizer.join-pushdown-strategy", "ALWAYS")
+                .put("optimizer.aggregation-strategy", "SORT")
                 .put("regex-library", "RE2J")
                 .put("re2j.dfa-states-limit", "42")
                 .put("re2j.dfa-retries", "42")
@@ -173,6 +197,8 @@ public class TestFeaturesConfig
                 .put("experimental.memory-revoking-threshold", "0.2")
                 .put("experimental.memory-revoking-target", "0.8")
                 .put("exchange.compression-enabled", "true")
+                .put("exchange.compression-codec", "SNAPPY")
+                .put("exchange.adaptive-compression-enabled", "true")
                 .put("deprecated.legacy-timestamp", "false")
                 .put("optimizer.enable-intermediate-aggregations", "true")
                 .put("parse-decimal-literals-as-double", "true")
@@ -192,6 +218,13 @@ public class TestFeaturesConfig
                 .put("experimental.json-serde-codegen-enabled", "true")
                 .put("optimizer.push-limit-through-outer-join", "false")
                 .put("max-concurrent-materializations", "5")
+                .put("experimental.enable-dynamic-filtering", "true")
+                .put("experimental.dynamic-filtering-max-distinct-values", "10")
+                .put("plan-cache.enabled", "true")
+                .put("plan-cache.max-size", "50")
+                .put("plan-cache.expire-after-write", "10m")
+                .put("experimental.batched-group-by-hash-enabled", "true")
+                .put("experimental.optimized-repartitioning", "true")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -206,6 +239,9 @@ public class TestFeaturesConfig
                 .setDistributedIndexJoinsEnabled(true)
                 .setJoinDistributionType(BROADCAST)
                 .setJoinMaxBroadcastTableSize(new DataSize(42, GIGABYTE))
+                .setDistributeSkewedJoinKeys(true)
+                .setJoinBloomFilterEnabled(true)
+                .setJoinBloomFilterMaxSize(new DataSize(1, MEGABYTE))
                 .setGroupedExecutionForAggregationEnabled(true)
                 .setGroupedExecutionForEligibleTableScansEnabled(true)
                 .setDynamicScheduleForGroupedExecutionEnabled(true)
@@ -227,6 +263,10 @@ public class TestFeaturesConfig
                 .setPushTableWriteThroughUnion(false)
                 .setDictionaryAggregation(true)
                 .setPushAggregationThroughJoin(false)
+                .setPushAggregationIntoConnector(false)
+                .setPushLimitIntoConnector(false)
+                .setJoinPushdownStrategy(FeaturesConfig.JoinPushdownStrategy.ALWAYS)
+                .setAggregationStrategy(FeaturesConfig.AggregationStrategy.SORT)
                 .setLegacyArrayAgg(true)
                 .setGroupByUsesEqualTo(true)
                 .setLegacyMapSubscript(true)
@@ -242,6 +282,8 @@ public class TestFeaturesConfig
                 .setMemoryRevokingTarget(0.8)
                 .setLegacyLogFunction(true)
                 .setExchangeCompressionEnabled(true)
+                .setExchangeCompressionCodec(PageCompressionCodec.SNAPPY)
+                .setExchangeAdaptiveCompressionEnabled(true)
                 .setLegacyTimestamp(false)
                 .setLegacyRowFieldOrdinalAccess(true)
                 .setLegacyCharToVarcharCoercion(true)
@@ -263,7 +305,14 @@ public class TestFeaturesConfig
                 .setDefaultFilterFactorEnabled(true)
                 .setJsonSerdeCodeGenerationEnabled(true)
                 .setPushLimitThroughOuterJoin(false)
-                .setMaxConcurrentMaterializations(5);
+                .setMaxConcurrentMaterializations(5)
+                .setEnableDynamicFiltering(true)
+                .setDynamicFilteringMaxDistinctValues(10)
+                .setPlanCacheEnabled(true)
+                .setPlanCacheMaxSize(50)
+                .setPlanCacheExpireAfterWrite(new Duration(10, MINUTES))
+                .setBatchedGroupByHashEnabled(true)
+                .setOptimizedRepartitioningEnabled(true);
         assertFullMapping(properties, expected);
     }
 
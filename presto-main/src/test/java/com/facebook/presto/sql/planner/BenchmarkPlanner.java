@@ -69,6 +69,9 @@ public class BenchmarkPlanner
         @Param({"optimized", "created"})
         private String stage = LogicalPlanner.Stage.OPTIMIZED.toString();
 
+        @Param({"false", "true"})
+        private String planCacheEnabled = "false";
+
         private LocalQueryRunner queryRunner;
         private List<String> queries;
         private Session session;
@@ -82,6 +85,7 @@ public class BenchmarkPlanner
                     .setCatalog(tpch)
                     .setSchema("sf1")
                     .setSystemProperty("iterative_optimizer_enabled", iterativeOptimizerEnabled)
+                    .setSystemProperty("plan_cache_enabled", planCacheEnabled)
                     .build();
 
             queryRunner = new LocalQueryRunner(session);
@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.warnings.WarningCollector;
+import com.facebook.presto.metadata.QualifiedObjectName;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableMap;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.sql.planner.LogicalPlanner.Stage.OPTIMIZED_AND_VALIDATED;
+import static com.facebook.presto.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static com.facebook.presto.testing.TestingSession.testSessionBuilder;
+import static io.airlift.testing.Closeables.closeAllRuntimeException;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+@Test(singleThreaded = true)
+public class TestPlanCache
+{
+    private LocalQueryRunner runner;
+
+    @BeforeClass
+    public void setUp()
+    {
+        runner = new LocalQueryRunner(testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .setSystemProperty("plan_cache_enabled", "true")
+                .build());
+        runner.createCatalog("tpch", new TpchConnectorFactory(1), ImmutableMap.of());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        closeAllRuntimeException(runner);
+        runner = null;
+    }
+
+    @BeforeMethod
+    public void invalidatePlans()
+    {
+        runner.getPlanCache().invalidateAll();
+    }
+
+    @Test
+    public void testCachedPlan()
+    {
+        PlanCache planCache = runner.getPlanCache();
+        String sql = "SELECT name FROM nation WHERE regionkey = 1";
+        long hits = planCache.getHitCount();
+        long misses = planCache.getMissCount();
+
+        Plan plan = plan(sql);
+        assertEquals(planCache.getSize(), 1);
+        assertEquals(planCache.getMissCount(), misses + 1);
+
+        Plan cachedPlan = runner.inTransaction(session -> {
+            Plan result = plan(session, sql);
+            // the tables of the cached plan are read in the transaction of the new query
+            TableScanNode tableScan = (TableScanNode) searchFrom(result.getRoot()).where(TableScanNode.class::isInstance).findOnlyElement();
+            assertEquals(
+                    tableScan.getTable().getTransaction(),
+                    runner.getTransactionManager().getConnectorTransaction(session.getRequiredTransactionId(), tableScan.getTable().getConnectorId()));
+            return result;
+        });
+        assertEquals(planCache.getHitCount(), hits + 1);
+        assertSame(cachedPlan.getTypes(), plan.getTypes());
+
+        // parameter values and session properties are part of the key
+        plan("SELECT name FROM nation WHERE regionkey = 2");
+        plan(testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .setSystemProperty("plan_cache_enabled", "true")
+                .setSystemProperty("join_distribution_type", "BROADCAST")
+                .build(), sql);
+        assertEquals(planCache.getSize(), 3);
+    }
+
+    @Test
+    public void testStartTimeNotCached()
+    {
+        PlanCache planCache = runner.getPlanCache();
+        plan("SELECT name FROM nation WHERE now() > TIMESTAMP '2019-01-01 00:00:00'");
+        plan("SELECT current_date, name FROM nation");
+        assertEquals(planCache.getSize(), 0);
+    }
+
+    @Test
+    public void testInvalidation()
+    {
+        PlanCache planCache = runner.getPlanCache();
+        Plan plan = plan("SELECT name FROM nation");
+        plan("SELECT name FROM region");
+        assertEquals(planCache.getSize(), 2);
+
+        planCache.invalidate(new QualifiedObjectName("tpch", "tiny", "nation"));
+        assertEquals(planCache.getSize(), 1);
+        assertNotSame(plan("SELECT name FROM nation").getTypes(), plan.getTypes());
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        Session session = testSessionBuilder()
+                .setCatalog("tpch")
+                .setSchema("tiny")
+                .build();
+        plan(session, "SELECT name FROM nation");
+        plan(session, "SELECT name FROM nation");
+        assertEquals(runner.getPlanCache().getSize(), 0);
+    }
+
+    private Plan plan(@Language("SQL") String sql)
+    {
+        return runner.inTransaction(session -> plan(session, sql));
+    }
+
+    private Plan plan(Session session, @Language("SQL") String sql)
+    {
+        if (!session.getTransactionId().isPresent()) {
+            return runner.inTransaction(session, transactionSession -> plan(transactionSession, sql));
+        }
+        return runner.createPlan(session, sql, OPTIMIZED_AND_VALIDATED, false, WarningCollector.NOOP);
+    }
+}
@@ -14,6 +14,7 @@
 package com.facebook.presto.sql.planner.assertions;
 
 import com.facebook.presto.sql.tree.ArithmeticBinaryExpression;
+import com.facebook.presto.sql.tree.ArrayConstructor;
 import com.facebook.presto.sql.tree.AstVisitor;
 import com.facebook.presto.sql.tree.BetweenPredicate;
 import com.facebook.presto.sql.tree.BooleanLiteral;
@@ -25,6 +26,7 @@ import com.facebook.presto.sql.tree.DoubleLiteral;
 import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.FunctionCall;
 import com.facebook.presto.sql.tree.GenericLiteral;
+import com.facebook.presto.sql.tree.IfExpression;
 import com.facebook.presto.sql.tree.InListExpression;
 import com.facebook.presto.sql.tree.InPredicate;
 import com.facebook.presto.sql.tree.IsNotNullPredicate;
@@ -334,6 +336,29 @@ final class ExpressionVerifier
         return false;
     }
 
+    @Override
+    protected Boolean visitIfExpression(IfExpression actual, Node expected)
+    {
+        if (!(expected instanceof IfExpression)) {
+            return false;
+        }
+
+        IfExpression expectedIf = (IfExpression) expected;
+        return process(actual.getCondition(), expectedIf.getCondition()) &&
+                process(actual.getTrueValue(), expectedIf.getTrueValue()) &&
+                process(actual.getFalseValue(), expectedIf.getFalseValue());
+    }
+
+    @Override
+    protected Boolean visitArrayConstructor(ArrayConstructor actual, Node expected)
+    {
+        if (!(expected instanceof ArrayConstructor)) {
+            return false;
+        }
+
+        return process(actual.getValues(), ((ArrayConstructor) expected).getValues());
+    }
+
     @Override
     protected Boolean visitSimpleCaseExpression(SimpleCaseExpression actual, Node expected)
     {
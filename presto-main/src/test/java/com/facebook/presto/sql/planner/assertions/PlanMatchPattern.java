@@ -395,6 +395,11 @@ public final class PlanMatchPattern
         return node(UnnestNode.class, source);
     }
 
+    public static PlanMatchPattern unnest(String unnestedAlias, PlanMatchPattern source)
+    {
+        return node(UnnestNode.class, source).withAlias(unnestedAlias, new UnnestedVariableMatcher());
+    }
+
     public static PlanMatchPattern exchange(PlanMatchPattern... sources)
     {
         return node(ExchangeNode.class, sources);
@@ -0,0 +1,212 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.TaskCountEstimator;
+import com.facebook.presto.cost.VariableStatsEstimate;
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.plan.FilterNode;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.JOIN_BLOOM_FILTER_ENABLED;
+import static com.facebook.presto.SystemSessionProperties.JOIN_BLOOM_FILTER_MAX_SIZE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.equiJoinClause;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.join;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.node;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static com.facebook.presto.tpch.TpchMetadata.TINY_SCALE_FACTOR;
+
+public class TestAddJoinProbeBloomFilter
+        extends BaseRuleTest
+{
+    @Test
+    public void testSelectiveBuild()
+    {
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("scanB", stats("B1", 1_000, 1_000))
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        node(ProjectNode.class,
+                                node(FilterNode.class,
+                                        join(
+                                                INNER,
+                                                ImmutableList.of(),
+                                                Optional.empty(),
+                                                Optional.of(REPLICATED),
+                                                values(ImmutableMap.of("A1", 0)),
+                                                node(AggregationNode.class,
+                                                        node(ProjectNode.class,
+                                                                tableScan("orders")))))),
+                        tableScan("orders", ImmutableMap.of("B1", "orderkey"))));
+
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("scanB", stats("B1", 1_000, 1_000))
+                .on(p -> createJoin(p, RIGHT, PARTITIONED))
+                .matches(join(
+                        RIGHT,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        node(ProjectNode.class,
+                                node(FilterNode.class,
+                                        node(JoinNode.class,
+                                                values(ImmutableMap.of("A1", 0)),
+                                                node(AggregationNode.class, node(ProjectNode.class, tableScan("orders")))))),
+                        tableScan("orders", ImmutableMap.of("B1", "orderkey"))));
+    }
+
+    @Test
+    public void testNotSelectiveBuild()
+    {
+        // every probe key has a match
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000))
+                .overrideStats("scanB", stats("B1", 1_000, 1_000))
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+
+        // a filter small enough to be broadcast has too many false positives
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .setSystemProperty(JOIN_BLOOM_FILTER_MAX_SIZE, "1B")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("scanB", stats("B1", 100_000, 100_000))
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+
+        // unknown stats
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFire()
+    {
+        tester().assertThat(createRule())
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("scanB", stats("B1", 1_000, 1_000))
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("scanB", stats("B1", 1_000, 1_000))
+                .on(p -> createJoin(p, LEFT, PARTITIONED))
+                .doesNotFire();
+
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("scanB", stats("B1", 1_000, 1_000))
+                .on(p -> createJoin(p, INNER, REPLICATED))
+                .doesNotFire();
+
+        // the build side cannot be copied
+        tester().assertThat(createRule())
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .overrideStats("valuesA", stats("A1", 1_000_000, 1_000_000))
+                .overrideStats("valuesB", stats("B1", 1_000, 1_000))
+                .on(p -> {
+                    VariableReferenceExpression a1 = p.variable("A1", BIGINT);
+                    VariableReferenceExpression b1 = p.variable("B1", BIGINT);
+                    return p.join(
+                            INNER,
+                            p.values(new PlanNodeId("valuesA"), 10, a1),
+                            p.values(new PlanNodeId("valuesB"), 10, b1),
+                            ImmutableList.of(new EquiJoinClause(a1, b1)),
+                            ImmutableList.of(a1, b1),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.of(PARTITIONED));
+                })
+                .doesNotFire();
+    }
+
+    private AddJoinProbeBloomFilter createRule()
+    {
+        return new AddJoinProbeBloomFilter(tester().getMetadata().getFunctionManager(), new TaskCountEstimator(() -> 4));
+    }
+
+    private static JoinNode createJoin(PlanBuilder p, JoinNode.Type joinType, DistributionType distributionType)
+    {
+        VariableReferenceExpression a1 = p.variable("A1", BIGINT);
+        VariableReferenceExpression b1 = p.variable("B1", BIGINT);
+        TableScanNode scanB = new TableScanNode(
+                new PlanNodeId("scanB"),
+                new TableHandle(
+                        new ConnectorId("local"),
+                        new TpchTableHandle("orders", TINY_SCALE_FACTOR),
+                        TestingTransactionHandle.create(),
+                        Optional.empty()),
+                ImmutableList.of(b1),
+                ImmutableMap.of(b1, new TpchColumnHandle("orderkey", BIGINT)));
+        return p.join(
+                joinType,
+                p.values(new PlanNodeId("valuesA"), 10, a1),
+                scanB,
+                ImmutableList.of(new EquiJoinClause(a1, b1)),
+                ImmutableList.of(a1, b1),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(distributionType));
+    }
+
+    private static PlanNodeStatsEstimate stats(String variable, double rowCount, double distinctValues)
+    {
+        return PlanNodeStatsEstimate.builder()
+                .setOutputRowCount(rowCount)
+                .addVariableStatistics(new VariableReferenceExpression(variable, BIGINT), new VariableStatsEstimate(0, rowCount, 0, 8, distinctValues))
+                .build();
+    }
+}
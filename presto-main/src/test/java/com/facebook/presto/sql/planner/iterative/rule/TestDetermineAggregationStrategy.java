@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.VariableStatsEstimate;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.iterative.rule.test.RuleTester;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.AGGREGATION_STRATEGY;
+import static com.facebook.presto.SystemSessionProperties.SPILL_ENABLED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.aggregation;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.functionCall;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.singleGroupingSet;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.sort;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static com.facebook.presto.sql.tree.SortItem.NullOrdering.LAST;
+import static com.facebook.presto.sql.tree.SortItem.Ordering.ASCENDING;
+
+public class TestDetermineAggregationStrategy
+{
+    private RuleTester tester;
+
+    @BeforeClass
+    public void setUp()
+    {
+        // spill_enabled can only be set when spill paths are configured
+        FeaturesConfig featuresConfig = new FeaturesConfig()
+                .setSpillerSpillPaths(System.getProperty("java.io.tmpdir"));
+        tester = new RuleTester(ImmutableList.of(), ImmutableMap.of(), featuresConfig, Optional.empty());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        tester.close();
+        tester = null;
+    }
+
+    @Test
+    public void testSortsInputWhenForced()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "SORT")
+                .on(p -> groupedAggregation(p))
+                .matches(aggregation(
+                        singleGroupingSet("key"),
+                        ImmutableMap.of(Optional.of("count"), functionCall("count", ImmutableList.of("value"))),
+                        ImmutableList.of("key"),
+                        ImmutableMap.of(),
+                        Optional.empty(),
+                        SINGLE,
+                        sort(
+                                ImmutableList.of(sort("key", ASCENDING, LAST)),
+                                values("key", "value"))));
+    }
+
+    @Test
+    public void testDoesNotFireForHashStrategy()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "HASH")
+                .on(p -> groupedAggregation(p))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireWithoutStats()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "AUTOMATIC")
+                .on(p -> groupedAggregation(p))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testSortsInputOfLargeAggregation()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "AUTOMATIC")
+                .setSystemProperty(SPILL_ENABLED, "true")
+                .overrideStats("valuesId", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(1e12)
+                        .addVariableStatistics(ImmutableMap.of(new VariableReferenceExpression("key", BIGINT), new VariableStatsEstimate(0, 1e12, 0, 8, 1e12)))
+                        .build())
+                .on(p -> groupedAggregation(p))
+                .matches(aggregation(
+                        singleGroupingSet("key"),
+                        ImmutableMap.of(Optional.of("count"), functionCall("count", ImmutableList.of("value"))),
+                        ImmutableList.of("key"),
+                        ImmutableMap.of(),
+                        Optional.empty(),
+                        SINGLE,
+                        sort(
+                                ImmutableList.of(sort("key", ASCENDING, LAST)),
+                                values("key", "value"))));
+    }
+
+    @Test
+    public void testDoesNotFireForFewGroups()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "AUTOMATIC")
+                .setSystemProperty(SPILL_ENABLED, "true")
+                .overrideStats("valuesId", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(1e12)
+                        .addVariableStatistics(ImmutableMap.of(new VariableReferenceExpression("key", BIGINT), new VariableStatsEstimate(0, 1e6, 0, 8, 1e6)))
+                        .build())
+                .on(p -> groupedAggregation(p))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireWithoutSpilling()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "AUTOMATIC")
+                .overrideStats("valuesId", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(1e12)
+                        .addVariableStatistics(ImmutableMap.of(new VariableReferenceExpression("key", BIGINT), new VariableStatsEstimate(0, 1e12, 0, 8, 1e12)))
+                        .build())
+                .on(p -> groupedAggregation(p))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForGlobalAggregation()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "SORT")
+                .on(p -> p.aggregation(ab -> ab
+                        .source(p.values(p.variable("value", BIGINT)))
+                        .addAggregation(p.variable("count", BIGINT), expression("count(value)"), ImmutableList.of(BIGINT))
+                        .globalGrouping()))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForStreamingAggregation()
+    {
+        tester.assertThat(new DetermineAggregationStrategy())
+                .setSystemProperty(AGGREGATION_STRATEGY, "SORT")
+                .on(p -> p.aggregation(ab -> ab
+                        .source(p.values(p.variable("key", BIGINT), p.variable("value", BIGINT)))
+                        .addAggregation(p.variable("count", BIGINT), expression("count(value)"), ImmutableList.of(BIGINT))
+                        .singleGroupingSet(p.variable("key", BIGINT))
+                        .preGroupedVariables(p.variable("key", BIGINT))))
+                .doesNotFire();
+    }
+
+    private static AggregationNode groupedAggregation(PlanBuilder p)
+    {
+        return p.aggregation(ab -> ab
+                .source(p.values(new PlanNodeId("valuesId"), p.variable("key", BIGINT), p.variable("value", BIGINT)))
+                .addAggregation(p.variable("count", BIGINT), expression("count(value)"), ImmutableList.of(BIGINT))
+                .singleGroupingSet(p.variable("key", BIGINT)));
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.VariableStatsEstimate;
+import com.facebook.presto.spi.plan.PlanNodeId;
+import com.facebook.presto.spi.relation.VariableReferenceExpression;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.DistributionType;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.DISTRIBUTE_SKEWED_JOIN_KEYS;
+import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_COUNT;
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_KEY_VALUES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.equiJoinClause;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.expression;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.join;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.project;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.unnest;
+import static com.facebook.presto.sql.planner.assertions.PlanMatchPattern.values;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+
+public class TestDistributeSkewedJoinKeys
+        extends BaseRuleTest
+{
+    @Test
+    public void testFrequentValues()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "0 | 42")
+                .setSystemProperty(HASH_PARTITION_COUNT, "4")
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1"), equiJoinClause("SALT_A", "SALT_B")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        project(
+                                ImmutableMap.of("SALT_A", expression("IF(A1 IN (TRY_CAST('0' AS bigint), TRY_CAST('42' AS bigint)), random(BIGINT '4'), BIGINT '0')")),
+                                values(ImmutableMap.of("A1", 0))),
+                        unnest(
+                                "SALT_B",
+                                project(
+                                        ImmutableMap.of("SALTS_B", expression("IF(B1 IN (TRY_CAST('0' AS bigint), TRY_CAST('42' AS bigint)), sequence(BIGINT '0', BIGINT '3'), ARRAY[BIGINT '0'])")),
+                                        values(ImmutableMap.of("B1", 0))))));
+    }
+
+    @Test
+    public void testMultipleKeys()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "42")
+                .setSystemProperty(HASH_PARTITION_COUNT, "4")
+                .on(p -> {
+                    VariableReferenceExpression a1 = p.variable("A1", BIGINT);
+                    VariableReferenceExpression a2 = p.variable("A2", VARCHAR);
+                    VariableReferenceExpression b1 = p.variable("B1", BIGINT);
+                    VariableReferenceExpression b2 = p.variable("B2", VARCHAR);
+                    return p.join(
+                            INNER,
+                            p.values(a1, a2),
+                            p.values(b1, b2),
+                            ImmutableList.of(new EquiJoinClause(a1, b1), new EquiJoinClause(a2, b2)),
+                            ImmutableList.of(a1, a2, b1, b2),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.empty(),
+                            Optional.of(PARTITIONED));
+                })
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1"), equiJoinClause("A2", "B2"), equiJoinClause("SALT_A", "SALT_B")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        project(
+                                ImmutableMap.of("SALT_A", expression("IF(A1 IN (TRY_CAST('42' AS bigint)) OR A2 IN (TRY_CAST('42' AS varchar)), random(BIGINT '4'), BIGINT '0')")),
+                                values(ImmutableMap.of("A1", 0, "A2", 1))),
+                        unnest(
+                                "SALT_B",
+                                project(
+                                        ImmutableMap.of("SALTS_B", expression("IF(B1 IN (TRY_CAST('42' AS bigint)) OR B2 IN (TRY_CAST('42' AS varchar)), sequence(BIGINT '0', BIGINT '3'), ARRAY[BIGINT '0'])")),
+                                        values(ImmutableMap.of("B1", 0, "B2", 1))))));
+    }
+
+    @Test
+    public void testFrequentNulls()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(HASH_PARTITION_COUNT, "4")
+                .overrideStats("valuesA", probeStats(0.5))
+                .on(p -> createJoin(p, LEFT, PARTITIONED))
+                .matches(join(
+                        LEFT,
+                        ImmutableList.of(equiJoinClause("A1", "B1"), equiJoinClause("SALT_A", "SALT_B")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        project(
+                                ImmutableMap.of("SALT_A", expression("IF(A1 IS NULL, random(BIGINT '4'), BIGINT '0')")),
+                                values(ImmutableMap.of("A1", 0))),
+                        project(
+                                ImmutableMap.of("SALT_B", expression("BIGINT '0'")),
+                                values(ImmutableMap.of("B1", 0)))));
+
+        // the nulls of one partition are not skewed
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(HASH_PARTITION_COUNT, "4")
+                .overrideStats("valuesA", probeStats(0.2))
+                .on(p -> createJoin(p, LEFT, PARTITIONED))
+                .doesNotFire();
+
+        // null keys do not match in inner joins
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(HASH_PARTITION_COUNT, "4")
+                .overrideStats("valuesA", probeStats(0.5))
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFire()
+    {
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "0")
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "0")
+                .on(p -> createJoin(p, RIGHT, PARTITIONED))
+                .doesNotFire();
+
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "0")
+                .on(p -> createJoin(p, INNER, REPLICATED))
+                .doesNotFire();
+
+        tester().assertThat(new DistributeSkewedJoinKeys())
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "0")
+                .setSystemProperty(HASH_PARTITION_COUNT, "1")
+                .on(p -> createJoin(p, INNER, PARTITIONED))
+                .doesNotFire();
+    }
+
+    private static JoinNode createJoin(PlanBuilder p, JoinNode.Type joinType, DistributionType distributionType)
+    {
+        VariableReferenceExpression a1 = p.variable("A1", BIGINT);
+        VariableReferenceExpression b1 = p.variable("B1", BIGINT);
+        return p.join(
+                joinType,
+                p.values(new PlanNodeId("valuesA"), 10, a1),
+                p.values(new PlanNodeId("valuesB"), 10, b1),
+                ImmutableList.of(new EquiJoinClause(a1, b1)),
+                ImmutableList.of(a1, b1),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(distributionType));
+    }
+
+    private static PlanNodeStatsEstimate probeStats(double nullsFraction)
+    {
+        return PlanNodeStatsEstimate.builder()
+                .setOutputRowCount(10)
+                .addVariableStatistics(new VariableReferenceExpression("A1", BIGINT), new VariableStatsEstimate(0, 100, nullsFraction, 8, 5))
+                .build();
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.SymbolReference;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.facebook.presto.tpch.TpchTableLayoutHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.PUSH_AGGREGATION_INTO_CONNECTOR;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+
+public class TestPushAggregationIntoTableScan
+        extends BaseRuleTest
+{
+    private PushAggregationIntoTableScan rule;
+    private TpchTableHandle nationTpchTableHandle;
+    private ConnectorId connectorId;
+
+    @BeforeClass
+    public void setUpBeforeClass()
+    {
+        rule = new PushAggregationIntoTableScan(tester().getMetadata());
+        connectorId = tester().getCurrentConnectorId();
+        nationTpchTableHandle = new TpchTableHandle("nation", 1.0);
+    }
+
+    @Test
+    public void doesNotFireWhenConnectorDeclines()
+    {
+        tester().assertThat(rule)
+                .on(p -> sumOverNation(p, Step.SINGLE, withLayout()))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireWithoutTableLayout()
+    {
+        tester().assertThat(rule)
+                .on(p -> sumOverNation(p, Step.SINGLE, new TableHandle(connectorId, nationTpchTableHandle, TestingTransactionHandle.create(), Optional.empty())))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireOnPartialAggregation()
+    {
+        tester().assertThat(rule)
+                .on(p -> sumOverNation(p, Step.PARTIAL, withLayout()))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireWhenDisabled()
+    {
+        tester().assertThat(rule)
+                .setSystemProperty(PUSH_AGGREGATION_INTO_CONNECTOR, "false")
+                .on(p -> sumOverNation(p, Step.SINGLE, withLayout()))
+                .doesNotFire();
+    }
+
+    private TableHandle withLayout()
+    {
+        return new TableHandle(
+                connectorId,
+                nationTpchTableHandle,
+                TestingTransactionHandle.create(),
+                Optional.of(new TpchTableLayoutHandle(nationTpchTableHandle, TupleDomain.all())));
+    }
+
+    private static AggregationNode sumOverNation(PlanBuilder p, Step step, TableHandle tableHandle)
+    {
+        return p.aggregation(a -> a
+                .addAggregation(
+                        p.variable(p.symbol("sum", BIGINT)),
+                        new FunctionCall(QualifiedName.of("sum"), ImmutableList.of(new SymbolReference("nationkey"))),
+                        ImmutableList.of(BIGINT))
+                .singleGroupingSet(p.variable(p.symbol("regionkey", BIGINT)))
+                .step(step)
+                .source(p.tableScan(
+                        tableHandle,
+                        ImmutableList.of(p.variable(p.symbol("nationkey", BIGINT)), p.variable(p.symbol("regionkey", BIGINT))),
+                        ImmutableMap.of(
+                                p.variable(p.symbol("nationkey", BIGINT)), new TpchColumnHandle("nationkey", BIGINT),
+                                p.variable(p.symbol("regionkey", BIGINT)), new TpchColumnHandle("regionkey", BIGINT)))));
+    }
+}
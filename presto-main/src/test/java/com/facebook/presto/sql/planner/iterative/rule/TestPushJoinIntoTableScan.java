@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.facebook.presto.tpch.TpchTableLayoutHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.JOIN_PUSHDOWN_STRATEGY;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+
+public class TestPushJoinIntoTableScan
+        extends BaseRuleTest
+{
+    private PushJoinIntoTableScan pushJoinIntoTableScan;
+    private ConnectorId connectorId;
+    private ConnectorTransactionHandle transaction;
+    private TpchTableHandle nationTpchTableHandle;
+    private TpchTableHandle regionTpchTableHandle;
+
+    @BeforeClass
+    public void setUpBeforeClass()
+    {
+        pushJoinIntoTableScan = new PushJoinIntoTableScan(tester().getMetadata());
+        connectorId = tester().getCurrentConnectorId();
+        transaction = TestingTransactionHandle.create();
+        nationTpchTableHandle = new TpchTableHandle("nation", 1.0);
+        regionTpchTableHandle = new TpchTableHandle("region", 1.0);
+    }
+
+    @Test
+    public void doesNotFireWhenConnectorDeclines()
+    {
+        tester().assertThat(pushJoinIntoTableScan)
+                .setSystemProperty(JOIN_PUSHDOWN_STRATEGY, "ALWAYS")
+                .on(p -> p.join(
+                        INNER,
+                        nationScan(p, withLayout(nationTpchTableHandle)),
+                        regionScan(p, withLayout(regionTpchTableHandle)),
+                        new EquiJoinClause(p.variable(p.symbol("regionkey", BIGINT)), p.variable(p.symbol("r_regionkey", BIGINT)))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireWithoutTableLayout()
+    {
+        TableHandle nationTableHandle = new TableHandle(connectorId, nationTpchTableHandle, transaction, Optional.empty());
+        tester().assertThat(pushJoinIntoTableScan)
+                .setSystemProperty(JOIN_PUSHDOWN_STRATEGY, "ALWAYS")
+                .on(p -> p.join(
+                        INNER,
+                        nationScan(p, nationTableHandle),
+                        regionScan(p, withLayout(regionTpchTableHandle)),
+                        new EquiJoinClause(p.variable(p.symbol("regionkey", BIGINT)), p.variable(p.symbol("r_regionkey", BIGINT)))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireForOuterJoin()
+    {
+        tester().assertThat(pushJoinIntoTableScan)
+                .setSystemProperty(JOIN_PUSHDOWN_STRATEGY, "ALWAYS")
+                .on(p -> p.join(
+                        LEFT,
+                        nationScan(p, withLayout(nationTpchTableHandle)),
+                        regionScan(p, withLayout(regionTpchTableHandle)),
+                        new EquiJoinClause(p.variable(p.symbol("regionkey", BIGINT)), p.variable(p.symbol("r_regionkey", BIGINT)))))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireWhenDisabled()
+    {
+        tester().assertThat(pushJoinIntoTableScan)
+                .setSystemProperty(JOIN_PUSHDOWN_STRATEGY, "NONE")
+                .on(p -> p.join(
+                        INNER,
+                        nationScan(p, withLayout(nationTpchTableHandle)),
+                        regionScan(p, withLayout(regionTpchTableHandle)),
+                        new EquiJoinClause(p.variable(p.symbol("regionkey", BIGINT)), p.variable(p.symbol("r_regionkey", BIGINT)))))
+                .doesNotFire();
+    }
+
+    private TableHandle withLayout(TpchTableHandle tpchTableHandle)
+    {
+        return new TableHandle(
+                connectorId,
+                tpchTableHandle,
+                transaction,
+                Optional.of(new TpchTableLayoutHandle(tpchTableHandle, TupleDomain.all())));
+    }
+
+    private static TableScanNode nationScan(PlanBuilder p, TableHandle tableHandle)
+    {
+        return p.tableScan(
+                tableHandle,
+                ImmutableList.of(p.variable(p.symbol("regionkey", BIGINT))),
+                ImmutableMap.of(p.variable(p.symbol("regionkey", BIGINT)), new TpchColumnHandle("regionkey", BIGINT)));
+    }
+
+    private static TableScanNode regionScan(PlanBuilder p, TableHandle tableHandle)
+    {
+        return p.tableScan(
+                tableHandle,
+                ImmutableList.of(p.variable(p.symbol("r_regionkey", BIGINT))),
+                ImmutableMap.of(p.variable(p.symbol("r_regionkey", BIGINT)), new TpchColumnHandle("regionkey", BIGINT)));
+    }
+}
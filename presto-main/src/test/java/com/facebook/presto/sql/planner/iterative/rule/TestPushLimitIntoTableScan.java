@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.iterative.rule;
+
+import com.facebook.presto.spi.ConnectorId;
+import com.facebook.presto.spi.TableHandle;
+import com.facebook.presto.spi.plan.TableScanNode;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.sql.planner.iterative.rule.test.BaseRuleTest;
+import com.facebook.presto.sql.planner.iterative.rule.test.PlanBuilder;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.tpch.TpchColumnHandle;
+import com.facebook.presto.tpch.TpchTableHandle;
+import com.facebook.presto.tpch.TpchTableLayoutHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.facebook.presto.SystemSessionProperties.PUSH_LIMIT_INTO_CONNECTOR;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+
+public class TestPushLimitIntoTableScan
+        extends BaseRuleTest
+{
+    private PushLimitIntoTableScan pushLimitIntoTableScan;
+    private TpchTableHandle nationTpchTableHandle;
+    private ConnectorId connectorId;
+
+    @BeforeClass
+    public void setUpBeforeClass()
+    {
+        pushLimitIntoTableScan = new PushLimitIntoTableScan(tester().getMetadata());
+        connectorId = tester().getCurrentConnectorId();
+        nationTpchTableHandle = new TpchTableHandle("nation", 1.0);
+    }
+
+    @Test
+    public void doesNotFireWhenConnectorDeclines()
+    {
+        tester().assertThat(pushLimitIntoTableScan.pushLimitIntoTableScan())
+                .on(p -> p.limit(10, nationScan(p, withLayout())))
+                .doesNotFire();
+        tester().assertThat(pushLimitIntoTableScan.pushTopNIntoTableScan())
+                .on(p -> p.topN(10, ImmutableList.of(p.variable(p.symbol("nationkey", BIGINT))), nationScan(p, withLayout())))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireWithoutTableLayout()
+    {
+        TableHandle tableHandle = new TableHandle(connectorId, nationTpchTableHandle, TestingTransactionHandle.create(), Optional.empty());
+        tester().assertThat(pushLimitIntoTableScan.pushLimitIntoTableScan())
+                .on(p -> p.limit(10, nationScan(p, tableHandle)))
+                .doesNotFire();
+        tester().assertThat(pushLimitIntoTableScan.pushTopNIntoTableScan())
+                .on(p -> p.topN(10, ImmutableList.of(p.variable(p.symbol("nationkey", BIGINT))), nationScan(p, tableHandle)))
+                .doesNotFire();
+    }
+
+    @Test
+    public void doesNotFireWhenDisabled()
+    {
+        tester().assertThat(pushLimitIntoTableScan.pushLimitIntoTableScan())
+                .setSystemProperty(PUSH_LIMIT_INTO_CONNECTOR, "false")
+                .on(p -> p.limit(10, nationScan(p, withLayout())))
+                .doesNotFire();
+        tester().assertThat(pushLimitIntoTableScan.pushTopNIntoTableScan())
+                .setSystemProperty(PUSH_LIMIT_INTO_CONNECTOR, "false")
+                .on(p -> p.topN(10, ImmutableList.of(p.variable(p.symbol("nationkey", BIGINT))), nationScan(p, withLayout())))
+                .doesNotFire();
+    }
+
+    private TableHandle withLayout()
+    {
+        return new TableHandle(
+                connectorId,
+                nationTpchTableHandle,
+                TestingTransactionHandle.create(),
+                Optional.of(new TpchTableLayoutHandle(nationTpchTableHandle, TupleDomain.all())));
+    }
+
+    private static TableScanNode nationScan(PlanBuilder p, TableHandle tableHandle)
+    {
+        return p.tableScan(
+                tableHandle,
+                ImmutableList.of(p.variable(p.symbol("nationkey", BIGINT))),
+                ImmutableMap.of(p.variable(p.symbol("nationkey", BIGINT)), new TpchColumnHandle("nationkey", BIGINT)));
+    }
+}
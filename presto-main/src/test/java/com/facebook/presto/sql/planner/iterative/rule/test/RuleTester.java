@@ -14,12 +14,18 @@
 package com.facebook.presto.sql.planner.iterative.rule.test;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.SystemSessionProperties;
+import com.facebook.presto.execution.QueryManagerConfig;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.memory.MemoryManagerConfig;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.security.AccessControl;
 import com.facebook.presto.spi.ConnectorId;
 import com.facebook.presto.spi.Plugin;
 import com.facebook.presto.split.PageSourceManager;
 import com.facebook.presto.split.SplitManager;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.parser.SqlParser;
 import com.facebook.presto.sql.planner.assertions.OptimizerAssert;
 import com.facebook.presto.sql.planner.iterative.Rule;
@@ -69,7 +75,17 @@ public class RuleTester
 
     public RuleTester(List<Plugin> plugins, Map<String, String> sessionProperties, Optional<Integer> nodeCountForStats)
     {
-        Session.SessionBuilder sessionBuilder = testSessionBuilder()
+        this(plugins, sessionProperties, new FeaturesConfig(), nodeCountForStats);
+    }
+
+    public RuleTester(List<Plugin> plugins, Map<String, String> sessionProperties, FeaturesConfig featuresConfig, Optional<Integer> nodeCountForStats)
+    {
+        SessionPropertyManager sessionPropertyManager = new SessionPropertyManager(new SystemSessionProperties(
+                new QueryManagerConfig(),
+                new TaskManagerConfig(),
+                new MemoryManagerConfig(),
+                featuresConfig));
+        Session.SessionBuilder sessionBuilder = testSessionBuilder(sessionPropertyManager)
                 .setCatalog(CATALOG_ID)
                 .setSchema("tiny")
                 .setSystemProperty("task_concurrency", "1"); // these tests don't handle exchanges from local parallel
@@ -81,8 +97,8 @@ public class RuleTester
         session = sessionBuilder.build();
 
         queryRunner = nodeCountForStats
-                .map(nodeCount -> LocalQueryRunner.queryRunnerWithFakeNodeCountForStats(session, nodeCount))
-                .orElseGet(() -> new LocalQueryRunner(session));
+                .map(nodeCount -> LocalQueryRunner.queryRunnerWithFakeNodeCountForStats(session, featuresConfig, nodeCount))
+                .orElseGet(() -> new LocalQueryRunner(session, featuresConfig));
         queryRunner.createCatalog(session.getCatalog().get(),
                 new TpchConnectorFactory(1),
                 ImmutableMap.of());
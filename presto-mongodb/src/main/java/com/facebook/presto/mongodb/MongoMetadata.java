@@ -19,6 +19,7 @@ import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorNewTableLayout;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPushdownLimitResult;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableLayout;
@@ -36,8 +37,10 @@ import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorOutputMetadata;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.statistics.ComputedStatistics;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
 
@@ -45,10 +48,17 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.block.SortOrder.DESC_NULLS_LAST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
@@ -58,6 +68,9 @@ public class MongoMetadata
 {
     private static final Logger log = Logger.get(MongoMetadata.class);
 
+    // types MongoDB orders like Presto, unlike strings (collations) and doubles (NaN sorts first)
+    private static final Set<Type> SORTABLE_TYPES = ImmutableSet.of(BIGINT, BOOLEAN, TIMESTAMP);
+
     private final MongoSession mongoSession;
 
     private final AtomicReference<Runnable> rollbackAction = new AtomicReference<>();
@@ -184,6 +197,50 @@ public class MongoMetadata
         return ImmutableList.of(new ConnectorTableLayoutResult(layout, constraint.getSummary()));
     }
 
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownLimit(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle layoutHandle, long limit)
+    {
+        return pushdownLimit((MongoTableLayoutHandle) layoutHandle, limit, ImmutableList.of());
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownTopN(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long count,
+            List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        // MongoDB sorts null and missing fields before any value, and values of other types than the column type in between
+        for (SortingProperty<ColumnHandle> property : sortOrder) {
+            MongoColumnHandle column = (MongoColumnHandle) property.getColumn();
+            if (!SORTABLE_TYPES.contains(column.getType()) || (property.getOrder() != ASC_NULLS_FIRST && property.getOrder() != DESC_NULLS_LAST)) {
+                return Optional.empty();
+            }
+        }
+        List<MongoSortItem> mongoSortOrder = sortOrder.stream()
+                .map(property -> new MongoSortItem((MongoColumnHandle) property.getColumn(), property.getOrder()))
+                .collect(toImmutableList());
+        return pushdownLimit((MongoTableLayoutHandle) layoutHandle, count, mongoSortOrder);
+    }
+
+    private static Optional<ConnectorPushdownLimitResult> pushdownLimit(MongoTableLayoutHandle layoutHandle, long limit, List<MongoSortItem> sortOrder)
+    {
+        MongoTableHandle tableHandle = layoutHandle.getTable();
+        // the limited table is read without the predicate of the layout, and a limit of 0 means no limit to MongoDB
+        if (!layoutHandle.getTupleDomain().isAll() || limit <= 0 || limit > Integer.MAX_VALUE) {
+            return Optional.empty();
+        }
+        // a limited table can only be limited further in the same order
+        if (tableHandle.getLimit().isPresent() && (tableHandle.getLimit().getAsLong() <= limit || !tableHandle.getSortOrder().equals(sortOrder))) {
+            return Optional.empty();
+        }
+        // a collection is read in a single split
+        return Optional.of(new ConnectorPushdownLimitResult(
+                new MongoTableHandle(tableHandle.getSchemaTableName(), sortOrder, OptionalLong.of(limit)),
+                true));
+    }
+
     @Override
     public ConnectorTableLayout getTableLayout(ConnectorSession session, ConnectorTableLayoutHandle handle)
     {
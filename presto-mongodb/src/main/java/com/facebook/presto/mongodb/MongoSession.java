@@ -67,6 +67,7 @@ import static com.facebook.presto.spi.type.VarcharType.createUnboundedVarcharTyp
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static com.google.common.base.Verify.verify;
+import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.HOURS;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -231,6 +232,16 @@ public class MongoSession
         }
         MongoCollection<Document> collection = getCollection(split.getSchemaTableName());
         FindIterable<Document> iterable = collection.find(buildQuery(split.getTupleDomain())).projection(output);
+        if (!split.getSortOrder().isEmpty()) {
+            Document sort = new Document();
+            for (MongoSortItem item : split.getSortOrder()) {
+                sort.append(item.getColumn().getName(), item.getSortOrder().isAscending() ? 1 : -1);
+            }
+            iterable.sort(sort);
+        }
+        if (split.getLimit().isPresent()) {
+            iterable.limit(toIntExact(split.getLimit().getAsLong()));
+        }
 
         if (cursorBatchSize != 0) {
             iterable.batchSize(cursorBatchSize);
@@ -23,6 +23,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
+import java.util.OptionalLong;
 
 import static java.util.Objects.requireNonNull;
 
@@ -31,16 +32,22 @@ public class MongoSplit
 {
     private final SchemaTableName schemaTableName;
     private final TupleDomain<ColumnHandle> tupleDomain;
+    private final List<MongoSortItem> sortOrder;
+    private final OptionalLong limit;
     private final List<HostAddress> addresses;
 
     @JsonCreator
     public MongoSplit(
             @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
             @JsonProperty("tupleDomain") TupleDomain<ColumnHandle> tupleDomain,
+            @JsonProperty("sortOrder") List<MongoSortItem> sortOrder,
+            @JsonProperty("limit") OptionalLong limit,
             @JsonProperty("addresses") List<HostAddress> addresses)
     {
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
         this.tupleDomain = requireNonNull(tupleDomain, "tupleDomain is null");
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.limit = requireNonNull(limit, "limit is null");
         this.addresses = ImmutableList.copyOf(requireNonNull(addresses, "addresses is null"));
     }
 
@@ -56,6 +63,18 @@ public class MongoSplit
         return tupleDomain;
     }
 
+    @JsonProperty
+    public List<MongoSortItem> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     @Override
     public boolean isRemotelyAccessible()
     {
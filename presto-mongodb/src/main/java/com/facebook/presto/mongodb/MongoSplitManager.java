@@ -55,6 +55,8 @@ public class MongoSplitManager
         MongoSplit split = new MongoSplit(
                 tableHandle.getSchemaTableName(),
                 tableLayout.getTupleDomain(),
+                tableHandle.getSortOrder(),
+                tableHandle.getLimit(),
                 addresses);
 
         return new FixedSplitSource(ImmutableList.of(split));
@@ -17,20 +17,37 @@ import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.SchemaTableName;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 
+import java.util.List;
 import java.util.Objects;
+import java.util.OptionalLong;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
 
 public class MongoTableHandle
         implements ConnectorTableHandle
 {
     private final SchemaTableName schemaTableName;
+    private final List<MongoSortItem> sortOrder;
+    private final OptionalLong limit;
+
+    public MongoTableHandle(SchemaTableName schemaTableName)
+    {
+        this(schemaTableName, ImmutableList.of(), OptionalLong.empty());
+    }
 
     @JsonCreator
-    public MongoTableHandle(@JsonProperty("schemaTableName") SchemaTableName schemaTableName)
+    public MongoTableHandle(
+            @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
+            @JsonProperty("sortOrder") List<MongoSortItem> sortOrder,
+            @JsonProperty("limit") OptionalLong limit)
     {
         this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
+        this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.limit = requireNonNull(limit, "limit is null");
+        checkArgument(sortOrder.isEmpty() || limit.isPresent(), "sortOrder requires a limit");
     }
 
     @JsonProperty
@@ -39,10 +56,25 @@ public class MongoTableHandle
         return schemaTableName;
     }
 
+    /**
+     * The order in which MongoDB selects the first {@link #getLimit()} documents.
+     */
+    @JsonProperty
+    public List<MongoSortItem> getSortOrder()
+    {
+        return sortOrder;
+    }
+
+    @JsonProperty
+    public OptionalLong getLimit()
+    {
+        return limit;
+    }
+
     @Override
     public int hashCode()
     {
-        return Objects.hash(schemaTableName);
+        return Objects.hash(schemaTableName, sortOrder, limit);
     }
 
     @Override
@@ -55,12 +87,17 @@ public class MongoTableHandle
             return false;
         }
         MongoTableHandle other = (MongoTableHandle) obj;
-        return Objects.equals(this.schemaTableName, other.schemaTableName);
+        return Objects.equals(this.schemaTableName, other.schemaTableName) &&
+                Objects.equals(this.sortOrder, other.sortOrder) &&
+                Objects.equals(this.limit, other.limit);
     }
 
     @Override
     public String toString()
     {
-        return schemaTableName.toString();
+        if (!limit.isPresent()) {
+            return schemaTableName.toString();
+        }
+        return schemaTableName + (sortOrder.isEmpty() ? "" : " " + sortOrder) + " limit " + limit.getAsLong();
     }
 }
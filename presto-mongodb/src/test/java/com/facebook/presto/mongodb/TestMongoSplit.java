@@ -20,6 +20,8 @@ import com.google.common.collect.ImmutableList;
 import io.airlift.json.JsonCodec;
 import org.testng.annotations.Test;
 
+import java.util.OptionalLong;
+
 import static org.testng.Assert.assertEquals;
 
 public class TestMongoSplit
@@ -29,13 +31,14 @@ public class TestMongoSplit
     @Test
     public void testJsonRoundTrip()
     {
-        MongoSplit expected = new MongoSplit(new SchemaTableName("schema1", "table1"), TupleDomain.all(), ImmutableList.of());
+        MongoSplit expected = new MongoSplit(new SchemaTableName("schema1", "table1"), TupleDomain.all(), ImmutableList.of(), OptionalLong.of(10), ImmutableList.of());
 
         String json = codec.toJson(expected);
         MongoSplit actual = codec.fromJson(json);
 
         assertEquals(actual.getSchemaTableName(), expected.getSchemaTableName());
         assertEquals(actual.getTupleDomain(), TupleDomain.<ColumnHandle>all());
+        assertEquals(actual.getLimit(), OptionalLong.of(10));
         assertEquals(actual.getAddresses(), ImmutableList.of());
     }
 }
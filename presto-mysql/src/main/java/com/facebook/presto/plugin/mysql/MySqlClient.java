@@ -150,6 +150,13 @@ public class MySqlClient
                 resultSet.getString("TABLE_NAME").toLowerCase(ENGLISH));
     }
 
+    @Override
+    protected boolean supportsTopN()
+    {
+        // MySQL does not support NULLS FIRST and NULLS LAST
+        return false;
+    }
+
     @Override
     protected String toSqlType(Type type)
     {
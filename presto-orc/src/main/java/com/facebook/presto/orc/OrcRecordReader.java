@@ -17,6 +17,7 @@ import com.facebook.presto.memory.context.AggregatedMemoryContext;
 import com.facebook.presto.orc.OrcWriteValidation.StatisticsValidation;
 import com.facebook.presto.orc.OrcWriteValidation.WriteChecksum;
 import com.facebook.presto.orc.OrcWriteValidation.WriteChecksumBuilder;
+import com.facebook.presto.orc.cache.OrcFileTail;
 import com.facebook.presto.orc.metadata.ColumnEncoding;
 import com.facebook.presto.orc.metadata.MetadataReader;
 import com.facebook.presto.orc.metadata.OrcType;
@@ -134,6 +135,7 @@ public class OrcRecordReader
             DataSize tinyStripeThreshold,
             DataSize maxBlockSize,
             Map<String, Slice> userMetadata,
+            OrcFileTail fileTail,
             AggregatedMemoryContext systemMemoryUsage,
             Optional<OrcWriteValidation> writeValidation,
             int initialBatchSize)
@@ -236,6 +238,7 @@ public class OrcRecordReader
                 predicate,
                 hiveWriterVersion,
                 metadataReader,
+                fileTail,
                 writeValidation);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build(), streamReadersSystemMemoryContext);
@@ -243,13 +246,13 @@ public class OrcRecordReader
         nextBatchSize = initialBatchSize;
     }
 
-    private static boolean splitContainsStripe(long splitOffset, long splitLength, StripeInformation stripe)
+    static boolean splitContainsStripe(long splitOffset, long splitLength, StripeInformation stripe)
     {
         long splitEndOffset = splitOffset + splitLength;
         return splitOffset <= stripe.getOffset() && stripe.getOffset() < splitEndOffset;
     }
 
-    private static boolean isStripeIncluded(
+    static boolean isStripeIncluded(
             OrcType rootStructType,
             StripeInformation stripe,
             Optional<StripeStatistics> stripeStats,
@@ -568,7 +571,7 @@ public class OrcRecordReader
         return streamReaders;
     }
 
-    private static StreamDescriptor createStreamDescriptor(String parentStreamName, String fieldName, int typeId, List<OrcType> types, OrcDataSource dataSource)
+    static StreamDescriptor createStreamDescriptor(String parentStreamName, String fieldName, int typeId, List<OrcType> types, OrcDataSource dataSource)
     {
         OrcType type = types.get(typeId);
 
@@ -592,7 +595,7 @@ public class OrcRecordReader
         return new StreamDescriptor(parentStreamName, typeId, fieldName, type.getOrcTypeKind(), dataSource, nestedStreams.build());
     }
 
-    private static Map<Integer, ColumnStatistics> getStatisticsByColumnOrdinal(OrcType rootStructType, List<ColumnStatistics> fileStats)
+    static Map<Integer, ColumnStatistics> getStatisticsByColumnOrdinal(OrcType rootStructType, List<ColumnStatistics> fileStats)
     {
         requireNonNull(rootStructType, "rootStructType is null");
         checkArgument(rootStructType.getOrcTypeKind() == OrcTypeKind.STRUCT);
@@ -653,7 +656,7 @@ public class OrcRecordReader
         return systemMemoryUsage.getBytes();
     }
 
-    private static class StripeInfo
+    static class StripeInfo
     {
         private final StripeInformation stripe;
         private final Optional<StripeStatistics> stats;
@@ -0,0 +1,498 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.OrcRecordReader.StripeInfo;
+import com.facebook.presto.orc.cache.OrcFileTail;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.MetadataReader;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.statistics.ColumnStatistics;
+import com.facebook.presto.orc.metadata.statistics.StripeStatistics;
+import com.facebook.presto.orc.reader.SelectiveStreamReader;
+import com.facebook.presto.orc.reader.SelectiveStreamReaders;
+import com.facebook.presto.orc.stream.InputStreamSources;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Closer;
+import io.airlift.units.DataSize;
+import org.joda.time.DateTimeZone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.orc.OrcReader.BATCH_SIZE_GROWTH_FACTOR;
+import static com.facebook.presto.orc.OrcReader.MAX_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcRecordReader.createStreamDescriptor;
+import static com.facebook.presto.orc.OrcRecordReader.getStatisticsByColumnOrdinal;
+import static com.facebook.presto.orc.OrcRecordReader.isStripeIncluded;
+import static com.facebook.presto.orc.OrcRecordReader.splitContainsStripe;
+import static com.facebook.presto.orc.OrcRecordReader.wrapWithCacheIfTinyStripes;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Comparator.comparingLong;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads pages of the rows which pass the filters. The columns with filters are read first, one
+ * column at a time, each of them only at the positions which passed the filters on the previous
+ * columns. The remaining output columns are then decoded only at the positions which passed all
+ * the filters.
+ */
+public class OrcSelectiveRecordReader
+        implements Closeable
+{
+    private final OrcDataSource orcDataSource;
+
+    private final Map<Integer, Type> includedColumns;
+    private final List<Integer> outputColumns;
+    // the stream readers by column index; null for the columns which are missing from the file
+    private final SelectiveStreamReader[] streamReaders;
+    // the readers of the columns with filters, in the order the filters are evaluated
+    private final List<SelectiveStreamReader> filterReaders;
+    // the readers of the output columns without filters
+    private final List<SelectiveStreamReader> outputOnlyReaders;
+
+    private final long maxBlockBytes;
+    private final long[] maxBytesPerCell;
+    private long maxCombinedBytesPerRow;
+
+    private final long totalRowCount;
+    private long currentPosition;
+    private long currentStripePosition;
+    private int currentBatchSize;
+    private int nextBatchSize;
+    private int maxBatchSize = MAX_BATCH_SIZE;
+
+    private final List<StripeInformation> stripes;
+    private final StripeReader stripeReader;
+    private int currentStripe = -1;
+    private AggregatedMemoryContext currentStripeSystemMemoryContext;
+
+    private final long fileRowCount;
+    private final List<Long> stripeFilePositions;
+    private long filePosition;
+
+    private Iterator<RowGroup> rowGroups = ImmutableList.<RowGroup>of().iterator();
+    private long currentGroupRowCount;
+    private int nextRowInGroup;
+
+    private final AggregatedMemoryContext systemMemoryUsage;
+
+    private int[] positions = new int[0];
+
+    public OrcSelectiveRecordReader(
+            Map<Integer, Type> includedColumns,
+            List<Integer> outputColumns,
+            Map<Integer, Map<Subfield, TupleDomainFilter>> filters,
+            OrcPredicate predicate,
+            long numberOfRows,
+            List<StripeInformation> fileStripes,
+            List<ColumnStatistics> fileStats,
+            List<StripeStatistics> stripeStats,
+            OrcDataSource orcDataSource,
+            long splitOffset,
+            long splitLength,
+            List<OrcType> types,
+            Optional<OrcDecompressor> decompressor,
+            int rowsInRowGroup,
+            DateTimeZone hiveStorageTimeZone,
+            HiveWriterVersion hiveWriterVersion,
+            MetadataReader metadataReader,
+            DataSize maxMergeDistance,
+            DataSize tinyStripeThreshold,
+            DataSize maxBlockSize,
+            OrcFileTail fileTail,
+            AggregatedMemoryContext systemMemoryUsage,
+            int initialBatchSize)
+    {
+        requireNonNull(includedColumns, "includedColumns is null");
+        requireNonNull(outputColumns, "outputColumns is null");
+        requireNonNull(filters, "filters is null");
+        requireNonNull(predicate, "predicate is null");
+        requireNonNull(fileStripes, "fileStripes is null");
+        requireNonNull(stripeStats, "stripeStats is null");
+        requireNonNull(orcDataSource, "orcDataSource is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(decompressor, "decompressor is null");
+        requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        requireNonNull(systemMemoryUsage, "systemMemoryUsage is null");
+        for (int column : outputColumns) {
+            checkArgument(includedColumns.containsKey(column), "Output column %s is not included", column);
+        }
+        for (int column : filters.keySet()) {
+            checkArgument(includedColumns.containsKey(column), "Filtered column %s is not included", column);
+        }
+
+        this.includedColumns = ImmutableMap.copyOf(includedColumns);
+        this.outputColumns = ImmutableList.copyOf(outputColumns);
+        this.systemMemoryUsage = systemMemoryUsage.newAggregatedMemoryContext();
+        this.maxBlockBytes = requireNonNull(maxBlockSize, "maxBlockSize is null").toBytes();
+
+        // it is possible that old versions of orc use 0 to mean there are no row groups
+        checkArgument(rowsInRowGroup > 0, "rowsInRowGroup must be greater than zero");
+
+        // an old file can have less columns since columns can be added
+        // after the file was written; the values of such columns are null
+        OrcType root = types.get(0);
+        ImmutableSet.Builder<Integer> presentColumns = ImmutableSet.builder();
+        boolean missingColumnFilterFails = false;
+        for (Map.Entry<Integer, Type> entry : includedColumns.entrySet()) {
+            int column = entry.getKey();
+            if (column < root.getFieldCount()) {
+                presentColumns.add(column);
+            }
+            else if (filters.containsKey(column)) {
+                missingColumnFilterFails |= !filters.get(column).values().stream().allMatch(TupleDomainFilter::testNull);
+            }
+        }
+
+        // sort stripes by file position
+        List<StripeInfo> stripeInfos = new ArrayList<>();
+        for (int i = 0; i < fileStripes.size(); i++) {
+            Optional<StripeStatistics> stats = Optional.empty();
+            // ignore all stripe stats if too few or too many
+            if (stripeStats.size() == fileStripes.size()) {
+                stats = Optional.of(stripeStats.get(i));
+            }
+            stripeInfos.add(new StripeInfo(fileStripes.get(i), stats));
+        }
+        stripeInfos.sort(comparingLong(info -> info.getStripe().getOffset()));
+
+        long totalRowCount = 0;
+        long fileRowCount = 0;
+        ImmutableList.Builder<StripeInformation> stripes = ImmutableList.builder();
+        ImmutableList.Builder<Long> stripeFilePositions = ImmutableList.builder();
+        if (!missingColumnFilterFails && predicate.matches(numberOfRows, getStatisticsByColumnOrdinal(root, fileStats))) {
+            // select stripes that start within the specified split
+            for (StripeInfo info : stripeInfos) {
+                StripeInformation stripe = info.getStripe();
+                if (splitContainsStripe(splitOffset, splitLength, stripe) && isStripeIncluded(root, stripe, info.getStats(), predicate)) {
+                    stripes.add(stripe);
+                    stripeFilePositions.add(fileRowCount);
+                    totalRowCount += stripe.getNumberOfRows();
+                }
+                fileRowCount += stripe.getNumberOfRows();
+            }
+        }
+        this.totalRowCount = totalRowCount;
+        this.stripes = stripes.build();
+        this.stripeFilePositions = stripeFilePositions.build();
+
+        orcDataSource = wrapWithCacheIfTinyStripes(orcDataSource, this.stripes, maxMergeDistance, tinyStripeThreshold);
+        this.orcDataSource = orcDataSource;
+
+        this.fileRowCount = stripeInfos.stream()
+                .map(StripeInfo::getStripe)
+                .mapToLong(StripeInformation::getNumberOfRows)
+                .sum();
+
+        this.currentStripeSystemMemoryContext = this.systemMemoryUsage.newAggregatedMemoryContext();
+        AggregatedMemoryContext streamReadersSystemMemoryContext = this.systemMemoryUsage.newAggregatedMemoryContext();
+
+        Set<Integer> presentColumnSet = presentColumns.build();
+        stripeReader = new StripeReader(
+                orcDataSource,
+                decompressor,
+                types,
+                presentColumnSet,
+                rowsInRowGroup,
+                predicate,
+                hiveWriterVersion,
+                metadataReader,
+                fileTail,
+                Optional.empty());
+
+        List<StreamDescriptor> streamDescriptors = createStreamDescriptor("", "", 0, types, orcDataSource).getNestedStreams();
+        Set<Integer> outputColumnSet = ImmutableSet.copyOf(outputColumns);
+        streamReaders = new SelectiveStreamReader[root.getFieldCount()];
+        ImmutableList.Builder<SelectiveStreamReader> filterReaders = ImmutableList.builder();
+        for (Map.Entry<Integer, Map<Subfield, TupleDomainFilter>> entry : filters.entrySet()) {
+            int column = entry.getKey();
+            if (presentColumnSet.contains(column)) {
+                streamReaders[column] = SelectiveStreamReaders.createStreamReader(
+                        streamDescriptors.get(column),
+                        entry.getValue(),
+                        includedColumns.get(column),
+                        outputColumnSet.contains(column),
+                        hiveStorageTimeZone,
+                        streamReadersSystemMemoryContext);
+                filterReaders.add(streamReaders[column]);
+            }
+        }
+        ImmutableList.Builder<SelectiveStreamReader> outputOnlyReaders = ImmutableList.builder();
+        for (int column : outputColumns) {
+            if (presentColumnSet.contains(column) && streamReaders[column] == null) {
+                streamReaders[column] = SelectiveStreamReaders.createStreamReader(
+                        streamDescriptors.get(column),
+                        ImmutableMap.of(),
+                        includedColumns.get(column),
+                        true,
+                        hiveStorageTimeZone,
+                        streamReadersSystemMemoryContext);
+                outputOnlyReaders.add(streamReaders[column]);
+            }
+        }
+        this.filterReaders = filterReaders.build();
+        this.outputOnlyReaders = outputOnlyReaders.build();
+
+        maxBytesPerCell = new long[outputColumns.size()];
+        nextBatchSize = initialBatchSize;
+    }
+
+    /**
+     * Return the row position relative to the start of the file.
+     */
+    public long getFilePosition()
+    {
+        return filePosition;
+    }
+
+    /**
+     * Returns the total number of rows in the file. This count includes rows
+     * for stripes that were completely excluded due to stripe statistics.
+     */
+    public long getFileRowCount()
+    {
+        return fileRowCount;
+    }
+
+    /**
+     * Return the row position within the stripes being read by this reader.
+     * This position will include rows that were never read due to row groups
+     * that are excluded due to row group statistics or rows which did not
+     * pass the filters.
+     */
+    public long getReaderPosition()
+    {
+        return currentPosition;
+    }
+
+    /**
+     * Returns the total number of rows that can possibly be read by this reader.
+     */
+    public long getReaderRowCount()
+    {
+        return totalRowCount;
+    }
+
+    /**
+     * Returns the sum of the largest cells in size from each output column
+     */
+    public long getMaxCombinedBytesPerRow()
+    {
+        return maxCombinedBytesPerRow;
+    }
+
+    /**
+     * Returns the next page of the output columns for the rows which passed the filters,
+     * or null if there are no more rows to read. The returned page is never empty.
+     */
+    public Page getNextPage()
+            throws IOException
+    {
+        while (true) {
+            // update position for current row group (advancing resets them)
+            filePosition += currentBatchSize;
+            currentPosition += currentBatchSize;
+            currentBatchSize = 0;
+
+            // if next row is within the current group return
+            if (nextRowInGroup >= currentGroupRowCount) {
+                // attempt to advance to next row group
+                if (!advanceToNextRowGroup()) {
+                    filePosition = fileRowCount;
+                    currentPosition = totalRowCount;
+                    return null;
+                }
+            }
+
+            // grow the batch size the same way as OrcRecordReader#nextBatch
+            currentBatchSize = toIntExact(min(nextBatchSize, maxBatchSize));
+            nextBatchSize = min(currentBatchSize * BATCH_SIZE_GROWTH_FACTOR, MAX_BATCH_SIZE);
+            currentBatchSize = toIntExact(min(currentBatchSize, currentGroupRowCount - nextRowInGroup));
+
+            int offset = nextRowInGroup;
+            nextRowInGroup += currentBatchSize;
+
+            Page page = readPage(offset, currentBatchSize);
+            if (page != null) {
+                return page;
+            }
+        }
+    }
+
+    private Page readPage(int offset, int batchSize)
+            throws IOException
+    {
+        if (positions.length < batchSize) {
+            positions = new int[batchSize];
+        }
+        for (int i = 0; i < batchSize; i++) {
+            positions[i] = i;
+        }
+
+        int[] survivingPositions = positions;
+        int positionCount = batchSize;
+        for (SelectiveStreamReader reader : filterReaders) {
+            positionCount = reader.read(offset, survivingPositions, positionCount);
+            if (positionCount == 0) {
+                return null;
+            }
+            survivingPositions = reader.getReadPositions();
+        }
+        if (survivingPositions != positions) {
+            System.arraycopy(survivingPositions, 0, positions, 0, positionCount);
+        }
+
+        for (SelectiveStreamReader reader : outputOnlyReaders) {
+            reader.read(offset, positions, positionCount);
+        }
+
+        Block[] blocks = new Block[outputColumns.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            int column = outputColumns.get(i);
+            SelectiveStreamReader reader = column < streamReaders.length ? streamReaders[column] : null;
+            if (reader == null) {
+                Type type = includedColumns.get(column);
+                blocks[i] = new RunLengthEncodedBlock(type.createBlockBuilder(null, 1).appendNull().build(), positionCount);
+            }
+            else {
+                blocks[i] = reader.getBlock(positions, positionCount);
+                updateMaxCombinedBytesPerRow(i, blocks[i]);
+            }
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private void updateMaxCombinedBytesPerRow(int channel, Block block)
+    {
+        if (block.getPositionCount() > 0) {
+            long bytesPerCell = block.getSizeInBytes() / block.getPositionCount();
+            if (maxBytesPerCell[channel] < bytesPerCell) {
+                maxCombinedBytesPerRow = maxCombinedBytesPerRow - maxBytesPerCell[channel] + bytesPerCell;
+                maxBytesPerCell[channel] = bytesPerCell;
+                maxBatchSize = toIntExact(min(maxBatchSize, max(1, maxBlockBytes / maxCombinedBytesPerRow)));
+            }
+        }
+    }
+
+    private boolean advanceToNextRowGroup()
+            throws IOException
+    {
+        nextRowInGroup = 0;
+
+        while (!rowGroups.hasNext() && currentStripe < stripes.size()) {
+            advanceToNextStripe();
+        }
+
+        if (!rowGroups.hasNext()) {
+            currentGroupRowCount = 0;
+            return false;
+        }
+
+        RowGroup currentRowGroup = rowGroups.next();
+        currentGroupRowCount = currentRowGroup.getRowCount();
+        if (currentRowGroup.getMinAverageRowBytes() > 0) {
+            maxBatchSize = toIntExact(min(maxBatchSize, max(1, maxBlockBytes / currentRowGroup.getMinAverageRowBytes())));
+        }
+
+        currentPosition = currentStripePosition + currentRowGroup.getRowOffset();
+        filePosition = stripeFilePositions.get(currentStripe) + currentRowGroup.getRowOffset();
+
+        // give reader data streams from row group
+        InputStreamSources rowGroupStreamSources = currentRowGroup.getStreamSources();
+        for (SelectiveStreamReader reader : streamReaders) {
+            if (reader != null) {
+                reader.startRowGroup(rowGroupStreamSources);
+            }
+        }
+
+        return true;
+    }
+
+    private void advanceToNextStripe()
+            throws IOException
+    {
+        currentStripeSystemMemoryContext.close();
+        currentStripeSystemMemoryContext = systemMemoryUsage.newAggregatedMemoryContext();
+        rowGroups = ImmutableList.<RowGroup>of().iterator();
+
+        currentStripe++;
+        if (currentStripe >= stripes.size()) {
+            return;
+        }
+
+        if (currentStripe > 0) {
+            currentStripePosition += stripes.get(currentStripe - 1).getNumberOfRows();
+        }
+
+        StripeInformation stripeInformation = stripes.get(currentStripe);
+        Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+        if (stripe != null) {
+            // Give readers access to dictionary streams
+            InputStreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
+            List<ColumnEncoding> columnEncodings = stripe.getColumnEncodings();
+            for (SelectiveStreamReader reader : streamReaders) {
+                if (reader != null) {
+                    reader.startStripe(dictionaryStreamSources, columnEncodings);
+                }
+            }
+
+            rowGroups = stripe.getRowGroups().iterator();
+        }
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        try (Closer closer = Closer.create()) {
+            closer.register(orcDataSource);
+            for (SelectiveStreamReader reader : streamReaders) {
+                if (reader != null) {
+                    closer.register(() -> reader.close());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return The system memory reserved by this OrcSelectiveRecordReader. It does not include non-leaf level stream readers'
+     * instance sizes.
+     */
+    @VisibleForTesting
+    long getSystemMemoryUsage()
+    {
+        return systemMemoryUsage.getBytes();
+    }
+}
@@ -35,6 +35,11 @@ public interface TupleDomainFilter
 
     boolean testNull();
 
+    /**
+     * Tests a non-null value of a type which is not handled by any of the other methods, e.g. a struct.
+     */
+    boolean testNonNull();
+
     boolean testLong(long value);
 
     boolean testDouble(double value);
@@ -62,6 +67,11 @@ public interface TupleDomainFilter
             return nullAllowed;
         }
 
+        public boolean testNonNull()
+        {
+            throw new UnsupportedOperationException();
+        }
+
         public boolean testLong(long value)
         {
             throw new UnsupportedOperationException();
@@ -101,6 +111,12 @@ public interface TupleDomainFilter
             super(false);
         }
 
+        @Override
+        public boolean testNonNull()
+        {
+            return false;
+        }
+
         @Override
         public boolean testLong(long value)
         {
@@ -152,6 +168,12 @@ public interface TupleDomainFilter
             super(true);
         }
 
+        @Override
+        public boolean testNonNull()
+        {
+            return false;
+        }
+
         @Override
         public boolean testLong(long value)
         {
@@ -203,6 +225,12 @@ public interface TupleDomainFilter
             super(false);
         }
 
+        @Override
+        public boolean testNonNull()
+        {
+            return true;
+        }
+
         @Override
         public boolean testLong(long value)
         {
@@ -783,8 +811,8 @@ public interface TupleDomainFilter
                     if (buffer[i + offset] != lower[i]) {
                         return false;
                     }
-                    return true;
                 }
+                return true;
             }
 
             if (lower != null) {
@@ -39,6 +39,7 @@ import static com.facebook.presto.orc.TupleDomainFilter.IS_NOT_NULL;
 import static com.facebook.presto.orc.TupleDomainFilter.IS_NULL;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.IntegerType.INTEGER;
 import static com.facebook.presto.spi.type.RealType.REAL;
@@ -132,7 +133,7 @@ public class TupleDomainFilterUtils
             checkArgument(!nullAllowed, "Unexpected range of ALL values");
             return IS_NOT_NULL;
         }
-        if (type == TINYINT || type == SMALLINT || type == INTEGER || type == BIGINT || type == TIMESTAMP) {
+        if (type == TINYINT || type == SMALLINT || type == INTEGER || type == BIGINT || type == DATE || type == TIMESTAMP) {
             return bigintRangeToFilter(range, nullAllowed);
         }
         if (type == BOOLEAN) {
@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.PostScript.HiveWriterVersion;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The parsed tail of an ORC file (the post script, footer and metadata), together with
+ * the stripe footers of the file once they have been read.
+ */
+public class OrcFileTail
+{
+    private final HiveWriterVersion hiveWriterVersion;
+    private final int bufferSize;
+    private final CompressionKind compressionKind;
+    private final Footer footer;
+    private final Metadata metadata;
+    private final long encodedSize;
+
+    // stripe footers by the offset of the stripe
+    private final ConcurrentMap<Long, StripeFooter> stripeFooters = new ConcurrentHashMap<>();
+
+    public OrcFileTail(HiveWriterVersion hiveWriterVersion, int bufferSize, CompressionKind compressionKind, Footer footer, Metadata metadata, long encodedSize)
+    {
+        this.hiveWriterVersion = requireNonNull(hiveWriterVersion, "hiveWriterVersion is null");
+        this.bufferSize = bufferSize;
+        this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
+        this.footer = requireNonNull(footer, "footer is null");
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.encodedSize = encodedSize;
+    }
+
+    public HiveWriterVersion getHiveWriterVersion()
+    {
+        return hiveWriterVersion;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    public CompressionKind getCompressionKind()
+    {
+        return compressionKind;
+    }
+
+    public Footer getFooter()
+    {
+        return footer;
+    }
+
+    public Metadata getMetadata()
+    {
+        return metadata;
+    }
+
+    /**
+     * @return the size of the encoded tail and of all the encoded stripe footers of the file
+     */
+    public long getEncodedSize()
+    {
+        long size = encodedSize;
+        for (StripeInformation stripe : footer.getStripes()) {
+            size += stripe.getFooterLength();
+        }
+        return size;
+    }
+
+    public StripeFooter getStripeFooter(StripeInformation stripe, StripeFooterLoader loader)
+            throws IOException
+    {
+        StripeFooter stripeFooter = stripeFooters.get(stripe.getOffset());
+        if (stripeFooter == null) {
+            stripeFooter = loader.load(stripe);
+            stripeFooters.putIfAbsent(stripe.getOffset(), stripeFooter);
+        }
+        return stripeFooter;
+    }
+
+    public interface StripeFooterLoader
+    {
+        StripeFooter load(StripeInformation stripe)
+                throws IOException;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.cache;
+
+import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcDataSourceId;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caches the parsed tails and stripe footers of ORC files, so that the splits of a file
+ * which are read on the same worker do not read and decode them again. A file is identified
+ * by its data source id and size. The cache is bounded by the encoded size of the cached metadata.
+ */
+public class OrcFileTailCache
+{
+    private final long maxSize;
+    private final Cache<FileKey, OrcFileTail> cache;
+
+    public OrcFileTailCache(DataSize maxSize)
+    {
+        this.maxSize = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(this.maxSize)
+                .<FileKey, OrcFileTail>weigher((key, fileTail) -> toIntExact(min(fileTail.getEncodedSize(), Integer.MAX_VALUE)))
+                .recordStats()
+                .build();
+    }
+
+    public OrcFileTail getFileTail(OrcDataSource orcDataSource, OrcFileTailLoader loader)
+            throws IOException
+    {
+        if (maxSize == 0) {
+            return loader.load();
+        }
+
+        try {
+            return cache.get(new FileKey(orcDataSource.getId(), orcDataSource.getSize()), loader::load);
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    public interface OrcFileTailLoader
+    {
+        OrcFileTail load()
+                throws IOException;
+    }
+
+    private static final class FileKey
+    {
+        private final OrcDataSourceId id;
+        private final long size;
+
+        public FileKey(OrcDataSourceId id, long size)
+        {
+            this.id = requireNonNull(id, "id is null");
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey that = (FileKey) o;
+            return size == that.size &&
+                    Objects.equals(id, that.id);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(id, size);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("id", id)
+                    .add("size", size)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.stream.InputStreamSources;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Adapts a {@link StreamReader} to the {@link SelectiveStreamReader} interface for the types
+ * which do not have a dedicated selective reader. The rows from the first to the last requested
+ * position are decoded as a block and the filter is evaluated on the values of the block.
+ */
+public class BatchSelectiveStreamReader
+        implements SelectiveStreamReader
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BatchSelectiveStreamReader.class).instanceSize();
+
+    private final StreamReader delegate;
+    @Nullable
+    private final TupleDomainFilter filter;
+    private final Type type;
+    private final boolean outputRequired;
+
+    private int readOffset;
+
+    @Nullable
+    private Block block;
+    private int[] outputPositions = new int[0];
+    private int outputPositionCount;
+
+    public BatchSelectiveStreamReader(StreamReader delegate, Optional<TupleDomainFilter> filter, Type type, boolean outputRequired)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.filter = requireNonNull(filter, "filter is null").orElse(null);
+        this.type = requireNonNull(type, "type is null");
+        this.outputRequired = outputRequired;
+    }
+
+    @Override
+    public int read(int offset, int[] positions, int positionCount)
+            throws IOException
+    {
+        checkArgument(offset >= readOffset, "offset is before the end of the previous read");
+        if (outputPositions.length < positionCount) {
+            outputPositions = new int[positionCount];
+        }
+
+        outputPositionCount = 0;
+        block = null;
+        if (positionCount == 0) {
+            return 0;
+        }
+
+        int batchSize = positions[positionCount - 1] + 1;
+        if (offset > readOffset) {
+            // the skipped rows form a batch which is never read, so the delegate skips them
+            delegate.prepareNextRead(offset - readOffset);
+        }
+        delegate.prepareNextRead(batchSize);
+        block = delegate.readBlock(type);
+        readOffset = offset + batchSize;
+
+        for (int i = 0; i < positionCount; i++) {
+            if (filter == null || testValue(filter, type, block, positions[i])) {
+                outputPositions[outputPositionCount] = positions[i];
+                outputPositionCount++;
+            }
+        }
+        return outputPositionCount;
+    }
+
+    static boolean testValue(TupleDomainFilter filter, Type type, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return filter.testNull();
+        }
+        if (type == BOOLEAN) {
+            return filter.testBoolean(type.getBoolean(block, position));
+        }
+        if (type == DOUBLE) {
+            return filter.testDouble(type.getDouble(block, position));
+        }
+        if (type == REAL) {
+            return filter.testFloat(intBitsToFloat(toIntExact(type.getLong(block, position))));
+        }
+        if (type instanceof DecimalType && !((DecimalType) type).isShort()) {
+            Slice value = type.getSlice(block, position);
+            return filter.testDecimal(value.getLong(0), value.getLong(SIZE_OF_LONG));
+        }
+        if (type.getJavaType() == long.class) {
+            return filter.testLong(type.getLong(block, position));
+        }
+        if (type.getJavaType() == Slice.class) {
+            byte[] value = type.getSlice(block, position).getBytes();
+            return filter.testBytes(value, 0, value.length);
+        }
+        return filter.testNonNull();
+    }
+
+    @Override
+    public int[] getReadPositions()
+    {
+        return outputPositions;
+    }
+
+    @Override
+    public Block getBlock(int[] positions, int positionCount)
+    {
+        checkState(outputRequired, "output of the column is not required");
+        checkState(block != null || positionCount == 0, "no values have been read");
+        if (positionCount == 0) {
+            return type.createBlockBuilder(null, 0).build();
+        }
+        if (positionCount == block.getPositionCount()) {
+            return block;
+        }
+        return block.copyPositions(positions, 0, positionCount);
+    }
+
+    @Override
+    public void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
+            throws IOException
+    {
+        readOffset = 0;
+        block = null;
+        delegate.startStripe(dictionaryStreamSources, encoding);
+    }
+
+    @Override
+    public void startRowGroup(InputStreamSources dataStreamSources)
+            throws IOException
+    {
+        readOffset = 0;
+        block = null;
+        delegate.startRowGroup(dataStreamSources);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .addValue(delegate)
+                .toString();
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + delegate.getRetainedSizeInBytes() + sizeOf(outputPositions);
+    }
+}
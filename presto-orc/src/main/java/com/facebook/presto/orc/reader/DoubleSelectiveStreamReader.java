@@ -0,0 +1,240 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.orc.OrcCorruptionException;
+import com.facebook.presto.orc.StreamDescriptor;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.stream.BooleanInputStream;
+import com.facebook.presto.orc.stream.DoubleInputStream;
+import com.facebook.presto.orc.stream.InputStreamSource;
+import com.facebook.presto.orc.stream.InputStreamSources;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.PRESENT;
+import static com.facebook.presto.orc.stream.MissingInputStreamSource.missingStreamSource;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+public class DoubleSelectiveStreamReader
+        implements SelectiveStreamReader
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(DoubleSelectiveStreamReader.class).instanceSize();
+
+    private final StreamDescriptor streamDescriptor;
+    @Nullable
+    private final TupleDomainFilter filter;
+    private final Type type;
+    private final boolean outputRequired;
+
+    private int readOffset;
+
+    private InputStreamSource<BooleanInputStream> presentStreamSource = missingStreamSource(BooleanInputStream.class);
+    @Nullable
+    private BooleanInputStream presentStream;
+
+    private InputStreamSource<DoubleInputStream> dataStreamSource = missingStreamSource(DoubleInputStream.class);
+    @Nullable
+    private DoubleInputStream dataStream;
+
+    private boolean rowGroupOpen;
+
+    private double[] values = new double[0];
+    private boolean[] nulls = new boolean[0];
+    private int[] outputPositions = new int[0];
+    private int outputPositionCount;
+
+    private final LocalMemoryContext systemMemoryContext;
+
+    public DoubleSelectiveStreamReader(
+            StreamDescriptor streamDescriptor,
+            Optional<TupleDomainFilter> filter,
+            Type type,
+            boolean outputRequired,
+            LocalMemoryContext systemMemoryContext)
+    {
+        this.streamDescriptor = requireNonNull(streamDescriptor, "stream is null");
+        this.filter = requireNonNull(filter, "filter is null").orElse(null);
+        this.type = requireNonNull(type, "type is null");
+        this.outputRequired = outputRequired;
+        this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+    }
+
+    @Override
+    public int read(int offset, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+        checkArgument(offset >= readOffset, "offset is before the end of the previous read");
+        ensureCapacity(positionCount);
+
+        int streamPosition = readOffset;
+        outputPositionCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = offset + positions[i];
+            if (position > streamPosition) {
+                skip(position - streamPosition);
+            }
+            streamPosition = position + 1;
+
+            if (presentStream != null && !presentStream.nextBit()) {
+                if (filter == null || filter.testNull()) {
+                    nulls[outputPositionCount] = true;
+                    outputPositions[outputPositionCount] = positions[i];
+                    outputPositionCount++;
+                }
+                continue;
+            }
+
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            double value = dataStream.next();
+            if (filter == null || filter.testDouble(value)) {
+                values[outputPositionCount] = value;
+                nulls[outputPositionCount] = false;
+                outputPositions[outputPositionCount] = positions[i];
+                outputPositionCount++;
+            }
+        }
+        readOffset = streamPosition;
+        return outputPositionCount;
+    }
+
+    private void skip(int items)
+            throws IOException
+    {
+        if (presentStream != null) {
+            // skip ahead the present bit reader, but count the set bits
+            // and use this as the skip size for the data reader
+            items = presentStream.countBitsSet(items);
+        }
+        if (items > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            dataStream.skip(items);
+        }
+    }
+
+    private void ensureCapacity(int positionCount)
+    {
+        if (outputPositions.length < positionCount) {
+            values = new double[positionCount];
+            nulls = new boolean[positionCount];
+            outputPositions = new int[positionCount];
+            systemMemoryContext.setBytes(sizeOf(values) + sizeOf(nulls) + sizeOf(outputPositions));
+        }
+    }
+
+    @Override
+    public int[] getReadPositions()
+    {
+        return outputPositions;
+    }
+
+    @Override
+    public Block getBlock(int[] positions, int positionCount)
+    {
+        checkState(outputRequired, "output of the column is not required");
+        BlockBuilder builder = type.createBlockBuilder(null, positionCount);
+        int sourceIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (outputPositions[sourceIndex] != positions[i]) {
+                sourceIndex++;
+            }
+            if (nulls[sourceIndex]) {
+                builder.appendNull();
+            }
+            else {
+                type.writeDouble(builder, values[sourceIndex]);
+            }
+        }
+        return builder.build();
+    }
+
+    private void openRowGroup()
+            throws IOException
+    {
+        presentStream = presentStreamSource.openStream();
+        dataStream = dataStreamSource.openStream();
+
+        rowGroupOpen = true;
+    }
+
+    @Override
+    public void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
+    {
+        presentStreamSource = missingStreamSource(BooleanInputStream.class);
+        dataStreamSource = missingStreamSource(DoubleInputStream.class);
+
+        readOffset = 0;
+
+        presentStream = null;
+        dataStream = null;
+
+        rowGroupOpen = false;
+    }
+
+    @Override
+    public void startRowGroup(InputStreamSources dataStreamSources)
+    {
+        presentStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, PRESENT, BooleanInputStream.class);
+        dataStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, DATA, DoubleInputStream.class);
+
+        readOffset = 0;
+
+        presentStream = null;
+        dataStream = null;
+
+        rowGroupOpen = false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .addValue(streamDescriptor)
+                .toString();
+    }
+
+    @Override
+    public void close()
+    {
+        systemMemoryContext.close();
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(values) + sizeOf(nulls) + sizeOf(outputPositions);
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.stream.InputStreamSources;
+import com.facebook.presto.spi.block.Block;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Reads the values of a column at a selected set of positions and evaluates
+ * the filter of the column, if any, while decoding them. Positions which are
+ * not requested are skipped without being decoded.
+ */
+public interface SelectiveStreamReader
+{
+    /**
+     * Reads the values at the specified positions and applies the filter.
+     *
+     * @param offset position within the current row group which the positions are relative to;
+     * must not be less than the end of the positions of the previous read
+     * @param positions positions to read, in increasing order
+     * @param positionCount number of positions to read
+     * @return the number of positions which passed the filter; these are available from {@link #getReadPositions()}
+     */
+    int read(int offset, int[] positions, int positionCount)
+            throws IOException;
+
+    /**
+     * Returns the positions which passed the filter during the last read.
+     */
+    int[] getReadPositions();
+
+    /**
+     * Returns the values at the specified positions, which must be a subset of the positions
+     * which passed the filter during the last read. May only be called if the output of the
+     * column is required.
+     */
+    Block getBlock(int[] positions, int positionCount);
+
+    void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
+            throws IOException;
+
+    void startRowGroup(InputStreamSources dataStreamSources)
+            throws IOException;
+
+    void close();
+
+    long getRetainedSizeInBytes();
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.StreamDescriptor;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.type.Type;
+import org.joda.time.DateTimeZone;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.Iterables.getOnlyElement;
+
+public final class SelectiveStreamReaders
+{
+    private SelectiveStreamReaders()
+    {
+    }
+
+    public static SelectiveStreamReader createStreamReader(
+            StreamDescriptor streamDescriptor,
+            Map<Subfield, TupleDomainFilter> filters,
+            Type type,
+            boolean outputRequired,
+            DateTimeZone hiveStorageTimeZone,
+            AggregatedMemoryContext systemMemoryContext)
+    {
+        switch (streamDescriptor.getStreamType()) {
+            case BOOLEAN:
+                return new BooleanSelectiveStreamReader(streamDescriptor, getOptionalOnlyFilter(type, filters), type, outputRequired, systemMemoryContext.newLocalMemoryContext(SelectiveStreamReaders.class.getSimpleName()));
+            case SHORT:
+            case INT:
+            case LONG:
+            case DATE:
+                return new LongSelectiveStreamReader(streamDescriptor, getOptionalOnlyFilter(type, filters), type, outputRequired, systemMemoryContext);
+            case DOUBLE:
+                return new DoubleSelectiveStreamReader(streamDescriptor, getOptionalOnlyFilter(type, filters), type, outputRequired, systemMemoryContext.newLocalMemoryContext(SelectiveStreamReaders.class.getSimpleName()));
+            case BINARY:
+            case STRING:
+            case VARCHAR:
+            case CHAR:
+                return new SliceSelectiveStreamReader(streamDescriptor, getOptionalOnlyFilter(type, filters), type, outputRequired, systemMemoryContext);
+            case STRUCT:
+                return new StructSelectiveStreamReader(streamDescriptor, filters, type, outputRequired, hiveStorageTimeZone, systemMemoryContext);
+            case BYTE:
+            case FLOAT:
+            case TIMESTAMP:
+            case DECIMAL:
+            case LIST:
+            case MAP:
+                return new BatchSelectiveStreamReader(
+                        StreamReaders.createStreamReader(streamDescriptor, hiveStorageTimeZone, systemMemoryContext),
+                        getOptionalOnlyFilter(type, filters),
+                        type,
+                        outputRequired);
+            case UNION:
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + streamDescriptor.getStreamType());
+        }
+    }
+
+    private static Optional<TupleDomainFilter> getOptionalOnlyFilter(Type type, Map<Subfield, TupleDomainFilter> filters)
+    {
+        if (filters.isEmpty()) {
+            return Optional.empty();
+        }
+
+        checkArgument(filters.size() == 1, "Stream readers for %s support only one filter", type);
+        Map.Entry<Subfield, TupleDomainFilter> filter = getOnlyElement(filters.entrySet());
+        checkArgument(filter.getKey().getPath().isEmpty(), "Stream readers for %s do not support filters on subfields: %s", type, filter.getKey());
+        return Optional.of(filter.getValue());
+    }
+}
@@ -0,0 +1,424 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.memory.context.LocalMemoryContext;
+import com.facebook.presto.orc.OrcCorruptionException;
+import com.facebook.presto.orc.StreamDescriptor;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.stream.BooleanInputStream;
+import com.facebook.presto.orc.stream.ByteArrayInputStream;
+import com.facebook.presto.orc.stream.InputStreamSource;
+import com.facebook.presto.orc.stream.InputStreamSources;
+import com.facebook.presto.orc.stream.LongInputStream;
+import com.facebook.presto.orc.stream.RowGroupDictionaryLengthInputStream;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.DictionaryBlock;
+import com.facebook.presto.spi.block.VariableWidthBlock;
+import com.facebook.presto.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.IN_DICTIONARY;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.PRESENT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_GROUP_DICTIONARY;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_GROUP_DICTIONARY_LENGTH;
+import static com.facebook.presto.orc.reader.SliceDictionaryStreamReader.readDictionary;
+import static com.facebook.presto.orc.stream.MissingInputStreamSource.missingStreamSource;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Verify.verify;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads dictionary encoded strings. The filter is evaluated at most once per dictionary entry
+ * and the output shares the dictionary, so rows are never copied.
+ */
+public class SliceDictionarySelectiveStreamReader
+        implements SelectiveStreamReader
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(SliceDictionarySelectiveStreamReader.class).instanceSize();
+
+    private static final byte[] EMPTY_DICTIONARY_DATA = new byte[0];
+    // add one extra entry for null after strip/rowGroup dictionary
+    private static final int[] EMPTY_DICTIONARY_OFFSETS = new int[2];
+
+    private static final byte FILTER_NOT_EVALUATED = 0;
+    private static final byte FILTER_PASSED = 1;
+    private static final byte FILTER_FAILED = 2;
+
+    private final StreamDescriptor streamDescriptor;
+    @Nullable
+    private final TupleDomainFilter filter;
+    private final Type type;
+    private final boolean outputRequired;
+
+    private int readOffset;
+
+    private InputStreamSource<BooleanInputStream> presentStreamSource = missingStreamSource(BooleanInputStream.class);
+    @Nullable
+    private BooleanInputStream presentStream;
+
+    private InputStreamSource<ByteArrayInputStream> stripeDictionaryDataStreamSource = missingStreamSource(ByteArrayInputStream.class);
+    private boolean stripeDictionaryOpen;
+    private int stripeDictionarySize;
+    private int[] stripeDictionaryLength = new int[0];
+    private byte[] stripeDictionaryData = EMPTY_DICTIONARY_DATA;
+    private int[] stripeDictionaryOffsetVector = EMPTY_DICTIONARY_OFFSETS;
+
+    private VariableWidthBlock dictionaryBlock = new VariableWidthBlock(1, wrappedBuffer(EMPTY_DICTIONARY_DATA), EMPTY_DICTIONARY_OFFSETS, Optional.of(new boolean[] {true}));
+    private byte[] currentDictionaryData = EMPTY_DICTIONARY_DATA;
+    private int[] currentDictionaryOffsets = EMPTY_DICTIONARY_OFFSETS;
+    // result of the filter for each entry of the current dictionary
+    private byte[] filterResults = new byte[0];
+
+    private InputStreamSource<LongInputStream> stripeDictionaryLengthStreamSource = missingStreamSource(LongInputStream.class);
+
+    private InputStreamSource<BooleanInputStream> inDictionaryStreamSource = missingStreamSource(BooleanInputStream.class);
+    @Nullable
+    private BooleanInputStream inDictionaryStream;
+
+    private InputStreamSource<ByteArrayInputStream> rowGroupDictionaryDataStreamSource = missingStreamSource(ByteArrayInputStream.class);
+
+    private InputStreamSource<RowGroupDictionaryLengthInputStream> rowGroupDictionaryLengthStreamSource = missingStreamSource(RowGroupDictionaryLengthInputStream.class);
+    private int[] rowGroupDictionaryLength = new int[0];
+
+    private InputStreamSource<LongInputStream> dataStreamSource = missingStreamSource(LongInputStream.class);
+    @Nullable
+    private LongInputStream dataStream;
+
+    private boolean rowGroupOpen;
+
+    private int[] ids = new int[0];
+    private int[] outputPositions = new int[0];
+    private int outputPositionCount;
+
+    private final LocalMemoryContext systemMemoryContext;
+
+    public SliceDictionarySelectiveStreamReader(
+            StreamDescriptor streamDescriptor,
+            Optional<TupleDomainFilter> filter,
+            Type type,
+            boolean outputRequired,
+            LocalMemoryContext systemMemoryContext)
+    {
+        this.streamDescriptor = requireNonNull(streamDescriptor, "stream is null");
+        this.filter = requireNonNull(filter, "filter is null").orElse(null);
+        this.type = requireNonNull(type, "type is null");
+        this.outputRequired = outputRequired;
+        this.systemMemoryContext = requireNonNull(systemMemoryContext, "systemMemoryContext is null");
+    }
+
+    @Override
+    public int read(int offset, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+        checkArgument(offset >= readOffset, "offset is before the end of the previous read");
+        ensureCapacity(positionCount);
+
+        // null is the last entry in the slice dictionary
+        int nullId = dictionaryBlock.getPositionCount() - 1;
+        int streamPosition = readOffset;
+        outputPositionCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            int position = offset + positions[i];
+            if (position > streamPosition) {
+                skip(position - streamPosition);
+            }
+            streamPosition = position + 1;
+
+            if (presentStream != null && !presentStream.nextBit()) {
+                if (filter == null || filter.testNull()) {
+                    ids[outputPositionCount] = nullId;
+                    outputPositions[outputPositionCount] = positions[i];
+                    outputPositionCount++;
+                }
+                continue;
+            }
+
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            int id = toIntExact(dataStream.next());
+            if (inDictionaryStream != null && !inDictionaryStream.nextBit()) {
+                // row group dictionary elements are after the main dictionary
+                id += stripeDictionarySize;
+            }
+            if (filter == null || testDictionaryEntry(id)) {
+                ids[outputPositionCount] = id;
+                outputPositions[outputPositionCount] = positions[i];
+                outputPositionCount++;
+            }
+        }
+        readOffset = streamPosition;
+        return outputPositionCount;
+    }
+
+    private boolean testDictionaryEntry(int id)
+    {
+        byte result = filterResults[id];
+        if (result == FILTER_NOT_EVALUATED) {
+            int start = currentDictionaryOffsets[id];
+            int length = currentDictionaryOffsets[id + 1] - start;
+            result = filter.testBytes(currentDictionaryData, start, length) ? FILTER_PASSED : FILTER_FAILED;
+            filterResults[id] = result;
+        }
+        return result == FILTER_PASSED;
+    }
+
+    private void skip(int items)
+            throws IOException
+    {
+        if (presentStream != null) {
+            // skip ahead the present bit reader, but count the set bits
+            // and use this as the skip size for the data reader
+            items = presentStream.countBitsSet(items);
+        }
+        if (items > 0) {
+            if (dataStream == null) {
+                throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Value is not null but data stream is not present");
+            }
+            if (inDictionaryStream != null) {
+                inDictionaryStream.skip(items);
+            }
+            dataStream.skip(items);
+        }
+    }
+
+    private void ensureCapacity(int positionCount)
+    {
+        if (outputPositions.length < positionCount) {
+            ids = new int[positionCount];
+            outputPositions = new int[positionCount];
+            updateMemoryUsage();
+        }
+    }
+
+    private void updateMemoryUsage()
+    {
+        systemMemoryContext.setBytes(sizeOf(ids) + sizeOf(outputPositions) + sizeOf(filterResults));
+    }
+
+    @Override
+    public int[] getReadPositions()
+    {
+        return outputPositions;
+    }
+
+    @Override
+    public Block getBlock(int[] positions, int positionCount)
+    {
+        checkState(outputRequired, "output of the column is not required");
+
+        if (positionCount == outputPositionCount) {
+            return new DictionaryBlock(positionCount, dictionaryBlock, Arrays.copyOf(ids, positionCount));
+        }
+
+        int[] blockIds = new int[positionCount];
+        int sourceIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (outputPositions[sourceIndex] != positions[i]) {
+                sourceIndex++;
+            }
+            blockIds[i] = ids[sourceIndex];
+        }
+        return new DictionaryBlock(positionCount, dictionaryBlock, blockIds);
+    }
+
+    private void setDictionaryBlockData(byte[] dictionaryData, int[] dictionaryOffsets, int positionCount)
+    {
+        verify(positionCount > 0);
+        // only update the block if the array changed to prevent creation of new Block objects, since
+        // the engine currently uses identity equality to test if dictionaries are the same
+        if (currentDictionaryData != dictionaryData) {
+            boolean[] isNullVector = new boolean[positionCount];
+            isNullVector[positionCount - 1] = true;
+            dictionaryOffsets[positionCount] = dictionaryOffsets[positionCount - 1];
+            dictionaryBlock = new VariableWidthBlock(positionCount, wrappedBuffer(dictionaryData), dictionaryOffsets, Optional.of(isNullVector));
+            currentDictionaryData = dictionaryData;
+            currentDictionaryOffsets = dictionaryOffsets;
+
+            if (filter != null) {
+                if (filterResults.length < positionCount) {
+                    filterResults = new byte[positionCount];
+                }
+                else {
+                    Arrays.fill(filterResults, 0, positionCount, FILTER_NOT_EVALUATED);
+                }
+                updateMemoryUsage();
+            }
+        }
+    }
+
+    private void openRowGroup()
+            throws IOException
+    {
+        // read the dictionary
+        if (!stripeDictionaryOpen) {
+            if (stripeDictionarySize > 0) {
+                // resize the dictionary lengths array if necessary
+                if (stripeDictionaryLength.length < stripeDictionarySize) {
+                    stripeDictionaryLength = new int[stripeDictionarySize];
+                }
+
+                // read the lengths
+                LongInputStream lengthStream = stripeDictionaryLengthStreamSource.openStream();
+                if (lengthStream == null) {
+                    throw new OrcCorruptionException(streamDescriptor.getOrcDataSourceId(), "Dictionary is not empty but dictionary length stream is not present");
+                }
+                lengthStream.nextIntVector(stripeDictionarySize, stripeDictionaryLength, 0);
+
+                long dataLength = 0;
+                for (int i = 0; i < stripeDictionarySize; i++) {
+                    dataLength += stripeDictionaryLength[i];
+                }
+
+                // we must always create a new dictionary array because the previous dictionary may still be referenced
+                stripeDictionaryData = new byte[toIntExact(dataLength)];
+                // add one extra entry for null
+                stripeDictionaryOffsetVector = new int[stripeDictionarySize + 2];
+
+                // read dictionary values
+                ByteArrayInputStream dictionaryDataStream = stripeDictionaryDataStreamSource.openStream();
+                readDictionary(dictionaryDataStream, stripeDictionarySize, stripeDictionaryLength, 0, stripeDictionaryData, stripeDictionaryOffsetVector, type);
+            }
+            else {
+                stripeDictionaryData = EMPTY_DICTIONARY_DATA;
+                stripeDictionaryOffsetVector = EMPTY_DICTIONARY_OFFSETS;
+            }
+        }
+        stripeDictionaryOpen = true;
+
+        // read row group dictionary
+        RowGroupDictionaryLengthInputStream dictionaryLengthStream = rowGroupDictionaryLengthStreamSource.openStream();
+        if (dictionaryLengthStream != null) {
+            int rowGroupDictionarySize = dictionaryLengthStream.getEntryCount();
+
+            // resize the dictionary lengths array if necessary
+            if (rowGroupDictionaryLength.length < rowGroupDictionarySize) {
+                rowGroupDictionaryLength = new int[rowGroupDictionarySize];
+            }
+
+            // read the lengths
+            dictionaryLengthStream.nextIntVector(rowGroupDictionarySize, rowGroupDictionaryLength, 0);
+            long dataLength = 0;
+            for (int i = 0; i < rowGroupDictionarySize; i++) {
+                dataLength += rowGroupDictionaryLength[i];
+            }
+
+            // We must always create a new dictionary array because the previous dictionary may still be referenced
+            // The first elements of the dictionary are from the stripe dictionary, then the row group dictionary elements, and then a null
+            byte[] rowGroupDictionaryData = Arrays.copyOf(stripeDictionaryData, stripeDictionaryOffsetVector[stripeDictionarySize] + toIntExact(dataLength));
+            int[] rowGroupDictionaryOffsetVector = Arrays.copyOf(stripeDictionaryOffsetVector, stripeDictionarySize + rowGroupDictionarySize + 2);
+
+            // read dictionary values
+            ByteArrayInputStream dictionaryDataStream = rowGroupDictionaryDataStreamSource.openStream();
+            readDictionary(dictionaryDataStream, rowGroupDictionarySize, rowGroupDictionaryLength, stripeDictionarySize, rowGroupDictionaryData, rowGroupDictionaryOffsetVector, type);
+            setDictionaryBlockData(rowGroupDictionaryData, rowGroupDictionaryOffsetVector, stripeDictionarySize + rowGroupDictionarySize + 1);
+        }
+        else {
+            // there is no row group dictionary so use the stripe dictionary
+            setDictionaryBlockData(stripeDictionaryData, stripeDictionaryOffsetVector, stripeDictionarySize + 1);
+        }
+
+        presentStream = presentStreamSource.openStream();
+        inDictionaryStream = inDictionaryStreamSource.openStream();
+        dataStream = dataStreamSource.openStream();
+
+        rowGroupOpen = true;
+    }
+
+    @Override
+    public void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
+    {
+        stripeDictionaryDataStreamSource = dictionaryStreamSources.getInputStreamSource(streamDescriptor, DICTIONARY_DATA, ByteArrayInputStream.class);
+        stripeDictionaryLengthStreamSource = dictionaryStreamSources.getInputStreamSource(streamDescriptor, LENGTH, LongInputStream.class);
+        stripeDictionarySize = encoding.get(streamDescriptor.getStreamId())
+                .getColumnEncoding(streamDescriptor.getSequence())
+                .getDictionarySize();
+        stripeDictionaryOpen = false;
+
+        presentStreamSource = missingStreamSource(BooleanInputStream.class);
+        dataStreamSource = missingStreamSource(LongInputStream.class);
+
+        inDictionaryStreamSource = missingStreamSource(BooleanInputStream.class);
+        rowGroupDictionaryLengthStreamSource = missingStreamSource(RowGroupDictionaryLengthInputStream.class);
+        rowGroupDictionaryDataStreamSource = missingStreamSource(ByteArrayInputStream.class);
+
+        readOffset = 0;
+
+        presentStream = null;
+        inDictionaryStream = null;
+        dataStream = null;
+
+        rowGroupOpen = false;
+    }
+
+    @Override
+    public void startRowGroup(InputStreamSources dataStreamSources)
+    {
+        presentStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, PRESENT, BooleanInputStream.class);
+        dataStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, DATA, LongInputStream.class);
+
+        // the "in dictionary" stream signals if the value is in the stripe or row group dictionary
+        inDictionaryStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, IN_DICTIONARY, BooleanInputStream.class);
+        rowGroupDictionaryLengthStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, ROW_GROUP_DICTIONARY_LENGTH, RowGroupDictionaryLengthInputStream.class);
+        rowGroupDictionaryDataStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, ROW_GROUP_DICTIONARY, ByteArrayInputStream.class);
+
+        readOffset = 0;
+
+        presentStream = null;
+        inDictionaryStream = null;
+        dataStream = null;
+
+        rowGroupOpen = false;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .addValue(streamDescriptor)
+                .toString();
+    }
+
+    @Override
+    public void close()
+    {
+        systemMemoryContext.close();
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(ids) + sizeOf(outputPositions) + sizeOf(filterResults);
+    }
+}
@@ -285,7 +285,7 @@ public class SliceDictionaryStreamReader
     }
 
     // Reads dictionary into data and offsetVector
-    private static void readDictionary(
+    static void readDictionary(
             @Nullable ByteArrayInputStream dictionaryDataStream,
             int dictionarySize,
             int[] dictionaryLengthVector,
@@ -0,0 +1,417 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.reader;
+
+import com.facebook.presto.memory.context.AggregatedMemoryContext;
+import com.facebook.presto.orc.StreamDescriptor;
+import com.facebook.presto.orc.TupleDomainFilter;
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.stream.BooleanInputStream;
+import com.facebook.presto.orc.stream.InputStreamSource;
+import com.facebook.presto.orc.stream.InputStreamSources;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.Subfield.NestedField;
+import com.facebook.presto.spi.Subfield.PathElement;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.RowBlock;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.RowType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Closer;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.PRESENT;
+import static com.facebook.presto.orc.reader.SelectiveStreamReaders.createStreamReader;
+import static com.facebook.presto.orc.stream.MissingInputStreamSource.missingStreamSource;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.airlift.slice.SizeOf.sizeOf;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads a struct column. Filters on the fields of the struct, e.g. {@code c.a = 1}, are evaluated
+ * by the readers of the fields, only for the rows where the struct itself is not null. For the
+ * rows where it is null the value of every field is null as well.
+ */
+public class StructSelectiveStreamReader
+        implements SelectiveStreamReader
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(StructSelectiveStreamReader.class).instanceSize();
+
+    private final StreamDescriptor streamDescriptor;
+    @Nullable
+    private final TupleDomainFilter filter;
+    private final RowType type;
+    private final boolean outputRequired;
+
+    // readers of the fields with filters, in the order the filters are evaluated
+    private final List<SelectiveStreamReader> filterFieldReaders;
+    // readers of the fields without filters whose output is required
+    private final List<SelectiveStreamReader> outputOnlyFieldReaders;
+    // readers of the fields of the output type, or null for the fields missing from the file
+    private final SelectiveStreamReader[] outputFieldReaders;
+    private final List<SelectiveStreamReader> fieldReaders;
+
+    private final boolean nullsAllowed;
+    private final boolean nonNullsAllowed;
+
+    private int readOffset;
+    private int fieldReadOffset;
+
+    private InputStreamSource<BooleanInputStream> presentStreamSource = missingStreamSource(BooleanInputStream.class);
+    @Nullable
+    private BooleanInputStream presentStream;
+
+    private boolean rowGroupOpen;
+
+    private boolean[] batchNulls = new boolean[0];
+    private int[] fieldPositions = new int[0];
+    private int[] outputPositions = new int[0];
+    private boolean[] outputNulls = new boolean[0];
+    private int[] outputFieldPositions = new int[0];
+    private int outputPositionCount;
+
+    public StructSelectiveStreamReader(
+            StreamDescriptor streamDescriptor,
+            Map<Subfield, TupleDomainFilter> filters,
+            Type type,
+            boolean outputRequired,
+            DateTimeZone hiveStorageTimeZone,
+            AggregatedMemoryContext systemMemoryContext)
+    {
+        this.streamDescriptor = requireNonNull(streamDescriptor, "stream is null");
+        requireNonNull(filters, "filters is null");
+        checkArgument(type instanceof RowType, "Unexpected type for a struct: %s", type);
+        this.type = (RowType) type;
+        this.outputRequired = outputRequired;
+
+        Map<String, StreamDescriptor> fieldStreams = streamDescriptor.getNestedStreams().stream()
+                .collect(toImmutableMap(stream -> stream.getFieldName().toLowerCase(Locale.ENGLISH), stream -> stream));
+
+        TupleDomainFilter structFilter = null;
+        Map<String, Map<Subfield, TupleDomainFilter>> fieldFilters = new LinkedHashMap<>();
+        for (Map.Entry<Subfield, TupleDomainFilter> entry : filters.entrySet()) {
+            List<PathElement> path = entry.getKey().getPath();
+            if (path.isEmpty()) {
+                structFilter = entry.getValue();
+                continue;
+            }
+            checkArgument(path.get(0) instanceof NestedField, "Unsupported filter on a struct: %s", entry.getKey());
+            String fieldName = ((NestedField) path.get(0)).getName().toLowerCase(Locale.ENGLISH);
+            fieldFilters.computeIfAbsent(fieldName, name -> new LinkedHashMap<>())
+                    .put(new Subfield(fieldName, path.subList(1, path.size())), entry.getValue());
+        }
+        this.filter = structFilter;
+
+        boolean nullsAllowed = structFilter == null || structFilter.testNull();
+        boolean nonNullsAllowed = structFilter == null || structFilter.testNonNull();
+
+        Map<String, SelectiveStreamReader> readers = new LinkedHashMap<>();
+        ImmutableList.Builder<SelectiveStreamReader> filterFieldReaders = ImmutableList.builder();
+        for (Map.Entry<String, Map<Subfield, TupleDomainFilter>> entry : fieldFilters.entrySet()) {
+            String fieldName = entry.getKey();
+            Map<Subfield, TupleDomainFilter> filtersOnField = entry.getValue();
+            // the value of a field of a null struct is null
+            boolean fieldFiltersAllowNull = filtersOnField.values().stream().allMatch(TupleDomainFilter::testNull);
+            nullsAllowed &= fieldFiltersAllowNull;
+
+            StreamDescriptor fieldStream = fieldStreams.get(fieldName);
+            if (fieldStream == null) {
+                // the field is missing from the file, so its value is always null
+                nonNullsAllowed &= fieldFiltersAllowNull;
+                continue;
+            }
+            SelectiveStreamReader reader = createStreamReader(fieldStream, filtersOnField, getFieldType(fieldName), outputRequired, hiveStorageTimeZone, systemMemoryContext);
+            readers.put(fieldName, reader);
+            filterFieldReaders.add(reader);
+        }
+        this.filterFieldReaders = filterFieldReaders.build();
+        this.nullsAllowed = nullsAllowed;
+        this.nonNullsAllowed = nonNullsAllowed;
+
+        ImmutableList.Builder<SelectiveStreamReader> outputOnlyFieldReaders = ImmutableList.builder();
+        this.outputFieldReaders = new SelectiveStreamReader[this.type.getFields().size()];
+        if (outputRequired) {
+            for (int i = 0; i < outputFieldReaders.length; i++) {
+                String fieldName = getFieldName(this.type.getFields().get(i));
+                StreamDescriptor fieldStream = fieldStreams.get(fieldName);
+                if (fieldStream == null) {
+                    continue;
+                }
+                SelectiveStreamReader reader = readers.get(fieldName);
+                if (reader == null) {
+                    reader = createStreamReader(fieldStream, ImmutableMap.of(), this.type.getFields().get(i).getType(), true, hiveStorageTimeZone, systemMemoryContext);
+                    readers.put(fieldName, reader);
+                    outputOnlyFieldReaders.add(reader);
+                }
+                outputFieldReaders[i] = reader;
+            }
+        }
+        this.outputOnlyFieldReaders = outputOnlyFieldReaders.build();
+        this.fieldReaders = ImmutableList.copyOf(readers.values());
+    }
+
+    private Type getFieldType(String fieldName)
+    {
+        return type.getFields().stream()
+                .filter(field -> getFieldName(field).equals(fieldName))
+                .map(RowType.Field::getType)
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Struct does not have a field " + fieldName));
+    }
+
+    private static String getFieldName(RowType.Field field)
+    {
+        return field.getName()
+                .orElseThrow(() -> new IllegalArgumentException("Missing struct field name"))
+                .toLowerCase(Locale.ENGLISH);
+    }
+
+    @Override
+    public int read(int offset, int[] positions, int positionCount)
+            throws IOException
+    {
+        if (!rowGroupOpen) {
+            openRowGroup();
+        }
+        checkArgument(offset >= readOffset, "offset is before the end of the previous read");
+        ensureCapacity(positionCount);
+
+        outputPositionCount = 0;
+        if (positionCount == 0) {
+            return 0;
+        }
+
+        if (offset > readOffset) {
+            // skip ahead the present bit reader, but count the set bits
+            // and use this as the skip size for the field readers
+            fieldReadOffset += presentStream == null ? offset - readOffset : presentStream.countBitsSet(offset - readOffset);
+        }
+
+        int batchSize = positions[positionCount - 1] + 1;
+        if (batchNulls.length < batchSize) {
+            batchNulls = new boolean[batchSize];
+        }
+        int nullCount = 0;
+        if (presentStream != null) {
+            nullCount = presentStream.getUnsetBits(batchSize, batchNulls);
+        }
+        else {
+            Arrays.fill(batchNulls, 0, batchSize, false);
+        }
+
+        // the positions of the requested non-null structs, relative to the field read offset
+        int fieldPositionCount = 0;
+        int nonNullCount = 0;
+        int row = 0;
+        for (int i = 0; i < positionCount; i++) {
+            for (; row < positions[i]; row++) {
+                if (!batchNulls[row]) {
+                    nonNullCount++;
+                }
+            }
+            if (!batchNulls[row] && nonNullsAllowed) {
+                fieldPositions[fieldPositionCount] = nonNullCount;
+                fieldPositionCount++;
+            }
+        }
+
+        int[] survivingFieldPositions = fieldPositions;
+        for (SelectiveStreamReader reader : filterFieldReaders) {
+            if (fieldPositionCount == 0) {
+                break;
+            }
+            fieldPositionCount = reader.read(fieldReadOffset, survivingFieldPositions, fieldPositionCount);
+            survivingFieldPositions = reader.getReadPositions();
+        }
+        if (survivingFieldPositions != fieldPositions) {
+            System.arraycopy(survivingFieldPositions, 0, fieldPositions, 0, fieldPositionCount);
+        }
+        if (fieldPositionCount > 0) {
+            for (SelectiveStreamReader reader : outputOnlyFieldReaders) {
+                reader.read(fieldReadOffset, fieldPositions, fieldPositionCount);
+            }
+        }
+
+        // merge the null structs which passed the filter with the non-null structs which passed the filters on the fields
+        int fieldIndex = 0;
+        nonNullCount = 0;
+        row = 0;
+        for (int i = 0; i < positionCount; i++) {
+            for (; row < positions[i]; row++) {
+                if (!batchNulls[row]) {
+                    nonNullCount++;
+                }
+            }
+            if (batchNulls[row]) {
+                if (nullsAllowed) {
+                    outputNulls[outputPositionCount] = true;
+                    outputPositions[outputPositionCount] = positions[i];
+                    outputPositionCount++;
+                }
+            }
+            else if (fieldIndex < fieldPositionCount && fieldPositions[fieldIndex] == nonNullCount) {
+                outputNulls[outputPositionCount] = false;
+                outputFieldPositions[outputPositionCount] = nonNullCount;
+                outputPositions[outputPositionCount] = positions[i];
+                outputPositionCount++;
+                fieldIndex++;
+            }
+        }
+
+        readOffset = offset + batchSize;
+        fieldReadOffset += batchSize - nullCount;
+        return outputPositionCount;
+    }
+
+    private void ensureCapacity(int positionCount)
+    {
+        if (outputPositions.length < positionCount) {
+            fieldPositions = new int[positionCount];
+            outputPositions = new int[positionCount];
+            outputNulls = new boolean[positionCount];
+            outputFieldPositions = new int[positionCount];
+        }
+    }
+
+    @Override
+    public int[] getReadPositions()
+    {
+        return outputPositions;
+    }
+
+    @Override
+    public Block getBlock(int[] positions, int positionCount)
+    {
+        checkState(outputRequired, "output of the column is not required");
+
+        boolean[] rowIsNull = new boolean[positionCount];
+        int[] blockFieldPositions = new int[positionCount];
+        int fieldPositionCount = 0;
+        int sourceIndex = 0;
+        for (int i = 0; i < positionCount; i++) {
+            while (outputPositions[sourceIndex] != positions[i]) {
+                sourceIndex++;
+            }
+            rowIsNull[i] = outputNulls[sourceIndex];
+            if (!rowIsNull[i]) {
+                blockFieldPositions[fieldPositionCount] = outputFieldPositions[sourceIndex];
+                fieldPositionCount++;
+            }
+        }
+
+        Block[] fieldBlocks = new Block[outputFieldReaders.length];
+        for (int i = 0; i < outputFieldReaders.length; i++) {
+            if (outputFieldReaders[i] == null) {
+                Type fieldType = type.getFields().get(i).getType();
+                fieldBlocks[i] = new RunLengthEncodedBlock(fieldType.createBlockBuilder(null, 1).appendNull().build(), fieldPositionCount);
+            }
+            else {
+                fieldBlocks[i] = outputFieldReaders[i].getBlock(blockFieldPositions, fieldPositionCount);
+            }
+        }
+        return RowBlock.fromFieldBlocks(positionCount, Optional.of(rowIsNull), fieldBlocks);
+    }
+
+    private void openRowGroup()
+            throws IOException
+    {
+        presentStream = presentStreamSource.openStream();
+
+        rowGroupOpen = true;
+    }
+
+    @Override
+    public void startStripe(InputStreamSources dictionaryStreamSources, List<ColumnEncoding> encoding)
+            throws IOException
+    {
+        presentStreamSource = missingStreamSource(BooleanInputStream.class);
+
+        readOffset = 0;
+        fieldReadOffset = 0;
+
+        presentStream = null;
+
+        rowGroupOpen = false;
+
+        for (SelectiveStreamReader reader : fieldReaders) {
+            reader.startStripe(dictionaryStreamSources, encoding);
+        }
+    }
+
+    @Override
+    public void startRowGroup(InputStreamSources dataStreamSources)
+            throws IOException
+    {
+        presentStreamSource = dataStreamSources.getInputStreamSource(streamDescriptor, PRESENT, BooleanInputStream.class);
+
+        readOffset = 0;
+        fieldReadOffset = 0;
+
+        presentStream = null;
+
+        rowGroupOpen = false;
+
+        for (SelectiveStreamReader reader : fieldReaders) {
+            reader.startRowGroup(dataStreamSources);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .addValue(streamDescriptor)
+                .toString();
+    }
+
+    @Override
+    public void close()
+    {
+        try (Closer closer = Closer.create()) {
+            for (SelectiveStreamReader reader : fieldReaders) {
+                closer.register(() -> reader.close());
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + sizeOf(batchNulls) + sizeOf(fieldPositions) + sizeOf(outputPositions) + sizeOf(outputNulls) + sizeOf(outputFieldPositions);
+        for (SelectiveStreamReader reader : fieldReaders) {
+            retainedSizeInBytes += reader.getRetainedSizeInBytes();
+        }
+        return retainedSizeInBytes;
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.cache.OrcFileTail;
+import com.facebook.presto.orc.cache.OrcFileTailCache;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcTester.MAX_BLOCK_SIZE;
+import static com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class TestOrcFileTailCache
+{
+    private static final int ROW_COUNT = 10_000;
+
+    @Test
+    public void testFileTailReuse()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(tempFile);
+            OrcFileTailCache cache = new OrcFileTailCache(new DataSize(1, MEGABYTE));
+
+            TestingOrcDataSource firstDataSource = createDataSource(tempFile);
+            OrcReader firstReader = createReader(firstDataSource, cache);
+            assertEquals(readRows(firstReader), ROW_COUNT);
+            assertEquals(cache.getMissCount(), 1);
+            assertEquals(cache.getHitCount(), 0);
+
+            // the tail of the second reader comes from the cache, so nothing is read while opening the file
+            TestingOrcDataSource secondDataSource = createDataSource(tempFile);
+            OrcReader secondReader = createReader(secondDataSource, cache);
+            assertEquals(secondDataSource.getReadCount(), 0);
+            assertSame(secondReader.getFooter(), firstReader.getFooter());
+            assertSame(secondReader.getMetadata(), firstReader.getMetadata());
+            assertEquals(readRows(secondReader), ROW_COUNT);
+            assertEquals(cache.getMissCount(), 1);
+            assertEquals(cache.getHitCount(), 1);
+            assertEquals(cache.getSize(), 1);
+
+            // the stripe footers were memoized by the first reader
+            OrcFileTail fileTail = cache.getFileTail(secondDataSource, () -> {
+                throw new AssertionError("file tail is not cached");
+            });
+            for (StripeInformation stripe : fileTail.getFooter().getStripes()) {
+                assertNotNull(fileTail.getStripeFooter(stripe, stripeInformation -> {
+                    throw new AssertionError("stripe footer is not cached");
+                }));
+            }
+        }
+    }
+
+    @Test
+    public void testDisabledCache()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(tempFile);
+            OrcFileTailCache cache = new OrcFileTailCache(new DataSize(0, BYTE));
+
+            OrcReader firstReader = createReader(createDataSource(tempFile), cache);
+            OrcReader secondReader = createReader(createDataSource(tempFile), cache);
+            if (firstReader.getFooter() == secondReader.getFooter()) {
+                fail("file tail should not be cached");
+            }
+            assertEquals(readRows(secondReader), ROW_COUNT);
+            assertEquals(cache.getMissCount(), 0);
+            assertEquals(cache.getHitCount(), 0);
+            assertEquals(cache.getSize(), 0);
+        }
+    }
+
+    private static TestingOrcDataSource createDataSource(TempFile tempFile)
+            throws IOException
+    {
+        return new TestingOrcDataSource(new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true));
+    }
+
+    private static OrcReader createReader(OrcDataSource orcDataSource, OrcFileTailCache cache)
+            throws IOException
+    {
+        return new OrcReader(orcDataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, BYTE), MAX_BLOCK_SIZE, cache);
+    }
+
+    private static int readRows(OrcReader orcReader)
+            throws IOException
+    {
+        int rows = 0;
+        try (OrcRecordReader recordReader = orcReader.createRecordReader(ImmutableMap.of(0, BIGINT), OrcPredicate.TRUE, HIVE_STORAGE_TIME_ZONE, newSimpleAggregatedMemoryContext(), INITIAL_BATCH_SIZE)) {
+            for (int batchSize = recordReader.nextBatch(); batchSize > 0; batchSize = recordReader.nextBatch()) {
+                rows += batchSize;
+            }
+        }
+        return rows;
+    }
+
+    private static void writeFile(TempFile tempFile)
+            throws IOException
+    {
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamOrcDataSink(new FileOutputStream(tempFile.getFile())),
+                ImmutableList.of("a"),
+                ImmutableList.of(BIGINT),
+                ORC,
+                ZLIB,
+                new OrcWriterOptions(),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                true,
+                BOTH,
+                new OrcWriterStats());
+
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(null, ROW_COUNT);
+        for (int row = 0; row < ROW_COUNT; row++) {
+            BIGINT.writeLong(blockBuilder, row);
+        }
+        writer.write(new Page(blockBuilder.build()));
+        writer.close();
+    }
+}
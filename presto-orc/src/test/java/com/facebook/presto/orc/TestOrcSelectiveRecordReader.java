@@ -0,0 +1,454 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.TupleDomainFilter.BigintRange;
+import com.facebook.presto.orc.TupleDomainFilter.BooleanValue;
+import com.facebook.presto.orc.TupleDomainFilter.BytesRange;
+import com.facebook.presto.orc.TupleDomainFilter.DoubleRange;
+import com.facebook.presto.orc.TupleDomainFilter.FloatRange;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.Subfield;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.ArrayType;
+import com.facebook.presto.spi.type.RowType;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+import static com.facebook.presto.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static com.facebook.presto.orc.OrcEncoding.ORC;
+import static com.facebook.presto.orc.OrcReader.INITIAL_BATCH_SIZE;
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.orc.OrcTester.MAX_BLOCK_SIZE;
+import static com.facebook.presto.orc.OrcWriteValidation.OrcWriteValidationMode.BOTH;
+import static com.facebook.presto.orc.TupleDomainFilter.IS_NOT_NULL;
+import static com.facebook.presto.orc.TupleDomainFilter.IS_NULL;
+import static com.facebook.presto.orc.metadata.CompressionKind.NONE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.RowType.field;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Float.floatToRawIntBits;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class TestOrcSelectiveRecordReader
+{
+    private static final int ROW_COUNT = 25_000;
+    private static final List<Type> PRIMITIVE_TYPES = ImmutableList.of(BIGINT, DOUBLE, BOOLEAN);
+    private static final RowType ROW_TYPE = RowType.from(ImmutableList.of(field("x", BIGINT), field("y", VARCHAR)));
+    private static final List<Type> NESTED_TYPES = ImmutableList.of(VARCHAR, VARCHAR, ROW_TYPE, REAL, new ArrayType(BIGINT));
+    private static final List<String> DICTIONARY_VALUES = ImmutableList.of("alpha", "beta", "gamma", "delta");
+    private static final List<Block> PRIMITIVE_COLUMNS = createPrimitiveColumns();
+    private static final List<Block> NESTED_COLUMNS = createNestedColumns();
+
+    @Test
+    public void testNoFilters()
+            throws Exception
+    {
+        assertSelectiveRead(PRIMITIVE_TYPES, PRIMITIVE_COLUMNS, ImmutableMap.of(), ImmutableList.of(0, 1, 2), row -> true);
+        assertSelectiveRead(NESTED_TYPES, NESTED_COLUMNS, ImmutableMap.of(), ImmutableList.of(0, 1, 2, 3, 4), row -> true);
+    }
+
+    @Test
+    public void testSingleFilter()
+            throws Exception
+    {
+        assertSelectiveRead(
+                PRIMITIVE_TYPES,
+                PRIMITIVE_COLUMNS,
+                ImmutableMap.of(0, ImmutableMap.of(new Subfield("a"), BigintRange.of(100, 5_000, false))),
+                ImmutableList.of(1, 2),
+                row -> !isNullBigint(row) && row >= 100 && row <= 5_000);
+
+        // filter on a column which is not an output column
+        assertSelectiveRead(
+                PRIMITIVE_TYPES,
+                PRIMITIVE_COLUMNS,
+                ImmutableMap.of(2, ImmutableMap.of(new Subfield("c"), BooleanValue.of(true, false))),
+                ImmutableList.of(0),
+                row -> row % 3 == 0);
+    }
+
+    @Test
+    public void testMultipleFilters()
+            throws Exception
+    {
+        assertSelectiveRead(
+                PRIMITIVE_TYPES,
+                PRIMITIVE_COLUMNS,
+                ImmutableMap.of(
+                        0, ImmutableMap.of(new Subfield("a"), BigintRange.of(0, 20_000, true)),
+                        1, ImmutableMap.of(new Subfield("b"), DoubleRange.of(1_000, false, false, 0, true, true, false))),
+                ImmutableList.of(0, 2),
+                row -> (isNullBigint(row) || row <= 20_000) && row * 0.5 >= 1_000);
+    }
+
+    @Test
+    public void testNullFilter()
+            throws Exception
+    {
+        assertSelectiveRead(
+                PRIMITIVE_TYPES,
+                PRIMITIVE_COLUMNS,
+                ImmutableMap.of(0, ImmutableMap.of(new Subfield("a"), IS_NULL)),
+                ImmutableList.of(0, 1),
+                TestOrcSelectiveRecordReader::isNullBigint);
+    }
+
+    @Test
+    public void testFilterOnMissingColumn()
+            throws Exception
+    {
+        // the values of a column which is missing from the file are null
+        assertSelectiveRead(
+                PRIMITIVE_TYPES,
+                PRIMITIVE_COLUMNS,
+                ImmutableMap.of(3, ImmutableMap.of(new Subfield("d"), IS_NULL)),
+                ImmutableList.of(0, 3),
+                row -> true);
+
+        assertSelectiveRead(
+                PRIMITIVE_TYPES,
+                PRIMITIVE_COLUMNS,
+                ImmutableMap.of(3, ImmutableMap.of(new Subfield("d"), BigintRange.of(0, 10, false))),
+                ImmutableList.of(0, 3),
+                row -> false);
+    }
+
+    @Test
+    public void testSliceDirectFilter()
+            throws Exception
+    {
+        // the values of the column are unique, so it is written with the direct encoding
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(0, ImmutableMap.of(new Subfield("c0"), BytesRange.of(bytes("value_1"), false, bytes("value_2"), true, false))),
+                ImmutableList.of(0, 1, 3),
+                row -> !isNullVarchar(row) && Integer.toString(row).startsWith("1"));
+
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(0, ImmutableMap.of(new Subfield("c0"), IS_NULL)),
+                ImmutableList.of(0, 2),
+                TestOrcSelectiveRecordReader::isNullVarchar);
+    }
+
+    @Test
+    public void testSliceDictionaryFilter()
+            throws Exception
+    {
+        // the column has few distinct values, so it is written with the dictionary encoding
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(1, ImmutableMap.of(new Subfield("c1"), BytesRange.of(bytes("beta"), false, bytes("beta"), false, false))),
+                ImmutableList.of(0, 1, 4),
+                row -> !isNullDictionaryVarchar(row) && row % DICTIONARY_VALUES.size() == 1);
+
+        // filter on a column which is not an output column
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(1, ImmutableMap.of(new Subfield("c1"), BytesRange.of(bytes("delta"), false, bytes("gamma"), false, true))),
+                ImmutableList.of(3),
+                row -> isNullDictionaryVarchar(row) || row % DICTIONARY_VALUES.size() >= 2);
+    }
+
+    @Test
+    public void testStructFilter()
+            throws Exception
+    {
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(2, ImmutableMap.of(new Subfield("c2"), IS_NULL)),
+                ImmutableList.of(2, 3),
+                TestOrcSelectiveRecordReader::isNullStruct);
+
+        // the value of a field of a null struct is null
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(2, ImmutableMap.of(new Subfield("c2.x"), BigintRange.of(1_000, 10_000, false))),
+                ImmutableList.of(0, 2),
+                row -> !isNullStruct(row) && !isNullStructField(row) && row >= 1_000 && row <= 10_000);
+
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(2, ImmutableMap.of(new Subfield("c2.x"), IS_NULL)),
+                ImmutableList.of(1, 2),
+                row -> isNullStruct(row) || isNullStructField(row));
+
+        // filters on several fields, on a column which is not an output column
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(2, ImmutableMap.of(
+                        new Subfield("c2.x"), BigintRange.of(0, 5_000, false),
+                        new Subfield("c2.y"), BytesRange.of(bytes("y1"), false, bytes("y1"), false, false))),
+                ImmutableList.of(0),
+                row -> !isNullStruct(row) && !isNullStructField(row) && row <= 5_000 && row % 4 == 1);
+    }
+
+    @Test
+    public void testBatchReaderFilter()
+            throws Exception
+    {
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(3, ImmutableMap.of(new Subfield("c3"), FloatRange.of(100, false, false, 0, true, true, false))),
+                ImmutableList.of(0, 3, 4),
+                row -> row * 0.25f >= 100);
+
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(4, ImmutableMap.of(new Subfield("c4"), IS_NOT_NULL)),
+                ImmutableList.of(2, 4),
+                row -> !isNullArray(row));
+
+        // filters evaluated by the batch reader and by a selective reader
+        assertSelectiveRead(
+                NESTED_TYPES,
+                NESTED_COLUMNS,
+                ImmutableMap.of(
+                        3, ImmutableMap.of(new Subfield("c3"), FloatRange.of(0, true, true, 1_000, false, true, false)),
+                        4, ImmutableMap.of(new Subfield("c4"), IS_NULL),
+                        1, ImmutableMap.of(new Subfield("c1"), BytesRange.of(bytes("alpha"), false, bytes("alpha"), false, false))),
+                ImmutableList.of(0, 1, 2, 3, 4),
+                row -> row * 0.25f < 1_000 && isNullArray(row) && !isNullDictionaryVarchar(row) && row % DICTIONARY_VALUES.size() == 0);
+    }
+
+    private static void assertSelectiveRead(
+            List<Type> types,
+            List<Block> columns,
+            Map<Integer, Map<Subfield, TupleDomainFilter>> filters,
+            List<Integer> outputColumns,
+            IntPredicate expectedRows)
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            writeFile(tempFile, types, columns);
+
+            // the column after the last column of the file is missing from the file
+            ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+            for (int column = 0; column < types.size(); column++) {
+                includedColumns.put(column, types.get(column));
+            }
+            includedColumns.put(types.size(), BIGINT);
+
+            List<Integer> expectedRowNumbers = new ArrayList<>();
+            for (int row = 0; row < ROW_COUNT; row++) {
+                if (expectedRows.test(row)) {
+                    expectedRowNumbers.add(row);
+                }
+            }
+
+            int rowIndex = 0;
+            try (OrcSelectiveRecordReader reader = createSelectiveRecordReader(tempFile, includedColumns.build(), outputColumns, filters)) {
+                for (Page page = reader.getNextPage(); page != null; page = reader.getNextPage()) {
+                    assertEquals(page.getChannelCount(), outputColumns.size());
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        int row = expectedRowNumbers.get(rowIndex);
+                        for (int channel = 0; channel < outputColumns.size(); channel++) {
+                            int column = outputColumns.get(channel);
+                            if (column < types.size()) {
+                                Type type = types.get(column);
+                                assertEquals(type.getObjectValue(SESSION, page.getBlock(channel), position), type.getObjectValue(SESSION, columns.get(column), row));
+                            }
+                            else {
+                                assertEquals(page.getBlock(channel).isNull(position), true);
+                            }
+                        }
+                        rowIndex++;
+                    }
+                }
+                assertNull(reader.getNextPage());
+            }
+            assertEquals(rowIndex, expectedRowNumbers.size());
+        }
+    }
+
+    private static List<Block> createPrimitiveColumns()
+    {
+        BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder doubleBuilder = DOUBLE.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder booleanBuilder = BOOLEAN.createBlockBuilder(null, ROW_COUNT);
+        for (int row = 0; row < ROW_COUNT; row++) {
+            if (isNullBigint(row)) {
+                bigintBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(bigintBuilder, row);
+            }
+            DOUBLE.writeDouble(doubleBuilder, row * 0.5);
+            BOOLEAN.writeBoolean(booleanBuilder, row % 3 == 0);
+        }
+        return ImmutableList.of(bigintBuilder.build(), doubleBuilder.build(), booleanBuilder.build());
+    }
+
+    private static List<Block> createNestedColumns()
+    {
+        BlockBuilder directBuilder = VARCHAR.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder dictionaryBuilder = VARCHAR.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder rowBuilder = ROW_TYPE.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder realBuilder = REAL.createBlockBuilder(null, ROW_COUNT);
+        BlockBuilder arrayBuilder = NESTED_TYPES.get(4).createBlockBuilder(null, ROW_COUNT);
+        for (int row = 0; row < ROW_COUNT; row++) {
+            if (isNullVarchar(row)) {
+                directBuilder.appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(directBuilder, utf8Slice("value_" + row));
+            }
+
+            if (isNullDictionaryVarchar(row)) {
+                dictionaryBuilder.appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(dictionaryBuilder, utf8Slice(DICTIONARY_VALUES.get(row % DICTIONARY_VALUES.size())));
+            }
+
+            if (isNullStruct(row)) {
+                rowBuilder.appendNull();
+            }
+            else {
+                BlockBuilder fieldBuilder = rowBuilder.beginBlockEntry();
+                if (isNullStructField(row)) {
+                    fieldBuilder.appendNull();
+                }
+                else {
+                    BIGINT.writeLong(fieldBuilder, row);
+                }
+                VARCHAR.writeSlice(fieldBuilder, utf8Slice("y" + row % 4));
+                rowBuilder.closeEntry();
+            }
+
+            REAL.writeLong(realBuilder, floatToRawIntBits(row * 0.25f));
+
+            if (isNullArray(row)) {
+                arrayBuilder.appendNull();
+            }
+            else {
+                BlockBuilder elementBuilder = arrayBuilder.beginBlockEntry();
+                BIGINT.writeLong(elementBuilder, row);
+                BIGINT.writeLong(elementBuilder, row + 1);
+                arrayBuilder.closeEntry();
+            }
+        }
+        return ImmutableList.of(directBuilder.build(), dictionaryBuilder.build(), rowBuilder.build(), realBuilder.build(), arrayBuilder.build());
+    }
+
+    private static boolean isNullBigint(int row)
+    {
+        return row % 7 == 0;
+    }
+
+    private static boolean isNullVarchar(int row)
+    {
+        return row % 11 == 0;
+    }
+
+    private static boolean isNullDictionaryVarchar(int row)
+    {
+        return row % 13 == 0;
+    }
+
+    private static boolean isNullStruct(int row)
+    {
+        return row % 5 == 0;
+    }
+
+    private static boolean isNullStructField(int row)
+    {
+        return row % 7 == 3;
+    }
+
+    private static boolean isNullArray(int row)
+    {
+        return row % 9 == 0;
+    }
+
+    private static byte[] bytes(String value)
+    {
+        return value.getBytes(UTF_8);
+    }
+
+    private static void writeFile(TempFile tempFile, List<Type> types, List<Block> columns)
+            throws IOException
+    {
+        ImmutableList.Builder<String> columnNames = ImmutableList.builder();
+        for (int column = 0; column < types.size(); column++) {
+            columnNames.add("c" + column);
+        }
+
+        OrcWriter writer = new OrcWriter(
+                new OutputStreamOrcDataSink(new FileOutputStream(tempFile.getFile())),
+                columnNames.build(),
+                types,
+                ORC,
+                NONE,
+                new OrcWriterOptions(),
+                ImmutableMap.of(),
+                HIVE_STORAGE_TIME_ZONE,
+                true,
+                BOTH,
+                new OrcWriterStats());
+        writer.write(new Page(columns.toArray(new Block[0])));
+        writer.close();
+    }
+
+    private static OrcSelectiveRecordReader createSelectiveRecordReader(
+            TempFile tempFile,
+            Map<Integer, Type> includedColumns,
+            List<Integer> outputColumns,
+            Map<Integer, Map<Subfield, TupleDomainFilter>> filters)
+            throws IOException
+    {
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), true);
+        OrcReader orcReader = new OrcReader(orcDataSource, ORC, new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), MAX_BLOCK_SIZE);
+        return orcReader.createSelectiveRecordReader(
+                includedColumns,
+                outputColumns,
+                filters,
+                OrcPredicate.TRUE,
+                0,
+                orcDataSource.getSize(),
+                HIVE_STORAGE_TIME_ZONE,
+                newSimpleAggregatedMemoryContext(),
+                INITIAL_BATCH_SIZE);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.weakref.jmx.Managed;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caches the parsed footers of Parquet files, so that the splits of a file which are read
+ * on the same worker do not read and decode the footer again. A file is identified by its
+ * path and size. The size of a footer is estimated from the number of column chunks it describes.
+ */
+public class ParquetMetadataCache
+{
+    private static final long FOOTER_BASE_SIZE = 1024;
+    private static final long COLUMN_CHUNK_SIZE = 256;
+
+    private final long maxSize;
+    private final Cache<FileKey, ParquetMetadata> cache;
+
+    public ParquetMetadataCache(DataSize maxSize)
+    {
+        this.maxSize = requireNonNull(maxSize, "maxSize is null").toBytes();
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(this.maxSize)
+                .<FileKey, ParquetMetadata>weigher((key, metadata) -> toIntExact(min(getEstimatedSize(metadata), Integer.MAX_VALUE)))
+                .recordStats()
+                .build();
+    }
+
+    public ParquetMetadata getParquetMetadata(Path path, long fileSize, ParquetMetadataLoader loader)
+            throws IOException
+    {
+        if (maxSize == 0) {
+            return loader.load();
+        }
+
+        try {
+            return cache.get(new FileKey(path.toString(), fileSize), loader::load);
+        }
+        catch (ExecutionException | UncheckedExecutionException e) {
+            throwIfInstanceOf(e.getCause(), IOException.class);
+            throwIfUnchecked(e.getCause());
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    private static long getEstimatedSize(ParquetMetadata metadata)
+    {
+        long size = FOOTER_BASE_SIZE;
+        for (BlockMetaData block : metadata.getBlocks()) {
+            size += block.getColumns().size() * COLUMN_CHUNK_SIZE;
+        }
+        return size;
+    }
+
+    public interface ParquetMetadataLoader
+    {
+        ParquetMetadata load()
+                throws IOException;
+    }
+
+    private static final class FileKey
+    {
+        private final String path;
+        private final long size;
+
+        public FileKey(String path, long size)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey that = (FileKey) o;
+            return size == that.size &&
+                    Objects.equals(path, that.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, size);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("size", size)
+                    .toString();
+        }
+    }
+}
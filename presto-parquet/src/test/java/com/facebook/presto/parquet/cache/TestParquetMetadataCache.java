@@ -0,0 +1,185 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.parquet.cache;
+
+import com.facebook.presto.parquet.cache.ParquetMetadataCache.ParquetMetadataLoader;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.Path;
+import org.apache.parquet.column.statistics.LongStatistics;
+import org.apache.parquet.hadoop.metadata.BlockMetaData;
+import org.apache.parquet.hadoop.metadata.ColumnChunkMetaData;
+import org.apache.parquet.hadoop.metadata.FileMetaData;
+import org.apache.parquet.hadoop.metadata.ParquetMetadata;
+import org.apache.parquet.schema.MessageType;
+import org.apache.parquet.schema.PrimitiveType;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.apache.parquet.column.Encoding.PLAIN;
+import static org.apache.parquet.hadoop.metadata.ColumnPath.fromDotString;
+import static org.apache.parquet.hadoop.metadata.CompressionCodecName.UNCOMPRESSED;
+import static org.apache.parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static org.apache.parquet.schema.Type.Repetition.OPTIONAL;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.expectThrows;
+
+public class TestParquetMetadataCache
+{
+    private static final Path PATH = new Path("file:///tmp/test.parquet");
+
+    @Test
+    public void testMetadataReuse()
+            throws Exception
+    {
+        ParquetMetadataCache cache = new ParquetMetadataCache(new DataSize(1, MEGABYTE));
+        CountingLoader loader = new CountingLoader(4);
+
+        ParquetMetadata metadata = cache.getParquetMetadata(PATH, 1_000, loader);
+        assertEquals(loader.getLoadCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getHitCount(), 0);
+
+        // the footer of the second split of the file comes from the cache
+        assertSame(cache.getParquetMetadata(PATH, 1_000, loader), metadata);
+        assertEquals(loader.getLoadCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getSize(), 1);
+    }
+
+    @Test
+    public void testFileChange()
+            throws Exception
+    {
+        ParquetMetadataCache cache = new ParquetMetadataCache(new DataSize(1, MEGABYTE));
+        CountingLoader loader = new CountingLoader(4);
+
+        ParquetMetadata metadata = cache.getParquetMetadata(PATH, 1_000, loader);
+
+        // a file which was rewritten with a different size is read again
+        ParquetMetadata rewrittenMetadata = cache.getParquetMetadata(PATH, 2_000, loader);
+        assertNotSame(rewrittenMetadata, metadata);
+        assertEquals(loader.getLoadCount(), 2);
+
+        // another file with the same size is read as well
+        assertNotSame(cache.getParquetMetadata(new Path("file:///tmp/other.parquet"), 1_000, loader), metadata);
+        assertEquals(loader.getLoadCount(), 3);
+
+        assertSame(cache.getParquetMetadata(PATH, 2_000, loader), rewrittenMetadata);
+        assertEquals(loader.getLoadCount(), 3);
+        assertEquals(cache.getMissCount(), 3);
+        assertEquals(cache.getHitCount(), 1);
+    }
+
+    @Test
+    public void testEviction()
+            throws Exception
+    {
+        // every footer is estimated at 2 kB, so the cache holds at most 5 of them
+        ParquetMetadataCache cache = new ParquetMetadataCache(new DataSize(10, KILOBYTE));
+        CountingLoader loader = new CountingLoader(4);
+
+        for (int file = 0; file < 20; file++) {
+            cache.getParquetMetadata(new Path("file:///tmp/test" + file + ".parquet"), 1_000, loader);
+        }
+        assertEquals(loader.getLoadCount(), 20);
+        assertTrue(cache.getSize() <= 5, "cache size is " + cache.getSize());
+        assertEquals(cache.getEvictionCount(), 20 - cache.getSize());
+
+        // the most recently read footer is still cached
+        cache.getParquetMetadata(new Path("file:///tmp/test19.parquet"), 1_000, loader);
+        assertEquals(loader.getLoadCount(), 20);
+
+        // a footer larger than the cache is not retained
+        cache.getParquetMetadata(PATH, 1_000, new CountingLoader(100));
+        cache.getParquetMetadata(PATH, 1_000, loader);
+        assertEquals(loader.getLoadCount(), 21);
+    }
+
+    @Test
+    public void testLoadFailure()
+            throws Exception
+    {
+        ParquetMetadataCache cache = new ParquetMetadataCache(new DataSize(1, MEGABYTE));
+
+        IOException exception = new IOException("corrupt footer");
+        assertSame(expectThrows(IOException.class, () -> cache.getParquetMetadata(PATH, 1_000, () -> {
+            throw exception;
+        })), exception);
+
+        // failures are not cached
+        CountingLoader loader = new CountingLoader(4);
+        cache.getParquetMetadata(PATH, 1_000, loader);
+        assertEquals(loader.getLoadCount(), 1);
+    }
+
+    @Test
+    public void testDisabledCache()
+            throws Exception
+    {
+        ParquetMetadataCache cache = new ParquetMetadataCache(new DataSize(0, BYTE));
+        CountingLoader loader = new CountingLoader(4);
+
+        assertNotSame(cache.getParquetMetadata(PATH, 1_000, loader), cache.getParquetMetadata(PATH, 1_000, loader));
+        assertEquals(loader.getLoadCount(), 2);
+        assertEquals(cache.getMissCount(), 0);
+        assertEquals(cache.getHitCount(), 0);
+        assertEquals(cache.getSize(), 0);
+    }
+
+    private static class CountingLoader
+            implements ParquetMetadataLoader
+    {
+        private final int columnCount;
+        private final AtomicInteger loadCount = new AtomicInteger();
+
+        public CountingLoader(int columnCount)
+        {
+            this.columnCount = columnCount;
+        }
+
+        @Override
+        @SuppressWarnings("deprecation")
+        public ParquetMetadata load()
+        {
+            loadCount.incrementAndGet();
+
+            ImmutableList.Builder<org.apache.parquet.schema.Type> fields = ImmutableList.builder();
+            BlockMetaData block = new BlockMetaData();
+            for (int column = 0; column < columnCount; column++) {
+                String name = "c" + column;
+                fields.add(new PrimitiveType(OPTIONAL, INT64, name));
+                block.addColumn(ColumnChunkMetaData.get(fromDotString(name), INT64, UNCOMPRESSED, ImmutableSet.of(PLAIN), new LongStatistics(), 0, 0, 1, 1, 1));
+            }
+            FileMetaData fileMetaData = new FileMetaData(new MessageType("test", fields.build()), ImmutableMap.of(), "test");
+            return new ParquetMetadata(fileMetaData, ImmutableList.of(block));
+        }
+
+        public int getLoadCount()
+        {
+            return loadCount.get();
+        }
+    }
+}
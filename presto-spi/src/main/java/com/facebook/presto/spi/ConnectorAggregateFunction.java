@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import com.facebook.presto.spi.type.Type;
+
+import java.util.List;
+import java.util.Objects;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An aggregate function call over columns of a table, as offered to
+ * {@link com.facebook.presto.spi.connector.ConnectorMetadata#pushdownAggregation}.
+ */
+public class ConnectorAggregateFunction
+{
+    private final String functionName;
+    private final List<ColumnHandle> arguments;
+    private final Type outputType;
+    private final boolean distinct;
+
+    public ConnectorAggregateFunction(String functionName, List<ColumnHandle> arguments, Type outputType, boolean distinct)
+    {
+        this.functionName = requireNonNull(functionName, "functionName is null");
+        this.arguments = unmodifiableList(requireNonNull(arguments, "arguments is null"));
+        this.outputType = requireNonNull(outputType, "outputType is null");
+        this.distinct = distinct;
+    }
+
+    public String getFunctionName()
+    {
+        return functionName;
+    }
+
+    public List<ColumnHandle> getArguments()
+    {
+        return arguments;
+    }
+
+    public Type getOutputType()
+    {
+        return outputType;
+    }
+
+    public boolean isDistinct()
+    {
+        return distinct;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConnectorAggregateFunction that = (ConnectorAggregateFunction) o;
+        return distinct == that.distinct &&
+                Objects.equals(functionName, that.functionName) &&
+                Objects.equals(arguments, that.arguments) &&
+                Objects.equals(outputType, that.outputType);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(functionName, arguments, outputType, distinct);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder builder = new StringBuilder(functionName).append('(');
+        if (distinct) {
+            builder.append("DISTINCT ");
+        }
+        return builder.append(arguments).append(')').toString();
+    }
+}
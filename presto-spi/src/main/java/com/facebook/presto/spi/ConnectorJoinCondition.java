@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Objects;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * An equality between a column of the left table and a column of the right table of an inner join, as offered to
+ * {@link com.facebook.presto.spi.connector.ConnectorMetadata#pushdownJoin}. Rows with a null in either column do not match.
+ */
+public class ConnectorJoinCondition
+{
+    private final ColumnHandle left;
+    private final ColumnHandle right;
+
+    public ConnectorJoinCondition(ColumnHandle left, ColumnHandle right)
+    {
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+    }
+
+    public ColumnHandle getLeft()
+    {
+        return left;
+    }
+
+    public ColumnHandle getRight()
+    {
+        return right;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ConnectorJoinCondition that = (ConnectorJoinCondition) o;
+        return Objects.equals(left, that.left) &&
+                Objects.equals(right, that.right);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(left, right);
+    }
+
+    @Override
+    public String toString()
+    {
+        return left + " = " + right;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+public class ConnectorPushdownAggregationResult
+{
+    private final ConnectorTableHandle tableHandle;
+    private final List<ColumnHandle> groupingColumns;
+    private final List<ColumnHandle> aggregateColumns;
+
+    /**
+     * @param tableHandle handle of the aggregated table
+     * @param groupingColumns columns of the aggregated table holding the grouping keys, in the order they were requested
+     * @param aggregateColumns columns of the aggregated table holding the aggregate values, in the order they were requested
+     */
+    public ConnectorPushdownAggregationResult(ConnectorTableHandle tableHandle, List<ColumnHandle> groupingColumns, List<ColumnHandle> aggregateColumns)
+    {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.groupingColumns = unmodifiableList(requireNonNull(groupingColumns, "groupingColumns is null"));
+        this.aggregateColumns = unmodifiableList(requireNonNull(aggregateColumns, "aggregateColumns is null"));
+    }
+
+    public ConnectorTableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public List<ColumnHandle> getGroupingColumns()
+    {
+        return groupingColumns;
+    }
+
+    public List<ColumnHandle> getAggregateColumns()
+    {
+        return aggregateColumns;
+    }
+}
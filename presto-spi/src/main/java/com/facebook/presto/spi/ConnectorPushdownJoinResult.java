@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+public class ConnectorPushdownJoinResult
+{
+    private final ConnectorTableHandle tableHandle;
+    private final List<ColumnHandle> leftColumns;
+    private final List<ColumnHandle> rightColumns;
+
+    /**
+     * @param tableHandle handle of the joined table
+     * @param leftColumns columns of the joined table holding the requested columns of the left table, in the order they were requested
+     * @param rightColumns columns of the joined table holding the requested columns of the right table, in the order they were requested
+     */
+    public ConnectorPushdownJoinResult(ConnectorTableHandle tableHandle, List<ColumnHandle> leftColumns, List<ColumnHandle> rightColumns)
+    {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.leftColumns = unmodifiableList(requireNonNull(leftColumns, "leftColumns is null"));
+        this.rightColumns = unmodifiableList(requireNonNull(rightColumns, "rightColumns is null"));
+    }
+
+    public ConnectorTableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public List<ColumnHandle> getLeftColumns()
+    {
+        return leftColumns;
+    }
+
+    public List<ColumnHandle> getRightColumns()
+    {
+        return rightColumns;
+    }
+}
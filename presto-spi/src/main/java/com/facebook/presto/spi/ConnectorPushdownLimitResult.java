@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import static java.util.Objects.requireNonNull;
+
+public class ConnectorPushdownLimitResult
+{
+    private final ConnectorTableHandle tableHandle;
+    private final boolean limitGuaranteed;
+
+    /**
+     * @param tableHandle handle of the limited table
+     * @param limitGuaranteed whether the limited table has at most the requested number of rows in total,
+     * rather than in each of its splits
+     */
+    public ConnectorPushdownLimitResult(ConnectorTableHandle tableHandle, boolean limitGuaranteed)
+    {
+        this.tableHandle = requireNonNull(tableHandle, "tableHandle is null");
+        this.limitGuaranteed = limitGuaranteed;
+    }
+
+    public ConnectorTableHandle getTableHandle()
+    {
+        return tableHandle;
+    }
+
+    public boolean isLimitGuaranteed()
+    {
+        return limitGuaranteed;
+    }
+}
@@ -15,11 +15,24 @@ package com.facebook.presto.spi;
 
 import java.util.List;
 
+import static java.util.Collections.emptyList;
+
 public interface ConnectorSplit
 {
     boolean isRemotelyAccessible();
 
     List<HostAddress> getAddresses();
 
+    /**
+     * Returns the nodes, chosen from the given candidates, on which a remotely accessible
+     * split should preferably run, e.g. to make use of data cached on those nodes.
+     * Unlike {@link #getAddresses()}, this is only a preference: the split is scheduled
+     * on other nodes when the preferred ones are busy.
+     */
+    default List<HostAddress> getPreferredNodes(List<HostAddress> candidates)
+    {
+        return emptyList();
+    }
+
     Object getInfo();
 }
@@ -15,10 +15,15 @@ package com.facebook.presto.spi.connector;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
+import com.facebook.presto.spi.ConnectorJoinCondition;
 import com.facebook.presto.spi.ConnectorNewTableLayout;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPushdownAggregationResult;
 import com.facebook.presto.spi.ConnectorPushdownFilterResult;
+import com.facebook.presto.spi.ConnectorPushdownJoinResult;
+import com.facebook.presto.spi.ConnectorPushdownLimitResult;
 import com.facebook.presto.spi.ConnectorResolvedIndex;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
@@ -31,6 +36,7 @@ import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.api.Experimental;
 import com.facebook.presto.spi.predicate.TupleDomain;
@@ -147,6 +153,81 @@ public interface ConnectorMetadata
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Experimental: returns a table handle whose rows are the rows of the given layout grouped by
+     * {@code groupingColumns}, with {@code aggregates} computed over each group, or empty if the
+     * connector cannot compute the aggregation itself. With no grouping columns, the aggregated
+     * table has exactly one row, also when the layout has no rows.
+     * <p>
+     * The engine reads all the splits of the returned table handle as the final aggregation result,
+     * so the connector must not split the aggregation across splits. The connector must keep the
+     * aggregation when the engine picks layouts of the returned table handle.
+     */
+    @Experimental
+    default Optional<ConnectorPushdownAggregationResult> pushdownAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            List<ColumnHandle> groupingColumns,
+            List<ConnectorAggregateFunction> aggregates)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Experimental: returns a table handle whose rows are at most {@code limit} rows of the given layout,
+     * or empty if the connector cannot limit the rows itself. Unless the result reports the limit as
+     * guaranteed, the limit may only hold for each split, and the engine keeps limiting the rows.
+     * The connector must keep the limit when the engine picks layouts of the returned table handle.
+     */
+    @Experimental
+    default Optional<ConnectorPushdownLimitResult> pushdownLimit(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long limit)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Experimental: returns a table handle whose rows include the first {@code count} rows of the given layout
+     * in {@code sortOrder}, or empty if the connector cannot select them itself. The rows of the returned table
+     * handle need not be sorted, and unless the result reports the limit as guaranteed, may hold the first
+     * {@code count} rows of each split. The engine always sorts and limits the rows again.
+     * The connector must keep the selection when the engine picks layouts of the returned table handle.
+     */
+    @Experimental
+    default Optional<ConnectorPushdownLimitResult> pushdownTopN(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long count,
+            List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Experimental: returns a table handle whose rows are the rows of the inner join of the given layouts of two tables
+     * of this connector on the given conditions, or empty if the connector cannot join them itself. The rows of each layout
+     * are filtered as the connector filters them when reading the layout alone. The joined table has a column for each of
+     * the requested columns of both tables. The connector must keep the join when the engine picks layouts of the returned table handle.
+     */
+    @Experimental
+    default Optional<ConnectorPushdownJoinResult> pushdownJoin(
+            ConnectorSession session,
+            ConnectorTableHandle leftTableHandle,
+            ConnectorTableLayoutHandle leftLayoutHandle,
+            ConnectorTableHandle rightTableHandle,
+            ConnectorTableLayoutHandle rightLayoutHandle,
+            List<ConnectorJoinCondition> conditions,
+            List<ColumnHandle> leftColumns,
+            List<ColumnHandle> rightColumns)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Return a partitioning handle which the connector can transparently convert both {@code left} and {@code right} into.
      */
@@ -218,6 +299,16 @@ public interface ConnectorMetadata
         return Optional.empty();
     }
 
+    /**
+     * Return a version of the data read through the specified table layout, which changes whenever
+     * the data changes, or empty if the connector does not know when the data changes. The engine
+     * only reuses the results of queries whose inputs all report an unchanged version.
+     */
+    default Optional<String> getDataVersion(ConnectorSession session, ConnectorTableLayoutHandle layoutHandle)
+    {
+        return Optional.empty();
+    }
+
     /**
      * List table names, possibly filtered by schema. An empty list is returned if none match.
      *
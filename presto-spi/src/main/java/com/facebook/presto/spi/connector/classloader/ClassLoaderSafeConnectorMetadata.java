@@ -15,10 +15,15 @@ package com.facebook.presto.spi.connector.classloader;
 
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.ConnectorAggregateFunction;
 import com.facebook.presto.spi.ConnectorInsertTableHandle;
+import com.facebook.presto.spi.ConnectorJoinCondition;
 import com.facebook.presto.spi.ConnectorNewTableLayout;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
+import com.facebook.presto.spi.ConnectorPushdownAggregationResult;
 import com.facebook.presto.spi.ConnectorPushdownFilterResult;
+import com.facebook.presto.spi.ConnectorPushdownJoinResult;
+import com.facebook.presto.spi.ConnectorPushdownLimitResult;
 import com.facebook.presto.spi.ConnectorResolvedIndex;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorTableHandle;
@@ -30,6 +35,7 @@ import com.facebook.presto.spi.ConnectorViewDefinition;
 import com.facebook.presto.spi.Constraint;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.SortingProperty;
 import com.facebook.presto.spi.SystemTable;
 import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
@@ -105,6 +111,56 @@ public class ClassLoaderSafeConnectorMetadata
         }
     }
 
+    @Override
+    public Optional<ConnectorPushdownAggregationResult> pushdownAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            List<ColumnHandle> groupingColumns,
+            List<ConnectorAggregateFunction> aggregates)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushdownAggregation(session, tableHandle, layoutHandle, groupingColumns, aggregates);
+        }
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownLimit(ConnectorSession session, ConnectorTableHandle tableHandle, ConnectorTableLayoutHandle layoutHandle, long limit)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushdownLimit(session, tableHandle, layoutHandle, limit);
+        }
+    }
+
+    @Override
+    public Optional<ConnectorPushdownLimitResult> pushdownTopN(
+            ConnectorSession session,
+            ConnectorTableHandle tableHandle,
+            ConnectorTableLayoutHandle layoutHandle,
+            long count,
+            List<SortingProperty<ColumnHandle>> sortOrder)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushdownTopN(session, tableHandle, layoutHandle, count, sortOrder);
+        }
+    }
+
+    @Override
+    public Optional<ConnectorPushdownJoinResult> pushdownJoin(
+            ConnectorSession session,
+            ConnectorTableHandle leftTableHandle,
+            ConnectorTableLayoutHandle leftLayoutHandle,
+            ConnectorTableHandle rightTableHandle,
+            ConnectorTableLayoutHandle rightLayoutHandle,
+            List<ConnectorJoinCondition> conditions,
+            List<ColumnHandle> leftColumns,
+            List<ColumnHandle> rightColumns)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.pushdownJoin(session, leftTableHandle, leftLayoutHandle, rightTableHandle, rightLayoutHandle, conditions, leftColumns, rightColumns);
+        }
+    }
+
     @Override
     public Optional<ConnectorPartitioningHandle> getCommonPartitioningHandle(ConnectorSession session, ConnectorPartitioningHandle left, ConnectorPartitioningHandle right)
     {
@@ -241,6 +297,14 @@ public class ClassLoaderSafeConnectorMetadata
         }
     }
 
+    @Override
+    public Optional<String> getDataVersion(ConnectorSession session, ConnectorTableLayoutHandle layoutHandle)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return delegate.getDataVersion(session, layoutHandle);
+        }
+    }
+
     @Override
     public List<SchemaTableName> listTables(ConnectorSession session, Optional<String> schemaName)
     {
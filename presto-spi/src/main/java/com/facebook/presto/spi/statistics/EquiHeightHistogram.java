@@ -0,0 +1,250 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static java.lang.Double.isFinite;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Distribution of the non-null values of a column, as a list of bucket boundaries such that
+ * every bucket holds the same fraction of the values. The values are in the same double
+ * representation as {@link DoubleRange}. A value that is frequent enough to fill a whole
+ * bucket shows up as a bucket with equal boundaries.
+ */
+public final class EquiHeightHistogram
+{
+    private final double[] boundaries;
+
+    @JsonCreator
+    public EquiHeightHistogram(@JsonProperty("boundaries") List<Double> boundaries)
+    {
+        requireNonNull(boundaries, "boundaries is null");
+        if (boundaries.size() < 2) {
+            throw new IllegalArgumentException(format("histogram must have at least two boundaries: %s", boundaries));
+        }
+        this.boundaries = new double[boundaries.size()];
+        for (int i = 0; i < boundaries.size(); i++) {
+            double boundary = requireNonNull(boundaries.get(i), "boundary is null");
+            if (!isFinite(boundary)) {
+                throw new IllegalArgumentException(format("boundaries must be finite: %s", boundaries));
+            }
+            if (i > 0 && boundary < this.boundaries[i - 1]) {
+                throw new IllegalArgumentException(format("boundaries must be sorted: %s", boundaries));
+            }
+            this.boundaries[i] = boundary;
+        }
+    }
+
+    @JsonProperty
+    public List<Double> getBoundaries()
+    {
+        List<Double> result = new ArrayList<>(boundaries.length);
+        for (double boundary : boundaries) {
+            result.add(boundary);
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    public int getBucketCount()
+    {
+        return boundaries.length - 1;
+    }
+
+    public double getLow()
+    {
+        return boundaries[0];
+    }
+
+    public double getHigh()
+    {
+        return boundaries[boundaries.length - 1];
+    }
+
+    /**
+     * Returns the fraction of the values that are between {@code low} and {@code high}, inclusive.
+     * Values are assumed to be spread evenly within a bucket.
+     */
+    public double fractionBetween(double low, double high)
+    {
+        if (low > high) {
+            return 0;
+        }
+        return max(fractionAtOrBelow(high) - fractionBelow(low), 0);
+    }
+
+    /**
+     * Returns the fraction of the values per unit of length around the value, not counting
+     * the values that fill whole buckets on their own.
+     */
+    public double density(double value)
+    {
+        if (value < getLow() || value > getHigh()) {
+            return 0;
+        }
+        int bucket = lastBoundaryAtOrBelow(value);
+        if (bucket == getBucketCount()) {
+            // the value is the highest boundary, use the last bucket that is not a single value
+            bucket = lastBoundaryBelow(value);
+            if (bucket < 0) {
+                return 0;
+            }
+        }
+        return 1.0 / getBucketCount() / (boundaries[bucket + 1] - boundaries[bucket]);
+    }
+
+    private double fractionAtOrBelow(double value)
+    {
+        if (value < getLow()) {
+            return 0;
+        }
+        if (value >= getHigh()) {
+            return 1;
+        }
+        int bucket = lastBoundaryAtOrBelow(value);
+        return (bucket + (value - boundaries[bucket]) / (boundaries[bucket + 1] - boundaries[bucket])) / getBucketCount();
+    }
+
+    private double fractionBelow(double value)
+    {
+        if (value <= getLow()) {
+            return 0;
+        }
+        if (value > getHigh()) {
+            return 1;
+        }
+        int bucket = lastBoundaryBelow(value);
+        return (bucket + (value - boundaries[bucket]) / (boundaries[bucket + 1] - boundaries[bucket])) / getBucketCount();
+    }
+
+    private int lastBoundaryAtOrBelow(double value)
+    {
+        int index = -1;
+        while (index + 1 < boundaries.length && boundaries[index + 1] <= value) {
+            index++;
+        }
+        return index;
+    }
+
+    private int lastBoundaryBelow(double value)
+    {
+        int index = -1;
+        while (index + 1 < boundaries.length && boundaries[index + 1] < value) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Returns a histogram with the given number of buckets for the union of values described by
+     * the histograms, where each histogram stands for the given number of values.
+     */
+    public static EquiHeightHistogram merge(List<EquiHeightHistogram> histograms, List<Double> valueCounts, int bucketCount)
+    {
+        requireNonNull(histograms, "histograms is null");
+        requireNonNull(valueCounts, "valueCounts is null");
+        if (histograms.isEmpty() || histograms.size() != valueCounts.size()) {
+            throw new IllegalArgumentException(format("expected a value count for each of the histograms: %s %s", histograms, valueCounts));
+        }
+        if (bucketCount < 1) {
+            throw new IllegalArgumentException(format("bucketCount must be positive: %s", bucketCount));
+        }
+        double totalValueCount = 0;
+        for (double valueCount : valueCounts) {
+            if (!(valueCount >= 0) || !isFinite(valueCount)) {
+                throw new IllegalArgumentException(format("valueCounts must be non-negative: %s", valueCounts));
+            }
+            totalValueCount += valueCount;
+        }
+        if (totalValueCount == 0) {
+            throw new IllegalArgumentException("histograms must describe at least one value");
+        }
+
+        // the merged distribution is linear between the boundaries of all histograms
+        TreeSet<Double> allBoundaries = new TreeSet<>();
+        for (EquiHeightHistogram histogram : histograms) {
+            for (double boundary : histogram.boundaries) {
+                allBoundaries.add(boundary);
+            }
+        }
+        double[] points = allBoundaries.stream().mapToDouble(Double::doubleValue).toArray();
+        double[] atOrBelow = new double[points.length];
+        double[] below = new double[points.length];
+        for (int i = 0; i < points.length; i++) {
+            for (int j = 0; j < histograms.size(); j++) {
+                double weight = valueCounts.get(j) / totalValueCount;
+                atOrBelow[i] += weight * histograms.get(j).fractionAtOrBelow(points[i]);
+                below[i] += weight * histograms.get(j).fractionBelow(points[i]);
+            }
+        }
+
+        Double[] result = new Double[bucketCount + 1];
+        int point = 0;
+        for (int bucket = 0; bucket <= bucketCount; bucket++) {
+            double fraction = (double) bucket / bucketCount;
+            while (point < points.length - 1 && atOrBelow[point] < fraction) {
+                point++;
+            }
+            double boundary = points[point];
+            if (point > 0 && fraction < below[point] && below[point] > atOrBelow[point - 1]) {
+                // the fraction is reached between two points, rather than at the values of a single point
+                double start = atOrBelow[point - 1];
+                boundary = points[point - 1] + (points[point] - points[point - 1]) * (fraction - start) / (below[point] - start);
+            }
+            result[bucket] = min(max(boundary, points[0]), points[points.length - 1]);
+            if (bucket > 0) {
+                result[bucket] = max(result[bucket], result[bucket - 1]);
+            }
+        }
+        return new EquiHeightHistogram(Arrays.asList(result));
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        EquiHeightHistogram that = (EquiHeightHistogram) o;
+        return Arrays.equals(boundaries, that.boundaries);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Arrays.hashCode(boundaries);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EquiHeightHistogram{" +
+                "boundaries=" + Arrays.toString(boundaries) +
+                '}';
+    }
+}
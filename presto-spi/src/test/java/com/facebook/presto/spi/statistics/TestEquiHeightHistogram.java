@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.statistics.EquiHeightHistogram.merge;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+
+public class TestEquiHeightHistogram
+{
+    private static final double EPSILON = 1e-9;
+
+    @Test
+    public void testHistogram()
+    {
+        EquiHeightHistogram histogram = histogram(0, 10, 20, 40);
+        assertEquals(histogram.getBucketCount(), 3);
+        assertEquals(histogram.getLow(), 0.0);
+        assertEquals(histogram.getHigh(), 40.0);
+        assertEquals(histogram.getBoundaries(), ImmutableList.of(0.0, 10.0, 20.0, 40.0));
+
+        assertThatThrownBy(() -> histogram(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram(1, 0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram(0, Double.POSITIVE_INFINITY)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> histogram(Double.NaN, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void testFractionBetween()
+    {
+        EquiHeightHistogram histogram = histogram(0, 10, 20, 40);
+        assertEquals(histogram.fractionBetween(0, 40), 1.0, EPSILON);
+        assertEquals(histogram.fractionBetween(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY), 1.0, EPSILON);
+        assertEquals(histogram.fractionBetween(0, 10), 1.0 / 3, EPSILON);
+        assertEquals(histogram.fractionBetween(5, 30), 2.0 / 3, EPSILON);
+        assertEquals(histogram.fractionBetween(5, 5), 0.0, EPSILON);
+        assertEquals(histogram.fractionBetween(50, 60), 0.0, EPSILON);
+        assertEquals(histogram.fractionBetween(30, 5), 0.0, EPSILON);
+
+        // a third of the values are 5
+        EquiHeightHistogram frequentValue = histogram(0, 5, 5, 10);
+        assertEquals(frequentValue.fractionBetween(5, 5), 1.0 / 3, EPSILON);
+        assertEquals(frequentValue.fractionBetween(0, 5), 2.0 / 3, EPSILON);
+        assertEquals(frequentValue.fractionBetween(6, 10), 4.0 / 15, EPSILON);
+    }
+
+    @Test
+    public void testDensity()
+    {
+        EquiHeightHistogram histogram = histogram(0, 10, 20, 40);
+        assertEquals(histogram.density(5), 1.0 / 30, EPSILON);
+        assertEquals(histogram.density(30), 1.0 / 60, EPSILON);
+        assertEquals(histogram.density(40), 1.0 / 60, EPSILON);
+        assertEquals(histogram.density(50), 0.0, EPSILON);
+        assertEquals(histogram(3, 3).density(3), 0.0, EPSILON);
+    }
+
+    @Test
+    public void testMerge()
+    {
+        assertEquals(merge(ImmutableList.of(histogram(0, 10), histogram(10, 20)), ImmutableList.of(1.0, 1.0), 2), histogram(0, 10, 20));
+        assertEquals(merge(ImmutableList.of(histogram(0, 10), histogram(10, 20)), ImmutableList.of(3.0, 1.0), 2), histogram(0, 20.0 / 3, 20));
+        assertEquals(merge(ImmutableList.of(histogram(0, 10), histogram(5, 5)), ImmutableList.of(1.0, 1.0), 2), histogram(0, 5, 10));
+        assertEquals(merge(ImmutableList.of(histogram(0, 10), histogram(20, 30)), ImmutableList.of(1.0, 0.0), 2), histogram(0, 5, 10));
+
+        assertThatThrownBy(() -> merge(ImmutableList.of(histogram(0, 10)), ImmutableList.of(), 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> merge(ImmutableList.of(histogram(0, 10)), ImmutableList.of(0.0), 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> merge(ImmutableList.of(histogram(0, 10)), ImmutableList.of(1.0), 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static EquiHeightHistogram histogram(double... boundaries)
+    {
+        ImmutableList.Builder<Double> builder = ImmutableList.builder();
+        for (double boundary : boundaries) {
+            builder.add(boundary);
+        }
+        return new EquiHeightHistogram(builder.build());
+    }
+}
@@ -73,6 +73,13 @@ public class SqlServerClient
         }
     }
 
+    @Override
+    protected boolean supportsLimit()
+    {
+        // SQL Server limits rows with TOP n or OFFSET ... FETCH, not LIMIT n
+        return false;
+    }
+
     private static String singleQuote(String... objects)
     {
         return singleQuote(DOT_JOINER.join(objects));
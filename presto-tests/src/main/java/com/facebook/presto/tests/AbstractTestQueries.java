@@ -54,6 +54,8 @@ import java.util.Set;
 import java.util.stream.IntStream;
 
 import static com.facebook.presto.SystemSessionProperties.DISTRIBUTED_SORT;
+import static com.facebook.presto.SystemSessionProperties.DYNAMIC_FILTERING_MAX_DISTINCT_VALUES;
+import static com.facebook.presto.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
 import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
 import static com.facebook.presto.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
 import static com.facebook.presto.connector.informationSchema.InformationSchemaMetadata.INFORMATION_SCHEMA;
@@ -810,6 +812,20 @@ public abstract class AbstractTestQueries
         assertQuery("SELECT orderstatus FROM lineitem JOIN (SELECT DISTINCT orderkey, orderstatus FROM orders) T on lineitem.orderkey = T.orderkey");
     }
 
+    @Test
+    public void testJoinWithDynamicFiltering()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(ENABLE_DYNAMIC_FILTERING, "true")
+                .setSystemProperty(DYNAMIC_FILTERING_MAX_DISTINCT_VALUES, "5")
+                .build();
+        assertQuery(session, "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.totalprice > 400000");
+        assertQuery(session, "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.orderkey < 100");
+        assertQuery(session, "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.orderkey < 0");
+        assertQuery(session, "SELECT count(*) FROM lineitem RIGHT JOIN orders ON lineitem.orderkey = orders.orderkey AND orders.orderkey < 100");
+        assertQuery(session, "SELECT l.partkey, o.orderstatus FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey AND l.suppkey = o.custkey WHERE o.orderpriority = '1-URGENT'");
+    }
+
     @Test
     public void testDistinctMultipleFields()
     {
@@ -0,0 +1,35 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tests;
+
+import com.facebook.presto.tests.tpch.TpchQueryRunnerBuilder;
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestStreamingExchange
+{
+    @Test
+    public void smokeTestStreamingExchange()
+            throws Exception
+    {
+        try (DistributedQueryRunner queryRunner = TpchQueryRunnerBuilder.builder()
+                .setSingleExtraProperty("exchange.streaming-enabled", "true")
+                .build()) {
+            // the aggregation repartitions all rows of lineitem, and the join broadcasts the orders
+            assertEquals(queryRunner.execute("SELECT count(*) FROM (SELECT orderkey FROM lineitem GROUP BY orderkey)").getOnlyValue(), 15000L);
+            assertEquals(queryRunner.execute("SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey").getOnlyValue(), 60175L);
+        }
+    }
+}
@@ -13,11 +13,21 @@
  */
 package com.facebook.presto.tests;
 
+import com.facebook.presto.Session;
+import com.facebook.presto.operator.scalar.BloomFilterFunction;
 import com.facebook.presto.tests.tpch.TpchQueryRunnerBuilder;
 import com.google.common.base.Strings;
 import org.intellij.lang.annotations.Language;
 import org.testng.annotations.Test;
 
+import static com.facebook.presto.SystemSessionProperties.ADAPTIVE_HASH_PARTITION_COUNT;
+import static com.facebook.presto.SystemSessionProperties.AGGREGATION_STRATEGY;
+import static com.facebook.presto.SystemSessionProperties.DISTRIBUTE_SKEWED_JOIN_KEYS;
+import static com.facebook.presto.SystemSessionProperties.HASH_PARTITION_TARGET_INPUT_SIZE;
+import static com.facebook.presto.SystemSessionProperties.JOIN_BLOOM_FILTER_ENABLED;
+import static com.facebook.presto.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static com.facebook.presto.SystemSessionProperties.SKEWED_JOIN_KEY_VALUES;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 public class TestTpchDistributedQueries
@@ -77,4 +87,88 @@ public class TestTpchDistributedQueries
         }
         assertTrue(sampleSizeFound, "Table sample returned unexpected number of rows");
     }
+
+    @Test
+    public void testAdaptiveHashPartitionCount()
+    {
+        @Language("SQL") String query = "SELECT o.custkey, count(*) FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey GROUP BY o.custkey";
+
+        // the estimated input of the join and the aggregation fits in one partition
+        Session session = Session.builder(getSession())
+                .setSystemProperty(ADAPTIVE_HASH_PARTITION_COUNT, "true")
+                .setSystemProperty(HASH_PARTITION_TARGET_INPUT_SIZE, "1GB")
+                .build();
+        assertQuery(session, query);
+        String explain = (String) computeActual(session, "EXPLAIN ANALYZE " + query).getOnlyValue();
+        assertTrue(explain.contains("Partitions: 1 (estimated input: "), explain);
+        assertFalse(explain.matches("(?s).*Partitions: [^1].*"), explain);
+
+        // every partition gets more than the target size, so all the selected nodes are used
+        session = Session.builder(session)
+                .setSystemProperty(HASH_PARTITION_TARGET_INPUT_SIZE, "1B")
+                .build();
+        assertQuery(session, query);
+        explain = (String) computeActual(session, "EXPLAIN ANALYZE " + query).getOnlyValue();
+        assertTrue(explain.matches("(?s).*Partitions: [2-9] \\(estimated input: .*"), explain);
+    }
+
+    @Test
+    public void testDistributeSkewedJoinKeys()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "PARTITIONED")
+                .setSystemProperty(DISTRIBUTE_SKEWED_JOIN_KEYS, "true")
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "1|2|3")
+                .build();
+
+        assertQuery(session, "SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey");
+        assertQuery(session, "SELECT o.custkey, count(*) FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey GROUP BY o.custkey");
+        assertQuery(session, "SELECT n.name, r.name FROM nation n LEFT JOIN region r ON n.regionkey = r.regionkey");
+        // frequent probe keys without build rows are returned once
+        assertQuery(session, "SELECT n.name, r.name FROM nation n LEFT JOIN (SELECT * FROM region WHERE regionkey <> 2) r ON n.regionkey = r.regionkey");
+        assertQuery(session, "SELECT count(*) FROM lineitem l JOIN partsupp ps ON l.partkey = ps.partkey AND l.suppkey = ps.suppkey");
+
+        // values which are not valid for the type of a key do not fail the query
+        Session invalidValues = Session.builder(session)
+                .setSystemProperty(SKEWED_JOIN_KEY_VALUES, "1|abc|2019-01-01")
+                .build();
+        assertQuery(invalidValues, "SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey");
+        assertQuery(invalidValues, "SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey AND o.orderdate = l.shipdate");
+    }
+
+    @Test
+    public void testJoinBloomFilter()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "PARTITIONED")
+                .setSystemProperty(JOIN_BLOOM_FILTER_ENABLED, "true")
+                .build();
+
+        String query = "SELECT l.orderkey, l.linenumber FROM lineitem l JOIN part p ON p.partkey = l.partkey WHERE p.size < 3";
+        assertTrue(((String) computeActual(session, "EXPLAIN " + query).getOnlyValue()).contains(BloomFilterFunction.NAME));
+        assertQuery(session, query);
+        assertQuery(session, "SELECT l.orderkey, l.linenumber FROM lineitem l JOIN orders o ON o.orderkey = l.orderkey WHERE o.totalprice < 2000");
+        assertQuery(session, "SELECT l.orderkey, o.orderstatus FROM lineitem l RIGHT JOIN (SELECT * FROM orders WHERE totalprice < 2000) o ON o.orderkey = l.orderkey");
+        assertQuery(session, "SELECT count(*) FROM lineitem l JOIN partsupp ps ON l.partkey = ps.partkey AND l.suppkey = ps.suppkey WHERE ps.availqty < 100");
+        // an empty build side filters out all the probe rows
+        assertQuery(session, "SELECT count(*) FROM lineitem l JOIN orders o ON o.orderkey = l.orderkey WHERE o.totalprice < 0");
+    }
+
+    @Test
+    public void testSortBasedAggregation()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(AGGREGATION_STRATEGY, "SORT")
+                .build();
+
+        @Language("SQL") String query = "SELECT custkey, count(*), sum(totalprice) FROM orders GROUP BY custkey";
+        String plan = (String) computeActual(session, "EXPLAIN " + query).getOnlyValue();
+        assertTrue(plan.contains("Aggregate(STREAMING)"), plan);
+        assertQuery(session, query);
+        assertQuery(session, "SELECT orderstatus, orderpriority, count(DISTINCT custkey), max(orderdate) FROM orders GROUP BY orderstatus, orderpriority");
+        assertQuery(session, "SELECT custkey, count(*) FROM orders GROUP BY custkey HAVING count(*) > 20");
+        // null grouping keys form a group of their own
+        assertQuery(session, "SELECT nullif(orderstatus, 'F'), count(*) FROM orders GROUP BY nullif(orderstatus, 'F')");
+        assertQuery(session, "SELECT n.name, count(*) FROM customer c JOIN nation n ON c.nationkey = n.nationkey GROUP BY n.name");
+    }
 }
@@ -271,6 +271,13 @@ public class TpchMetadata
                 .getTableLayout();
     }
 
+    @Override
+    public Optional<String> getDataVersion(ConnectorSession session, ConnectorTableLayoutHandle handle)
+    {
+        // the data is generated, so it never changes
+        return Optional.of("generated");
+    }
+
     @Override
     public ConnectorTableMetadata getTableMetadata(ConnectorSession session, ConnectorTableHandle tableHandle)
     {